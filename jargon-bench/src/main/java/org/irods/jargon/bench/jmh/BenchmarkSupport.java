@@ -0,0 +1,95 @@
+package org.irods.jargon.bench.jmh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.bench.server.LoopbackServerConfiguration;
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * Fixtures shared by the benchmarks, each of which runs against its own
+ * {@link LoopbackIRODSServer}
+ */
+final class BenchmarkSupport {
+
+	private static final int FILE_CHUNK_SIZE = 1024 * 1024;
+
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * Start a loopback server with the given latency and no bandwidth limit
+	 */
+	static LoopbackIRODSServer startServer(final long latencyMillis)
+			throws JargonException {
+		LoopbackServerConfiguration configuration = new LoopbackServerConfiguration();
+		configuration.setLatencyMillis(latencyMillis);
+		return startServer(configuration);
+	}
+
+	static LoopbackIRODSServer startServer(
+			final LoopbackServerConfiguration configuration)
+			throws JargonException {
+		LoopbackIRODSServer server = LoopbackIRODSServer
+				.instance(configuration);
+		server.start();
+		return server;
+	}
+
+	/**
+	 * Create an empty scratch directory for local files
+	 */
+	static File createScratchDirectory(final String prefix) throws IOException {
+		File dir = File.createTempFile(prefix, "");
+		if (!dir.delete() || !dir.mkdir()) {
+			throw new IOException("unable to create scratch directory:" + dir);
+		}
+		return dir;
+	}
+
+	/**
+	 * Create a local file of the given length, filled with random bytes. The
+	 * file is written a chunk at a time, so it may be larger than the heap.
+	 */
+	static File createLocalFile(final File dir, final String name,
+			final long length) throws IOException {
+		Random random = new Random(length);
+		byte[] chunk = new byte[(int) Math.min(length, FILE_CHUNK_SIZE)];
+		File file = new File(dir, name);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			long written = 0L;
+			while (written < length) {
+				int count = (int) Math.min(chunk.length, length - written);
+				random.nextBytes(chunk);
+				out.write(chunk, 0, count);
+				written += count;
+			}
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Delete a scratch directory and the files in it
+	 */
+	static void deleteScratchDirectory(final File dir) {
+		if (dir == null) {
+			return;
+		}
+
+		File[] children = dir.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				child.delete();
+			}
+		}
+		dir.delete();
+	}
+
+}
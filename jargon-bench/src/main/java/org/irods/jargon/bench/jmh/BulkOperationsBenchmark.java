@@ -0,0 +1,163 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse;
+import org.irods.jargon.core.pub.BulkFileOperationResponse;
+import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
+import org.irods.jargon.core.pub.DataObjectAO;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures AVU, permission, objStat and delete operations on many data
+ * objects, one request and round trip at a time against the batch methods
+ * that pipeline the requests on the connection. The gain grows with the
+ * latency, as it would over a real network.
+ * <p/>
+ * The loopback server answers AVU and permission changes without keeping
+ * them, so the same batch may be sent again. The deletes put the data objects
+ * back in the store before each batch, which costs no round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkOperationsBenchmark {
+
+	@Param({ "0", "1" })
+	public long latencyMillis;
+
+	@Param({ "100", "1000" })
+	public int objectCount;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private DataObjectAO dataObjectAO;
+	private CollectionAndDataObjectListAndSearchAO listAndSearchAO;
+	private String zone;
+	private String userName;
+	private AvuData avuData;
+	private List<String> paths;
+	private Map<String, List<AvuData>> avuDataByPath;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = BenchmarkSupport.startServer(latencyMillis);
+		irodsFileSystem = IRODSFileSystem.instance();
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+		dataObjectAO = accessObjectFactory.getDataObjectAO(irodsAccount);
+		listAndSearchAO = accessObjectFactory
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+		zone = irodsAccount.getZone();
+		userName = irodsAccount.getUserName();
+
+		avuData = AvuData.instance("attribute", "value", "unit");
+		paths = new ArrayList<String>(objectCount);
+		avuDataByPath = new LinkedHashMap<String, List<AvuData>>();
+		for (int i = 0; i < objectCount; i++) {
+			String path = server.getHomeCollection() + "/bulk" + i + ".dat";
+			paths.add(path);
+			avuDataByPath.put(path, Collections.singletonList(avuData));
+		}
+		restoreDataObjects();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Benchmark
+	public void addAVUsOneAtATime() throws Exception {
+		for (String path : paths) {
+			dataObjectAO.addAVUMetadata(path, avuData);
+		}
+	}
+
+	@Benchmark
+	public Map<String, List<BulkAVUOperationResponse>> addAVUsInBatch()
+			throws Exception {
+		return dataObjectAO.addBulkAVUMetadataToDataObjects(avuDataByPath);
+	}
+
+	@Benchmark
+	public void setPermissionsOneAtATime() throws Exception {
+		for (String path : paths) {
+			dataObjectAO.setAccessPermission(zone, path, userName,
+					FilePermissionEnum.READ);
+		}
+	}
+
+	@Benchmark
+	public List<BulkFileOperationResponse> setPermissionsInBatch()
+			throws Exception {
+		return dataObjectAO.setAccessPermissions(zone, paths, userName,
+				FilePermissionEnum.READ);
+	}
+
+	@Benchmark
+	public ObjStat objStatsOneAtATime() throws Exception {
+		ObjStat objStat = null;
+		for (String path : paths) {
+			objStat = listAndSearchAO.retrieveObjectStatForPath(path);
+		}
+		return objStat;
+	}
+
+	@Benchmark
+	public Map<String, ObjStat> objStatsInBatch() throws Exception {
+		return listAndSearchAO.retrieveObjectStatsForPaths(paths);
+	}
+
+	@Benchmark
+	public void deleteOneAtATime() throws Exception {
+		restoreDataObjects();
+		// the same request as the batch, with a round trip for each
+		for (String path : paths) {
+			dataObjectAO.deleteDataObjects(Collections.singletonList(path),
+					true);
+		}
+	}
+
+	@Benchmark
+	public List<BulkFileOperationResponse> deleteInBatch() throws Exception {
+		restoreDataObjects();
+		return dataObjectAO.deleteDataObjects(paths, true);
+	}
+
+	private void restoreDataObjects() {
+		for (String path : paths) {
+			server.getObjectStore().putDataObject(path, new byte[1]);
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSPoolingProtocolManager;
+import org.irods.jargon.core.connection.IRODSProtocolManager;
+import org.irods.jargon.core.connection.IRODSProtocolPoolConfiguration;
+import org.irods.jargon.core.connection.IRODSSimpleProtocolManager;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a connect, native login, one objStat and a close, with and without
+ * connection pooling, at a range of round trip latencies
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ConnectionSetupBenchmark {
+
+	@Param({ "simple", "pooling" })
+	public String protocolManager;
+
+	@Param({ "0", "1" })
+	public long latencyMillis;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = BenchmarkSupport.startServer(latencyMillis);
+		IRODSProtocolManager irodsProtocolManager;
+		if ("pooling".equals(protocolManager)) {
+			IRODSProtocolPoolConfiguration poolConfiguration = new IRODSProtocolPoolConfiguration();
+			poolConfiguration.setTestOnBorrow(false);
+			irodsProtocolManager = IRODSPoolingProtocolManager
+					.instance(poolConfiguration);
+		} else {
+			irodsProtocolManager = IRODSSimpleProtocolManager.instance();
+		}
+		irodsFileSystem = new IRODSFileSystem(irodsProtocolManager);
+		irodsAccount = server.instanceIRODSAccount();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Benchmark
+	public ObjStat connectStatAndClose() throws Exception {
+		try {
+			return irodsFileSystem.getIRODSAccessObjectFactory()
+					.getDataObjectAO(irodsAccount)
+					.getObjectStatForAbsolutePath(server.getHomeCollection());
+		} finally {
+			irodsFileSystem.close(irodsAccount);
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.GeneratedRowsGenQueryResponder;
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.bench.server.LoopbackServerConfiguration;
+import org.irods.jargon.core.packinstr.GenQueryOut;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagEncoder;
+import org.irods.jargon.core.packinstr.TagParser;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.QueryResultProcessingUtils;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the decoding of a GenQuery response page, both from bytes already
+ * in memory (parsing the packing instruction and building the result rows)
+ * and end to end through a loopback server, for a query of five columns. The
+ * packing instruction parse alone is measured with the {@link TagParser} and
+ * with the original <code>String</code> based parser it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GenQueryDecodingBenchmark {
+
+	private static final RodsGenQueryEnum[] COLUMNS = {
+			RodsGenQueryEnum.COL_COLL_NAME, RodsGenQueryEnum.COL_DATA_NAME,
+			RodsGenQueryEnum.COL_DATA_SIZE, RodsGenQueryEnum.COL_D_OWNER_NAME,
+			RodsGenQueryEnum.COL_D_MODIFY_TIME };
+
+	@Param({ "10", "500", "5000" })
+	public int rowCount;
+
+	private byte[] encodedResponse;
+	private List<String> columnNames;
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSGenQueryExecutor irodsGenQueryExecutor;
+	private IRODSGenQueryFromBuilder query;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		columnNames = new ArrayList<String>();
+		int[] selectColumns = new int[COLUMNS.length];
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		for (int i = 0; i < COLUMNS.length; i++) {
+			columnNames.add(COLUMNS[i].getName());
+			selectColumns[i] = COLUMNS[i].getNumericValue();
+			builder.addSelectAsGenQueryValue(COLUMNS[i]);
+		}
+		query = builder.exportIRODSQueryFromBuilder(rowCount);
+
+		GeneratedRowsGenQueryResponder responder = GeneratedRowsGenQueryResponder
+				.instance(rowCount);
+		encodedResponse = TagEncoder.encode(buildResponse(
+				responder.rowsForQuery(selectColumns,
+						Collections.<Integer, String> emptyMap()), selectColumns));
+
+		LoopbackServerConfiguration configuration = new LoopbackServerConfiguration();
+		configuration.setGenQueryResponder(responder);
+		server = BenchmarkSupport.startServer(configuration);
+		irodsFileSystem = IRODSFileSystem.instance();
+		irodsGenQueryExecutor = irodsFileSystem.getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(server.instanceIRODSAccount());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Benchmark
+	public Tag parseWithTagParser() throws Exception {
+		return Tag.readNextTag(encodedResponse, true, "UTF-8");
+	}
+
+	@SuppressWarnings("deprecation")
+	@Benchmark
+	public Tag parseWithStringParser() throws Exception {
+		return Tag.readNextTagFromString(encodedResponse, true, "UTF-8");
+	}
+
+	@Benchmark
+	public List<IRODSQueryResultRow> decodeInMemory() throws Exception {
+		Tag response = Tag.readNextTag(encodedResponse, "UTF-8");
+		return QueryResultProcessingUtils.translateResponseIntoResultSet(
+				response, columnNames, 0, 0);
+	}
+
+	@Benchmark
+	public IRODSQueryResultSet queryThroughServer() throws Exception {
+		return irodsGenQueryExecutor.executeIRODSQueryAndCloseResult(query, 0);
+	}
+
+	/**
+	 * Build a single page response, as iRODS would send it
+	 */
+	private static Tag buildResponse(final List<String[]> rows,
+			final int[] selectColumns) {
+		Tag response = new Tag(GenQueryOut.PI_NAME, new Tag[] {
+				new Tag(GenQueryOut.ROW_CNT, rows.size()),
+				new Tag(GenQueryOut.ATTRIB_CNT, selectColumns.length),
+				new Tag(GenQueryOut.CONTINUE_INX, 0),
+				new Tag("totalRowCount", rows.size()) });
+
+		for (int j = 0; j < selectColumns.length; j++) {
+			int resultLength = 1;
+			for (String[] row : rows) {
+				resultLength = Math.max(resultLength, row[j].length() + 1);
+			}
+
+			Tag sqlResult = new Tag("SqlResult_PI", new Tag[] {
+					new Tag("attriInx", selectColumns[j]),
+					new Tag("reslen", resultLength) });
+			for (String[] row : rows) {
+				sqlResult.addTag(new Tag("value", row[j]));
+			}
+			response.addTag(sqlResult);
+		}
+		return response;
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagEncoder;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.query.IRODSGenQuery;
+import org.irods.jargon.core.query.IRODSGenQueryTranslator;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding of a packing instruction to UTF-8, by
+ * {@link Tag#parseTag()} and <code>getBytes()</code> as before, and by the
+ * {@link TagEncoder} writing into a reused array as the connection does. Run
+ * with <code>-prof gc</code> to compare the allocation of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MessageEncodingBenchmark {
+
+	private static final String ENCODING = "UTF-8";
+
+	@Param({ "dataObjInp", "genQueryInp", "modAvuMetadataInp" })
+	public String message;
+
+	private Tag tag;
+	private byte[] buffer;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		if ("dataObjInp".equals(message)) {
+			tag = DataObjInp.instanceForOpen(
+					"/zone/home/rods/collection/data object.txt",
+					DataObjInp.OpenFlags.READ_WRITE).getTagValue();
+		} else if ("genQueryInp".equals(message)) {
+			tag = buildGenQueryInp().getTagValue();
+		} else if ("modAvuMetadataInp".equals(message)) {
+			tag = ModAvuMetadataInp.instanceForAddDataObjectMetadata(
+					"/zone/home/rods/collection/data object.txt",
+					AvuData.instance("attribute & <escaped>", "value",
+							"unit")).getTagValue();
+		} else {
+			throw new IllegalArgumentException("unknown message:" + message);
+		}
+		buffer = new byte[TagEncoder.encodedLength(tag)];
+	}
+
+	@Benchmark
+	public byte[] encodeThroughString() throws Exception {
+		return tag.parseTag().getBytes(ENCODING);
+	}
+
+	@Benchmark
+	public int encodeIntoBuffer() {
+		int length = TagEncoder.encodedLength(tag);
+		if (length > buffer.length) {
+			buffer = new byte[length];
+		}
+		return TagEncoder.encode(tag, buffer, 0);
+	}
+
+	private static GenQueryInp buildGenQueryInp() throws Exception {
+		String queryString = "select "
+				+ RodsGenQueryEnum.COL_COLL_NAME.getName() + " ,"
+				+ RodsGenQueryEnum.COL_DATA_NAME.getName() + " ,"
+				+ RodsGenQueryEnum.COL_DATA_SIZE.getName() + " ,"
+				+ RodsGenQueryEnum.COL_D_OWNER_NAME.getName() + " ,"
+				+ RodsGenQueryEnum.COL_D_MODIFY_TIME.getName() + " where "
+				+ RodsGenQueryEnum.COL_COLL_NAME.getName() + " = "
+				+ "'/zone/home/rods/collection'";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1.8",
+				"d", "zone");
+		return GenQueryInp.instance(new IRODSGenQueryTranslator(props)
+				.getTranslatedQuery(IRODSGenQuery.instance(queryString, 500)),
+				0, "zone");
+	}
+
+}
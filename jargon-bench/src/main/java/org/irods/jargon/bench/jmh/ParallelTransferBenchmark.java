@@ -0,0 +1,116 @@
+package org.irods.jargon.bench.jmh;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.bench.server.LoopbackServerConfiguration;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures put and get of files large enough to be redirected to parallel
+ * transfer, by the number of threads, where 0 turns parallel transfer off so
+ * the data moves by read and write calls on the one connection. The parallel
+ * threads move the data either with streams or with NIO channels, as set by
+ * <code>transfer.parallel.use.nio</code>.
+ * <p/>
+ * Set a bandwidth to see the gain from more threads when each stream is
+ * limited, as it is over a real network.
+ * <p/>
+ * The loopback server keeps each data object in one array, so the largest
+ * size is just under 2 GB, and the heap is sized to hold the stored data
+ * object alongside the one being written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx6g" })
+public class ParallelTransferBenchmark {
+
+	@Param({ "64", "256", "1024", "2000" })
+	public int fileSizeMegabytes;
+
+	@Param({ "0", "1", "4", "8" })
+	public int threads;
+
+	@Param({ "false", "true" })
+	public boolean useNIO;
+
+	@Param({ "0" })
+	public long bandwidthBytesPerSecond;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private DataTransferOperations dataTransferOperations;
+	private File scratchDirectory;
+	private File localFile;
+	private File getTarget;
+	private IRODSFile irodsFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		LoopbackServerConfiguration configuration = new LoopbackServerConfiguration();
+		configuration.setBandwidthBytesPerSecond(bandwidthBytesPerSecond);
+		configuration.setParallelThreads(Math.max(1, threads));
+		server = BenchmarkSupport.startServer(configuration);
+
+		irodsFileSystem = IRODSFileSystem.instance();
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		jargonProperties.setUseParallelTransfer(threads > 0);
+		jargonProperties.setMaxParallelThreads(Math.max(1, threads));
+		jargonProperties.setUseNIOForParallelTransfers(useNIO);
+		irodsFileSystem.getIrodsSession().setJargonProperties(jargonProperties);
+
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		dataTransferOperations = irodsFileSystem.getIRODSAccessObjectFactory()
+				.getDataTransferOperations(irodsAccount);
+
+		scratchDirectory = BenchmarkSupport.createScratchDirectory("parallel");
+		localFile = BenchmarkSupport.createLocalFile(scratchDirectory,
+				"source.dat", fileSizeMegabytes * 1024L * 1024L);
+		getTarget = new File(scratchDirectory, "target.dat");
+		irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(server.getHomeCollection(), "parallel.dat");
+		dataTransferOperations.putOperation(localFile, irodsFile, null, null);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+		BenchmarkSupport.deleteScratchDirectory(scratchDirectory);
+	}
+
+	@Benchmark
+	public void put() throws Exception {
+		server.getObjectStore().removeDataObject(irodsFile.getAbsolutePath());
+		dataTransferOperations.putOperation(localFile, irodsFile, null, null);
+	}
+
+	@Benchmark
+	public void get() throws Exception {
+		getTarget.delete();
+		dataTransferOperations.getOperation(irodsFile, getTarget, null, null);
+	}
+
+}
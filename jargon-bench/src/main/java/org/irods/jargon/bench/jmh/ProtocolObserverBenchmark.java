@@ -0,0 +1,82 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the metadata getters of a connection while another thread keeps
+ * requests in progress on it, as a monitor or pool thread would observe a
+ * connection in use. The observers should not wait on the request latency.
+ * <p/>
+ * Change the number of observer threads with <code>-tg 1,N</code>.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolObserverBenchmark {
+
+	@Param({ "1", "5" })
+	public long latencyMillis;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private AbstractIRODSMidLevelProtocol irodsProtocol;
+	private DataObjInpForObjStat objStatRequest;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = BenchmarkSupport.startServer(latencyMillis);
+		irodsFileSystem = IRODSFileSystem.instance();
+		irodsProtocol = irodsFileSystem.getIrodsSession().currentConnection(
+				server.instanceIRODSAccount());
+		objStatRequest = DataObjInpForObjStat.instance(server
+				.getHomeCollection());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsProtocol.obliterateConnectionAndDiscardErrors();
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Benchmark
+	@Group("observed")
+	@GroupThreads(1)
+	public Tag request() throws Exception {
+		return irodsProtocol.irodsFunction(objStatRequest);
+	}
+
+	@Benchmark
+	@Group("observed")
+	@GroupThreads(8)
+	public boolean observe() {
+		return irodsProtocol.isConnected()
+				&& irodsProtocol.getIrodsAccount() != null
+				&& irodsProtocol.getIRODSServerProperties() != null;
+	}
+
+}
@@ -0,0 +1,118 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
+import org.irods.jargon.core.pub.io.IRODSRandomAccessFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures small record reads through an {@link IRODSRandomAccessFile}, with
+ * and without the block cache. Records are read in order, at random within a
+ * region that fits in the cache, as when a reader returns to an index, and at
+ * random over the whole data object, where the cache rarely hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomAccessReadBenchmark {
+
+	private static final int FILE_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Half of the default block cache
+	 */
+	private static final int HOT_REGION_SIZE = IRODSRandomAccessFile.DEFAULT_CACHE_BLOCK_SIZE
+			* IRODSRandomAccessFile.DEFAULT_CACHE_MAX_BLOCKS / 2;
+
+	@Param({ "0", "1" })
+	public long latencyMillis;
+
+	@Param({ "false", "true" })
+	public boolean blockCache;
+
+	@Param({ "512", "8192" })
+	public int recordSize;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSRandomAccessFile randomAccessFile;
+	private Random random;
+	private byte[] record;
+	private long sequentialOffset;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = BenchmarkSupport.startServer(latencyMillis);
+		irodsFileSystem = IRODSFileSystem.instance();
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+
+		byte[] data = new byte[FILE_SIZE];
+		new Random(FILE_SIZE).nextBytes(data);
+		String path = server.getHomeCollection() + "/random-access.dat";
+		server.getObjectStore().putDataObject(path, data);
+
+		randomAccessFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSRandomAccessFile(path, OpenFlags.READ);
+		if (blockCache) {
+			randomAccessFile.enableBlockCache();
+		}
+		random = new Random(recordSize);
+		record = new byte[recordSize];
+		sequentialOffset = 0L;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		randomAccessFile.close();
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Benchmark
+	public byte[] sequentialRecords() throws Exception {
+		if (sequentialOffset + recordSize > FILE_SIZE) {
+			sequentialOffset = 0L;
+		}
+		readRecordAt(sequentialOffset);
+		sequentialOffset += recordSize;
+		return record;
+	}
+
+	@Benchmark
+	public byte[] hotRegionRecords() throws Exception {
+		return readRecordAt(random.nextInt(HOT_REGION_SIZE - recordSize));
+	}
+
+	@Benchmark
+	public byte[] scatteredRecords() throws Exception {
+		return readRecordAt(random.nextInt(FILE_SIZE - recordSize));
+	}
+
+	private byte[] readRecordAt(final long offset) throws Exception {
+		randomAccessFile.seek(offset, SeekWhenceType.SEEK_START);
+		randomAccessFile.readFully(record);
+		return record;
+	}
+
+}
@@ -0,0 +1,132 @@
+package org.irods.jargon.bench.jmh;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.bench.server.LoopbackServerConfiguration;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures transfers of files small enough to go in one message, by put and
+ * get, and by the iRODS file streams, which read and write through the
+ * descriptor in buffer sized calls
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleStreamTransferBenchmark {
+
+	private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+	@Param({ "4096", "1048576", "16777216" })
+	public int fileSize;
+
+	@Param({ "0" })
+	public long bandwidthBytesPerSecond;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private DataTransferOperations dataTransferOperations;
+	private IRODSFileFactory irodsFileFactory;
+	private File scratchDirectory;
+	private File localFile;
+	private File getTarget;
+	private IRODSFile irodsFile;
+	private byte[] buffer;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		LoopbackServerConfiguration configuration = new LoopbackServerConfiguration();
+		configuration.setBandwidthBytesPerSecond(bandwidthBytesPerSecond);
+		server = BenchmarkSupport.startServer(configuration);
+		irodsFileSystem = IRODSFileSystem.instance();
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		dataTransferOperations = irodsFileSystem.getIRODSAccessObjectFactory()
+				.getDataTransferOperations(irodsAccount);
+		irodsFileFactory = irodsFileSystem.getIRODSFileFactory(irodsAccount);
+
+		scratchDirectory = BenchmarkSupport
+				.createScratchDirectory("single-stream");
+		localFile = BenchmarkSupport.createLocalFile(scratchDirectory,
+				"source.dat", fileSize);
+		getTarget = new File(scratchDirectory, "target.dat");
+		irodsFile = irodsFileFactory.instanceIRODSFile(
+				server.getHomeCollection(), "single-stream.dat");
+		dataTransferOperations.putOperation(localFile, irodsFile, null, null);
+		buffer = new byte[STREAM_BUFFER_SIZE];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+		BenchmarkSupport.deleteScratchDirectory(scratchDirectory);
+	}
+
+	@Benchmark
+	public void put() throws Exception {
+		server.getObjectStore().removeDataObject(irodsFile.getAbsolutePath());
+		dataTransferOperations.putOperation(localFile, irodsFile, null, null);
+	}
+
+	@Benchmark
+	public void get() throws Exception {
+		getTarget.delete();
+		dataTransferOperations.getOperation(irodsFile, getTarget, null, null);
+	}
+
+	@Benchmark
+	public long streamWrite() throws Exception {
+		OutputStream out = irodsFileFactory.instanceIRODSFileOutputStream(irodsFile);
+		long written = 0L;
+		try {
+			while (written < fileSize) {
+				int length = (int) Math.min(buffer.length, fileSize - written);
+				out.write(buffer, 0, length);
+				written += length;
+			}
+		} finally {
+			out.close();
+		}
+		return written;
+	}
+
+	@Benchmark
+	public long streamRead() throws Exception {
+		InputStream in = irodsFileFactory.instanceIRODSFileInputStream(irodsFile);
+		long total = 0L;
+		try {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				total += read;
+			}
+		} finally {
+			in.close();
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.irods.jargon.bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.bench.server.LoopbackIRODSServer;
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures round trips of small requests on one connection with no added
+ * latency, where the cost is in framing the message header and body and
+ * reading the reply. Run with <code>-prof gc</code> to see the allocation on
+ * each request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SmallRequestBenchmark {
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private AbstractIRODSMidLevelProtocol irodsProtocol;
+	private DataObjInpForObjStat objStatRequest;
+	private ModAvuMetadataInp modAvuRequest;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		server = BenchmarkSupport.startServer(0L);
+		irodsFileSystem = IRODSFileSystem.instance();
+		irodsProtocol = irodsFileSystem.getIrodsSession().currentConnection(
+				server.instanceIRODSAccount());
+		objStatRequest = DataObjInpForObjStat.instance(server
+				.getHomeCollection());
+		modAvuRequest = ModAvuMetadataInp.instanceForAddCollectionMetadata(
+				server.getHomeCollection(),
+				AvuData.instance("attribute", "value", "unit"));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		irodsProtocol.obliterateConnectionAndDiscardErrors();
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Benchmark
+	public Tag objStat() throws Exception {
+		return irodsProtocol.irodsFunction(objStatRequest);
+	}
+
+	@Benchmark
+	public Tag addAVU() throws Exception {
+		return irodsProtocol.irodsFunction(modAvuRequest);
+	}
+
+}
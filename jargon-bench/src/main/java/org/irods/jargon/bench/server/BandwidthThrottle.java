@@ -0,0 +1,123 @@
+package org.irods.jargon.bench.server;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Paces the bytes through one stream to a rate, by sleeping until the bytes
+ * moved so far are due
+ */
+final class BandwidthThrottle {
+
+	/**
+	 * Most bytes moved before the rate is checked
+	 */
+	private static final int SLICE = 64 * 1024;
+
+	private final long bytesPerSecond;
+	private final long startNanos = System.nanoTime();
+	private long bytes = 0L;
+
+	/**
+	 * Pace an input stream
+	 *
+	 * @param in
+	 *            <code>InputStream</code> to read
+	 * @param bytesPerSecond
+	 *            <code>long</code> with the rate, 0 gives the stream back as
+	 *            is
+	 * @return <code>InputStream</code>
+	 */
+	static InputStream wrap(final InputStream in, final long bytesPerSecond) {
+		if (bytesPerSecond == 0) {
+			return in;
+		}
+
+		final BandwidthThrottle throttle = new BandwidthThrottle(bytesPerSecond);
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b != -1) {
+					throttle.acquire(1);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len)
+					throws IOException {
+				int read = super.read(b, off, Math.min(len, SLICE));
+				if (read > 0) {
+					throttle.acquire(read);
+				}
+				return read;
+			}
+		};
+	}
+
+	/**
+	 * Pace an output stream
+	 *
+	 * @param out
+	 *            <code>OutputStream</code> to write
+	 * @param bytesPerSecond
+	 *            <code>long</code> with the rate, 0 gives the stream back as
+	 *            is
+	 * @return <code>OutputStream</code>
+	 */
+	static OutputStream wrap(final OutputStream out, final long bytesPerSecond) {
+		if (bytesPerSecond == 0) {
+			return out;
+		}
+
+		final BandwidthThrottle throttle = new BandwidthThrottle(bytesPerSecond);
+		return new FilterOutputStream(out) {
+			@Override
+			public void write(final int b) throws IOException {
+				throttle.acquire(1);
+				out.write(b);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len)
+					throws IOException {
+				int written = 0;
+				while (written < len) {
+					int slice = Math.min(len - written, SLICE);
+					throttle.acquire(slice);
+					out.write(b, off + written, slice);
+					written += slice;
+				}
+			}
+		};
+	}
+
+	private BandwidthThrottle(final long bytesPerSecond) {
+		this.bytesPerSecond = bytesPerSecond;
+	}
+
+	/**
+	 * Count the bytes, and wait until they are due at the rate
+	 */
+	private void acquire(final int count) throws InterruptedIOException {
+		bytes += count;
+		long dueNanos = (long) (bytes * 1000000000.0 / bytesPerSecond);
+		long waitNanos = dueNanos - (System.nanoTime() - startNanos);
+		if (waitNanos <= 0) {
+			return;
+		}
+
+		try {
+			Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while throttled");
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package org.irods.jargon.bench.server;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scripts the rows a {@link LoopbackIRODSServer} gives for a GenQuery. The
+ * server pages the rows by the <code>maxRows</code> of each request, and keeps
+ * the remainder for the continuation until the query is closed.
+ * <p/>
+ * Implementations are called from each connection thread, and must be thread
+ * safe.
+ */
+public interface GenQueryResponder {
+
+	/**
+	 * Give the rows for a new query
+	 *
+	 * @param selectColumns
+	 *            <code>int[]</code> with the numeric iRODS column for each
+	 *            select, in order
+	 * @param conditions
+	 *            <code>Map</code> from the numeric iRODS column to the
+	 *            condition as sent, such as <code> = 'abc'</code>
+	 * @return <code>List</code> of <code>String[]</code>, one per row, each
+	 *         with a value for each select column. An empty list gives
+	 *         <code>CAT_NO_ROWS_FOUND</code>.
+	 */
+	List<String[]> rowsForQuery(int[] selectColumns,
+			Map<Integer, String> conditions);
+
+}
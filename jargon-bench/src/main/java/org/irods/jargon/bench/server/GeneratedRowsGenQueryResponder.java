@@ -0,0 +1,67 @@
+package org.irods.jargon.bench.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers every GenQuery with the same number of generated rows, where each
+ * value names its row and column, e.g. <code>row12col403</code>
+ */
+public class GeneratedRowsGenQueryResponder implements GenQueryResponder {
+
+	private final int rowCount;
+
+	/**
+	 * Create a responder that gives the given number of rows for each query
+	 *
+	 * @param rowCount
+	 *            <code>int</code> with the rows for each query, 0 answers
+	 *            every query with no rows found
+	 * @return {@link GeneratedRowsGenQueryResponder}
+	 */
+	public static GeneratedRowsGenQueryResponder instance(final int rowCount) {
+		return new GeneratedRowsGenQueryResponder(rowCount);
+	}
+
+	private GeneratedRowsGenQueryResponder(final int rowCount) {
+		if (rowCount < 0) {
+			throw new IllegalArgumentException("rowCount < 0");
+		}
+		this.rowCount = rowCount;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.bench.server.GenQueryResponder#rowsForQuery(int[],
+	 * java.util.Map)
+	 */
+	@Override
+	public List<String[]> rowsForQuery(final int[] selectColumns,
+			final Map<Integer, String> conditions) {
+		List<String[]> rows = new ArrayList<String[]>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			String[] row = new String[selectColumns.length];
+			for (int j = 0; j < selectColumns.length; j++) {
+				row[j] = "row" + i + "col" + selectColumns[j];
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	@Override
+	public String toString() {
+		return "GeneratedRowsGenQueryResponder rowCount:" + rowCount;
+	}
+
+	/**
+	 * @return the rows given for each query
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+}
@@ -0,0 +1,919 @@
+package org.irods.jargon.bench.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.irods.jargon.core.connection.ConnectionConstants;
+import org.irods.jargon.core.packinstr.AuthResponseInp;
+import org.irods.jargon.core.packinstr.CollInp;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.packinstr.GenQueryOut;
+import org.irods.jargon.core.packinstr.IRodsPI;
+import org.irods.jargon.core.packinstr.MiscSvrInfo;
+import org.irods.jargon.core.packinstr.ModAccessControlInp;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.OpenedDataObjInp;
+import org.irods.jargon.core.packinstr.RErrMsg;
+import org.irods.jargon.core.packinstr.StartupPack;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagEncoder;
+import org.irods.jargon.core.protovalues.ErrorEnum;
+import org.irods.jargon.core.utils.Base64;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves one client connection to a {@link LoopbackIRODSServer}, standing in
+ * for the iRODS agent the client would be given. Requests are read and
+ * answered in order, so pipelined requests are answered as iRODS would.
+ * <p/>
+ * The agent answers the startup pack, native authentication, server info,
+ * objStat, GenQuery, data object create, open, read, write, seek and close,
+ * get and put (with the data in the message, by read and write calls, or
+ * through a {@link ParallelPortal}), operation complete, data object delete
+ * and collection create. AVU metadata and access control changes are
+ * answered as iRODS would for an existing or missing target, but are not
+ * kept. Other API numbers are answered with <code>SYS_API_INPUT_ERR</code>.
+ */
+class LoopbackAgent implements Runnable {
+
+	private static final String ENCODING = "UTF-8";
+
+	/**
+	 * How long an operation complete waits for a parallel transfer
+	 */
+	private static final long PARALLEL_COMPLETION_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
+	private static final int FIRST_DESCRIPTOR = 3;
+
+	/**
+	 * The largest array the VM will allocate, a little under
+	 * <code>Integer.MAX_VALUE</code>
+	 */
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	private static final Logger log = LoggerFactory
+			.getLogger(LoopbackAgent.class);
+
+	private static final Random random = new Random();
+
+	private final LoopbackIRODSServer server;
+	private final LoopbackServerConfiguration configuration;
+	private final LoopbackObjectStore objectStore;
+	private final Socket socket;
+	private final Map<Integer, OpenDataObject> openDataObjects = new HashMap<Integer, OpenDataObject>();
+	private final Map<Integer, OpenQuery> openQueries = new HashMap<Integer, OpenQuery>();
+	private DataInputStream in;
+	private OutputStream out;
+	private String clientUser = "";
+	private String challenge = null;
+	private boolean authenticated = false;
+	private int nextDescriptor = FIRST_DESCRIPTOR;
+	private int nextContinuation = 1;
+
+	LoopbackAgent(final LoopbackIRODSServer server, final Socket socket) {
+		this.server = server;
+		configuration = server.getConfiguration();
+		objectStore = server.getObjectStore();
+		this.socket = socket;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		try {
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(
+					BandwidthThrottle.wrap(socket.getInputStream(),
+							configuration.getBandwidthBytesPerSecond())));
+			out = new BufferedOutputStream(BandwidthThrottle.wrap(
+					socket.getOutputStream(),
+					configuration.getBandwidthBytesPerSecond()), 64 * 1024);
+			serve();
+		} catch (EOFException e) {
+			log.debug("client closed connection without disconnect");
+		} catch (IOException e) {
+			if (!socket.isClosed()) {
+				log.warn("io error serving client connection", e);
+			}
+		} finally {
+			closeOpenDataObjects();
+			server.agentFinished(socket);
+		}
+	}
+
+	private void serve() throws IOException {
+		Request startup = readRequest();
+		if (!IRODSConstants.RODS_CONNECT.equals(startup.type)
+				|| startup.message == null) {
+			throw new IOException("expected startup pack, got:"
+					+ startup.type);
+		}
+
+		clientUser = startup.message.getTag("proxyUser").getStringValue();
+		sendReply(IRODSConstants.RODS_VERSION, 0, versionTag(), null, 0, 0);
+
+		while (true) {
+			Request request = readRequest();
+			if (IRODSConstants.RODS_DISCONNECT.equals(request.type)) {
+				log.debug("client disconnect");
+				return;
+			}
+			dispatch(request);
+		}
+	}
+
+	private void dispatch(final Request request) throws IOException {
+		int apiNumber = request.intInfo;
+
+		if (!authenticated && apiNumber != IRODSConstants.AUTH_REQUEST_AN
+				&& apiNumber != IRODSConstants.AUTH_RESPONSE_AN) {
+			sendError(ErrorEnum.CAT_INVALID_AUTHENTICATION,
+					"not authenticated");
+			return;
+		}
+
+		switch (apiNumber) {
+		case IRODSConstants.AUTH_REQUEST_AN:
+			authRequest();
+			break;
+		case IRODSConstants.AUTH_RESPONSE_AN:
+			authResponse(request.message);
+			break;
+		case MiscSvrInfo.API_NBR:
+			miscSvrInfo();
+			break;
+		case DataObjInpForObjStat.OBJ_STAT_API_NBR:
+			objStat(request.message);
+			break;
+		case GenQueryInp.API_NBR:
+			genQuery(request.message);
+			break;
+		case DataObjInp.CREATE_FILE_API_NBR:
+			create(request.message);
+			break;
+		case DataObjInp.OPEN_FILE_API_NBR:
+			open(request.message);
+			break;
+		case OpenedDataObjInp.READ_API_NBR:
+			read(request.message);
+			break;
+		case OpenedDataObjInp.WRITE_API_NBR:
+			write(request.message, request.bytes);
+			break;
+		case OpenedDataObjInp.SEEK_API_NBR:
+			seek(request.message);
+			break;
+		case OpenedDataObjInp.CLOSE_API_NBR:
+			close(request.message);
+			break;
+		case DataObjInp.GET_FILE_API_NBR:
+			get(request.message);
+			break;
+		case DataObjInp.PUT_FILE_API_NBR:
+			put(request.message, request.bytes);
+			break;
+		case IRODSConstants.OPR_COMPLETE_AN:
+			operationComplete(request.message);
+			break;
+		case DataObjInp.DELETE_FILE_API_NBR:
+			delete(request.message);
+			break;
+		case CollInp.MKDIR_API_NBR:
+			mkdir(request.message);
+			break;
+		case ModAvuMetadataInp.MOD_AVU_API_NBR:
+			modAvuMetadata(request.message);
+			break;
+		case ModAccessControlInp.MOD_ACESS_CONTROL_API_NBR:
+			modAccessControl(request.message);
+			break;
+		default:
+			log.warn("unsupported api number:{}", apiNumber);
+			sendError(ErrorEnum.SYS_API_INPUT_ERR,
+					"api not supported by the loopback server:" + apiNumber);
+		}
+	}
+
+	private void authRequest() throws IOException {
+		byte[] challengeBytes = new byte[ConnectionConstants.CHALLENGE_LENGTH];
+		random.nextBytes(challengeBytes);
+		challenge = Base64.toString(challengeBytes);
+		sendReply(IRODSConstants.RODS_API_REPLY, 0, new Tag(
+				"authRequestOut_PI", new Tag(StartupPack.CHALLENGE, challenge)),
+				null, 0, 0);
+	}
+
+	private void authResponse(final Tag message) throws IOException {
+		String response = message.getTag(AuthResponseInp.RESPONSE_TAG)
+				.getStringValue();
+		String userName = message.getTag(AuthResponseInp.ACCOUNT_TAG)
+				.getStringValue();
+
+		if (challenge == null || !configuration.getUserName().equals(userName)
+				|| !configuration.getUserName().equals(clientUser)
+				|| !expectedResponse().equals(response)) {
+			log.info("authentication failed for:{}", userName);
+			sendError(ErrorEnum.CAT_INVALID_AUTHENTICATION,
+					"authentication failed");
+			return;
+		}
+
+		authenticated = true;
+		sendSuccess();
+	}
+
+	/**
+	 * The native authentication response is the md5 of the challenge and the
+	 * padded password, with any zero byte made one
+	 */
+	private String expectedResponse() throws IOException {
+		byte[] chal = new byte[ConnectionConstants.CHALLENGE_LENGTH
+				+ ConnectionConstants.MAX_PASSWORD_LENGTH];
+		byte[] challengeBytes = Base64.fromString(challenge);
+		System.arraycopy(challengeBytes, 0, chal, 0, challengeBytes.length);
+		byte[] password = configuration.getPassword().getBytes(ENCODING);
+		System.arraycopy(password, 0, chal,
+				ConnectionConstants.CHALLENGE_LENGTH, password.length);
+
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("MD5").digest(chal);
+		} catch (GeneralSecurityException e) {
+			throw new IOException("no md5 digest available", e);
+		}
+
+		for (int i = 0; i < digest.length; i++) {
+			if (digest[i] == 0) {
+				digest[i] = 1;
+			}
+		}
+		return Base64.toString(digest);
+	}
+
+	private void miscSvrInfo() throws IOException {
+		Tag info = new Tag(MiscSvrInfo.PI_TAG, new Tag[] {
+				new Tag(MiscSvrInfo.SERVER_TYPE_TAG, 1),
+				new Tag(MiscSvrInfo.SERVER_BOOT_TIME_TAG, server.getBootTime()),
+				new Tag(MiscSvrInfo.REL_VERSION_TAG,
+						configuration.getRelVersion()),
+				new Tag(MiscSvrInfo.API_VERSION_TAG,
+						configuration.getApiVersion()),
+				new Tag(MiscSvrInfo.RODS_ZONE_TAG, configuration.getZone()) });
+		sendReply(IRODSConstants.RODS_API_REPLY, 0, info, null, 0, 0);
+	}
+
+	private void objStat(final Tag message) throws IOException {
+		String path = message.getTag(DataObjInp.OBJ_PATH).getStringValue();
+		byte[] data = objectStore.getDataObject(path);
+		int objType;
+		long objSize = 0L;
+
+		if (data != null) {
+			objType = 1;
+			objSize = data.length;
+		} else if (objectStore.isCollection(path)) {
+			objType = 2;
+		} else {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST, "no such path:"
+					+ path);
+			return;
+		}
+
+		String time = String.valueOf(server.getBootTime());
+		Tag stat = new Tag("RodsObjStat_PI", new Tag[] {
+				new Tag("objSize", objSize), new Tag("objType", objType),
+				new Tag("dataMode", DataObjInp.DEFAULT_CREATE_MODE),
+				new Tag("dataId", Math.abs(path.hashCode())),
+				new Tag("chksum", ""),
+				new Tag("ownerName", configuration.getUserName()),
+				new Tag("ownerZone", configuration.getZone()),
+				new Tag("createTime", time), new Tag("modifyTime", time) });
+		sendReply(IRODSConstants.RODS_API_REPLY, 0, stat, null, 0, 0);
+	}
+
+	private void genQuery(final Tag message) throws IOException {
+		int maxRows = message.getTag(GenQueryInp.MAX_ROWS).getIntValue();
+		int continueInx = message.getTag(GenQueryInp.CONTINUE_INX)
+				.getIntValue();
+
+		OpenQuery query;
+		if (continueInx > 0) {
+			query = openQueries.get(continueInx);
+			if (query == null) {
+				sendError(ErrorEnum.CAT_NO_ROWS_FOUND,
+						"no open query for continuation:" + continueInx);
+				return;
+			}
+
+			if (maxRows <= 0) {
+				log.debug("closing query:{}", continueInx);
+				openQueries.remove(continueInx);
+				sendSuccess();
+				return;
+			}
+		} else {
+			query = newQuery(message);
+			if (query.rows.isEmpty()) {
+				sendError(ErrorEnum.CAT_NO_ROWS_FOUND, "no rows found");
+				return;
+			}
+
+			if (maxRows <= 0) {
+				sendSuccess();
+				return;
+			}
+		}
+
+		int rowCount = Math.min(maxRows, query.rows.size() - query.position);
+		int continuation = 0;
+		if (query.position + rowCount < query.rows.size()) {
+			if (continueInx > 0) {
+				continuation = continueInx;
+			} else {
+				continuation = nextContinuation++;
+				openQueries.put(continuation, query);
+			}
+		} else if (continueInx > 0) {
+			openQueries.remove(continueInx);
+		}
+
+		Tag out = new Tag(GenQueryOut.PI_NAME, new Tag[] {
+				new Tag(GenQueryOut.ROW_CNT, rowCount),
+				new Tag(GenQueryOut.ATTRIB_CNT, query.selectColumns.length),
+				new Tag(GenQueryOut.CONTINUE_INX, continuation),
+				new Tag("totalRowCount", query.rows.size()) });
+
+		for (int j = 0; j < query.selectColumns.length; j++) {
+			int resultLength = 1;
+			for (int i = 0; i < rowCount; i++) {
+				resultLength = Math.max(resultLength,
+						query.rows.get(query.position + i)[j].length() + 1);
+			}
+
+			Tag sqlResult = new Tag("SqlResult_PI", new Tag[] {
+					new Tag("attriInx", query.selectColumns[j]),
+					new Tag("reslen", resultLength) });
+			for (int i = 0; i < rowCount; i++) {
+				sqlResult.addTag(new Tag("value", query.rows.get(query.position
+						+ i)[j]));
+			}
+			out.addTag(sqlResult);
+		}
+
+		query.position += rowCount;
+		sendReply(IRODSConstants.RODS_API_REPLY, 0, out, null, 0, 0);
+	}
+
+	private OpenQuery newQuery(final Tag message) {
+		Tag selects = message.getTag(GenQueryInp.INX_IVAL_PAIR_PI);
+		int selectCount = selects.getTag(GenQueryInp.IILEN).getIntValue();
+		int[] selectColumns = new int[selectCount];
+		for (int i = 0; i < selectCount; i++) {
+			selectColumns[i] = selects.getTag(GenQueryInp.INX, i).getIntValue();
+		}
+
+		Map<Integer, String> conditions = new LinkedHashMap<Integer, String>();
+		Tag conditionTag = message.getTag(GenQueryInp.INX_VAL_PAIR_PI);
+		if (conditionTag != null) {
+			int conditionCount = conditionTag.getTag(GenQueryInp.ISLEN)
+					.getIntValue();
+			for (int i = 0; i < conditionCount; i++) {
+				conditions.put(conditionTag.getTag(GenQueryInp.INX, i)
+						.getIntValue(),
+						conditionTag.getTag(GenQueryInp.SVALUE, i)
+								.getStringValue());
+			}
+		}
+
+		List<String[]> rows = configuration.getGenQueryResponder()
+				.rowsForQuery(selectColumns, conditions);
+		return new OpenQuery(selectColumns, rows);
+	}
+
+	private void create(final Tag message) throws IOException {
+		String path = message.getTag(DataObjInp.OBJ_PATH).getStringValue();
+		if (objectStore.getDataObject(path) != null && !isForced(message)) {
+			sendError(ErrorEnum.OVERWITE_WITHOUT_FORCE_FLAG, "exists:" + path);
+			return;
+		}
+
+		objectStore.putDataObject(path, new byte[0]);
+		OpenDataObject openDataObject = new OpenDataObject(path, new byte[0]);
+		openDataObject.written = true;
+		sendReply(IRODSConstants.RODS_API_REPLY, addOpen(openDataObject),
+				null, null, 0, 0);
+	}
+
+	private void open(final Tag message) throws IOException {
+		String path = message.getTag(DataObjInp.OBJ_PATH).getStringValue();
+		int openFlags = message.getTag(DataObjInp.OPEN_FLAGS).getIntValue();
+		boolean forWrite = (openFlags & 3) != 0;
+		byte[] data = objectStore.getDataObject(path);
+
+		if (data == null) {
+			if (!forWrite) {
+				sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST, "no such path:"
+						+ path);
+				return;
+			}
+			data = new byte[0];
+			objectStore.putDataObject(path, data);
+		}
+
+		OpenDataObject openDataObject = new OpenDataObject(path, data);
+		if ((openFlags & DataObjInp.TRUNCATE) != 0) {
+			openDataObject.truncate();
+		}
+		sendReply(IRODSConstants.RODS_API_REPLY, addOpen(openDataObject),
+				null, null, 0, 0);
+	}
+
+	private void read(final Tag message) throws IOException {
+		OpenDataObject openDataObject = findOpen(message);
+		if (openDataObject == null) {
+			return;
+		}
+
+		int length = message.getTag(OpenedDataObjInp.LEN).getIntValue();
+		int read = (int) Math.max(0L, Math.min(length, openDataObject.length
+				- openDataObject.position));
+		int offset = (int) openDataObject.position;
+		openDataObject.position += read;
+		sendReply(IRODSConstants.RODS_API_REPLY, read, null,
+				openDataObject.data, offset, read);
+	}
+
+	private void write(final Tag message, final byte[] bytes)
+			throws IOException {
+		OpenDataObject openDataObject = findOpen(message);
+		if (openDataObject == null) {
+			return;
+		}
+
+		int length = bytes == null ? 0 : bytes.length;
+		openDataObject.write(bytes, length);
+		sendReply(IRODSConstants.RODS_API_REPLY, length, null, null, 0, 0);
+	}
+
+	private void seek(final Tag message) throws IOException {
+		OpenDataObject openDataObject = findOpen(message);
+		if (openDataObject == null) {
+			return;
+		}
+
+		long offset = message.getTag(OpenedDataObjInp.OFFSET).getLongValue();
+		int whence = message.getTag(OpenedDataObjInp.WHENCE).getIntValue();
+		if (whence == OpenedDataObjInp.SEEK_CURRENT) {
+			offset += openDataObject.position;
+		} else if (whence == OpenedDataObjInp.SEEK_END) {
+			offset += openDataObject.length;
+		}
+
+		if (offset < 0) {
+			sendError(ErrorEnum.SYS_API_INPUT_ERR, "seek before start of file");
+			return;
+		}
+
+		openDataObject.position = offset;
+		sendReply(IRODSConstants.RODS_API_REPLY, 0, new Tag("fileLseekOut_PI",
+				new Tag(IRODSConstants.offset, offset)), null, 0, 0);
+	}
+
+	private void close(final Tag message) throws IOException {
+		OpenDataObject openDataObject = findOpen(message);
+		if (openDataObject == null) {
+			return;
+		}
+
+		openDataObjects.remove(openDataObject.descriptor);
+		openDataObject.commit();
+		sendSuccess();
+	}
+
+	private void get(final Tag message) throws IOException {
+		String path = message.getTag(DataObjInp.OBJ_PATH).getStringValue();
+		byte[] data = objectStore.getDataObject(path);
+		if (data == null) {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST, "no such path:"
+					+ path);
+			return;
+		}
+
+		if (data.length > 0
+				&& data.length <= ConnectionConstants.MAX_SZ_FOR_SINGLE_BUF) {
+			sendReply(IRODSConstants.RODS_API_REPLY, 0, null, data, 0,
+					data.length);
+			return;
+		}
+
+		OpenDataObject openDataObject = new OpenDataObject(path, data);
+		int threads = threadsFor(message);
+		if (threads > 0) {
+			openDataObject.portal = ParallelPortal.instanceForGet(data,
+					threads, configuration.getBandwidthBytesPerSecond());
+		}
+		sendPortalReply(addOpen(openDataObject), openDataObject.portal);
+	}
+
+	private void put(final Tag message, final byte[] bytes) throws IOException {
+		String path = message.getTag(DataObjInp.OBJ_PATH).getStringValue();
+		long dataSize = message.getTag(DataObjInp.DATA_SIZE).getLongValue();
+
+		if (objectStore.getDataObject(path) != null && !isForced(message)) {
+			sendError(ErrorEnum.OVERWITE_WITHOUT_FORCE_FLAG, "exists:" + path);
+			return;
+		}
+
+		if (bytes != null || dataSize == 0) {
+			objectStore.putDataObject(path, bytes == null ? new byte[0]
+					: bytes);
+			sendSuccess();
+			return;
+		}
+
+		if (dataSize > MAX_ARRAY_LENGTH) {
+			sendError(ErrorEnum.SYS_API_INPUT_ERR,
+					"data object too large for the loopback server");
+			return;
+		}
+
+		OpenDataObject openDataObject = new OpenDataObject(path, new byte[0]);
+		openDataObject.written = true;
+		int threads = threadsFor(message);
+		if (threads > 0) {
+			openDataObject.portal = ParallelPortal.instanceForPut(
+					(int) dataSize, threads,
+					configuration.getBandwidthBytesPerSecond());
+		}
+		sendPortalReply(addOpen(openDataObject), openDataObject.portal);
+	}
+
+	/**
+	 * Reply to a get or put with the descriptor and, if there is a portal,
+	 * where the client threads should connect
+	 */
+	private void sendPortalReply(final int descriptor,
+			final ParallelPortal portal) throws IOException {
+		if (portal != null) {
+			portal.start(server.getExecutor());
+		}
+
+		Tag portList = new Tag(IRODSConstants.PortList_PI, new Tag[] {
+				new Tag(IRODSConstants.portNum,
+						portal == null ? 0 : portal.getPort()),
+				new Tag(IRODSConstants.cookie,
+						portal == null ? 0 : portal.getCookie()),
+				new Tag("sock", 0), new Tag("windowSize", 0),
+				new Tag(IRODSConstants.hostAddr, LoopbackIRODSServer.HOST) });
+		Tag portalOprOut = new Tag("PortalOprOut_PI", new Tag[] {
+				new Tag("status", 0),
+				new Tag(IRODSConstants.L1_DESC_INX, descriptor),
+				new Tag(IRODSConstants.numThreads,
+						portal == null ? 0 : portal.getNumberOfThreads()),
+				new Tag("chksum", ""), portList });
+		sendReply(IRODSConstants.RODS_API_REPLY, descriptor, portalOprOut,
+				null, 0, 0);
+	}
+
+	/**
+	 * The threads for a parallel transfer are the fewer of those asked for and
+	 * those configured, where a client that asks for -1 wants none
+	 */
+	private int threadsFor(final Tag message) {
+		int requested = message.getTag(DataObjInp.NUM_THREADS).getIntValue();
+		if (requested < 0) {
+			return 0;
+		} else if (requested == 0) {
+			return configuration.getParallelThreads();
+		} else {
+			return Math.min(requested, configuration.getParallelThreads());
+		}
+	}
+
+	private void operationComplete(final Tag message) throws IOException {
+		int descriptor = message.getTag("myInt").getIntValue();
+		OpenDataObject openDataObject = openDataObjects.remove(descriptor);
+		if (openDataObject == null) {
+			// a get by read calls closes the descriptor before completing
+			log.debug("descriptor already closed:{}", descriptor);
+		} else if (openDataObject.portal != null) {
+			byte[] data;
+			try {
+				data = openDataObject.portal
+						.awaitCompletion(PARALLEL_COMPLETION_TIMEOUT_MILLIS);
+			} catch (IOException e) {
+				log.error("parallel transfer failed", e);
+				sendError(ErrorEnum.SYS_API_INPUT_ERR,
+						"parallel transfer failed:" + e.getMessage());
+				return;
+			}
+
+			if (openDataObject.written) {
+				objectStore.putDataObject(openDataObject.path, data);
+			}
+		} else {
+			openDataObject.commit();
+		}
+		sendSuccess();
+	}
+
+	private void delete(final Tag message) throws IOException {
+		String path = message.getTag(DataObjInp.OBJ_PATH).getStringValue();
+		if (!objectStore.removeDataObject(path)) {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST, "no such path:"
+					+ path);
+			return;
+		}
+		sendSuccess();
+	}
+
+	private void mkdir(final Tag message) throws IOException {
+		objectStore.addCollection(message.getTag(CollInp.COLL_NAME)
+				.getStringValue());
+		sendSuccess();
+	}
+
+	/**
+	 * The target of an AVU change is the third argument, after the operation
+	 * and the target type
+	 */
+	private void modAvuMetadata(final Tag message) throws IOException {
+		String path = message.getTag(ModAvuMetadataInp.ARG_PREFIX + 2)
+				.getStringValue();
+		if (!pathExists(path)) {
+			sendError(ErrorEnum.CAT_UNKNOWN_FILE, "no such path:" + path);
+			return;
+		}
+		sendSuccess();
+	}
+
+	private void modAccessControl(final Tag message) throws IOException {
+		String path = message.getTag(ModAccessControlInp.PATH)
+				.getStringValue();
+		if (!pathExists(path)) {
+			sendError(ErrorEnum.CAT_UNKNOWN_FILE, "no such path:" + path);
+			return;
+		}
+		sendSuccess();
+	}
+
+	private boolean pathExists(final String path) {
+		return objectStore.getDataObject(path) != null
+				|| objectStore.isCollection(path);
+	}
+
+	private boolean isForced(final Tag message) {
+		Tag keyValues = message.getTag(IRODSConstants.KeyValPair_PI);
+		if (keyValues == null || keyValues.getTags() == null) {
+			return false;
+		}
+
+		for (Tag tag : keyValues.getTags()) {
+			if (IRODSConstants.keyWord.equals(tag.getName())
+					&& DataObjInp.FORCE_FLAG_KW.equals(tag.getStringValue())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int addOpen(final OpenDataObject openDataObject) {
+		openDataObject.descriptor = nextDescriptor++;
+		openDataObjects.put(openDataObject.descriptor, openDataObject);
+		return openDataObject.descriptor;
+	}
+
+	/**
+	 * Find the data object open for the descriptor in the request, or reply
+	 * with an error and give <code>null</code>
+	 */
+	private OpenDataObject findOpen(final Tag message) throws IOException {
+		int descriptor = message.getTag(OpenedDataObjInp.L1_DESC_INX)
+				.getIntValue();
+		OpenDataObject openDataObject = openDataObjects.get(descriptor);
+		if (openDataObject == null) {
+			sendError(ErrorEnum.SYS_BAD_FILE_DESCRIPTOR, "no open descriptor:"
+					+ descriptor);
+		}
+		return openDataObject;
+	}
+
+	private void closeOpenDataObjects() {
+		for (OpenDataObject openDataObject : openDataObjects.values()) {
+			if (openDataObject.portal != null) {
+				openDataObject.portal.close();
+			}
+		}
+		openDataObjects.clear();
+	}
+
+	private Tag versionTag() {
+		return new Tag("Version_PI", new Tag[] { new Tag("status", 0),
+				new Tag("relVersion", configuration.getRelVersion()),
+				new Tag("apiVersion", configuration.getApiVersion()),
+				new Tag("reconnPort", 0), new Tag("reconnAddr", ""),
+				new Tag("cookie", "0") });
+	}
+
+	private Request readRequest() throws IOException {
+		int headerLength = in.readInt();
+		Tag header = readTag(headerLength);
+		Request request = new Request();
+		request.type = header.getTag(IRODSConstants.type).getStringValue();
+		request.intInfo = header.getTag(IRODSConstants.intInfo).getIntValue();
+		int messageLength = header.getTag(IRODSConstants.msgLen)
+				.getIntValue();
+		int errorLength = header.getTag(IRODSConstants.errorLen)
+				.getIntValue();
+		long bytesLength = header.getTag(IRODSConstants.bsLen).getLongValue();
+
+		if (messageLength > 0) {
+			request.message = readTag(messageLength);
+		}
+
+		if (errorLength > 0) {
+			in.readFully(new byte[errorLength]);
+		}
+
+		if (bytesLength > 0) {
+			if (bytesLength > Integer.MAX_VALUE) {
+				throw new IOException("byte stream too large:" + bytesLength);
+			}
+			request.bytes = new byte[(int) bytesLength];
+			in.readFully(request.bytes);
+		}
+		return request;
+	}
+
+	private Tag readTag(final int length) throws IOException {
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return Tag.readNextTag(bytes, ENCODING);
+	}
+
+	private void sendSuccess() throws IOException {
+		sendReply(IRODSConstants.RODS_API_REPLY, 0, null, null, 0, 0);
+	}
+
+	private void sendError(final ErrorEnum error, final String text)
+			throws IOException {
+		Tag errorTag = new Tag("RError_PI", new Tag[] {
+				new Tag("count", 1),
+				new Tag(RErrMsg.PI_TAG, new Tag[] {
+						new Tag("status", error.getInt()),
+						new Tag(IRodsPI.MESSAGE_TAG, text) }) });
+		byte[] errorBytes = TagEncoder.encode(errorTag);
+		send(IRODSConstants.RODS_API_REPLY, error.getInt(), null, errorBytes,
+				null, 0, 0);
+	}
+
+	private void sendReply(final String type, final int intInfo,
+			final Tag message, final byte[] bytes, final int bytesOffset,
+			final int bytesLength) throws IOException {
+		send(type, intInfo, message, null, bytes, bytesOffset, bytesLength);
+	}
+
+	/**
+	 * Frame and send a reply, after the configured latency
+	 */
+	private void send(final String type, final int intInfo, final Tag message,
+			final byte[] errorBytes, final byte[] bytes, final int bytesOffset,
+			final int bytesLength) throws IOException {
+		if (configuration.getLatencyMillis() > 0) {
+			try {
+				Thread.sleep(configuration.getLatencyMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted in reply latency");
+			}
+		}
+
+		byte[] messageBytes = message == null ? new byte[0] : TagEncoder
+				.encode(message);
+		int errorLength = errorBytes == null ? 0 : errorBytes.length;
+		Tag header = new Tag(IRODSConstants.MsgHeader_PI, new Tag[] {
+				new Tag(IRODSConstants.type, type),
+				new Tag(IRODSConstants.msgLen, messageBytes.length),
+				new Tag(IRODSConstants.errorLen, errorLength),
+				new Tag(IRODSConstants.bsLen, bytesLength),
+				new Tag(IRODSConstants.intInfo, intInfo) });
+		byte[] headerBytes = TagEncoder.encode(header);
+
+		out.write(new byte[] { (byte) (headerBytes.length >>> 24),
+				(byte) (headerBytes.length >>> 16),
+				(byte) (headerBytes.length >>> 8), (byte) headerBytes.length });
+		out.write(headerBytes);
+		out.write(messageBytes);
+		if (errorLength > 0) {
+			out.write(errorBytes);
+		}
+		if (bytesLength > 0) {
+			out.write(bytes, bytesOffset, bytesLength);
+		}
+		out.flush();
+	}
+
+	/**
+	 * One request read from the client
+	 */
+	private static final class Request {
+		private String type;
+		private int intInfo;
+		private Tag message;
+		private byte[] bytes;
+	}
+
+	/**
+	 * A GenQuery with rows left for its continuation
+	 */
+	private static final class OpenQuery {
+		private final int[] selectColumns;
+		private final List<String[]> rows;
+		private int position = 0;
+
+		OpenQuery(final int[] selectColumns, final List<String[]> rows) {
+			this.selectColumns = selectColumns;
+			this.rows = rows;
+		}
+	}
+
+	/**
+	 * A data object open for a descriptor. The contents are shared with the
+	 * store until the first write, then copied.
+	 */
+	private final class OpenDataObject {
+		private final String path;
+		private byte[] data;
+		private long length;
+		private long position = 0L;
+		private boolean written = false;
+		private boolean copied = false;
+		private int descriptor;
+		private ParallelPortal portal = null;
+
+		OpenDataObject(final String path, final byte[] data) {
+			this.path = path;
+			this.data = data;
+			length = data.length;
+		}
+
+		void truncate() {
+			data = new byte[0];
+			length = 0L;
+			copied = true;
+			written = true;
+		}
+
+		void write(final byte[] bytes, final int count) throws IOException {
+			long end = position + count;
+			if (end > MAX_ARRAY_LENGTH) {
+				throw new IOException(
+						"data object too large for the loopback server");
+			}
+
+			if (!copied || end > data.length) {
+				data = Arrays.copyOf(data,
+						(int) Math.max(end, Math.min(MAX_ARRAY_LENGTH,
+								data.length * 2L)));
+				copied = true;
+			}
+
+			if (count > 0) {
+				System.arraycopy(bytes, 0, data, (int) position, count);
+			}
+			position = end;
+			length = Math.max(length, end);
+			written = true;
+		}
+
+		void commit() {
+			if (written) {
+				objectStore.putDataObject(path,
+						data.length == length ? data : Arrays.copyOf(data,
+								(int) length));
+			}
+		}
+	}
+
+}
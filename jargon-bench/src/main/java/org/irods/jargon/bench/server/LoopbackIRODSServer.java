@@ -0,0 +1,260 @@
+package org.irods.jargon.bench.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in process stand in for an iRODS server, speaking the packing
+ * instruction protocol on a loopback port, so that the client can be measured
+ * with no grid, network or catalog in the way. Data objects and collections
+ * are kept in a {@link LoopbackObjectStore}, GenQuery rows come from the
+ * configured {@link GenQueryResponder}, and each reply is held back by the
+ * configured latency and paced to the configured bandwidth.
+ * <p/>
+ * Each client connection is served by its own agent thread, as an iRODS
+ * server would fork an agent. Large gets and puts are redirected to a
+ * parallel transfer listener, or, when the client turns parallel transfer
+ * off, moved by read and write calls on the descriptor.
+ * <p/>
+ * This is a measuring tool, not an emulator: there is no metadata, no
+ * permissions and no replicas, and a GenQuery is answered the same whatever
+ * it asks for, other than the columns selected.
+ */
+public class LoopbackIRODSServer {
+
+	/**
+	 * Address the server and its parallel transfer listeners bind to
+	 */
+	public static final String HOST = "127.0.0.1";
+
+	private static final Logger log = LoggerFactory
+			.getLogger(LoopbackIRODSServer.class);
+
+	private final LoopbackServerConfiguration configuration;
+	private final LoopbackObjectStore objectStore = new LoopbackObjectStore();
+	private final Set<Socket> agentSockets = Collections
+			.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+	private final AtomicInteger connectionCount = new AtomicInteger(0);
+	private final long bootTime = System.currentTimeMillis() / 1000L;
+	private ServerSocket serverSocket = null;
+	private ExecutorService executor = null;
+
+	/**
+	 * Create a server, not yet started, with the given configuration
+	 *
+	 * @param configuration
+	 *            {@link LoopbackServerConfiguration} for the server, which
+	 *            should not be changed once the server is started
+	 * @return {@link LoopbackIRODSServer}
+	 */
+	public static LoopbackIRODSServer instance(
+			final LoopbackServerConfiguration configuration) {
+		return new LoopbackIRODSServer(configuration);
+	}
+
+	private LoopbackIRODSServer(final LoopbackServerConfiguration configuration) {
+		if (configuration == null) {
+			throw new IllegalArgumentException("null configuration");
+		}
+		this.configuration = configuration;
+	}
+
+	/**
+	 * Listen on an ephemeral loopback port and serve connections until
+	 * {@link #stop()}
+	 *
+	 * @throws JargonException
+	 *             if the port cannot be opened
+	 */
+	public synchronized void start() throws JargonException {
+		if (serverSocket != null) {
+			throw new IllegalStateException("server already started");
+		}
+
+		log.info("starting loopback server with configuration:{}",
+				configuration);
+		objectStore.addCollection(getHomeCollection());
+
+		try {
+			serverSocket = new ServerSocket(0, 50, InetAddress.getByName(HOST));
+		} catch (IOException e) {
+			log.error("unable to open loopback server socket", e);
+			throw new JargonException("unable to open loopback server socket",
+					e);
+		}
+
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger threadCount = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(runnable, "loopback-irods-"
+						+ threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		final ServerSocket listener = serverSocket;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				acceptConnections(listener);
+			}
+		});
+		log.info("loopback server listening on port:{}", getPort());
+	}
+
+	/**
+	 * Stop listening, and close every connection being served
+	 */
+	public synchronized void stop() {
+		if (serverSocket == null) {
+			return;
+		}
+
+		log.info("stopping loopback server");
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			log.warn("error closing loopback server socket", e);
+		}
+
+		for (Socket socket : agentSockets) {
+			closeQuietly(socket);
+		}
+		agentSockets.clear();
+		executor.shutdownNow();
+		serverSocket = null;
+		executor = null;
+	}
+
+	private void acceptConnections(final ServerSocket listener) {
+		while (!listener.isClosed()) {
+			Socket socket;
+			try {
+				socket = listener.accept();
+			} catch (IOException e) {
+				if (!listener.isClosed()) {
+					log.error("error accepting loopback connection", e);
+				}
+				return;
+			}
+
+			connectionCount.incrementAndGet();
+			agentSockets.add(socket);
+			try {
+				executor.execute(new LoopbackAgent(this, socket));
+			} catch (RuntimeException e) {
+				log.warn("unable to start agent, server stopping", e);
+				agentFinished(socket);
+			}
+		}
+	}
+
+	/**
+	 * Called by an agent when its connection is done
+	 */
+	void agentFinished(final Socket socket) {
+		agentSockets.remove(socket);
+		closeQuietly(socket);
+	}
+
+	private static void closeQuietly(final Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			log.debug("error closing agent socket", e);
+		}
+	}
+
+	/**
+	 * Create an account for the configured user on this server, which must be
+	 * started
+	 *
+	 * @return {@link IRODSAccount}
+	 * @throws JargonException
+	 */
+	public IRODSAccount instanceIRODSAccount() throws JargonException {
+		return IRODSAccount.instance(HOST, getPort(),
+				configuration.getUserName(), configuration.getPassword(),
+				getHomeCollection(), configuration.getZone(), "");
+	}
+
+	/**
+	 * @return <code>String</code> with the home collection of the configured
+	 *         user
+	 */
+	public String getHomeCollection() {
+		return "/" + configuration.getZone() + "/home/"
+				+ configuration.getUserName();
+	}
+
+	/**
+	 * @return <code>int</code> with the port the server listens on, which is
+	 *         only known once started
+	 */
+	public synchronized int getPort() {
+		if (serverSocket == null) {
+			throw new IllegalStateException("server not started");
+		}
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return <code>String</code> with the address the server listens on
+	 */
+	public String getHost() {
+		return HOST;
+	}
+
+	/**
+	 * @return {@link LoopbackObjectStore} with the data objects and
+	 *         collections, which may be filled before or while serving
+	 */
+	public LoopbackObjectStore getObjectStore() {
+		return objectStore;
+	}
+
+	/**
+	 * @return {@link LoopbackServerConfiguration} of the server
+	 */
+	public LoopbackServerConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * @return <code>int</code> with the connections accepted since the server
+	 *         was created
+	 */
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the time the server was created, in
+	 *         seconds since the epoch, as iRODS reports it
+	 */
+	long getBootTime() {
+		return bootTime;
+	}
+
+	synchronized ExecutorService getExecutor() {
+		return executor;
+	}
+
+}
@@ -0,0 +1,133 @@
+package org.irods.jargon.bench.server;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory catalog and storage for a {@link LoopbackIRODSServer}. Data
+ * objects are kept whole as <code>byte[]</code>, and a data object written by
+ * a client replaces the previous contents when it is closed or the transfer
+ * completes.
+ * <p/>
+ * Adding a data object or collection adds its parent collections.
+ */
+public class LoopbackObjectStore {
+
+	private final ConcurrentHashMap<String, byte[]> dataObjects = new ConcurrentHashMap<String, byte[]>();
+	private final Set<String> collections = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	LoopbackObjectStore() {
+		collections.add("/");
+	}
+
+	/**
+	 * Add or replace a data object
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @param data
+	 *            <code>byte[]</code> with the contents, which is kept, not
+	 *            copied
+	 */
+	public void putDataObject(final String irodsAbsolutePath, final byte[] data) {
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		if (data == null) {
+			throw new IllegalArgumentException("null data");
+		}
+
+		addCollection(parentOf(irodsAbsolutePath));
+		dataObjects.put(irodsAbsolutePath, data);
+	}
+
+	/**
+	 * Get the contents of a data object
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @return <code>byte[]</code> with the contents, or <code>null</code> if
+	 *         there is no such data object
+	 */
+	public byte[] getDataObject(final String irodsAbsolutePath) {
+		if (irodsAbsolutePath == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePath");
+		}
+		return dataObjects.get(irodsAbsolutePath);
+	}
+
+	/**
+	 * Remove a data object
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @return <code>boolean</code> that is <code>true</code> if the data object
+	 *         was there
+	 */
+	public boolean removeDataObject(final String irodsAbsolutePath) {
+		if (irodsAbsolutePath == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePath");
+		}
+		return dataObjects.remove(irodsAbsolutePath) != null;
+	}
+
+	/**
+	 * Add a collection and its parents
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the collection
+	 */
+	public void addCollection(final String irodsAbsolutePath) {
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		String path = irodsAbsolutePath;
+		while (collections.add(path)) {
+			path = parentOf(path);
+		}
+	}
+
+	/**
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with an absolute path
+	 * @return <code>boolean</code> that is <code>true</code> if the path is a
+	 *         collection
+	 */
+	public boolean isCollection(final String irodsAbsolutePath) {
+		if (irodsAbsolutePath == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePath");
+		}
+		return collections.contains(irodsAbsolutePath);
+	}
+
+	/**
+	 * @return <code>int</code> with the number of data objects
+	 */
+	public int getDataObjectCount() {
+		return dataObjects.size();
+	}
+
+	/**
+	 * Remove all data objects and collections
+	 */
+	public void clear() {
+		dataObjects.clear();
+		collections.clear();
+		collections.add("/");
+	}
+
+	private static String parentOf(final String irodsAbsolutePath) {
+		int idx = irodsAbsolutePath.lastIndexOf('/');
+		if (idx <= 0) {
+			return "/";
+		}
+		return irodsAbsolutePath.substring(0, idx);
+	}
+
+}
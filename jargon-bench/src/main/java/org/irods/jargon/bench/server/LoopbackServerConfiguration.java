@@ -0,0 +1,213 @@
+package org.irods.jargon.bench.server;
+
+/**
+ * Settings for a {@link LoopbackIRODSServer}, such as the account that may
+ * log in, the version that is reported, and the latency and bandwidth that are
+ * imposed on each connection.
+ * <p/>
+ * Set these values before the server is started.
+ */
+public class LoopbackServerConfiguration {
+
+	private String zone = "benchZone";
+	private String userName = "bench";
+	private String password = "bench";
+	private String relVersion = "rods4.1.8";
+	private String apiVersion = "d";
+	private long latencyMillis = 0L;
+	private long bandwidthBytesPerSecond = 0L;
+	private int parallelThreads = 4;
+	private GenQueryResponder genQueryResponder = GeneratedRowsGenQueryResponder
+			.instance(0);
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("LoopbackServerConfiguration");
+		sb.append("\n\tzone:");
+		sb.append(zone);
+		sb.append("\n\tuserName:");
+		sb.append(userName);
+		sb.append("\n\trelVersion:");
+		sb.append(relVersion);
+		sb.append("\n\tapiVersion:");
+		sb.append(apiVersion);
+		sb.append("\n\tlatencyMillis:");
+		sb.append(latencyMillis);
+		sb.append("\n\tbandwidthBytesPerSecond:");
+		sb.append(bandwidthBytesPerSecond);
+		sb.append("\n\tparallelThreads:");
+		sb.append(parallelThreads);
+		sb.append("\n\tgenQueryResponder:");
+		sb.append(genQueryResponder);
+		return sb.toString();
+	}
+
+	/**
+	 * @return the zone served, which is also the first element of each path
+	 */
+	public String getZone() {
+		return zone;
+	}
+
+	/**
+	 * @param zone
+	 *            the zone to set
+	 */
+	public void setZone(final String zone) {
+		if (zone == null || zone.isEmpty()) {
+			throw new IllegalArgumentException("null or empty zone");
+		}
+		this.zone = zone;
+	}
+
+	/**
+	 * @return the name of the only user that may log in
+	 */
+	public String getUserName() {
+		return userName;
+	}
+
+	/**
+	 * @param userName
+	 *            the userName to set
+	 */
+	public void setUserName(final String userName) {
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+		this.userName = userName;
+	}
+
+	/**
+	 * @return the password checked in the native authentication challenge
+	 */
+	public String getPassword() {
+		return password;
+	}
+
+	/**
+	 * @param password
+	 *            the password to set
+	 */
+	public void setPassword(final String password) {
+		if (password == null || password.isEmpty()) {
+			throw new IllegalArgumentException("null or empty password");
+		}
+		this.password = password;
+	}
+
+	/**
+	 * @return the release version reported at startup and in the server info
+	 */
+	public String getRelVersion() {
+		return relVersion;
+	}
+
+	/**
+	 * @param relVersion
+	 *            the relVersion to set, e.g. <code>rods4.1.8</code>
+	 */
+	public void setRelVersion(final String relVersion) {
+		if (relVersion == null || relVersion.isEmpty()) {
+			throw new IllegalArgumentException("null or empty relVersion");
+		}
+		this.relVersion = relVersion;
+	}
+
+	/**
+	 * @return the API version reported at startup and in the server info
+	 */
+	public String getApiVersion() {
+		return apiVersion;
+	}
+
+	/**
+	 * @param apiVersion
+	 *            the apiVersion to set
+	 */
+	public void setApiVersion(final String apiVersion) {
+		if (apiVersion == null || apiVersion.isEmpty()) {
+			throw new IllegalArgumentException("null or empty apiVersion");
+		}
+		this.apiVersion = apiVersion;
+	}
+
+	/**
+	 * @return the delay in milliseconds before each reply is sent, which
+	 *         stands in for the round trip to a remote grid. 0 means no delay.
+	 */
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	/**
+	 * @param latencyMillis
+	 *            the latencyMillis to set
+	 */
+	public void setLatencyMillis(final long latencyMillis) {
+		if (latencyMillis < 0) {
+			throw new IllegalArgumentException("latencyMillis < 0");
+		}
+		this.latencyMillis = latencyMillis;
+	}
+
+	/**
+	 * @return the bytes per second each socket may carry in each direction,
+	 *         including each parallel transfer socket. 0 means no limit.
+	 */
+	public long getBandwidthBytesPerSecond() {
+		return bandwidthBytesPerSecond;
+	}
+
+	/**
+	 * @param bandwidthBytesPerSecond
+	 *            the bandwidthBytesPerSecond to set
+	 */
+	public void setBandwidthBytesPerSecond(final long bandwidthBytesPerSecond) {
+		if (bandwidthBytesPerSecond < 0) {
+			throw new IllegalArgumentException("bandwidthBytesPerSecond < 0");
+		}
+		this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+	}
+
+	/**
+	 * @return the most threads offered for a parallel get or put. The client
+	 *         may ask for fewer. 0 means transfers above the single buffer size
+	 *         use read and write calls on the main connection.
+	 */
+	public int getParallelThreads() {
+		return parallelThreads;
+	}
+
+	/**
+	 * @param parallelThreads
+	 *            the parallelThreads to set
+	 */
+	public void setParallelThreads(final int parallelThreads) {
+		if (parallelThreads < 0) {
+			throw new IllegalArgumentException("parallelThreads < 0");
+		}
+		this.parallelThreads = parallelThreads;
+	}
+
+	/**
+	 * @return the {@link GenQueryResponder} that gives the rows for each
+	 *         GenQuery
+	 */
+	public GenQueryResponder getGenQueryResponder() {
+		return genQueryResponder;
+	}
+
+	/**
+	 * @param genQueryResponder
+	 *            the genQueryResponder to set
+	 */
+	public void setGenQueryResponder(final GenQueryResponder genQueryResponder) {
+		if (genQueryResponder == null) {
+			throw new IllegalArgumentException("null genQueryResponder");
+		}
+		this.genQueryResponder = genQueryResponder;
+	}
+
+}
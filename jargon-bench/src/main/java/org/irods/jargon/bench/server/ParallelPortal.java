@@ -0,0 +1,253 @@
+package org.irods.jargon.bench.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.transfer.AbstractParallelTransferThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The listener a {@link LoopbackIRODSServer} opens for one parallel get or
+ * put, standing in for the port an iRODS agent redirects the client to. Each
+ * client thread connects and sends the cookie, and is given an equal segment
+ * of the data object, framed in chunks by the operation, flags, offset and
+ * length header, and ended by a <code>DONE_OPR</code> header.
+ */
+final class ParallelPortal {
+
+	/**
+	 * Most bytes sent under one header
+	 */
+	static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * How long to wait for each client thread to connect
+	 */
+	static final int ACCEPT_TIMEOUT_MILLIS = 30000;
+
+	private static final int HEADER_LENGTH = 24;
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelPortal.class);
+
+	private static final Random random = new Random();
+
+	private final ServerSocket serverSocket;
+	private final boolean get;
+	private final byte[] data;
+	private final int numberOfThreads;
+	private final int cookie;
+	private final long bandwidthBytesPerSecond;
+	private final CountDownLatch completed;
+	private volatile IOException failure = null;
+
+	/**
+	 * Open a portal that sends the given data to the client
+	 */
+	static ParallelPortal instanceForGet(final byte[] data,
+			final int numberOfThreads, final long bandwidthBytesPerSecond)
+			throws IOException {
+		return new ParallelPortal(true, data, numberOfThreads,
+				bandwidthBytesPerSecond);
+	}
+
+	/**
+	 * Open a portal that receives the given number of bytes from the client
+	 */
+	static ParallelPortal instanceForPut(final int dataSize,
+			final int numberOfThreads, final long bandwidthBytesPerSecond)
+			throws IOException {
+		return new ParallelPortal(false, new byte[dataSize], numberOfThreads,
+				bandwidthBytesPerSecond);
+	}
+
+	private ParallelPortal(final boolean get, final byte[] data,
+			final int numberOfThreads, final long bandwidthBytesPerSecond)
+			throws IOException {
+		if (numberOfThreads <= 0) {
+			throw new IllegalArgumentException("numberOfThreads <= 0");
+		}
+
+		this.get = get;
+		this.data = data;
+		this.numberOfThreads = numberOfThreads;
+		this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+		cookie = random.nextInt(Integer.MAX_VALUE);
+		completed = new CountDownLatch(numberOfThreads);
+		serverSocket = new ServerSocket(0, numberOfThreads,
+				InetAddress.getByName(LoopbackIRODSServer.HOST));
+		serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Accept the client threads, and move each segment, on the given executor
+	 */
+	void start(final ExecutorService executor) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				acceptThreads(executor);
+			}
+		});
+	}
+
+	/**
+	 * Wait for every segment to be moved
+	 *
+	 * @return <code>byte[]</code> with the data of the data object, which for
+	 *         a put is what was received
+	 * @throws IOException
+	 *             if a segment failed, or the wait timed out
+	 */
+	byte[] awaitCompletion(final long timeoutMillis) throws IOException {
+		try {
+			if (!completed.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new IOException("timed out waiting for parallel transfer");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted waiting for parallel transfer");
+		} finally {
+			close();
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+		return data;
+	}
+
+	void close() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			log.warn("error closing parallel listener", e);
+		}
+	}
+
+	private void acceptThreads(final ExecutorService executor) {
+		for (int i = 0; i < numberOfThreads; i++) {
+			final int segment = i;
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				log.error("parallel client thread did not connect", e);
+				failure = e;
+				while (completed.getCount() > 0) {
+					completed.countDown();
+				}
+				return;
+			}
+
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						moveSegment(socket, segment);
+					} catch (IOException e) {
+						log.error("error in parallel segment:{}", segment, e);
+						failure = e;
+					} finally {
+						try {
+							socket.close();
+						} catch (IOException e) {
+							log.warn("error closing parallel socket", e);
+						}
+						completed.countDown();
+					}
+				}
+			});
+		}
+	}
+
+	private void moveSegment(final Socket socket, final int segment)
+			throws IOException {
+		socket.setTcpNoDelay(true);
+		socket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				BandwidthThrottle.wrap(socket.getInputStream(),
+						bandwidthBytesPerSecond)));
+		OutputStream out = new BufferedOutputStream(BandwidthThrottle.wrap(
+				socket.getOutputStream(), bandwidthBytesPerSecond));
+
+		int sentCookie = in.readInt();
+		if (sentCookie != cookie) {
+			throw new IOException("bad cookie from parallel client thread");
+		}
+
+		long start = (long) data.length * segment / numberOfThreads;
+		long end = (long) data.length * (segment + 1) / numberOfThreads;
+		int operation = get ? AbstractParallelTransferThread.GET_OPR
+				: AbstractParallelTransferThread.PUT_OPR;
+
+		if (start == end && get) {
+			// a get thread must be told of an empty segment before it stops
+			out.write(header(operation, start, 0));
+		}
+
+		for (long offset = start; offset < end; offset += CHUNK_SIZE) {
+			int length = (int) Math.min(CHUNK_SIZE, end - offset);
+			out.write(header(operation, offset, length));
+			if (get) {
+				out.write(data, (int) offset, length);
+			} else {
+				out.flush();
+				in.readFully(data, (int) offset, length);
+			}
+		}
+
+		out.write(header(AbstractParallelTransferThread.DONE_OPR, 0, 0));
+		out.flush();
+
+		if (get) {
+			// let the client read to the end before the socket is closed
+			drain(in);
+		}
+	}
+
+	private static void drain(final InputStream in) {
+		try {
+			while (in.read() != -1) {
+			}
+		} catch (IOException e) {
+			log.debug("parallel client thread closed its socket", e);
+		}
+	}
+
+	private static byte[] header(final int operation, final long offset,
+			final long length) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(operation);
+		header.putInt(0);
+		header.putLong(offset);
+		header.putLong(length);
+		return header.array();
+	}
+
+	int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	int getCookie() {
+		return cookie;
+	}
+
+	int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+}
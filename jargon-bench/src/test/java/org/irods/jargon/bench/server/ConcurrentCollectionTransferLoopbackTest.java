@@ -0,0 +1,316 @@
+package org.irods.jargon.bench.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.OverwriteException;
+import org.irods.jargon.core.packinstr.TransferOptions;
+import org.irods.jargon.core.packinstr.TransferOptions.ForceOption;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.DefaultTransferControlBlock;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Drives directory puts with more than one concurrent file transfer against
+ * the loopback server, covering the listener, cancel, pause, failure and
+ * restart behavior of the concurrent collection transfer
+ */
+public class ConcurrentCollectionTransferLoopbackTest {
+
+	private static final int FILE_COUNT = 40;
+	private static final int CONCURRENT_FILES = 4;
+	private static final String WORKER_THREAD_PREFIX = "jargon-collection-transfer-";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private DataTransferOperations dataTransferOperations;
+	private IRODSFile targetCollection;
+	private File sourceDirectory;
+
+	/**
+	 * Listener that keeps each file callback, notes the thread it arrived on
+	 * and whether it was ever entered by two threads at once, and can cancel
+	 * or pause the transfer at the first completed file
+	 */
+	private static final class RecordingListener implements
+			TransferStatusCallbackListener {
+		private final TransferControlBlock transferControlBlock;
+		private final TransferState interruptAtFirstCompletion;
+		private final List<TransferStatus> callbacks = Collections
+				.synchronizedList(new ArrayList<TransferStatus>());
+		private final List<String> threadNames = Collections
+				.synchronizedList(new ArrayList<String>());
+		private final AtomicInteger inside = new AtomicInteger(0);
+		private volatile boolean enteredConcurrently = false;
+
+		RecordingListener(final TransferControlBlock transferControlBlock,
+				final TransferState interruptAtFirstCompletion) {
+			this.transferControlBlock = transferControlBlock;
+			this.interruptAtFirstCompletion = interruptAtFirstCompletion;
+		}
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			if (inside.incrementAndGet() > 1) {
+				enteredConcurrently = true;
+			}
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			callbacks.add(transferStatus);
+			threadNames.add(Thread.currentThread().getName());
+			if (transferStatus.getTransferState() == TransferState.IN_PROGRESS_COMPLETE_FILE) {
+				if (interruptAtFirstCompletion == TransferState.CANCELLED) {
+					transferControlBlock.setCancelled(true);
+				} else if (interruptAtFirstCompletion == TransferState.PAUSED) {
+					transferControlBlock.setPaused(true);
+				}
+			}
+			inside.decrementAndGet();
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_THIS_FILE;
+		}
+
+		List<String> sourcePathsInState(final TransferState transferState) {
+			List<String> paths = new ArrayList<String>();
+			synchronized (callbacks) {
+				for (TransferStatus transferStatus : callbacks) {
+					if (transferStatus.getTransferState() == transferState) {
+						paths.add(transferStatus.getSourceFileAbsolutePath());
+					}
+				}
+			}
+			return paths;
+		}
+
+		boolean calledFromWorker() {
+			synchronized (threadNames) {
+				for (String threadName : threadNames) {
+					if (threadName.startsWith(WORKER_THREAD_PREFIX)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		LoopbackServerConfiguration configuration = new LoopbackServerConfiguration();
+		configuration.setLatencyMillis(2);
+		server = LoopbackIRODSServer.instance(configuration);
+		server.start();
+		irodsFileSystem = IRODSFileSystem.instance();
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		dataTransferOperations = irodsFileSystem.getIRODSAccessObjectFactory()
+				.getDataTransferOperations(irodsAccount);
+		targetCollection = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(server.getHomeCollection());
+
+		sourceDirectory = temporaryFolder.newFolder("concurrent");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			OutputStream out = new FileOutputStream(new File(sourceDirectory,
+					"file" + i + ".txt"));
+			out.write(("contents of file " + i).getBytes("UTF-8"));
+			out.close();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	private TransferControlBlock buildTransferControlBlock(
+			final String restartAbsolutePath) throws JargonException {
+		TransferControlBlock transferControlBlock = DefaultTransferControlBlock
+				.instance(restartAbsolutePath);
+		TransferOptions transferOptions = new TransferOptions();
+		transferOptions.setMaxConcurrentFileTransfers(CONCURRENT_FILES);
+		transferControlBlock.setTransferOptions(transferOptions);
+		return transferControlBlock;
+	}
+
+	private String targetPathFor(final String name) {
+		return server.getHomeCollection() + "/" + sourceDirectory.getName()
+				+ "/" + name;
+	}
+
+	/**
+	 * @return the source files in the order the transfer walks them
+	 */
+	private List<String> sourcePathsInWalkOrder() {
+		List<String> paths = new ArrayList<String>();
+		for (File file : sourceDirectory.listFiles()) {
+			paths.add(file.getAbsolutePath());
+		}
+		return paths;
+	}
+
+	private int storedFileCount() {
+		int count = 0;
+		for (int i = 0; i < FILE_COUNT; i++) {
+			if (server.getObjectStore().getDataObject(
+					targetPathFor("file" + i + ".txt")) != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testCallbacksSerializedAndCompletionsInWalkOrder()
+			throws Exception {
+		TransferControlBlock transferControlBlock = buildTransferControlBlock(null);
+		RecordingListener listener = new RecordingListener(
+				transferControlBlock, null);
+
+		dataTransferOperations.putOperation(sourceDirectory, targetCollection,
+				listener, transferControlBlock);
+
+		Assert.assertEquals("all files should be stored", FILE_COUNT,
+				storedFileCount());
+		Assert.assertTrue("callbacks should come from the transfer workers",
+				listener.calledFromWorker());
+		Assert.assertFalse("listener entered by two threads at once",
+				listener.enteredConcurrently);
+		Assert.assertEquals(
+				"file completions should be reported in walk order",
+				sourcePathsInWalkOrder(),
+				listener.sourcePathsInState(TransferState.IN_PROGRESS_COMPLETE_FILE));
+	}
+
+	@Test
+	public void testCancelStopsWorkersWithOneCallback() throws Exception {
+		doTestInterrupt(TransferState.CANCELLED);
+	}
+
+	@Test
+	public void testPauseStopsWorkersWithOneCallback() throws Exception {
+		doTestInterrupt(TransferState.PAUSED);
+	}
+
+	private void doTestInterrupt(final TransferState interruptState)
+			throws Exception {
+		TransferControlBlock transferControlBlock = buildTransferControlBlock(null);
+		RecordingListener listener = new RecordingListener(
+				transferControlBlock, interruptState);
+
+		dataTransferOperations.putOperation(sourceDirectory, targetCollection,
+				listener, transferControlBlock);
+
+		Assert.assertTrue("transfer should stop before all files are moved",
+				storedFileCount() < FILE_COUNT);
+		Assert.assertEquals("should be one callback for the interruption", 1,
+				listener.sourcePathsInState(interruptState).size());
+
+		List<String> completed = listener
+				.sourcePathsInState(TransferState.IN_PROGRESS_COMPLETE_FILE);
+		Assert.assertEquals(
+				"completions should be a prefix of the walk, so the last one is a safe restart point",
+				sourcePathsInWalkOrder().subList(0, completed.size()),
+				completed);
+	}
+
+	@Test
+	public void testWorkerFailureThrownToCaller() throws Exception {
+		server.getObjectStore().putDataObject(targetPathFor("file7.txt"),
+				new byte[] { 1 });
+		TransferControlBlock transferControlBlock = buildTransferControlBlock(null);
+		transferControlBlock.getTransferOptions().setForceOption(
+				ForceOption.NO_FORCE);
+
+		try {
+			dataTransferOperations.putOperation(sourceDirectory,
+					targetCollection, null, transferControlBlock);
+			Assert.fail("overwrite without force should reach the caller");
+		} catch (OverwriteException e) {
+			// expected
+		}
+
+		Assert.assertTrue("existing data object should not be replaced",
+				Arrays.equals(new byte[] { 1 }, server.getObjectStore()
+						.getDataObject(targetPathFor("file7.txt"))));
+	}
+
+	@Test
+	public void testWorkerFailureReportedToListener() throws Exception {
+		server.getObjectStore().putDataObject(targetPathFor("file7.txt"),
+				new byte[] { 1 });
+		TransferControlBlock transferControlBlock = buildTransferControlBlock(null);
+		transferControlBlock.getTransferOptions().setForceOption(
+				ForceOption.NO_FORCE);
+		RecordingListener listener = new RecordingListener(
+				transferControlBlock, null);
+
+		dataTransferOperations.putOperation(sourceDirectory, targetCollection,
+				listener, transferControlBlock);
+
+		List<String> failed = listener.sourcePathsInState(TransferState.FAILURE);
+		Assert.assertEquals("one file should fail", 1, failed.size());
+		Assert.assertTrue(failed.get(0).endsWith("file7.txt"));
+		Assert.assertEquals("other files should be moved", FILE_COUNT - 1,
+				listener.sourcePathsInState(
+						TransferState.IN_PROGRESS_COMPLETE_FILE).size());
+	}
+
+	@Test
+	public void testRestartPointTransfersSequentially() throws Exception {
+		List<String> walk = sourcePathsInWalkOrder();
+		String restartPath = walk.get(9);
+		TransferControlBlock transferControlBlock = buildTransferControlBlock(restartPath);
+		RecordingListener listener = new RecordingListener(
+				transferControlBlock, null);
+
+		dataTransferOperations.putOperation(sourceDirectory, targetCollection,
+				listener, transferControlBlock);
+
+		Assert.assertFalse("a restart should not use the transfer workers",
+				listener.calledFromWorker());
+		Assert.assertEquals("files up to the restart point should be skipped",
+				walk.subList(0, 10),
+				listener.sourcePathsInState(TransferState.RESTARTING));
+		Assert.assertEquals("files after the restart point should be moved",
+				walk.subList(10, FILE_COUNT),
+				listener.sourcePathsInState(TransferState.IN_PROGRESS_COMPLETE_FILE));
+	}
+
+}
@@ -0,0 +1,264 @@
+package org.irods.jargon.bench.server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.irods.jargon.core.exception.AuthenticationException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse;
+import org.irods.jargon.core.pub.BulkFileOperationResponse;
+import org.irods.jargon.core.pub.DataObjectAO;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LoopbackIRODSServerTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private LoopbackServerConfiguration configuration;
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+
+	@Before
+	public void setUp() throws Exception {
+		configuration = new LoopbackServerConfiguration();
+		configuration.setGenQueryResponder(GeneratedRowsGenQueryResponder
+				.instance(25));
+		server = LoopbackIRODSServer.instance(configuration);
+		server.start();
+		irodsFileSystem = IRODSFileSystem.instance();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		irodsFileSystem.closeAndEatExceptions();
+		server.stop();
+	}
+
+	@Test
+	public void testConnectAndGetServerProperties() throws Exception {
+		IRODSServerProperties props = irodsFileSystem
+				.getIRODSAccessObjectFactory().getIRODSServerProperties(
+						server.instanceIRODSAccount());
+		Assert.assertEquals(configuration.getRelVersion(),
+				props.getRelVersion());
+		Assert.assertEquals(configuration.getZone(), props.getRodsZone());
+		Assert.assertEquals(1, server.getConnectionCount());
+	}
+
+	@Test(expected = AuthenticationException.class)
+	public void testConnectBadPassword() throws Exception {
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		irodsAccount.setPassword("wrong");
+		irodsFileSystem.getIRODSAccessObjectFactory()
+				.getIRODSServerProperties(irodsAccount);
+	}
+
+	@Test
+	public void testObjStat() throws Exception {
+		String path = server.getHomeCollection() + "/stat.txt";
+		server.getObjectStore().putDataObject(path, new byte[100]);
+		DataObjectAO dataObjectAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataObjectAO(
+						server.instanceIRODSAccount());
+
+		ObjStat objStat = dataObjectAO.getObjectStatForAbsolutePath(path);
+		Assert.assertEquals(100L, objStat.getObjSize());
+		Assert.assertFalse(objStat.isSomeTypeOfCollection());
+		Assert.assertTrue(dataObjectAO.getObjectStatForAbsolutePath(
+				server.getHomeCollection()).isSomeTypeOfCollection());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testObjStatMissing() throws Exception {
+		irodsFileSystem
+				.getIRODSAccessObjectFactory()
+				.getDataObjectAO(server.instanceIRODSAccount())
+				.getObjectStatForAbsolutePath(
+						server.getHomeCollection() + "/missing.txt");
+	}
+
+	@Test
+	public void testGenQueryPaging() throws Exception {
+		IRODSGenQueryExecutor executor = irodsFileSystem
+				.getIRODSAccessObjectFactory().getIRODSGenQueryExecutor(
+						server.instanceIRODSAccount());
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME);
+
+		IRODSQueryResultSet resultSet = executor.executeIRODSQuery(
+				builder.exportIRODSQueryFromBuilder(10), 0);
+		Assert.assertEquals(10, resultSet.getResults().size());
+		Assert.assertTrue(resultSet.isHasMoreRecords());
+		Assert.assertEquals("row0col403", resultSet.getFirstResult()
+				.getColumn(0));
+		Assert.assertEquals("row0col501", resultSet.getFirstResult()
+				.getColumn(1));
+
+		int rows = resultSet.getResults().size();
+		while (resultSet.isHasMoreRecords()) {
+			resultSet = executor.getMoreResults(resultSet);
+			rows += resultSet.getResults().size();
+		}
+		Assert.assertEquals(25, rows);
+	}
+
+	@Test
+	public void testPutAndGetSmall() throws Exception {
+		doPutAndGet(1024 * 1024 + 3, "small.dat");
+	}
+
+	@Test
+	public void testPutAndGetParallel() throws Exception {
+		doPutAndGet(33 * 1024 * 1024 + 7, "parallel.dat");
+	}
+
+	@Test
+	public void testStreamWriteAndRead() throws Exception {
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		IRODSFileFactory irodsFileFactory = irodsFileSystem
+				.getIRODSFileFactory(irodsAccount);
+		String path = server.getHomeCollection() + "/stream.dat";
+		byte[] data = new byte[300 * 1024 + 11];
+		new Random(3).nextBytes(data);
+
+		OutputStream out = irodsFileFactory.instanceIRODSFileOutputStream(path);
+		out.write(data, 0, 1000);
+		out.write(data, 1000, data.length - 1000);
+		out.close();
+		Assert.assertTrue(Arrays.equals(data, server.getObjectStore()
+				.getDataObject(path)));
+
+		InputStream in = irodsFileFactory.instanceIRODSFileInputStream(path);
+		byte[] read = new byte[data.length];
+		int total = 0;
+		int count;
+		while ((count = in.read(read, total, read.length - total)) > 0) {
+			total += count;
+		}
+		in.close();
+		Assert.assertEquals(data.length, total);
+		Assert.assertTrue(Arrays.equals(data, read));
+	}
+
+	@Test
+	public void testBulkAVUAndPermissionsAnsweredByTarget() throws Exception {
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		String path = server.getHomeCollection() + "/avu.txt";
+		String missingPath = server.getHomeCollection() + "/missing.txt";
+		server.getObjectStore().putDataObject(path, new byte[1]);
+		DataObjectAO dataObjectAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataObjectAO(irodsAccount);
+
+		Map<String, List<AvuData>> avuDataByPath = new LinkedHashMap<String, List<AvuData>>();
+		avuDataByPath.put(path, Arrays.asList(AvuData.instance("a", "1", ""),
+				AvuData.instance("b", "2", "")));
+		avuDataByPath.put(missingPath,
+				Collections.singletonList(AvuData.instance("c", "3", "")));
+		Map<String, List<BulkAVUOperationResponse>> avuResponses = dataObjectAO
+				.addBulkAVUMetadataToDataObjects(avuDataByPath);
+		for (BulkAVUOperationResponse response : avuResponses.get(path)) {
+			Assert.assertEquals(BulkAVUOperationResponse.ResultStatus.OK,
+					response.getResultStatus());
+		}
+		Assert.assertEquals(
+				BulkAVUOperationResponse.ResultStatus.MISSING_METADATA_TARGET,
+				avuResponses.get(missingPath).get(0).getResultStatus());
+
+		List<BulkFileOperationResponse> permissionResponses = dataObjectAO
+				.setAccessPermissions(irodsAccount.getZone(),
+						Arrays.asList(path, missingPath),
+						irodsAccount.getUserName(), FilePermissionEnum.READ);
+		Assert.assertEquals(BulkFileOperationResponse.ResultStatus.OK,
+				permissionResponses.get(0).getResultStatus());
+		Assert.assertEquals(
+				BulkFileOperationResponse.ResultStatus.MISSING_TARGET,
+				permissionResponses.get(1).getResultStatus());
+	}
+
+	@Test
+	public void testLatencyApplied() throws Exception {
+		server.stop();
+		configuration.setLatencyMillis(20);
+		server = LoopbackIRODSServer.instance(configuration);
+		server.start();
+		String path = server.getHomeCollection() + "/latency.txt";
+		server.getObjectStore().putDataObject(path, new byte[1]);
+		DataObjectAO dataObjectAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataObjectAO(
+						server.instanceIRODSAccount());
+		dataObjectAO.getObjectStatForAbsolutePath(path);
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			dataObjectAO.getObjectStatForAbsolutePath(path);
+		}
+		Assert.assertTrue("latency not applied",
+				System.currentTimeMillis() - start >= 100);
+	}
+
+	private void doPutAndGet(final int length, final String name)
+			throws Exception {
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+		DataTransferOperations dataTransferOperations = accessObjectFactory
+				.getDataTransferOperations(irodsAccount);
+		byte[] data = new byte[length];
+		new Random(7).nextBytes(data);
+		File localFile = temporaryFolder.newFile(name);
+		OutputStream out = new FileOutputStream(localFile);
+		out.write(data);
+		out.close();
+
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(server.getHomeCollection(), name);
+		dataTransferOperations.putOperation(localFile, irodsFile, null, null);
+		Assert.assertTrue("put data not stored", Arrays.equals(data, server
+				.getObjectStore().getDataObject(irodsFile.getAbsolutePath())));
+
+		File getFile = new File(temporaryFolder.getRoot(), "get-" + name);
+		dataTransferOperations.getOperation(irodsFile, getFile, null, null);
+		Assert.assertEquals(length, getFile.length());
+		byte[] read = new byte[length];
+		InputStream in = new FileInputStream(getFile);
+		int total = 0;
+		int count;
+		while ((count = in.read(read, total, length - total)) > 0) {
+			total += count;
+		}
+		in.close();
+		Assert.assertTrue("got data differs", Arrays.equals(data, read));
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.irods.jargon.bench.server;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSPoolingProtocolManager;
+import org.irods.jargon.core.connection.IRODSProtocolPoolConfiguration;
+import org.irods.jargon.core.connection.IRODSProtocolPoolStatistics;
+import org.irods.jargon.core.connection.IRODSSimpleProtocolManager;
+import org.irods.jargon.core.pub.DataObjectAO;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Drives the {@link IRODSPoolingProtocolManager} against the loopback server,
+ * so reuse is checked by the connections the server actually accepts
+ */
+public class PoolingProtocolManagerLoopbackTest {
+
+	private static final int ROUNDS = 5;
+
+	private LoopbackIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+
+	@Before
+	public void setUp() throws Exception {
+		server = LoopbackIRODSServer
+				.instance(new LoopbackServerConfiguration());
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (irodsFileSystem != null) {
+			irodsFileSystem.closeAndEatExceptions();
+		}
+		server.stop();
+	}
+
+	@Test
+	public void testPooledConnectionReusedAcrossSessionClose()
+			throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(new IRODSProtocolPoolConfiguration());
+		irodsFileSystem = new IRODSFileSystem(manager);
+		IRODSAccount irodsAccount = server.instanceIRODSAccount();
+
+		statAndCloseRounds(irodsAccount);
+
+		Assert.assertEquals("server should have accepted one connection", 1,
+				server.getConnectionCount());
+		IRODSProtocolPoolStatistics stats = manager.getPoolStatistics();
+		Assert.assertEquals("should have created one connection", 1,
+				stats.getCreated());
+		Assert.assertEquals("should have reused the pooled connection",
+				ROUNDS - 1, stats.getReused());
+		Assert.assertEquals("connection should be idle in the pool", 1,
+				stats.getIdle());
+		Assert.assertEquals("should be no active connections", 0,
+				stats.getActive());
+	}
+
+	@Test
+	public void testSimpleManagerConnectsEachTime() throws Exception {
+		irodsFileSystem = new IRODSFileSystem(
+				IRODSSimpleProtocolManager.instance());
+
+		statAndCloseRounds(server.instanceIRODSAccount());
+
+		Assert.assertEquals("server should have accepted a connection per use",
+				ROUNDS, server.getConnectionCount());
+	}
+
+	private void statAndCloseRounds(final IRODSAccount irodsAccount)
+			throws Exception {
+		for (int i = 0; i < ROUNDS; i++) {
+			DataObjectAO dataObjectAO = irodsFileSystem
+					.getIRODSAccessObjectFactory()
+					.getDataObjectAO(irodsAccount);
+			Assert.assertTrue(dataObjectAO.getObjectStatForAbsolutePath(
+					server.getHomeCollection()).isSomeTypeOfCollection());
+			irodsFileSystem.close(irodsAccount);
+		}
+	}
+
+}
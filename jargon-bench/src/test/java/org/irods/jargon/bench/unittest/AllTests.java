@@ -0,0 +1,18 @@
+package org.irods.jargon.bench.unittest;
+
+import org.irods.jargon.bench.server.ConcurrentCollectionTransferLoopbackTest;
+import org.irods.jargon.bench.server.LoopbackIRODSServerTest;
+import org.irods.jargon.bench.server.PoolingProtocolManagerLoopbackTest;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({ LoopbackIRODSServerTest.class,
+		PoolingProtocolManagerLoopbackTest.class,
+		ConcurrentCollectionTransferLoopbackTest.class })
+/**
+ * Suite to run all tests of the loopback server, the benchmarks themselves are run by JMH
+ */
+public class AllTests {
+
+}
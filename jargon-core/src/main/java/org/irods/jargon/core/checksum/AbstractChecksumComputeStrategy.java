@@ -4,6 +4,7 @@
 package org.irods.jargon.core.checksum;
 
 import java.io.FileNotFoundException;
+import java.security.MessageDigest;
 
 import org.irods.jargon.core.exception.JargonException;
 
@@ -28,4 +29,27 @@ public abstract class AbstractChecksumComputeStrategy {
 			final String localFileAbsolutePath) throws FileNotFoundException,
 			JargonException;
 
+	/**
+	 * Create a digest for this algorithm, so that a checksum can be computed
+	 * inline as the bytes of a file are transferred, rather than by reading
+	 * the file again afterwards
+	 * 
+	 * @return <code>MessageDigest</code> that is ready to be updated
+	 * @throws JargonException
+	 */
+	public abstract MessageDigest instanceMessageDigest()
+			throws JargonException;
+
+	/**
+	 * Build the checksum value from a finished digest, in the same form as
+	 * {@link #computeChecksumValueForLocalFile(String)}
+	 * 
+	 * @param digest
+	 *            <code>byte[]</code> with the digest from a
+	 *            <code>MessageDigest</code> from
+	 *            {@link #instanceMessageDigest()}
+	 * @return {@link ChecksumValue} with a checksum in digest (string) form.
+	 */
+	public abstract ChecksumValue checksumValueFromDigest(final byte[] digest);
+
 }
@@ -4,6 +4,8 @@
 package org.irods.jargon.core.checksum;
 
 import java.io.FileNotFoundException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
@@ -42,6 +44,38 @@ public class MD5LocalChecksumComputerStrategy extends
 
 		byte[] digest = LocalFileUtils
 				.computeMD5FileCheckSumViaAbsolutePath(localFileAbsolutePath);
+		return checksumValueFromDigest(digest);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.checksum.AbstractChecksumComputeStrategy#
+	 * instanceMessageDigest()
+	 */
+	@Override
+	public MessageDigest instanceMessageDigest() throws JargonException {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new JargonException("no such algorithm exception for MD5", e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.checksum.AbstractChecksumComputeStrategy#
+	 * checksumValueFromDigest(byte[])
+	 */
+	@Override
+	public ChecksumValue checksumValueFromDigest(final byte[] digest) {
+
+		if (digest == null) {
+			throw new IllegalArgumentException("null digest");
+		}
+
 		ChecksumValue value = new ChecksumValue();
 		value.setChecksumEncoding(ChecksumEncodingEnum.MD5);
 		value.setChecksumStringValue(LocalFileUtils
@@ -4,6 +4,8 @@
 package org.irods.jargon.core.checksum;
 
 import java.io.FileNotFoundException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.apache.commons.codec.binary.Base64;
 import org.irods.jargon.core.exception.JargonException;
@@ -43,6 +45,38 @@ public class SHA256LocalChecksumComputerStrategy extends
 
 		byte[] digest = LocalFileUtils
 				.computeSHA256FileCheckSumViaAbsolutePath(localFileAbsolutePath);
+		return checksumValueFromDigest(digest);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.checksum.AbstractChecksumComputeStrategy#
+	 * instanceMessageDigest()
+	 */
+	@Override
+	public MessageDigest instanceMessageDigest() throws JargonException {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new JargonException("no such algorithm exception for SHA256",
+					e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.checksum.AbstractChecksumComputeStrategy#
+	 * checksumValueFromDigest(byte[])
+	 */
+	@Override
+	public ChecksumValue checksumValueFromDigest(final byte[] digest) {
+
+		if (digest == null) {
+			throw new IllegalArgumentException("null digest");
+		}
 
 		ChecksumValue value = new ChecksumValue();
 		value.setChecksumEncoding(ChecksumEncodingEnum.SHA256);
@@ -2,7 +2,7 @@ package org.irods.jargon.core.connection;
 
 import static org.irods.jargon.core.connection.ConnectionConstants.INT_LENGTH;
 
-import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
@@ -11,6 +11,10 @@ import java.net.Socket;
 import java.nio.channels.ClosedChannelException;
 
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagEncoder;
+import org.irods.jargon.core.packinstr.TagParser;
 import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +64,29 @@ public abstract class AbstractConnection {
 	 * Holds the offset into the outputBuffer array for adding new data.
 	 */
 	private int outputOffset = 0;
+	/**
+	 * Reused to frame message headers, see {@link #sendHeader}
+	 */
+	private final byte[] headerBuffer = new byte[HEADER_BUFFER_LENGTH];
+	private final byte[] sendIntBuffer = new byte[INT_LENGTH];
+	private final byte[] readIntBuffer = new byte[INT_LENGTH];
+	/**
+	 * Reused to copy between streams and the socket, allocated on first use
+	 */
+	private byte[] copyBuffer = null;
+
+	private static final int HEADER_BUFFER_LENGTH = 512;
+	private static final byte[] HEADER_START = asciiBytes("<MsgHeader_PI><type>");
+	private static final byte[] HEADER_MSG_LEN = asciiBytes("</type><msgLen>");
+	private static final byte[] HEADER_ERROR_LEN = asciiBytes("</msgLen><errorLen>");
+	private static final byte[] HEADER_BS_LEN = asciiBytes("</errorLen><bsLen>");
+	private static final byte[] HEADER_INT_INFO = asciiBytes("</bsLen><intInfo>");
+	private static final byte[] HEADER_END = asciiBytes("</intInfo></MsgHeader_PI>");
+
+	/**
+	 * Gather i/o metrics, set from the <code>PipelineConfiguration</code>
+	 */
+	private final boolean instrument;
 
 	/**
 	 * Constructor with account info to set up socket and information about
@@ -93,6 +120,7 @@ public abstract class AbstractConnection {
 		this.irodsAccount = irodsAccount;
 		this.pipelineConfiguration = pipelineConfiguration;
 		this.irodsProtocolManager = irodsProtocolManager;
+		instrument = pipelineConfiguration.isInstrument();
 
 		/*
 		 * If using the custom internal buffer, initialize it
@@ -129,8 +157,13 @@ public abstract class AbstractConnection {
 
 		log.info("opening irods socket");
 
+		long startNanos = instrument ? System.nanoTime() : 0L;
 		connect(irodsAccount);
 		setConnected(true);
+		if (instrument) {
+			Instrumentation.recordElapsed(Instrumentation.CONNECTION_OPEN,
+					startNanos);
+		}
 
 		// build an identifier for this connection, at least for now
 		StringBuilder connectionInternalIdentifierBuilder = new StringBuilder();
@@ -188,33 +221,95 @@ public abstract class AbstractConnection {
 	 *             If an IOException occurs
 	 */
 	public void send(final byte[] value) throws IOException {
+		// packing instructions may be null, in which case nothing is sent
+		if (value == null) {
+			return;
+		}
 
-		try {
-			// packing instructions may be null, in which case nothing is sent
-			if (value == null) {
-				return;
-			}
+		if (value.length == 0) {
+			// nothing to send, warn and ignore
+			return;
+		}
 
-			if (value.length == 0) {
-				// nothing to send, warn and ignore
-				return;
-			}
+		sendBytes(value, 0, value.length);
+	}
 
+	/**
+	 * Buffer or write the given bytes without copying them anywhere but the
+	 * internal output buffer, so the caller may reuse the array as soon as
+	 * this returns
+	 */
+	private void sendBytes(final byte[] value, final int offset,
+			final int length) throws IOException {
+
+		try {
 			if (pipelineConfiguration.getInternalCacheBufferSize() <= 0) {
-				irodsOutputStream.write(value);
-			} else if ((value.length + outputOffset) >= pipelineConfiguration
+				irodsOutputStream.write(value, offset, length);
+			} else if ((length + outputOffset) >= pipelineConfiguration
 					.getInternalCacheBufferSize()) {
 				// in cases where OUTPUT_BUFFER_LENGTH isn't big enough
 				irodsOutputStream.write(outputBuffer, 0, outputOffset);
-				irodsOutputStream.write(value);
+				irodsOutputStream.write(value, offset, length);
 				outputOffset = 0;
 			} else {
 
 				// the message sent isn't longer than OUTPUT_BUFFER_LENGTH
-				System.arraycopy(value, 0, outputBuffer, outputOffset,
-						value.length);
-				outputOffset += value.length;
+				System.arraycopy(value, offset, outputBuffer, outputOffset,
+						length);
+				outputOffset += length;
+
+			}
+
+			if (instrument) {
+				Instrumentation.count(Instrumentation.BYTES_SENT, length);
+			}
+		} catch (IOException ioe) {
+			getIrodsSession().discardSessionForErrors(getIrodsAccount());
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Send a packing instruction as UTF-8, encoding it straight into the
+	 * internal output buffer when it fits, so no <code>String</code> or
+	 * message sized array is made for it
+	 *
+	 * @param tag
+	 *            {@link Tag} with the packing instruction
+	 * @param encodedLength
+	 *            <code>int</code> with the length given by
+	 *            {@link TagEncoder#encodedLength(Tag)}, which was sent in the
+	 *            message header
+	 * @throws IOException
+	 */
+	void sendTag(final Tag tag, final int encodedLength) throws IOException {
+
+		if (tag == null) {
+			throw new IllegalArgumentException("null tag");
+		}
 
+		int bufferSize = pipelineConfiguration.getInternalCacheBufferSize();
+		if (bufferSize <= 0 || encodedLength >= bufferSize) {
+			sendBytes(TagEncoder.encode(tag), 0, encodedLength);
+			return;
+		}
+
+		try {
+			if (encodedLength + outputOffset >= bufferSize) {
+				irodsOutputStream.write(outputBuffer, 0, outputOffset);
+				outputOffset = 0;
+			}
+
+			int end = TagEncoder.encode(tag, outputBuffer, outputOffset);
+			if (end - outputOffset != encodedLength) {
+				throw new IllegalStateException(
+						"encoded tag length does not match the header");
+			}
+			outputOffset = end;
+
+			if (instrument) {
+				Instrumentation.count(Instrumentation.BYTES_SENT,
+						encodedLength);
 			}
 		} catch (IOException ioe) {
 			getIrodsSession().discardSessionForErrors(getIrodsAccount());
@@ -224,8 +319,8 @@ public abstract class AbstractConnection {
 
 	/**
 	 * Writes a certain length of bytes at some offset in the value array to the
-	 * output stream, by converting the value to a byte array and calling send(
-	 * byte[] value ).
+	 * output stream. The bytes are not copied except into the internal output
+	 * buffer.
 	 * 
 	 * @param value
 	 *            value to be sent
@@ -263,11 +358,109 @@ public abstract class AbstractConnection {
 			throw new IllegalArgumentException(err);
 		}
 
-		byte temp[] = new byte[length];
+		if (offset + length > value.length) {
+			String err = "offset + length larger than byte array";
+			log.error(err);
+			throw new IllegalArgumentException(err);
+		}
+
+		sendBytes(value, offset, length);
+	}
+
+	/**
+	 * Send the header of an iRODS message, which is the 4 byte length in
+	 * network order followed by the <code>MsgHeader_PI</code> XML. The header
+	 * is framed in a buffer kept by this connection, so nothing is allocated.
+	 * This writes the same bytes as
+	 * {@link AbstractIRODSMidLevelProtocol#createHeader}.
+	 *
+	 * @param type
+	 *            <code>String</code> with the message type, which is always
+	 *            ASCII
+	 * @param messageLength
+	 *            <code>int</code> with the length of the packing instruction
+	 * @param errorLength
+	 *            <code>int</code> with the length of any error message
+	 * @param byteStringLength
+	 *            <code>long</code> with the length of the binary data
+	 * @param intInfo
+	 *            <code>int</code> with the API number
+	 * @throws IOException
+	 */
+	void sendHeader(final String type, final int messageLength,
+			final int errorLength, final long byteStringLength,
+			final int intInfo) throws IOException {
+
+		if (type == null) {
+			throw new IllegalArgumentException("null type");
+		}
+
+		int position = INT_LENGTH;
+		position = appendToHeader(HEADER_START, position);
+		if (position + type.length() > HEADER_BUFFER_LENGTH
+				- HEADER_END.length) {
+			throw new IllegalArgumentException("type is too long for header");
+		}
+		for (int i = 0; i < type.length(); i++) {
+			char c = type.charAt(i);
+			if (c > 0x7F) {
+				throw new IllegalArgumentException("type must be ASCII");
+			}
+			headerBuffer[position++] = (byte) c;
+		}
+		position = appendToHeader(HEADER_MSG_LEN, position);
+		position = appendToHeader(messageLength, position);
+		position = appendToHeader(HEADER_ERROR_LEN, position);
+		position = appendToHeader(errorLength, position);
+		position = appendToHeader(HEADER_BS_LEN, position);
+		position = appendToHeader(byteStringLength, position);
+		position = appendToHeader(HEADER_INT_INFO, position);
+		position = appendToHeader(intInfo, position);
+		position = appendToHeader(HEADER_END, position);
+
+		Host.copyInt(position - INT_LENGTH, headerBuffer);
+		sendBytes(headerBuffer, 0, position);
+	}
+
+	private int appendToHeader(final byte[] bytes, final int position) {
+		System.arraycopy(bytes, 0, headerBuffer, position, bytes.length);
+		return position + bytes.length;
+	}
+
+	/**
+	 * Write the decimal digits of a value, as <code>Long.toString()</code>
+	 * would, without making the string
+	 */
+	private int appendToHeader(final long value, final int position) {
+		if (value == Long.MIN_VALUE) {
+			return appendToHeader(asciiBytes(String.valueOf(value)), position);
+		}
+
+		int myPosition = position;
+		long remaining = value;
+		if (remaining < 0) {
+			headerBuffer[myPosition++] = '-';
+			remaining = -remaining;
+		}
 
-		System.arraycopy(value, offset, temp, 0, length);
+		int digits = 1;
+		for (long power = 10; digits < 19 && power <= remaining; power *= 10) {
+			digits++;
+		}
 
-		send(temp);
+		for (int i = myPosition + digits - 1; i >= myPosition; i--) {
+			headerBuffer[i] = (byte) ('0' + (remaining % 10));
+			remaining /= 10;
+		}
+		return myPosition + digits;
+	}
+
+	private static byte[] asciiBytes(final String value) {
+		byte[] bytes = new byte[value.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) value.charAt(i);
+		}
+		return bytes;
 	}
 
 	/**
@@ -297,13 +490,40 @@ public abstract class AbstractConnection {
 	 *             If an IOException occurs
 	 */
 	protected void sendInNetworkOrder(final int value) throws IOException {
-		byte bytes[] = new byte[INT_LENGTH];
-
-		Host.copyInt(value, bytes);
-		send(bytes);
+		Host.copyInt(value, sendIntBuffer);
+		sendBytes(sendIntBuffer, 0, INT_LENGTH);
 		flush();
 	}
 
+	/**
+	 * Reads an int sent as four bytes in network order, such as the length
+	 * that leads each message header
+	 *
+	 * @return <code>int</code> that was read
+	 * @throws IOException
+	 *             If an IOException occurs, or if the connection ends before
+	 *             the four bytes are read
+	 */
+	protected int readIntInNetworkOrder() throws IOException {
+		int read = read(readIntBuffer, 0, INT_LENGTH);
+		if (read != INT_LENGTH) {
+			throw new EOFException("connection ended reading an int");
+		}
+		return Host.castToInt(readIntBuffer);
+	}
+
+	/**
+	 * @return <code>byte[]</code> kept by this connection for copying between
+	 *         streams and the socket
+	 */
+	private byte[] getCopyBuffer() {
+		if (copyBuffer == null) {
+			copyBuffer = new byte[pipelineConfiguration
+					.getInputToOutputCopyBufferByteSize()];
+		}
+		return copyBuffer;
+	}
+
 	/**
 	 * Writes the given input stream content, for the given length, to the iRODS
 	 * agent
@@ -335,12 +555,9 @@ public abstract class AbstractConnection {
 		}
 
 		int lenThisRead = 0;
-		long lenOfTemp = Math.min(
-				pipelineConfiguration.getInputToOutputCopyBufferByteSize(),
-				length);
 		long dataSent = 0;
 
-		byte[] temp = new byte[(int) lenOfTemp];
+		byte[] temp = getCopyBuffer();
 
 		while (length > 0) {
 
@@ -350,10 +567,8 @@ public abstract class AbstractConnection {
 				"interrupted, consider connection corrupted and return IOException to clear");
 			}
 
-			if (temp.length > length) {
-				temp = new byte[(int) length];
-			}
-			lenThisRead = source.read(temp);
+			lenThisRead = source.read(temp, 0,
+					(int) Math.min(temp.length, length));
 
 			if (lenThisRead == -1) {
 				log.info("done with stream");
@@ -362,7 +577,7 @@ public abstract class AbstractConnection {
 
 			length -= lenThisRead;
 			dataSent += lenThisRead;
-			send(temp, 0, lenThisRead);
+			sendBytes(temp, 0, lenThisRead);
 			/*
 			 * If a listener is specified, send call-backs with progress
 			 */
@@ -398,13 +613,16 @@ public abstract class AbstractConnection {
 		if (pipelineConfiguration.getInternalCacheBufferSize() > 0) {
 			irodsOutputStream.write(outputBuffer, 0, outputOffset);
 			irodsOutputStream.flush();
-			byte zerByte = (byte) 0;
-			java.util.Arrays.fill(outputBuffer, zerByte);
+			// stale bytes past the offset are never sent, no need to clear
 			outputOffset = 0;
 		} else {
 			irodsOutputStream.flush();
 		}
 
+		if (instrument) {
+			Instrumentation.count(Instrumentation.FLUSHES, 1L);
+		}
+
 	}
 
 	/**
@@ -414,7 +632,11 @@ public abstract class AbstractConnection {
 	 *             If an IOException occurs
 	 */
 	protected byte read() throws IOException {
-		return (byte) irodsInputStream.read();
+		int value = irodsInputStream.read();
+		if (instrument && value != -1) {
+			Instrumentation.count(Instrumentation.BYTES_RECEIVED, 1L);
+		}
+		return (byte) value;
 
 	}
 
@@ -445,8 +667,9 @@ public abstract class AbstractConnection {
 	 * 
 	 * @param destination
 	 *            <code>OutputStream</code> to which data will be streamed from
-	 *            iRODS. Note that this method will wrap the output stream with
-	 *            a buffered stream for you.
+	 *            iRODS. Data is written in chunks of the copy buffer size in
+	 *            the pipeline configuration, and the stream is flushed but not
+	 *            closed when done.
 	 * @param length
 	 *            <code>long</code> with the length of data to be read from
 	 *            iRODS and pushed to the stream.
@@ -471,50 +694,36 @@ public abstract class AbstractConnection {
 			throw new IllegalArgumentException(err);
 		}
 
-		BufferedOutputStream bos = new BufferedOutputStream(destination);
-		try {
-			byte[] temp = new byte[Math.min(
-					pipelineConfiguration.getInputToOutputCopyBufferByteSize(),
-					(int) length)];
-
-			int n = 0;
-			while (length > 0) {
+		byte[] temp = getCopyBuffer();
 
-				if (Thread.interrupted()) {
-					bos.close();
-					throw new IOException(
+		int n = 0;
+		while (length > 0) {
 
-					"interrupted, consider connection corrupted and return IOException to clear");
-				}
+			if (Thread.interrupted()) {
+				throw new IOException(
 
-				n = read(temp, 0, Math.min(pipelineConfiguration
-						.getInputToOutputCopyBufferByteSize(), (int) length));
-
-				if (n > 0) {
-					length -= n;
-					bos.write(temp, 0, n);
-					/*
-					 * If a listener is specified, send call-backs with progress
-					 */
-					if (intraFileStatusListener != null) {
-						intraFileStatusListener
-								.connectionProgressStatusCallback(ConnectionProgressStatus
-										.instanceForSend(n));
-					}
-				} else {
-					length = n;
-				}
+				"interrupted, consider connection corrupted and return IOException to clear");
 			}
 
-			bos.flush();
-
-		} finally {
-			try {
-				bos.close();
-			} catch (Exception e) {
-				// ignore
+			n = read(temp, 0, (int) Math.min(temp.length, length));
+
+			if (n > 0) {
+				length -= n;
+				destination.write(temp, 0, n);
+				/*
+				 * If a listener is specified, send call-backs with progress
+				 */
+				if (intraFileStatusListener != null) {
+					intraFileStatusListener
+							.connectionProgressStatusCallback(ConnectionProgressStatus
+									.instanceForSend(n));
+				}
+			} else {
+				length = n;
 			}
 		}
+
+		destination.flush();
 	}
 
 	/**
@@ -578,6 +787,10 @@ public abstract class AbstractConnection {
 			}
 			result = bytesRead;
 
+			if (instrument) {
+				Instrumentation.count(Instrumentation.BYTES_RECEIVED, result);
+			}
+
 			return result;
 		} catch (ClosedChannelException e) {
 			log.error("exception reading from socket", e);
@@ -593,6 +806,54 @@ public abstract class AbstractConnection {
 		}
 	}
 
+	/**
+	 * Read a packing instruction message of <code>length</code> bytes from the
+	 * server, parsing it as it is pulled from the socket rather than reading it
+	 * into an array and decoding it first. Exactly <code>length</code> bytes
+	 * are consumed.
+	 *
+	 * @param length
+	 *            <code>int</code> with the length of the message
+	 * @param decode
+	 *            <code>boolean</code> that will decode character entities in
+	 *            values if <code>true</code>
+	 * @param encoding
+	 *            <code>String</code> with the character set of the message
+	 * @return {@link Tag} that is the root of the message
+	 * @throws ClosedChannelException
+	 *             if the connection is closed
+	 * @throws InterruptedIOException
+	 * @throws IOException
+	 *             If an IOException occurs
+	 */
+	protected Tag readTag(final int length, final boolean decode,
+			final String encoding) throws ClosedChannelException,
+			InterruptedIOException, IOException {
+
+		if (length == 0) {
+			String err = "read length is set to zero";
+			log.error(err);
+			throw new IOException(err);
+		}
+
+		if (Thread.interrupted()) {
+			throw new IOException(
+					"interrupted, consider connection corrupted and return IOException to clear");
+		}
+
+		try {
+			Tag tag = TagParser.parse(irodsInputStream, length, decode,
+					encoding);
+			if (instrument) {
+				Instrumentation.count(Instrumentation.BYTES_RECEIVED, length);
+			}
+			return tag;
+		} catch (IOException e) {
+			log.error("exception reading from socket", e);
+			throw e;
+		}
+	}
+
 	/**
 	 * @return the irodsSession that created this connection
 	 */
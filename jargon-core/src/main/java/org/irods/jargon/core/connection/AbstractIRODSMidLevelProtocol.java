@@ -6,33 +6,53 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.irods.jargon.core.connection.auth.AuthResponse;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.irods.jargon.core.packinstr.AbstractIRODSPackingInstruction;
 import org.irods.jargon.core.packinstr.IRodsPI;
 import org.irods.jargon.core.packinstr.RErrMsg;
 import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagEncoder;
 import org.irods.jargon.core.protovalues.ErrorEnum;
 import org.irods.jargon.core.protovalues.RequestTypes;
 import org.irods.jargon.core.utils.IRODSConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Base of the mid level protocol that sends requests to an iRODS agent and
+ * reads the replies.
+ * <p/>
+ * Only one request/response exchange may be on the wire at a time, so methods
+ * that do i/o on the underlying {@link AbstractConnection} are
+ * <code>synchronized</code>, and the monitor on this object serves as the
+ * exchange lock. Connection metadata (the account, server properties, session,
+ * and so forth) is held in <code>volatile</code> fields and is read without
+ * taking that lock, so monitoring threads and progress call-backs do not wait
+ * behind a network round trip in progress. Subclasses should follow the same
+ * rule: synchronize wire i/o, and nothing else.
+ * 
+ * @author Mike Conway - DICE (www.irods.org)
+ * 
+ */
 public abstract class AbstractIRODSMidLevelProtocol {
 
 	private final AbstractConnection irodsConnection;
-	private IRODSProtocolManager irodsProtocolManager;
-	private IRODSServerProperties irodsServerProperties;
-	private IRODSSession irodsSession = null;
-	private StartupResponseData startupResponseData;
+	private volatile IRODSProtocolManager irodsProtocolManager;
+	private volatile IRODSServerProperties irodsServerProperties;
+	private volatile IRODSSession irodsSession = null;
+	private volatile StartupResponseData startupResponseData;
 
 	/**
 	 * This is an overhead for iRODS 4.0 - 4.0.3 servers per
 	 * https://github.com/DICE-UNC/jargon/issues/70
 	 * 
 	 */
-	private boolean forceSslFlush = false;
+	private volatile boolean forceSslFlush = false;
 
 	public static final int EIRODS_MIN = 301;
 	public static final int EIRODS_MAX = 301;
@@ -48,7 +68,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * as standard IRODS authentication using a temporary password generated in
 	 * the PAM authentication process.
 	 */
-	private AuthResponse authResponse = null;
+	private volatile AuthResponse authResponse = null;
 
 	/**
 	 * This account will represent the account information used for the actual
@@ -56,7 +76,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * broken down into the account presented, and the account actually used in
 	 * the <code>AuthResponse</code> object.
 	 */
-	private IRODSAccount irodsAccount;
+	private volatile IRODSAccount irodsAccount;
 
 	/**
 	 * Create a base instance of the mid level protocol, which may be processed
@@ -93,11 +113,11 @@ public abstract class AbstractIRODSMidLevelProtocol {
 
 	}
 
-	synchronized boolean isForceSslFlush() {
+	boolean isForceSslFlush() {
 		return forceSslFlush;
 	}
 
-	synchronized void setForceSslFlush(final boolean forceSslFlush) {
+	void setForceSslFlush(final boolean forceSslFlush) {
 		this.forceSslFlush = forceSslFlush;
 	}
 
@@ -263,40 +283,42 @@ public abstract class AbstractIRODSMidLevelProtocol {
 		log.debug("calling irods function with:{}", irodsPI);
 		log.debug("api number is:{}", irodsPI.getApiNumber());
 
-		long dataSent = 0;
+		final boolean instrument = getPipelineConfiguration().isInstrument();
+		final long startNanos = instrument ? System.nanoTime() : 0L;
 
 		try {
-			int length = 0;
-			String message = irodsPI.getParsedTags();
-			if (message != null) {
-				length = message.getBytes(irodsConnection
-						.getPipelineConfiguration().getDefaultEncoding()).length;
-			}
-			irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
-					length, 0, byteStreamLength, irodsPI.getApiNumber()));
-			irodsConnection.send(message);
-
-			if (byteStreamLength > 0) {
-				dataSent += irodsConnection.send(byteStream, byteStreamLength,
-						connectionProgressStatusListener);
-				// do not close stream, it may be sent again in a subsequent
-				// call, and will maintain its internal pointer
+			long dataSent = 0;
+
+			try {
+				sendMessage(irodsPI, 0, byteStreamLength, false);
+
+				if (byteStreamLength > 0) {
+					dataSent += irodsConnection.send(byteStream, byteStreamLength,
+							connectionProgressStatusListener);
+					// do not close stream, it may be sent again in a subsequent
+					// call, and will maintain its internal pointer
+				}
+
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("ioexception", e);
+				disconnectWithForce();
+				throw new JargonException(e);
 			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("ioexception", e);
-			disconnectWithForce();
-			throw new JargonException(e);
+			log.debug("reading message from frame send...");
+			log.debug("read commented out");
+			readMessage();
+			log.debug("message read");
+			return dataSent;
+		} finally {
+			if (instrument) {
+				Instrumentation.recordApiLatency(
+						irodsPI.getApiNumber(), startNanos);
+			}
 		}
-
-		log.debug("reading message from frame send...");
-		log.debug("read commented out");
-		readMessage();
-		log.debug("message read");
-		return dataSent;
 	}
 
 	/**
@@ -362,40 +384,40 @@ public abstract class AbstractIRODSMidLevelProtocol {
 		log.debug("calling irods function with:{}", irodsPI);
 		log.debug("api number is:{}", irodsPI.getApiNumber());
 
-		try {
-			int length = 0;
-			String message = irodsPI.getParsedTags();
-			if (message != null) {
-				length = message.getBytes(getEncoding()).length;
-			}
+		final boolean instrument = getPipelineConfiguration().isInstrument();
+		final long startNanos = instrument ? System.nanoTime() : 0L;
 
-			log.debug("message:{}", message);
+		try {
+			try {
+				sendMessage(irodsPI, 0, byteStreamLength, false);
+
+				if (byteStreamLength > 0) {
+					irodsConnection.send(byteStream, byteStreamLength,
+							connectionProgressStatusListener);
+					byteStream.close();
+				} else {
+					log.debug("no byte stream data, so flush output");
+					irodsConnection.flush();
+				}
 
-			irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
-					length, 0, byteStreamLength, irodsPI.getApiNumber()));
-			irodsConnection.send(message);
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("ioexception", e);
+				disconnectWithForce();
 
-			if (byteStreamLength > 0) {
-				irodsConnection.send(byteStream, byteStreamLength,
-						connectionProgressStatusListener);
-				byteStream.close();
-			} else {
-				log.debug("no byte stream data, so flush output");
-				irodsConnection.flush();
+				throw new JargonException(e);
 			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("ioexception", e);
-			disconnectWithForce();
-
-			throw new JargonException(e);
+			log.debug("data sent, getting response");
+			return readMessage();
+		} finally {
+			if (instrument) {
+				Instrumentation.recordApiLatency(
+						irodsPI.getApiNumber(), startNanos);
+			}
 		}
-
-		log.debug("data sent, getting response");
-		return readMessage();
 	}
 
 	/**
@@ -413,39 +435,34 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			throw new IllegalArgumentException(err);
 		}
 
-		String out = irodsPI.getParsedTags();
-
-		if (out == null || out.length() == 0) {
-			String err = "null or missing message returned from parse";
-			log.error(err);
-			throw new IllegalArgumentException(err);
-		}
-
-		if (log.isDebugEnabled()) {
-			log.debug(out);
-		}
+		final boolean instrument = getPipelineConfiguration().isInstrument();
+		final long startNanos = instrument ? System.nanoTime() : 0L;
 
 		try {
-			irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
-					out.getBytes(getEncoding()).length, errorLength,
-					byteStreamLength, irodsPI.getApiNumber()));
-			irodsConnection.send(out);
+			try {
+				sendMessage(irodsPI, errorLength, byteStreamLength, true);
 
-			if (byteStreamLength > 0) {
-				irodsConnection.send(bytes, byteOffset, byteStreamLength);
-			}
+				if (byteStreamLength > 0) {
+					irodsConnection.send(bytes, byteOffset, byteStreamLength);
+				}
 
-			irodsConnection.flush();
-			return readMessage();
+				irodsConnection.flush();
+				return readMessage();
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("io exception sending irods command", e);
-			disconnectWithForce();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("io exception sending irods command", e);
+				disconnectWithForce();
 
-			throw new JargonException(e);
+				throw new JargonException(e);
+			}
+		} finally {
+			if (instrument) {
+				Instrumentation.recordApiLatency(
+						irodsPI.getApiNumber(), startNanos);
+			}
 		}
 
 	}
@@ -573,7 +590,206 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	}
 
 	/**
-	 * Create the iRODS header packet
+	 * Send a batch of requests that have no binary data, writing up to
+	 * <code>maxInFlight</code> requests before reading their replies, rather
+	 * than waiting out a full round trip for each one. iRODS handles the
+	 * requests on a connection in order, so the replies come back in the
+	 * order the requests were sent.
+	 * <p/>
+	 * An error that iRODS returns for one request is kept in the
+	 * {@link PipelinedResponse} for that request, and the remaining replies
+	 * are still read. An error on the connection itself is thrown, as the
+	 * state of the remaining requests is unknown.
+	 * <p/>
+	 * Keep <code>maxInFlight</code> modest, the replies to a window of
+	 * requests need to fit in the socket buffers while the requests are
+	 * written.
+	 * 
+	 * @param irodsPIs
+	 *            <code>List</code> of {@link IRodsPI} to send, in order
+	 * @param maxInFlight
+	 *            <code>int</code> with the most requests written before their
+	 *            replies are read
+	 * @return <code>List</code> of {@link PipelinedResponse}, one for each
+	 *         request in the same order
+	 * @throws JargonException
+	 */
+	public synchronized List<PipelinedResponse> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int maxInFlight)
+			throws JargonException {
+
+		if (irodsPIs == null) {
+			throw new IllegalArgumentException("null irodsPIs");
+		}
+
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be >= 1");
+		}
+
+		log.debug("sending {} pipelined requests", irodsPIs.size());
+
+		List<PipelinedResponse> responses = new ArrayList<PipelinedResponse>(
+				irodsPIs.size());
+		int windowStart = 0;
+
+		while (windowStart < irodsPIs.size()) {
+			int windowEnd = Math.min(irodsPIs.size(), windowStart
+					+ maxInFlight);
+
+			/*
+			 * build the whole window first so nothing is half sent, tags that
+			 * can be encoded directly are only measured here
+			 */
+			int windowSize = windowEnd - windowStart;
+			Tag[] tags = new Tag[windowSize];
+			int[] lengths = new int[windowSize];
+			byte[][] messages = new byte[windowSize][];
+			for (int i = windowStart; i < windowEnd; i++) {
+				IRodsPI irodsPI = irodsPIs.get(i);
+				if (irodsPI == null) {
+					throw new IllegalArgumentException("null irodsPI in list");
+				}
+				Tag tag = directlyEncodedTag(irodsPI);
+				if (tag != null) {
+					tags[i - windowStart] = tag;
+					lengths[i - windowStart] = TagEncoder.encodedLength(tag);
+				} else {
+					try {
+						messages[i - windowStart] = irodsPI.getParsedTags()
+								.getBytes(getEncoding());
+					} catch (UnsupportedEncodingException e) {
+						log.error("unsupported encoding", e);
+						throw new JargonException(e);
+					}
+					lengths[i - windowStart] = messages[i - windowStart].length;
+				}
+			}
+
+			try {
+				for (int i = windowStart; i < windowEnd; i++) {
+					irodsConnection.sendHeader(IRODSConstants.RODS_API_REQ,
+							lengths[i - windowStart], 0, 0, irodsPIs.get(i)
+									.getApiNumber());
+					if (tags[i - windowStart] != null) {
+						irodsConnection.sendTag(tags[i - windowStart],
+								lengths[i - windowStart]);
+					} else {
+						irodsConnection.send(messages[i - windowStart]);
+					}
+				}
+				irodsConnection.flush();
+			} catch (IOException e) {
+				log.error("io exception sending pipelined requests", e);
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
+
+			for (int i = windowStart; i < windowEnd; i++) {
+				try {
+					responses.add(PipelinedResponse
+							.instanceForResponse(readMessage()));
+				} catch (JargonException je) {
+					if (!irodsConnection.isConnected()) {
+						log.error("connection lost reading pipelined replies",
+								je);
+						throw je;
+					}
+					log.debug("error reply for pipelined request {}", i);
+					responses.add(PipelinedResponse.instanceForException(je));
+				}
+			}
+
+			windowStart = windowEnd;
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Send the message header and the packing instruction. A UTF-8 packing
+	 * instruction is measured and then encoded straight into the connection
+	 * output buffer, otherwise it is encoded once so the same bytes give the
+	 * header length and are sent.
+	 *
+	 * @param messageRequired
+	 *            <code>boolean</code> that rejects a packing instruction with
+	 *            no message before anything is sent, otherwise an empty
+	 *            message is sent
+	 */
+	private void sendMessage(final IRodsPI irodsPI, final int errorLength,
+			final long byteStringLength, final boolean messageRequired)
+			throws IOException, JargonException {
+		Tag tag = directlyEncodedTag(irodsPI);
+		if (tag != null) {
+			int length = TagEncoder.encodedLength(tag);
+			if (log.isDebugEnabled()) {
+				log.debug("message:{}", tag.parseTag());
+			}
+			irodsConnection.sendHeader(IRODSConstants.RODS_API_REQ, length,
+					errorLength, byteStringLength, irodsPI.getApiNumber());
+			irodsConnection.sendTag(tag, length);
+			return;
+		}
+
+		byte[] message = encodeMessage(irodsPI);
+		if (messageRequired && (message == null || message.length == 0)) {
+			String err = "null or missing message returned from parse";
+			log.error(err);
+			throw new IllegalArgumentException(err);
+		}
+
+		irodsConnection.sendHeader(IRODSConstants.RODS_API_REQ,
+				message == null ? 0 : message.length, errorLength,
+				byteStringLength, irodsPI.getApiNumber());
+		irodsConnection.send(message);
+	}
+
+	/**
+	 * Give the tags of a packing instruction that may be encoded by the
+	 * {@link TagEncoder}, which writes UTF-8
+	 *
+	 * @return {@link Tag} or <code>null</code> if the message must be encoded
+	 *         as a <code>String</code>
+	 */
+	private Tag directlyEncodedTag(final IRodsPI irodsPI)
+			throws JargonException {
+		if (!(irodsPI instanceof AbstractIRODSPackingInstruction)) {
+			return null;
+		}
+
+		String encoding = getEncoding();
+		if (!"UTF-8".equalsIgnoreCase(encoding)
+				&& !"UTF8".equalsIgnoreCase(encoding)) {
+			return null;
+		}
+
+		return ((AbstractIRODSPackingInstruction) irodsPI).getTagValue();
+	}
+
+	/**
+	 * Encode the packing instruction once, so the same bytes give the header
+	 * length and are sent
+	 *
+	 * @return <code>byte[]</code> with the message, or <code>null</code> if
+	 *         the packing instruction has no message
+	 */
+	private byte[] encodeMessage(final IRodsPI irodsPI)
+			throws UnsupportedEncodingException, JargonException {
+		String message = irodsPI.getParsedTags();
+		if (message == null) {
+			return null;
+		}
+
+		if (log.isDebugEnabled()) {
+			log.debug("message:{}", message);
+		}
+		return message.getBytes(getEncoding());
+	}
+
+	/**
+	 * Create the iRODS header packet. Messages sent by this class frame the
+	 * same header with {@link AbstractConnection#sendHeader}, which does not
+	 * allocate.
 	 */
 	public byte[] createHeader(final String type, final int messageLength,
 			final int errorLength, final long byteStringLength,
@@ -698,7 +914,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 		return message;
 	}
 
-	public synchronized boolean isConnected() {
+	public boolean isConnected() {
 		return irodsConnection.isConnected();
 	}
 
@@ -810,7 +1026,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * 
 	 * @return {@link IRODSServerProperties}
 	 */
-	public synchronized IRODSServerProperties getIRODSServerProperties() {
+	public IRODSServerProperties getIRODSServerProperties() {
 		return irodsServerProperties;
 	}
 
@@ -819,7 +1035,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * 
 	 * @return
 	 */
-	public synchronized IRODSAccount getIrodsAccount() {
+	public IRODSAccount getIrodsAccount() {
 		return irodsAccount;
 	}
 
@@ -862,7 +1078,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * 
 	 * @return {@link IRODSSession}
 	 */
-	public synchronized IRODSSession getIrodsSession() {
+	public IRODSSession getIrodsSession() {
 		return irodsSession;
 	}
 
@@ -871,7 +1087,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * 
 	 * @return {@link IRODSSession}
 	 */
-	public synchronized void setIrodsSession(final IRODSSession irodsSession) {
+	public void setIrodsSession(final IRODSSession irodsSession) {
 		if (irodsSession == null) {
 			throw new IllegalArgumentException("null irodsSession");
 		}
@@ -882,7 +1098,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	/**
 	 * @return the irodsProtocolManager
 	 */
-	public synchronized IRODSProtocolManager getIrodsProtocolManager() {
+	public IRODSProtocolManager getIrodsProtocolManager() {
 		return irodsProtocolManager;
 	}
 
@@ -935,14 +1151,14 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	/**
 	 * @return the authResponse
 	 */
-	public synchronized AuthResponse getAuthResponse() {
+	public AuthResponse getAuthResponse() {
 		return authResponse;
 	}
 
 	/**
 	 * @return the irodsServerProperties
 	 */
-	synchronized IRODSServerProperties getIrodsServerProperties() {
+	IRODSServerProperties getIrodsServerProperties() {
 		return irodsServerProperties;
 	}
 
@@ -950,7 +1166,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param irodsServerProperties
 	 *            the irodsServerProperties to set
 	 */
-	synchronized void setIrodsServerProperties(
+	void setIrodsServerProperties(
 			final IRODSServerProperties irodsServerProperties) {
 		this.irodsServerProperties = irodsServerProperties;
 	}
@@ -959,7 +1175,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param irodsAccount
 	 *            the irodsAccount to set
 	 */
-	synchronized void setIrodsAccount(final IRODSAccount irodsAccount) {
+	void setIrodsAccount(final IRODSAccount irodsAccount) {
 		this.irodsAccount = irodsAccount;
 	}
 
@@ -967,7 +1183,7 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * @param authResponse
 	 *            the authResponse to set
 	 */
-	protected synchronized void setAuthResponse(final AuthResponse authResponse) {
+	protected void setAuthResponse(final AuthResponse authResponse) {
 		this.authResponse = authResponse;
 	}
 
@@ -975,7 +1191,6 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 * Going to read the header somewhat differently
 	 */
 	Tag readHeader() throws JargonException {
-		byte[] header;
 		int length = readHeaderLength();
 		if (length < 0) {
 			log.error("protocol error< header length is:" + length);
@@ -1006,29 +1221,22 @@ public abstract class AbstractIRODSMidLevelProtocol {
 
 		}
 
-		header = new byte[length];
 		try {
-			irodsConnection.read(header, 0, length);
-		} catch (IOException e) {
-			log.error("io exception", e);
-			disconnectWithForce();
-			throw new JargonException(e);
-		}
-
-		try {
-			return Tag.readNextTag(header, getEncoding());
+			return irodsConnection.readTag(length, true, getEncoding());
 		} catch (UnsupportedEncodingException e) {
 			log.error("Unsupported encoding for:{}", getEncoding());
 			throw new JargonException("Unsupported encoding for:"
 					+ getEncoding());
+		} catch (IOException e) {
+			log.error("io exception", e);
+			disconnectWithForce();
+			throw new JargonException(e);
 		}
 	}
 
 	int readHeaderLength() throws JargonException {
-		byte[] headerInt = new byte[ConnectionConstants.HEADER_INT_LENGTH];
 		try {
-			irodsConnection.read(headerInt, 0,
-					ConnectionConstants.HEADER_INT_LENGTH);
+			return irodsConnection.readIntInNetworkOrder();
 		} catch (ClosedChannelException e) {
 			log.error("closed channel", e);
 			disconnectWithForce();
@@ -1041,14 +1249,16 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			disconnectWithForce();
 			throw new JargonException(e);
 		}
-		return org.irods.jargon.core.utils.Host.castToInt(headerInt);
 	}
 
 	Tag readMessageBody(final int length, final boolean decode)
 			throws JargonException {
-		byte[] body = new byte[length];
 		try {
-			irodsConnection.read(body, 0, length);
+			return irodsConnection.readTag(length, decode, getEncoding());
+		} catch (UnsupportedEncodingException e) {
+			log.error("Unsupported encoding for:{}", getEncoding());
+			throw new JargonException("Unsupported encoding for:"
+					+ getEncoding());
 		} catch (ClosedChannelException e) {
 			log.error("closed channel", e);
 			disconnectWithForce();
@@ -1062,13 +1272,6 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			disconnectWithForce();
 			throw new JargonException(e);
 		}
-		try {
-			return Tag.readNextTag(body, decode, getEncoding());
-		} catch (UnsupportedEncodingException e) {
-			log.error("Unsupported encoding for:{}", getEncoding());
-			throw new JargonException("Unsupported encoding for:"
-					+ getEncoding());
-		}
 	}
 
 	void processMessageErrorNotEqualZero(final int errorLength)
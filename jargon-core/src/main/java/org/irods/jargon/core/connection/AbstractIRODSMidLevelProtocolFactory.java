@@ -5,6 +5,7 @@ package org.irods.jargon.core.connection;
 
 import org.irods.jargon.core.exception.AuthenticationException;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -251,10 +252,18 @@ abstract class AbstractIRODSMidLevelProtocolFactory {
 
 		log.info("authenticate...");
 		AbstractIRODSMidLevelProtocol authenticatedProtocol = null;
+		final boolean instrument = protocol.getPipelineConfiguration()
+				.isInstrument();
+		final long startNanos = instrument ? System.nanoTime() : 0L;
 		try {
 			authenticatedProtocol = authMechanism.authenticate(protocol,
 					irodsAccount);
 
+			if (instrument) {
+				Instrumentation.recordElapsed(
+						Instrumentation.CONNECTION_AUTHENTICATE, startNanos);
+			}
+
 		} catch (AuthenticationException e) {
 			log.error(
 					"authentication exception, will close iRODS connection and re-throw",
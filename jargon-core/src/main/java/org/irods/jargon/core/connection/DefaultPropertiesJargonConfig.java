@@ -527,6 +527,31 @@ public class DefaultPropertiesJargonConfig implements JargonProperties {
 		return verifyPropExistsAndGetAsInt("jargon.parallel.copy.buffer.size");
 	}
 
+	@Override
+	public boolean isUseNIOForParallelTransfers() {
+		return verifyPropExistsAndGetAsBoolean("transfer.parallel.use.nio");
+	}
+
+	@Override
+	public boolean isUseObjStatCache() {
+		return verifyPropExistsAndGetAsBoolean("use.objstat.cache");
+	}
+
+	@Override
+	public long getObjStatCacheTimeToLiveMillis() {
+		return verifyPropExistsAndGetAsLong("objstat.cache.time.to.live.millis");
+	}
+
+	@Override
+	public int getObjStatCacheMaxEntries() {
+		return verifyPropExistsAndGetAsInt("objstat.cache.max.entries");
+	}
+
+	@Override
+	public int getMaxConcurrentFileTransfers() {
+		return verifyPropExistsAndGetAsInt("transfer.max.concurrent.files");
+	}
+
 	@Override
 	public int getIntraFileStatusCallbacksNumberCallsInterval() {
 		return verifyPropExistsAndGetAsInt("transfer.intra.file.callback.after.n.calls");
@@ -5,6 +5,7 @@ import java.io.UnsupportedEncodingException;
 
 import org.irods.jargon.core.connection.AbstractConnection.EncryptionType;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.irods.jargon.core.packinstr.Tag;
 import org.irods.jargon.core.utils.IRODSConstants;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
@@ -193,42 +194,53 @@ public class IRODSMidLevelProtocol extends AbstractIRODSMidLevelProtocol {
 			throw new JargonException(err);
 		}
 
-		// message may be null for some operations
+		final boolean instrument = getPipelineConfiguration().isInstrument();
+		final long startNanos = instrument ? System.nanoTime() : 0L;
 
 		try {
-			int messageLength = 0;
+			// message may be null for some operations
 
-			if (message != null) {
-				messageLength = message.getBytes(getEncoding()).length;
-			}
+			try {
+				byte[] messageBytes = null;
+				int messageLength = 0;
+
+				if (message != null) {
+					messageBytes = message.getBytes(getEncoding());
+					messageLength = messageBytes.length;
+				}
+
+				getIrodsConnection().sendHeader(IRODSConstants.RODS_API_REQ,
+						messageLength, errorLength, byteStringLength, intInfo);
 
-			getIrodsConnection().send(
-					createHeader(IRODSConstants.RODS_API_REQ, messageLength,
-							errorLength, byteStringLength, intInfo));
+				if (isPamFlush()) {
+					log.debug("doing extra pam flush for iRODS 3.2");
+					getIrodsConnection().flush();
+				}
 
-			if (isPamFlush()) {
-				log.debug("doing extra pam flush for iRODS 3.2");
+				getIrodsConnection().send(messageBytes);
 				getIrodsConnection().flush();
-			}
 
-			getIrodsConnection().send(message);
-			getIrodsConnection().flush();
+				if (byteStringLength > 0) {
+					getIrodsConnection().send(bytes, byteOffset,
+							byteStringLength);
+				}
 
-			if (byteStringLength > 0) {
-				getIrodsConnection().send(bytes, byteOffset, byteStringLength);
-			}
+				getIrodsConnection().flush();
 
-			getIrodsConnection().flush();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			disconnectWithForce();
-			throw new JargonException(e);
+			return readMessage();
+		} finally {
+			if (instrument) {
+				Instrumentation.recordApiLatency(intInfo, startNanos);
+			}
 		}
-
-		return readMessage();
 	}
 
 }
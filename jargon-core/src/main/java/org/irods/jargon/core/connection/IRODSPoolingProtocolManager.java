@@ -0,0 +1,794 @@
+package org.irods.jargon.core.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.irods.jargon.core.exception.AuthenticationException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.MiscSvrInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Protocol manager that keeps authenticated connections to iRODS in per-account
+ * pools, instead of shutting them down when they are returned. This avoids the
+ * socket connect, startup pack, and authentication handshake for each
+ * <code>IRODSSession</code> request when connections are repeatedly obtained
+ * and closed for the same account, as is typical in a web tier.
+ * <p/>
+ * Pools are keyed by the host, port, zone, user, authentication scheme, and
+ * credential of the <code>IRODSAccount</code>, so a connection is only handed
+ * back to a caller presenting the same identity that originally authenticated
+ * it. GSI accounts are not pooled, and behave as in the
+ * {@link IRODSSimpleProtocolManager}.
+ * <p/>
+ * Idle connections are validated before they are handed out, closed when they
+ * have passed the socket renewal interval in the
+ * <code>PipelineConfiguration</code>, and evicted by a background thread after
+ * sitting idle. Behavior is tuned with an
+ * {@link IRODSProtocolPoolConfiguration}, and running counts are available
+ * from {@link #getPoolStatistics()}.
+ * <p/>
+ * This protocol manager is thread-safe, and is meant to be shared by an
+ * <code>IRODSSession</code> or <code>IRODSFileSystem</code> for the life of
+ * the application. Call {@link #destroy()} at shutdown to close idle
+ * connections and stop the eviction thread.
+ */
+public class IRODSPoolingProtocolManager extends IRODSProtocolManager {
+
+	private final Logger log = LoggerFactory
+			.getLogger(IRODSPoolingProtocolManager.class);
+
+	private final IRODSProtocolPoolConfiguration poolConfiguration;
+
+	private final ConcurrentHashMap<PoolKey, AccountPool> pools = new ConcurrentHashMap<PoolKey, AccountPool>();
+
+	/**
+	 * Connections currently handed out, mapped to the pool that they will be
+	 * returned to
+	 */
+	private final Map<AbstractIRODSMidLevelProtocol, AccountPool> borrowedProtocols = Collections
+			.synchronizedMap(new IdentityHashMap<AbstractIRODSMidLevelProtocol, AccountPool>());
+
+	private ScheduledExecutorService evictionExecutor = null;
+	private volatile boolean destroyed = false;
+
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong borrowedCount = new AtomicLong();
+	private final AtomicLong reusedCount = new AtomicLong();
+	private final AtomicLong returnedCount = new AtomicLong();
+	private final AtomicLong destroyedCount = new AtomicLong();
+	private final AtomicLong validationFailureCount = new AtomicLong();
+	private final AtomicLong evictedCount = new AtomicLong();
+	private final AtomicLong expiredForRenewalCount = new AtomicLong();
+	private final AtomicLong waitTimeoutCount = new AtomicLong();
+
+	/**
+	 * Create a pooling protocol manager with the default pool configuration
+	 *
+	 * @return {@link IRODSPoolingProtocolManager}
+	 */
+	public static IRODSPoolingProtocolManager instance() {
+		return new IRODSPoolingProtocolManager();
+	}
+
+	/**
+	 * Create a pooling protocol manager with the given pool configuration
+	 *
+	 * @param poolConfiguration
+	 *            {@link IRODSProtocolPoolConfiguration} that tunes the pool
+	 * @return {@link IRODSPoolingProtocolManager}
+	 */
+	public static IRODSPoolingProtocolManager instance(
+			final IRODSProtocolPoolConfiguration poolConfiguration) {
+		return new IRODSPoolingProtocolManager(poolConfiguration);
+	}
+
+	public IRODSPoolingProtocolManager() {
+		this(new IRODSProtocolPoolConfiguration());
+	}
+
+	/**
+	 * Constructor with a pool configuration
+	 *
+	 * @param poolConfiguration
+	 *            {@link IRODSProtocolPoolConfiguration} that tunes the pool
+	 */
+	public IRODSPoolingProtocolManager(
+			final IRODSProtocolPoolConfiguration poolConfiguration) {
+		if (poolConfiguration == null) {
+			throw new IllegalArgumentException("null poolConfiguration");
+		}
+		this.poolConfiguration = poolConfiguration;
+		log.info("creating pooling protocol manager with config:{}",
+				poolConfiguration);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.connection.IRODSProtocolManager#getIRODSProtocol
+	 * (org.irods.jargon.core.connection.IRODSAccount,
+	 * org.irods.jargon.core.connection.PipelineConfiguration,
+	 * org.irods.jargon.core.connection.IRODSSession)
+	 */
+	@Override
+	public AbstractIRODSMidLevelProtocol getIRODSProtocol(
+			final IRODSAccount irodsAccount,
+			final PipelineConfiguration pipelineConfiguration,
+			final IRODSSession irodsSession) throws AuthenticationException,
+			JargonException {
+
+		log.debug("getIRODSProtocol() for account:{}", irodsAccount);
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (pipelineConfiguration == null) {
+			throw new IllegalArgumentException("null pipelineConfiguration");
+		}
+
+		if (irodsSession == null) {
+			throw new IllegalArgumentException("null irodsSession");
+		}
+
+		if (destroyed) {
+			throw new JargonException(
+					"protocol manager has been destroyed, cannot obtain a connection");
+		}
+
+		if (irodsAccount.getAuthenticationScheme() == AuthScheme.GSI) {
+			log.debug("GSI accounts are not pooled, creating a new connection");
+			createdCount.incrementAndGet();
+			return createProtocolForPool(irodsAccount, pipelineConfiguration,
+					irodsSession);
+		}
+
+		startEvictionIfNeeded();
+		borrowedCount.incrementAndGet();
+
+		AbstractIRODSMidLevelProtocol protocol = null;
+		AccountPool pool = null;
+		while (protocol == null) {
+			if (destroyed) {
+				throw new JargonException(
+						"protocol manager has been destroyed, cannot obtain a connection");
+			}
+			pool = poolFor(PoolKey.instance(irodsAccount));
+			pool.remember(irodsAccount, pipelineConfiguration, irodsSession);
+			protocol = borrowFromPool(pool, irodsAccount,
+					pipelineConfiguration, irodsSession);
+		}
+
+		protocol.setIrodsProtocolManager(this);
+		protocol.setIrodsSession(irodsSession);
+		borrowedProtocols.put(protocol, pool);
+		return protocol;
+	}
+
+	/**
+	 * Take an idle connection, or create a new one, honoring the maximum
+	 * connections for the account.
+	 *
+	 * @return {@link AbstractIRODSMidLevelProtocol} or <code>null</code> if the
+	 *         pool was retired while waiting and a fresh pool should be used
+	 */
+	private AbstractIRODSMidLevelProtocol borrowFromPool(
+			final AccountPool pool, final IRODSAccount irodsAccount,
+			final PipelineConfiguration pipelineConfiguration,
+			final IRODSSession irodsSession) throws AuthenticationException,
+			JargonException {
+
+		final boolean waitIndefinitely = poolConfiguration.getMaxWaitMillis() < 0;
+		long deadline = System.currentTimeMillis()
+				+ poolConfiguration.getMaxWaitMillis();
+
+		while (true) {
+			PooledProtocol idle = null;
+
+			synchronized (pool) {
+				while (true) {
+					if (pool.retired) {
+						return null;
+					}
+
+					idle = pool.idle.pollFirst();
+					if (idle != null || pool.hasCapacityForAnother()) {
+						pool.active++;
+						break;
+					}
+
+					long waitTime = waitIndefinitely ? 0 : deadline
+							- System.currentTimeMillis();
+					if (!waitIndefinitely && waitTime <= 0) {
+						waitTimeoutCount.incrementAndGet();
+						log.error("timed out waiting for a connection for:{}",
+								pool.key);
+						throw new JargonException(
+								"timed out waiting for a pooled connection to iRODS");
+					}
+
+					try {
+						pool.wait(waitTime);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new JargonException(
+								"interrupted waiting for a pooled connection", e);
+					}
+				}
+			}
+
+			if (idle == null) {
+				log.debug("no idle connection, creating a new one");
+				try {
+					AbstractIRODSMidLevelProtocol protocol = createProtocolForPool(
+							irodsAccount, pipelineConfiguration, irodsSession);
+					createdCount.incrementAndGet();
+					return protocol;
+				} catch (JargonException e) {
+					releaseSlot(pool);
+					throw e;
+				} catch (RuntimeException e) {
+					releaseSlot(pool);
+					throw e;
+				}
+			}
+
+			if (validateIdleProtocol(idle)) {
+				log.debug("reusing idle connection:{}", idle.protocol);
+				reusedCount.incrementAndGet();
+				return idle.protocol;
+			}
+
+			releaseSlot(pool);
+			destroyProtocol(idle.protocol);
+		}
+	}
+
+	/**
+	 * Hook to create a new, connected and authenticated protocol for the pool.
+	 * By default, this creates a connection using the mid level protocol
+	 * factory, as in the {@link IRODSSimpleProtocolManager}.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that defines the connection
+	 * @param pipelineConfiguration
+	 *            {@link PipelineConfiguration} that tunes the i/o pipeline
+	 * @param irodsSession
+	 *            {@link IRODSSession} that will manage this connection
+	 * @return {@link AbstractIRODSMidLevelProtocol} that is connected and
+	 *         authenticated
+	 * @throws AuthenticationException
+	 * @throws JargonException
+	 */
+	protected AbstractIRODSMidLevelProtocol createProtocolForPool(
+			final IRODSAccount irodsAccount,
+			final PipelineConfiguration pipelineConfiguration,
+			final IRODSSession irodsSession) throws AuthenticationException,
+			JargonException {
+		checkMidLevelProtocolFactory(irodsSession);
+		return createNewProtocol(irodsAccount, pipelineConfiguration,
+				irodsSession);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.connection.IRODSProtocolManager#returnIRODSProtocol
+	 * (org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol)
+	 */
+	@Override
+	public void returnIRODSProtocol(
+			final AbstractIRODSMidLevelProtocol irodsMidLevelProtocol)
+			throws JargonException {
+
+		log.debug("irodsMidLevelProtocol returned:{}", irodsMidLevelProtocol);
+
+		if (irodsMidLevelProtocol == null) {
+			throw new IllegalArgumentException("null irodsMidLevelProtocol");
+		}
+
+		AccountPool pool = borrowedProtocols.remove(irodsMidLevelProtocol);
+
+		if (pool == null) {
+			log.debug("connection is not pooled, shutting down");
+			destroyProtocol(irodsMidLevelProtocol);
+			return;
+		}
+
+		returnedCount.incrementAndGet();
+
+		boolean keep = !destroyed && irodsMidLevelProtocol.isConnected();
+
+		if (keep && isExpiredForRenewal(irodsMidLevelProtocol)) {
+			log.debug("returned connection is past the renewal interval");
+			expiredForRenewalCount.incrementAndGet();
+			keep = false;
+		}
+
+		synchronized (pool) {
+			pool.active--;
+			if (keep && !pool.retired
+					&& pool.idle.size() < poolConfiguration
+							.getMaxIdlePerAccount()) {
+				pool.idle.addFirst(new PooledProtocol(irodsMidLevelProtocol));
+			} else {
+				keep = false;
+			}
+			pool.notifyAll();
+		}
+
+		if (!keep) {
+			destroyProtocol(irodsMidLevelProtocol);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.connection.IRODSProtocolManager#returnWithForce
+	 * (org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol)
+	 */
+	@Override
+	protected void returnWithForce(
+			final AbstractIRODSMidLevelProtocol irodsMidLevelProtocol) {
+		AccountPool pool = null;
+		if (irodsMidLevelProtocol != null) {
+			pool = borrowedProtocols.remove(irodsMidLevelProtocol);
+		}
+		super.returnWithForce(irodsMidLevelProtocol);
+		destroyedCount.incrementAndGet();
+		if (pool != null) {
+			releaseSlot(pool);
+		}
+	}
+
+	/**
+	 * Start the idle eviction thread, if configured
+	 */
+	@Override
+	public void initialize() throws JargonException {
+		log.info("initialize()");
+		startEvictionIfNeeded();
+	}
+
+	/**
+	 * Stop the eviction thread and close all idle connections. Connections
+	 * that are borrowed at the time of this call are closed when they are
+	 * returned, and no further connections will be handed out.
+	 */
+	@Override
+	public void destroy() throws JargonException {
+		log.info("destroy()");
+		destroyed = true;
+
+		synchronized (this) {
+			if (evictionExecutor != null) {
+				evictionExecutor.shutdownNow();
+				evictionExecutor = null;
+			}
+		}
+
+		for (AccountPool pool : pools.values()) {
+			List<PooledProtocol> toDestroy;
+			synchronized (pool) {
+				pool.retired = true;
+				toDestroy = new ArrayList<PooledProtocol>(pool.idle);
+				pool.idle.clear();
+				pool.notifyAll();
+			}
+			for (PooledProtocol pooled : toDestroy) {
+				destroyProtocol(pooled.protocol);
+			}
+		}
+		pools.clear();
+	}
+
+	/**
+	 * Get a snapshot of the pool counters
+	 *
+	 * @return {@link IRODSProtocolPoolStatistics}
+	 */
+	public IRODSProtocolPoolStatistics getPoolStatistics() {
+		int idle = 0;
+		int active = 0;
+		int accounts = 0;
+		for (AccountPool pool : pools.values()) {
+			synchronized (pool) {
+				idle += pool.idle.size();
+				active += pool.active;
+			}
+			accounts++;
+		}
+
+		return new IRODSProtocolPoolStatistics(createdCount.get(),
+				borrowedCount.get(), reusedCount.get(), returnedCount.get(),
+				destroyedCount.get(), validationFailureCount.get(),
+				evictedCount.get(), expiredForRenewalCount.get(),
+				waitTimeoutCount.get(), idle, active, accounts);
+	}
+
+	/**
+	 * @return the {@link IRODSProtocolPoolConfiguration} for this pool
+	 */
+	public IRODSProtocolPoolConfiguration getPoolConfiguration() {
+		return poolConfiguration;
+	}
+
+	/**
+	 * Run one eviction pass, closing idle connections that have been idle too
+	 * long, have been disconnected, or have passed the socket renewal
+	 * interval, and then topping up each pool to the minimum idle count. This
+	 * is normally run by the eviction thread.
+	 */
+	void evict() {
+		log.debug("evict()");
+		long now = System.currentTimeMillis();
+		long idleLimit = poolConfiguration.getIdleEvictionTimeMillis();
+
+		for (AccountPool pool : pools.values()) {
+			List<PooledProtocol> toEvict = new ArrayList<PooledProtocol>();
+			List<PooledProtocol> toExpire = new ArrayList<PooledProtocol>();
+
+			synchronized (pool) {
+				// oldest connections are at the tail
+				Iterator<PooledProtocol> iter = pool.idle.descendingIterator();
+				while (iter.hasNext()) {
+					PooledProtocol pooled = iter.next();
+					if (!pooled.protocol.isConnected()) {
+						iter.remove();
+						toEvict.add(pooled);
+					} else if (isExpiredForRenewal(pooled.protocol)) {
+						iter.remove();
+						toExpire.add(pooled);
+					} else if (idleLimit > 0
+							&& now - pooled.lastUsedMillis > idleLimit
+							&& pool.idle.size() > poolConfiguration
+									.getMinIdlePerAccount()) {
+						iter.remove();
+						toEvict.add(pooled);
+					}
+				}
+
+				if (pool.idle.isEmpty() && pool.active == 0
+						&& poolConfiguration.getMinIdlePerAccount() == 0) {
+					log.debug("retiring empty pool:{}", pool.key);
+					pool.retired = true;
+					pools.remove(pool.key, pool);
+					pool.notifyAll();
+				}
+			}
+
+			for (PooledProtocol pooled : toEvict) {
+				evictedCount.incrementAndGet();
+				destroyProtocol(pooled.protocol);
+			}
+
+			for (PooledProtocol pooled : toExpire) {
+				expiredForRenewalCount.incrementAndGet();
+				destroyProtocol(pooled.protocol);
+			}
+
+			topUpToMinIdle(pool);
+		}
+	}
+
+	private void topUpToMinIdle(final AccountPool pool) {
+		int minIdle = poolConfiguration.getMinIdlePerAccount();
+		if (minIdle <= 0) {
+			return;
+		}
+
+		while (!destroyed) {
+			IRODSAccount irodsAccount;
+			PipelineConfiguration pipelineConfiguration;
+			IRODSSession irodsSession;
+
+			synchronized (pool) {
+				if (pool.retired || pool.irodsSession == null
+						|| pool.idle.size() >= minIdle
+						|| !pool.hasCapacityForAnother()) {
+					return;
+				}
+				pool.active++;
+				irodsAccount = pool.irodsAccount;
+				pipelineConfiguration = pool.pipelineConfiguration;
+				irodsSession = pool.irodsSession;
+			}
+
+			AbstractIRODSMidLevelProtocol protocol;
+			try {
+				protocol = createProtocolForPool(irodsAccount,
+						pipelineConfiguration, irodsSession);
+				createdCount.incrementAndGet();
+			} catch (JargonException e) {
+				log.warn("unable to create connection to maintain min idle", e);
+				releaseSlot(pool);
+				return;
+			}
+
+			boolean keep;
+			synchronized (pool) {
+				pool.active--;
+				keep = !pool.retired;
+				if (keep) {
+					pool.idle.addLast(new PooledProtocol(protocol));
+				}
+				pool.notifyAll();
+			}
+
+			if (!keep) {
+				destroyProtocol(protocol);
+			}
+		}
+	}
+
+	private boolean validateIdleProtocol(final PooledProtocol pooled) {
+		AbstractIRODSMidLevelProtocol protocol = pooled.protocol;
+
+		if (!protocol.isConnected()) {
+			log.debug("idle connection is no longer connected");
+			validationFailureCount.incrementAndGet();
+			return false;
+		}
+
+		if (isExpiredForRenewal(protocol)) {
+			log.debug("idle connection is past the renewal interval");
+			expiredForRenewalCount.incrementAndGet();
+			return false;
+		}
+
+		if (poolConfiguration.isTestOnBorrow()
+				&& System.currentTimeMillis() - pooled.lastUsedMillis > poolConfiguration
+						.getValidationIntervalMillis()) {
+			log.debug("testing idle connection");
+			try {
+				protocol.irodsFunction(MiscSvrInfo.PI_TAG, "",
+						MiscSvrInfo.API_NBR);
+			} catch (JargonException e) {
+				log.warn("idle connection failed validation", e);
+				validationFailureCount.incrementAndGet();
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isExpiredForRenewal(
+			final AbstractIRODSMidLevelProtocol protocol) {
+		if (!poolConfiguration.isHonorSocketRenewalInterval()) {
+			return false;
+		}
+
+		PipelineConfiguration pipelineConfiguration = protocol
+				.getPipelineConfiguration();
+		if (pipelineConfiguration == null) {
+			return false;
+		}
+
+		int renewalInterval = pipelineConfiguration
+				.getSocketRenewalIntervalInSeconds();
+		// 0 means ignore
+		if (renewalInterval <= 0) {
+			return false;
+		}
+
+		return System.currentTimeMillis() > protocol.getConnectTimeInMillis()
+				+ renewalInterval * 1000L;
+	}
+
+	private void releaseSlot(final AccountPool pool) {
+		synchronized (pool) {
+			pool.active--;
+			pool.notifyAll();
+		}
+	}
+
+	private void destroyProtocol(final AbstractIRODSMidLevelProtocol protocol) {
+		destroyedCount.incrementAndGet();
+		try {
+			if (protocol.isConnected()) {
+				protocol.shutdown();
+			}
+		} catch (Exception e) {
+			log.warn("error shutting down pooled connection, will obliterate",
+					e);
+			protocol.obliterateConnectionAndDiscardErrors();
+		}
+	}
+
+	private AccountPool poolFor(final PoolKey key) {
+		AccountPool pool = pools.get(key);
+		if (pool == null) {
+			AccountPool newPool = new AccountPool(key);
+			pool = pools.putIfAbsent(key, newPool);
+			if (pool == null) {
+				pool = newPool;
+			}
+		}
+		return pool;
+	}
+
+	private synchronized void startEvictionIfNeeded() {
+		if (evictionExecutor != null || destroyed
+				|| poolConfiguration.getEvictionRunIntervalMillis() <= 0) {
+			return;
+		}
+
+		log.info("starting idle connection eviction thread");
+		evictionExecutor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						Thread thread = new Thread(runnable,
+								"jargon-protocol-pool-evictor");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		long interval = poolConfiguration.getEvictionRunIntervalMillis();
+		evictionExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					evict();
+				} catch (Exception e) {
+					log.error("error in pool eviction", e);
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("IRODSPoolingProtocolManager [poolConfiguration=");
+		builder.append(poolConfiguration);
+		builder.append(", destroyed=");
+		builder.append(destroyed);
+		builder.append("]");
+		return builder.toString();
+	}
+
+	/**
+	 * An idle connection and the time it was last used
+	 */
+	private static final class PooledProtocol {
+		private final AbstractIRODSMidLevelProtocol protocol;
+		private final long lastUsedMillis;
+
+		PooledProtocol(final AbstractIRODSMidLevelProtocol protocol) {
+			this.protocol = protocol;
+			lastUsedMillis = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Idle connections and borrowed count for one key. All fields are guarded
+	 * by the monitor of the pool.
+	 */
+	private final class AccountPool {
+		private final PoolKey key;
+		private final LinkedList<PooledProtocol> idle = new LinkedList<PooledProtocol>();
+		private int active = 0;
+		private boolean retired = false;
+		private IRODSAccount irodsAccount;
+		private PipelineConfiguration pipelineConfiguration;
+		private IRODSSession irodsSession;
+
+		AccountPool(final PoolKey key) {
+			this.key = key;
+		}
+
+		synchronized void remember(final IRODSAccount irodsAccount,
+				final PipelineConfiguration pipelineConfiguration,
+				final IRODSSession irodsSession) {
+			this.irodsAccount = irodsAccount;
+			this.pipelineConfiguration = pipelineConfiguration;
+			this.irodsSession = irodsSession;
+		}
+
+		boolean hasCapacityForAnother() {
+			int maxTotal = poolConfiguration.getMaxTotalPerAccount();
+			return maxTotal <= 0 || active + idle.size() < maxTotal;
+		}
+	}
+
+	/**
+	 * Identity of an account for pooling purposes. The credential is part of
+	 * the key but is never included in the <code>toString()</code> value.
+	 */
+	static final class PoolKey {
+		private final String host;
+		private final int port;
+		private final String zone;
+		private final String userName;
+		private final AuthScheme authScheme;
+		private final String credential;
+
+		static PoolKey instance(final IRODSAccount irodsAccount) {
+			return new PoolKey(irodsAccount.getHost(), irodsAccount.getPort(),
+					irodsAccount.getZone(), irodsAccount.getUserName(),
+					irodsAccount.getAuthenticationScheme(),
+					irodsAccount.getPassword());
+		}
+
+		private PoolKey(final String host, final int port, final String zone,
+				final String userName, final AuthScheme authScheme,
+				final String credential) {
+			this.host = host == null ? "" : host;
+			this.port = port;
+			this.zone = zone == null ? "" : zone;
+			this.userName = userName == null ? "" : userName;
+			this.authScheme = authScheme;
+			this.credential = credential == null ? "" : credential;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PoolKey)) {
+				return false;
+			}
+			PoolKey other = (PoolKey) obj;
+			return port == other.port && authScheme == other.authScheme
+					&& host.equals(other.host) && zone.equals(other.zone)
+					&& userName.equals(other.userName)
+					&& credential.equals(other.credential);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = host.hashCode();
+			result = 31 * result + port;
+			result = 31 * result + zone.hashCode();
+			result = 31 * result + userName.hashCode();
+			result = 31 * result
+					+ (authScheme == null ? 0 : authScheme.hashCode());
+			result = 31 * result + credential.hashCode();
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			builder.append("PoolKey [");
+			builder.append(userName);
+			builder.append("@");
+			builder.append(host);
+			builder.append(":");
+			builder.append(port);
+			builder.append("/");
+			builder.append(zone);
+			builder.append(", authScheme=");
+			builder.append(authScheme);
+			builder.append("]");
+			return builder.toString();
+		}
+	}
+
+}
@@ -147,6 +147,25 @@ public abstract class IRODSProtocolManager {
 				irodsAccount, this);
 	}
 
+	/**
+	 * This is an interim fix to initialize the mid level protocol factory
+	 * 
+	 * @param irodsSession
+	 *            {@link IRODSSession} with the <code>JargonProperties</code>
+	 *            that select the networking layer
+	 * @throws JargonException
+	 */
+	protected synchronized void checkMidLevelProtocolFactory(
+			final IRODSSession irodsSession) throws JargonException {
+		if (getIrodsMidLevelProtocolFactory() == null) {
+			IRODSConnectionFactory irodsConnectionFactory = getIrodsConnectionFactoryProducingFactory()
+					.instance(irodsSession.getJargonProperties());
+
+			setIrodsMidLevelProtocolFactory(new IRODSMidLevelProtocolFactory(
+					irodsConnectionFactory, getAuthenticationFactory()));
+		}
+	}
+
 	/**
 	 * Abandon a connection to iRODS for some error by forcefully shutting it
 	 * down.
@@ -0,0 +1,235 @@
+package org.irods.jargon.core.connection;
+
+/**
+ * Configuration for the {@link IRODSPoolingProtocolManager}. This is a simple
+ * bean with sensible defaults that may be wired with dependency injection, or
+ * set up directly before creating the protocol manager. Changing values after
+ * the pool has been created has no effect.
+ * <p/>
+ * Limits are applied per pool key, which is made up of the host, port, zone,
+ * user name, authentication scheme, and credential of the
+ * <code>IRODSAccount</code> used to obtain a connection.
+ */
+public class IRODSProtocolPoolConfiguration {
+
+	/**
+	 * Maximum number of idle connections kept for each account
+	 */
+	private int maxIdlePerAccount = 8;
+
+	/**
+	 * Number of idle connections that the eviction thread will leave in place,
+	 * and will try and top up to, once an account has been used
+	 */
+	private int minIdlePerAccount = 0;
+
+	/**
+	 * Maximum number of connections (idle plus borrowed) for each account, 0
+	 * for no limit
+	 */
+	private int maxTotalPerAccount = 0;
+
+	/**
+	 * Time to wait for a connection when <code>maxTotalPerAccount</code> is
+	 * reached, 0 to fail immediately, or a negative value to wait indefinitely
+	 */
+	private long maxWaitMillis = 30000;
+
+	/**
+	 * Send a light-weight protocol request to check an idle connection before
+	 * it is handed out
+	 */
+	private boolean testOnBorrow = true;
+
+	/**
+	 * Skip the test on borrow if the connection has been validated or used
+	 * within this interval
+	 */
+	private long validationIntervalMillis = 30000;
+
+	/**
+	 * Idle time after which a connection is eligible for eviction, 0 to never
+	 * evict for idleness
+	 */
+	private long idleEvictionTimeMillis = 300000;
+
+	/**
+	 * Interval between runs of the eviction thread, 0 to not run the eviction
+	 * thread
+	 */
+	private long evictionRunIntervalMillis = 60000;
+
+	/**
+	 * Discard connections older than the socket renewal interval in the
+	 * <code>PipelineConfiguration</code> instead of handing them out again
+	 */
+	private boolean honorSocketRenewalInterval = true;
+
+	/**
+	 * @return the maxIdlePerAccount
+	 */
+	public int getMaxIdlePerAccount() {
+		return maxIdlePerAccount;
+	}
+
+	/**
+	 * @param maxIdlePerAccount
+	 *            the maxIdlePerAccount to set
+	 */
+	public void setMaxIdlePerAccount(final int maxIdlePerAccount) {
+		this.maxIdlePerAccount = maxIdlePerAccount;
+	}
+
+	/**
+	 * @return the minIdlePerAccount
+	 */
+	public int getMinIdlePerAccount() {
+		return minIdlePerAccount;
+	}
+
+	/**
+	 * @param minIdlePerAccount
+	 *            the minIdlePerAccount to set
+	 */
+	public void setMinIdlePerAccount(final int minIdlePerAccount) {
+		this.minIdlePerAccount = minIdlePerAccount;
+	}
+
+	/**
+	 * @return the maxTotalPerAccount
+	 */
+	public int getMaxTotalPerAccount() {
+		return maxTotalPerAccount;
+	}
+
+	/**
+	 * @param maxTotalPerAccount
+	 *            the maxTotalPerAccount to set
+	 */
+	public void setMaxTotalPerAccount(final int maxTotalPerAccount) {
+		this.maxTotalPerAccount = maxTotalPerAccount;
+	}
+
+	/**
+	 * @return the maxWaitMillis
+	 */
+	public long getMaxWaitMillis() {
+		return maxWaitMillis;
+	}
+
+	/**
+	 * @param maxWaitMillis
+	 *            the maxWaitMillis to set
+	 */
+	public void setMaxWaitMillis(final long maxWaitMillis) {
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * @return the testOnBorrow
+	 */
+	public boolean isTestOnBorrow() {
+		return testOnBorrow;
+	}
+
+	/**
+	 * @param testOnBorrow
+	 *            the testOnBorrow to set
+	 */
+	public void setTestOnBorrow(final boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	/**
+	 * @return the validationIntervalMillis
+	 */
+	public long getValidationIntervalMillis() {
+		return validationIntervalMillis;
+	}
+
+	/**
+	 * @param validationIntervalMillis
+	 *            the validationIntervalMillis to set
+	 */
+	public void setValidationIntervalMillis(final long validationIntervalMillis) {
+		this.validationIntervalMillis = validationIntervalMillis;
+	}
+
+	/**
+	 * @return the idleEvictionTimeMillis
+	 */
+	public long getIdleEvictionTimeMillis() {
+		return idleEvictionTimeMillis;
+	}
+
+	/**
+	 * @param idleEvictionTimeMillis
+	 *            the idleEvictionTimeMillis to set
+	 */
+	public void setIdleEvictionTimeMillis(final long idleEvictionTimeMillis) {
+		this.idleEvictionTimeMillis = idleEvictionTimeMillis;
+	}
+
+	/**
+	 * @return the evictionRunIntervalMillis
+	 */
+	public long getEvictionRunIntervalMillis() {
+		return evictionRunIntervalMillis;
+	}
+
+	/**
+	 * @param evictionRunIntervalMillis
+	 *            the evictionRunIntervalMillis to set
+	 */
+	public void setEvictionRunIntervalMillis(
+			final long evictionRunIntervalMillis) {
+		this.evictionRunIntervalMillis = evictionRunIntervalMillis;
+	}
+
+	/**
+	 * @return the honorSocketRenewalInterval
+	 */
+	public boolean isHonorSocketRenewalInterval() {
+		return honorSocketRenewalInterval;
+	}
+
+	/**
+	 * @param honorSocketRenewalInterval
+	 *            the honorSocketRenewalInterval to set
+	 */
+	public void setHonorSocketRenewalInterval(
+			final boolean honorSocketRenewalInterval) {
+		this.honorSocketRenewalInterval = honorSocketRenewalInterval;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("IRODSProtocolPoolConfiguration [maxIdlePerAccount=");
+		builder.append(maxIdlePerAccount);
+		builder.append(", minIdlePerAccount=");
+		builder.append(minIdlePerAccount);
+		builder.append(", maxTotalPerAccount=");
+		builder.append(maxTotalPerAccount);
+		builder.append(", maxWaitMillis=");
+		builder.append(maxWaitMillis);
+		builder.append(", testOnBorrow=");
+		builder.append(testOnBorrow);
+		builder.append(", validationIntervalMillis=");
+		builder.append(validationIntervalMillis);
+		builder.append(", idleEvictionTimeMillis=");
+		builder.append(idleEvictionTimeMillis);
+		builder.append(", evictionRunIntervalMillis=");
+		builder.append(evictionRunIntervalMillis);
+		builder.append(", honorSocketRenewalInterval=");
+		builder.append(honorSocketRenewalInterval);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,172 @@
+package org.irods.jargon.core.connection;
+
+/**
+ * Immutable point-in-time snapshot of the counters kept by the
+ * {@link IRODSPoolingProtocolManager}. Counts are cumulative from the creation
+ * of the pool, except for the idle, active, and account counts, which reflect
+ * the state of the pool when the snapshot was taken.
+ */
+public class IRODSProtocolPoolStatistics {
+
+	private final long created;
+	private final long borrowed;
+	private final long reused;
+	private final long returned;
+	private final long destroyed;
+	private final long validationFailures;
+	private final long evicted;
+	private final long expiredForRenewal;
+	private final long waitTimeouts;
+	private final int idle;
+	private final int active;
+	private final int accounts;
+
+	IRODSProtocolPoolStatistics(final long created, final long borrowed,
+			final long reused, final long returned, final long destroyed,
+			final long validationFailures, final long evicted,
+			final long expiredForRenewal, final long waitTimeouts,
+			final int idle, final int active, final int accounts) {
+		this.created = created;
+		this.borrowed = borrowed;
+		this.reused = reused;
+		this.returned = returned;
+		this.destroyed = destroyed;
+		this.validationFailures = validationFailures;
+		this.evicted = evicted;
+		this.expiredForRenewal = expiredForRenewal;
+		this.waitTimeouts = waitTimeouts;
+		this.idle = idle;
+		this.active = active;
+		this.accounts = accounts;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of new connections made to
+	 *         iRODS by the pool
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of connections handed out
+	 */
+	public long getBorrowed() {
+		return borrowed;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of borrows satisfied by an idle
+	 *         connection, avoiding a connect and authentication
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of normal returns to the pool
+	 */
+	public long getReturned() {
+		return returned;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of connections closed by the
+	 *         pool for any reason
+	 */
+	public long getDestroyed() {
+		return destroyed;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of idle connections that failed
+	 *         validation when borrowed
+	 */
+	public long getValidationFailures() {
+		return validationFailures;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of idle connections closed by
+	 *         the eviction thread
+	 */
+	public long getEvicted() {
+		return evicted;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of connections closed because
+	 *         they passed the socket renewal interval
+	 */
+	public long getExpiredForRenewal() {
+		return expiredForRenewal;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of borrows that timed out
+	 *         waiting for a connection
+	 */
+	public long getWaitTimeouts() {
+		return waitTimeouts;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of idle connections in the pool
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of connections currently
+	 *         borrowed from the pool
+	 */
+	public int getActive() {
+		return active;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of distinct accounts that have
+	 *         a pool
+	 */
+	public int getAccounts() {
+		return accounts;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("IRODSProtocolPoolStatistics [created=");
+		builder.append(created);
+		builder.append(", borrowed=");
+		builder.append(borrowed);
+		builder.append(", reused=");
+		builder.append(reused);
+		builder.append(", returned=");
+		builder.append(returned);
+		builder.append(", destroyed=");
+		builder.append(destroyed);
+		builder.append(", validationFailures=");
+		builder.append(validationFailures);
+		builder.append(", evicted=");
+		builder.append(evicted);
+		builder.append(", expiredForRenewal=");
+		builder.append(expiredForRenewal);
+		builder.append(", waitTimeouts=");
+		builder.append(waitTimeouts);
+		builder.append(", idle=");
+		builder.append(idle);
+		builder.append(", active=");
+		builder.append(active);
+		builder.append(", accounts=");
+		builder.append(accounts);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
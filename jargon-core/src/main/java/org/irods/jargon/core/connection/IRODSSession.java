@@ -94,6 +94,12 @@ public class IRODSSession {
 	 */
 	private AbstractRestartManager restartManager = null;
 
+	/**
+	 * Cache of <code>ObjStat</code> results, created on first use when turned
+	 * on in the jargon properties
+	 */
+	private ObjStatCache objStatCache = null;
+
 	/**
 	 * General configuration properties for operation of jargon, buffer sizes,
 	 * thread counts, etc.
@@ -204,6 +210,8 @@ public class IRODSSession {
 							.getIntraFileStatusCallbacksTotalBytesInterval());
 			transferOptions.setChecksumEncoding(jargonProperties
 					.getChecksumEncoding());
+			transferOptions.setMaxConcurrentFileTransfers(jargonProperties
+					.getMaxConcurrentFileTransfers());
 
 		}
 
@@ -725,6 +733,8 @@ public class IRODSSession {
 	public void setJargonProperties(final JargonProperties jargonProperties) {
 		synchronized (this) {
 			this.jargonProperties = jargonProperties;
+			// pick up any change to the cache settings on next use
+			objStatCache = null;
 		}
 	}
 
@@ -781,6 +791,30 @@ public class IRODSSession {
 		return restartManager;
 	}
 
+	/**
+	 * Get the cache of <code>ObjStat</code> results shared by the access
+	 * objects in this session. The cache is created on first use with the
+	 * time to live and size in the jargon properties.
+	 * 
+	 * @return {@link ObjStatCache}, or <code>null</code> if
+	 *         <code>JargonProperties.isUseObjStatCache()</code> is
+	 *         <code>false</code>
+	 */
+	public synchronized ObjStatCache getObjStatCache() {
+		if (!jargonProperties.isUseObjStatCache()) {
+			return null;
+		}
+
+		if (objStatCache == null) {
+			log.info("creating objStat cache");
+			objStatCache = new ObjStatCache(
+					jargonProperties.getObjStatCacheTimeToLiveMillis(),
+					jargonProperties.getObjStatCacheMaxEntries());
+		}
+
+		return objStatCache;
+	}
+
 	public synchronized void setRestartManager(
 			final AbstractRestartManager restartManager) {
 		this.restartManager = restartManager;
@@ -427,6 +427,57 @@ public interface JargonProperties {
 	 */
 	int getParallelCopyBufferSize();
 
+	/**
+	 * Indicates whether parallel transfer threads should move data with NIO
+	 * channels, using <code>FileChannel.transferTo()</code> and
+	 * <code>FileChannel.transferFrom()</code> so that file data does not pass
+	 * through heap buffers, instead of the default socket streams.
+	 * 
+	 * @return <code>boolean</code> of <code>true</code> if NIO should be used
+	 *         for parallel transfers
+	 */
+	boolean isUseNIOForParallelTransfers();
+
+	/**
+	 * Indicates whether <code>ObjStat</code> results obtained through
+	 * <code>IRODSFileSystemAO</code> (and so by <code>IRODSFile</code> methods
+	 * such as <code>exists()</code>, <code>isFile()</code> and
+	 * <code>length()</code>) are cached in the <code>IRODSSession</code>.
+	 * Cached entries are dropped when changed through Jargon, and otherwise
+	 * expire after {@link #getObjStatCacheTimeToLiveMillis()}, so changes
+	 * made by other clients may not be seen until then.
+	 * 
+	 * @return <code>boolean</code> of <code>true</code> if the
+	 *         <code>ObjStat</code> cache is used
+	 */
+	boolean isUseObjStatCache();
+
+	/**
+	 * Time in milliseconds a cached <code>ObjStat</code> is used before it is
+	 * looked up again
+	 * 
+	 * @return <code>long</code> with the time to live in milliseconds
+	 */
+	long getObjStatCacheTimeToLiveMillis();
+
+	/**
+	 * Most <code>ObjStat</code> entries held in the cache, the least recently
+	 * used are dropped past this size
+	 * 
+	 * @return <code>int</code> with the maximum number of cached entries
+	 */
+	int getObjStatCacheMaxEntries();
+
+	/**
+	 * Number of files moved at the same time, each on its own connection, when
+	 * a collection or local directory is transferred by
+	 * <code>DataTransferOperations</code>. A value of 1 moves the files one
+	 * after another on the caller's connection.
+	 * 
+	 * @return <code>int</code> with the number of files transferred at once
+	 */
+	int getMaxConcurrentFileTransfers();
+
 	/**
 	 * Is TCP keep alive set for the primary irods Socket?
 	 * 
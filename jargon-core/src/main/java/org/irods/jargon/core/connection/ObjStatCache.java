@@ -0,0 +1,218 @@
+package org.irods.jargon.core.connection;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of <code>ObjStat</code> results held by the
+ * <code>IRODSSession</code>, so that calls like <code>IRODSFile.exists()</code>
+ * , <code>isFile()</code> and <code>length()</code> made one after another on
+ * the same path do not each go to iRODS.
+ * <p/>
+ * Entries are by host, port, zone and absolute path, and remember the user
+ * that looked them up, so that a stat obtained by one user is not handed to
+ * another. An entry expires after the time to live. Jargon operations that
+ * change a file or collection invalidate the path (and the parent, whose
+ * modify time may change), so the time to live bounds staleness only for
+ * changes made by other clients. Past the maximum size the least recently used
+ * entries are dropped.
+ */
+public class ObjStatCache {
+
+	private final long timeToLiveMillis;
+	private final int maxEntries;
+	private final LinkedHashMap<String, CachedObjStat> cache;
+
+	public static final Logger log = LoggerFactory
+			.getLogger(ObjStatCache.class);
+
+	/**
+	 * Constructor
+	 *
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time in milliseconds an entry is
+	 *            used before it is looked up again
+	 * @param maxEntries
+	 *            <code>int</code> with the most entries held
+	 */
+	public ObjStatCache(final long timeToLiveMillis, final int maxEntries) {
+		if (timeToLiveMillis < 0) {
+			throw new IllegalArgumentException("negative timeToLiveMillis");
+		}
+
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be > 0");
+		}
+
+		this.timeToLiveMillis = timeToLiveMillis;
+		this.maxEntries = maxEntries;
+		cache = new LinkedHashMap<String, CachedObjStat>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2296216574962395101L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, CachedObjStat> eldest) {
+				return size() > ObjStatCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Get the cached <code>ObjStat</code> for the path, if it was looked up by
+	 * the same user and has not expired
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} doing the look up
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path
+	 * @return {@link ObjStat} or <code>null</code> if not cached
+	 */
+	public synchronized ObjStat retrieve(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath) {
+		String key = buildKey(irodsAccount, irodsAbsolutePath);
+		CachedObjStat cached = cache.get(key);
+
+		if (cached == null) {
+			return null;
+		}
+
+		if (System.currentTimeMillis() - cached.cachedAt > timeToLiveMillis) {
+			log.debug("expired objStat for:{}", irodsAbsolutePath);
+			cache.remove(key);
+			return null;
+		}
+
+		if (!cached.userName.equals(irodsAccount.getUserName())) {
+			return null;
+		}
+
+		return cached.objStat;
+	}
+
+	/**
+	 * Cache the <code>ObjStat</code> for the path
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that looked up the stat
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path
+	 * @param objStat
+	 *            {@link ObjStat} to cache
+	 */
+	public synchronized void cache(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath, final ObjStat objStat) {
+		if (objStat == null) {
+			throw new IllegalArgumentException("null objStat");
+		}
+
+		cache.put(buildKey(irodsAccount, irodsAbsolutePath), new CachedObjStat(
+				objStat, irodsAccount.getUserName(), System.currentTimeMillis()));
+	}
+
+	/**
+	 * Drop the entries for the path and its parent collection, used when a
+	 * file or collection is created, written, or removed
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} for the grid
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path
+	 */
+	public synchronized void invalidate(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath) {
+		cache.remove(buildKey(irodsAccount, irodsAbsolutePath));
+		String parent = parentOf(irodsAbsolutePath);
+		if (parent != null) {
+			cache.remove(buildKey(irodsAccount, parent));
+		}
+	}
+
+	/**
+	 * Drop the entries for the path, its parent, and everything under the
+	 * path, used when a collection is removed or renamed
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} for the grid
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path
+	 */
+	public synchronized void invalidatePathAndChildren(
+			final IRODSAccount irodsAccount, final String irodsAbsolutePath) {
+		invalidate(irodsAccount, irodsAbsolutePath);
+		String prefix = buildKey(irodsAccount, irodsAbsolutePath);
+		if (!prefix.endsWith("/")) {
+			prefix = prefix + "/";
+		}
+
+		Iterator<String> keys = cache.keySet().iterator();
+		while (keys.hasNext()) {
+			if (keys.next().startsWith(prefix)) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drop all entries
+	 */
+	public synchronized void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of entries held, including any
+	 *         that have expired but not yet been removed
+	 */
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	private String buildKey(final IRODSAccount irodsAccount,
+			final String irodsAbsolutePath) {
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getHost().trim());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		sb.append(irodsAccount.getZone());
+		sb.append('|');
+		sb.append(irodsAbsolutePath);
+		return sb.toString();
+	}
+
+	private String parentOf(final String irodsAbsolutePath) {
+		int index = irodsAbsolutePath.lastIndexOf('/');
+		if (index <= 0) {
+			return null;
+		}
+		return irodsAbsolutePath.substring(0, index);
+	}
+
+	private static final class CachedObjStat {
+		private final ObjStat objStat;
+		private final String userName;
+		private final long cachedAt;
+
+		CachedObjStat(final ObjStat objStat, final String userName,
+				final long cachedAt) {
+			this.objStat = objStat;
+			this.userName = userName;
+			this.cachedAt = cachedAt;
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.irods.jargon.core.connection;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.Tag;
+
+/**
+ * Outcome of one request sent with
+ * {@link AbstractIRODSMidLevelProtocol#irodsFunctionPipelined(java.util.List, int)}
+ * . Errors that iRODS returns for a single request do not stop the other
+ * requests in the pipeline, so each response either holds the reply
+ * <code>Tag</code> (which may be <code>null</code> for operations that have
+ * no reply body), or the exception that iRODS raised for that request.
+ */
+public class PipelinedResponse {
+
+	private final Tag response;
+	private final JargonException exception;
+
+	/**
+	 * Response for a request that succeeded
+	 *
+	 * @param response
+	 *            {@link Tag} with the reply, may be <code>null</code>
+	 * @return {@link PipelinedResponse}
+	 */
+	public static PipelinedResponse instanceForResponse(final Tag response) {
+		return new PipelinedResponse(response, null);
+	}
+
+	/**
+	 * Response for a request that iRODS rejected
+	 *
+	 * @param exception
+	 *            {@link JargonException} translated from the iRODS error
+	 * @return {@link PipelinedResponse}
+	 */
+	public static PipelinedResponse instanceForException(
+			final JargonException exception) {
+		if (exception == null) {
+			throw new IllegalArgumentException("null exception");
+		}
+		return new PipelinedResponse(null, exception);
+	}
+
+	private PipelinedResponse(final Tag response,
+			final JargonException exception) {
+		this.response = response;
+		this.exception = exception;
+	}
+
+	/**
+	 * @return {@link Tag} with the reply, or <code>null</code> if there was no
+	 *         reply body or the request failed
+	 */
+	public Tag getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return {@link JargonException} for a failed request, or
+	 *         <code>null</code> if the request succeeded
+	 */
+	public JargonException getException() {
+		return exception;
+	}
+
+	/**
+	 * @return <code>boolean</code> of <code>true</code> if iRODS did not
+	 *         return an error for the request
+	 */
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("PipelinedResponse [successful=");
+		builder.append(isSuccessful());
+		if (exception != null) {
+			builder.append(", exception=");
+			builder.append(exception.getMessage());
+		}
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
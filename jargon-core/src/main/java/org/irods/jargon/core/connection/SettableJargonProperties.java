@@ -20,7 +20,7 @@ import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
 public class SettableJargonProperties implements JargonProperties {
 
 	private boolean useParallelTransfer = true;
-	private final boolean useNIOForParallelTransfers = false;
+	private boolean useNIOForParallelTransfers = false;
 	private int maxParallelThreads = 4;
 	private int maxFilesAndDirsQueryMax = 5000;
 	private boolean useTransferThreadsPool = false;
@@ -47,6 +47,10 @@ public class SettableJargonProperties implements JargonProperties {
 	private boolean defaultToPublicIfNothingUnderRootWhenListing = true;
 	private long reconnectTimeInMillis = 600000L;
 	private boolean usingDiscoveredServerPropertiesCache = true;
+	private boolean useObjStatCache = false;
+	private long objStatCacheTimeToLiveMillis = 2000L;
+	private int objStatCacheMaxEntries = 5000;
+	private int maxConcurrentFileTransfers = 1;
 	private boolean usingSpecificQueryForCollectionListingsWithPermissions = true;
 	private boolean usingSpecQueryForDataObjPermissionsForUserInGroup = false;
 	private int pamTimeToLive = 0;
@@ -184,6 +188,14 @@ public class SettableJargonProperties implements JargonProperties {
 				.getSocketRenewalIntervalInSeconds();
 		longTransferRestart = jargonProperties.isLongTransferRestart();
 		parallelCopyBufferSize = jargonProperties.getParallelCopyBufferSize();
+		useNIOForParallelTransfers = jargonProperties
+				.isUseNIOForParallelTransfers();
+		useObjStatCache = jargonProperties.isUseObjStatCache();
+		objStatCacheTimeToLiveMillis = jargonProperties
+				.getObjStatCacheTimeToLiveMillis();
+		objStatCacheMaxEntries = jargonProperties.getObjStatCacheMaxEntries();
+		maxConcurrentFileTransfers = jargonProperties
+				.getMaxConcurrentFileTransfers();
 		this.intraFileStatusCallbacksNumberCallsInterval = jargonProperties
 				.getIntraFileStatusCallbacksNumberCallsInterval();
 		this.intraFileStatusCallbacksTotalBytesInterval = jargonProperties
@@ -997,6 +1009,14 @@ public class SettableJargonProperties implements JargonProperties {
 		builder.append(useParallelTransfer);
 		builder.append(", useNIOForParallelTransfers=");
 		builder.append(useNIOForParallelTransfers);
+		builder.append(", useObjStatCache=");
+		builder.append(useObjStatCache);
+		builder.append(", objStatCacheTimeToLiveMillis=");
+		builder.append(objStatCacheTimeToLiveMillis);
+		builder.append(", objStatCacheMaxEntries=");
+		builder.append(objStatCacheMaxEntries);
+		builder.append(", maxConcurrentFileTransfers=");
+		builder.append(maxConcurrentFileTransfers);
 		builder.append(", maxParallelThreads=");
 		builder.append(maxParallelThreads);
 		builder.append(", maxFilesAndDirsQueryMax=");
@@ -1163,6 +1183,111 @@ public class SettableJargonProperties implements JargonProperties {
 		this.parallelCopyBufferSize = parallelCopyBufferSize;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * isUseNIOForParallelTransfers()
+	 */
+	@Override
+	public synchronized boolean isUseNIOForParallelTransfers() {
+		return useNIOForParallelTransfers;
+	}
+
+	/**
+	 * Set whether parallel transfer threads move data with NIO channels
+	 * rather than socket streams
+	 * 
+	 * @param useNIOForParallelTransfers
+	 */
+	public synchronized void setUseNIOForParallelTransfers(
+			final boolean useNIOForParallelTransfers) {
+		this.useNIOForParallelTransfers = useNIOForParallelTransfers;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#isUseObjStatCache()
+	 */
+	@Override
+	public synchronized boolean isUseObjStatCache() {
+		return useObjStatCache;
+	}
+
+	/**
+	 * Set whether <code>ObjStat</code> results are cached in the session
+	 * 
+	 * @param useObjStatCache
+	 */
+	public synchronized void setUseObjStatCache(final boolean useObjStatCache) {
+		this.useObjStatCache = useObjStatCache;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * getObjStatCacheTimeToLiveMillis()
+	 */
+	@Override
+	public synchronized long getObjStatCacheTimeToLiveMillis() {
+		return objStatCacheTimeToLiveMillis;
+	}
+
+	/**
+	 * Set the time in milliseconds a cached <code>ObjStat</code> is used
+	 * 
+	 * @param objStatCacheTimeToLiveMillis
+	 */
+	public synchronized void setObjStatCacheTimeToLiveMillis(
+			final long objStatCacheTimeToLiveMillis) {
+		this.objStatCacheTimeToLiveMillis = objStatCacheTimeToLiveMillis;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getObjStatCacheMaxEntries
+	 * ()
+	 */
+	@Override
+	public synchronized int getObjStatCacheMaxEntries() {
+		return objStatCacheMaxEntries;
+	}
+
+	/**
+	 * Set the most <code>ObjStat</code> entries held in the cache
+	 * 
+	 * @param objStatCacheMaxEntries
+	 */
+	public synchronized void setObjStatCacheMaxEntries(
+			final int objStatCacheMaxEntries) {
+		this.objStatCacheMaxEntries = objStatCacheMaxEntries;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * getMaxConcurrentFileTransfers()
+	 */
+	@Override
+	public synchronized int getMaxConcurrentFileTransfers() {
+		return maxConcurrentFileTransfers;
+	}
+
+	/**
+	 * Set the number of files moved at the same time in a collection transfer
+	 * 
+	 * @param maxConcurrentFileTransfers
+	 */
+	public synchronized void setMaxConcurrentFileTransfers(
+			final int maxConcurrentFileTransfers) {
+		this.maxConcurrentFileTransfers = maxConcurrentFileTransfers;
+	}
+
 	@Override
 	public synchronized int getIntraFileStatusCallbacksNumberCallsInterval() {
 		return intraFileStatusCallbacksNumberCallsInterval;
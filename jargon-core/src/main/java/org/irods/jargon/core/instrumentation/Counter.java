@@ -0,0 +1,53 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe, monotonically increasing count, such as bytes sent
+ */
+public class Counter {
+
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Add one to the count
+	 */
+	public void increment() {
+		add(1L);
+	}
+
+	/**
+	 * Add the given amount to the count
+	 *
+	 * @param delta
+	 *            <code>long</code> to add
+	 */
+	public void add(final long delta) {
+		count.addAndGet(delta);
+	}
+
+	/**
+	 * @return <code>long</code> with the current count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Set the count back to zero
+	 */
+	public void reset() {
+		count.set(0L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.valueOf(getCount());
+	}
+
+}
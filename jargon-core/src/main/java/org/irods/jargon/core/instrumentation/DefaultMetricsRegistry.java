@@ -0,0 +1,109 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory {@link MetricsRegistry} backed by concurrent maps
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.instrumentation.MetricsRegistry#counter(java.lang
+	 * .String)
+	 */
+	@Override
+	public Counter counter(final String name) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("null or empty name");
+		}
+
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			Counter newCounter = new Counter();
+			counter = counters.putIfAbsent(name, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		return counter;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.instrumentation.MetricsRegistry#histogram(java.
+	 * lang.String)
+	 */
+	@Override
+	public Histogram histogram(final String name) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("null or empty name");
+		}
+
+		Histogram histogram = histograms.get(name);
+		if (histogram == null) {
+			Histogram newHistogram = new Histogram();
+			histogram = histograms.putIfAbsent(name, newHistogram);
+			if (histogram == null) {
+				histogram = newHistogram;
+			}
+		}
+		return histogram;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.instrumentation.MetricsRegistry#getCounterValues()
+	 */
+	@Override
+	public Map<String, Long> getCounterValues() {
+		Map<String, Long> values = new TreeMap<String, Long>();
+		for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+			values.put(entry.getKey(), entry.getValue().getCount());
+		}
+		return values;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.instrumentation.MetricsRegistry#
+	 * getHistogramSnapshots()
+	 */
+	@Override
+	public Map<String, HistogramSnapshot> getHistogramSnapshots() {
+		Map<String, HistogramSnapshot> snapshots = new TreeMap<String, HistogramSnapshot>();
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			snapshots.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return snapshots;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.instrumentation.MetricsRegistry#reset()
+	 */
+	@Override
+	public void reset() {
+		for (Counter counter : counters.values()) {
+			counter.reset();
+		}
+		for (Histogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+	}
+
+}
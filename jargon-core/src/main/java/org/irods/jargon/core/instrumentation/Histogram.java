@@ -0,0 +1,122 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe distribution of recorded values, such as latencies in
+ * microseconds. Values are counted in buckets by power of two, so recording is
+ * a handful of atomic operations with no allocation, and percentiles are
+ * accurate to within a factor of two, which is plenty to spot a slow protocol
+ * call.
+ * <p/>
+ * Negative values are recorded as zero.
+ */
+public class Histogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Record a value
+	 *
+	 * @param value
+	 *            <code>long</code> with the value to record
+	 */
+	public void record(final long value) {
+		long recorded = value < 0 ? 0 : value;
+		buckets.incrementAndGet(bucketFor(recorded));
+		count.incrementAndGet();
+		sum.addAndGet(recorded);
+
+		long current = min.get();
+		while (recorded < current && !min.compareAndSet(current, recorded)) {
+			current = min.get();
+		}
+
+		current = max.get();
+		while (recorded > current && !max.compareAndSet(current, recorded)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Take a snapshot of the distribution. Values recorded while the snapshot
+	 * is taken may or may not be included.
+	 *
+	 * @return {@link HistogramSnapshot}
+	 */
+	public HistogramSnapshot snapshot() {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+
+		if (total == 0) {
+			return new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0);
+		}
+
+		long minValue = min.get();
+		long maxValue = max.get();
+		return new HistogramSnapshot(total, sum.get(), minValue, maxValue,
+				percentile(counts, total, 0.50, maxValue), percentile(counts,
+						total, 0.90, maxValue), percentile(counts, total, 0.99,
+						maxValue));
+	}
+
+	/**
+	 * Clear all recorded values
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(Long.MIN_VALUE);
+	}
+
+	/**
+	 * @return <code>long</code> with the number of values recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Bucket 0 holds 0 and 1, bucket n holds values from 2^n to 2^(n+1) - 1
+	 */
+	static int bucketFor(final long value) {
+		if (value <= 1) {
+			return 0;
+		}
+		return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * Report the upper bound of the bucket holding the given percentile,
+	 * capped at the largest value seen
+	 */
+	private static long percentile(final long[] counts, final long total,
+			final double fraction, final long maxValue) {
+		long target = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				long upperBound = i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+				return Math.min(upperBound, maxValue);
+			}
+		}
+		return maxValue;
+	}
+
+}
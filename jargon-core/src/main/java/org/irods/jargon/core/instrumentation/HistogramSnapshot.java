@@ -0,0 +1,114 @@
+package org.irods.jargon.core.instrumentation;
+
+/**
+ * Immutable point-in-time view of a {@link Histogram}. The getters are
+ * exposed as composite data through JMX.
+ */
+public class HistogramSnapshot {
+
+	private final long count;
+	private final long sum;
+	private final long min;
+	private final long max;
+	private final long median;
+	private final long percentile90;
+	private final long percentile99;
+
+	HistogramSnapshot(final long count, final long sum, final long min,
+			final long max, final long median, final long percentile90,
+			final long percentile99) {
+		this.count = count;
+		this.sum = sum;
+		this.min = min;
+		this.max = max;
+		this.median = median;
+		this.percentile90 = percentile90;
+		this.percentile99 = percentile99;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of values recorded
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return <code>long</code> with the total of the values recorded
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return <code>long</code> with the smallest value recorded
+	 */
+	public long getMin() {
+		return min;
+	}
+
+	/**
+	 * @return <code>long</code> with the largest value recorded
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return <code>double</code> with the average of the values recorded
+	 */
+	public double getMean() {
+		if (count == 0) {
+			return 0;
+		}
+		return (double) sum / count;
+	}
+
+	/**
+	 * @return <code>long</code> with the approximate median
+	 */
+	public long getMedian() {
+		return median;
+	}
+
+	/**
+	 * @return <code>long</code> with the approximate 90th percentile
+	 */
+	public long getPercentile90() {
+		return percentile90;
+	}
+
+	/**
+	 * @return <code>long</code> with the approximate 99th percentile
+	 */
+	public long getPercentile99() {
+		return percentile99;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("HistogramSnapshot [count=");
+		builder.append(count);
+		builder.append(", sum=");
+		builder.append(sum);
+		builder.append(", min=");
+		builder.append(min);
+		builder.append(", max=");
+		builder.append(max);
+		builder.append(", median=");
+		builder.append(median);
+		builder.append(", percentile90=");
+		builder.append(percentile90);
+		builder.append(", percentile99=");
+		builder.append(percentile99);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
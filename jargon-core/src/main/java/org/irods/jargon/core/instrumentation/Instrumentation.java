@@ -0,0 +1,160 @@
+package org.irods.jargon.core.instrumentation;
+
+/**
+ * Holds the {@link MetricsRegistry} used by Jargon, along with the names of
+ * the metrics that are gathered. Call sites only touch this class when
+ * <code>PipelineConfiguration.isInstrument()</code> is <code>true</code>, so
+ * there is nothing more than a boolean check on the hot paths when
+ * instrumentation is turned off.
+ * <p/>
+ * By default a {@link JmxMetricsRegistry} is created and published the first
+ * time a metric is recorded. Another registry may be plugged in at any time,
+ * and is used for all metrics recorded afterwards.
+ * <p/>
+ * Timings are recorded in microseconds.
+ */
+public class Instrumentation {
+
+	/**
+	 * Prefix of the latency histogram for each iRODS API number, e.g.
+	 * <code>irods.api.702.micros</code>
+	 */
+	public static final String API_LATENCY_PREFIX = "irods.api.";
+	public static final String API_LATENCY_SUFFIX = ".micros";
+	public static final String BYTES_SENT = "connection.bytes.sent";
+	public static final String BYTES_RECEIVED = "connection.bytes.received";
+	public static final String FLUSHES = "connection.flushes";
+	public static final String CONNECTION_OPEN = "connection.open.micros";
+	public static final String CONNECTION_AUTHENTICATE = "connection.authenticate.micros";
+	public static final String PARALLEL_GET_BYTES = "transfer.parallel.get.bytes";
+	public static final String PARALLEL_PUT_BYTES = "transfer.parallel.put.bytes";
+	/**
+	 * Histogram of bytes per second achieved by each parallel get thread
+	 */
+	public static final String PARALLEL_GET_THREAD_THROUGHPUT = "transfer.parallel.get.thread.bytesPerSecond";
+	/**
+	 * Histogram of bytes per second achieved by each parallel put thread
+	 */
+	public static final String PARALLEL_PUT_THREAD_THROUGHPUT = "transfer.parallel.put.thread.bytesPerSecond";
+	/**
+	 * Histogram of rows in each GenQuery response
+	 */
+	public static final String GEN_QUERY_ROWS = "query.genquery.rows";
+	/**
+	 * Histogram of files per second achieved by each concurrent collection
+	 * put or get
+	 */
+	public static final String COLLECTION_TRANSFER_FILES_PER_SECOND = "transfer.collection.filesPerSecond";
+
+	private static volatile MetricsRegistry metricsRegistry = null;
+
+	private Instrumentation() {
+	}
+
+	/**
+	 * Get the registry, creating and publishing the default
+	 * {@link JmxMetricsRegistry} if none has been set
+	 *
+	 * @return {@link MetricsRegistry}
+	 */
+	public static MetricsRegistry getMetricsRegistry() {
+		MetricsRegistry registry = metricsRegistry;
+		if (registry == null) {
+			synchronized (Instrumentation.class) {
+				registry = metricsRegistry;
+				if (registry == null) {
+					JmxMetricsRegistry jmxMetricsRegistry = new JmxMetricsRegistry();
+					jmxMetricsRegistry.register();
+					registry = jmxMetricsRegistry;
+					metricsRegistry = registry;
+				}
+			}
+		}
+		return registry;
+	}
+
+	/**
+	 * Plug in a registry for all metrics recorded from now on
+	 *
+	 * @param metricsRegistry
+	 *            {@link MetricsRegistry} to use
+	 */
+	public static synchronized void setMetricsRegistry(
+			final MetricsRegistry metricsRegistry) {
+		if (metricsRegistry == null) {
+			throw new IllegalArgumentException("null metricsRegistry");
+		}
+		Instrumentation.metricsRegistry = metricsRegistry;
+	}
+
+	/**
+	 * Add to a counter in the current registry
+	 *
+	 * @param name
+	 *            <code>String</code> with the counter name
+	 * @param delta
+	 *            <code>long</code> to add
+	 */
+	public static void count(final String name, final long delta) {
+		getMetricsRegistry().counter(name).add(delta);
+	}
+
+	/**
+	 * Record a value in a histogram in the current registry
+	 *
+	 * @param name
+	 *            <code>String</code> with the histogram name
+	 * @param value
+	 *            <code>long</code> to record
+	 */
+	public static void record(final String name, final long value) {
+		getMetricsRegistry().histogram(name).record(value);
+	}
+
+	/**
+	 * Record the time since <code>startNanos</code>, in microseconds
+	 *
+	 * @param name
+	 *            <code>String</code> with the histogram name
+	 * @param startNanos
+	 *            <code>long</code> from <code>System.nanoTime()</code> at the
+	 *            start of the operation
+	 */
+	public static void recordElapsed(final String name, final long startNanos) {
+		record(name, (System.nanoTime() - startNanos) / 1000L);
+	}
+
+	/**
+	 * Record the latency of a request for the given iRODS API number
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @param startNanos
+	 *            <code>long</code> from <code>System.nanoTime()</code> when
+	 *            the request was started
+	 */
+	public static void recordApiLatency(final int apiNumber,
+			final long startNanos) {
+		recordElapsed(API_LATENCY_PREFIX + apiNumber + API_LATENCY_SUFFIX,
+				startNanos);
+	}
+
+	/**
+	 * Record the throughput of a transfer thread that moved
+	 * <code>bytes</code> since <code>startNanos</code>
+	 *
+	 * @param name
+	 *            <code>String</code> with the histogram name
+	 * @param bytes
+	 *            <code>long</code> with the bytes moved
+	 * @param startNanos
+	 *            <code>long</code> from <code>System.nanoTime()</code> when
+	 *            the transfer was started
+	 */
+	public static void recordThroughput(final String name, final long bytes,
+			final long startNanos) {
+		long elapsedNanos = Math.max(1L, System.nanoTime() - startNanos);
+		record(name, (long) (bytes * 1000000000.0d / elapsedNanos));
+	}
+
+}
@@ -0,0 +1,26 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.util.Map;
+
+/**
+ * Management interface for the Jargon metrics as published through JMX by the
+ * {@link JmxMetricsRegistry}
+ */
+public interface JargonMetricsMXBean {
+
+	/**
+	 * @return <code>Map</code> of counter name to current value
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * @return <code>Map</code> of histogram name to a snapshot of its values
+	 */
+	Map<String, HistogramSnapshot> getHistograms();
+
+	/**
+	 * Clear all metrics
+	 */
+	void reset();
+
+}
@@ -0,0 +1,144 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link MetricsRegistry} that publishes itself as an MXBean in the platform
+ * MBean server, so that the metrics can be watched with jconsole or any JMX
+ * client. This is the default registry.
+ */
+public class JmxMetricsRegistry extends DefaultMetricsRegistry implements
+		JargonMetricsMXBean {
+
+	/**
+	 * Name the registry is published under by default
+	 */
+	public static final String DEFAULT_OBJECT_NAME = "org.irods.jargon:type=JargonMetrics";
+
+	private static final Logger log = LoggerFactory
+			.getLogger(JmxMetricsRegistry.class);
+
+	private final ObjectName objectName;
+	private boolean registered = false;
+
+	/**
+	 * Create a registry that will be published under the
+	 * {@link #DEFAULT_OBJECT_NAME}
+	 */
+	public JmxMetricsRegistry() {
+		this(DEFAULT_OBJECT_NAME);
+	}
+
+	/**
+	 * Create a registry that will be published under the given name
+	 *
+	 * @param objectName
+	 *            <code>String</code> with a JMX object name
+	 */
+	public JmxMetricsRegistry(final String objectName) {
+		if (objectName == null || objectName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty objectName");
+		}
+
+		try {
+			this.objectName = new ObjectName(objectName);
+		} catch (MalformedObjectNameException e) {
+			throw new IllegalArgumentException("invalid objectName", e);
+		}
+	}
+
+	/**
+	 * Publish this registry in the platform MBean server. If another registry
+	 * is already published under the same name it is replaced. Failures are
+	 * logged and do not stop metrics from being gathered.
+	 */
+	public synchronized void register() {
+		if (registered) {
+			return;
+		}
+
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		try {
+			try {
+				mBeanServer.registerMBean(this, objectName);
+			} catch (InstanceAlreadyExistsException e) {
+				log.info("replacing existing metrics mbean:{}", objectName);
+				mBeanServer.unregisterMBean(objectName);
+				mBeanServer.registerMBean(this, objectName);
+			}
+			registered = true;
+			log.info("published metrics mbean:{}", objectName);
+		} catch (JMException e) {
+			log.warn("unable to publish metrics mbean, metrics are still kept",
+					e);
+		} catch (SecurityException e) {
+			log.warn("unable to publish metrics mbean, metrics are still kept",
+					e);
+		}
+	}
+
+	/**
+	 * Remove this registry from the platform MBean server
+	 */
+	public synchronized void unregister() {
+		if (!registered) {
+			return;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer()
+					.unregisterMBean(objectName);
+		} catch (JMException e) {
+			log.warn("unable to unregister metrics mbean", e);
+		}
+		registered = false;
+	}
+
+	/**
+	 * @return <code>boolean</code> of <code>true</code> if published in the
+	 *         platform MBean server
+	 */
+	public synchronized boolean isRegistered() {
+		return registered;
+	}
+
+	/**
+	 * @return {@link ObjectName} this registry is published under
+	 */
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.instrumentation.JargonMetricsMXBean#getCounters()
+	 */
+	@Override
+	public Map<String, Long> getCounters() {
+		return getCounterValues();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.instrumentation.JargonMetricsMXBean#getHistograms()
+	 */
+	@Override
+	public Map<String, HistogramSnapshot> getHistograms() {
+		return getHistogramSnapshots();
+	}
+
+}
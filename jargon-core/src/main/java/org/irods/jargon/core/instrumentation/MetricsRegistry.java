@@ -0,0 +1,55 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.util.Map;
+
+/**
+ * Holds the named counters and histograms that make up the Jargon metrics.
+ * Implementations may be plugged in using
+ * {@link Instrumentation#setMetricsRegistry(MetricsRegistry)}, for example to
+ * bridge to a metrics library used by the application, in which case the
+ * returned {@link Counter} and {@link Histogram} may be subclasses that
+ * forward the recorded values.
+ * <p/>
+ * Implementations must be thread safe, and should return the same instance
+ * for the same name.
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * Get the counter with the given name, creating it if needed
+	 *
+	 * @param name
+	 *            <code>String</code> with the name of the counter
+	 * @return {@link Counter}
+	 */
+	Counter counter(String name);
+
+	/**
+	 * Get the histogram with the given name, creating it if needed
+	 *
+	 * @param name
+	 *            <code>String</code> with the name of the histogram
+	 * @return {@link Histogram}
+	 */
+	Histogram histogram(String name);
+
+	/**
+	 * Get the current value of all counters
+	 *
+	 * @return <code>Map</code> of counter name to value
+	 */
+	Map<String, Long> getCounterValues();
+
+	/**
+	 * Get a snapshot of all histograms
+	 *
+	 * @return <code>Map</code> of histogram name to {@link HistogramSnapshot}
+	 */
+	Map<String, HistogramSnapshot> getHistogramSnapshots();
+
+	/**
+	 * Clear all counters and histograms
+	 */
+	void reset();
+
+}
@@ -0,0 +1,8 @@
+/**
+ * Optional metrics for the hot paths in Jargon, such as protocol request latency, bytes moved over
+ * the connection, connection and authentication timings, parallel transfer throughput, and query
+ * row counts.  Metrics are only gathered when the <code>jargon.instrument</code> property is set,
+ * and are kept in a pluggable {@link org.irods.jargon.core.instrumentation.MetricsRegistry}, which
+ * by default is published as a JMX MBean.
+ */
+package org.irods.jargon.core.instrumentation;
@@ -88,6 +88,23 @@ public class CollInp extends AbstractIRODSPackingInstruction {
 		return new CollInp(collectionName, true, true);
 	}
 
+	/**
+	 * Create an instance to make a single collection, with the api number set
+	 * so that it may be sent in a pipelined batch. The parent collection must
+	 * exist.
+	 * 
+	 * @param collectionName
+	 *            <code>String</code> with the absolute path of the collection
+	 * @return {@link CollInp}
+	 * @throws JargonException
+	 */
+	public static final CollInp instanceForCreateCollection(
+			final String collectionName) throws JargonException {
+		CollInp collInp = new CollInp(collectionName, NON_RECURSIVE_OPERATION);
+		collInp.setApiNumber(MKDIR_API_NBR);
+		return collInp;
+	}
+
 	public static final CollInp instance(final String collectionName,
 			final boolean recursiveOperation) throws JargonException {
 		return new CollInp(collectionName, recursiveOperation);
@@ -212,6 +212,7 @@ public class DataObjInp extends AbstractIRODSPackingInstruction {
 				DEFAULT_CREATE_MODE, OpenFlags.READ, 0L, 0L, "", null);
 		dataObjInp.forceOption = DataObjInp.ForceOptions.FORCE;
 		dataObjInp.operationType = DEFAULT_OPERATION_TYPE;
+		dataObjInp.setApiNumber(DELETE_FILE_API_NBR);
 		return dataObjInp;
 	}
 
@@ -94,92 +94,12 @@ public class Tag implements Cloneable {
 		}
 
 		if (decode) {
-
-			StringBuilder sb = new StringBuilder();
-
-			StringBuilder cache = new StringBuilder();
-
-			char c;
-			for (int i = 0; i < value.length(); i++) {
-				c = value.charAt(i);
-				/*
-				 * if I hit an & then consider this for the cache, and just dump
-				 * what was in the cache into the output buffer
-				 */
-				if (c == '&') {
-					if (cache.length() > 0) {
-						evaluateCache(sb, cache);
-					}
-					cache.append(c);
-				} else if (c == ';') {
-					/*
-					 * a semi-colon will trigger evaluation of the cache if it
-					 * exists, otherwise, just dump it
-					 */
-					if (cache.length() > 0) {
-						cache.append(c);
-						evaluateCache(sb, cache);
-					} else {
-						sb.append(c);
-					}
-				} else {
-					/*
-					 * If I am caching (because I had a &) and this is not a
-					 * closing ; char, then put in the cache for eval later,
-					 * otherwise just dump it to the output buffer
-					 */
-					if (cache.length() > 0) {
-						cache.append(c);
-					} else {
-						sb.append(c);
-					}
-				}
-			}
-
-			/* dump any remaining cache into the output */
-			if (cache.length() > 0) {
-				evaluateCache(sb, cache);
-			}
-
-			this.value = sb.toString();
+			this.value = TagEncoder.decode(value);
 			return;
-
 		}
 		this.value = value;
 	}
 
-	private void evaluateCache(final StringBuilder sb, final StringBuilder cache) {
-
-		if (cache.length() == 0) {
-			// do nothing, shouldn't happen
-		} else if (cache.length() < 4) {
-			// it's not actionable, just dump it
-			sb.append(cache);
-		} else if (cache.length() > 6) {
-			// not actionable, dump it
-			sb.append(cache);
-		} else {
-			String cacheString = cache.toString();
-			if (cacheString.equals(AMP)) {
-				sb.append('&');
-			} else if (cacheString.equals(LT)) {
-				sb.append('<');
-			} else if (cacheString.equals(GT)) {
-				sb.append('>');
-			} else if (cacheString.equals(QUOTE)) {
-				sb.append('"');
-			} else if (cacheString.equals(APOS)) {
-				sb.append('`');
-			} else {
-				/* don't know what it is, just dump it as is */
-				sb.append(cache);
-			}
-		}
-		/* clear cache now */
-		cache.delete(0, cache.length());
-
-	}
-
 	public Object getValue() {
 		if (tags != null) {
 			Tag[] outTags = new Tag[tags.size()];
@@ -359,13 +279,18 @@ public class Tag implements Cloneable {
 		// If something isn't a string and you try to send a
 		// non-printable character this way, it will get all messed up.
 		// so...not sure if should be converted to Base64
-		StringBuffer parsed = new StringBuffer();
+		StringBuilder parsed = new StringBuilder();
+		appendTag(parsed);
+		return parsed.toString();
+	}
+
+	private void appendTag(final StringBuilder parsed) {
 		parsed.append(OPEN_START_TAG);
 		parsed.append(tagName);
 		parsed.append(CLOSE_START_TAG);
 		if (tags != null) {
 			for (Tag tag : tags) {
-				parsed.append(tag.parseTag());
+				tag.appendTag(parsed);
 			}
 		} else {
 			parsed.append(escapeChars(value));
@@ -373,37 +298,11 @@ public class Tag implements Cloneable {
 		parsed.append(OPEN_END_TAG);
 		parsed.append(tagName);
 		parsed.append(CLOSE_END_TAG);
-		parsed.append("\n");
-
-		return parsed.toString();
+		parsed.append('\n');
 	}
 
 	String escapeChars(final String out) {
-		if (out == null) {
-			return null;
-		}
-
-		StringBuilder sb = new StringBuilder();
-		char c;
-
-		for (int i = 0; i < out.length(); i++) {
-			c = out.charAt(i);
-			if (c == '&') {
-				sb.append(AMP);
-			} else if (c == '<') {
-				sb.append(LT);
-			} else if (c == '>') {
-				sb.append(GT);
-			} else if (c == '"') {
-				sb.append(QUOTE);
-			} else if (c == '`') {
-				sb.append(APOS);
-			} else {
-				sb.append(c);
-			}
-		}
-
-		return sb.toString();
+		return TagEncoder.escape(out);
 	}
 
 	/**
@@ -430,6 +329,23 @@ public class Tag implements Cloneable {
 
 	public static Tag readNextTag(final byte[] data, final boolean decode,
 			final String encoding) throws UnsupportedEncodingException {
+		return TagParser.parse(data, decode, encoding);
+	}
+
+	/**
+	 * Original <code>String</code> based parser that decodes the entire
+	 * message before finding each sub-tag. This has been replaced by the
+	 * {@link TagParser}, and is retained so the two may be compared by the
+	 * <code>GenQueryDecodingBenchmark</code> in jargon-bench.
+	 *
+	 * @deprecated use {@link #readNextTag(byte[], boolean, String)}
+	 * @throws UnsupportedEncodingException
+	 *             shouldn't throw, already tested for
+	 */
+	@Deprecated
+	public static Tag readNextTagFromString(final byte[] data,
+			final boolean decode, final String encoding)
+			throws UnsupportedEncodingException {
 		if (data == null) {
 			return null;
 		}
@@ -0,0 +1,308 @@
+package org.irods.jargon.core.packinstr;
+
+/**
+ * Character entity codec and UTF-8 serializer for the packing instruction XML
+ * protocol. Most values sent to and received from iRODS hold none of the
+ * characters that are escaped, so both directions first scan the value once
+ * and hand back the same <code>String</code>, with nothing allocated, when
+ * there is nothing to do.
+ * <p/>
+ * A {@link Tag} tree may also be written as UTF-8 bytes straight into a caller
+ * supplied array, such as the output buffer of a connection, giving exactly the
+ * bytes of <code>Tag.parseTag().getBytes("UTF-8")</code> without building the
+ * <code>String</code>. {@link #encodedLength(Tag)} gives the length first, so
+ * that a message header can be sent ahead of the message.
+ */
+public final class TagEncoder {
+
+	private static final String NULL_VALUE = "null";
+
+	private TagEncoder() {
+	}
+
+	/**
+	 * Escape the characters that the protocol sends as entities
+	 *
+	 * @param value
+	 *            <code>String</code> to escape, may be <code>null</code>
+	 * @return <code>String</code> that is the given value when there is
+	 *         nothing to escape
+	 */
+	public static String escape(final String value) {
+		if (value == null) {
+			return null;
+		}
+
+		int length = value.length();
+		int i = 0;
+		while (i < length && entityFor(value.charAt(i)) == null) {
+			i++;
+		}
+
+		if (i == length) {
+			return value;
+		}
+
+		StringBuilder sb = new StringBuilder(length + 16);
+		sb.append(value, 0, i);
+		String entity;
+		char c;
+		for (; i < length; i++) {
+			c = value.charAt(i);
+			entity = entityFor(c);
+			if (entity == null) {
+				sb.append(c);
+			} else {
+				sb.append(entity);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Decode the entities the protocol sends, unknown entities are left as
+	 * they are
+	 *
+	 * @param value
+	 *            <code>String</code> to decode, may be <code>null</code>
+	 * @return <code>String</code> that is the given value when there is
+	 *         nothing to decode
+	 */
+	public static String decode(final String value) {
+		if (value == null) {
+			return null;
+		}
+
+		int i = value.indexOf('&');
+		if (i == -1) {
+			return value;
+		}
+
+		int length = value.length();
+		StringBuilder sb = new StringBuilder(length);
+		sb.append(value, 0, i);
+		char c;
+		for (; i < length; i++) {
+			c = value.charAt(i);
+			if (c != '&') {
+				sb.append(c);
+			} else if (value.startsWith(Tag.AMP, i)) {
+				sb.append('&');
+				i += Tag.AMP.length() - 1;
+			} else if (value.startsWith(Tag.LT, i)) {
+				sb.append('<');
+				i += Tag.LT.length() - 1;
+			} else if (value.startsWith(Tag.GT, i)) {
+				sb.append('>');
+				i += Tag.GT.length() - 1;
+			} else if (value.startsWith(Tag.QUOTE, i)) {
+				sb.append('"');
+				i += Tag.QUOTE.length() - 1;
+			} else if (value.startsWith(Tag.APOS, i)) {
+				sb.append('`');
+				i += Tag.APOS.length() - 1;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Give the number of bytes that {@link #encode(Tag, byte[], int)} will
+	 * write for the tag
+	 *
+	 * @param tag
+	 *            {@link Tag} to serialize
+	 * @return <code>int</code> with the length in bytes of the UTF-8 encoded
+	 *         tag
+	 */
+	public static int encodedLength(final Tag tag) {
+		if (tag == null) {
+			throw new IllegalArgumentException("null tag");
+		}
+
+		// <name>...</name>\n
+		int nameLength = utf8Length(tag.tagName);
+		int length = nameLength * 2 + 6;
+
+		if (tag.tags != null) {
+			for (Tag child : tag.tags) {
+				length += encodedLength(child);
+			}
+		} else if (tag.value == null) {
+			length += NULL_VALUE.length();
+		} else {
+			length += escapedUtf8Length(tag.value);
+		}
+		return length;
+	}
+
+	/**
+	 * Write the tag as UTF-8 into the given array, which must have
+	 * {@link #encodedLength(Tag)} bytes of room from the offset
+	 *
+	 * @param tag
+	 *            {@link Tag} to serialize
+	 * @param dest
+	 *            <code>byte[]</code> to write into
+	 * @param offset
+	 *            <code>int</code> with the position to start writing
+	 * @return <code>int</code> with the position after the last byte written
+	 */
+	public static int encode(final Tag tag, final byte[] dest, final int offset) {
+		if (tag == null) {
+			throw new IllegalArgumentException("null tag");
+		}
+
+		if (dest == null) {
+			throw new IllegalArgumentException("null dest");
+		}
+
+		int position = offset;
+		dest[position++] = Tag.OPEN_START_TAG;
+		position = writeUtf8(tag.tagName, false, dest, position);
+		dest[position++] = Tag.CLOSE_START_TAG;
+
+		if (tag.tags != null) {
+			for (Tag child : tag.tags) {
+				position = encode(child, dest, position);
+			}
+		} else if (tag.value == null) {
+			position = writeUtf8(NULL_VALUE, false, dest, position);
+		} else {
+			position = writeUtf8(tag.value, true, dest, position);
+		}
+
+		dest[position++] = Tag.OPEN_START_TAG;
+		dest[position++] = '/';
+		position = writeUtf8(tag.tagName, false, dest, position);
+		dest[position++] = Tag.CLOSE_END_TAG;
+		dest[position++] = '\n';
+		return position;
+	}
+
+	/**
+	 * Serialize the tag into a new array of exactly the right size
+	 *
+	 * @param tag
+	 *            {@link Tag} to serialize
+	 * @return <code>byte[]</code> with the UTF-8 encoded tag
+	 */
+	public static byte[] encode(final Tag tag) {
+		byte[] encoded = new byte[encodedLength(tag)];
+		encode(tag, encoded, 0);
+		return encoded;
+	}
+
+	private static String entityFor(final char c) {
+		switch (c) {
+		case '&':
+			return Tag.AMP;
+		case '<':
+			return Tag.LT;
+		case '>':
+			return Tag.GT;
+		case '"':
+			return Tag.QUOTE;
+		case '`':
+			return Tag.APOS;
+		default:
+			return null;
+		}
+	}
+
+	private static int escapedUtf8Length(final String value) {
+		int length = 0;
+		String entity;
+		char c;
+		for (int i = 0; i < value.length(); i++) {
+			c = value.charAt(i);
+			entity = entityFor(c);
+			if (entity != null) {
+				length += entity.length();
+			} else if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (isSurrogatePairAt(value, i)) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				// String.getBytes() sends a lone surrogate as '?'
+				length++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	private static int utf8Length(final String value) {
+		int length = 0;
+		char c;
+		for (int i = 0; i < value.length(); i++) {
+			c = value.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (isSurrogatePairAt(value, i)) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				length++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	private static int writeUtf8(final String value, final boolean escape,
+			final byte[] dest, final int offset) {
+		int position = offset;
+		String entity;
+		char c;
+		int codePoint;
+		for (int i = 0; i < value.length(); i++) {
+			c = value.charAt(i);
+			if (escape) {
+				entity = entityFor(c);
+				if (entity != null) {
+					for (int j = 0; j < entity.length(); j++) {
+						dest[position++] = (byte) entity.charAt(j);
+					}
+					continue;
+				}
+			}
+
+			if (c < 0x80) {
+				dest[position++] = (byte) c;
+			} else if (c < 0x800) {
+				dest[position++] = (byte) (0xC0 | (c >> 6));
+				dest[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (isSurrogatePairAt(value, i)) {
+				codePoint = Character.toCodePoint(c, value.charAt(++i));
+				dest[position++] = (byte) (0xF0 | (codePoint >> 18));
+				dest[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				dest[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				dest[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				dest[position++] = '?';
+			} else {
+				dest[position++] = (byte) (0xE0 | (c >> 12));
+				dest[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				dest[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return position;
+	}
+
+	private static boolean isSurrogatePairAt(final String value, final int i) {
+		return Character.isHighSurrogate(value.charAt(i))
+				&& i + 1 < value.length()
+				&& Character.isLowSurrogate(value.charAt(i + 1));
+	}
+
+}
@@ -0,0 +1,456 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass, byte level pull parser for the packing instruction XML protocol
+ * used between Jargon and iRODS. The parser builds a {@link Tag} tree directly
+ * from the raw bytes of a message, either from an array, or by pulling exactly
+ * the message length from an <code>InputStream</code> such as the connection
+ * to the iRODS agent.
+ * <p/>
+ * Unlike the original <code>String</code> based parser, the message is never
+ * decoded as a whole, no regular expressions are run over it, and no substrings
+ * are made for each sub-tag. Tag names are decoded once per message and
+ * shared, and only leaf values are turned into <code>String</code>s. Character
+ * entities are decoded in place on the raw bytes, which is safe as the
+ * entities are plain ASCII.
+ * <p/>
+ * The parser is lenient in the same ways as the original parser. A new line
+ * following a <code>&gt;</code> is ignored, unknown entities are left as-is,
+ * and a truncated message returns the tags that could be read. A parser
+ * instance is not thread safe, and is meant to be used for a single message.
+ */
+public class TagParser {
+
+	private static final int DEFAULT_CHUNK_SIZE = 8192;
+	private static final int NAME_CACHE_SIZE = 64;
+
+	private static final byte OPEN = '<';
+	private static final byte CLOSE = '>';
+	private static final byte SLASH = '/';
+	private static final byte AMPERSAND = '&';
+	private static final byte SEMICOLON = ';';
+	private static final byte NEW_LINE = '\n';
+
+	private static final byte[][] ENTITIES = { Tag.AMP.getBytes(),
+			Tag.LT.getBytes(), Tag.GT.getBytes(), Tag.QUOTE.getBytes(),
+			Tag.APOS.getBytes() };
+	private static final byte[] ENTITY_VALUES = { '&', '<', '>', '"', '`' };
+
+	private final InputStream source;
+	private final boolean decode;
+	private final Charset charset;
+
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private int remaining;
+
+	private byte[] text = new byte[256];
+	private int textLength;
+
+	private byte[] name = new byte[64];
+	private final String[] nameCache = new String[NAME_CACHE_SIZE];
+	private final byte[][] nameCacheBytes = new byte[NAME_CACHE_SIZE][];
+
+	/**
+	 * Parse the first tag in the given data, building the tree of sub-tags
+	 *
+	 * @param data
+	 *            <code>byte[]</code> with the message
+	 * @param decode
+	 *            <code>boolean</code> that will decode character entities in
+	 *            values if <code>true</code>
+	 * @param encoding
+	 *            <code>String</code> with the character set of the message
+	 * @return {@link Tag} that is the root of the message, or
+	 *         <code>null</code> if no tag was found
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported
+	 */
+	public static Tag parse(final byte[] data, final boolean decode,
+			final String encoding) throws UnsupportedEncodingException {
+		if (data == null) {
+			return null;
+		}
+
+		TagParser parser = new TagParser(null, data, 0, decode, encoding);
+		try {
+			return parser.parseMessage();
+		} catch (IOException e) {
+			// cannot happen without a stream
+			throw new IllegalStateException("io exception parsing a byte array",
+					e);
+		}
+	}
+
+	/**
+	 * Parse a message of the given length by pulling bytes from the given
+	 * stream. Exactly <code>length</code> bytes are consumed from the stream,
+	 * even if the message ends before that, so the stream is left positioned
+	 * at the start of the next message.
+	 *
+	 * @param inputStream
+	 *            <code>InputStream</code> positioned at the start of a message
+	 * @param length
+	 *            <code>int</code> with the length of the message in bytes
+	 * @param decode
+	 *            <code>boolean</code> that will decode character entities in
+	 *            values if <code>true</code>
+	 * @param encoding
+	 *            <code>String</code> with the character set of the message
+	 * @return {@link Tag} that is the root of the message, or
+	 *         <code>null</code> if no tag was found
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported, in which case nothing was
+	 *             read from the stream
+	 * @throws IOException
+	 */
+	public static Tag parse(final InputStream inputStream, final int length,
+			final boolean decode, final String encoding) throws IOException {
+		if (inputStream == null) {
+			throw new IllegalArgumentException("null inputStream");
+		}
+
+		if (length < 0) {
+			throw new IllegalArgumentException("negative length");
+		}
+
+		TagParser parser = new TagParser(inputStream, new byte[Math.min(
+				length, DEFAULT_CHUNK_SIZE)], length, decode, encoding);
+		try {
+			return parser.parseMessage();
+		} finally {
+			parser.drain();
+		}
+	}
+
+	private TagParser(final InputStream source, final byte[] buffer,
+			final int remaining, final boolean decode, final String encoding)
+			throws UnsupportedEncodingException {
+		this.charset = lookupCharset(encoding);
+		this.source = source;
+		this.buffer = buffer;
+		this.remaining = remaining;
+		this.decode = decode;
+		this.position = 0;
+		this.limit = source == null ? buffer.length : 0;
+	}
+
+	private static Charset lookupCharset(final String encoding)
+			throws UnsupportedEncodingException {
+		if (encoding == null) {
+			throw new IllegalArgumentException("null encoding");
+		}
+		try {
+			return Charset.forName(encoding);
+		} catch (IllegalCharsetNameException e) {
+			throw new UnsupportedEncodingException(encoding);
+		} catch (UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException(encoding);
+		}
+	}
+
+	/**
+	 * Walk the message, keeping the open tags on a stack rather than
+	 * recursing, and return the first complete top level tag
+	 */
+	private Tag parseMessage() throws IOException {
+		if (!skipPast(OPEN)) {
+			return null;
+		}
+
+		List<Tag> openTags = new ArrayList<Tag>();
+		Tag root = null;
+
+		while (true) {
+			int c = next();
+			if (c == -1) {
+				break;
+			}
+
+			if (c == SLASH) {
+				skipPast(CLOSE);
+				if (openTags.isEmpty()) {
+					break;
+				}
+				Tag closed = openTags.remove(openTags.size() - 1);
+				if (closed.tags == null) {
+					closed.value = textAsString();
+				}
+				if (openTags.isEmpty()) {
+					return closed;
+				}
+			} else {
+				Tag tag = new Tag(readName(c));
+				if (openTags.isEmpty()) {
+					root = tag;
+				} else {
+					openTags.get(openTags.size() - 1).addTag(tag);
+				}
+				openTags.add(tag);
+			}
+
+			if (!readText()) {
+				break;
+			}
+		}
+
+		return root;
+	}
+
+	/**
+	 * Read the rest of a tag name, the first byte has already been consumed
+	 */
+	private String readName(final int first) throws IOException {
+		int length = 0;
+		int hash = 0;
+		int c = first;
+		while (c != -1 && c != CLOSE) {
+			if (length == name.length) {
+				name = grow(name, length);
+			}
+			name[length++] = (byte) c;
+			hash = 31 * hash + c;
+			c = next();
+		}
+
+		int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+		byte[] cachedBytes = nameCacheBytes[slot];
+		if (cachedBytes != null && sameBytes(cachedBytes, name, length)) {
+			return nameCache[slot];
+		}
+
+		byte[] nameBytes = new byte[length];
+		System.arraycopy(name, 0, nameBytes, 0, length);
+		String tagName = new String(nameBytes, charset);
+		nameCacheBytes[slot] = nameBytes;
+		nameCache[slot] = tagName;
+		return tagName;
+	}
+
+	/**
+	 * Collect the raw bytes up to the next <code>&lt;</code>, which is
+	 * consumed.
+	 *
+	 * @return <code>boolean</code> that is <code>false</code> if the end of
+	 *         the message was reached first
+	 */
+	private boolean readText() throws IOException {
+		textLength = 0;
+		boolean first = true;
+
+		while (true) {
+			if (position == limit && !fill()) {
+				return false;
+			}
+
+			int start = position;
+			if (first) {
+				/*
+				 * a new line right after the closing > of a tag is not part of
+				 * the value
+				 */
+				if (buffer[start] == NEW_LINE) {
+					start++;
+				}
+				first = false;
+			}
+
+			int end = start;
+			while (end < limit && buffer[end] != OPEN) {
+				end++;
+			}
+
+			appendText(start, end);
+
+			if (end < limit) {
+				position = end + 1;
+				return true;
+			}
+			position = limit;
+		}
+	}
+
+	private void appendText(final int start, final int end) {
+		int count = end - start;
+		if (count <= 0) {
+			return;
+		}
+		if (textLength + count > text.length) {
+			text = grow(text, textLength + count);
+		}
+		System.arraycopy(buffer, start, text, textLength, count);
+		textLength += count;
+	}
+
+	private String textAsString() {
+		int length = textLength;
+		if (length == 0) {
+			return "";
+		}
+
+		length = removeNewLinesAfterClose(length);
+
+		if (decode) {
+			length = decodeEntities(length);
+		}
+
+		return new String(text, 0, length, charset);
+	}
+
+	/**
+	 * Drop a new line that follows a raw <code>&gt;</code> in a value, which
+	 * matches the behavior of the original parser. This is not expected in
+	 * practice, as iRODS escapes these characters.
+	 */
+	private int removeNewLinesAfterClose(final int length) {
+		int out = 0;
+		for (int in = 0; in < length; in++) {
+			if (text[in] == NEW_LINE && out > 0 && text[out - 1] == CLOSE) {
+				continue;
+			}
+			text[out++] = text[in];
+		}
+		return out;
+	}
+
+	/**
+	 * Decode the character entities in the collected text, in place
+	 */
+	private int decodeEntities(final int length) {
+		int out = 0;
+		int in = 0;
+		while (in < length) {
+			byte b = text[in];
+			if (b == AMPERSAND) {
+				int entityEnd = findEntityEnd(in, length);
+				if (entityEnd != -1) {
+					byte replacement = entityValue(in, entityEnd);
+					if (replacement != 0) {
+						text[out++] = replacement;
+						in = entityEnd + 1;
+						continue;
+					}
+				}
+			}
+			text[out++] = b;
+			in++;
+		}
+		return out;
+	}
+
+	/**
+	 * Find the terminating <code>;</code> of a possible entity starting at the
+	 * given <code>&amp;</code>, or -1 if there is none close enough
+	 */
+	private int findEntityEnd(final int start, final int length) {
+		int maxEnd = Math.min(start + 5, length - 1);
+		for (int i = start + 1; i <= maxEnd; i++) {
+			if (text[i] == SEMICOLON) {
+				return i;
+			}
+			if (text[i] == AMPERSAND) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	private byte entityValue(final int start, final int end) {
+		int entityLength = end - start + 1;
+		for (int i = 0; i < ENTITIES.length; i++) {
+			byte[] entity = ENTITIES[i];
+			if (entity.length != entityLength) {
+				continue;
+			}
+			boolean match = true;
+			for (int j = 1; j < entityLength - 1; j++) {
+				if (entity[j] != text[start + j]) {
+					match = false;
+					break;
+				}
+			}
+			if (match) {
+				return ENTITY_VALUES[i];
+			}
+		}
+		return 0;
+	}
+
+	private boolean skipPast(final byte target) throws IOException {
+		while (true) {
+			if (position == limit && !fill()) {
+				return false;
+			}
+			while (position < limit) {
+				if (buffer[position++] == target) {
+					return true;
+				}
+			}
+		}
+	}
+
+	private int next() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position++] & 0xff;
+	}
+
+	private boolean fill() throws IOException {
+		if (source == null || remaining == 0) {
+			return false;
+		}
+
+		int read = source.read(buffer, 0, Math.min(buffer.length, remaining));
+		if (read == -1) {
+			remaining = 0;
+			return false;
+		}
+
+		remaining -= read;
+		position = 0;
+		limit = read;
+		return true;
+	}
+
+	/**
+	 * Consume whatever is left of the message from the stream
+	 */
+	private void drain() throws IOException {
+		position = limit;
+		while (fill()) {
+			position = limit;
+		}
+	}
+
+	private static boolean sameBytes(final byte[] cached, final byte[] bytes,
+			final int length) {
+		if (cached.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (cached[i] != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] grow(final byte[] bytes, final int needed) {
+		int newLength = Math.max(bytes.length * 2, needed);
+		byte[] grown = new byte[newLength];
+		System.arraycopy(bytes, 0, grown, 0, bytes.length);
+		return grown;
+	}
+
+}
@@ -70,6 +70,11 @@ public class TransferOptions {
 	 * will do the verify even if both values are <code>true</code>
 	 */
 	private boolean computeAndVerifyChecksumAfterTransfer = false;
+	/**
+	 * Number of files moved at the same time when a collection or directory
+	 * is transferred, 1 moves them one after another
+	 */
+	private int maxConcurrentFileTransfers = 1;
 
 	/*
 	 * (non-Javadoc)
@@ -117,6 +122,8 @@ public class TransferOptions {
 		builder.append(computeChecksumAfterTransfer);
 		builder.append(", computeAndVerifyChecksumAfterTransfer=");
 		builder.append(computeAndVerifyChecksumAfterTransfer);
+		builder.append(", maxConcurrentFileTransfers=");
+		builder.append(maxConcurrentFileTransfers);
 		builder.append("]");
 		return builder.toString();
 	}
@@ -152,6 +159,8 @@ public class TransferOptions {
 						.getIntraFileStatusCallbacksNumberCallsInterval());
 				setIntraFileStatusCallbacksTotalBytesInterval(transferOptions
 						.getIntraFileStatusCallbacksTotalBytesInterval());
+				setMaxConcurrentFileTransfers(transferOptions
+						.getMaxConcurrentFileTransfers());
 			}
 		}
 	}
@@ -406,4 +415,28 @@ public class TransferOptions {
 			final long intraFileStatusCallbacksTotalBytesInterval) {
 		this.intraFileStatusCallbacksTotalBytesInterval = intraFileStatusCallbacksTotalBytesInterval;
 	}
+	/**
+	 * Get the number of files moved at the same time, each on its own
+	 * connection, when a collection or directory is transferred
+	 *
+	 * @return <code>int</code> with the number of files transferred at once, 1
+	 *         moves them one after another
+	 */
+	public synchronized int getMaxConcurrentFileTransfers() {
+		return maxConcurrentFileTransfers;
+	}
+
+	/**
+	 * Set the number of files moved at the same time when a collection or
+	 * directory is transferred
+	 *
+	 * @param maxConcurrentFileTransfers
+	 *            <code>int</code> with the number of files transferred at
+	 *            once, 1 moves them one after another
+	 */
+	public synchronized void setMaxConcurrentFileTransfers(
+			final int maxConcurrentFileTransfers) {
+		this.maxConcurrentFileTransfers = maxConcurrentFileTransfers;
+	}
+
 }
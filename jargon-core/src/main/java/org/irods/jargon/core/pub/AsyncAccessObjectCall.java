@@ -0,0 +1,32 @@
+package org.irods.jargon.core.pub;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * A unit of work against iRODS that is run by an
+ * {@link AsyncAccessObjectExecutor} on one of its threads. The call obtains
+ * whatever access objects it needs from the given factory, and may use several
+ * of them, but must not keep them, or any <code>IRODSFile</code> made from
+ * them, once it returns, as the connection behind them is released for the
+ * next call.
+ *
+ * @param <T>
+ *            type of the result of the call
+ */
+public interface AsyncAccessObjectCall<T> {
+
+	/**
+	 * Do the work of the call
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} to obtain access objects
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the call was submitted for
+	 * @return result of the call, which may be <code>null</code>
+	 * @throws JargonException
+	 */
+	T call(IRODSAccessObjectFactory irodsAccessObjectFactory,
+			IRODSAccount irodsAccount) throws JargonException;
+
+}
@@ -0,0 +1,128 @@
+package org.irods.jargon.core.pub;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.domain.DataObject;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+
+/**
+ * Runs calls to the access objects on a bounded pool of threads, so that a few
+ * threads in the caller, such as the event loop of a non blocking web tier, can
+ * have many catalog operations in flight without a thread of their own waiting
+ * on each one.
+ * <p/>
+ * Each call borrows a connection for its account when it starts, and gives it
+ * back to the <code>IRODSProtocolManager</code> of the session when it ends, so
+ * no connection stays tied to a pool thread between calls. Use an
+ * {@link org.irods.jargon.core.connection.IRODSPoolingProtocolManager} so that
+ * giving back and borrowing again does not reconnect and authenticate. At most
+ * one connection per thread is open at any time, so the thread count also
+ * bounds the connections this executor opens.
+ * <p/>
+ * Calls beyond the thread count wait in a bounded queue. A call that finds the
+ * queue full, or the executor shut down, is not run, and its future fails
+ * straight away rather than blocking the caller.
+ */
+public interface AsyncAccessObjectExecutor {
+
+	/**
+	 * Run a call with the access objects for an account
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to connect with
+	 * @param asyncAccessObjectCall
+	 *            {@link AsyncAccessObjectCall} with the work to do
+	 * @param asyncCallListener
+	 *            {@link AsyncCallListener} told of the outcome, may be
+	 *            <code>null</code>
+	 * @return {@link AsyncCallFuture} with the result
+	 */
+	<T> AsyncCallFuture<T> submit(IRODSAccount irodsAccount,
+			AsyncAccessObjectCall<T> asyncAccessObjectCall,
+			AsyncCallListener<T> asyncCallListener);
+
+	/**
+	 * Run a call with the access objects for an account
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to connect with
+	 * @param asyncAccessObjectCall
+	 *            {@link AsyncAccessObjectCall} with the work to do
+	 * @return {@link AsyncCallFuture} with the result
+	 */
+	<T> AsyncCallFuture<T> submit(IRODSAccount irodsAccount,
+			AsyncAccessObjectCall<T> asyncAccessObjectCall);
+
+	/**
+	 * Retrieve the <code>ObjStat</code> for a path, as
+	 * {@link CollectionAndDataObjectListAndSearchAO#retrieveObjectStatForPath(String)}
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to connect with
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path to a collection
+	 *            or data object
+	 * @param asyncCallListener
+	 *            {@link AsyncCallListener} told of the outcome, may be
+	 *            <code>null</code>
+	 * @return {@link AsyncCallFuture} with the {@link ObjStat}
+	 */
+	AsyncCallFuture<ObjStat> retrieveObjectStatForPath(
+			IRODSAccount irodsAccount, String irodsAbsolutePath,
+			AsyncCallListener<ObjStat> asyncCallListener);
+
+	/**
+	 * Find a data object, as {@link DataObjectAO#findByAbsolutePath(String)}
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to connect with
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path to the data object
+	 * @param asyncCallListener
+	 *            {@link AsyncCallListener} told of the outcome, may be
+	 *            <code>null</code>
+	 * @return {@link AsyncCallFuture} with the {@link DataObject}
+	 */
+	AsyncCallFuture<DataObject> findDataObjectByAbsolutePath(
+			IRODSAccount irodsAccount, String absolutePath,
+			AsyncCallListener<DataObject> asyncCallListener);
+
+	/**
+	 * Run a query, as
+	 * {@link IRODSGenQueryExecutor#executeIRODSQueryAndCloseResult(AbstractIRODSGenQuery, int)}
+	 * . A <code>JargonQueryException</code> is given as the cause of the
+	 * <code>JargonException</code> that the call fails with.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} to connect with
+	 * @param irodsQuery
+	 *            {@link AbstractIRODSGenQuery} to run
+	 * @param partialStartIndex
+	 *            <code>int</code> with the offset of the first result
+	 * @param asyncCallListener
+	 *            {@link AsyncCallListener} told of the outcome, may be
+	 *            <code>null</code>
+	 * @return {@link AsyncCallFuture} with the {@link IRODSQueryResultSet}
+	 */
+	AsyncCallFuture<IRODSQueryResultSet> executeIRODSQueryAndCloseResult(
+			IRODSAccount irodsAccount, AbstractIRODSGenQuery irodsQuery,
+			int partialStartIndex,
+			AsyncCallListener<IRODSQueryResultSet> asyncCallListener);
+
+	/**
+	 * @return <code>int</code> with the number of calls waiting for a thread
+	 */
+	int getQueuedCallCount();
+
+	/**
+	 * Stop taking calls. Calls already submitted are run, and their
+	 * connections given back, unless <code>now</code> is set, in which case
+	 * waiting calls are failed and running calls interrupted.
+	 *
+	 * @param now
+	 *            <code>boolean</code> to fail waiting calls
+	 */
+	void shutdown(boolean now);
+
+}
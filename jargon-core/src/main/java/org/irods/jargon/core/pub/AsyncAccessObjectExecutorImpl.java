@@ -0,0 +1,319 @@
+package org.irods.jargon.core.pub;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSPoolingProtocolManager;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.domain.DataObject;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs calls to the access objects on a bounded pool of threads, see
+ * {@link AsyncAccessObjectExecutor}.
+ * <p/>
+ * The connections of a call are found by the <code>IRODSSession</code> in the
+ * <code>ThreadLocal</code> of the pool thread while the call runs, as for any
+ * other caller, and all of them are closed when the call ends, so nothing is
+ * left for the next call on that thread. Unless the session has an
+ * {@link IRODSPoolingProtocolManager}, closing shuts the connections down, and
+ * every call connects and authenticates again, so a warning is logged when the
+ * executor is built without one.
+ */
+public class AsyncAccessObjectExecutorImpl implements
+		AsyncAccessObjectExecutor {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(AsyncAccessObjectExecutorImpl.class);
+
+	/**
+	 * Time an idle pool thread is kept
+	 */
+	static final long THREAD_KEEP_ALIVE_MILLIS = 60000L;
+
+	private static final AtomicInteger executorCount = new AtomicInteger();
+
+	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final ThreadPoolExecutor threadPoolExecutor;
+
+	/**
+	 * Constructor
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that the calls are given,
+	 *            whose session hands out the connections, and should have an
+	 *            {@link IRODSPoolingProtocolManager}
+	 * @param threadCount
+	 *            <code>int</code> with the most calls run at once, which is
+	 *            also the most connections open at once
+	 * @param maxQueuedCalls
+	 *            <code>int</code> with the most calls waiting for a thread
+	 */
+	public AsyncAccessObjectExecutorImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final int threadCount, final int maxQueuedCalls) {
+
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("threadCount must be >= 1");
+		}
+
+		if (maxQueuedCalls < 1) {
+			throw new IllegalArgumentException("maxQueuedCalls must be >= 1");
+		}
+
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		if (!isProtocolManagerPooling(irodsAccessObjectFactory)) {
+			log.warn("async access object executor without an IRODSPoolingProtocolManager, each call will connect and authenticate again");
+		}
+
+		final String threadNamePrefix = "jargon-async-"
+				+ executorCount.incrementAndGet() + "-";
+		threadPoolExecutor = new ThreadPoolExecutor(threadCount, threadCount,
+				THREAD_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(maxQueuedCalls),
+				new ThreadFactory() {
+					private final AtomicInteger threadNumber = new AtomicInteger();
+
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						Thread thread = new Thread(runnable, threadNamePrefix
+								+ threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+		log.info("async access object executor with {} threads", threadCount);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.AsyncAccessObjectExecutor#submit(org.irods.
+	 * jargon.core.connection.IRODSAccount,
+	 * org.irods.jargon.core.pub.AsyncAccessObjectCall,
+	 * org.irods.jargon.core.pub.AsyncCallListener)
+	 */
+	@Override
+	public <T> AsyncCallFuture<T> submit(final IRODSAccount irodsAccount,
+			final AsyncAccessObjectCall<T> asyncAccessObjectCall,
+			final AsyncCallListener<T> asyncCallListener) {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (asyncAccessObjectCall == null) {
+			throw new IllegalArgumentException("null asyncAccessObjectCall");
+		}
+
+		AsyncCallFuture<T> asyncCallFuture = new AsyncCallFuture<T>(
+				new Callable<T>() {
+					@Override
+					public T call() throws JargonException {
+						try {
+							return asyncAccessObjectCall.call(
+									irodsAccessObjectFactory, irodsAccount);
+						} finally {
+							closeConnectionsOfThread();
+						}
+					}
+				}, asyncCallListener);
+
+		try {
+			threadPoolExecutor.execute(asyncCallFuture);
+		} catch (RejectedExecutionException e) {
+			log.warn("async call rejected, queue full or shut down");
+			asyncCallFuture.reject(new JargonException(
+					"async call rejected, queue is full or executor is shut down",
+					e));
+		}
+
+		return asyncCallFuture;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.AsyncAccessObjectExecutor#submit(org.irods.
+	 * jargon.core.connection.IRODSAccount,
+	 * org.irods.jargon.core.pub.AsyncAccessObjectCall)
+	 */
+	@Override
+	public <T> AsyncCallFuture<T> submit(final IRODSAccount irodsAccount,
+			final AsyncAccessObjectCall<T> asyncAccessObjectCall) {
+		return submit(irodsAccount, asyncAccessObjectCall, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.AsyncAccessObjectExecutor#retrieveObjectStatForPath
+	 * (org.irods.jargon.core.connection.IRODSAccount, java.lang.String,
+	 * org.irods.jargon.core.pub.AsyncCallListener)
+	 */
+	@Override
+	public AsyncCallFuture<ObjStat> retrieveObjectStatForPath(
+			final IRODSAccount irodsAccount, final String irodsAbsolutePath,
+			final AsyncCallListener<ObjStat> asyncCallListener) {
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		return submit(irodsAccount, new AsyncAccessObjectCall<ObjStat>() {
+			@Override
+			public ObjStat call(
+					final IRODSAccessObjectFactory irodsAccessObjectFactory,
+					final IRODSAccount irodsAccount) throws JargonException {
+				return irodsAccessObjectFactory
+						.getCollectionAndDataObjectListAndSearchAO(irodsAccount)
+						.retrieveObjectStatForPath(irodsAbsolutePath);
+			}
+		}, asyncCallListener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.AsyncAccessObjectExecutor#
+	 * findDataObjectByAbsolutePath
+	 * (org.irods.jargon.core.connection.IRODSAccount, java.lang.String,
+	 * org.irods.jargon.core.pub.AsyncCallListener)
+	 */
+	@Override
+	public AsyncCallFuture<DataObject> findDataObjectByAbsolutePath(
+			final IRODSAccount irodsAccount, final String absolutePath,
+			final AsyncCallListener<DataObject> asyncCallListener) {
+
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty absolutePath");
+		}
+
+		return submit(irodsAccount, new AsyncAccessObjectCall<DataObject>() {
+			@Override
+			public DataObject call(
+					final IRODSAccessObjectFactory irodsAccessObjectFactory,
+					final IRODSAccount irodsAccount) throws JargonException {
+				return irodsAccessObjectFactory.getDataObjectAO(irodsAccount)
+						.findByAbsolutePath(absolutePath);
+			}
+		}, asyncCallListener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.AsyncAccessObjectExecutor#
+	 * executeIRODSQueryAndCloseResult
+	 * (org.irods.jargon.core.connection.IRODSAccount,
+	 * org.irods.jargon.core.query.AbstractIRODSGenQuery, int,
+	 * org.irods.jargon.core.pub.AsyncCallListener)
+	 */
+	@Override
+	public AsyncCallFuture<IRODSQueryResultSet> executeIRODSQueryAndCloseResult(
+			final IRODSAccount irodsAccount,
+			final AbstractIRODSGenQuery irodsQuery,
+			final int partialStartIndex,
+			final AsyncCallListener<IRODSQueryResultSet> asyncCallListener) {
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		return submit(irodsAccount,
+				new AsyncAccessObjectCall<IRODSQueryResultSet>() {
+					@Override
+					public IRODSQueryResultSet call(
+							final IRODSAccessObjectFactory irodsAccessObjectFactory,
+							final IRODSAccount irodsAccount)
+							throws JargonException {
+						try {
+							return irodsAccessObjectFactory
+									.getIRODSGenQueryExecutor(irodsAccount)
+									.executeIRODSQueryAndCloseResult(
+											irodsQuery, partialStartIndex);
+						} catch (JargonQueryException e) {
+							throw new JargonException("query error", e);
+						}
+					}
+				}, asyncCallListener);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.AsyncAccessObjectExecutor#getQueuedCallCount()
+	 */
+	@Override
+	public int getQueuedCallCount() {
+		return threadPoolExecutor.getQueue().size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.AsyncAccessObjectExecutor#shutdown(boolean)
+	 */
+	@Override
+	public void shutdown(final boolean now) {
+		if (!now) {
+			log.info("shutting down async access object executor");
+			threadPoolExecutor.shutdown();
+			return;
+		}
+
+		log.info("shutting down async access object executor now");
+		List<Runnable> waiting = threadPoolExecutor.shutdownNow();
+		for (Runnable runnable : waiting) {
+			((AsyncCallFuture<?>) runnable).cancel(false);
+		}
+	}
+
+	/**
+	 * Whether connections given back after each call are kept for the next
+	 * call, rather than shut down
+	 */
+	static boolean isProtocolManagerPooling(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		IRODSSession irodsSession = irodsAccessObjectFactory.getIrodsSession();
+		return irodsSession != null
+				&& irodsSession.getIrodsConnectionManager() instanceof IRODSPoolingProtocolManager;
+	}
+
+	/**
+	 * Give back every connection the call left open on this pool thread, so
+	 * none is held between calls
+	 */
+	private void closeConnectionsOfThread() {
+		try {
+			irodsAccessObjectFactory.getIrodsSession().closeSession();
+		} catch (JargonException e) {
+			log.error("error closing connections after async call", e);
+		}
+	}
+
+}
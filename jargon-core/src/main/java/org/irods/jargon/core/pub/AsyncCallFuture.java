@@ -0,0 +1,103 @@
+package org.irods.jargon.core.pub;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The pending result of a call made through an
+ * {@link AsyncAccessObjectExecutor}. This is a plain <code>Future</code>, and
+ * also tells an optional {@link AsyncCallListener} when the call completes, so
+ * that callers need not hold a thread in <code>get()</code>.
+ *
+ * @param <T>
+ *            type of the result of the call
+ */
+public class AsyncCallFuture<T> extends FutureTask<T> {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(AsyncCallFuture.class);
+
+	private final AsyncCallListener<T> asyncCallListener;
+
+	AsyncCallFuture(final Callable<T> callable,
+			final AsyncCallListener<T> asyncCallListener) {
+		super(callable);
+		this.asyncCallListener = asyncCallListener;
+	}
+
+	/**
+	 * Wait for the call, and give its result
+	 *
+	 * @return result of the call
+	 * @throws JargonException
+	 *             thrown by the call, or if the call was cancelled or
+	 *             rejected, or the wait was interrupted
+	 */
+	public T getResult() throws JargonException {
+		try {
+			return get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonException("interrupted waiting for call", e);
+		} catch (CancellationException e) {
+			throw new JargonException("call was cancelled", e);
+		} catch (ExecutionException e) {
+			throw asJargonException(e.getCause());
+		}
+	}
+
+	/**
+	 * Fail the call without running it
+	 */
+	void reject(final JargonException jargonException) {
+		setException(jargonException);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.concurrent.FutureTask#done()
+	 */
+	@Override
+	protected void done() {
+		if (asyncCallListener == null) {
+			return;
+		}
+
+		T result;
+		try {
+			result = getResult();
+		} catch (JargonException e) {
+			notifyFailed(e);
+			return;
+		}
+
+		try {
+			asyncCallListener.callSucceeded(result);
+		} catch (RuntimeException e) {
+			log.error("exception in async call listener, ignored", e);
+		}
+	}
+
+	private void notifyFailed(final JargonException jargonException) {
+		try {
+			asyncCallListener.callFailed(jargonException);
+		} catch (RuntimeException e) {
+			log.error("exception in async call listener, ignored", e);
+		}
+	}
+
+	private static JargonException asJargonException(final Throwable cause) {
+		if (cause instanceof JargonException) {
+			return (JargonException) cause;
+		}
+		return new JargonException("exception in async call", cause);
+	}
+
+}
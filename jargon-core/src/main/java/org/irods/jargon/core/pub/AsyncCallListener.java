@@ -0,0 +1,35 @@
+package org.irods.jargon.core.pub;
+
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * Receives the outcome of a call made through an
+ * {@link AsyncAccessObjectExecutor}. Exactly one of the methods is called,
+ * once, on the thread that completed the call. This is the executor thread
+ * that ran it, the thread that cancelled it, or the submitting thread if the
+ * call was rejected. Implementations should return quickly and must not wait
+ * on other calls to the same executor.
+ *
+ * @param <T>
+ *            type of the result of the call
+ */
+public interface AsyncCallListener<T> {
+
+	/**
+	 * The call completed
+	 *
+	 * @param result
+	 *            result of the call, which may be <code>null</code>
+	 */
+	void callSucceeded(T result);
+
+	/**
+	 * The call failed, was cancelled, or was rejected because the executor was
+	 * full or shut down
+	 *
+	 * @param jargonException
+	 *            {@link JargonException} with the cause
+	 */
+	void callFailed(JargonException jargonException);
+
+}
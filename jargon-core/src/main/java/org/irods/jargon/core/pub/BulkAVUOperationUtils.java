@@ -0,0 +1,123 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.PipelinedResponse;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.DuplicateDataException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generic utils (for the package) to send batches of AVU operations. The
+ * <code>ModAvuMetadataInp</code> requests are pipelined on the connection, so
+ * a batch costs a round trip per window of requests rather than one per AVU.
+ */
+class BulkAVUOperationUtils {
+
+	/**
+	 * Most AVU requests written before reading their replies
+	 */
+	static final int MAX_AVU_REQUESTS_IN_FLIGHT = 64;
+
+	private static final Logger log = LoggerFactory
+			.getLogger(BulkAVUOperationUtils.class);
+
+	private BulkAVUOperationUtils() {
+	}
+
+	/**
+	 * Send the AVU requests pipelined on the given connection, and translate
+	 * each reply into a {@link BulkAVUOperationResponse}
+	 *
+	 * @param irodsProtocol
+	 *            {@link AbstractIRODSMidLevelProtocol} to send on
+	 * @param requests
+	 *            <code>List</code> of {@link ModAvuMetadataInp}
+	 * @param avuData
+	 *            <code>List</code> of {@link AvuData} in the same order as the
+	 *            requests
+	 * @return <code>List</code> of {@link BulkAVUOperationResponse} in the same
+	 *         order as the requests
+	 * @throws JargonException
+	 *             if the connection fails
+	 */
+	static List<BulkAVUOperationResponse> executePipelined(
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final List<ModAvuMetadataInp> requests, final List<AvuData> avuData)
+			throws JargonException {
+
+		if (requests.size() != avuData.size()) {
+			throw new IllegalArgumentException(
+					"requests and avuData are not the same size");
+		}
+
+		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>(
+				requests.size());
+
+		if (requests.isEmpty()) {
+			return responses;
+		}
+
+		log.info("sending {} pipelined avu requests", requests.size());
+		List<PipelinedResponse> replies = irodsProtocol.irodsFunctionPipelined(
+				requests, MAX_AVU_REQUESTS_IN_FLIGHT);
+
+		for (int i = 0; i < replies.size(); i++) {
+			responses.add(translateReply(replies.get(i), avuData.get(i)));
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Build the same response for each of the given AVUs, used when the
+	 * target cannot take metadata and nothing is sent
+	 */
+	static List<BulkAVUOperationResponse> responsesForAll(
+			final List<AvuData> avuData, final ResultStatus resultStatus,
+			final String message) {
+		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>(
+				avuData.size());
+		for (AvuData value : avuData) {
+			responses.add(BulkAVUOperationResponse.instance(resultStatus,
+					value, message == null ? "" : message));
+		}
+		return responses;
+	}
+
+	private static BulkAVUOperationResponse translateReply(
+			final PipelinedResponse reply, final AvuData avuData) {
+
+		if (reply.isSuccessful()) {
+			return BulkAVUOperationResponse.instance(ResultStatus.OK, avuData,
+					"");
+		}
+
+		JargonException je = reply.getException();
+		String message = je.getMessage() == null ? "" : je.getMessage();
+
+		if (je instanceof DuplicateDataException) {
+			log.warn("duplicate AVU:{}", avuData);
+			return BulkAVUOperationResponse.instance(
+					ResultStatus.DUPLICATE_AVU, avuData, message);
+		} else if (je instanceof FileNotFoundException
+				|| je instanceof DataNotFoundException) {
+			log.warn("metadata target missing for AVU:{}", avuData);
+			return BulkAVUOperationResponse.instance(
+					ResultStatus.MISSING_METADATA_TARGET, avuData, message);
+		}
+
+		log.error("error processing AVU:{}", avuData, je);
+		return BulkAVUOperationResponse.instance(ResultStatus.OTHER_ERROR,
+				avuData, message);
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+/**
+ * Represents a response for one path in a batch of data object or collection
+ * operations, such as a batch delete or permission change, includes success or
+ * failure for that path. When the batch sets permissions for many users on one
+ * path, the response also names the user and zone it is for.
+ */
+public class BulkFileOperationResponse {
+
+	public enum ResultStatus {
+		OK, MISSING_TARGET, NO_ACCESS, OPERATION_NOT_SUPPORTED, OTHER_ERROR
+	}
+
+	private final String absolutePath;
+	private final String userName;
+	private final String userZone;
+	private final ResultStatus resultStatus;
+	private final String message;
+
+	public static BulkFileOperationResponse instance(
+			final ResultStatus resultStatus, final String absolutePath,
+			final String message) {
+		return new BulkFileOperationResponse(resultStatus, absolutePath, "",
+				"", message);
+	}
+
+	/**
+	 * Response for the permission of one user or group on a path
+	 */
+	public static BulkFileOperationResponse instanceForUser(
+			final ResultStatus resultStatus, final String absolutePath,
+			final String userName, final String userZone, final String message) {
+		return new BulkFileOperationResponse(resultStatus, absolutePath,
+				userName, userZone, message);
+	}
+
+	private BulkFileOperationResponse(final ResultStatus resultStatus,
+			final String absolutePath, final String userName,
+			final String userZone, final String message) {
+
+		if (resultStatus == null) {
+			throw new IllegalArgumentException("null resultStatus");
+		}
+
+		if (absolutePath == null) {
+			throw new IllegalArgumentException("null absolutePath");
+		}
+
+		if (userName == null) {
+			throw new IllegalArgumentException("null userName");
+		}
+
+		if (userZone == null) {
+			throw new IllegalArgumentException("null userZone");
+		}
+
+		if (message == null) {
+			throw new IllegalArgumentException("null message");
+		}
+
+		this.absolutePath = absolutePath;
+		this.userName = userName;
+		this.userZone = userZone;
+		this.resultStatus = resultStatus;
+		this.message = message;
+
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sBuilder = new StringBuilder();
+		sBuilder.append("BulkFileOperationResponse");
+		sBuilder.append("\n\tabsolutePath:");
+		sBuilder.append(absolutePath);
+		if (!userName.isEmpty()) {
+			sBuilder.append("\n\tuserName:");
+			sBuilder.append(userName);
+			sBuilder.append("\n\tuserZone:");
+			sBuilder.append(userZone);
+		}
+		sBuilder.append("\n\tresultStatus:");
+		sBuilder.append(resultStatus);
+		sBuilder.append("\n\tmessage:");
+		sBuilder.append(message);
+		return sBuilder.toString();
+	}
+
+	/**
+	 * @return the absolutePath as given in the batch
+	 */
+	public String getAbsolutePath() {
+		return absolutePath;
+	}
+
+	/**
+	 * @return the user or group name for a permission set for many users, or
+	 *         an empty <code>String</code> for other operations
+	 */
+	public String getUserName() {
+		return userName;
+	}
+
+	/**
+	 * @return the zone of the user or group as given, which may be empty
+	 */
+	public String getUserZone() {
+		return userZone;
+	}
+
+	/**
+	 * @return the resultStatus
+	 */
+	public ResultStatus getResultStatus() {
+		return resultStatus;
+	}
+
+	/**
+	 * @return the message, which is empty for a successful operation
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+}
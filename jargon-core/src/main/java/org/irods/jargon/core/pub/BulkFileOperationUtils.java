@@ -0,0 +1,137 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.PipelinedResponse;
+import org.irods.jargon.core.exception.CatNoAccessException;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.IRodsPI;
+import org.irods.jargon.core.packinstr.ModAccessControlInp;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.BulkFileOperationResponse.ResultStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generic utils (for the package) to send batches of operations on data
+ * objects and collections. The requests are pipelined on the connection, so a
+ * batch costs a round trip per window of requests rather than one per path.
+ */
+class BulkFileOperationUtils {
+
+	/**
+	 * Most requests written before reading their replies
+	 */
+	static final int MAX_REQUESTS_IN_FLIGHT = 64;
+
+	public static final Logger log = LoggerFactory
+			.getLogger(BulkFileOperationUtils.class);
+
+	private BulkFileOperationUtils() {
+	}
+
+	/**
+	 * Send the requests pipelined on the given connection, and translate each
+	 * reply into a {@link BulkFileOperationResponse}
+	 *
+	 * @param irodsProtocol
+	 *            {@link AbstractIRODSMidLevelProtocol} to send on
+	 * @param requests
+	 *            <code>List</code> of {@link IRodsPI} with no binary data
+	 * @param absolutePaths
+	 *            <code>List</code> of the paths given by the caller, in the
+	 *            same order as the requests
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         same order as the requests
+	 * @throws JargonException
+	 *             if the connection fails
+	 */
+	static List<BulkFileOperationResponse> executePipelined(
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final List<? extends IRodsPI> requests,
+			final List<String> absolutePaths) throws JargonException {
+
+		if (requests.size() != absolutePaths.size()) {
+			throw new IllegalArgumentException(
+					"requests and absolutePaths are not the same size");
+		}
+
+		List<BulkFileOperationResponse> responses = new ArrayList<BulkFileOperationResponse>(
+				requests.size());
+
+		if (requests.isEmpty()) {
+			return responses;
+		}
+
+		log.info("sending {} pipelined requests", requests.size());
+		List<PipelinedResponse> replies = irodsProtocol.irodsFunctionPipelined(
+				requests, MAX_REQUESTS_IN_FLIGHT);
+
+		for (int i = 0; i < replies.size(); i++) {
+			responses.add(translateReply(replies.get(i), absolutePaths.get(i)));
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Translate the reply for one path
+	 */
+	static BulkFileOperationResponse translateReply(
+			final PipelinedResponse reply, final String absolutePath) {
+
+		if (reply.isSuccessful()) {
+			return BulkFileOperationResponse.instance(ResultStatus.OK,
+					absolutePath, "");
+		}
+
+		JargonException je = reply.getException();
+		String message = je.getMessage() == null ? "" : je.getMessage();
+
+		if (je instanceof FileNotFoundException
+				|| je instanceof DataNotFoundException) {
+			log.warn("target missing:{}", absolutePath);
+			return BulkFileOperationResponse.instance(
+					ResultStatus.MISSING_TARGET, absolutePath, message);
+		} else if (je instanceof CatNoAccessException) {
+			log.warn("no access to:{}", absolutePath);
+			return BulkFileOperationResponse.instance(ResultStatus.NO_ACCESS,
+					absolutePath, message);
+		}
+
+		log.error("error processing:{}", absolutePath, je);
+		return BulkFileOperationResponse.instance(ResultStatus.OTHER_ERROR,
+				absolutePath, message);
+	}
+
+	/**
+	 * Give the <code>ModAccessControlInp</code> access level for a permission
+	 * that may be set
+	 *
+	 * @param filePermission
+	 *            {@link FilePermissionEnum} of READ, WRITE, OWN, or NONE
+	 * @return <code>String</code> with the access level
+	 * @throws JargonException
+	 *             if the permission cannot be set
+	 */
+	static String accessLevelForFilePermission(
+			final FilePermissionEnum filePermission) throws JargonException {
+		if (filePermission == FilePermissionEnum.OWN) {
+			return ModAccessControlInp.OWN_PERMISSION;
+		} else if (filePermission == FilePermissionEnum.READ) {
+			return ModAccessControlInp.READ_PERMISSION;
+		} else if (filePermission == FilePermissionEnum.WRITE) {
+			return ModAccessControlInp.WRITE_PERMISSION;
+		} else if (filePermission == FilePermissionEnum.NONE) {
+			return ModAccessControlInp.NULL_PERMISSION;
+		} else {
+			throw new JargonException(
+					"Cannot update permission, currently only READ, WRITE, and OWN, and NONE are supported");
+		}
+	}
+
+}
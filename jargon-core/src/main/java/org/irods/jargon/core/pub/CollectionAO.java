@@ -1,6 +1,7 @@
 package org.irods.jargon.core.pub;
 
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.DuplicateDataException;
@@ -864,6 +865,65 @@ public interface CollectionAO extends FileCatalogObjectAO {
 			boolean recursive, FilePermissionEnum filePermission)
 			throws JargonException;
 
+	/**
+	 * Set the access permission for a user on many collections in one batch.
+	 * The requests are pipelined on the connection, which is much faster than
+	 * setting the permissions one at a time. As with
+	 * {@link #setAccessPermission(String, String, String, boolean, FilePermissionEnum)}
+	 * , only READ, WRITE, OWN, and NONE are supported. Failures for
+	 * individual collections, including a missing collection, are reported in
+	 * the response rather than thrown.
+	 * 
+	 * @param zone
+	 *            <code>String</code> with the zone for the user
+	 * @param absolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of the collections
+	 * @param userName
+	 *            <code>userName</code> (just the name, no name#zone format) for
+	 *            the user
+	 * @param recursive
+	 *            <code>boolean</code> that will set the permission on the
+	 *            children of each collection. This costs a query for each
+	 *            collection, to skip the flag for empty collections.
+	 * @param filePermission
+	 *            {@link FilePermissionEnum}
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given paths
+	 * @throws JargonException
+	 */
+	List<BulkFileOperationResponse> setAccessPermissions(String zone,
+			List<String> absolutePaths, String userName, boolean recursive,
+			FilePermissionEnum filePermission) throws JargonException;
+
+	/**
+	 * Set the access permissions for many users and groups on one collection
+	 * in one batch. The collection is looked up once, and the requests are
+	 * then pipelined on the connection, which is much faster than calling
+	 * {@link #setAccessPermission(String, String, String, boolean, FilePermissionEnum)}
+	 * for each user. Only READ, WRITE, OWN, and NONE are supported. Failures
+	 * for individual users are reported in the response rather than thrown.
+	 * 
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path of the collection
+	 * @param userFilePermissions
+	 *            <code>List</code> of {@link UserFilePermission} with the user
+	 *            name, zone (may be blank), and permission for each user or
+	 *            group
+	 * @param recursive
+	 *            <code>boolean</code> that will set the permissions on the
+	 *            children of the collection
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given permissions, each with the user name
+	 *         and zone it is for
+	 * @throws FileNotFoundException
+	 *             if the collection does not exist
+	 * @throws JargonException
+	 */
+	List<BulkFileOperationResponse> setAccessPermissionsForUsers(
+			String absolutePath, List<UserFilePermission> userFilePermissions,
+			boolean recursive) throws FileNotFoundException, JargonException;
+
 	/**
 	 * Find the iRODS <code>Collection</code> with the given primary key in the
 	 * ICAT
@@ -937,6 +997,40 @@ public interface CollectionAO extends FileCatalogObjectAO {
 	List<BulkAVUOperationResponse> deleteBulkAVUMetadataFromCollection(
 			String absolutePath, List<AvuData> avuData) throws JargonException;
 
+	/**
+	 * Add AVU metadata to many collections in one batch. The requests are
+	 * pipelined on the connection, and failures for individual AVUs are
+	 * reported in the response rather than thrown.
+	 * 
+	 * @param avuDataByAbsolutePath
+	 *            <code>Map</code> of collection absolute path to the
+	 *            <code>List</code> of {@link AvuData} to add to it
+	 * @return <code>Map</code> of absolute path to the
+	 *         {@link BulkAVUOperationResponse} for each AVU, in the order of
+	 *         the given map
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> addBulkAVUMetadataToCollections(
+			Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException;
+
+	/**
+	 * Delete AVU metadata from many collections in one batch. The requests are
+	 * pipelined on the connection, and failures for individual AVUs are
+	 * reported in the response rather than thrown.
+	 * 
+	 * @param avuDataByAbsolutePath
+	 *            <code>Map</code> of collection absolute path to the
+	 *            <code>List</code> of {@link AvuData} to delete from it
+	 * @return <code>Map</code> of absolute path to the
+	 *         {@link BulkAVUOperationResponse} for each AVU, in the order of
+	 *         the given map
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> deleteBulkAVUMetadataFromCollections(
+			Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException;
+
 	/**
 	 * Do a buld delete of all AVUs associated with the collection
 	 * 
@@ -1,7 +1,9 @@
 package org.irods.jargon.core.pub;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
@@ -13,7 +15,6 @@ import org.irods.jargon.core.packinstr.ModAccessControlInp;
 import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
 import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.protovalues.UserTypeEnum;
-import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
 import org.irods.jargon.core.pub.RuleProcessingAO.RuleProcessingType;
 import org.irods.jargon.core.pub.aohelper.CollectionAOHelper;
 import org.irods.jargon.core.pub.domain.AvuData;
@@ -409,36 +410,10 @@ public final class CollectionAOImpl extends FileCatalogObjectAOImpl implements
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
-
-		for (AvuData value : avuData) {
-			try {
-				addAVUMetadata(absolutePath, value);
-			} catch (FileNotFoundException dnf) {
-				log.error(
-						"FileNotFoundException when adding an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-			} catch (DuplicateDataException dde) {
-				log.error(
-						"DuplicateDataException when adding an AVU, catch and add to response data",
-						dde);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.DUPLICATE_AVU, value, dde.getMessage()));
-				continue;
-
-			}
-
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
-		}
-
-		log.info("...complete");
-		return responses;
+		Map<String, List<AvuData>> avuDataByAbsolutePath = new LinkedHashMap<String, List<AvuData>>();
+		avuDataByAbsolutePath.put(absolutePath, avuData);
+		return processBulkAVUOperation(avuDataByAbsolutePath, true).get(
+				absolutePath);
 	}
 
 	/*
@@ -455,29 +430,126 @@ public final class CollectionAOImpl extends FileCatalogObjectAOImpl implements
 
 		log.info("deleteBulkAVUMetadataToCollection()");
 
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty absolutePath");
+		}
+
 		if (avuData == null || avuData.isEmpty()) {
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		Map<String, List<AvuData>> avuDataByAbsolutePath = new LinkedHashMap<String, List<AvuData>>();
+		avuDataByAbsolutePath.put(absolutePath, avuData);
+		return processBulkAVUOperation(avuDataByAbsolutePath, false).get(
+				absolutePath);
+	}
 
-		for (AvuData value : avuData) {
-			try {
-				deleteAVUMetadata(absolutePath, value);
-			} catch (FileNotFoundException dnf) {
-				log.error(
-						"FileNotFoundException when deleti an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.CollectionAO#addBulkAVUMetadataToCollections
+	 * (java.util.Map)
+	 */
+	@Override
+	public Map<String, List<BulkAVUOperationResponse>> addBulkAVUMetadataToCollections(
+			final Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException {
+
+		log.info("addBulkAVUMetadataToCollections()");
 
+		if (avuDataByAbsolutePath == null) {
+			throw new IllegalArgumentException("null avuDataByAbsolutePath");
+		}
+
+		return processBulkAVUOperation(avuDataByAbsolutePath, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.CollectionAO#deleteBulkAVUMetadataFromCollections
+	 * (java.util.Map)
+	 */
+	@Override
+	public Map<String, List<BulkAVUOperationResponse>> deleteBulkAVUMetadataFromCollections(
+			final Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException {
+
+		log.info("deleteBulkAVUMetadataFromCollections()");
+
+		if (avuDataByAbsolutePath == null) {
+			throw new IllegalArgumentException("null avuDataByAbsolutePath");
+		}
+
+		return processBulkAVUOperation(avuDataByAbsolutePath, false);
+	}
+
+	/**
+	 * Send all of the AVU requests pipelined on the connection
+	 * 
+	 * @param avuDataByAbsolutePath
+	 *            <code>Map</code> of collection path to AVUs
+	 * @param add
+	 *            <code>boolean</code> that is <code>true</code> to add the
+	 *            AVUs, <code>false</code> to delete them
+	 * @return <code>Map</code> of collection path to responses, in the order
+	 *         of the given map
+	 * @throws JargonException
+	 */
+	private Map<String, List<BulkAVUOperationResponse>> processBulkAVUOperation(
+			final Map<String, List<AvuData>> avuDataByAbsolutePath,
+			final boolean add) throws JargonException {
+
+		Map<String, List<BulkAVUOperationResponse>> responses = new LinkedHashMap<String, List<BulkAVUOperationResponse>>();
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>();
+		List<AvuData> requestAvuData = new ArrayList<AvuData>();
+		List<String> requestPaths = new ArrayList<String>();
+
+		for (Map.Entry<String, List<AvuData>> entry : avuDataByAbsolutePath
+				.entrySet()) {
+
+			String absolutePath = entry.getKey();
+			List<AvuData> avuData = entry.getValue();
+
+			if (absolutePath == null || absolutePath.isEmpty()) {
+				throw new IllegalArgumentException("null or empty absolutePath");
+			}
+
+			if (avuData == null) {
+				throw new IllegalArgumentException("null avuData for:"
+						+ absolutePath);
 			}
 
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
+			MiscIRODSUtils.checkPathSizeForMax(absolutePath);
+			responses.put(absolutePath,
+					new ArrayList<BulkAVUOperationResponse>(avuData.size()));
+
+			for (AvuData value : avuData) {
+				if (value == null) {
+					throw new IllegalArgumentException("null AVU data");
+				}
+
+				if (add) {
+					requests.add(ModAvuMetadataInp
+							.instanceForAddCollectionMetadata(absolutePath,
+									value));
+				} else {
+					requests.add(ModAvuMetadataInp
+							.instanceForDeleteCollectionMetadata(absolutePath,
+									value));
+				}
+				requestAvuData.add(value);
+				requestPaths.add(absolutePath);
+			}
+		}
+
+		List<BulkAVUOperationResponse> results = BulkAVUOperationUtils
+				.executePipelined(getIRODSProtocol(), requests, requestAvuData);
+
+		for (int i = 0; i < results.size(); i++) {
+			responses.get(requestPaths.get(i)).add(results.get(i));
 		}
 
 		log.info("...complete");
@@ -1462,6 +1534,66 @@ public final class CollectionAOImpl extends FileCatalogObjectAOImpl implements
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.CollectionAO#setAccessPermissions(java.lang
+	 * .String, java.util.List, java.lang.String, boolean,
+	 * org.irods.jargon.core.protovalues.FilePermissionEnum)
+	 */
+	@Override
+	public List<BulkFileOperationResponse> setAccessPermissions(
+			final String zone, final List<String> absolutePaths,
+			final String userName, final boolean recursive,
+			final FilePermissionEnum filePermission) throws JargonException {
+
+		log.info("setAccessPermissions()");
+		return processBulkAccessPermission(zone, absolutePaths, userName,
+				recursive, filePermission);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.CollectionAO#setAccessPermissionsForUsers(java
+	 * .lang.String, java.util.List, boolean)
+	 */
+	@Override
+	public List<BulkFileOperationResponse> setAccessPermissionsForUsers(
+			final String absolutePath,
+			final List<UserFilePermission> userFilePermissions,
+			final boolean recursive) throws FileNotFoundException,
+			JargonException {
+
+		log.info("setAccessPermissionsForUsers()");
+		return processAccessPermissionsForUsers(absolutePath,
+				userFilePermissions, recursive);
+	}
+
+	/**
+	 * The collection was already found by the batch, so only the count of
+	 * children from {@link #adjustRecursiveOption(String, boolean)} is needed
+	 * 
+	 * @see org.irods.jargon.core.pub.FileCatalogObjectAOImpl#recursiveFlagForPath
+	 *      (java.lang.String, boolean)
+	 */
+	@Override
+	protected boolean recursiveFlagForPath(final String absolutePath,
+			final boolean recursive) throws JargonException {
+		if (!recursive) {
+			return false;
+		}
+
+		if (collectionAndDataObjectListAndSearchAO
+				.countDataObjectsAndCollectionsUnderPath(absolutePath) == 0) {
+			log.info("overridding recursive flag, file has no children");
+			return false;
+		}
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1,6 +1,7 @@
 package org.irods.jargon.core.pub;
 
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
@@ -513,6 +514,24 @@ public interface CollectionAndDataObjectListAndSearchAO extends
 	ObjStat retrieveObjectStatForPath(String irodsAbsolutePath)
 			throws FileNotFoundException, JargonException;
 
+	/**
+	 * Retrieve the <code>ObjStat</code> for each of many absolute paths in
+	 * iRODS. The rsObjStat requests are pipelined on the connection, which is
+	 * much faster than retrieving them one at a time.
+	 * 
+	 * @param irodsAbsolutePaths
+	 *            <code>List</code> of <code>String</code> with absolute paths
+	 *            to iRODS collections or data objects
+	 * @return <code>Map</code> of absolute path to {@link ObjStat}, in the
+	 *         order of the given list. A path that is not found, which can
+	 *         also be due to ACL's, is left out of the map.
+	 * @throws JargonException
+	 *             for any other error, which is thrown after all of the
+	 *             requests are done
+	 */
+	Map<String, ObjStat> retrieveObjectStatsForPaths(
+			List<String> irodsAbsolutePaths) throws JargonException;
+
 	/**
 	 * Return the <code>CollectionAndDataObjectListingEntry</code> that is
 	 * associated with the given iRODS absolute path. This is equivalent to
@@ -1,10 +1,13 @@
 package org.irods.jargon.core.pub;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.PipelinedResponse;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
@@ -1622,6 +1625,80 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 
 		log.debug("response from objStat: {}", response.parseTag());
 
+		ObjStat objStat = objStatFromResponse(irodsAbsolutePath, response);
+		log.info(objStat.toString());
+		return objStat;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * retrieveObjectStatsForPaths(java.util.List)
+	 */
+	@Override
+	public Map<String, ObjStat> retrieveObjectStatsForPaths(
+			final List<String> irodsAbsolutePaths) throws JargonException {
+
+		log.info("retrieveObjectStatsForPaths()");
+
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		List<DataObjInpForObjStat> requests = new ArrayList<DataObjInpForObjStat>(
+				irodsAbsolutePaths.size());
+		for (String irodsAbsolutePath : irodsAbsolutePaths) {
+			if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty irodsAbsolutePath in list");
+			}
+			MiscIRODSUtils.checkPathSizeForMax(irodsAbsolutePath);
+			requests.add(DataObjInpForObjStat.instance(irodsAbsolutePath));
+		}
+
+		log.info("sending {} pipelined objStat requests", requests.size());
+		List<PipelinedResponse> responses = getIRODSProtocol()
+				.irodsFunctionPipelined(requests, BulkFileOperationUtils.MAX_REQUESTS_IN_FLIGHT);
+
+		Map<String, ObjStat> objStats = new LinkedHashMap<String, ObjStat>();
+		JargonException firstError = null;
+		for (int i = 0; i < responses.size(); i++) {
+			PipelinedResponse response = responses.get(i);
+			String irodsAbsolutePath = irodsAbsolutePaths.get(i);
+			if (response.isSuccessful()) {
+				objStats.put(irodsAbsolutePath, objStatFromResponse(
+						irodsAbsolutePath, response.getResponse()));
+			} else if (response.getException() instanceof DataNotFoundException
+					|| response.getException() instanceof FileNotFoundException) {
+				log.info("no objStat for:{}", irodsAbsolutePath);
+			} else if (firstError == null) {
+				firstError = response.getException();
+			}
+		}
+
+		if (firstError != null) {
+			log.error("error in pipelined objStat", firstError);
+			throw firstError;
+		}
+
+		return objStats;
+	}
+
+	/**
+	 * Build the <code>ObjStat</code> from the reply to an rsObjStat request
+	 * 
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the path that was asked for
+	 * @param response
+	 *            {@link Tag} with the reply
+	 * @return {@link ObjStat}
+	 * @throws JargonException
+	 */
+	static ObjStat objStatFromResponse(final String irodsAbsolutePath,
+			final Tag response) throws JargonException {
+
 		/**
 		 * For spec cols - soft link - phyPath = parent canonical dir -objPath =
 		 * canonical path
@@ -1729,8 +1806,6 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 		 * if (this.isInstrumented()) { stopWatch.stop(); }
 		 */
 
-		log.info(objStat.toString());
 		return objStat;
-
 	}
 }
@@ -0,0 +1,764 @@
+package org.irods.jargon.core.pub;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.ObjStatCache;
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.connection.PipelinedResponse;
+import org.irods.jargon.core.exception.CatalogAlreadyHasItemByThatNameException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
+import org.irods.jargon.core.packinstr.CollInp;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves the files of a local directory or an iRODS collection several
+ * at a time, each on its own connection, for collections of many small
+ * files where the time is in the round trips for each file rather than
+ * in moving the data. Used internally by
+ * {@link org.irods.jargon.core.pub.DataTransferOperations} when the
+ * transfer options ask for more than one concurrent file transfer.
+ * <p/>
+ * The tree is walked first. For a put, the collections are then made
+ * in one pipelined batch on the caller's connection, parents before
+ * children, so the workers never need to make a collection. The files
+ * are then handed out to worker threads, each transferring one file
+ * at a time with the same single file processing as a sequential
+ * transfer, so skips, single file restarts and errors behave the same.
+ * <p/>
+ * The callback listener is never called from two threads at once, and
+ * the callbacks for one file arrive in their usual order, though the
+ * callbacks for different files interleave. The file complete callback
+ * of each file is held back until every file before it in the walk has
+ * finished, so the last completed file the listener sees always has
+ * every earlier file done, as in a sequential transfer, and may be used
+ * as the restart point of a later transfer. A cancel or pause stops the
+ * workers after the files they are moving, with one callback for the
+ * interruption, and the completions held behind an unfinished file are
+ * not reported. Without a listener, the first error stops the transfer
+ * and is thrown, as in a sequential transfer.
+ * <p/>
+ * The restart filter of the transfer control block passes files by
+ * their order in the walk, so a transfer with a restart point is not
+ * given to this engine, and is done sequentially.
+ */
+final class ConcurrentCollectionTransferEngine {
+
+	static Logger log = LoggerFactory
+			.getLogger(ConcurrentCollectionTransferEngine.class);
+
+	static final int MAX_MKDIR_REQUESTS_IN_FLIGHT = 64;
+
+	private final IRODSSession irodsSession;
+	private final IRODSAccount irodsAccount;
+	private final int maxConcurrentFiles;
+	private final PipelineConfiguration pipelineConfiguration;
+	private volatile double lastFilesPerSecond = 0.0d;
+
+	/**
+	 * Initializer creates an instance of this class.
+	 *
+	 * @param irodsSession
+	 *            <code>IRODSSession</code> that can connect to iRODS
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> for the transfer, each worker opens
+	 *            its own connection with this account
+	 * @param maxConcurrentFiles
+	 *            <code>int</code> with the number of files moved at once
+	 * @return
+	 * @throws JargonException
+	 */
+	static ConcurrentCollectionTransferEngine instance(
+			final IRODSSession irodsSession, final IRODSAccount irodsAccount,
+			final int maxConcurrentFiles) throws JargonException {
+		return new ConcurrentCollectionTransferEngine(irodsSession,
+				irodsAccount, maxConcurrentFiles);
+	}
+
+	private ConcurrentCollectionTransferEngine(final IRODSSession irodsSession,
+			final IRODSAccount irodsAccount, final int maxConcurrentFiles)
+			throws JargonException {
+		if (irodsSession == null || irodsAccount == null) {
+			throw new JargonException("null irodsSession or irodsAccount");
+		}
+
+		if (maxConcurrentFiles < 1) {
+			throw new IllegalArgumentException("maxConcurrentFiles must be >= 1");
+		}
+
+		this.irodsSession = irodsSession;
+		this.irodsAccount = irodsAccount;
+		this.maxConcurrentFiles = maxConcurrentFiles;
+		pipelineConfiguration = irodsSession
+				.buildPipelineConfigurationBasedOnJargonProperties();
+	}
+
+	/**
+	 * Put the contents of a local directory into an existing iRODS collection
+	 *
+	 * @param sourceDirectory
+	 *            <code>File</code> with the local directory whose contents are
+	 *            put
+	 * @param targetIrodsCollection
+	 *            {@link IRODSFile} with the collection, which must exist, that
+	 *            will hold the contents
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener}, may be
+	 *            <code>null</code>
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock}, required
+	 * @throws JargonException
+	 */
+	void put(
+			final File sourceDirectory,
+			final IRODSFile targetIrodsCollection,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (sourceDirectory == null) {
+			throw new IllegalArgumentException("null sourceDirectory");
+		}
+
+		if (targetIrodsCollection == null) {
+			throw new IllegalArgumentException("null targetIrodsCollection");
+		}
+
+		if (transferControlBlock == null) {
+			throw new IllegalArgumentException("null transferControlBlock");
+		}
+
+		log.info("concurrent put of directory: {}",
+				sourceDirectory.getAbsolutePath());
+		log.info("    into iRODS collection: {}",
+				targetIrodsCollection.getAbsolutePath());
+
+		TransferStatusCallbackListener listener = serialize(transferStatusCallbackListener);
+		List<File> sourceDirectories = new ArrayList<File>();
+		List<String> collections = new ArrayList<String>();
+		List<TransferWork> work = new ArrayList<TransferWork>();
+		collectPutWork(sourceDirectory, targetIrodsCollection.getAbsolutePath(),
+				targetIrodsCollection.getResource(), sourceDirectories,
+				collections, work, transferControlBlock);
+
+		if (transferControlBlock.isCancelled()) {
+			log.info("cancelled while listing the source directory");
+			return;
+		}
+
+		createCollections(sourceDirectories, collections,
+				targetIrodsCollection, listener, transferControlBlock);
+		transferConcurrently(work, listener, transferControlBlock);
+	}
+
+	/**
+	 * Get the contents of an iRODS collection into an existing local
+	 * directory
+	 *
+	 * @param sourceIrodsCollection
+	 *            {@link IRODSFile} with the collection whose contents are got
+	 * @param targetLocalDirectory
+	 *            <code>File</code> with the local directory, which must exist,
+	 *            that will hold the contents
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener}, may be
+	 *            <code>null</code>
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock}, required
+	 * @throws JargonException
+	 */
+	void get(
+			final IRODSFile sourceIrodsCollection,
+			final File targetLocalDirectory,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (sourceIrodsCollection == null) {
+			throw new IllegalArgumentException("null sourceIrodsCollection");
+		}
+
+		if (targetLocalDirectory == null) {
+			throw new IllegalArgumentException("null targetLocalDirectory");
+		}
+
+		if (transferControlBlock == null) {
+			throw new IllegalArgumentException("null transferControlBlock");
+		}
+
+		log.info("concurrent get of collection: {}",
+				sourceIrodsCollection.getAbsolutePath());
+		log.info("    into local directory: {}",
+				targetLocalDirectory.getAbsolutePath());
+
+		TransferStatusCallbackListener listener = serialize(transferStatusCallbackListener);
+		List<TransferWork> work = new ArrayList<TransferWork>();
+		collectGetWork(sourceIrodsCollection, targetLocalDirectory,
+				sourceIrodsCollection.getResource(), work,
+				transferControlBlock);
+
+		if (transferControlBlock.isCancelled()) {
+			log.info("cancelled while listing the source collection");
+			return;
+		}
+
+		transferConcurrently(work, listener, transferControlBlock);
+	}
+
+	/**
+	 * @return <code>double</code> with the files per second of the last put or
+	 *         get, counting skipped files
+	 */
+	double getLastFilesPerSecond() {
+		return lastFilesPerSecond;
+	}
+
+	private void collectPutWork(final File directory,
+			final String targetCollectionPath, final String resource,
+			final List<File> sourceDirectories, final List<String> collections,
+			final List<TransferWork> work,
+			final TransferControlBlock transferControlBlock) {
+
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			if (checkCancelled(transferControlBlock)) {
+				return;
+			}
+
+			String targetPath = targetCollectionPath + "/" + file.getName();
+			if (file.isDirectory()) {
+				sourceDirectories.add(file);
+				collections.add(targetPath);
+				collectPutWork(file, targetPath, resource, sourceDirectories,
+						collections, work, transferControlBlock);
+			} else {
+				work.add(new PutWork(work.size(), file, targetCollectionPath,
+						targetPath, resource));
+			}
+		}
+	}
+
+	private void collectGetWork(final IRODSFile collection,
+			final File localDirectory, final String resource,
+			final List<TransferWork> work,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		for (File child : collection.listFiles()) {
+			if (checkCancelled(transferControlBlock)) {
+				return;
+			}
+
+			IRODSFile irodsChild = (IRODSFile) child;
+			if (irodsChild.isDirectory()) {
+				File newSubDirectory = new File(localDirectory,
+						irodsChild.getName());
+				if (!newSubDirectory.mkdirs()) {
+					log.warn("unable to make directories in local file system, log and proceed");
+				}
+				collectGetWork(irodsChild, newSubDirectory, resource, work,
+						transferControlBlock);
+			} else {
+				work.add(new GetWork(work.size(), irodsChild.getAbsolutePath(),
+						resource, localDirectory));
+			}
+		}
+	}
+
+	private boolean checkCancelled(
+			final TransferControlBlock transferControlBlock) {
+		if (Thread.interrupted()) {
+			log.info("cancellation detected, set cancelled in tcb");
+			transferControlBlock.setCancelled(true);
+		}
+		return transferControlBlock.isCancelled();
+	}
+
+	/**
+	 * Make the collections in one pipelined batch, in the order listed, which
+	 * puts parents before children. Collections that already exist are fine.
+	 */
+	private void createCollections(final List<File> sourceDirectories,
+			final List<String> collections,
+			final IRODSFile targetIrodsCollection,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (collections.isEmpty()) {
+			return;
+		}
+
+		log.info("creating {} collections", collections.size());
+		List<CollInp> requests = new ArrayList<CollInp>(collections.size());
+		for (String collection : collections) {
+			requests.add(CollInp.instanceForCreateCollection(collection));
+		}
+
+		List<PipelinedResponse> responses;
+		try {
+			responses = irodsSession.currentConnection(irodsAccount)
+					.irodsFunctionPipelined(requests,
+							MAX_MKDIR_REQUESTS_IN_FLIGHT);
+		} finally {
+			ObjStatCache objStatCache = irodsSession.getObjStatCache();
+			if (objStatCache != null) {
+				objStatCache.invalidatePathAndChildren(irodsAccount,
+						targetIrodsCollection.getAbsolutePath());
+			}
+		}
+
+		TransferOperationsHelper transferOperationsHelper = null;
+		for (int i = 0; i < responses.size(); i++) {
+			PipelinedResponse response = responses.get(i);
+			if (response.isSuccessful()
+					|| response.getException() instanceof CatalogAlreadyHasItemByThatNameException) {
+				continue;
+			}
+
+			if (transferControlBlock.isCancelled()) {
+				return;
+			}
+
+			if (transferOperationsHelper == null) {
+				transferOperationsHelper = TransferOperationsHelper.instance(
+						irodsSession, irodsAccount);
+			}
+
+			IRODSFile failedCollection = IRODSAccessObjectFactoryImpl
+					.instance(irodsSession).getIRODSFileFactory(irodsAccount)
+					.instanceIRODSFile(collections.get(i));
+			transferOperationsHelper.processRecursivePutException(
+					sourceDirectories.get(i), transferStatusCallbackListener,
+					failedCollection, transferControlBlock,
+					response.getException());
+		}
+	}
+
+	private void transferConcurrently(final List<TransferWork> work,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException {
+
+		if (work.isEmpty()) {
+			log.info("no files to transfer");
+			return;
+		}
+
+		final ConcurrentLinkedQueue<TransferWork> queue = new ConcurrentLinkedQueue<TransferWork>(
+				work);
+		final AtomicBoolean stopped = new AtomicBoolean(false);
+		final AtomicReference<JargonException> failure = new AtomicReference<JargonException>();
+		final CompletionSequencer completionSequencer = transferStatusCallbackListener == null ? null
+				: new CompletionSequencer(transferStatusCallbackListener,
+						work.size());
+		int workerCount = Math.min(maxConcurrentFiles, work.size());
+		int filesBefore = transferControlBlock.getTotalFilesTransferredSoFar();
+		long startNanos = System.nanoTime();
+
+		log.info("transferring {} files with {} workers", work.size(),
+				workerCount);
+
+		List<Thread> workers = new ArrayList<Thread>(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			Thread worker = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					transferUntilDone(queue, stopped, failure,
+							transferStatusCallbackListener,
+							completionSequencer, transferControlBlock);
+				}
+			}, "jargon-collection-transfer-" + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+
+		for (Thread worker : workers) {
+			while (true) {
+				try {
+					worker.join();
+					break;
+				} catch (InterruptedException e) {
+					log.info("interrupted waiting for transfer, set cancelled in tcb");
+					transferControlBlock.setCancelled(true);
+				}
+			}
+		}
+
+		long elapsedNanos = Math.max(1L, System.nanoTime() - startNanos);
+		int files = transferControlBlock.getTotalFilesTransferredSoFar()
+				- filesBefore;
+		lastFilesPerSecond = files * 1000000000.0d / elapsedNanos;
+		log.info("transferred {} files in {} ms, {} files/sec", new Object[] {
+				files, elapsedNanos / 1000000L, lastFilesPerSecond });
+
+		if (pipelineConfiguration.isInstrument()) {
+			Instrumentation.record(
+					Instrumentation.COLLECTION_TRANSFER_FILES_PER_SECOND,
+					(long) lastFilesPerSecond);
+		}
+
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+	}
+
+	/**
+	 * Run in each worker, taking files until there are none left or the
+	 * transfer is stopped. The connection for the worker is closed at the end.
+	 */
+	private void transferUntilDone(
+			final ConcurrentLinkedQueue<TransferWork> queue,
+			final AtomicBoolean stopped,
+			final AtomicReference<JargonException> failure,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final CompletionSequencer completionSequencer,
+			final TransferControlBlock transferControlBlock) {
+
+		try {
+			TransferOperationsHelper transferOperationsHelper = TransferOperationsHelper
+					.instance(irodsSession, irodsAccount);
+			IRODSFileFactory irodsFileFactory = IRODSAccessObjectFactoryImpl
+					.instance(irodsSession).getIRODSFileFactory(irodsAccount);
+			TransferWork transferWork;
+
+			while (!stopped.get() && (transferWork = queue.poll()) != null) {
+
+				if (transferControlBlock.isCancelled()
+						|| transferControlBlock.isPaused()) {
+					if (stopped.compareAndSet(false, true)
+							&& transferStatusCallbackListener != null) {
+						log.info("will notify pause or cancel for this transfer");
+						transferWork.notifyPauseOrCancel(
+								transferOperationsHelper, irodsFileFactory,
+								transferStatusCallbackListener,
+								transferControlBlock);
+					}
+					break;
+				}
+
+				if (pipelineConfiguration.getSocketRenewalIntervalInSeconds() > 0) {
+					irodsSession
+							.currentConnectionCheckRenewalOfSocket(irodsAccount);
+				}
+
+				if (completionSequencer == null) {
+					transferWork.transfer(transferOperationsHelper,
+							irodsFileFactory, null, transferControlBlock);
+				} else {
+					transferWork.transfer(transferOperationsHelper,
+							irodsFileFactory, completionSequencer
+									.listenerFor(transferWork.sequence),
+							transferControlBlock);
+					completionSequencer.finished(transferWork.sequence);
+				}
+			}
+		} catch (JargonException je) {
+			stopAfterFailure(stopped, failure, transferControlBlock, je);
+		} catch (Exception e) {
+			log.info(
+					"unanticipated exception will be transformed into a Jargon exception",
+					e);
+			stopAfterFailure(stopped, failure, transferControlBlock,
+					new JargonException(e));
+		} finally {
+			try {
+				irodsSession.closeSession(irodsAccount);
+			} catch (JargonException e) {
+				log.warn("error closing connection for transfer worker", e);
+			}
+		}
+	}
+
+	private void stopAfterFailure(final AtomicBoolean stopped,
+			final AtomicReference<JargonException> failure,
+			final TransferControlBlock transferControlBlock,
+			final JargonException je) {
+		stopped.set(true);
+		if (!transferControlBlock.isCancelled()) {
+			log.error("exception in concurrent transfer, stopping", je);
+			failure.compareAndSet(null, je);
+		}
+	}
+
+	private TransferStatusCallbackListener serialize(
+			final TransferStatusCallbackListener transferStatusCallbackListener) {
+		if (transferStatusCallbackListener == null) {
+			return null;
+		}
+		return new SerializingTransferStatusCallbackListener(
+				transferStatusCallbackListener);
+	}
+
+	/**
+	 * A file to be moved by a worker
+	 */
+	private static abstract class TransferWork {
+
+		/**
+		 * position of the file in the walk of the tree
+		 */
+		final int sequence;
+
+		TransferWork(final int sequence) {
+			this.sequence = sequence;
+		}
+
+		abstract void transfer(
+				TransferOperationsHelper transferOperationsHelper,
+				IRODSFileFactory irodsFileFactory,
+				TransferStatusCallbackListener transferStatusCallbackListener,
+				TransferControlBlock transferControlBlock)
+				throws JargonException;
+
+		abstract void notifyPauseOrCancel(
+				TransferOperationsHelper transferOperationsHelper,
+				IRODSFileFactory irodsFileFactory,
+				TransferStatusCallbackListener transferStatusCallbackListener,
+				TransferControlBlock transferControlBlock)
+				throws JargonException;
+	}
+
+	private static final class PutWork extends TransferWork {
+		private final File sourceFile;
+		private final String targetCollectionPath;
+		private final String targetPath;
+		private final String resource;
+
+		PutWork(final int sequence, final File sourceFile,
+				final String targetCollectionPath, final String targetPath,
+				final String resource) {
+			super(sequence);
+			this.sourceFile = sourceFile;
+			this.targetCollectionPath = targetCollectionPath;
+			this.targetPath = targetPath;
+			this.resource = resource;
+		}
+
+		@Override
+		void transfer(
+				final TransferOperationsHelper transferOperationsHelper,
+				final IRODSFileFactory irodsFileFactory,
+				final TransferStatusCallbackListener transferStatusCallbackListener,
+				final TransferControlBlock transferControlBlock)
+				throws JargonException {
+			IRODSFile targetFile = irodsFileFactory
+					.instanceIRODSFile(targetPath);
+			targetFile.setResource(resource);
+			transferOperationsHelper.processPutOfSingleFileToTarget(
+					sourceFile, targetFile, transferStatusCallbackListener,
+					transferControlBlock);
+		}
+
+		@Override
+		void notifyPauseOrCancel(
+				final TransferOperationsHelper transferOperationsHelper,
+				final IRODSFileFactory irodsFileFactory,
+				final TransferStatusCallbackListener transferStatusCallbackListener,
+				final TransferControlBlock transferControlBlock)
+				throws JargonException {
+			transferOperationsHelper.notifyPauseOrCancelCallbackForPut(
+					irodsFileFactory.instanceIRODSFile(targetCollectionPath),
+					transferStatusCallbackListener, transferControlBlock,
+					sourceFile);
+		}
+	}
+
+	private static final class GetWork extends TransferWork {
+		private final String sourcePath;
+		private final String resource;
+		private final File targetLocalDirectory;
+
+		GetWork(final int sequence, final String sourcePath,
+				final String resource, final File targetLocalDirectory) {
+			super(sequence);
+			this.sourcePath = sourcePath;
+			this.resource = resource;
+			this.targetLocalDirectory = targetLocalDirectory;
+		}
+
+		@Override
+		void transfer(
+				final TransferOperationsHelper transferOperationsHelper,
+				final IRODSFileFactory irodsFileFactory,
+				final TransferStatusCallbackListener transferStatusCallbackListener,
+				final TransferControlBlock transferControlBlock)
+				throws JargonException {
+			IRODSFile sourceFile = irodsFileFactory
+					.instanceIRODSFile(sourcePath);
+			sourceFile.setResource(resource);
+			transferOperationsHelper.processGetOfSingleFile(sourceFile,
+					targetLocalDirectory, transferStatusCallbackListener,
+					transferControlBlock);
+		}
+
+		@Override
+		void notifyPauseOrCancel(
+				final TransferOperationsHelper transferOperationsHelper,
+				final IRODSFileFactory irodsFileFactory,
+				final TransferStatusCallbackListener transferStatusCallbackListener,
+				final TransferControlBlock transferControlBlock)
+				throws JargonException {
+			transferOperationsHelper.notifyPauseOrCancelCallbackForGet(
+					targetLocalDirectory, transferStatusCallbackListener,
+					transferControlBlock,
+					(File) irodsFileFactory.instanceIRODSFile(sourcePath));
+		}
+	}
+
+	/**
+	 * Holds back the file complete callback of each file until every file
+	 * before it in the walk has finished, whether it was moved, skipped or
+	 * failed, then passes the held callbacks on in walk order. Other callbacks
+	 * pass straight through.
+	 */
+	static final class CompletionSequencer {
+
+		private final TransferStatusCallbackListener transferStatusCallbackListener;
+		private final TransferStatus[] heldCompletions;
+		private final boolean[] finished;
+		private int nextToRelease = 0;
+
+		CompletionSequencer(
+				final TransferStatusCallbackListener transferStatusCallbackListener,
+				final int fileCount) {
+			this.transferStatusCallbackListener = transferStatusCallbackListener;
+			heldCompletions = new TransferStatus[fileCount];
+			finished = new boolean[fileCount];
+		}
+
+		/**
+		 * @return {@link TransferStatusCallbackListener} for the transfer of
+		 *         the file at the given position in the walk
+		 */
+		TransferStatusCallbackListener listenerFor(final int sequence) {
+			return new SequencedFileListener(this, sequence);
+		}
+
+		synchronized void hold(final int sequence,
+				final TransferStatus transferStatus) {
+			heldCompletions[sequence] = transferStatus;
+		}
+
+		/**
+		 * Note that the file at the given position is done with, and pass on
+		 * the completions no longer waiting on an earlier file. Called once
+		 * per file, after its transfer returns.
+		 */
+		synchronized void finished(final int sequence) throws JargonException {
+			finished[sequence] = true;
+			while (nextToRelease < finished.length && finished[nextToRelease]) {
+				TransferStatus held = heldCompletions[nextToRelease];
+				heldCompletions[nextToRelease] = null;
+				nextToRelease++;
+				if (held != null) {
+					transferStatusCallbackListener.statusCallback(held);
+				}
+			}
+		}
+
+		TransferStatusCallbackListener getTransferStatusCallbackListener() {
+			return transferStatusCallbackListener;
+		}
+	}
+
+	/**
+	 * Listener given to the transfer of one file, which holds back its file
+	 * complete callback in the {@link CompletionSequencer}
+	 */
+	private static final class SequencedFileListener implements
+			TransferStatusCallbackListener {
+
+		private final CompletionSequencer completionSequencer;
+		private final int sequence;
+
+		SequencedFileListener(final CompletionSequencer completionSequencer,
+				final int sequence) {
+			this.completionSequencer = completionSequencer;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			if (transferStatus.getTransferState() == TransferState.IN_PROGRESS_COMPLETE_FILE) {
+				completionSequencer.hold(sequence, transferStatus);
+				return FileStatusCallbackResponse.CONTINUE;
+			}
+			return completionSequencer.getTransferStatusCallbackListener()
+					.statusCallback(transferStatus);
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+			completionSequencer.getTransferStatusCallbackListener()
+					.overallStatusCallback(transferStatus);
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return completionSequencer.getTransferStatusCallbackListener()
+					.transferAsksWhetherToForceOperation(irodsAbsolutePath,
+							isCollection);
+		}
+	}
+
+	/**
+	 * Passes callbacks to the listener one at a time, so that a listener
+	 * written for a sequential transfer need not be thread-safe
+	 */
+	static final class SerializingTransferStatusCallbackListener implements
+			TransferStatusCallbackListener {
+
+		private final TransferStatusCallbackListener transferStatusCallbackListener;
+
+		SerializingTransferStatusCallbackListener(
+				final TransferStatusCallbackListener transferStatusCallbackListener) {
+			this.transferStatusCallbackListener = transferStatusCallbackListener;
+		}
+
+		@Override
+		public synchronized FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			return transferStatusCallbackListener
+					.statusCallback(transferStatus);
+		}
+
+		@Override
+		public synchronized void overallStatusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			transferStatusCallbackListener
+					.overallStatusCallback(transferStatus);
+		}
+
+		@Override
+		public synchronized CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return transferStatusCallbackListener
+					.transferAsksWhetherToForceOperation(irodsAbsolutePath,
+							isCollection);
+		}
+	}
+
+}
@@ -8,6 +8,10 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -19,6 +23,8 @@ import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
 import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.ChecksumInvalidException;
+import org.irods.jargon.core.exception.FileIntegrityException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.DataObjInp;
 import org.irods.jargon.core.packinstr.OpenedDataObjInp;
@@ -280,9 +286,12 @@ public final class DataAOHelper extends AOHelper {
 	 * @param transferOptions
 	 * @param transferStatusCallbackListener
 	 * @param transferControlBlock
+	 * @return {@link ChecksumValue} of the bytes written to the local file,
+	 *         computed as they were written, if the transfer options ask for
+	 *         the checksum to be verified, otherwise <code>null</code>
 	 * @throws JargonException
 	 */
-	void processNormalGetTransfer(final File localFileToHoldData,
+	ChecksumValue processNormalGetTransfer(final File localFileToHoldData,
 			final long length,
 			final AbstractIRODSMidLevelProtocol irodsProtocol,
 			final TransferOptions transferOptions,
@@ -305,7 +314,7 @@ public final class DataAOHelper extends AOHelper {
 		}
 
 		// get an input stream from the irodsFile
-		BufferedOutputStream localFileOutputStream;
+		OutputStream localFileOutputStream;
 
 		try {
 
@@ -344,11 +353,20 @@ public final class DataAOHelper extends AOHelper {
 							transferStatusCallbackListener);
 		}
 
+		AbstractChecksumComputeStrategy inlineChecksumStrategy = inlineChecksumStrategy(transferOptions);
+		MessageDigest inlineDigest = null;
+		if (inlineChecksumStrategy != null) {
+			log.info("checksum will be computed as the file is written");
+			inlineDigest = inlineChecksumStrategy.instanceMessageDigest();
+			localFileOutputStream = new DigestOutputStream(
+					localFileOutputStream, inlineDigest);
+		}
+
 		// read the message byte stream into the local file
-		irodsProtocol.read(localFileOutputStream, length,
-				intraFileStatusListener);
-		log.info("transfer is complete");
 		try {
+			irodsProtocol.read(localFileOutputStream, length,
+					intraFileStatusListener);
+			log.info("transfer is complete");
 			localFileOutputStream.flush();
 			localFileOutputStream.close();
 		} catch (IOException e) {
@@ -358,7 +376,49 @@ public final class DataAOHelper extends AOHelper {
 			throw new JargonException(
 					"IOException for local file when trying to get to: "
 							+ localFileToHoldData.getAbsolutePath(), e);
+		} finally {
+			// the protocol read does not close the stream, so close it here
+			// when the read fails too
+			try {
+				localFileOutputStream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		if (inlineDigest == null) {
+			return null;
+		}
+
+		return inlineChecksumStrategy.checksumValueFromDigest(inlineDigest
+				.digest());
+	}
+
+	/**
+	 * Pick the algorithm for a checksum computed inline while a single stream
+	 * transfer moves the bytes, which saves reading the local file again to
+	 * verify the transfer. This is only done when the transfer options ask for
+	 * the checksum to be verified.
+	 * 
+	 * @param transferOptions
+	 *            {@link TransferOptions} for the transfer, may be
+	 *            <code>null</code>
+	 * @return {@link AbstractChecksumComputeStrategy} for the checksum, or
+	 *         <code>null</code> if no inline checksum is needed
+	 * @throws JargonException
+	 */
+	AbstractChecksumComputeStrategy inlineChecksumStrategy(
+			final TransferOptions transferOptions) throws JargonException {
+
+		if (transferOptions == null
+				|| !transferOptions.isComputeAndVerifyChecksumAfterTransfer()) {
+			return null;
 		}
+
+		return irodsAccessObjectFactory.getIrodsSession()
+				.getLocalChecksumComputerFactory()
+				.instance(checksumManager
+						.determineChecksumEncodingForTargetServer());
 	}
 
 	/**
@@ -385,6 +445,9 @@ public final class DataAOHelper extends AOHelper {
 	 *            {@link StatusCallbackListener} implementation to receive
 	 *            status callbacks, this can be set to <code>null</code> if
 	 *            desired
+	 * @throws FileIntegrityException
+	 *             if the checksum computed as the file was sent does not match
+	 *             iRODS, in which case the data object is removed
 	 * @throws JargonException
 	 * @throws FileNotFoundException
 	 */
@@ -418,6 +481,18 @@ public final class DataAOHelper extends AOHelper {
 				transferControlBlock.getTransferOptions());
 		myTransferOptions.setMaxThreads(0);
 
+		/*
+		 * A checksum to verify is computed as the file is sent and checked
+		 * against iRODS after the put, rather than read from the file up front
+		 * and sent with the request
+		 */
+		AbstractChecksumComputeStrategy inlineChecksumStrategy = inlineChecksumStrategy(myTransferOptions);
+		if (inlineChecksumStrategy != null) {
+			log.info("checksum will be computed as the file is sent");
+			myTransferOptions.setComputeAndVerifyChecksumAfterTransfer(false);
+			myTransferOptions.setComputeChecksumAfterTransfer(false);
+		}
+
 		boolean execFlag = false;
 		if (localFile.canExecute()) {
 			log.info("file is executable");
@@ -474,9 +549,58 @@ public final class DataAOHelper extends AOHelper {
 					inputStreamBuffSize);
 		}
 
+		MessageDigest inlineDigest = null;
+		if (inlineChecksumStrategy != null) {
+			inlineDigest = inlineChecksumStrategy.instanceMessageDigest();
+			fileInputStream = new DigestInputStream(fileInputStream,
+					inlineDigest);
+		}
+
 		irodsProtocol.irodsFunctionIncludingAllDataInStream(dataObjInp,
 				localFile.length(), fileInputStream, intraFileStatusListener);
 
+		if (inlineDigest != null) {
+			ChecksumValue localFileChecksum = inlineChecksumStrategy
+					.checksumValueFromDigest(inlineDigest.digest());
+			log.info("local file checksum computed during put is:{}",
+					localFileChecksum);
+			try {
+				irodsAccessObjectFactory.getDataObjectChecksumUtilitiesAO(
+						irodsAccount)
+						.verifyLocalChecksumAgainstIrodsFileChecksum(
+								localFileChecksum, localFile.getAbsolutePath(),
+								targetFile.getAbsolutePath());
+			} catch (ChecksumInvalidException e) {
+				removeDataObjectFailingVerification(targetFile);
+				throw new FileIntegrityException(
+						"checksum verification after put fails for:"
+								+ targetFile.getAbsolutePath(), e);
+			}
+		}
+
+	}
+
+	/**
+	 * Remove a data object whose checksum did not match the local file after a
+	 * put, as iRODS does when it verifies the checksum itself, so that a
+	 * corrupt copy is not left in place. A failure to remove is logged and
+	 * does not replace the integrity failure being reported.
+	 *
+	 * @param targetFile
+	 *            {@link IRODSFile} that failed verification
+	 */
+	private void removeDataObjectFailingVerification(final IRODSFile targetFile) {
+		log.error("checksum mismatch after put, removing data object:{}",
+				targetFile.getAbsolutePath());
+		try {
+			if (!targetFile.deleteWithForceOption()) {
+				log.error("unable to remove data object that failed verification:{}",
+						targetFile.getAbsolutePath());
+			}
+		} catch (Exception e) {
+			log.error("error removing data object that failed verification:{}",
+					targetFile.getAbsolutePath(), e);
+		}
 	}
 
 	/**
@@ -2,6 +2,7 @@ package org.irods.jargon.core.pub;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.exception.DataNotFoundException;
@@ -956,6 +957,77 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	void setAccessPermission(String zone, String absolutePath, String userName,
 			FilePermissionEnum filePermission) throws JargonException;
 
+	/**
+	 * Set the access permission for a user on many data objects in one batch.
+	 * The requests are pipelined on the connection, which is much faster than
+	 * setting the permissions one at a time. As with
+	 * {@link #setAccessPermission(String, String, String, FilePermissionEnum)}
+	 * , only READ, WRITE, OWN, and NONE are supported. Failures for
+	 * individual data objects, including a missing data object, are reported
+	 * in the response rather than thrown.
+	 * 
+	 * @param zone
+	 *            <code>String</code> with the zone for the user
+	 * @param absolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of the data objects
+	 * @param userName
+	 *            <code>userName</code> (just the name, no name#zone format) for
+	 *            the user
+	 * @param filePermission
+	 *            {@link FilePermissionEnum}
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given paths
+	 * @throws JargonException
+	 */
+	List<BulkFileOperationResponse> setAccessPermissions(String zone,
+			List<String> absolutePaths, String userName,
+			FilePermissionEnum filePermission) throws JargonException;
+
+	/**
+	 * Set the access permissions for many users and groups on one data object
+	 * in one batch. The data object is looked up once, and the requests are
+	 * then pipelined on the connection, which is much faster than calling
+	 * {@link #setAccessPermission(String, String, String, FilePermissionEnum)}
+	 * for each user. Only READ, WRITE, OWN, and NONE are supported. Failures
+	 * for individual users are reported in the response rather than thrown.
+	 * 
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @param userFilePermissions
+	 *            <code>List</code> of {@link UserFilePermission} with the user
+	 *            name, zone (may be blank), and permission for each user or
+	 *            group
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given permissions, each with the user name
+	 *         and zone it is for
+	 * @throws FileNotFoundException
+	 *             if the data object does not exist
+	 * @throws JargonException
+	 */
+	List<BulkFileOperationResponse> setAccessPermissionsForUsers(
+			String absolutePath, List<UserFilePermission> userFilePermissions)
+			throws FileNotFoundException, JargonException;
+
+	/**
+	 * Delete many data objects in one batch. The requests are pipelined on
+	 * the connection, which is much faster than deleting the data objects one
+	 * at a time. Failures for individual data objects, including a missing
+	 * data object, are reported in the response rather than thrown.
+	 * 
+	 * @param absolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of the data objects
+	 * @param force
+	 *            <code>boolean</code> that is <code>true</code> to delete
+	 *            without moving the data objects to the trash
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given paths
+	 * @throws JargonException
+	 */
+	List<BulkFileOperationResponse> deleteDataObjects(
+			List<String> absolutePaths, boolean force) throws JargonException;
+
 	/**
 	 * Find the data object (file) given it's unique id (the iCAT primary key)
 	 * 
@@ -1125,6 +1197,43 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	List<BulkAVUOperationResponse> deleteBulkAVUMetadataFromDataObject(
 			String absolutePath, List<AvuData> avuData) throws JargonException;
 
+	/**
+	 * Add AVU metadata to many data objects in one batch. The requests are
+	 * pipelined on the connection, which is much faster than adding the AVUs
+	 * one at a time. As with
+	 * {@link #addBulkAVUMetadataToDataObject(String, List)}, failures for
+	 * individual AVUs, including a missing data object, are reported in the
+	 * response rather than thrown.
+	 * 
+	 * @param avuDataByAbsolutePath
+	 *            <code>Map</code> of data object absolute path to the
+	 *            <code>List</code> of {@link AvuData} to add to it
+	 * @return <code>Map</code> of absolute path to the
+	 *         {@link BulkAVUOperationResponse} for each AVU, in the order of
+	 *         the given map
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> addBulkAVUMetadataToDataObjects(
+			Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException;
+
+	/**
+	 * Delete AVU metadata from many data objects in one batch. The requests
+	 * are pipelined on the connection, and failures for individual AVUs are
+	 * reported in the response rather than thrown.
+	 * 
+	 * @param avuDataByAbsolutePath
+	 *            <code>Map</code> of data object absolute path to the
+	 *            <code>List</code> of {@link AvuData} to delete from it
+	 * @return <code>Map</code> of absolute path to the
+	 *         {@link BulkAVUOperationResponse} for each AVU, in the order of
+	 *         the given map
+	 * @throws JargonException
+	 */
+	Map<String, List<BulkAVUOperationResponse>> deleteBulkAVUMetadataFromDataObjects(
+			Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException;
+
 	/**
 	 * Clear all AVUs from the given data object by doing a bulk delete
 	 * operation
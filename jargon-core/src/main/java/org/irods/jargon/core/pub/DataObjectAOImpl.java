@@ -7,7 +7,9 @@ import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.ConnectionConstants;
@@ -15,7 +17,9 @@ import org.irods.jargon.core.connection.ConnectionProgressStatus;
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.PipelinedResponse;
 import org.irods.jargon.core.exception.CatNoAccessException;
+import org.irods.jargon.core.exception.ChecksumInvalidException;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.DuplicateDataException;
 import org.irods.jargon.core.exception.FileIntegrityException;
@@ -410,8 +414,13 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 		TransferControlBlock effectiveTransferControlBlock = checkTransferControlBlockForOptionsAndSetDefaultsIfNotSpecified(transferControlBlock);
 
-		putCommonProcessing(localFile, irodsFileDestination, ignoreChecks,
-				effectiveTransferControlBlock, transferStatusCallbackListener);
+		try {
+			putCommonProcessing(localFile, irodsFileDestination, ignoreChecks,
+					effectiveTransferControlBlock, transferStatusCallbackListener);
+		} finally {
+			invalidateCachedObjStatForPathAndChildren(irodsFileDestination
+					.getAbsolutePath());
+		}
 
 	}
 
@@ -459,8 +468,13 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			effectiveTransferControlBlock.getTransferOptions().setForceOption(
 					ForceOption.USE_FORCE);
 		}
-		putCommonProcessing(localFile, irodsFileDestination, false,
-				effectiveTransferControlBlock, null);
+		try {
+			putCommonProcessing(localFile, irodsFileDestination, false,
+					effectiveTransferControlBlock, null);
+		} finally {
+			invalidateCachedObjStatForPathAndChildren(irodsFileDestination
+					.getAbsolutePath());
+		}
 
 	}
 
@@ -508,8 +522,13 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 		TransferControlBlock effectiveTransferControlBlock = checkTransferControlBlockForOptionsAndSetDefaultsIfNotSpecified(transferControlBlock);
 
 		// no callback listener for client side operations, may add later
-		putCommonProcessing(localFile, irodsFileDestination, true,
-				effectiveTransferControlBlock, null);
+		try {
+			putCommonProcessing(localFile, irodsFileDestination, true,
+					effectiveTransferControlBlock, null);
+		} finally {
+			invalidateCachedObjStatForPathAndChildren(irodsFileDestination
+					.getAbsolutePath());
+		}
 
 	}
 
@@ -1516,6 +1535,9 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 		log.debug("l1descInx value is:{}", l1descInx);
 
+		// checksum computed as a single stream transfer is written, if any
+		ChecksumValue inlineChecksum = null;
+
 		// if length == zero, check for multiple thread copy, may still process
 		// as a standard txfr if 0 threads specified
 		try {
@@ -1558,10 +1580,10 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 					throw e;
 				}
 			} else {
-				dataAOHelper.processNormalGetTransfer(localFileToHoldData,
-						lengthFromIrodsResponse, getIRODSProtocol(),
-						thisFileTransferOptions, transferControlBlock,
-						transferStatusCallbackListener);
+				inlineChecksum = dataAOHelper.processNormalGetTransfer(
+						localFileToHoldData, lengthFromIrodsResponse,
+						getIRODSProtocol(), thisFileTransferOptions,
+						transferControlBlock, transferStatusCallbackListener);
 			}
 
 			/*
@@ -1587,22 +1609,22 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 					&& thisFileTransferOptions
 							.isComputeAndVerifyChecksumAfterTransfer()) {
 
-				// compute iRODS first, use algorithm from iRODS to compute the
-				// local checksum that should match
-
-				ChecksumValue irodsChecksum = computeChecksumOnDataObject(irodsFileToGet);
+				// the local file is only read again if no checksum was
+				// computed during the transfer, or iRODS used another algorithm
 
-				log.info("computing a checksum on the file at:{}",
+				log.info("verifying checksum of the file at:{}",
 						localFileToHoldData.getAbsolutePath());
 
-				ChecksumValue localFileChecksum = dataAOHelper
-						.computeLocalFileChecksum(localFileToHoldData,
-								irodsChecksum.getChecksumEncoding());
-
-				log.info("local file checksum is:{}", localFileChecksum);
-				log.info("irods checksum:{}", irodsChecksum);
-				if (!(irodsChecksum.getChecksumStringValue()
-						.equals(localFileChecksum.getChecksumStringValue()))) {
+				try {
+					ChecksumValue irodsChecksum = getIRODSAccessObjectFactory()
+							.getDataObjectChecksumUtilitiesAO(
+									getIRODSAccount())
+							.verifyLocalChecksumAgainstIrodsFileChecksum(
+									inlineChecksum,
+									localFileToHoldData.getAbsolutePath(),
+									irodsFileToGet.getAbsolutePath());
+					log.info("irods checksum:{}", irodsChecksum);
+				} catch (ChecksumInvalidException e) {
 					throw new FileIntegrityException(
 							"checksum verification after get fails");
 				}
@@ -1978,36 +2000,10 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
-
-		for (AvuData value : avuData) {
-			try {
-				addAVUMetadata(absolutePath, value);
-			} catch (DataNotFoundException dnf) {
-				log.error(
-						"dataNotFoundException when adding an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-			} catch (DuplicateDataException dde) {
-				log.error(
-						"DuplicateDataException when adding an AVU, catch and add to response data",
-						dde);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.DUPLICATE_AVU, value, dde.getMessage()));
-				continue;
-
-			}
-
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
-		}
-
-		log.info("...complete");
-		return responses;
+		Map<String, List<AvuData>> avuDataByAbsolutePath = new LinkedHashMap<String, List<AvuData>>();
+		avuDataByAbsolutePath.put(absolutePath, avuData);
+		return processBulkAVUOperation(avuDataByAbsolutePath, true).get(
+				absolutePath);
 	}
 
 	/*
@@ -2024,29 +2020,153 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 		log.info("deleteBulkAVUMetadataFromDataObject()");
 
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException(NULL_OR_EMPTY_ABSOLUTE_PATH);
+		}
+
 		if (avuData == null || avuData.isEmpty()) {
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		Map<String, List<AvuData>> avuDataByAbsolutePath = new LinkedHashMap<String, List<AvuData>>();
+		avuDataByAbsolutePath.put(absolutePath, avuData);
+		return processBulkAVUOperation(avuDataByAbsolutePath, false).get(
+				absolutePath);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.DataObjectAO#addBulkAVUMetadataToDataObjects
+	 * (java.util.Map)
+	 */
+	@Override
+	public Map<String, List<BulkAVUOperationResponse>> addBulkAVUMetadataToDataObjects(
+			final Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException {
+
+		log.info("addBulkAVUMetadataToDataObjects()");
+
+		if (avuDataByAbsolutePath == null) {
+			throw new IllegalArgumentException("null avuDataByAbsolutePath");
+		}
+
+		return processBulkAVUOperation(avuDataByAbsolutePath, true);
+	}
 
-		for (AvuData value : avuData) {
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.DataObjectAO#deleteBulkAVUMetadataFromDataObjects
+	 * (java.util.Map)
+	 */
+	@Override
+	public Map<String, List<BulkAVUOperationResponse>> deleteBulkAVUMetadataFromDataObjects(
+			final Map<String, List<AvuData>> avuDataByAbsolutePath)
+			throws JargonException {
+
+		log.info("deleteBulkAVUMetadataFromDataObjects()");
+
+		if (avuDataByAbsolutePath == null) {
+			throw new IllegalArgumentException("null avuDataByAbsolutePath");
+		}
+
+		return processBulkAVUOperation(avuDataByAbsolutePath, false);
+	}
+
+	/**
+	 * Resolve each data object once, then send all of the AVU requests
+	 * pipelined on the connection
+	 * 
+	 * @param avuDataByAbsolutePath
+	 *            <code>Map</code> of data object path to AVUs
+	 * @param add
+	 *            <code>boolean</code> that is <code>true</code> to add the
+	 *            AVUs, <code>false</code> to delete them
+	 * @return <code>Map</code> of data object path to responses, in the order
+	 *         of the given map
+	 * @throws JargonException
+	 */
+	private Map<String, List<BulkAVUOperationResponse>> processBulkAVUOperation(
+			final Map<String, List<AvuData>> avuDataByAbsolutePath,
+			final boolean add) throws JargonException {
+
+		Map<String, List<BulkAVUOperationResponse>> responses = new LinkedHashMap<String, List<BulkAVUOperationResponse>>();
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>();
+		List<AvuData> requestAvuData = new ArrayList<AvuData>();
+		List<String> requestPaths = new ArrayList<String>();
+
+		for (Map.Entry<String, List<AvuData>> entry : avuDataByAbsolutePath
+				.entrySet()) {
+
+			String absolutePath = entry.getKey();
+			List<AvuData> avuData = entry.getValue();
+
+			if (absolutePath == null || absolutePath.isEmpty()) {
+				throw new IllegalArgumentException(NULL_OR_EMPTY_ABSOLUTE_PATH);
+			}
+
+			if (avuData == null) {
+				throw new IllegalArgumentException("null avuData for:"
+						+ absolutePath);
+			}
+
+			MiscIRODSUtils.checkPathSizeForMax(absolutePath);
+
+			ObjStat objStat;
 			try {
-				deleteAVUMetadata(absolutePath, value);
-			} catch (DataNotFoundException dnf) {
-				log.error(
-						"dataNotFoundException when deleti an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
+				objStat = this.retrieveObjStat(absolutePath);
+			} catch (FileNotFoundException fnf) {
+				log.warn("data object not found for bulk AVU operation:{}",
+						absolutePath);
+				responses.put(absolutePath, BulkAVUOperationUtils
+						.responsesForAll(avuData,
+								ResultStatus.MISSING_METADATA_TARGET,
+								fnf.getMessage()));
+				continue;
+			}
+
+			if (objStat.getSpecColType() == SpecColType.MOUNTED_COLL) {
+				log.info(
+						"objStat indicates collection type that does not support this operation:{}",
+						objStat);
+				responses
+						.put(absolutePath,
+								BulkAVUOperationUtils
+										.responsesForAll(avuData,
+												ResultStatus.OTHER_ERROR,
+												"The special collection type does not support this operation"));
 				continue;
+			}
+
+			String absPath = resolveAbsolutePathGivenObjStat(objStat);
+			responses.put(absolutePath,
+					new ArrayList<BulkAVUOperationResponse>(avuData.size()));
+
+			for (AvuData value : avuData) {
+				if (value == null) {
+					throw new IllegalArgumentException("null AVU data");
+				}
 
+				if (add) {
+					requests.add(ModAvuMetadataInp
+							.instanceForAddDataObjectMetadata(absPath, value));
+				} else {
+					requests.add(ModAvuMetadataInp
+							.instanceForDeleteDataObjectMetadata(absPath, value));
+				}
+				requestAvuData.add(value);
+				requestPaths.add(absolutePath);
 			}
+		}
+
+		List<BulkAVUOperationResponse> results = BulkAVUOperationUtils
+				.executePipelined(getIRODSProtocol(), requests, requestAvuData);
 
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
+		for (int i = 0; i < results.size(); i++) {
+			responses.get(requestPaths.get(i)).add(results.get(i));
 		}
 
 		log.info("...complete");
@@ -2541,6 +2661,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 		} catch (JargonException je) {
 			log.error("error replicating irods file", je);
 			throw je;
+		} finally {
+			invalidateCachedObjStat(irodsFileAbsolutePath);
 		}
 		log.info("replication complete");
 	}
@@ -2716,6 +2838,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 		} catch (JargonException je) {
 			log.error("error copying irods file", je);
 			throw je;
+		} finally {
+			invalidateCachedObjStat(myTargetFile.getAbsolutePath());
 		}
 		log.info("copy complete");
 
@@ -3335,6 +3459,108 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.DataObjectAO#setAccessPermissions(java.lang
+	 * .String, java.util.List, java.lang.String,
+	 * org.irods.jargon.core.protovalues.FilePermissionEnum)
+	 */
+	@Override
+	public List<BulkFileOperationResponse> setAccessPermissions(
+			final String zone, final List<String> absolutePaths,
+			final String userName, final FilePermissionEnum filePermission)
+			throws JargonException {
+
+		log.info("setAccessPermissions()");
+		return processBulkAccessPermission(zone, absolutePaths, userName,
+				false, filePermission);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.DataObjectAO#setAccessPermissionsForUsers(java
+	 * .lang.String, java.util.List)
+	 */
+	@Override
+	public List<BulkFileOperationResponse> setAccessPermissionsForUsers(
+			final String absolutePath,
+			final List<UserFilePermission> userFilePermissions)
+			throws FileNotFoundException, JargonException {
+
+		log.info("setAccessPermissionsForUsers()");
+		return processAccessPermissionsForUsers(absolutePath,
+				userFilePermissions, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.DataObjectAO#deleteDataObjects(java.util
+	 * .List, boolean)
+	 */
+	@Override
+	public List<BulkFileOperationResponse> deleteDataObjects(
+			final List<String> absolutePaths, final boolean force)
+			throws JargonException {
+
+		log.info("deleteDataObjects()");
+
+		if (absolutePaths == null) {
+			throw new IllegalArgumentException("null absolutePaths");
+		}
+
+		log.info("force:{}", force);
+
+		List<DataObjInp> requests = new ArrayList<DataObjInp>(
+				absolutePaths.size());
+		for (String absolutePath : absolutePaths) {
+			if (absolutePath == null || absolutePath.isEmpty()) {
+				throw new IllegalArgumentException(NULL_OR_EMPTY_ABSOLUTE_PATH);
+			}
+			MiscIRODSUtils.checkPathSizeForMax(absolutePath);
+			if (force) {
+				requests.add(DataObjInp
+						.instanceForDeleteWithForce(absolutePath));
+			} else {
+				requests.add(DataObjInp
+						.instanceForDeleteWithNoForce(absolutePath));
+			}
+		}
+
+		List<BulkFileOperationResponse> responses = new ArrayList<BulkFileOperationResponse>(
+				absolutePaths.size());
+		if (requests.isEmpty()) {
+			return responses;
+		}
+
+		List<PipelinedResponse> replies = getIRODSProtocol()
+				.irodsFunctionPipelined(requests,
+						BulkFileOperationUtils.MAX_REQUESTS_IN_FLIGHT);
+
+		for (int i = 0; i < replies.size(); i++) {
+			String absolutePath = absolutePaths.get(i);
+			PipelinedResponse reply = replies.get(i);
+			invalidateCachedObjStat(absolutePath);
+			if (!force
+					&& reply.getException() instanceof DuplicateDataException) {
+				log.warn("duplicate data exception logged and ignored, see GForge: [#639] 809000 errors on delete operations when trash file already exists");
+				responses.add(BulkFileOperationResponse.instance(
+						BulkFileOperationResponse.ResultStatus.OK,
+						absolutePath, ""));
+			} else {
+				responses.add(BulkFileOperationUtils.translateReply(reply,
+						absolutePath));
+			}
+		}
+
+		log.info("...complete");
+		return responses;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -4571,6 +4797,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedObjStat(sb.toString());
 		}
 
 	}
@@ -70,4 +70,33 @@ public interface DataObjectChecksumUtilitiesAO {
 			throws FileNotFoundException, ChecksumInvalidException,
 			JargonException;
 
-}
\ No newline at end of file
+	/**
+	 * Compare a checksum of a local file, already computed by the caller,
+	 * against iRODS using the configured checksum algo on the iRODS side. This
+	 * is used after a transfer that computed the checksum inline as the bytes
+	 * went by, so the local file need not be read again. If no local checksum
+	 * is given, or it was computed with a different algo than iRODS used, the
+	 * local file is read to compute one. The files are not checked for
+	 * existence.
+	 * 
+	 * @param localChecksumValue
+	 *            {@link ChecksumValue} computed over the contents of the local
+	 *            file, may be <code>null</code>
+	 * @param localAbsolutePath
+	 *            <code>String</code> with the local file absolute path
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the irods file absolute path
+	 * @return {@link ChecksumValue} for a validated checksum
+	 * @throws FileNotFoundException
+	 *             if the local file must be read and is missing
+	 * @throws ChecksumInvalidException
+	 *             if the checksums do not match
+	 * @throws JargonException
+	 */
+	ChecksumValue verifyLocalChecksumAgainstIrodsFileChecksum(
+			final ChecksumValue localChecksumValue,
+			final String localAbsolutePath, final String irodsAbsolutePath)
+			throws FileNotFoundException, ChecksumInvalidException,
+			JargonException;
+
+}
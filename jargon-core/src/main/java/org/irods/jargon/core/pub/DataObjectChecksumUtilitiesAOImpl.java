@@ -177,23 +177,62 @@ public class DataObjectChecksumUtilitiesAOImpl extends IRODSGenericAO implements
 					"irods file is not a file, it is a collection");
 		}
 
-		ChecksumValue checksumValue = this
-				.computeChecksumOnDataObject(irodsFile);
+		return verifyLocalChecksumAgainstIrodsFileChecksum(null,
+				localAbsolutePath, irodsAbsolutePath);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.DataObjectChecksumUtilitiesAO#
+	 * verifyLocalChecksumAgainstIrodsFileChecksum
+	 * (org.irods.jargon.core.checksum.ChecksumValue, java.lang.String,
+	 * java.lang.String)
+	 */
+	@Override
+	public ChecksumValue verifyLocalChecksumAgainstIrodsFileChecksum(
+			final ChecksumValue localChecksumValue,
+			final String localAbsolutePath, final String irodsAbsolutePath)
+			throws FileNotFoundException, ChecksumInvalidException,
+			JargonException {
+		log.info("verifyLocalChecksumAgainstIrodsFileChecksum()");
+		if (localAbsolutePath == null || localAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty localAbsolutePath");
+		}
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		ChecksumValue checksumValue = this.computeChecksumOnDataObject(this
+				.getIRODSFileFactory().instanceIRODSFile(irodsAbsolutePath));
 
-		AbstractChecksumComputeStrategy checksumComputeStrategy = this
-				.getIRODSSession().getLocalChecksumComputerFactory()
-				.instance(checksumValue.getChecksumEncoding());
 		ChecksumValue localValue;
-		try {
-			localValue = checksumComputeStrategy
-					.computeChecksumValueForLocalFile(localAbsolutePath);
-		} catch (java.io.FileNotFoundException e) {
-			// Jargon has it's own file not found exception, dumb or not
-			throw new FileNotFoundException(
-					"local file not found during checksum");
+		if (localChecksumValue != null
+				&& localChecksumValue.getChecksumEncoding() == checksumValue
+						.getChecksumEncoding()) {
+			log.info("using local checksum computed during transfer");
+			localValue = localChecksumValue;
+		} else {
+			log.info("computing local checksum from the local file");
+			AbstractChecksumComputeStrategy checksumComputeStrategy = this
+					.getIRODSSession().getLocalChecksumComputerFactory()
+					.instance(checksumValue.getChecksumEncoding());
+			try {
+				localValue = checksumComputeStrategy
+						.computeChecksumValueForLocalFile(localAbsolutePath);
+			} catch (java.io.FileNotFoundException e) {
+				// Jargon has it's own file not found exception, dumb or not
+				throw new FileNotFoundException(
+						"local file not found during checksum");
+			}
 		}
 
-		if (!localValue.equals(checksumValue)) {
+		if (!localValue.getChecksumStringValue().equals(
+				checksumValue.getChecksumStringValue())) {
 			log.error("checksum mismatch");
 			log.error("local checksum:{}", localValue);
 			log.error("irods checksum:{}", checksumValue);
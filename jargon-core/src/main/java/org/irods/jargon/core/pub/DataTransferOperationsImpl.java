@@ -706,9 +706,40 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 		log.debug("new parent directory created locally:{}",
 				newParentDirectory.getAbsolutePath());
 
-		transferOperationsHelper.recursivelyGet(irodsSourceFile,
-				newParentDirectory, transferStatusCallbackListener,
-				transferControlBlock);
+		int maxConcurrentFiles = maxConcurrentFileTransfers(transferControlBlock);
+		if (maxConcurrentFiles > 1) {
+			ConcurrentCollectionTransferEngine.instance(getIRODSSession(),
+					getIRODSAccount(), maxConcurrentFiles).get(irodsSourceFile,
+					newParentDirectory, transferStatusCallbackListener,
+					transferControlBlock);
+		} else {
+			transferOperationsHelper.recursivelyGet(irodsSourceFile,
+					newParentDirectory, transferStatusCallbackListener,
+					transferControlBlock);
+		}
+	}
+
+	/**
+	 * @return <code>int</code> with the number of files of a directory or
+	 *         collection to move at once, 1 for a sequential transfer. A
+	 *         transfer with a restart point is always sequential, as the
+	 *         restart filter passes files by their order in the walk.
+	 */
+	private int maxConcurrentFileTransfers(
+			final TransferControlBlock transferControlBlock) {
+		if (transferControlBlock == null
+				|| transferControlBlock.getTransferOptions() == null) {
+			return 1;
+		}
+
+		String restartAbsolutePath = transferControlBlock
+				.getRestartAbsolutePath();
+		if (restartAbsolutePath != null && !restartAbsolutePath.isEmpty()) {
+			log.info("restart point set, files will be transferred sequentially");
+			return 1;
+		}
+		return transferControlBlock.getTransferOptions()
+				.getMaxConcurrentFileTransfers();
 	}
 
 	/*
@@ -1225,9 +1256,17 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 			throw new JargonException(e);
 		}
 
-		transferOperationsHelper.recursivelyPut(sourceFile,
-				newIrodsParentDirectory, transferStatusCallbackListener,
-				transferControlBlock);
+		int maxConcurrentFiles = maxConcurrentFileTransfers(transferControlBlock);
+		if (maxConcurrentFiles > 1) {
+			ConcurrentCollectionTransferEngine.instance(getIRODSSession(),
+					getIRODSAccount(), maxConcurrentFiles).put(sourceFile,
+					newIrodsParentDirectory, transferStatusCallbackListener,
+					transferControlBlock);
+		} else {
+			transferOperationsHelper.recursivelyPut(sourceFile,
+					newIrodsParentDirectory, transferStatusCallbackListener,
+					transferControlBlock);
+		}
 
 		/**
 		 * Send an overall status callback. If the state is cancelled, see if it
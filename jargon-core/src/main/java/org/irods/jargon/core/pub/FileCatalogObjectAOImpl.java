@@ -3,15 +3,23 @@
  */
 package org.irods.jargon.core.pub;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.OperationNotSupportedForCollectionTypeException;
 import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.ModAccessControlInp;
 import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.BulkFileOperationResponse.ResultStatus;
 import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
 import org.irods.jargon.core.pub.domain.Resource;
 import org.irods.jargon.core.pub.domain.UserFilePermission;
 import org.irods.jargon.core.pub.io.IRODSFile;
@@ -342,4 +350,231 @@ public abstract class FileCatalogObjectAOImpl extends IRODSGenericAO implements
 		}
 	}
 
+
+	/**
+	 * Set the access permission for a user on many paths in one batch. The
+	 * paths are stat'ed with pipelined requests to account for soft links, and
+	 * the permission requests are then pipelined as well. Failures for
+	 * individual paths are reported in the response rather than thrown.
+	 * 
+	 * @param zone
+	 *            <code>String</code> with the zone for the user
+	 * @param absolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths
+	 * @param userName
+	 *            <code>String</code> with the user name, no zone
+	 * @param recursive
+	 *            <code>boolean</code> that applies the permission below
+	 *            collections, see {@link #recursiveFlagForPath}
+	 * @param filePermission
+	 *            {@link FilePermissionEnum} of READ, WRITE, OWN, or NONE
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given paths
+	 * @throws JargonException
+	 */
+	protected List<BulkFileOperationResponse> processBulkAccessPermission(
+			final String zone, final List<String> absolutePaths,
+			final String userName, final boolean recursive,
+			final FilePermissionEnum filePermission) throws JargonException {
+
+		if (zone == null) {
+			throw new IllegalArgumentException("null zone");
+		}
+
+		if (absolutePaths == null) {
+			throw new IllegalArgumentException("null absolutePaths");
+		}
+
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+
+		if (filePermission == null) {
+			throw new IllegalArgumentException("null filePermission");
+		}
+
+		String accessLevel = BulkFileOperationUtils
+				.accessLevelForFilePermission(filePermission);
+
+		Map<String, ObjStat> objStats = collectionAndDataObjectListAndSearchAO
+				.retrieveObjectStatsForPaths(absolutePaths);
+
+		BulkFileOperationResponse[] responses = new BulkFileOperationResponse[absolutePaths
+				.size()];
+		List<ModAccessControlInp> requests = new ArrayList<ModAccessControlInp>();
+		List<String> requestPaths = new ArrayList<String>();
+		List<Integer> requestIndexes = new ArrayList<Integer>();
+
+		for (int i = 0; i < absolutePaths.size(); i++) {
+			String absolutePath = absolutePaths.get(i);
+			ObjStat objStat = objStats.get(absolutePath);
+
+			if (objStat == null) {
+				log.warn("no objStat for bulk permission:{}", absolutePath);
+				responses[i] = BulkFileOperationResponse.instance(
+						ResultStatus.MISSING_TARGET, absolutePath,
+						"no objStat found for path");
+				continue;
+			}
+
+			String absPath;
+			try {
+				if (objStat.getSpecColType() == SpecColType.MOUNTED_COLL) {
+					throw new OperationNotSupportedForCollectionTypeException(
+							"The special collection type does not support this operation");
+				}
+				absPath = resolveAbsolutePathGivenObjStat(objStat);
+			} catch (OperationNotSupportedForCollectionTypeException e) {
+				log.info(
+						"objStat indicates collection type that does not support this operation:{}",
+						objStat);
+				responses[i] = BulkFileOperationResponse.instance(
+						ResultStatus.OPERATION_NOT_SUPPORTED, absolutePath,
+						e.getMessage());
+				continue;
+			}
+
+			requests.add(ModAccessControlInp.instanceForSetPermission(
+					recursiveFlagForPath(absPath, recursive), zone, absPath,
+					userName, accessLevel));
+			requestPaths.add(absolutePath);
+			requestIndexes.add(i);
+		}
+
+		List<BulkFileOperationResponse> results = BulkFileOperationUtils
+				.executePipelined(getIRODSProtocol(), requests, requestPaths);
+		for (int i = 0; i < results.size(); i++) {
+			responses[requestIndexes.get(i)] = results.get(i);
+		}
+
+		return Arrays.asList(responses);
+	}
+
+	/**
+	 * Set the access permissions for many users and groups on one path in one
+	 * batch. The path is stat'ed once, to account for soft links, and the
+	 * permission requests are then pipelined. Failures for individual users
+	 * are reported in the response rather than thrown.
+	 * 
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path
+	 * @param userFilePermissions
+	 *            <code>List</code> of {@link UserFilePermission} giving, for
+	 *            each user or group, the user name, optional zone, and
+	 *            permission of READ, WRITE, OWN, or NONE
+	 * @param recursive
+	 *            <code>boolean</code> that applies the permissions below a
+	 *            collection, see {@link #recursiveFlagForPath}
+	 * @return <code>List</code> of {@link BulkFileOperationResponse} in the
+	 *         order of the given permissions, each with the user name and zone
+	 *         it is for
+	 * @throws FileNotFoundException
+	 *             if the path does not exist
+	 * @throws JargonException
+	 */
+	protected List<BulkFileOperationResponse> processAccessPermissionsForUsers(
+			final String absolutePath,
+			final List<UserFilePermission> userFilePermissions,
+			final boolean recursive) throws FileNotFoundException,
+			JargonException {
+
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty absolutePath");
+		}
+
+		if (userFilePermissions == null) {
+			throw new IllegalArgumentException("null userFilePermissions");
+		}
+
+		log.info("absolutePath:{}", absolutePath);
+		log.info("setting permissions for {} users", userFilePermissions.size());
+
+		// check every permission before anything is sent
+		List<String> accessLevels = new ArrayList<String>(
+				userFilePermissions.size());
+		for (UserFilePermission userFilePermission : userFilePermissions) {
+			if (userFilePermission == null) {
+				throw new IllegalArgumentException("null userFilePermission");
+			}
+
+			if (userFilePermission.getUserName() == null
+					|| userFilePermission.getUserName().isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty userName in userFilePermission");
+			}
+
+			if (userFilePermission.getFilePermissionEnum() == null) {
+				throw new IllegalArgumentException(
+						"null filePermissionEnum in userFilePermission");
+			}
+
+			accessLevels.add(BulkFileOperationUtils
+					.accessLevelForFilePermission(userFilePermission
+							.getFilePermissionEnum()));
+		}
+
+		if (userFilePermissions.isEmpty()) {
+			return new ArrayList<BulkFileOperationResponse>();
+		}
+
+		ObjStat objStat = retrieveObjStat(absolutePath);
+		if (objStat.getSpecColType() == SpecColType.MOUNTED_COLL) {
+			log.error("mounted collections do not support this operation:{}",
+					objStat);
+			throw new OperationNotSupportedForCollectionTypeException(
+					"The special collection type does not support this operation");
+		}
+
+		String absPath = resolveAbsolutePathGivenObjStat(objStat);
+		boolean recursiveFlag = recursiveFlagForPath(absPath, recursive);
+
+		List<ModAccessControlInp> requests = new ArrayList<ModAccessControlInp>(
+				userFilePermissions.size());
+		List<String> requestPaths = new ArrayList<String>(
+				userFilePermissions.size());
+		List<String> zones = new ArrayList<String>(userFilePermissions.size());
+
+		for (int i = 0; i < userFilePermissions.size(); i++) {
+			UserFilePermission userFilePermission = userFilePermissions.get(i);
+			String zone = userFilePermission.getUserZone() == null ? ""
+					: userFilePermission.getUserZone();
+			requests.add(ModAccessControlInp.instanceForSetPermission(
+					recursiveFlag, zone, absPath,
+					userFilePermission.getUserName(), accessLevels.get(i)));
+			requestPaths.add(absolutePath);
+			zones.add(zone);
+		}
+
+		// every reply is for the same path, so name the user in each
+		List<BulkFileOperationResponse> results = BulkFileOperationUtils
+				.executePipelined(getIRODSProtocol(), requests, requestPaths);
+		List<BulkFileOperationResponse> responses = new ArrayList<BulkFileOperationResponse>(
+				results.size());
+		for (int i = 0; i < results.size(); i++) {
+			BulkFileOperationResponse result = results.get(i);
+			responses.add(BulkFileOperationResponse.instanceForUser(
+					result.getResultStatus(), result.getAbsolutePath(),
+					userFilePermissions.get(i).getUserName(), zones.get(i),
+					result.getMessage()));
+		}
+		return responses;
+	}
+
+	/**
+	 * Decide the recursive flag of a permission request in
+	 * {@link #processBulkAccessPermission}. Data objects are never recursive.
+	 * 
+	 * @param absolutePath
+	 *            <code>String</code> with the resolved absolute path
+	 * @param recursive
+	 *            <code>boolean</code> as asked for by the caller
+	 * @return <code>boolean</code> with the flag to send
+	 * @throws JargonException
+	 */
+	protected boolean recursiveFlagForPath(final String absolutePath,
+			final boolean recursive) throws JargonException {
+		return false;
+	}
+
 }
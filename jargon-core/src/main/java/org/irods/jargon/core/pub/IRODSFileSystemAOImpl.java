@@ -12,6 +12,7 @@ import java.util.List;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.ObjStatCache;
 import org.irods.jargon.core.exception.CatalogAlreadyHasItemByThatNameException;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.DuplicateDataException;
@@ -461,8 +462,28 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 	public ObjStat getObjStat(final String irodsAbsolutePath)
 			throws FileNotFoundException, JargonException {
 		log.info("getObjStat(final String irodsAbsolutePath)");
-		return collectionAndDataObjectListAndSearchAO
+
+		ObjStatCache objStatCache = getIRODSSession().getObjStatCache();
+		if (objStatCache == null) {
+			return collectionAndDataObjectListAndSearchAO
+					.retrieveObjectStatForPathWithHeuristicPathGuessing(irodsAbsolutePath);
+		}
+
+		ObjStat objStat = objStatCache.retrieve(getIRODSAccount(),
+				irodsAbsolutePath);
+		if (objStat != null) {
+			log.debug("objStat from cache for:{}", irodsAbsolutePath);
+			return objStat;
+		}
+
+		objStat = collectionAndDataObjectListAndSearchAO
 				.retrieveObjectStatForPathWithHeuristicPathGuessing(irodsAbsolutePath);
+
+		// stand-ins are guesses for paths the user cannot see, do not keep
+		if (!objStat.isStandInGeneratedObjStat()) {
+			objStatCache.cache(getIRODSAccount(), irodsAbsolutePath, objStat);
+		}
+		return objStat;
 	}
 
 	/*
@@ -906,6 +927,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 
 		Tag response = getIRODSProtocol().irodsFunction(DataObjInp.PI_TAG,
 				dataObjInp.getParsedTags(), DataObjInp.OPEN_FILE_API_NBR);
+		invalidateCachedObjStat(irodsFile.getAbsolutePath());
 
 		if (response == null) {
 			String msg = "null response from IRODS call";
@@ -974,6 +996,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 
 		Tag response = getIRODSProtocol().irodsFunction(DataObjInp.PI_TAG,
 				dataObjInp.getParsedTags(), DataObjInp.CREATE_FILE_API_NBR);
+		invalidateCachedObjStat(absolutePath);
 		if (response == null) {
 			String msg = "null response from IRODS call";
 			log.error(msg);
@@ -1022,6 +1045,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 		} catch (CatalogAlreadyHasItemByThatNameException e) {
 			log.info("directory already exists in mkdir, log and ignore");
 		}
+		invalidateCachedObjStat(irodsFile.getAbsolutePath());
 
 		log.debug("mkdir succesful");
 	}
@@ -1093,6 +1117,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 				.getAbsolutePath());
 		Tag response = getIRODSProtocol().irodsFunction(DataObjInp.PI_TAG,
 				dataObjInp.getParsedTags(), DataObjInp.DELETE_FILE_API_NBR);
+		invalidateCachedObjStat(irodsFile.getAbsolutePath());
 
 		if (response != null) {
 			String msg = "unexpected response from irods, expected null message - logged and ignored ";
@@ -1137,6 +1162,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 		} catch (DuplicateDataException dde) {
 			log.warn("duplicate data exception logged and ignored, see GForge: [#639] 809000 errors on delete operations when trash file already exists");
 		}
+		invalidateCachedObjStat(irodsFile.getAbsolutePath());
 
 	}
 
@@ -1172,6 +1198,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 				collInp.getParsedTags(), CollInp.RMDIR_API_NBR);
 
 		processClientStatusMessages(response);
+		invalidateCachedObjStatForPathAndChildren(irodsFile.getAbsolutePath());
 
 		log.info("deletion successful");
 
@@ -1208,6 +1235,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 				collInp.getParsedTags(), CollInp.RMDIR_API_NBR);
 
 		processClientStatusMessages(response);
+		invalidateCachedObjStatForPathAndChildren(irodsFile.getAbsolutePath());
 
 		log.info("deletion successful");
 
@@ -1266,6 +1294,8 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 		Tag response = getIRODSProtocol().irodsFunction(DataObjInp.PI_TAG,
 				dataObjCopyInp.getParsedTags(),
 				DataObjCopyInp.RENAME_FILE_API_NBR);
+		invalidateCachedObjStatForPathAndChildren(fromFile.getAbsolutePath());
+		invalidateCachedObjStatForPathAndChildren(toFile.getAbsolutePath());
 
 		if (response != null) {
 			log.warn("unexpected response from irods, expected null message - logged and ignored ");
@@ -1300,6 +1330,8 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 		Tag response = getIRODSProtocol().irodsFunction(DataObjInp.PI_TAG,
 				dataObjCopyInp.getParsedTags(),
 				DataObjCopyInp.RENAME_FILE_API_NBR);
+		invalidateCachedObjStat(fromFile.getAbsolutePath());
+		invalidateCachedObjStat(toFile.getAbsolutePath());
 
 		if (response != null) {
 			log.warn("unexpected response from irods, expected null message - logged and ignored ");
@@ -1420,6 +1452,7 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 
 		Tag response = getIRODSProtocol().irodsFunction(DataObjInp.PI_TAG,
 				dataObjCopyInp.getParsedTags(), apiNbr);
+		invalidateCachedObjStat(absolutePathToSourceFile);
 
 		if (response != null) {
 			log.warn("unexpected response from irods, expected null message - logged and ignored ");
@@ -5,6 +5,7 @@ package org.irods.jargon.core.pub;
 
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.IRODSQueryResultRowIterator;
 import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.JargonQueryException;
 
@@ -209,6 +210,31 @@ public interface IRODSGenQueryExecutor extends IRODSAccessObject {
 			AbstractIRODSGenQuery irodsQuery, int partialStartIndex,
 			String zoneName) throws JargonException, JargonQueryException;
 
+	/**
+	 * Execute an iquest-like query and return an iterator over all of the
+	 * result rows, across pages. While rows of one page are being read, the
+	 * next page is requested from iRODS, so that at most two pages are held in
+	 * memory.
+	 * <p/>
+	 * The iterator uses the connection of this access object. If iteration is
+	 * stopped before the end, <code>close()</code> must be called on the
+	 * iterator so that the result set is closed in iRODS.
+	 * 
+	 * @param irodsQuery
+	 *            {@link org.irods.jargon.core.query.AbstractIRODSGenQuery} that
+	 *            will wrap the given query
+	 * @param zoneName
+	 *            <code>String</code> (<code>null</code> or blank if not used)
+	 *            that indicates an optional zone for the query
+	 * @return {@link org.irods.jargon.core.query.IRODSQueryResultRowIterator}
+	 *         over the rows of the query
+	 * @throws JargonException
+	 * @throws JargonQueryException
+	 */
+	IRODSQueryResultRowIterator executeIRODSQueryAsIterator(
+			AbstractIRODSGenQuery irodsQuery, String zoneName)
+			throws JargonException, JargonQueryException;
+
 	IRODSQueryResultSet getMoreResults(IRODSQueryResultSet irodsQueryResultSet)
 			throws JargonException, JargonQueryException;
 
@@ -5,6 +5,7 @@ import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.query.AbstractIRODSGenQuery;
 import org.irods.jargon.core.query.GenQueryProcessor;
+import org.irods.jargon.core.query.IRODSQueryResultRowIterator;
 import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.TranslatedIRODSGenQuery;
@@ -269,6 +270,45 @@ public final class IRODSGenQueryExecutorImpl extends IRODSGenericAO implements
 				QueryCloseBehavior.MANUAL_CLOSE, zoneName);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryAsIterator
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, java.lang.String)
+	 */
+	@Override
+	public IRODSQueryResultRowIterator executeIRODSQueryAsIterator(
+			final AbstractIRODSGenQuery irodsQuery, final String zoneName)
+			throws JargonException, JargonQueryException {
+
+		log.info("executeIRODSQueryAsIterator()");
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		log.info("query: {}", irodsQuery);
+
+		/*
+		 * the continuation index is only good on this connection, so the
+		 * iterator keeps this processor rather than looking up the connection
+		 * from the thread doing the prefetch
+		 */
+		GenQueryProcessor genQueryProcessor = new GenQueryProcessor(
+				getIRODSProtocol());
+
+		TranslatedIRODSGenQuery translatedIRODSQuery = genQueryProcessor
+				.translateProvidedQuery(irodsQuery);
+
+		IRODSQueryResultSet firstPage = genQueryProcessor
+				.executeTranslatedIRODSQuery(translatedIRODSQuery, 0, 0,
+						QueryCloseBehavior.MANUAL_CLOSE, zoneName);
+
+		return new IRODSQueryResultRowIterator(genQueryProcessor, firstPage,
+				zoneName);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -8,6 +8,7 @@ import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSServerProperties;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.connection.JargonProperties;
+import org.irods.jargon.core.connection.ObjStatCache;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.OperationComplete;
 import org.irods.jargon.core.packinstr.Tag;
@@ -126,6 +127,39 @@ public abstract class IRODSGenericAO implements IRODSAccessObject {
 		return getIRODSSession().currentConnection(getIRODSAccount());
 	}
 
+	/**
+	 * Drop any cached <code>ObjStat</code> for the path, and its parent, after
+	 * an operation that changes it. This does nothing if the
+	 * <code>ObjStat</code> cache is not in use.
+	 * 
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path that was changed
+	 */
+	protected void invalidateCachedObjStat(final String irodsAbsolutePath) {
+		ObjStatCache objStatCache = getIRODSSession().getObjStatCache();
+		if (objStatCache != null) {
+			objStatCache.invalidate(getIRODSAccount(), irodsAbsolutePath);
+		}
+	}
+
+	/**
+	 * Drop any cached <code>ObjStat</code> for the path, its parent, and
+	 * anything under the path, after an operation on a collection or one that
+	 * may place a file under the path. This does nothing if the
+	 * <code>ObjStat</code> cache is not in use.
+	 * 
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path that was changed
+	 */
+	protected void invalidateCachedObjStatForPathAndChildren(
+			final String irodsAbsolutePath) {
+		ObjStatCache objStatCache = getIRODSSession().getObjStatCache();
+		if (objStatCache != null) {
+			objStatCache.invalidatePathAndChildren(getIRODSAccount(),
+					irodsAbsolutePath);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -123,30 +123,9 @@ final class TransferOperationsHelper {
 					|| transferControlBlock.isPaused()) {
 				log.info("transfer cancelled or paused");
 				if (transferStatusCallbackListener != null) {
-					TransferState interruptStatus;
-					if (transferControlBlock
-							.shouldTransferBeAbandonedDueToNumberOfErrors()) {
-						interruptStatus = TransferState.FAILURE;
-					} else if (transferControlBlock.isCancelled()) {
-						interruptStatus = TransferState.CANCELLED;
-					} else {
-						interruptStatus = TransferState.PAUSED;
-					}
-
-					TransferStatus status = TransferStatus.instance(
-							TransferType.GET, fileInSourceCollection
-									.getAbsolutePath(), targetLocalFile
-									.getAbsolutePath(), "",
-							fileInSourceCollection.length(),
-							fileInSourceCollection.length(),
-							transferControlBlock
-									.getTotalFilesTransferredSoFar(),
-							transferControlBlock.getTotalFilesSkippedSoFar(),
-							transferControlBlock.getTotalFilesToTransfer(),
-							interruptStatus, dataObjectAO.getIRODSAccount()
-									.getHost(), dataObjectAO.getIRODSAccount()
-									.getZone());
-					transferStatusCallbackListener.statusCallback(status);
+					notifyPauseOrCancelCallbackForGet(targetLocalFile,
+							transferStatusCallbackListener,
+							transferControlBlock, fileInSourceCollection);
 					return;
 				}
 			}
@@ -197,6 +176,50 @@ final class TransferOperationsHelper {
 		}
 	}
 
+	/**
+	 * A get operation has been cancelled or paused, give the appropriate
+	 * callback
+	 * 
+	 * @param targetLocalFile
+	 *            <code>File</code> that was the target
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener} that receives the
+	 *            call-back, required
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} that contains information about
+	 *            the transfer
+	 * @param fileInSourceCollection
+	 *            <code>File</code> that was the current source of the get
+	 * @throws JargonException
+	 */
+	void notifyPauseOrCancelCallbackForGet(
+			final File targetLocalFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final File fileInSourceCollection) throws JargonException {
+
+		TransferState interruptStatus;
+		if (transferControlBlock.shouldTransferBeAbandonedDueToNumberOfErrors()) {
+			interruptStatus = TransferState.FAILURE;
+		} else if (transferControlBlock.isCancelled()) {
+			interruptStatus = TransferState.CANCELLED;
+		} else {
+			interruptStatus = TransferState.PAUSED;
+		}
+
+		TransferStatus status = TransferStatus.instance(TransferType.GET,
+				fileInSourceCollection.getAbsolutePath(),
+				targetLocalFile.getAbsolutePath(), "",
+				fileInSourceCollection.length(),
+				fileInSourceCollection.length(),
+				transferControlBlock.getTotalFilesTransferredSoFar(),
+				transferControlBlock.getTotalFilesSkippedSoFar(),
+				transferControlBlock.getTotalFilesToTransfer(),
+				interruptStatus, dataObjectAO.getIRODSAccount().getHost(),
+				dataObjectAO.getIRODSAccount().getZone());
+		transferStatusCallbackListener.statusCallback(status);
+	}
+
 	/**
 	 * In a transfer operation, process the given iRODS file as a data object to
 	 * be retrieved.
@@ -529,7 +552,7 @@ final class TransferOperationsHelper {
 	 *            {@link File} that was the current source of the put
 	 * @throws JargonException
 	 */
-	private void notifyPauseOrCancelCallbackForPut(
+	void notifyPauseOrCancelCallbackForPut(
 			final IRODSFile targetIrodsCollection,
 			final TransferStatusCallbackListener transferStatusCallbackListener,
 			final TransferControlBlock transferControlBlock,
@@ -572,7 +595,7 @@ final class TransferOperationsHelper {
 	 * @param je
 	 * @throws JargonException
 	 */
-	private void processRecursivePutException(
+	void processRecursivePutException(
 			final File fileInSourceCollection,
 			final TransferStatusCallbackListener transferStatusCallbackListener,
 			final IRODSFile newIrodsFile,
@@ -895,6 +918,33 @@ final class TransferOperationsHelper {
 			targetFileAsFile = targetIrodsFile;
 		}
 
+		processPutOfSingleFileToTarget(sourceFile, targetFileAsFile,
+				transferStatusCallbackListener, transferControlBlock);
+	}
+
+	/**
+	 * Put a single file, where the target is known to be the path of the data
+	 * object rather than its parent collection, so that the target need not be
+	 * looked up.
+	 * 
+	 * @param sourceFile
+	 *            <code>File</code> with the source local file
+	 * @param targetFileAsFile
+	 *            {@link IRODSFile} with the path of the data object to create
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener}, may be
+	 *            <code>null</code>, in which case errors are thrown
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock}, required
+	 * @throws JargonException
+	 */
+	void processPutOfSingleFileToTarget(
+			final File sourceFile,
+			final IRODSFile targetFileAsFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws OverwriteException, DataNotFoundException, JargonException {
+
 		try {
 
 			// if I am restarting a recursive transfer. Consult the last good
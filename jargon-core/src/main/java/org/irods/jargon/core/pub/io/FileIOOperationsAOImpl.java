@@ -85,15 +85,26 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 					+ offset);
 		}
 
+		return write(getIRODSProtocol(), fd, buffer, offset, length);
+	}
+
+	/**
+	 * Write on a given connection, for streams that write from a thread other
+	 * than the one that opened the file, as connections are per thread.
+	 * Parameters are not checked.
+	 */
+	static int write(final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final int fd, final byte buffer[], final int offset,
+			final int length) throws JargonException {
+
 		OpenedDataObjInp openedDataObjInp = OpenedDataObjInp
 				.instanceForFileWrite(fd, offset, length);
 		// DataObjWriteInp dataObjWriteInp = DataObjWriteInp.instance(fd,
 		// length);
 
-		Tag message = getIRODSProtocol().irodsFunction(
-				IRODSConstants.RODS_API_REQ, openedDataObjInp.getParsedTags(),
-				null, 0, 0, buffer, offset, length,
-				openedDataObjInp.getApiNumber());
+		Tag message = irodsProtocol.irodsFunction(IRODSConstants.RODS_API_REQ,
+				openedDataObjInp.getParsedTags(), null, 0, 0, buffer, offset,
+				length, openedDataObjInp.getApiNumber());
 
 		return message.getTag(IRODSConstants.MsgHeader_PI)
 				.getTag(IRODSConstants.intInfo).getIntValue();
@@ -152,30 +163,46 @@ final class FileIOOperationsAOImpl extends IRODSGenericAO implements
 			throw new IllegalArgumentException("invalid file descriptor");
 		}
 
+		return fileRead(getIRODSProtocol(), fd, buffer, offset, length);
+	}
+
+	/**
+	 * Read on a given connection, for streams that read from a thread other
+	 * than the one that opened the file, as connections are per thread. The
+	 * request and the bytes that follow the response are one exchange, so
+	 * other threads using the connection wait until the bytes are read.
+	 * Parameters are not checked.
+	 */
+	static int fileRead(final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final int fd, final byte buffer[], final int offset, int length)
+			throws JargonException {
+
 		OpenedDataObjInp fileReadInp = OpenedDataObjInp.instanceForFileRead(fd,
 				length);
-		AbstractIRODSMidLevelProtocol irodsProtocol = getIRODSProtocol();
-		Tag message = irodsProtocol.irodsFunction(fileReadInp);
 
-		// Need the total dataSize
-		if (message == null) {
-			return -1;
-		}
+		synchronized (irodsProtocol) {
+			Tag message = irodsProtocol.irodsFunction(fileReadInp);
 
-		length = message.getTag(IRODSConstants.MsgHeader_PI)
-				.getTag(IRODSConstants.bsLen).getIntValue();
+			// Need the total dataSize
+			if (message == null) {
+				return -1;
+			}
 
-		// read the message byte stream into the local file
+			length = message.getTag(IRODSConstants.MsgHeader_PI)
+					.getTag(IRODSConstants.bsLen).getIntValue();
 
-		int read = irodsProtocol.read(buffer, offset, length);
+			// read the message byte stream into the local file
 
-		if (read == message.getTag(IRODSConstants.MsgHeader_PI)
-				.getTag(IRODSConstants.intInfo).getIntValue()) {
-			return read;
-		} else {
-			log.error("did not read length equal to response length, expected"
-					+ length + " bytes actually read:" + read);
-			throw new JargonException("Bytes read mismatch");
+			int read = irodsProtocol.read(buffer, offset, length);
+
+			if (read == message.getTag(IRODSConstants.MsgHeader_PI)
+					.getTag(IRODSConstants.intInfo).getIntValue()) {
+				return read;
+			} else {
+				log.error("did not read length equal to response length, expected"
+						+ length + " bytes actually read:" + read);
+				throw new JargonException("Bytes read mismatch");
+			}
 		}
 	}
 
@@ -7,6 +7,7 @@ import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.NoResourceDefinedException;
 import org.irods.jargon.core.packinstr.DataObjInp;
 import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 
 /**
  * Defines the interface to a factory that can produce connected versions of
@@ -51,6 +52,23 @@ public interface IRODSFileFactory {
 	IRODSFile instanceIRODSFile(final String parent, final String child)
 			throws JargonException;
 
+	/**
+	 * Create an instance of an <code>IRODSFile</code> for an entry returned by
+	 * a listing. If the <code>ObjStat</code> cache is turned on in the jargon
+	 * properties, the cache is seeded from the listing data, so that calls
+	 * such as <code>isDirectory()</code>, <code>length()</code> and
+	 * <code>lastModified()</code> on the returned file do not go back to
+	 * iRODS. With the cache off this is the same as creating the file by path.
+	 * 
+	 * @param collectionAndDataObjectListingEntry
+	 *            {@link CollectionAndDataObjectListingEntry} from a listing
+	 * @return {@link IRODSFile}
+	 * @throws JargonException
+	 */
+	IRODSFile instanceIRODSFile(
+			CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry)
+			throws JargonException;
+
 	/**
 	 * Creates an iRODS output stream such that data can be written to the given
 	 * iRODS file. This will use the default OpenFlags.WRITE setting
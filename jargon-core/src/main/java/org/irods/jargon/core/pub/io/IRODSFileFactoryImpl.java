@@ -10,6 +10,7 @@ import java.net.URI;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.ObjStatCache;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.NoResourceDefinedException;
 import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
@@ -18,6 +19,9 @@ import org.irods.jargon.core.pub.FileCatalogObjectAOImpl;
 import org.irods.jargon.core.pub.IRODSFileSystemAO;
 import org.irods.jargon.core.pub.IRODSFileSystemAOImpl;
 import org.irods.jargon.core.pub.IRODSGenericAO;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.utils.IRODSUriUtils;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
 import org.slf4j.Logger;
@@ -160,6 +164,68 @@ public final class IRODSFileFactoryImpl extends IRODSGenericAO implements
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.io.IRODSFileFactory#instanceIRODSFile(org.irods
+	 * .jargon.core.query.CollectionAndDataObjectListingEntry)
+	 */
+	@Override
+	public IRODSFile instanceIRODSFile(
+			final CollectionAndDataObjectListingEntry collectionAndDataObjectListingEntry)
+			throws JargonException {
+
+		log.info("instanceIRODSFile(CollectionAndDataObjectListingEntry)");
+
+		if (collectionAndDataObjectListingEntry == null) {
+			throw new IllegalArgumentException(
+					"null collectionAndDataObjectListingEntry");
+		}
+
+		String path = collectionAndDataObjectListingEntry
+				.getFormattedAbsolutePath();
+		IRODSFile irodsFile = instanceIRODSFile(path);
+
+		ObjStatCache objStatCache = getIRODSSession().getObjStatCache();
+		/*
+		 * special collections resolve to other paths, so leave those to be
+		 * looked up
+		 */
+		if (objStatCache != null
+				&& collectionAndDataObjectListingEntry.getSpecColType() == SpecColType.NORMAL) {
+			log.debug("seeding objStat cache from listing for:{}", path);
+			objStatCache.cache(getIRODSAccount(), irodsFile.getAbsolutePath(),
+					buildObjStatFromListingEntry(
+							collectionAndDataObjectListingEntry,
+							irodsFile.getAbsolutePath()));
+		}
+
+		return irodsFile;
+	}
+
+	private ObjStat buildObjStatFromListingEntry(
+			final CollectionAndDataObjectListingEntry entry,
+			final String absolutePath) {
+		ObjStat objStat = new ObjStat();
+		objStat.setAbsolutePath(absolutePath);
+		objStat.setObjectPath(absolutePath);
+		objStat.setObjectType(entry.getObjectType());
+		objStat.setDataId(entry.getId());
+		objStat.setObjSize(entry.getDataSize());
+		objStat.setCreatedAt(entry.getCreatedAt());
+		objStat.setModifiedAt(entry.getModifiedAt());
+		objStat.setOwnerName(entry.getOwnerName());
+		objStat.setOwnerZone(entry.getOwnerZone());
+		objStat.setSpecColType(entry.getSpecColType());
+		if (entry.isCollection()) {
+			objStat.setCollectionPath(absolutePath);
+		} else {
+			objStat.setCollectionPath(entry.getParentPath());
+		}
+		return objStat;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -14,6 +14,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.ObjStatCache;
 import org.irods.jargon.core.exception.CatNoAccessException;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.DuplicateDataException;
@@ -1354,6 +1356,7 @@ public class IRODSFileImpl extends File implements IRODSFile {
 		}
 
 		setFileDescriptor(-1);
+		invalidateCachedObjStat();
 
 	}
 
@@ -1377,6 +1380,24 @@ public class IRODSFileImpl extends File implements IRODSFile {
 
 		irodsFileSystemAO.fileClose(fd, false);
 		setFileDescriptor(-1);
+		invalidateCachedObjStat();
+	}
+
+	/**
+	 * Size and modify time are updated in iRODS when the file is closed, so
+	 * drop any cached <code>ObjStat</code> for this file
+	 */
+	private void invalidateCachedObjStat() {
+		IRODSSession irodsSession = irodsFileSystemAO.getIRODSSession();
+		if (irodsSession == null) {
+			return;
+		}
+
+		ObjStatCache objStatCache = irodsSession.getObjStatCache();
+		if (objStatCache != null) {
+			objStatCache.invalidate(irodsFileSystemAO.getIRODSAccount(),
+					getAbsolutePath());
+		}
 	}
 
 	/*
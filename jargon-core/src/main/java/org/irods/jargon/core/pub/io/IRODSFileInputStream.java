@@ -443,6 +443,13 @@ public class IRODSFileInputStream extends InputStream {
 		return fileIOOperations;
 	}
 
+	/**
+	 * @return <code>int</code> with the iRODS file descriptor of the open file
+	 */
+	public int getFileDescriptor() {
+		return fd;
+	}
+
 	/**
 	 * Closes this file input stream and releases any system resources
 	 * associated with the stream.
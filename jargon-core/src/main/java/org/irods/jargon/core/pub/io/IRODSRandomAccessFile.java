@@ -51,6 +51,14 @@ import org.slf4j.LoggerFactory;
  * java.io.RandomAccessFile. However, it <I>is not</I> a subclass, due to the
  * unfortunate use of final methods in java.io.RandomAccessFile. </DIV>
  * <P>
+ * A block cache may be enabled for readers that make many small reads at
+ * scattered positions, such as readers of self describing binary formats. With
+ * the cache, reads are served from fixed size blocks of the file kept in least
+ * recently used order, and a miss reads the whole block from iRODS. Misses on
+ * consecutive blocks read several blocks at once. Writes go straight to iRODS
+ * and drop the cached blocks they touch. Seeks are not sent to iRODS until the
+ * next read or write that goes there.
+ * <P>
  * 
  * @author Mike Conway - DICE (www.irods.org) adopted from original Jargon
  *         implementation by Lucas Gilbert
@@ -63,6 +71,17 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	private final IRODSFile irodsFile;
 	private long filePointer = 0;
 	private BinaryDataFormat fileFormat = new BinaryDataFormat();
+	private final byte[] singleByte = new byte[1];
+	private RandomAccessBlockCache blockCache = null;
+	private byte[] blockReadBuffer = null;
+	/**
+	 * Position of the iRODS file descriptor while the block cache is enabled
+	 */
+	private long irodsPosition = 0;
+
+	public static final int DEFAULT_CACHE_BLOCK_SIZE = 64 * 1024;
+	public static final int DEFAULT_CACHE_MAX_BLOCKS = 64;
+	public static final int DEFAULT_CACHE_MAX_READ_AHEAD_BLOCKS = 8;
 
 	/**
 	 * Create an instance of the IRODS implementation of a random access file
@@ -104,6 +123,61 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 
 	}
 
+	/**
+	 * Serve reads from a block cache with the default block size, number of
+	 * blocks, and read ahead
+	 */
+	public void enableBlockCache() {
+		enableBlockCache(DEFAULT_CACHE_BLOCK_SIZE, DEFAULT_CACHE_MAX_BLOCKS,
+				DEFAULT_CACHE_MAX_READ_AHEAD_BLOCKS);
+	}
+
+	/**
+	 * Serve reads from a block cache. Any blocks already cached are dropped.
+	 * 
+	 * @param blockSize
+	 *            <code>int</code> with the size in bytes of each block read
+	 *            from iRODS
+	 * @param maxBlocks
+	 *            <code>int</code> with the most blocks to keep, at least 2
+	 * @param maxReadAheadBlocks
+	 *            <code>int</code> with the most blocks read at once when
+	 *            consecutive blocks are missed, at least 1 and at most half of
+	 *            <code>maxBlocks</code>
+	 */
+	public void enableBlockCache(final int blockSize, final int maxBlocks,
+			final int maxReadAheadBlocks) {
+		log.info("enabling block cache with block size:{}", blockSize);
+		blockCache = new RandomAccessBlockCache(blockSize, maxBlocks,
+				maxReadAheadBlocks);
+		blockReadBuffer = new byte[blockSize * maxReadAheadBlocks];
+		irodsPosition = filePointer;
+	}
+
+	/**
+	 * Stop using the block cache, seeking in iRODS to the current file pointer
+	 * if needed
+	 * 
+	 * @throws IOException
+	 */
+	public void disableBlockCache() throws IOException {
+		if (blockCache == null) {
+			return;
+		}
+		log.info("disabling block cache");
+		seekInIrodsIfNeeded(filePointer);
+		blockCache = null;
+		blockReadBuffer = null;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if reads are
+	 *         served from the block cache
+	 */
+	public boolean isBlockCacheEnabled() {
+		return blockCache != null;
+	}
+
 	/**
 	 * Reads nValues input bytes, each one representing a boolean value, and set
 	 * each value in a boolean array to true if the corresponding byte is
@@ -519,7 +593,7 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 			newPosition = length;
 		}
 
-		seek(newPosition, SeekWhenceType.SEEK_CURRENT);
+		seek(newPosition, SeekWhenceType.SEEK_START);
 
 		return (int) (newPosition - position);
 	}
@@ -871,6 +945,13 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 *             reached.
 	 */
 	public int read() throws IOException {
+		if (blockCache != null) {
+			if (readFromBlockCache(singleByte, 0, 1) == 1) {
+				return singleByte[0];
+			}
+			return -1;
+		}
+
 		byte buffer[] = new byte[1];
 		int offset = 0;
 		int read;
@@ -904,6 +985,10 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	protected int readBytes(final byte buffer[], final int offset, final int len)
 			throws IOException {
+		if (blockCache != null) {
+			return readFromBlockCache(buffer, offset, len);
+		}
+
 		int read;
 		try {
 			read = fileIOOperations.fileRead(irodsFile.getFileDescriptor(),
@@ -917,6 +1002,120 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 		return read;
 	}
 
+	/**
+	 * Copy from cached blocks at the file pointer, reading missing blocks from
+	 * iRODS
+	 * 
+	 * @return <code>int</code> with the bytes copied, or <code>-1</code> at
+	 *         the end of the file
+	 */
+	private int readFromBlockCache(final byte buffer[], final int offset,
+			final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		int blockSize = blockCache.getBlockSize();
+		int totalRead = 0;
+		while (totalRead < len) {
+			long blockIndex = filePointer / blockSize;
+			int blockOffset = (int) (filePointer % blockSize);
+			byte[] block = blockCache.get(blockIndex);
+			if (block == null) {
+				block = readBlocksFromIrods(blockIndex);
+			}
+
+			if (blockOffset >= block.length) {
+				break;
+			}
+
+			int lenToCopy = Math.min(len - totalRead, block.length
+					- blockOffset);
+			System.arraycopy(block, blockOffset, buffer, offset + totalRead,
+					lenToCopy);
+			totalRead += lenToCopy;
+			filePointer += lenToCopy;
+
+			if (block.length < blockSize) {
+				// a short block is the end of the file
+				break;
+			}
+		}
+
+		return totalRead > 0 ? totalRead : -1;
+	}
+
+	/**
+	 * Read a missed block from iRODS, along with the blocks after it if the
+	 * reads are sequential, and cache them
+	 * 
+	 * @return <code>byte[]</code> with the missed block, empty if it is past
+	 *         the end of the file
+	 */
+	private byte[] readBlocksFromIrods(final long blockIndex)
+			throws IOException {
+		int blockSize = blockCache.getBlockSize();
+		int lenToRead = blockCache.blocksToReadForMiss(blockIndex) * blockSize;
+		long blockPosition = blockIndex * blockSize;
+		seekInIrodsIfNeeded(blockPosition);
+
+		int totalRead = 0;
+		try {
+			while (totalRead < lenToRead) {
+				int read = fileIOOperations.fileRead(
+						irodsFile.getFileDescriptor(), blockReadBuffer,
+						totalRead, lenToRead - totalRead);
+				if (read <= 0) {
+					break;
+				}
+				totalRead += read;
+			}
+		} catch (JargonException e) {
+			log.error("JargonException reading file", e);
+			// position in iRODS is unknown, seek before the next read
+			irodsPosition = -1;
+			throw new IOException(e);
+		}
+		irodsPosition = blockPosition + totalRead;
+
+		byte[] missedBlock = null;
+		int blockStart = 0;
+		long index = blockIndex;
+		do {
+			int blockLength = Math.min(blockSize, totalRead - blockStart);
+			byte[] block = new byte[blockLength];
+			System.arraycopy(blockReadBuffer, blockStart, block, 0,
+					blockLength);
+			blockCache.put(index, block);
+			if (missedBlock == null) {
+				missedBlock = block;
+			}
+			blockStart += blockSize;
+			index++;
+		} while (blockStart < totalRead);
+
+		return missedBlock;
+	}
+
+	/**
+	 * With the block cache, make the deferred seek in iRODS before going there
+	 * to read or write
+	 */
+	private void seekInIrodsIfNeeded(final long position) throws IOException {
+		if (irodsPosition == position) {
+			return;
+		}
+
+		try {
+			fileIOOperations.seek(irodsFile.getFileDescriptor(), position,
+					SeekWhenceType.SEEK_START);
+		} catch (JargonException e) {
+			log.error("JargonException seeking in file", e);
+			throw new IOException(e);
+		}
+		irodsPosition = position;
+	}
+
 	/**
 	 * Writes a sub array as a sequence of bytes.
 	 * 
@@ -931,6 +1130,24 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 */
 	protected void writeBytes(final byte buffer[], final int offset,
 			final int len) throws IOException {
+		if (blockCache != null) {
+			seekInIrodsIfNeeded(filePointer);
+			long writePosition = filePointer;
+			try {
+				int written = fileIOOperations.write(
+						irodsFile.getFileDescriptor(), buffer, offset, len);
+				filePointer += written;
+				irodsPosition = filePointer;
+			} catch (JargonException e) {
+				log.error("JargonException writing file", e);
+				irodsPosition = -1;
+				throw new IOException(e);
+			} finally {
+				blockCache.invalidate(writePosition, len);
+			}
+			return;
+		}
+
 		try {
 			filePointer += fileIOOperations.write(
 					irodsFile.getFileDescriptor(), buffer, offset, len);
@@ -979,14 +1196,34 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 			throw new IllegalArgumentException();
 		}
 
+		if (blockCache != null && origin != SeekWhenceType.SEEK_END) {
+			// sent to iRODS with the next read or write that goes there
+			if (origin == SeekWhenceType.SEEK_CURRENT) {
+				filePointer += position;
+			} else {
+				filePointer = position;
+			}
+			return;
+		}
+
+		/*
+		 * Only iRODS knows where the end is while the file is open, so a seek
+		 * from the end is always made there
+		 */
 		try {
-			fileIOOperations.seek(irodsFile.getFileDescriptor(), position,
-					origin);
+			filePointer = fileIOOperations.seek(irodsFile.getFileDescriptor(),
+					position, origin);
 		} catch (JargonException e) {
 			log.error("JargonException reading file", e);
+			if (blockCache != null) {
+				irodsPosition = -1;
+			}
 			throw new IOException(e);
 		}
-		filePointer = position;
+
+		if (blockCache != null) {
+			irodsPosition = filePointer;
+		}
 	}
 
 	/**
@@ -1086,6 +1323,10 @@ public class IRODSRandomAccessFile implements DataInput, DataOutput {
 	 * This method closes the underlying IRODSFileImpl
 	 */
 	public void close() throws IOException {
+		if (blockCache != null) {
+			blockCache.clear();
+		}
+
 		try {
 			log.debug("closing: {}", irodsFile.getAbsolutePath());
 			irodsFile.close();
@@ -23,6 +23,12 @@ public class PackingIrodsInputStream extends InputStream {
 	private final IRODSFileInputStream irodsFileInputStream;
 	private ByteArrayInputStream byteArrayInputStream = null;
 	private final int bufferSizeForIrods;
+	/**
+	 * Reused for each chunk, the previous chunk is always read out before the
+	 * next is fetched
+	 */
+	private final byte[] chunkBuffer;
+	private final byte[] singleByte = new byte[1];
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 	private boolean done = false;
 
@@ -40,6 +46,7 @@ public class PackingIrodsInputStream extends InputStream {
 			throw new JargonRuntimeException(
 					"misconfiguration in jargon.properties, getBufferSize is <= 0");
 		}
+		chunkBuffer = new byte[bufferSizeForIrods];
 	}
 
 	private void checkAndInitializeNextByteInputStream() throws IOException {
@@ -61,28 +68,25 @@ public class PackingIrodsInputStream extends InputStream {
 	 */
 	private void fillByteBufferFromIrods() throws IOException {
 
-		byte[] b = new byte[bufferSizeForIrods];
-
-		int length = this.irodsFileInputStream.read(b);
+		int length = this.irodsFileInputStream.read(chunkBuffer);
 
 		if (length == -1) {
 			byteArrayInputStream = null;
 			done = true;
 		} else {
-			byteArrayInputStream = new ByteArrayInputStream(b, 0, length);
+			byteArrayInputStream = new ByteArrayInputStream(chunkBuffer, 0,
+					length);
 		}
 	}
 
 	@Override
 	public int read() throws IOException {
-		byte buffer[] = new byte[1];
-
-		int temp = this.read(buffer, 0, 1);
+		int temp = this.read(singleByte, 0, 1);
 
 		if (temp < 0) {
 			return -1;
 		}
-		return (buffer[0] & 0xFF);
+		return (singleByte[0] & 0xFF);
 
 	}
 
@@ -0,0 +1,188 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub.io;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed size blocks of an iRODS file, as read by an
+ * {@link IRODSRandomAccessFile}, kept in least recently used order up to a
+ * maximum number of blocks. Also tracks whether blocks are being missed in
+ * order, so that a sequential reader can be served by reading several blocks
+ * at once.
+ * <p/>
+ * A block shorter than the block size is the end of the file. This class is
+ * not thread-safe, as the random access file is not.
+ */
+class RandomAccessBlockCache {
+
+	private final int blockSize;
+	private final int maxBlocks;
+	private final int maxReadAheadBlocks;
+	private final LinkedHashMap<Long, byte[]> blocks;
+	private long nextSequentialBlock = -1;
+	private int readAheadBlocks = 1;
+
+	/**
+	 * @param blockSize
+	 *            <code>int</code> with the size in bytes of each block
+	 * @param maxBlocks
+	 *            <code>int</code> with the most blocks to keep, at least 2
+	 * @param maxReadAheadBlocks
+	 *            <code>int</code> with the most blocks to read at once for a
+	 *            sequential reader, at least 1, and no more than half of
+	 *            <code>maxBlocks</code> so that read ahead does not push out
+	 *            the blocks being read
+	 */
+	RandomAccessBlockCache(final int blockSize, final int maxBlocks,
+			final int maxReadAheadBlocks) {
+
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("blockSize must be > 0");
+		}
+
+		if (maxBlocks < 2) {
+			throw new IllegalArgumentException("maxBlocks must be >= 2");
+		}
+
+		if (maxReadAheadBlocks < 1 || maxReadAheadBlocks > maxBlocks / 2) {
+			throw new IllegalArgumentException(
+					"maxReadAheadBlocks must be between 1 and half of maxBlocks");
+		}
+
+		this.blockSize = blockSize;
+		this.maxBlocks = maxBlocks;
+		this.maxReadAheadBlocks = maxReadAheadBlocks;
+		blocks = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<Long, byte[]> eldest) {
+				return size() > RandomAccessBlockCache.this.maxBlocks;
+			}
+		};
+	}
+
+	/**
+	 * @param blockIndex
+	 *            <code>long</code> with the position of the block in the file
+	 *            divided by the block size
+	 * @return <code>byte[]</code> with the block, or <code>null</code> if not
+	 *         cached
+	 */
+	byte[] get(final long blockIndex) {
+		return blocks.get(blockIndex);
+	}
+
+	/**
+	 * @param blockIndex
+	 *            <code>long</code> with the index of the block
+	 * @param block
+	 *            <code>byte[]</code> with the contents of the block, shorter
+	 *            than the block size only at the end of the file
+	 */
+	void put(final long blockIndex, final byte[] block) {
+		blocks.put(blockIndex, block);
+	}
+
+	/**
+	 * Decide how many blocks to read for a miss on the given block, and
+	 * remember the miss. A miss on the block after the ones last read doubles
+	 * the read ahead up to the maximum, any other miss resets it to one block.
+	 *
+	 * @param blockIndex
+	 *            <code>long</code> with the index of the missed block
+	 * @return <code>int</code> with the number of blocks to read, starting
+	 *         with the missed one
+	 */
+	int blocksToReadForMiss(final long blockIndex) {
+		if (blockIndex == nextSequentialBlock) {
+			readAheadBlocks = Math.min(readAheadBlocks * 2, maxReadAheadBlocks);
+		} else {
+			readAheadBlocks = 1;
+		}
+		nextSequentialBlock = blockIndex + readAheadBlocks;
+		return readAheadBlocks;
+	}
+
+	/**
+	 * Drop every block holding any of the given range of bytes, after those
+	 * bytes are written
+	 *
+	 * @param position
+	 *            <code>long</code> with the file position of the first byte
+	 * @param length
+	 *            <code>long</code> with the number of bytes
+	 */
+	void invalidate(final long position, final long length) {
+		if (length <= 0) {
+			return;
+		}
+
+		long firstBlock = position / blockSize;
+		long lastBlock = (position + length - 1) / blockSize;
+
+		if (lastBlock - firstBlock + 1 > blocks.size()) {
+			Iterator<Long> iterator = blocks.keySet().iterator();
+			while (iterator.hasNext()) {
+				long blockIndex = iterator.next();
+				if (blockIndex >= firstBlock && blockIndex <= lastBlock) {
+					iterator.remove();
+				}
+			}
+		} else {
+			for (long blockIndex = firstBlock; blockIndex <= lastBlock; blockIndex++) {
+				blocks.remove(blockIndex);
+			}
+		}
+
+		/*
+		 * A short block anywhere before the write may no longer be the end of
+		 * the file, as a write past the end fills the gap
+		 */
+		Iterator<Map.Entry<Long, byte[]>> iterator = blocks.entrySet()
+				.iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Long, byte[]> entry = iterator.next();
+			if (entry.getKey() < firstBlock
+					&& entry.getValue().length < blockSize) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drop all blocks
+	 */
+	void clear() {
+		blocks.clear();
+		nextSequentialBlock = -1;
+		readAheadBlocks = 1;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of blocks held
+	 */
+	int size() {
+		return blocks.size();
+	}
+
+	/**
+	 * @return <code>int</code> with the size in bytes of each block
+	 */
+	int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * @return <code>int</code> with the most blocks read at once
+	 */
+	int getMaxReadAheadBlocks() {
+		return maxReadAheadBlocks;
+	}
+
+}
@@ -0,0 +1,380 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wrap an iRODS input stream so that chunks are read from iRODS ahead of the
+ * caller on a background thread. As with {@link PackingIrodsInputStream},
+ * chunks are fetched at the get buffer size in jargon properties, but here up
+ * to a given number of chunks are fetched while the caller is still consuming
+ * earlier ones, so a sequential reader overlaps the round trips to iRODS with
+ * its own work.
+ * <p/>
+ * The chunks are held in a fixed ring of buffers that is allocated once, and
+ * buffers are handed back to the background thread as the caller finishes
+ * with them. The background thread reads on the connection of the thread that
+ * created this stream, and other use of that connection in the meantime waits
+ * for the chunk being read.
+ * <p/>
+ * This stream is meant for one reader reading from start to end. Mark and
+ * reset are not supported, and skipping reads through the skipped data.
+ * Errors reading a chunk are thrown from the read after the chunks that came
+ * before it. This stream must be closed, which stops the background thread
+ * and closes the underlying stream.
+ */
+public class ReadAheadIrodsInputStream extends InputStream {
+
+	public static final int DEFAULT_CHUNKS_TO_READ_AHEAD = 2;
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final IRODSFileInputStream irodsFileInputStream;
+	private final BlockingQueue<Chunk> freeChunks;
+	private final BlockingQueue<Chunk> filledChunks;
+	private final Thread readAheadThread;
+	private final byte[] singleByte = new byte[1];
+	private Chunk currentChunk = null;
+	private boolean done = false;
+	private volatile boolean closed = false;
+
+	/**
+	 * Wrap an input stream, reading ahead the default number of chunks
+	 *
+	 * @param irodsFileInputStream
+	 *            {@link IRODSFileInputStream} that is open, and that has not
+	 *            been read from another thread
+	 * @throws JargonException
+	 */
+	public ReadAheadIrodsInputStream(
+			final IRODSFileInputStream irodsFileInputStream)
+			throws JargonException {
+		this(irodsFileInputStream, DEFAULT_CHUNKS_TO_READ_AHEAD);
+	}
+
+	/**
+	 * Wrap an input stream, reading ahead the given number of chunks
+	 *
+	 * @param irodsFileInputStream
+	 *            {@link IRODSFileInputStream} that is open, and that has not
+	 *            been read from another thread
+	 * @param chunksToReadAhead
+	 *            <code>int</code> with the number of chunks to read while the
+	 *            caller consumes the current one, at least 1
+	 * @throws JargonException
+	 */
+	public ReadAheadIrodsInputStream(
+			final IRODSFileInputStream irodsFileInputStream,
+			final int chunksToReadAhead) throws JargonException {
+		super();
+		if (irodsFileInputStream == null) {
+			throw new IllegalArgumentException("null irodsFileInputStream");
+		}
+
+		if (chunksToReadAhead < 1) {
+			throw new IllegalArgumentException("chunksToReadAhead must be >= 1");
+		}
+
+		this.irodsFileInputStream = irodsFileInputStream;
+		int bufferSizeForIrods = irodsFileInputStream.getFileIOOperations()
+				.getJargonProperties().getGetBufferSize();
+		log.info("buffer size for gets from iRODS:{}", bufferSizeForIrods);
+		if (bufferSizeForIrods <= 0) {
+			throw new JargonException(
+					"misconfiguration in jargon.properties, getBufferSize is <= 0");
+		}
+
+		final AbstractIRODSMidLevelProtocol irodsProtocol = irodsFileInputStream
+				.getFileIOOperations().getIRODSProtocol();
+
+		// one more than read ahead, for the chunk being consumed
+		int ringSize = chunksToReadAhead + 1;
+		freeChunks = new ArrayBlockingQueue<Chunk>(ringSize);
+		filledChunks = new ArrayBlockingQueue<Chunk>(ringSize);
+		for (int i = 0; i < ringSize; i++) {
+			freeChunks.add(new Chunk(bufferSizeForIrods));
+		}
+
+		final int fd = irodsFileInputStream.getFileDescriptor();
+		readAheadThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readAhead(irodsProtocol, fd);
+			}
+		}, "jargon-irods-read-ahead");
+		readAheadThread.setDaemon(true);
+		readAheadThread.start();
+	}
+
+	/**
+	 * Run in the background thread, reading chunks until the end of the file,
+	 * an error, or close. The last chunk put in the ring is always an end or
+	 * an error.
+	 */
+	private void readAhead(final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final int fd) {
+		log.debug("read ahead started for fd:{}", fd);
+		while (true) {
+			Chunk chunk;
+			try {
+				chunk = freeChunks.take();
+			} catch (InterruptedException e) {
+				log.info("read ahead interrupted");
+				return;
+			}
+
+			if (closed) {
+				log.debug("stream closed, read ahead ends");
+				return;
+			}
+
+			try {
+				chunk.length = FileIOOperationsAOImpl.fileRead(irodsProtocol,
+						fd, chunk.buffer, 0, chunk.buffer.length);
+				chunk.position = 0;
+				chunk.error = null;
+			} catch (Exception e) {
+				log.error("error reading ahead from iRODS", e);
+				chunk.length = -1;
+				chunk.error = e;
+			}
+
+			filledChunks.add(chunk);
+
+			if (chunk.length <= 0) {
+				log.debug("read ahead reached end of data");
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get a chunk with bytes to read, handing back any used up chunk.
+	 *
+	 * @return {@link Chunk} with bytes remaining, or <code>null</code> at the
+	 *         end of the data
+	 * @throws IOException
+	 *             for an error reading ahead, or if closed
+	 */
+	private Chunk chunkWithBytesRemaining() throws IOException {
+		if (closed) {
+			throw new IOException("stream is closed");
+		}
+
+		if (currentChunk != null && currentChunk.remaining() > 0) {
+			return currentChunk;
+		}
+
+		if (done) {
+			return null;
+		}
+
+		if (currentChunk != null) {
+			freeChunks.add(currentChunk);
+			currentChunk = null;
+		}
+
+		Chunk chunk;
+		try {
+			chunk = filledChunks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted waiting for data from iRODS", e);
+		}
+
+		if (chunk.error != null) {
+			done = true;
+			throw new IOException(chunk.error);
+		}
+
+		if (chunk.length <= 0) {
+			log.info("at end of stream");
+			done = true;
+			return null;
+		}
+
+		currentChunk = chunk;
+		return chunk;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		int temp = this.read(singleByte, 0, 1);
+
+		if (temp < 0) {
+			return -1;
+		}
+		return (singleByte[0] & 0xFF);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#read(byte[])
+	 */
+	@Override
+	public int read(final byte[] b) throws IOException {
+		return this.read(b, 0, b.length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+
+		if (len == 0) {
+			return 0;
+		}
+
+		int myOffset = off;
+		int myLen = len;
+		int totalRead = 0;
+
+		/*
+		 * Copy from successive chunks until the request is filled. Only wait
+		 * for a chunk if nothing has been copied yet.
+		 */
+		while (myLen > 0) {
+			if (totalRead > 0 && filledChunks.isEmpty()
+					&& (currentChunk == null || currentChunk.remaining() == 0)) {
+				break;
+			}
+
+			Chunk chunk = chunkWithBytesRemaining();
+			if (chunk == null) {
+				break;
+			}
+
+			int lenToRead = Math.min(myLen, chunk.remaining());
+			System.arraycopy(chunk.buffer, chunk.position, b, myOffset,
+					lenToRead);
+			chunk.position += lenToRead;
+			myOffset += lenToRead;
+			myLen -= lenToRead;
+			totalRead += lenToRead;
+		}
+
+		return totalRead > 0 ? totalRead : -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#skip(long)
+	 */
+	@Override
+	public long skip(final long n) throws IOException {
+		long skipped = 0;
+		while (skipped < n) {
+			Chunk chunk = chunkWithBytesRemaining();
+			if (chunk == null) {
+				break;
+			}
+			int toSkip = (int) Math.min(n - skipped, chunk.remaining());
+			chunk.position += toSkip;
+			skipped += toSkip;
+		}
+		return skipped;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#available()
+	 */
+	@Override
+	public int available() throws IOException {
+		if (closed || currentChunk == null) {
+			return 0;
+		}
+		return currentChunk.remaining();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#markSupported()
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Stop reading ahead, waiting for any chunk being read, and close the
+	 * underlying stream. This may be called more than once.
+	 *
+	 * @see java.io.InputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		log.info("closing read ahead stream");
+		closed = true;
+
+		/*
+		 * Hand every chunk back so the background thread is not left waiting
+		 * for a free one, it will see the close and stop
+		 */
+		if (currentChunk != null) {
+			freeChunks.add(currentChunk);
+			currentChunk = null;
+		}
+		filledChunks.drainTo(freeChunks);
+
+		boolean interrupted = false;
+		while (readAheadThread.isAlive()) {
+			try {
+				readAheadThread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		irodsFileInputStream.close();
+	}
+
+	/**
+	 * A buffer in the ring and how much of it holds data
+	 */
+	private static final class Chunk {
+		private final byte[] buffer;
+		private int length = 0;
+		private int position = 0;
+		private Exception error = null;
+
+		Chunk(final int size) {
+			buffer = new byte[size];
+		}
+
+		int remaining() {
+			return length - position;
+		}
+	}
+
+}
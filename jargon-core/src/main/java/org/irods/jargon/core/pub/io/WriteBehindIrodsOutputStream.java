@@ -0,0 +1,356 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wrap an iRODS output stream so that chunks are written to iRODS behind the
+ * caller on a background thread. As with {@link PackingIrodsOutputStream},
+ * bytes are gathered up to the put buffer size in jargon properties before
+ * being sent, but here the caller can go on filling the next chunks while
+ * earlier ones are sent, so a sequential writer overlaps the round trips to
+ * iRODS with its own work.
+ * <p/>
+ * The chunks are held in a fixed ring of buffers that is allocated once. The
+ * background thread writes on the connection of the thread that created this
+ * stream.
+ * <p/>
+ * An error writing a chunk is thrown from the next write, flush or close, and
+ * no more chunks are sent after it. <code>flush()</code> waits until every
+ * chunk so far is in iRODS. This stream must be closed, which sends the rest
+ * of the data, stops the background thread and closes the underlying stream.
+ */
+public class WriteBehindIrodsOutputStream extends OutputStream {
+
+	public static final int DEFAULT_CHUNKS_TO_WRITE_BEHIND = 2;
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+	private final IRODSFileOutputStream irodsFileOutputStream;
+	private final BlockingQueue<Chunk> freeChunks;
+	private final BlockingQueue<Chunk> filledChunks;
+	private final Object chunksSentLock = new Object();
+	private int chunksBeingSent = 0;
+	private final Thread writeBehindThread;
+	private final byte[] singleByte = new byte[1];
+	private Chunk currentChunk = null;
+	private volatile Exception writeError = null;
+	private boolean closed = false;
+
+	/**
+	 * Wrap an output stream, writing behind the default number of chunks
+	 *
+	 * @param irodsFileOutputStream
+	 *            {@link IRODSFileOutputStream} that is open, and that is not
+	 *            written from another thread
+	 * @throws JargonException
+	 */
+	public WriteBehindIrodsOutputStream(
+			final IRODSFileOutputStream irodsFileOutputStream)
+			throws JargonException {
+		this(irodsFileOutputStream, DEFAULT_CHUNKS_TO_WRITE_BEHIND);
+	}
+
+	/**
+	 * Wrap an output stream, writing behind the given number of chunks
+	 *
+	 * @param irodsFileOutputStream
+	 *            {@link IRODSFileOutputStream} that is open, and that is not
+	 *            written from another thread
+	 * @param chunksToWriteBehind
+	 *            <code>int</code> with the number of chunks that may be
+	 *            waiting to be sent while the caller fills the current one, at
+	 *            least 1
+	 * @throws JargonException
+	 */
+	public WriteBehindIrodsOutputStream(
+			final IRODSFileOutputStream irodsFileOutputStream,
+			final int chunksToWriteBehind) throws JargonException {
+		super();
+		if (irodsFileOutputStream == null) {
+			throw new IllegalArgumentException("null irodsFileOutputStream");
+		}
+
+		if (chunksToWriteBehind < 1) {
+			throw new IllegalArgumentException(
+					"chunksToWriteBehind must be >= 1");
+		}
+
+		this.irodsFileOutputStream = irodsFileOutputStream;
+		int bufferSizeForIrods = irodsFileOutputStream.getFileIOOperations()
+				.getJargonProperties().getPutBufferSize();
+		if (bufferSizeForIrods <= 0) {
+			throw new JargonException(
+					"misconfiguration in jargon.properties, putBufferSize is <= 0");
+		}
+		log.info("buffer size for puts to iRODS:{}", bufferSizeForIrods);
+
+		final AbstractIRODSMidLevelProtocol irodsProtocol = irodsFileOutputStream
+				.getFileIOOperations().getIRODSProtocol();
+
+		// one more than write behind, for the chunk being filled
+		int ringSize = chunksToWriteBehind + 1;
+		freeChunks = new ArrayBlockingQueue<Chunk>(ringSize);
+		filledChunks = new ArrayBlockingQueue<Chunk>(ringSize);
+		for (int i = 0; i < ringSize; i++) {
+			freeChunks.add(new Chunk(bufferSizeForIrods));
+		}
+
+		final int fd = irodsFileOutputStream.getFileDescriptor();
+		writeBehindThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeBehind(irodsProtocol, fd);
+			}
+		}, "jargon-irods-write-behind");
+		writeBehindThread.setDaemon(true);
+		writeBehindThread.start();
+	}
+
+	/**
+	 * Run in the background thread, sending chunks until an empty chunk marks
+	 * the close. After an error, chunks are handed back without being sent.
+	 */
+	private void writeBehind(final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final int fd) {
+		log.debug("write behind started for fd:{}", fd);
+		while (true) {
+			Chunk chunk;
+			try {
+				chunk = filledChunks.take();
+			} catch (InterruptedException e) {
+				log.info("write behind interrupted");
+				return;
+			}
+
+			if (chunk.length == 0) {
+				freeChunks.add(chunk);
+				log.debug("write behind stopped");
+				return;
+			}
+
+			if (writeError == null) {
+				try {
+					int written = FileIOOperationsAOImpl.write(irodsProtocol,
+							fd, chunk.buffer, 0, chunk.length);
+					if (written != chunk.length) {
+						throw new JargonException("wrote " + written
+								+ " bytes of a chunk of " + chunk.length);
+					}
+				} catch (Exception e) {
+					log.error("error writing behind to iRODS", e);
+					writeError = e;
+				}
+			}
+
+			chunk.length = 0;
+			freeChunks.add(chunk);
+			synchronized (chunksSentLock) {
+				chunksBeingSent--;
+				chunksSentLock.notifyAll();
+			}
+		}
+	}
+
+	private void checkWriteError() throws IOException {
+		if (writeError != null) {
+			throw new IOException("error writing to iRODS", writeError);
+		}
+	}
+
+	private void checkOpen() throws IOException {
+		if (closed) {
+			throw new IOException("stream is closed");
+		}
+		checkWriteError();
+	}
+
+	/**
+	 * Get a chunk with room to write, sending the current chunk if it is full
+	 *
+	 * @return {@link Chunk} with room
+	 * @throws IOException
+	 */
+	private Chunk chunkWithRoom() throws IOException {
+		if (currentChunk != null && currentChunk.room() > 0) {
+			return currentChunk;
+		}
+
+		if (currentChunk != null) {
+			sendCurrentChunk();
+		}
+
+		try {
+			currentChunk = freeChunks.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted waiting to write to iRODS", e);
+		}
+		checkWriteError();
+		return currentChunk;
+	}
+
+	private void sendCurrentChunk() {
+		if (currentChunk == null) {
+			return;
+		}
+
+		if (currentChunk.length == 0) {
+			// an empty chunk would mark the close, keep it for later
+			return;
+		}
+
+		synchronized (chunksSentLock) {
+			chunksBeingSent++;
+		}
+		filledChunks.add(currentChunk);
+		currentChunk = null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		checkOpen();
+		int myOff = off;
+		int myLen = len;
+		while (myLen > 0) {
+			Chunk chunk = chunkWithRoom();
+			int lenToCopy = Math.min(myLen, chunk.room());
+			System.arraycopy(b, myOff, chunk.buffer, chunk.length, lenToCopy);
+			chunk.length += lenToCopy;
+			myOff += lenToCopy;
+			myLen -= lenToCopy;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(byte[])
+	 */
+	@Override
+	public void write(final byte[] b) throws IOException {
+		this.write(b, 0, b.length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.OutputStream#write(int)
+	 */
+	@Override
+	public void write(final int b) throws IOException {
+		singleByte[0] = (byte) b;
+		this.write(singleByte, 0, 1);
+	}
+
+	/**
+	 * Send any gathered bytes, and wait until every chunk written so far is in
+	 * iRODS
+	 *
+	 * @see java.io.OutputStream#flush()
+	 */
+	@Override
+	public void flush() throws IOException {
+		checkOpen();
+		sendCurrentChunk();
+		awaitChunksSent();
+		checkWriteError();
+	}
+
+	/**
+	 * Wait until the background thread has sent every chunk handed to it
+	 */
+	private void awaitChunksSent() throws IOException {
+		synchronized (chunksSentLock) {
+			while (chunksBeingSent > 0) {
+				try {
+					chunksSentLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(
+							"interrupted waiting to write to iRODS", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Send the rest of the data, stop the background thread, and close the
+	 * underlying stream. This may be called more than once.
+	 *
+	 * @see java.io.OutputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		log.info("closing write behind stream");
+		closed = true;
+		sendCurrentChunk();
+
+		try {
+			// an empty chunk tells the background thread to stop
+			Chunk end = currentChunk;
+			currentChunk = null;
+			if (end == null) {
+				end = freeChunks.take();
+			}
+			end.length = 0;
+			filledChunks.add(end);
+
+			boolean interrupted = false;
+			while (writeBehindThread.isAlive()) {
+				try {
+					writeBehindThread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted closing stream", e);
+		} finally {
+			irodsFileOutputStream.close();
+		}
+
+		checkWriteError();
+	}
+
+	/**
+	 * A buffer in the ring and how much of it holds data
+	 */
+	private static final class Chunk {
+		private final byte[] buffer;
+		private int length = 0;
+
+		Chunk(final int size) {
+			buffer = new byte[size];
+		}
+
+		int room() {
+			return buffer.length - length;
+		}
+	}
+
+}
@@ -9,6 +9,7 @@ import java.util.List;
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.irods.jargon.core.packinstr.GenQueryInp;
 import org.irods.jargon.core.packinstr.Tag;
 import org.irods.jargon.core.pub.IRODSGenQueryExecutorImpl.QueryCloseBehavior;
@@ -102,6 +103,11 @@ public class GenQueryProcessor {
 			result = QueryResultProcessingUtils.translateResponseIntoResultSet(
 					response, columnNames, continuation, partialStartIndex);
 
+			if (irodsCommands.getPipelineConfiguration().isInstrument()) {
+				Instrumentation.record(Instrumentation.GEN_QUERY_ROWS,
+						result.size());
+			}
+
 			resultSet = IRODSQueryResultSet.instance(translatedIRODSQuery,
 					result, continuation, totalRecords);
 
@@ -0,0 +1,229 @@
+package org.irods.jargon.core.query;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutorImpl.QueryCloseBehavior;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams the rows of a GenQuery across all of its pages. As soon as a page
+ * arrives, the request for the next page (by continuation index) is sent on a
+ * background thread, so the round trip overlaps with the caller working
+ * through the current page. At most two pages are held at any time, the one
+ * being read and the one being fetched, whatever the size of the full result.
+ * <p/>
+ * Reading to the end leaves nothing open in iRODS. Callers that stop early
+ * must call {@link #close()}, which waits for any page being fetched and then
+ * closes the query in iRODS. The connection is used by the prefetch thread
+ * while rows are read, and the protocol will serialize other calls made on the
+ * same connection in the meantime.
+ * <p/>
+ * Errors getting a page are thrown from <code>hasNext()</code> or
+ * <code>next()</code> as a {@link JargonRuntimeException}, as the
+ * <code>Iterator</code> methods cannot throw checked exceptions. This object
+ * is not thread-safe.
+ */
+public class IRODSQueryResultRowIterator implements
+		Iterator<IRODSQueryResultRow>, AutoCloseable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(IRODSQueryResultRowIterator.class);
+
+	private final GenQueryProcessor genQueryProcessor;
+	private final String zoneName;
+	private IRODSQueryResultSet currentPage;
+	private Iterator<IRODSQueryResultRow> currentRows;
+	private Future<IRODSQueryResultSet> nextPage = null;
+	private ExecutorService executorService = null;
+	private boolean closed = false;
+
+	/**
+	 * Create an iterator over a query, starting from the first page
+	 *
+	 * @param genQueryProcessor
+	 *            {@link GenQueryProcessor} on the connection that ran the
+	 *            query, the rest of the pages must come from the same
+	 *            connection
+	 * @param firstPage
+	 *            {@link IRODSQueryResultSet} with the first page, run with
+	 *            {@link QueryCloseBehavior#MANUAL_CLOSE}
+	 * @param zoneName
+	 *            <code>String</code> with the zone for the query, may be
+	 *            <code>null</code>
+	 */
+	public IRODSQueryResultRowIterator(
+			final GenQueryProcessor genQueryProcessor,
+			final IRODSQueryResultSet firstPage, final String zoneName) {
+
+		if (genQueryProcessor == null) {
+			throw new IllegalArgumentException("null genQueryProcessor");
+		}
+
+		if (firstPage == null) {
+			throw new IllegalArgumentException("null firstPage");
+		}
+
+		this.genQueryProcessor = genQueryProcessor;
+		this.zoneName = zoneName;
+		currentPage = firstPage;
+		currentRows = firstPage.getResults().iterator();
+		prefetchIfMoreRecords();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+
+		while (!currentRows.hasNext()) {
+			if (nextPage == null) {
+				log.info("query results exhausted");
+				shutdownExecutor();
+				closed = true;
+				return false;
+			}
+
+			currentPage = awaitNextPage();
+			currentRows = currentPage.getResults().iterator();
+			prefetchIfMoreRecords();
+		}
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public IRODSQueryResultRow next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("no more query results");
+		}
+		return currentRows.next();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("query results are read only");
+	}
+
+	/**
+	 * Stop reading, and close the query in iRODS if it has more results. This
+	 * may be called more than once, and does nothing after the results have
+	 * been read to the end.
+	 *
+	 * @throws JargonException
+	 */
+	@Override
+	public void close() throws JargonException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+		try {
+			IRODSQueryResultSet lastPage = currentPage;
+			if (nextPage != null) {
+				// the page being fetched is the one iRODS is holding open
+				lastPage = awaitNextPage();
+			}
+
+			if (lastPage.isHasMoreRecords()) {
+				log.info("closing query results before the end");
+				genQueryProcessor.closeResults(lastPage);
+			}
+		} catch (JargonRuntimeException e) {
+			log.warn("error getting the page in flight when closing", e);
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			throw new JargonException(e);
+		} finally {
+			currentRows = Collections.<IRODSQueryResultRow> emptyIterator();
+			shutdownExecutor();
+		}
+	}
+
+	private void prefetchIfMoreRecords() {
+		if (!currentPage.isHasMoreRecords()) {
+			return;
+		}
+
+		if (executorService == null) {
+			executorService = Executors
+					.newSingleThreadExecutor(new ThreadFactory() {
+						@Override
+						public Thread newThread(final Runnable runnable) {
+							Thread thread = new Thread(runnable,
+									"jargon-gen-query-prefetch");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+
+		final IRODSQueryResultSet previousPage = currentPage;
+		log.debug("prefetching page at continuation:{}",
+				previousPage.getContinuationIndex());
+		nextPage = executorService.submit(new Callable<IRODSQueryResultSet>() {
+			@Override
+			public IRODSQueryResultSet call() throws JargonException {
+				return genQueryProcessor.executeTranslatedIRODSQuery(
+						previousPage.getTranslatedIRODSQuery(),
+						previousPage.getContinuationIndex(), 0,
+						QueryCloseBehavior.MANUAL_CLOSE, zoneName);
+			}
+		});
+	}
+
+	private IRODSQueryResultSet awaitNextPage() {
+		Future<IRODSQueryResultSet> pending = nextPage;
+		nextPage = null;
+		try {
+			return pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			closed = true;
+			shutdownExecutor();
+			throw new JargonRuntimeException(
+					"interrupted waiting for query results", e);
+		} catch (ExecutionException e) {
+			log.error("error getting next page of query results", e.getCause());
+			closed = true;
+			shutdownExecutor();
+			throw new JargonRuntimeException(e.getCause());
+		}
+	}
+
+	private void shutdownExecutor() {
+		if (executorService != null) {
+			executorService.shutdown();
+			executorService = null;
+		}
+	}
+
+}
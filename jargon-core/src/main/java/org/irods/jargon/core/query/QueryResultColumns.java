@@ -0,0 +1,135 @@
+package org.irods.jargon.core.query;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.Tag;
+
+/**
+ * Column oriented holder for the values in a GenQuery or specific query
+ * response. The <code>SqlResult_PI</code> for each attribute is walked once,
+ * and its values are kept as an array for that column. Rows are then
+ * presented as light-weight <code>List</code> views over the columns, so that
+ * decoding a response is linear in the number of values, and no per-row
+ * lists are built.
+ * <p/>
+ * The row views are read-only.
+ */
+class QueryResultColumns {
+
+	/**
+	 * Tags in the response before the first <code>SqlResult_PI</code>
+	 */
+	private static final int SQL_RESULT_OFFSET = 4;
+
+	/**
+	 * Tags in each <code>SqlResult_PI</code> before the first value
+	 */
+	private static final int VALUE_OFFSET = 2;
+
+	private final String[][] columns;
+	private final int rows;
+
+	/**
+	 * Decode the columns of the given query response
+	 *
+	 * @param queryResponse
+	 *            {@link Tag} with the <code>GenQueryOut_PI</code>
+	 * @param rows
+	 *            <code>int</code> with the row count in the response
+	 * @param attributes
+	 *            <code>int</code> with the attribute count in the response
+	 * @return {@link QueryResultColumns}
+	 * @throws JargonException
+	 *             if the response does not hold the expected number of
+	 *             values
+	 */
+	static QueryResultColumns instance(final Tag queryResponse,
+			final int rows, final int attributes) throws JargonException {
+
+		if (queryResponse == null) {
+			throw new IllegalArgumentException("null queryResponse");
+		}
+
+		List<Tag> responseTags = queryResponse.tags;
+		if (attributes > 0
+				&& (responseTags == null || responseTags.size() < SQL_RESULT_OFFSET
+						+ attributes)) {
+			throw new JargonException(
+					"query response is missing SqlResult_PI for attributes");
+		}
+
+		String[][] columns = new String[attributes][];
+		for (int j = 0; j < attributes; j++) {
+			List<Tag> values = responseTags.get(SQL_RESULT_OFFSET + j).tags;
+			if (values == null || values.size() < VALUE_OFFSET + rows) {
+				throw new JargonException(
+						"query response is missing values for attribute:" + j);
+			}
+
+			String[] column = new String[rows];
+			for (int i = 0; i < rows; i++) {
+				column[i] = values.get(VALUE_OFFSET + i).getStringValue();
+			}
+			columns[j] = column;
+		}
+
+		return new QueryResultColumns(columns, rows);
+	}
+
+	private QueryResultColumns(final String[][] columns, final int rows) {
+		this.columns = columns;
+		this.rows = rows;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of rows
+	 */
+	int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of columns
+	 */
+	int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * Get a read-only view of the values in a row
+	 *
+	 * @param row
+	 *            <code>int</code> with the zero based row index
+	 * @return <code>List<String></code> with a value for each column
+	 */
+	List<String> rowView(final int row) {
+		if (row < 0 || row >= rows) {
+			throw new IndexOutOfBoundsException("row out of range:" + row);
+		}
+		return new RowView(row);
+	}
+
+	private class RowView extends AbstractList<String> implements
+			RandomAccess {
+
+		private final int row;
+
+		RowView(final int row) {
+			this.row = row;
+		}
+
+		@Override
+		public String get(final int index) {
+			return columns[index][row];
+		}
+
+		@Override
+		public int size() {
+			return columns.length;
+		}
+	}
+
+}
@@ -63,7 +63,6 @@ public class QueryResultProcessingUtils {
 
 		List<IRODSQueryResultRow> resultSet = new ArrayList<IRODSQueryResultRow>(
 				rows);
-		List<String> row;
 
 		int recordCount;
 		if (partialStartIndex == 0) {
@@ -78,17 +77,17 @@ public class QueryResultProcessingUtils {
 		int attributes = queryResponse.getTag(GenQueryOut.ATTRIB_CNT)
 				.getIntValue();
 
-		for (int i = 0; i < rows; i++) {
-			// new row
-			row = new ArrayList<String>();
-			for (int j = 0; j < attributes; j++) {
-
-				row.add(queryResponse.getTags()[4 + j].getTags()[2 + i]
-						.getStringValue());
-			}
+		/*
+		 * decode each SqlResult_PI column once, and hand out rows as views over
+		 * the columns
+		 */
+		QueryResultColumns queryResultColumns = QueryResultColumns.instance(
+				queryResponse, rows, attributes);
 
-			resultSet.add(IRODSQueryResultRow.instance(row, columnNames,
-					recordCount++, lastRecord));
+		for (int i = 0; i < rows; i++) {
+			resultSet.add(IRODSQueryResultRow.instance(
+					queryResultColumns.rowView(i), columnNames, recordCount++,
+					lastRecord));
 		}
 
 		return resultSet;
@@ -1,19 +1,35 @@
 package org.irods.jargon.core.transfer;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 
+import org.irods.jargon.core.connection.PipelineConfiguration;
 import org.irods.jargon.core.exception.JargonException;
-import org.irods.jargon.core.utils.Host;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Abstract superclasss for a parallel file transfer operation via NIO
- * 
+ * Abstract superclasss for a parallel file transfer operation via NIO. Each
+ * thread owns a blocking <code>SocketChannel</code> to the iRODS parallel
+ * transfer port, and a small direct buffer that is reused for every header
+ * read.
+ * <p/>
+ * Blocking channel reads do not observe the socket timeout, so when a parallel
+ * socket timeout is set the channel is made non-blocking once connected, and
+ * each read and write waits on a <code>Selector</code> for at most that
+ * timeout. A stalled parallel port then fails the thread, as it does in the
+ * stream-based mode.
+ *
  * @author Mike Conway - DICE (www.irods.org)
- * 
+ *
  */
 public class AbstractNIOParallelTransferThread {
 
@@ -21,67 +37,258 @@ public class AbstractNIOParallelTransferThread {
 	protected static final String IO_EXEPTION_IN_PARALLEL_TRANSFER = "IOExeption in parallel transfer";
 	private SocketChannel s;
 
+	/**
+	 * Waits for the channel when a timeout is set, otherwise <code>null</code>
+	 * and the channel blocks
+	 */
+	private Selector selector;
+	private SelectionKey selectionKey;
+	private long socketTimeoutMillis = 0L;
+
 	private Exception exceptionInTransfer = null;
 	public static final int DONE_OPR = 9999;
 	public static final int PUT_OPR = 1;
 	public static final int GET_OPR = 2;
 
+	/**
+	 * Index of the given thread. 0 based index
+	 */
+	private final int threadNumber;
+
+	/**
+	 * Holds the int and long header values as they come off the wire, network
+	 * (big endian) order is the <code>ByteBuffer</code> default
+	 */
+	private final ByteBuffer headerBuffer = ByteBuffer.allocateDirect(8);
+	private long bytesTransferred = 0L;
+
+	/**
+	 * Copy buffers for the transfer threads, shared across transfers
+	 */
+	static final DirectByteBufferPool copyBufferPool = new DirectByteBufferPool(
+			16);
+
 	public static final Logger log = LoggerFactory
 			.getLogger(AbstractNIOParallelTransferThread.class);
 
-	protected AbstractNIOParallelTransferThread() {
+	protected AbstractNIOParallelTransferThread(final int threadNumber) {
 		super();
+		this.threadNumber = threadNumber;
 	}
 
-	private ByteBuffer readLenFromSocket(final int length)
+	/**
+	 * Open the channel to the parallel transfer port described by the
+	 * strategy, applying the parallel TCP settings, and send the cookie
+	 *
+	 * @param parallelFileTransferStrategy
+	 *            {@link AbstractParallelFileTransferStrategy} for this transfer
+	 * @throws JargonException
+	 */
+	protected void openChannel(
+			final AbstractParallelFileTransferStrategy parallelFileTransferStrategy)
 			throws JargonException {
-		final ByteBuffer b = ByteBuffer.allocate(length);
 
-		int read;
-		int tot = 0;
+		log.info("opening channel to parallel transfer port:{}",
+				parallelFileTransferStrategy.getPort());
+
+		PipelineConfiguration pipelineConfiguration = parallelFileTransferStrategy
+				.getPipelineConfiguration();
+
 		try {
+			SocketChannel channel = SocketChannel.open();
+			setS(channel);
+			Socket socket = channel.socket();
+
+			if (pipelineConfiguration.getParallelTcpSendWindowSize() > 0) {
+				socket.setSendBufferSize(pipelineConfiguration
+						.getParallelTcpSendWindowSize() * 1024);
+			}
+
+			if (pipelineConfiguration.getParallelTcpReceiveWindowSize() > 0) {
+				socket.setReceiveBufferSize(pipelineConfiguration
+						.getParallelTcpReceiveWindowSize() * 1024);
+			}
+
+			socket.setPerformancePreferences(
+					pipelineConfiguration
+							.getParallelTcpPerformancePrefsConnectionTime(),
+					pipelineConfiguration
+							.getParallelTcpPerformancePrefsLatency(),
+					pipelineConfiguration
+							.getParallelTcpPerformancePrefsBandwidth());
+
+			socket.setKeepAlive(pipelineConfiguration.isParallelTcpKeepAlive());
+			socket.setReuseAddress(true);
+			socket.setTcpNoDelay(false);
 
-			read = getS().read(b);
-			while (read != -1) {
+			channel.connect(new InetSocketAddress(parallelFileTransferStrategy
+					.getHost(), parallelFileTransferStrategy.getPort()));
+
+			if (parallelFileTransferStrategy.getParallelSocketTimeoutInSecs() > 0) {
+				socketTimeoutMillis = parallelFileTransferStrategy
+						.getParallelSocketTimeoutInSecs() * 1000L;
+				channel.configureBlocking(false);
+				selector = Selector.open();
+				selectionKey = channel.register(selector, 0);
+			}
+		} catch (IOException e) {
+			log.error("unable to open parallel transfer channel", e);
+			close();
+			throw new JargonException(
+					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
+		}
+
+		log.debug("channel established, sending cookie to iRODS listener");
+		writeInt(parallelFileTransferStrategy.getPassword());
+		log.debug("cookie written");
+	}
+
+	/**
+	 * Fill the header buffer with exactly <code>length</code> bytes
+	 */
+	private void readLenFromSocket(final int length) throws JargonException {
+		headerBuffer.clear();
+		headerBuffer.limit(length);
+
+		try {
+			while (headerBuffer.hasRemaining()) {
 				if (Thread.interrupted()) {
 					throw new IOException(
-
-					"interrupted, consider connection corrupted and return IOException to clear");
-				}
-				tot += read;
-				if (tot == length) {
-					break;
+							"interrupted, consider connection corrupted and return IOException to clear");
 				}
-				read = getS().read(b);
 
+				if (readChannel(headerBuffer) < 0) {
+					throw new IOException(
+							"end of stream reading parallel transfer header");
+				}
 			}
-		} catch (Exception e) {
+		} catch (IOException e) {
 			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER, e);
 			throw new JargonException(
 					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
 		}
-		return b;
 	}
 
 	protected int readInt() throws JargonException {
-		int len = 4;
-		final byte[] bAsByte = new byte[len];
-		ByteBuffer b = readLenFromSocket(len);
-		b.flip();
-		b.get(bAsByte);
-		return Host.castToInt(bAsByte);
+		readLenFromSocket(4);
+		return headerBuffer.getInt(0);
 	}
 
 	protected long readLong() throws JargonException {
-		int len = 8;
-		final byte[] bAsByte = new byte[len];
-		ByteBuffer b = readLenFromSocket(len);
-		b.flip();
-		b.get(bAsByte);
-		return Host.castToLong(bAsByte);
+		readLenFromSocket(8);
+		return headerBuffer.getLong(0);
+	}
+
+	protected void writeInt(final int value) throws JargonException {
+		headerBuffer.clear();
+		headerBuffer.putInt(value);
+		headerBuffer.flip();
+
+		try {
+			while (headerBuffer.hasRemaining()) {
+				if (getS().write(headerBuffer) == 0 && selector != null) {
+					awaitChannel(SelectionKey.OP_WRITE);
+				}
+			}
+		} catch (IOException e) {
+			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER, e);
+			throw new JargonException(
+					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
+		}
+	}
+
+	/**
+	 * Read from the channel into the buffer, waiting no longer than the
+	 * parallel socket timeout for data when one is set
+	 *
+	 * @param buffer
+	 *            <code>ByteBuffer</code> to read into
+	 * @return <code>int</code> with the bytes read, at least one, or -1 at
+	 *         the end of the stream
+	 * @throws IOException
+	 *             <code>SocketTimeoutException</code> if no data arrives
+	 *             within the timeout
+	 */
+	protected int readChannel(final ByteBuffer buffer) throws IOException {
+		if (selector == null) {
+			return getS().read(buffer);
+		}
+
+		int read;
+		while ((read = getS().read(buffer)) == 0) {
+			awaitChannel(SelectionKey.OP_READ);
+		}
+		return read;
+	}
+
+	/**
+	 * Send bytes of a local file down the channel with
+	 * <code>transferTo()</code>, waiting no longer than the parallel socket
+	 * timeout for room to write when one is set
+	 *
+	 * @param local
+	 *            <code>FileChannel</code> to send from
+	 * @param position
+	 *            <code>long</code> with the position in the file to send from
+	 * @param count
+	 *            <code>long</code> with the most bytes to send
+	 * @return <code>long</code> with the bytes sent, zero only at the end of
+	 *         the file
+	 * @throws IOException
+	 *             <code>SocketTimeoutException</code> if the channel cannot
+	 *             be written within the timeout
+	 */
+	protected long transferToChannel(final FileChannel local,
+			final long position, final long count) throws IOException {
+		if (selector == null) {
+			return local.transferTo(position, count, getS());
+		}
+
+		long sent;
+		while ((sent = local.transferTo(position, count, getS())) == 0
+				&& position < local.size()) {
+			awaitChannel(SelectionKey.OP_WRITE);
+		}
+		return sent;
+	}
+
+	/**
+	 * Wait until the channel is ready for the given operation
+	 */
+	private void awaitChannel(final int operation) throws IOException {
+		selectionKey.interestOps(operation);
+		final long deadline = System.currentTimeMillis() + socketTimeoutMillis;
+		long remaining = socketTimeoutMillis;
+
+		// select can return early, such as on an interrupt, so keep to the
+		// deadline
+		while (selector.select(remaining) == 0) {
+			if (Thread.interrupted()) {
+				throw new IOException(
+						"interrupted, consider connection corrupted and return IOException to clear");
+			}
+
+			remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				throw new SocketTimeoutException(
+						"parallel transfer port did not respond within "
+								+ socketTimeoutMillis + " ms");
+			}
+		}
+		selector.selectedKeys().clear();
 	}
 
 	public void close() throws JargonException {
+		if (selector != null) {
+			try {
+				selector.close();
+			} catch (IOException e) {
+				log.warn("IOException closing selector - LOG and ignore");
+			}
+			selector = null;
+			selectionKey = null;
+		}
+
 		// garbage collector can be too slow
 		if (s != null) {
 			try {
@@ -104,7 +311,7 @@ public class AbstractNIOParallelTransferThread {
 	/**
 	 * Any exception that occurs in this transfer thread is saved so that the
 	 * parallel transfer process can access it and handle any errors.
-	 * 
+	 *
 	 * @return <code>Exception</code> that occured in this thread, or
 	 *         <code>null</code> if no error occurred.
 	 */
@@ -115,4 +322,41 @@ public class AbstractNIOParallelTransferThread {
 	protected void setExceptionInTransfer(final Exception exceptionInTransfer) {
 		this.exceptionInTransfer = exceptionInTransfer;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return the threadNumber
+	 */
+	protected int getThreadNumber() {
+		return threadNumber;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes moved by this thread so far
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	protected void addBytesTransferred(final long bytes) {
+		bytesTransferred += bytes;
+	}
+
+	/**
+	 * Record the bytes moved by this thread, and the throughput it achieved,
+	 * in the {@link Instrumentation} registry
+	 *
+	 * @param bytesCounterName
+	 *            <code>String</code> with the counter for total bytes
+	 * @param throughputHistogramName
+	 *            <code>String</code> with the histogram for bytes per second
+	 * @param startNanos
+	 *            <code>long</code> from <code>System.nanoTime()</code> when
+	 *            the transfer was started
+	 */
+	protected void recordTransferMetrics(final String bytesCounterName,
+			final String throughputHistogramName, final long startNanos) {
+		Instrumentation.count(bytesCounterName, bytesTransferred);
+		Instrumentation.recordThroughput(throughputHistogramName,
+				bytesTransferred, startNanos);
+	}
+}
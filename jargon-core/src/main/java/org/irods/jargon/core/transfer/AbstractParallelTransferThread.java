@@ -6,6 +6,7 @@ import java.io.OutputStream;
 import java.net.Socket;
 
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,7 @@ public class AbstractParallelTransferThread {
 	private InputStream in;
 	private OutputStream out;
 	private Exception exceptionInTransfer = null;
+	private long bytesTransferred = 0L;
 	public static final int DONE_OPR = 9999;
 	public static final int PUT_OPR = 1;
 	public static final int GET_OPR = 2;
@@ -153,4 +155,34 @@ public class AbstractParallelTransferThread {
 	protected int getThreadNumber() {
 		return threadNumber;
 	}
+
+	/**
+	 * @return <code>long</code> with the bytes moved by this thread so far
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	protected void addBytesTransferred(final long bytes) {
+		bytesTransferred += bytes;
+	}
+
+	/**
+	 * Record the bytes moved by this thread, and the throughput it achieved,
+	 * in the {@link Instrumentation} registry
+	 *
+	 * @param bytesCounterName
+	 *            <code>String</code> with the counter for total bytes
+	 * @param throughputHistogramName
+	 *            <code>String</code> with the histogram for bytes per second
+	 * @param startNanos
+	 *            <code>long</code> from <code>System.nanoTime()</code> when
+	 *            the transfer was started
+	 */
+	protected void recordTransferMetrics(final String bytesCounterName,
+			final String throughputHistogramName, final long startNanos) {
+		Instrumentation.count(bytesCounterName, bytesTransferred);
+		Instrumentation.recordThroughput(throughputHistogramName,
+				bytesTransferred, startNanos);
+	}
 }
\ No newline at end of file
@@ -13,6 +13,12 @@ import org.slf4j.LoggerFactory;
  * This manager serves as a repository of file restart info and a place to
  * update that information, maintaining a representation of
  * {@link FileRestartInfo} for a given path
+ * <p/>
+ * Updates are serialized per file rather than across the manager, so the
+ * threads of one parallel transfer contend only with each other. Locks are
+ * taken from a fixed set by the hash of the {@link FileRestartInfoIdentifier},
+ * and implementations should use {@link #lockFor(FileRestartInfoIdentifier)}
+ * for their own read-modify-write of a restart.
  * 
  * @author Mike Conway - DICE
  * 
@@ -22,6 +28,31 @@ public abstract class AbstractRestartManager {
 	private static final Logger log = LoggerFactory
 			.getLogger(AbstractRestartManager.class);
 
+	private static final int LOCK_STRIPES = 64;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	protected AbstractRestartManager() {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Get the lock that guards changes to the restart with the given
+	 * identifier
+	 * 
+	 * @param fileRestartInfoIdentifier
+	 *            {@link FileRestartInfoIdentifier} for the restart
+	 * @return <code>Object</code> to synchronize on
+	 */
+	protected Object lockFor(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier) {
+		int hash = fileRestartInfoIdentifier.hashCode();
+		hash ^= (hash >>> 16);
+		return locks[(hash & 0x7fffffff) % LOCK_STRIPES];
+	}
+
 	/**
 	 * Either return existing, or create a new restart identifier
 	 * 
@@ -31,7 +62,7 @@ public abstract class AbstractRestartManager {
 	 * @return
 	 * @throws FileRestartManagementException
 	 */
-	public synchronized FileRestartInfo retrieveRestartAndBuildIfNotStored(
+	public FileRestartInfo retrieveRestartAndBuildIfNotStored(
 			final FileRestartInfoIdentifier fileRestartInfoIdentifier,
 			final String localFilePath, final int numberOfThreads)
 			throws FileRestartManagementException {
@@ -46,27 +77,29 @@ public abstract class AbstractRestartManager {
 			throw new IllegalArgumentException("null or empty localFilePath");
 		}
 
-		FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
-
-		if (info == null) {
-			log.info("no restart saved, create and store a new one");
-			info = new FileRestartInfo();
-			info.setIrodsAbsolutePath(fileRestartInfoIdentifier
-					.getAbsolutePath());
-			info.setIrodsAccountIdentifier(fileRestartInfoIdentifier
-					.getIrodsAccountIdentifier());
-			info.setRestartType(fileRestartInfoIdentifier.getRestartType());
-			info.setLocalAbsolutePath(localFilePath);
-			/*
-			 * Add a segment for each row
-			 */
-			for (int i = 0; i < numberOfThreads; i++) {
-				info.getFileRestartDataSegments().add(
-						new FileRestartDataSegment(i));
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
+			FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
+
+			if (info == null) {
+				log.info("no restart saved, create and store a new one");
+				info = new FileRestartInfo();
+				info.setIrodsAbsolutePath(fileRestartInfoIdentifier
+						.getAbsolutePath());
+				info.setIrodsAccountIdentifier(fileRestartInfoIdentifier
+						.getIrodsAccountIdentifier());
+				info.setRestartType(fileRestartInfoIdentifier.getRestartType());
+				info.setLocalAbsolutePath(localFilePath);
+				/*
+				 * Add a segment for each row
+				 */
+				for (int i = 0; i < numberOfThreads; i++) {
+					info.getFileRestartDataSegments().add(
+							new FileRestartDataSegment(i));
+				}
+				storeRestart(info);
 			}
-			storeRestart(info);
+			return info;
 		}
-		return info;
 	}
 
 	/**
@@ -120,7 +153,7 @@ public abstract class AbstractRestartManager {
 			throw new IllegalArgumentException("null identifier");
 		}
 
-		synchronized (this) {
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
 			FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
 			if (info == null) {
 				throw new FileRestartManagementException(
@@ -145,7 +178,7 @@ public abstract class AbstractRestartManager {
 			}
 
 			dataSegment.setLength(dataSegment.getLength() + length);
-			storeRestart(info);
+			storeSegment(info, dataSegment);
 		}
 
 	}
@@ -171,7 +204,7 @@ public abstract class AbstractRestartManager {
 			throw new IllegalArgumentException("null identifier");
 		}
 
-		synchronized (this) {
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
 			FileRestartInfo info = retrieveRestart(fileRestartInfoIdentifier);
 			if (info == null) {
 				throw new FileRestartManagementException(
@@ -187,11 +220,29 @@ public abstract class AbstractRestartManager {
 					.getFileRestartDataSegments().get(threadNumber);
 			dataSegment.setOffset(offset);
 			dataSegment.setLength(0);
-			storeRestart(info);
+			storeSegment(info, dataSegment);
 		}
 
 	}
 
+	/**
+	 * Save a change to one segment of a restart. This is called with the lock
+	 * for the restart held, after the segment in the given info has been
+	 * updated. By default the whole restart is stored again, an implementation
+	 * may record just the segment.
+	 * 
+	 * @param fileRestartInfo
+	 *            {@link FileRestartInfo} that contains the segment
+	 * @param fileRestartDataSegment
+	 *            {@link FileRestartDataSegment} that was changed
+	 * @throws FileRestartManagementException
+	 */
+	protected void storeSegment(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+		storeRestart(fileRestartInfo);
+	}
+
 	/**
 	 * Store the restart information
 	 * 
@@ -0,0 +1,82 @@
+package org.irods.jargon.core.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of direct <code>ByteBuffer</code>s of a fixed size, used by the
+ * NIO parallel transfer threads. Direct buffers are expensive to allocate and
+ * are only freed by the garbage collector, so they are kept and handed out to
+ * the next transfer thread rather than allocated per file.
+ */
+class DirectByteBufferPool {
+
+	private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger pooled = new AtomicInteger();
+	private final int maxPooled;
+
+	/**
+	 * @param maxPooled
+	 *            <code>int</code> with the most buffers kept when idle
+	 */
+	DirectByteBufferPool(final int maxPooled) {
+		if (maxPooled < 0) {
+			throw new IllegalArgumentException("negative maxPooled");
+		}
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Get a cleared direct buffer with a capacity of exactly
+	 * <code>size</code>, from the pool if one is available
+	 *
+	 * @param size
+	 *            <code>int</code> with the buffer capacity
+	 * @return <code>ByteBuffer</code> that should be given back with
+	 *         {@link #release(ByteBuffer)}
+	 */
+	ByteBuffer acquire(final int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("size must be > 0");
+		}
+
+		ByteBuffer buffer;
+		while ((buffer = buffers.poll()) != null) {
+			pooled.decrementAndGet();
+			if (buffer.capacity() == size) {
+				buffer.clear();
+				return buffer;
+			}
+			// buffer size was changed in the properties, let this one go
+		}
+		return ByteBuffer.allocateDirect(size);
+	}
+
+	/**
+	 * Return a buffer to the pool. It is dropped if the pool is full.
+	 *
+	 * @param buffer
+	 *            <code>ByteBuffer</code> from {@link #acquire(int)}, may be
+	 *            <code>null</code>
+	 */
+	void release(final ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) {
+			return;
+		}
+
+		if (pooled.incrementAndGet() > maxPooled) {
+			pooled.decrementAndGet();
+			return;
+		}
+		buffers.offer(buffer);
+	}
+
+	/**
+	 * @return <code>int</code> with the number of idle buffers in the pool
+	 */
+	int getPooledCount() {
+		return pooled.get();
+	}
+
+}
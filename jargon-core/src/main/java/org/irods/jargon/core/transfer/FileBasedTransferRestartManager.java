@@ -0,0 +1,775 @@
+/**
+ *
+ */
+package org.irods.jargon.core.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.irods.jargon.core.connection.ConnectionConstants;
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartStatus;
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Restart manager that keeps long file restart information in a journal on the
+ * local file system, so that an interrupted transfer may be resumed after the
+ * process itself is restarted.
+ * <p/>
+ * Restarts are held in memory and every change is appended to the journal, a
+ * memory-mapped file, as a record of the whole restart, of one segment, or of a
+ * delete. Segment updates made by the parallel transfer threads are small
+ * records and cost a copy into the mapped file rather than a write call. Each
+ * record carries a checksum and its length is written last, so a record torn
+ * by a crash is ignored, and the journal is replayed up to the last whole
+ * record when the manager is created. A journal that is behind the transfer
+ * only causes some data to be sent again.
+ * <p/>
+ * After a number of records the journal is compacted, written out fresh with
+ * one record per restart in a temporary file that then replaces the journal.
+ * Both files are unmapped and closed before the replace, as a mapped file may
+ * not be renamed or replaced on Windows.
+ * <p/>
+ * The mapped file is not forced to the device on each record, so the journal
+ * survives the process exiting, but may lose the latest updates if the machine
+ * itself goes down. Call {@link #close()} on shutdown.
+ */
+public class FileBasedTransferRestartManager extends AbstractRestartManager {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(FileBasedTransferRestartManager.class);
+
+	/**
+	 * Default number of records written between compactions of the journal
+	 */
+	public static final int DEFAULT_COMPACTION_INTERVAL = 10000;
+
+	private static final int INITIAL_JOURNAL_SIZE = 1024 * 1024;
+	private static final byte RECORD_RESTART = 1;
+	private static final byte RECORD_SEGMENT = 2;
+	private static final byte RECORD_DELETE = 3;
+
+	private final ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo> cacheOfRestartInfo = new ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo>(
+			8, 0.9f, 4);
+
+	private final File journalFile;
+	private final int compactionInterval;
+
+	/**
+	 * guards the mapped journal, held only to copy a record in
+	 */
+	private final Object journalLock = new Object();
+	private RandomAccessFile journalRandomAccessFile;
+	private MappedByteBuffer journal;
+	private int recordsSinceCompaction = 0;
+
+	/**
+	 * Create a manager with a journal in the given file, recovering any
+	 * restarts already in the journal
+	 *
+	 * @param journalFile
+	 *            <code>File</code> with the journal, created if it does not
+	 *            exist
+	 * @throws FileRestartManagementException
+	 */
+	public FileBasedTransferRestartManager(final File journalFile)
+			throws FileRestartManagementException {
+		this(journalFile, DEFAULT_COMPACTION_INTERVAL);
+	}
+
+	/**
+	 * Create a manager with a journal in the given file, recovering any
+	 * restarts already in the journal
+	 *
+	 * @param journalFile
+	 *            <code>File</code> with the journal, created if it does not
+	 *            exist
+	 * @param compactionInterval
+	 *            <code>int</code> with the number of records written before the
+	 *            journal is compacted
+	 * @throws FileRestartManagementException
+	 */
+	public FileBasedTransferRestartManager(final File journalFile,
+			final int compactionInterval) throws FileRestartManagementException {
+
+		super();
+
+		if (journalFile == null) {
+			throw new IllegalArgumentException("null journalFile");
+		}
+
+		if (compactionInterval <= 0) {
+			throw new IllegalArgumentException("compactionInterval must be > 0");
+		}
+
+		this.journalFile = journalFile;
+		this.compactionInterval = compactionInterval;
+
+		log.info("opening restart journal:{}", journalFile);
+
+		synchronized (journalLock) {
+			if (journalFile.exists()) {
+				recover();
+			}
+			compact();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#storeRestart(org
+	 * .irods.jargon.core.transfer.FileRestartInfo)
+	 */
+	@Override
+	public FileRestartInfoIdentifier storeRestart(
+			final FileRestartInfo fileRestartInfo)
+			throws FileRestartManagementException {
+
+		log.info("storeRestart()");
+		if (fileRestartInfo == null) {
+			throw new IllegalArgumentException("null fileRestartInfo");
+		}
+
+		FileRestartInfoIdentifier identifier = FileRestartInfoIdentifier
+				.instanceFromFileRestartInfo(fileRestartInfo);
+
+		synchronized (lockFor(identifier)) {
+			cacheOfRestartInfo.put(identifier, fileRestartInfo);
+			appendRecord(buildRestartRecord(fileRestartInfo));
+		}
+		return identifier;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#deleteRestart(org
+	 * .irods.jargon.core.transfer.FileRestartInfoIdentifier)
+	 */
+	@Override
+	public void deleteRestart(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier)
+			throws FileRestartManagementException {
+
+		log.info("deleteRestart()");
+		if (fileRestartInfoIdentifier == null) {
+			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
+		}
+
+		synchronized (lockFor(fileRestartInfoIdentifier)) {
+			if (cacheOfRestartInfo.remove(fileRestartInfoIdentifier) != null) {
+				appendRecord(buildDeleteRecord(fileRestartInfoIdentifier));
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#retrieveRestart
+	 * (org.irods.jargon.core.transfer.FileRestartInfoIdentifier)
+	 */
+	@Override
+	public FileRestartInfo retrieveRestart(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier)
+			throws FileRestartManagementException {
+
+		log.info("retrieveRestart()");
+		if (fileRestartInfoIdentifier == null) {
+			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
+		}
+		return cacheOfRestartInfo.get(fileRestartInfoIdentifier);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#updateSegment(org
+	 * .irods.jargon.core.transfer.FileRestartInfo,
+	 * org.irods.jargon.core.transfer.FileRestartDataSegment)
+	 */
+	@Override
+	public void updateSegment(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+
+		log.info("updateSegment()");
+
+		if (fileRestartInfo == null) {
+			throw new IllegalArgumentException("null fileRestartInfo");
+		}
+
+		if (fileRestartDataSegment == null) {
+			throw new IllegalArgumentException("null fileRestartDataSegment");
+		}
+
+		FileRestartInfoIdentifier identifier = fileRestartInfo
+				.identifierFromThisInfo();
+
+		synchronized (lockFor(identifier)) {
+			FileRestartInfo actualRestartInfo = retrieveRestart(identifier);
+			if (actualRestartInfo == null) {
+				throw new FileRestartManagementException(
+						"unable to find restart info");
+			}
+
+			int threadNumber = fileRestartDataSegment.getThreadNumber();
+			if (threadNumber < 0
+					|| threadNumber >= actualRestartInfo
+							.getFileRestartDataSegments().size()) {
+				log.error(
+						"fileRestartInfo does not contain the given segment:{}",
+						fileRestartInfo);
+				throw new FileRestartManagementException(
+						"unable to find segment");
+			}
+
+			FileRestartDataSegment actualSegment = actualRestartInfo
+					.getFileRestartDataSegments().get(threadNumber);
+			if (actualSegment.getThreadNumber() != threadNumber) {
+				log.error(
+						"mismatch in thread number in update request for segment:{}",
+						fileRestartDataSegment);
+				throw new FileRestartManagementException(
+						"file segment does not match thread number");
+			}
+
+			actualRestartInfo.getFileRestartDataSegments().set(threadNumber,
+					fileRestartDataSegment);
+			storeSegment(actualRestartInfo, fileRestartDataSegment);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.transfer.AbstractRestartManager#
+	 * incrementRestartAttempts(org.irods.jargon.core.transfer.FileRestartInfo)
+	 */
+	@Override
+	public FileRestartInfo incrementRestartAttempts(
+			final FileRestartInfo fileRestartInfo)
+			throws RestartFailedException, FileRestartManagementException {
+
+		log.info("incrementRestartAttempts()");
+		if (fileRestartInfo == null) {
+			log.info("no restart to increment, returning null");
+			return null;
+		}
+
+		FileRestartInfoIdentifier identifier = fileRestartInfo
+				.identifierFromThisInfo();
+
+		synchronized (lockFor(identifier)) {
+			FileRestartInfo actualRestartInfo = retrieveRestart(identifier);
+			if (actualRestartInfo == null) {
+				log.error("nothing to increment!");
+				return null;
+			}
+			int currentRestarts = actualRestartInfo.getNumberRestarts();
+			currentRestarts++;
+			if (currentRestarts > ConnectionConstants.MAX_FILE_RESTART_ATTEMPTS) {
+				log.error("violates max restart attempts, go ahead and fail the restart attempt");
+				throw new RestartFailedException(
+						"restart failed with too many attempts");
+			}
+			actualRestartInfo.setNumberRestarts(currentRestarts);
+			storeRestart(actualRestartInfo);
+			return actualRestartInfo;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.transfer.AbstractRestartManager#storeSegment(org
+	 * .irods.jargon.core.transfer.FileRestartInfo,
+	 * org.irods.jargon.core.transfer.FileRestartDataSegment)
+	 */
+	@Override
+	protected void storeSegment(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+		appendRecord(buildSegmentRecord(fileRestartInfo, fileRestartDataSegment));
+	}
+
+	/**
+	 * Write out the journal with only the current restarts
+	 *
+	 * @throws FileRestartManagementException
+	 */
+	public void compactJournal() throws FileRestartManagementException {
+		synchronized (journalLock) {
+			compact();
+		}
+	}
+
+	/**
+	 * Force the journal to the device and close it. The manager may not be used
+	 * after it is closed.
+	 *
+	 * @throws FileRestartManagementException
+	 */
+	public void close() throws FileRestartManagementException {
+		log.info("close()");
+		synchronized (journalLock) {
+			if (journalRandomAccessFile == null) {
+				return;
+			}
+			journal.force();
+			try {
+				closeJournal();
+			} catch (IOException e) {
+				throw new FileRestartManagementException(
+						"error closing restart journal", e);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>File</code> with the journal
+	 */
+	public File getJournalFile() {
+		return journalFile;
+	}
+
+	private void appendRecord(final byte[] payload)
+			throws FileRestartManagementException {
+		synchronized (journalLock) {
+			if (journal == null) {
+				throw new FileRestartManagementException(
+						"restart journal is closed");
+			}
+
+			if (recordsSinceCompaction >= compactionInterval
+					|| journal.remaining() < payload.length + 12) {
+				compact();
+				/*
+				 * compaction wrote the current state, which includes this
+				 * change
+				 */
+				return;
+			}
+
+			writeRecord(journal, payload);
+			recordsSinceCompaction++;
+		}
+	}
+
+	/**
+	 * Record layout is length, payload, checksum of the payload. The length is
+	 * put last so that a partial record reads as the end of the journal.
+	 */
+	private static void writeRecord(final MappedByteBuffer buffer,
+			final byte[] payload) {
+		int start = buffer.position();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		buffer.position(start + 4);
+		buffer.put(payload);
+		buffer.putInt((int) crc.getValue());
+		int end = buffer.position();
+		buffer.putInt(start, payload.length);
+		buffer.position(end);
+	}
+
+	/**
+	 * Replace the journal with one holding a record per current restart. Called
+	 * with the journal lock held.
+	 */
+	private void compact() throws FileRestartManagementException {
+		log.info("compacting restart journal");
+
+		/*
+		 * Writers take the file lock and then the journal lock, so the file
+		 * locks are not taken here. A restart changed while this runs has its
+		 * record appended after the compaction.
+		 */
+		List<byte[]> records = new ArrayList<byte[]>();
+		int needed = 4;
+		for (FileRestartInfo info : cacheOfRestartInfo.values()) {
+			byte[] record = buildRestartRecord(info);
+			records.add(record);
+			needed += record.length + 8;
+		}
+
+		int size = INITIAL_JOURNAL_SIZE;
+		while (size < needed * 2) {
+			size *= 2;
+		}
+
+		File compactedFile = new File(journalFile.getAbsolutePath()
+				+ ".compact");
+		int end = writeCompactedJournal(compactedFile, records, size);
+		int previousEnd = journal == null ? -1 : journal.position();
+
+		try {
+			closeJournal();
+			try {
+				Files.move(compactedFile.toPath(), journalFile.toPath(),
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(compactedFile.toPath(), journalFile.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			log.error("error replacing restart journal", e);
+			if (previousEnd >= 0) {
+				reopenAfterFailedCompaction(previousEnd);
+			}
+			throw new FileRestartManagementException(
+					"error compacting restart journal", e);
+		}
+
+		openJournal(end);
+		recordsSinceCompaction = 0;
+		log.info("restart journal compacted with {} restarts", records.size());
+	}
+
+	/**
+	 * Write the records to a fresh file of the given size, which is forced,
+	 * unmapped and closed before returning
+	 *
+	 * @return <code>int</code> with the position after the last record
+	 */
+	private static int writeCompactedJournal(final File compactedFile,
+			final List<byte[]> records, final int size)
+			throws FileRestartManagementException {
+		RandomAccessFile compacted = null;
+		MappedByteBuffer buffer = null;
+		try {
+			compacted = new RandomAccessFile(compactedFile, "rw");
+			compacted.setLength(0);
+			compacted.setLength(size);
+			buffer = compacted.getChannel().map(
+					FileChannel.MapMode.READ_WRITE, 0, size);
+			for (byte[] record : records) {
+				writeRecord(buffer, record);
+			}
+			buffer.force();
+			return buffer.position();
+		} catch (IOException e) {
+			log.error("error writing compacted restart journal", e);
+			throw new FileRestartManagementException(
+					"error compacting restart journal", e);
+		} finally {
+			if (buffer != null) {
+				unmap(buffer);
+			}
+			if (compacted != null) {
+				try {
+					compacted.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Map the journal file for appending at the given position. Called with
+	 * the journal lock held.
+	 */
+	private void openJournal(final int position)
+			throws FileRestartManagementException {
+		RandomAccessFile opened = null;
+		try {
+			opened = new RandomAccessFile(journalFile, "rw");
+			MappedByteBuffer buffer = opened.getChannel().map(
+					FileChannel.MapMode.READ_WRITE, 0, opened.length());
+			buffer.position(position);
+			journalRandomAccessFile = opened;
+			journal = buffer;
+			opened = null;
+		} catch (IOException e) {
+			log.error("error opening restart journal", e);
+			throw new FileRestartManagementException(
+					"error opening restart journal", e);
+		} finally {
+			if (opened != null) {
+				try {
+					opened.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * The old journal is still in place, so carry on appending to it, and
+	 * leave the next record to try the compaction again
+	 */
+	private void reopenAfterFailedCompaction(final int previousEnd) {
+		try {
+			openJournal(previousEnd);
+		} catch (FileRestartManagementException e) {
+			log.error("unable to reopen restart journal", e);
+		}
+	}
+
+	/**
+	 * Unmap and close the journal, if open. Called with the journal lock held.
+	 */
+	private void closeJournal() throws IOException {
+		MappedByteBuffer buffer = journal;
+		RandomAccessFile randomAccessFile = journalRandomAccessFile;
+		journal = null;
+		journalRandomAccessFile = null;
+		if (buffer != null) {
+			unmap(buffer);
+		}
+		if (randomAccessFile != null) {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Release the mapping now rather than when the buffer is collected, as a
+	 * file may not be replaced or deleted on Windows while it is mapped. The
+	 * buffer must not be used afterwards. This is best effort, and if the JVM
+	 * offers no way to unmap, the mapping is left to the collector.
+	 */
+	private static void unmap(final MappedByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+					ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			return;
+		} catch (NoSuchMethodException e) {
+			// before Java 9, use the cleaner of the buffer itself
+		} catch (Exception e) {
+			log.debug("unable to unmap restart journal", e);
+			return;
+		}
+
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer);
+			if (cleaner != null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (Exception e) {
+			log.debug("unable to unmap restart journal", e);
+		}
+	}
+
+	/**
+	 * Replay the journal into memory, stopping at the first record that is
+	 * incomplete or fails its checksum
+	 */
+	private void recover() throws FileRestartManagementException {
+		log.info("recovering restarts from journal");
+		RandomAccessFile existing = null;
+		MappedByteBuffer buffer = null;
+		try {
+			existing = new RandomAccessFile(journalFile, "r");
+			long length = existing.length();
+			if (length > Integer.MAX_VALUE) {
+				throw new FileRestartManagementException(
+						"restart journal too large");
+			}
+			buffer = existing.getChannel().map(
+					FileChannel.MapMode.READ_ONLY, 0, length);
+			int count = 0;
+			while (buffer.remaining() >= 4) {
+				int recordLength = buffer.getInt();
+				if (recordLength <= 0 || recordLength + 4 > buffer.remaining()) {
+					break;
+				}
+				byte[] payload = new byte[recordLength];
+				buffer.get(payload);
+				CRC32 crc = new CRC32();
+				crc.update(payload);
+				if (buffer.getInt() != (int) crc.getValue()) {
+					log.warn("restart journal record failed checksum, ignoring the rest of the journal");
+					break;
+				}
+				applyRecord(payload);
+				count++;
+			}
+			log.info("replayed {} records, {} restarts recovered", count,
+					cacheOfRestartInfo.size());
+		} catch (IOException e) {
+			log.error("error reading restart journal", e);
+			throw new FileRestartManagementException(
+					"error reading restart journal", e);
+		} finally {
+			if (buffer != null) {
+				unmap(buffer);
+			}
+			if (existing != null) {
+				try {
+					existing.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private void applyRecord(final byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				payload));
+		byte recordType = in.readByte();
+		FileRestartInfoIdentifier identifier = readIdentifier(in);
+
+		switch (recordType) {
+		case RECORD_RESTART:
+			FileRestartInfo info = new FileRestartInfo();
+			info.setIrodsAccountIdentifier(identifier
+					.getIrodsAccountIdentifier());
+			info.setIrodsAbsolutePath(identifier.getAbsolutePath());
+			info.setRestartType(identifier.getRestartType());
+			info.setLocalAbsolutePath(in.readUTF());
+			info.setRestartStatus(RestartStatus.valueOf(in.readUTF()));
+			info.setNumberRestarts(in.readInt());
+			int segments = in.readInt();
+			for (int i = 0; i < segments; i++) {
+				info.getFileRestartDataSegments().add(readSegment(in));
+			}
+			// records written before the source version was kept end here
+			if (in.available() > 0) {
+				info.setSourceVersion(in.readUTF());
+			}
+			cacheOfRestartInfo.put(identifier, info);
+			break;
+		case RECORD_SEGMENT:
+			FileRestartDataSegment segment = readSegment(in);
+			FileRestartInfo existing = cacheOfRestartInfo.get(identifier);
+			if (existing != null
+					&& segment.getThreadNumber() < existing
+							.getFileRestartDataSegments().size()) {
+				existing.getFileRestartDataSegments().set(
+						segment.getThreadNumber(), segment);
+			}
+			break;
+		case RECORD_DELETE:
+			cacheOfRestartInfo.remove(identifier);
+			break;
+		default:
+			throw new IOException("unknown restart journal record type:"
+					+ recordType);
+		}
+	}
+
+	private byte[] buildRestartRecord(final FileRestartInfo fileRestartInfo)
+			throws FileRestartManagementException {
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+			DataOutputStream out = new DataOutputStream(bos);
+			out.writeByte(RECORD_RESTART);
+			writeIdentifier(out, fileRestartInfo.identifierFromThisInfo());
+			out.writeUTF(fileRestartInfo.getLocalAbsolutePath());
+			out.writeUTF(fileRestartInfo.getRestartStatus().name());
+			out.writeInt(fileRestartInfo.getNumberRestarts());
+			List<FileRestartDataSegment> segments = fileRestartInfo
+					.getFileRestartDataSegments();
+			out.writeInt(segments.size());
+			for (FileRestartDataSegment segment : segments) {
+				writeSegment(out, segment);
+			}
+			out.writeUTF(fileRestartInfo.getSourceVersion() == null ? ""
+					: fileRestartInfo.getSourceVersion());
+			out.flush();
+			return bos.toByteArray();
+		} catch (IOException e) {
+			throw new FileRestartManagementException(
+					"error building restart journal record", e);
+		}
+	}
+
+	private byte[] buildSegmentRecord(final FileRestartInfo fileRestartInfo,
+			final FileRestartDataSegment fileRestartDataSegment)
+			throws FileRestartManagementException {
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+			DataOutputStream out = new DataOutputStream(bos);
+			out.writeByte(RECORD_SEGMENT);
+			writeIdentifier(out, fileRestartInfo.identifierFromThisInfo());
+			writeSegment(out, fileRestartDataSegment);
+			out.flush();
+			return bos.toByteArray();
+		} catch (IOException e) {
+			throw new FileRestartManagementException(
+					"error building restart journal record", e);
+		}
+	}
+
+	private byte[] buildDeleteRecord(
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier)
+			throws FileRestartManagementException {
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+			DataOutputStream out = new DataOutputStream(bos);
+			out.writeByte(RECORD_DELETE);
+			writeIdentifier(out, fileRestartInfoIdentifier);
+			out.flush();
+			return bos.toByteArray();
+		} catch (IOException e) {
+			throw new FileRestartManagementException(
+					"error building restart journal record", e);
+		}
+	}
+
+	private static void writeIdentifier(final DataOutputStream out,
+			final FileRestartInfoIdentifier identifier) throws IOException {
+		out.writeUTF(identifier.getIrodsAccountIdentifier());
+		out.writeUTF(identifier.getAbsolutePath());
+		out.writeUTF(identifier.getRestartType().name());
+	}
+
+	private static FileRestartInfoIdentifier readIdentifier(
+			final DataInputStream in) throws IOException {
+		FileRestartInfoIdentifier identifier = new FileRestartInfoIdentifier();
+		identifier.setIrodsAccountIdentifier(in.readUTF());
+		identifier.setAbsolutePath(in.readUTF());
+		identifier.setRestartType(RestartType.valueOf(in.readUTF()));
+		return identifier;
+	}
+
+	private static void writeSegment(final DataOutputStream out,
+			final FileRestartDataSegment segment) throws IOException {
+		out.writeInt(segment.getThreadNumber());
+		out.writeLong(segment.getOffset());
+		out.writeLong(segment.getLength());
+	}
+
+	private static FileRestartDataSegment readSegment(final DataInputStream in)
+			throws IOException {
+		FileRestartDataSegment segment = new FileRestartDataSegment(
+				in.readInt());
+		segment.setOffset(in.readLong());
+		segment.setLength(in.readLong());
+		return segment;
+	}
+
+}
@@ -39,6 +39,11 @@ public class FileRestartInfo {
 	 * Cached count of the number of restart attempts
 	 */
 	private int numberRestarts = 0;
+	/**
+	 * Version of the source when the restart was built, such as the
+	 * validators of an url, checked before resuming. Empty if not known.
+	 */
+	private String sourceVersion = "";
 	private List<FileRestartDataSegment> fileRestartDataSegments = new ArrayList<FileRestartDataSegment>();
 
 	public String getLocalAbsolutePath() {
@@ -128,6 +133,11 @@ public class FileRestartInfo {
 		builder.append(", numberRestarts=");
 		builder.append(numberRestarts);
 		builder.append(", ");
+		if (sourceVersion != null) {
+			builder.append("sourceVersion=");
+			builder.append(sourceVersion);
+			builder.append(", ");
+		}
 		if (fileRestartDataSegments != null) {
 			builder.append("fileRestartDataSegments=");
 			builder.append(fileRestartDataSegments.subList(0,
@@ -168,6 +178,21 @@ public class FileRestartInfo {
 		this.numberRestarts = numberRestarts;
 	}
 
+	/**
+	 * @return the sourceVersion
+	 */
+	public String getSourceVersion() {
+		return sourceVersion;
+	}
+
+	/**
+	 * @param sourceVersion
+	 *            the sourceVersion to set
+	 */
+	public void setSourceVersion(final String sourceVersion) {
+		this.sourceVersion = sourceVersion;
+	}
+
 	/**
 	 * Get an estimate of the length returned so far, helpful for progress
 	 * indicators
@@ -10,8 +10,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple restart manager that exists in an in-memory map. This version is
- * fairly naive and doesn't really support concurrent restarts.
+ * Simple restart manager that exists in an in-memory map. Restart information
+ * is lost when the process exits, see {@link FileBasedTransferRestartManager}
+ * for restarts that survive a restart of the process.
  * 
  * 
  * @author Mike Conway - DICE
@@ -23,7 +24,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 			.getLogger(MemoryBasedTransferRestartManager.class);
 
 	private final ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo> cacheOfRestartInfo = new ConcurrentHashMap<FileRestartInfoIdentifier, FileRestartInfo>(
-			8, 0.9f, 1);
+			8, 0.9f, 4);
 
 	public MemoryBasedTransferRestartManager() {
 	}
@@ -47,11 +48,9 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 
 		FileRestartInfoIdentifier identifier;
 
-		synchronized (this) {
-			identifier = FileRestartInfoIdentifier
-					.instanceFromFileRestartInfo(fileRestartInfo);
-			cacheOfRestartInfo.put(identifier, fileRestartInfo);
-		}
+		identifier = FileRestartInfoIdentifier
+				.instanceFromFileRestartInfo(fileRestartInfo);
+		cacheOfRestartInfo.put(identifier, fileRestartInfo);
 		return identifier;
 
 	}
@@ -73,9 +72,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
 		}
 
-		synchronized (this) {
-			cacheOfRestartInfo.remove(fileRestartInfoIdentifier);
-		}
+		cacheOfRestartInfo.remove(fileRestartInfoIdentifier);
 
 	}
 
@@ -95,9 +92,7 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 		if (fileRestartInfoIdentifier == null) {
 			throw new IllegalArgumentException("null fileRestartInfoIdentifier");
 		}
-		synchronized (this) {
-			return cacheOfRestartInfo.get(fileRestartInfoIdentifier);
-		}
+		return cacheOfRestartInfo.get(fileRestartInfoIdentifier);
 
 	}
 
@@ -127,9 +122,10 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 		log.info("updating fileRestartInfo:{}", fileRestartInfo);
 		log.info("updating fileRestartDataSegment:{}", fileRestartDataSegment);
 
-		synchronized (this) {
-			FileRestartInfo actualRestartInfo = retrieveRestart(fileRestartInfo
-					.identifierFromThisInfo());
+		FileRestartInfoIdentifier identifier = fileRestartInfo
+				.identifierFromThisInfo();
+		synchronized (lockFor(identifier)) {
+			FileRestartInfo actualRestartInfo = retrieveRestart(identifier);
 			if (actualRestartInfo.getFileRestartDataSegments().size() < fileRestartDataSegment
 					.getThreadNumber()) {
 				log.error(
@@ -178,9 +174,10 @@ public class MemoryBasedTransferRestartManager extends AbstractRestartManager {
 		}
 		log.info("fileRestartInfo:{}", fileRestartInfo);
 
-		synchronized (this) {
-			FileRestartInfo actualRestartInfo = retrieveRestart(fileRestartInfo
-					.identifierFromThisInfo());
+		FileRestartInfoIdentifier identifier = fileRestartInfo
+				.identifierFromThisInfo();
+		synchronized (lockFor(identifier)) {
+			FileRestartInfo actualRestartInfo = retrieveRestart(identifier);
 			if (actualRestartInfo == null) {
 				log.error("nothing to increment!");
 				return null;
@@ -0,0 +1,231 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import org.irods.jargon.core.connection.ConnectionProgressStatus;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handle a parallel file transfer get operation using NIO channels. Data is
+ * read from the <code>SocketChannel</code> into a pooled direct buffer and
+ * written to the local <code>FileChannel</code> at the offset given in each
+ * header, so file data never passes through a heap <code>byte[]</code>. This
+ * is selected instead of {@link ParallelGetTransferThread} when
+ * <code>JargonProperties.isUseNIOForParallelTransfers()</code> is
+ * <code>true</code>.
+ */
+public final class NIOParallelGetTransferThread extends
+		AbstractNIOParallelTransferThread implements
+		Callable<ParallelTransferResult> {
+
+	private final ParallelGetFileTransferStrategy parallelGetFileTransferStrategy;
+
+	public static final Logger log = LoggerFactory
+			.getLogger(NIOParallelGetTransferThread.class);
+
+	/**
+	 * Represents a thread used in a parallel file transfer. There will be
+	 * multiple threads controlled from the
+	 * <code>ParallelGetFileTransferStrategy</code>.
+	 *
+	 * @param parallelGetFileTransferStrategy
+	 *            {@link ParallelGetFileTransferStrategy} that controls the
+	 *            transfer threads.
+	 * @param threadNumber
+	 *            <code>int</code> with the thread number
+	 * @return <code>NIOParallelGetTransferThread</code>
+	 * @throws JargonException
+	 */
+	public static NIOParallelGetTransferThread instance(
+			final ParallelGetFileTransferStrategy parallelGetFileTransferStrategy,
+			final int threadNumber) throws JargonException {
+		return new NIOParallelGetTransferThread(
+				parallelGetFileTransferStrategy, threadNumber);
+	}
+
+	private NIOParallelGetTransferThread(
+			final ParallelGetFileTransferStrategy parallelGetFileTransferStrategy,
+			final int threadNumber) throws JargonException {
+
+		super(threadNumber);
+		if (parallelGetFileTransferStrategy == null) {
+			throw new JargonException("parallelGetFileTransferStrategy is null");
+		}
+
+		this.parallelGetFileTransferStrategy = parallelGetFileTransferStrategy;
+	}
+
+	@Override
+	public ParallelTransferResult call() throws JargonException {
+		try {
+			final boolean instrument = parallelGetFileTransferStrategy
+					.getPipelineConfiguration().isInstrument();
+			final long startNanos = instrument ? System.nanoTime() : 0L;
+
+			openChannel(parallelGetFileTransferStrategy);
+			log.info("channel is open and password sent, now begin the get operation");
+			get();
+
+			if (instrument) {
+				recordTransferMetrics(Instrumentation.PARALLEL_GET_BYTES,
+						Instrumentation.PARALLEL_GET_THREAD_THROUGHPUT,
+						startNanos);
+			}
+
+			ParallelTransferResult result = new ParallelTransferResult();
+			result.transferException = getExceptionInTransfer();
+			return result;
+		} catch (JargonException je) {
+			setExceptionInTransfer(je);
+			throw je;
+		} catch (Throwable e) {
+			log.error("unchecked exception in transfer", e);
+			throw new JargonException(e);
+		} finally {
+			close();
+		}
+	}
+
+	private void get() throws JargonException {
+		log.info("nio parallel transfer get");
+
+		RandomAccessFile local = null;
+		ByteBuffer buffer = null;
+
+		try {
+			local = new RandomAccessFile(
+					parallelGetFileTransferStrategy.getLocalFile(), "rw");
+			buffer = copyBufferPool.acquire(parallelGetFileTransferStrategy
+					.getJargonProperties().getParallelCopyBufferSize());
+			processingLoopForGetData(local.getChannel(), buffer);
+		} catch (IOException e) {
+			log.error(IO_EXEPTION_IN_PARALLEL_TRANSFER, e);
+			throw new JargonException(
+					IO_EXCEPTION_OCCURRED_DURING_PARALLEL_FILE_TRANSFER, e);
+		} finally {
+			copyBufferPool.release(buffer);
+			if (local != null) {
+				try {
+					local.close();
+				} catch (IOException e) {
+					log.warn("IOException closing local file - log and ignore");
+				}
+			}
+		}
+	}
+
+	private void processingLoopForGetData(final FileChannel local,
+			final ByteBuffer buffer) throws JargonException, IOException {
+
+		while (true) {
+			int operation = readInt();
+			readInt();
+			long offset = readLong();
+			long length = readLong();
+			log.info(">>>new offset:{}", offset);
+			log.info(">>>new length:{}", length);
+
+			if (operation == DONE_OPR) {
+				log.info("done received");
+				break;
+			}
+
+			if (operation != GET_OPR) {
+				log.error(
+						"Parallel transfer expected GET,  server requested {}",
+						operation);
+				throw new JargonException(
+						"parallel get transfer, unexpected transfer type from iRODS:"
+								+ operation);
+			}
+
+			if (length < 0) {
+				String msg = "length < 0 passed in header from iRODS during parallel get operation";
+				log.error(msg);
+				throw new JargonException(msg);
+			} else if (length == 0) {
+				break;
+			}
+
+			if (offset > 0
+					&& parallelGetFileTransferStrategy.getFileRestartInfo() != null) {
+				parallelGetFileTransferStrategy.getRestartManager()
+						.updateOffsetForSegment(
+								parallelGetFileTransferStrategy
+										.getFileRestartInfo()
+										.identifierFromThisInfo(),
+								getThreadNumber(), offset);
+			}
+
+			receiveSegment(local, buffer, offset, length);
+
+			if (parallelGetFileTransferStrategy.getFileRestartInfo() != null) {
+				parallelGetFileTransferStrategy.getRestartManager()
+						.updateLengthForSegment(
+								parallelGetFileTransferStrategy
+										.getFileRestartInfo()
+										.identifierFromThisInfo(),
+								getThreadNumber(), length);
+				log.debug("signal storage of new info");
+			}
+		}
+	}
+
+	/**
+	 * Move <code>length</code> bytes from the socket to the local file,
+	 * starting at <code>offset</code>
+	 */
+	private void receiveSegment(final FileChannel local,
+			final ByteBuffer buffer, final long offset, final long length)
+			throws IOException {
+
+		long position = offset;
+		long remaining = length;
+
+		while (remaining > 0) {
+			if (Thread.interrupted()) {
+				throw new IOException(
+						"interrupted, consider connection corrupted and return IOException to clear");
+			}
+
+			buffer.clear();
+			if (remaining < buffer.capacity()) {
+				buffer.limit((int) remaining);
+			}
+
+			int read = readChannel(buffer);
+			if (read < 0) {
+				throw new IOException(
+						"end of stream before parallel get segment was received");
+			}
+
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += local.write(buffer, position);
+			}
+
+			remaining -= read;
+			addBytesTransferred(read);
+
+			/*
+			 * Make an intra-file status call-back if a listener is configured
+			 */
+			if (parallelGetFileTransferStrategy
+					.getConnectionProgressStatusListener() != null) {
+				parallelGetFileTransferStrategy
+						.getConnectionProgressStatusListener()
+						.connectionProgressStatusCallback(
+								ConnectionProgressStatus
+										.instanceForReceive(read));
+			}
+		}
+	}
+
+}
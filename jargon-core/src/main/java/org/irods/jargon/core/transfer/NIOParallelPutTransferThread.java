@@ -0,0 +1,206 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+import org.irods.jargon.core.connection.ConnectionConstants;
+import org.irods.jargon.core.connection.ConnectionProgressStatus;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handle a parallel file transfer put operation using NIO channels. Each
+ * segment requested by iRODS is sent with
+ * <code>FileChannel.transferTo()</code>, which lets the operating system copy
+ * straight from the file to the socket where it is able to. This is selected
+ * instead of {@link ParallelPutTransferThread} when
+ * <code>JargonProperties.isUseNIOForParallelTransfers()</code> is
+ * <code>true</code>.
+ */
+public final class NIOParallelPutTransferThread extends
+		AbstractNIOParallelTransferThread implements
+		Callable<ParallelTransferResult> {
+
+	private final ParallelPutFileTransferStrategy parallelPutFileTransferStrategy;
+
+	public static final Logger log = LoggerFactory
+			.getLogger(NIOParallelPutTransferThread.class);
+
+	/**
+	 * Represents a thread used in a parallel file transfer. There will be
+	 * multiple threads controlled from the
+	 * <code>ParallelPutFileTransferStrategy</code>.
+	 *
+	 * @param parallelPutFileTransferStrategy
+	 *            {@link ParallelPutFileTransferStrategy} that controls the
+	 *            transfer threads.
+	 * @param threadNumber
+	 *            <code>int</code> with the thread number
+	 * @return <code>NIOParallelPutTransferThread</code>
+	 * @throws JargonException
+	 */
+	public static NIOParallelPutTransferThread instance(
+			final ParallelPutFileTransferStrategy parallelPutFileTransferStrategy,
+			final int threadNumber) throws JargonException {
+		return new NIOParallelPutTransferThread(
+				parallelPutFileTransferStrategy, threadNumber);
+	}
+
+	private NIOParallelPutTransferThread(
+			final ParallelPutFileTransferStrategy parallelPutFileTransferStrategy,
+			final int threadNumber) throws JargonException {
+
+		super(threadNumber);
+		if (parallelPutFileTransferStrategy == null) {
+			throw new JargonException("parallelPutFileTransferStrategy is null");
+		}
+
+		this.parallelPutFileTransferStrategy = parallelPutFileTransferStrategy;
+	}
+
+	@Override
+	public ParallelTransferResult call() throws JargonException {
+		RandomAccessFile localRandomAccessFile = null;
+
+		try {
+			final boolean instrument = parallelPutFileTransferStrategy
+					.getPipelineConfiguration().isInstrument();
+			final long startNanos = instrument ? System.nanoTime() : 0L;
+
+			localRandomAccessFile = new RandomAccessFile(
+					parallelPutFileTransferStrategy.getLocalFile(), "r");
+			openChannel(parallelPutFileTransferStrategy);
+			put(localRandomAccessFile.getChannel());
+
+			if (instrument) {
+				recordTransferMetrics(Instrumentation.PARALLEL_PUT_BYTES,
+						Instrumentation.PARALLEL_PUT_THREAD_THROUGHPUT,
+						startNanos);
+			}
+
+			log.debug("put operation completed");
+			return new ParallelTransferResult();
+		} catch (Throwable e) {
+			log.error(
+					"An exception occurred during a parallel file put operation",
+					e);
+			JargonException je = new JargonException(
+					"error during parallel file put", e);
+			setExceptionInTransfer(je);
+			throw je;
+		} finally {
+			close();
+			if (localRandomAccessFile != null) {
+				try {
+					localRandomAccessFile.close();
+				} catch (IOException e) {
+					log.warn("IOException closing local file - log and ignore");
+				}
+			}
+		}
+	}
+
+	private void put(final FileChannel local) throws JargonException,
+			IOException {
+		log.info("nio parallel transfer put");
+
+		while (true) {
+			int operation = readInt();
+
+			if (operation == DONE_OPR) {
+				log.info("done received");
+				break;
+			} else if (operation != PUT_OPR) {
+				throw new JargonException("unknown operation received");
+			}
+
+			// flags
+			readInt();
+			long offset = readLong();
+
+			if (parallelPutFileTransferStrategy.getFileRestartInfo() != null) {
+				parallelPutFileTransferStrategy.getRestartManager()
+						.updateOffsetForSegment(
+								parallelPutFileTransferStrategy
+										.getFileRestartInfo()
+										.identifierFromThisInfo(),
+								getThreadNumber(), offset);
+			}
+
+			long length = readLong();
+			log.info(">>>new offset:{}", offset);
+			log.info(">>>new length:{}", length);
+
+			sendSegment(local, offset, length);
+		}
+	}
+
+	/**
+	 * Send <code>length</code> bytes of the local file, starting at
+	 * <code>offset</code>, down the socket
+	 */
+	private void sendSegment(final FileChannel local, final long offset,
+			final long length) throws JargonException, IOException {
+
+		final int chunkSize = parallelPutFileTransferStrategy
+				.getJargonProperties().getParallelCopyBufferSize();
+		long position = offset;
+		long remaining = length;
+		long totalWrittenSinceLastRestartUpdate = 0;
+
+		while (remaining > 0) {
+			if (Thread.interrupted()) {
+				throw new IOException(
+						"interrupted, consider connection corrupted and return IOException to clear");
+			}
+
+			long sent = transferToChannel(local, position,
+					Math.min(chunkSize, remaining));
+			if (sent <= 0) {
+				throw new IOException(
+						"local file ended before the segment requested by iRODS was sent");
+			}
+
+			position += sent;
+			remaining -= sent;
+			totalWrittenSinceLastRestartUpdate += sent;
+			addBytesTransferred(sent);
+
+			/*
+			 * Make an intra-file status call-back if a listener is configured
+			 */
+			if (parallelPutFileTransferStrategy
+					.getConnectionProgressStatusListener() != null) {
+				parallelPutFileTransferStrategy
+						.getConnectionProgressStatusListener()
+						.connectionProgressStatusCallback(
+								ConnectionProgressStatus.instanceForSend(sent));
+			}
+
+			if (parallelPutFileTransferStrategy.getFileRestartInfo() != null
+					&& totalWrittenSinceLastRestartUpdate >= ConnectionConstants.MIN_FILE_RESTART_SIZE) {
+				updateRestartLength(totalWrittenSinceLastRestartUpdate);
+				totalWrittenSinceLastRestartUpdate = 0;
+			}
+		}
+
+		if (parallelPutFileTransferStrategy.getFileRestartInfo() != null
+				&& totalWrittenSinceLastRestartUpdate > 0) {
+			updateRestartLength(totalWrittenSinceLastRestartUpdate);
+		}
+	}
+
+	private void updateRestartLength(final long length) throws JargonException {
+		parallelPutFileTransferStrategy.getRestartManager()
+				.updateLengthForSegment(
+						parallelPutFileTransferStrategy.getFileRestartInfo()
+								.identifierFromThisInfo(), getThreadNumber(),
+						length);
+		log.debug("signal storage of new info");
+	}
+
+}
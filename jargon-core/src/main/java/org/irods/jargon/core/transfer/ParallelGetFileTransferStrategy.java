@@ -6,6 +6,7 @@ package org.irods.jargon.core.transfer;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -150,14 +151,21 @@ public final class ParallelGetFileTransferStrategy extends
 
 	private void transferWithExecutor(final ExecutorService executor)
 			throws JargonException {
-		final List<ParallelGetTransferThread> parallelGetTransferThreads = new ArrayList<ParallelGetTransferThread>();
+		final List<Callable<ParallelTransferResult>> parallelGetTransferThreads = new ArrayList<Callable<ParallelTransferResult>>();
+		final boolean useNIO = getJargonProperties()
+				.isUseNIOForParallelTransfers();
+		log.info("use NIO for parallel get:{}", useNIO);
 
 		try {
 
 			for (int i = 0; i < numberOfThreads; i++) {
-				final ParallelGetTransferThread parallelTransfer = ParallelGetTransferThread
-						.instance(this, i);
-				parallelGetTransferThreads.add(parallelTransfer);
+				if (useNIO) {
+					parallelGetTransferThreads.add(NIOParallelGetTransferThread
+							.instance(this, i));
+				} else {
+					parallelGetTransferThreads.add(ParallelGetTransferThread
+							.instance(this, i));
+				}
 			}
 			log.info("invoking executor threads for get");
 			log.info("invoking executor threads for put");
@@ -16,6 +16,7 @@ import java.util.concurrent.Callable;
 import org.irods.jargon.core.connection.ConnectionProgressStatus;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -145,7 +146,15 @@ public final class ParallelGetTransferThread extends
 			log.debug("cookie written");
 			log.info("sockets are open and password sent, now begin the get operation");
 
+			final boolean instrument = parallelGetFileTransferStrategy
+					.getPipelineConfiguration().isInstrument();
+			final long startNanos = instrument ? System.nanoTime() : 0L;
 			get();
+			if (instrument) {
+				recordTransferMetrics(Instrumentation.PARALLEL_GET_BYTES,
+						Instrumentation.PARALLEL_GET_THREAD_THROUGHPUT,
+						startNanos);
+			}
 			log.info("exiting get and returning the finish object");
 			ParallelTransferResult result = new ParallelTransferResult();
 			result.transferException = getExceptionInTransfer();
@@ -274,6 +283,7 @@ public final class ParallelGetTransferThread extends
 					if (length == 0) {
 
 						local.write(buffer, 0, read);
+						addBytesTransferred(read);
 
 						/*
 						 * Make an intra-file status call-back if a listener is
@@ -329,6 +339,7 @@ public final class ParallelGetTransferThread extends
 					} else {
 
 						local.write(buffer, 0, read);
+						addBytesTransferred(read);
 						/*
 						 * Make an intra-file status call-back if a listener is
 						 * configured
@@ -6,6 +6,7 @@ package org.irods.jargon.core.transfer;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -154,14 +155,21 @@ public final class ParallelPutFileTransferStrategy extends
 	private void transferWithExecutor(final ExecutorService executor)
 			throws JargonException {
 		log.info("initiating transfer for: {} without executor", toString());
-		final List<ParallelPutTransferThread> parallelPutTransferThreads = new ArrayList<ParallelPutTransferThread>();
-		localFile.length();
-		ParallelPutTransferThread parallelTransferThread;
+		final List<Callable<ParallelTransferResult>> parallelPutTransferThreads = new ArrayList<Callable<ParallelTransferResult>>();
+		final boolean useNIO = getJargonProperties()
+				.isUseNIOForParallelTransfers();
+		log.info("use NIO for parallel put:{}", useNIO);
+		Callable<ParallelTransferResult> parallelTransferThread;
 
 		for (int i = 0; i < numberOfThreads; i++) {
 
-			parallelTransferThread = ParallelPutTransferThread
-					.instance(this, i);
+			if (useNIO) {
+				parallelTransferThread = NIOParallelPutTransferThread
+						.instance(this, i);
+			} else {
+				parallelTransferThread = ParallelPutTransferThread.instance(
+						this, i);
+			}
 			parallelPutTransferThreads.add(parallelTransferThread);
 			log.info("created transfer thread:{}", parallelTransferThread);
 
@@ -11,6 +11,7 @@ import java.util.concurrent.Callable;
 import org.irods.jargon.core.connection.ConnectionConstants;
 import org.irods.jargon.core.connection.ConnectionProgressStatus;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.instrumentation.Instrumentation;
 import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -166,7 +167,15 @@ public final class ParallelPutTransferThread extends
 			getOut().flush();
 
 			log.debug("cookie written for output thread...calling put() to start read/write loop");
+			final boolean instrument = parallelPutFileTransferStrategy
+					.getPipelineConfiguration().isInstrument();
+			final long startNanos = instrument ? System.nanoTime() : 0L;
 			put();
+			if (instrument) {
+				recordTransferMetrics(Instrumentation.PARALLEL_PUT_BYTES,
+						Instrumentation.PARALLEL_PUT_THREAD_THROUGHPUT,
+						startNanos);
+			}
 			log.debug("put operation completed");
 			ParallelTransferResult result = new ParallelTransferResult();
 			return result;
@@ -339,6 +348,7 @@ public final class ParallelPutTransferThread extends
 							transferLength);
 
 					getOut().write(buffer, 0, read);
+					addBytesTransferred(read);
 
 					/*
 					 * Make an intra-file status call-back if a listener is
@@ -1,5 +1,7 @@
 package org.irods.jargon.core.checksum;
 
+import java.io.File;
+import java.security.MessageDigest;
 import java.util.Properties;
 
 import junit.framework.Assert;
@@ -55,4 +57,25 @@ public class SHA256LocalChecksumComputerStrategyTest {
 				+ expectedAsString, actual.getChecksumTransmissionFormat());
 	}
 
+	@Test
+	public void testChecksumValueFromInlineDigest() throws Exception {
+		String testFileName = "testChecksumValueFromInlineDigest.txt";
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator
+				.generateFileOfFixedLengthGivenName(absPath, testFileName, 10000);
+
+		AbstractChecksumComputeStrategy checksumStrategy = new SHA256LocalChecksumComputerStrategy();
+		ChecksumValue expected = checksumStrategy
+				.computeChecksumValueForLocalFile(localFileName);
+
+		MessageDigest digest = checksumStrategy.instanceMessageDigest();
+		digest.update(LocalFileUtils.getBytesFromFile(new File(localFileName)));
+		ChecksumValue actual = checksumStrategy.checksumValueFromDigest(digest
+				.digest());
+
+		Assert.assertEquals("inline checksum should match file checksum",
+				expected, actual);
+	}
+
 }
@@ -0,0 +1,97 @@
+package org.irods.jargon.core.connection;
+
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSMidLevelProtocolPipelineTest.ScriptedConnection;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TagEncoder;
+import org.irods.jargon.core.utils.Host;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.junit.Test;
+
+/**
+ * Framing in the connection, over a scripted connection that keeps what is
+ * sent
+ */
+public class AbstractConnectionTest {
+
+	@Test
+	public void testSendHeaderMatchesCreateHeader() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		IRODSMidLevelProtocol protocol = new IRODSMidLevelProtocol(
+				connection, connection.getIRODSProtocolManager());
+
+		connection.sendHeader(IRODSConstants.RODS_API_REQ, 123, 0,
+				5000000000L, 633);
+		connection.sendHeader(IRODSConstants.RODS_API_REQ, 0, 7, 0, -809000);
+		connection.flush();
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(protocol.createHeader(IRODSConstants.RODS_API_REQ,
+				123, 0, 5000000000L, 633));
+		expected.write(protocol.createHeader(IRODSConstants.RODS_API_REQ, 0,
+				7, 0, -809000));
+		Assert.assertEquals(new String(expected.toByteArray(), "UTF-8"),
+				new String(connection.getSent(), "UTF-8"));
+	}
+
+	@Test
+	public void testSendSliceDoesNotKeepCallerArray() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		byte[] value = "abcdefgh".getBytes("UTF-8");
+		connection.send(value, 2, 3);
+		value[2] = 'x';
+		connection.flush();
+		Assert.assertEquals("cde", new String(connection.getSent(), "UTF-8"));
+	}
+
+	@Test
+	public void testSendTagMatchesParseTag() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		Tag tag = new Tag("outer");
+		tag.addTag("name", "a & b <c> \u00fc");
+		tag.addTag("count", 3);
+		connection.send("x".getBytes("UTF-8"));
+		connection.sendTag(tag, TagEncoder.encodedLength(tag));
+		connection.flush();
+		Assert.assertEquals("x" + tag.parseTag(),
+				new String(connection.getSent(), "UTF-8"));
+	}
+
+	@Test
+	public void testFlushTwice() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		connection.send("first".getBytes("UTF-8"));
+		connection.flush();
+		connection.send("2".getBytes("UTF-8"));
+		connection.flush();
+		Assert.assertEquals("first2",
+				new String(connection.getSent(), "UTF-8"));
+	}
+
+	@Test
+	public void testReadIntThenReadToStream() throws Exception {
+		byte[] replies = new byte[4 + 10000];
+		Host.copyInt(42, replies);
+		for (int i = 4; i < replies.length; i++) {
+			replies[i] = (byte) i;
+		}
+		ScriptedConnection connection = ScriptedConnection.instance(replies);
+		Assert.assertEquals(42, connection.readIntInNetworkOrder());
+
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		connection.read(destination, 10000, null);
+		byte[] read = destination.toByteArray();
+		Assert.assertEquals(10000, read.length);
+		for (int i = 0; i < read.length; i++) {
+			Assert.assertEquals(replies[i + 4], read[i]);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.irods.jargon.core.connection;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSMidLevelProtocolPipelineTest.ScriptedConnection;
+import org.junit.Test;
+
+/**
+ * Checks that connection metadata may be read while a request/response
+ * exchange holds the protocol lock
+ */
+public class IRODSMidLevelProtocolLockingTest {
+
+	@Test
+	public void testMetadataGettersDoNotWaitForExchange() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		final IRODSMidLevelProtocol protocol = new IRODSMidLevelProtocol(
+				connection, connection.getIRODSProtocolManager());
+		final IRODSAccount irodsAccount = connection.getIrodsAccount();
+		protocol.setIrodsAccount(irodsAccount);
+
+		final CountDownLatch exchangeStarted = new CountDownLatch(1);
+		final CountDownLatch releaseExchange = new CountDownLatch(1);
+
+		// stands in for a long network round trip holding the exchange lock
+		Thread exchange = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (protocol) {
+					exchangeStarted.countDown();
+					try {
+						releaseExchange.await(30, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		});
+		exchange.start();
+		Assert.assertTrue(exchangeStarted.await(10, TimeUnit.SECONDS));
+
+		final CountDownLatch observed = new CountDownLatch(1);
+		final AtomicReference<IRODSAccount> observedAccount = new AtomicReference<IRODSAccount>();
+		Thread observer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				observedAccount.set(protocol.getIrodsAccount());
+				protocol.isConnected();
+				protocol.getIRODSServerProperties();
+				protocol.getIrodsSession();
+				protocol.getIrodsProtocolManager();
+				protocol.getAuthResponse();
+				protocol.getStartupResponseData();
+				observed.countDown();
+			}
+		});
+		observer.start();
+
+		try {
+			Assert.assertTrue("metadata getters blocked behind the exchange",
+					observed.await(10, TimeUnit.SECONDS));
+			Assert.assertSame(irodsAccount, observedAccount.get());
+		} finally {
+			releaseExchange.countDown();
+			exchange.join();
+			observer.join();
+		}
+	}
+
+}
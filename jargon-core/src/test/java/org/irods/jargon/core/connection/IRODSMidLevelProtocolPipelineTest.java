@@ -0,0 +1,140 @@
+package org.irods.jargon.core.connection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.DuplicateDataException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.utils.Host;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Runs pipelined requests over a scripted connection that replays canned
+ * iRODS replies
+ */
+public class IRODSMidLevelProtocolPipelineTest {
+
+	@Test
+	public void testPipelinedRepliesInOrderWithError() throws Exception {
+		ByteArrayOutputStream replies = new ByteArrayOutputStream();
+		writeReply(replies, 0);
+		writeReply(replies, -809000);
+		writeReply(replies, 0);
+
+		ScriptedConnection connection = ScriptedConnection
+				.instance(replies.toByteArray());
+		IRODSMidLevelProtocol protocol = new IRODSMidLevelProtocol(
+				connection, connection.getIRODSProtocolManager());
+
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>();
+		for (int i = 0; i < 3; i++) {
+			requests.add(ModAvuMetadataInp.instanceForAddDataObjectMetadata(
+					"/zone/home/test/file.txt",
+					AvuData.instance("attr" + i, "value", "")));
+		}
+
+		List<PipelinedResponse> responses = protocol.irodsFunctionPipelined(
+				requests, 2);
+
+		Assert.assertEquals(3, responses.size());
+		Assert.assertTrue(responses.get(0).isSuccessful());
+		Assert.assertFalse(responses.get(1).isSuccessful());
+		Assert.assertTrue(responses.get(1).getException() instanceof DuplicateDataException);
+		Assert.assertTrue(responses.get(2).isSuccessful());
+
+		String sent = new String(connection.getSent(), "UTF-8");
+		int requestCount = sent.split("<MsgHeader_PI>").length - 1;
+		Assert.assertEquals("did not send every request", 3, requestCount);
+		Assert.assertTrue(sent.indexOf("attr0") < sent.indexOf("attr1"));
+		Assert.assertTrue(sent.indexOf("attr1") < sent.indexOf("attr2"));
+	}
+
+	@Test
+	public void testPipelinedEmptyList() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		IRODSMidLevelProtocol protocol = new IRODSMidLevelProtocol(
+				connection, connection.getIRODSProtocolManager());
+		List<PipelinedResponse> responses = protocol.irodsFunctionPipelined(
+				new ArrayList<ModAvuMetadataInp>(), 10);
+		Assert.assertTrue(responses.isEmpty());
+		Assert.assertEquals(0, connection.getSent().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPipelinedZeroInFlight() throws Exception {
+		ScriptedConnection connection = ScriptedConnection
+				.instance(new byte[0]);
+		IRODSMidLevelProtocol protocol = new IRODSMidLevelProtocol(
+				connection, connection.getIRODSProtocolManager());
+		protocol.irodsFunctionPipelined(new ArrayList<ModAvuMetadataInp>(), 0);
+	}
+
+	static void writeReply(final ByteArrayOutputStream out, final int intInfo)
+			throws Exception {
+		String header = "<MsgHeader_PI><type>RODS_API_REPLY</type><msgLen>0</msgLen><errorLen>0</errorLen><bsLen>0</bsLen><intInfo>"
+				+ intInfo + "</intInfo></MsgHeader_PI>";
+		byte[] headerBytes = header.getBytes("UTF-8");
+		byte[] length = new byte[4];
+		Host.copyInt(headerBytes.length, length);
+		out.write(length);
+		out.write(headerBytes);
+	}
+
+	/**
+	 * Connection that reads canned replies and keeps what is sent
+	 */
+	static class ScriptedConnection extends AbstractConnection {
+
+		static ScriptedConnection instance(final byte[] replies)
+				throws JargonException {
+			IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247,
+					"user", "password", "/zone/home/user", "zone", "");
+			PipelineConfiguration pipelineConfiguration = PipelineConfiguration
+					.instance(new SettableJargonProperties());
+			return new ScriptedConnection(irodsAccount, pipelineConfiguration,
+					Mockito.mock(IRODSProtocolManager.class), replies);
+		}
+
+		private ScriptedConnection(final IRODSAccount irodsAccount,
+				final PipelineConfiguration pipelineConfiguration,
+				final IRODSProtocolManager irodsProtocolManager,
+				final byte[] replies) throws JargonException {
+			super(irodsAccount, pipelineConfiguration, irodsProtocolManager);
+			// connect() runs in the super constructor, so the replies are set
+			// here
+			irodsInputStream = new ByteArrayInputStream(replies);
+		}
+
+		byte[] getSent() {
+			return ((ByteArrayOutputStream) irodsOutputStream).toByteArray();
+		}
+
+		@Override
+		protected void connect(final IRODSAccount irodsAccount)
+				throws JargonException {
+			// unconnected socket, only checked for isClosed() when flushing
+			connection = new Socket();
+			irodsOutputStream = new ByteArrayOutputStream();
+		}
+
+		@Override
+		protected void shutdown() throws JargonException {
+			setConnected(false);
+		}
+
+		@Override
+		protected void obliterateConnectionAndDiscardErrors() {
+			setConnected(false);
+		}
+	}
+
+}
@@ -0,0 +1,394 @@
+package org.irods.jargon.core.connection;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.MiscSvrInfo;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class IRODSPoolingProtocolManagerTest {
+
+	private static IRODSProtocolPoolConfiguration buildTestConfiguration() {
+		IRODSProtocolPoolConfiguration config = new IRODSProtocolPoolConfiguration();
+		config.setEvictionRunIntervalMillis(0);
+		config.setTestOnBorrow(false);
+		return config;
+	}
+
+	private static IRODSAccount buildAccount(final String password)
+			throws Exception {
+		return IRODSAccount.instance("host", 1247, "user", password,
+				"/zone/home/user", "zone", "resc");
+	}
+
+	private static AbstractIRODSMidLevelProtocol buildProtocol(
+			final int renewalInterval, final long connectTime) {
+		AbstractIRODSMidLevelProtocol protocol = Mockito
+				.mock(AbstractIRODSMidLevelProtocol.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		Mockito.when(pipelineConfiguration.getSocketRenewalIntervalInSeconds())
+				.thenReturn(renewalInterval);
+		Mockito.when(protocol.getPipelineConfiguration()).thenReturn(
+				pipelineConfiguration);
+		Mockito.when(protocol.getConnectTimeInMillis()).thenReturn(
+				connectTime);
+		Mockito.when(protocol.isConnected()).thenReturn(true);
+		return protocol;
+	}
+
+	private static AbstractIRODSMidLevelProtocolFactory mockFactory(
+			final IRODSPoolingProtocolManager manager) {
+		AbstractIRODSMidLevelProtocolFactory factory = Mockito
+				.mock(AbstractIRODSMidLevelProtocolFactory.class);
+		manager.setIrodsMidLevelProtocolFactory(factory);
+		return factory;
+	}
+
+	@Test
+	public void testReturnedConnectionIsReused() throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(buildTestConfiguration());
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol protocol = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(protocol);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		AbstractIRODSMidLevelProtocol second = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+
+		Assert.assertSame("did not reuse pooled connection", first, second);
+		IRODSProtocolPoolStatistics stats = manager.getPoolStatistics();
+		Assert.assertEquals("should have created one connection", 1,
+				stats.getCreated());
+		Assert.assertEquals("should have reused one connection", 1,
+				stats.getReused());
+		Assert.assertEquals("should be one active connection", 1,
+				stats.getActive());
+		Assert.assertEquals("should be no idle connections", 0,
+				stats.getIdle());
+	}
+
+	@Test
+	public void testDifferentCredentialGetsDifferentConnection()
+			throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(buildTestConfiguration());
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		IRODSAccount otherAccount = buildAccount("otherpassword");
+		AbstractIRODSMidLevelProtocol protocol = buildProtocol(0,
+				System.currentTimeMillis());
+		AbstractIRODSMidLevelProtocol otherProtocol = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(protocol).thenReturn(otherProtocol);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		AbstractIRODSMidLevelProtocol second = manager.getIRODSProtocol(
+				otherAccount, pipelineConfiguration, irodsSession);
+
+		Assert.assertNotSame("should not share a connection across passwords",
+				first, second);
+		Assert.assertEquals("should have two pools", 2, manager
+				.getPoolStatistics().getAccounts());
+	}
+
+	@Test
+	public void testDisconnectedIdleConnectionIsReplaced() throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(buildTestConfiguration());
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol protocol = buildProtocol(0,
+				System.currentTimeMillis());
+		AbstractIRODSMidLevelProtocol replacement = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(protocol).thenReturn(replacement);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		Mockito.when(protocol.isConnected()).thenReturn(false);
+		AbstractIRODSMidLevelProtocol second = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+
+		Assert.assertSame("should have replaced connection", replacement,
+				second);
+		Assert.assertEquals("should record validation failure", 1, manager
+				.getPoolStatistics().getValidationFailures());
+	}
+
+	@Test
+	public void testTestOnBorrowFailureIsReplaced() throws Exception {
+		IRODSProtocolPoolConfiguration config = buildTestConfiguration();
+		config.setTestOnBorrow(true);
+		config.setValidationIntervalMillis(-1);
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(config);
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol protocol = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(
+				protocol.irodsFunction(MiscSvrInfo.PI_TAG, "",
+						MiscSvrInfo.API_NBR)).thenThrow(
+				new JargonException("agent gone"));
+		AbstractIRODSMidLevelProtocol replacement = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(protocol).thenReturn(replacement);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		AbstractIRODSMidLevelProtocol second = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+
+		Assert.assertSame("should have replaced connection", replacement,
+				second);
+		Assert.assertEquals("should record validation failure", 1, manager
+				.getPoolStatistics().getValidationFailures());
+	}
+
+	@Test
+	public void testConnectionPastRenewalIntervalNotPooled() throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(buildTestConfiguration());
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol protocol = buildProtocol(10,
+				System.currentTimeMillis() - 60000);
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(protocol);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+
+		IRODSProtocolPoolStatistics stats = manager.getPoolStatistics();
+		Assert.assertEquals("should not have pooled expired connection", 0,
+				stats.getIdle());
+		Assert.assertEquals("should have counted renewal", 1,
+				stats.getExpiredForRenewal());
+		Assert.assertEquals("should have destroyed connection", 1,
+				stats.getDestroyed());
+	}
+
+	@Test
+	public void testMaxIdleHonoredOnReturn() throws Exception {
+		IRODSProtocolPoolConfiguration config = buildTestConfiguration();
+		config.setMaxIdlePerAccount(1);
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(config);
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol pooled0 = buildProtocol(0,
+				System.currentTimeMillis());
+		AbstractIRODSMidLevelProtocol pooled1 = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(pooled0)
+				.thenReturn(pooled1);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		AbstractIRODSMidLevelProtocol second = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		manager.returnIRODSProtocol(second);
+
+		IRODSProtocolPoolStatistics stats = manager.getPoolStatistics();
+		Assert.assertEquals("should keep max idle", 1, stats.getIdle());
+		Assert.assertEquals("should destroy extra", 1, stats.getDestroyed());
+		Assert.assertEquals("should have no active", 0, stats.getActive());
+	}
+
+	@Test(expected = JargonException.class)
+	public void testMaxTotalExhaustedNoWait() throws Exception {
+		IRODSProtocolPoolConfiguration config = buildTestConfiguration();
+		config.setMaxTotalPerAccount(1);
+		config.setMaxWaitMillis(0);
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(config);
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol pooled0 = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(pooled0);
+
+		manager.getIRODSProtocol(irodsAccount, pipelineConfiguration,
+				irodsSession);
+		manager.getIRODSProtocol(irodsAccount, pipelineConfiguration,
+				irodsSession);
+	}
+
+	@Test
+	public void testMaxTotalWaitsForReturn() throws Exception {
+		IRODSProtocolPoolConfiguration config = buildTestConfiguration();
+		config.setMaxTotalPerAccount(1);
+		config.setMaxWaitMillis(10000);
+		final IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(config);
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol pooled0 = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(pooled0);
+
+		final AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+
+		Thread returner = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+					manager.returnIRODSProtocol(first);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		returner.start();
+
+		AbstractIRODSMidLevelProtocol second = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		returner.join();
+		Assert.assertSame("should have waited for returned connection", first,
+				second);
+	}
+
+	@Test
+	public void testEvictIdleConnections() throws Exception {
+		IRODSProtocolPoolConfiguration config = buildTestConfiguration();
+		config.setIdleEvictionTimeMillis(1);
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(config);
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol pooled0 = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(pooled0);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		Thread.sleep(20);
+		manager.evict();
+
+		IRODSProtocolPoolStatistics stats = manager.getPoolStatistics();
+		Assert.assertEquals("should have evicted", 1, stats.getEvicted());
+		Assert.assertEquals("should have no idle", 0, stats.getIdle());
+		Assert.assertEquals("empty pool should be retired", 0,
+				stats.getAccounts());
+	}
+
+	@Test
+	public void testEvictTopsUpToMinIdle() throws Exception {
+		IRODSProtocolPoolConfiguration config = buildTestConfiguration();
+		config.setMinIdlePerAccount(2);
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(config);
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol pooled0 = buildProtocol(0,
+				System.currentTimeMillis());
+		AbstractIRODSMidLevelProtocol pooled1 = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(pooled0)
+				.thenReturn(pooled1);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		manager.evict();
+
+		Assert.assertEquals("should have topped up to min idle", 2, manager
+				.getPoolStatistics().getIdle());
+	}
+
+	@Test(expected = JargonException.class)
+	public void testGetAfterDestroy() throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(buildTestConfiguration());
+		mockFactory(manager);
+		manager.destroy();
+		manager.getIRODSProtocol(buildAccount("password"),
+				Mockito.mock(PipelineConfiguration.class),
+				Mockito.mock(IRODSSession.class));
+	}
+
+	@Test
+	public void testDestroyClosesIdle() throws Exception {
+		IRODSPoolingProtocolManager manager = IRODSPoolingProtocolManager
+				.instance(buildTestConfiguration());
+		AbstractIRODSMidLevelProtocolFactory factory = mockFactory(manager);
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		IRODSAccount irodsAccount = buildAccount("password");
+		AbstractIRODSMidLevelProtocol pooled0 = buildProtocol(0,
+				System.currentTimeMillis());
+		Mockito.when(factory.instance(irodsSession, irodsAccount, manager))
+				.thenReturn(pooled0);
+
+		AbstractIRODSMidLevelProtocol first = manager.getIRODSProtocol(
+				irodsAccount, pipelineConfiguration, irodsSession);
+		manager.returnIRODSProtocol(first);
+		manager.destroy();
+
+		IRODSProtocolPoolStatistics stats = manager.getPoolStatistics();
+		Assert.assertEquals("should have no idle", 0, stats.getIdle());
+		Assert.assertEquals("should have destroyed", 1, stats.getDestroyed());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullConfiguration() throws Exception {
+		new IRODSPoolingProtocolManager(null);
+	}
+
+}
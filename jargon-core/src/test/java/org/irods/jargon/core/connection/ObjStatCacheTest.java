@@ -0,0 +1,108 @@
+package org.irods.jargon.core.connection;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.junit.Test;
+
+public class ObjStatCacheTest {
+
+	private static final String COLL = "/zone/home/test/coll";
+	private static final String FILE = COLL + "/file.txt";
+
+	@Test
+	public void testCacheAndRetrieve() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 10);
+		IRODSAccount irodsAccount = buildAccount("test");
+		ObjStat objStat = buildObjStat(FILE);
+		cache.cache(irodsAccount, FILE, objStat);
+		Assert.assertSame(objStat, cache.retrieve(irodsAccount, FILE));
+	}
+
+	@Test
+	public void testMissForOtherUser() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 10);
+		cache.cache(buildAccount("test"), FILE, buildObjStat(FILE));
+		Assert.assertNull(cache.retrieve(buildAccount("other"), FILE));
+	}
+
+	@Test
+	public void testExpired() throws Exception {
+		ObjStatCache cache = new ObjStatCache(1, 10);
+		IRODSAccount irodsAccount = buildAccount("test");
+		cache.cache(irodsAccount, FILE, buildObjStat(FILE));
+		Thread.sleep(20);
+		Assert.assertNull(cache.retrieve(irodsAccount, FILE));
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testInvalidateDropsPathAndParent() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 10);
+		IRODSAccount irodsAccount = buildAccount("test");
+		cache.cache(irodsAccount, COLL, buildObjStat(COLL));
+		cache.cache(irodsAccount, FILE, buildObjStat(FILE));
+		cache.invalidate(irodsAccount, FILE);
+		Assert.assertNull(cache.retrieve(irodsAccount, FILE));
+		Assert.assertNull(cache.retrieve(irodsAccount, COLL));
+	}
+
+	@Test
+	public void testInvalidatePathAndChildren() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 10);
+		IRODSAccount irodsAccount = buildAccount("test");
+		String sibling = COLL + "x/file.txt";
+		cache.cache(irodsAccount, COLL, buildObjStat(COLL));
+		cache.cache(irodsAccount, FILE, buildObjStat(FILE));
+		cache.cache(irodsAccount, sibling, buildObjStat(sibling));
+		cache.invalidatePathAndChildren(irodsAccount, COLL);
+		Assert.assertNull(cache.retrieve(irodsAccount, COLL));
+		Assert.assertNull(cache.retrieve(irodsAccount, FILE));
+		Assert.assertNotNull("similar path prefix should be kept",
+				cache.retrieve(irodsAccount, sibling));
+	}
+
+	@Test
+	public void testBoundedDropsLeastRecentlyUsed() throws Exception {
+		ObjStatCache cache = new ObjStatCache(60000, 2);
+		IRODSAccount irodsAccount = buildAccount("test");
+		cache.cache(irodsAccount, "/a", buildObjStat("/a"));
+		cache.cache(irodsAccount, "/b", buildObjStat("/b"));
+		cache.retrieve(irodsAccount, "/a");
+		cache.cache(irodsAccount, "/c", buildObjStat("/c"));
+		Assert.assertEquals(2, cache.size());
+		Assert.assertNotNull(cache.retrieve(irodsAccount, "/a"));
+		Assert.assertNull(cache.retrieve(irodsAccount, "/b"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroMaxEntries() throws Exception {
+		new ObjStatCache(1000, 0);
+	}
+
+	@Test
+	public void testSessionCacheOnlyWhenTurnedOn() throws Exception {
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		IRODSSession irodsSession = new IRODSSession();
+		irodsSession.setJargonProperties(jargonProperties);
+		Assert.assertNull(irodsSession.getObjStatCache());
+		jargonProperties.setUseObjStatCache(true);
+		Assert.assertNotNull(irodsSession.getObjStatCache());
+		Assert.assertSame(irodsSession.getObjStatCache(),
+				irodsSession.getObjStatCache());
+	}
+
+	private IRODSAccount buildAccount(final String userName) throws Exception {
+		return IRODSAccount.instance("host", 1247, userName, "password",
+				"/zone/home/" + userName, "zone", "");
+	}
+
+	private ObjStat buildObjStat(final String path) {
+		ObjStat objStat = new ObjStat();
+		objStat.setAbsolutePath(path);
+		objStat.setObjectType(ObjectType.DATA_OBJECT);
+		return objStat;
+	}
+
+}
@@ -0,0 +1,75 @@
+package org.irods.jargon.core.instrumentation;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testBucketFor() {
+		Assert.assertEquals(0, Histogram.bucketFor(0));
+		Assert.assertEquals(0, Histogram.bucketFor(1));
+		Assert.assertEquals(1, Histogram.bucketFor(2));
+		Assert.assertEquals(1, Histogram.bucketFor(3));
+		Assert.assertEquals(2, Histogram.bucketFor(4));
+		Assert.assertEquals(10, Histogram.bucketFor(1024));
+		Assert.assertEquals(62, Histogram.bucketFor(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testEmptySnapshot() {
+		Histogram histogram = new Histogram();
+		HistogramSnapshot snapshot = histogram.snapshot();
+		Assert.assertEquals(0, snapshot.getCount());
+		Assert.assertEquals(0, snapshot.getMin());
+		Assert.assertEquals(0, snapshot.getMax());
+		Assert.assertEquals(0.0d, snapshot.getMean());
+	}
+
+	@Test
+	public void testRecordAndSnapshot() {
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+
+		HistogramSnapshot snapshot = histogram.snapshot();
+		Assert.assertEquals(100, snapshot.getCount());
+		Assert.assertEquals(5050, snapshot.getSum());
+		Assert.assertEquals(1, snapshot.getMin());
+		Assert.assertEquals(100, snapshot.getMax());
+		Assert.assertEquals(50.5d, snapshot.getMean());
+		Assert.assertTrue("median below actual",
+				snapshot.getMedian() >= 50);
+		Assert.assertTrue("median more than twice actual",
+				snapshot.getMedian() <= 100);
+		Assert.assertTrue("90th below actual",
+				snapshot.getPercentile90() >= 90);
+		Assert.assertEquals("99th capped at max", 100,
+				snapshot.getPercentile99());
+	}
+
+	@Test
+	public void testRecordNegativeAsZero() {
+		Histogram histogram = new Histogram();
+		histogram.record(-10);
+		HistogramSnapshot snapshot = histogram.snapshot();
+		Assert.assertEquals(1, snapshot.getCount());
+		Assert.assertEquals(0, snapshot.getMin());
+		Assert.assertEquals(0, snapshot.getSum());
+	}
+
+	@Test
+	public void testReset() {
+		Histogram histogram = new Histogram();
+		histogram.record(10);
+		histogram.record(20);
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.snapshot().getCount());
+		histogram.record(5);
+		Assert.assertEquals(5, histogram.snapshot().getMin());
+	}
+
+}
@@ -0,0 +1,102 @@
+package org.irods.jargon.core.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class JmxMetricsRegistryTest {
+
+	private static final String TEST_OBJECT_NAME = "org.irods.jargon:type=JargonMetrics,name=JmxMetricsRegistryTest";
+
+	@Test
+	public void testCounterAndHistogramAreReused() {
+		DefaultMetricsRegistry registry = new DefaultMetricsRegistry();
+		Counter counter = registry.counter("test.counter");
+		Assert.assertSame(counter, registry.counter("test.counter"));
+		Histogram histogram = registry.histogram("test.histogram");
+		Assert.assertSame(histogram, registry.histogram("test.histogram"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCounterNullName() {
+		new DefaultMetricsRegistry().counter(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidObjectName() {
+		new JmxMetricsRegistry("not a valid name");
+	}
+
+	@Test
+	public void testValuesAndReset() {
+		DefaultMetricsRegistry registry = new DefaultMetricsRegistry();
+		registry.counter("test.counter").add(10);
+		registry.counter("test.counter").increment();
+		registry.histogram("test.histogram").record(100);
+
+		Map<String, Long> counters = registry.getCounterValues();
+		Assert.assertEquals(Long.valueOf(11), counters.get("test.counter"));
+		Assert.assertEquals(1, registry.getHistogramSnapshots()
+				.get("test.histogram").getCount());
+
+		registry.reset();
+		Assert.assertEquals(Long.valueOf(0),
+				registry.getCounterValues().get("test.counter"));
+		Assert.assertEquals(0, registry.getHistogramSnapshots()
+				.get("test.histogram").getCount());
+	}
+
+	@Test
+	public void testRegisterAndReadThroughJmx() throws Exception {
+		JmxMetricsRegistry registry = new JmxMetricsRegistry(TEST_OBJECT_NAME);
+		registry.register();
+		try {
+			Assert.assertTrue(registry.isRegistered());
+			registry.counter(Instrumentation.BYTES_SENT).add(42);
+			registry.histogram("irods.api.702.micros").record(250);
+
+			MBeanServer mBeanServer = ManagementFactory
+					.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(TEST_OBJECT_NAME);
+			Assert.assertTrue(mBeanServer.isRegistered(objectName));
+
+			TabularData counters = (TabularData) mBeanServer.getAttribute(
+					objectName, "Counters");
+			CompositeData row = counters
+					.get(new Object[] { Instrumentation.BYTES_SENT });
+			Assert.assertEquals(42L, row.get("value"));
+
+			TabularData histograms = (TabularData) mBeanServer.getAttribute(
+					objectName, "Histograms");
+			CompositeData snapshot = (CompositeData) histograms.get(
+					new Object[] { "irods.api.702.micros" }).get("value");
+			Assert.assertEquals(1L, snapshot.get("count"));
+			Assert.assertEquals(250L, snapshot.get("max"));
+		} finally {
+			registry.unregister();
+		}
+
+		Assert.assertFalse(registry.isRegistered());
+	}
+
+	@Test
+	public void testPluggedInRegistryIsUsed() {
+		DefaultMetricsRegistry registry = new DefaultMetricsRegistry();
+		Instrumentation.setMetricsRegistry(registry);
+		Instrumentation.count(Instrumentation.FLUSHES, 3);
+		Instrumentation.recordApiLatency(702, System.nanoTime());
+		Assert.assertEquals(Long.valueOf(3),
+				registry.getCounterValues().get(Instrumentation.FLUSHES));
+		Assert.assertEquals(1, registry.getHistogramSnapshots()
+				.get("irods.api.702.micros").getCount());
+	}
+
+}
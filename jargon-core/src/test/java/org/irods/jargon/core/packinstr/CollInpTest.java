@@ -23,6 +23,15 @@ public class CollInpTest {
 		Assert.assertNotNull("null coll inp object", collInp);
 	}
 
+	@Test
+	public final void testInstanceForCreateCollection() throws Exception {
+		CollInp collInp = CollInp.instanceForCreateCollection("testcollname");
+		Assert.assertEquals("wrong api number", CollInp.MKDIR_API_NBR,
+				collInp.getApiNumber());
+		Assert.assertFalse("should not have recursive flag", collInp
+				.getParsedTags().contains("recursiveOpr"));
+	}
+
 	@Test(expected = JargonException.class)
 	public final void testInstanceNullPaty() throws Exception {
 		CollInp.instance(null, true);
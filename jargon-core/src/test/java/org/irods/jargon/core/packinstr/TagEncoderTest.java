@@ -0,0 +1,161 @@
+package org.irods.jargon.core.packinstr;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.query.IRODSGenQuery;
+import org.irods.jargon.core.query.IRODSGenQueryTranslator;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.query.TranslatedIRODSGenQuery;
+import org.junit.Test;
+
+public class TagEncoderTest {
+
+	private static final String ENCODING = "UTF-8";
+
+	private static void assertEncodesLikeParseTag(final Tag tag)
+			throws Exception {
+		byte[] expected = tag.parseTag().getBytes(ENCODING);
+		Assert.assertEquals("encoded length", expected.length,
+				TagEncoder.encodedLength(tag));
+
+		byte[] actual = new byte[expected.length + 7];
+		int end = TagEncoder.encode(tag, actual, 3);
+		Assert.assertEquals("end of encoded tag", expected.length + 3, end);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals("byte " + i, expected[i], actual[i + 3]);
+		}
+	}
+
+	/**
+	 * The decoding that <code>Tag.setValue()</code> did before the fast path,
+	 * kept to compare with
+	 */
+	private static String decodeWithCache(final String value) {
+		StringBuilder sb = new StringBuilder();
+		StringBuilder cache = new StringBuilder();
+		char c;
+		for (int i = 0; i < value.length(); i++) {
+			c = value.charAt(i);
+			if (c == '&') {
+				if (cache.length() > 0) {
+					evaluateCache(sb, cache);
+				}
+				cache.append(c);
+			} else if (c == ';') {
+				if (cache.length() > 0) {
+					cache.append(c);
+					evaluateCache(sb, cache);
+				} else {
+					sb.append(c);
+				}
+			} else if (cache.length() > 0) {
+				cache.append(c);
+			} else {
+				sb.append(c);
+			}
+		}
+		if (cache.length() > 0) {
+			evaluateCache(sb, cache);
+		}
+		return sb.toString();
+	}
+
+	private static void evaluateCache(final StringBuilder sb,
+			final StringBuilder cache) {
+		String cacheString = cache.toString();
+		if (cacheString.equals(Tag.AMP)) {
+			sb.append('&');
+		} else if (cacheString.equals(Tag.LT)) {
+			sb.append('<');
+		} else if (cacheString.equals(Tag.GT)) {
+			sb.append('>');
+		} else if (cacheString.equals(Tag.QUOTE)) {
+			sb.append('"');
+		} else if (cacheString.equals(Tag.APOS)) {
+			sb.append('`');
+		} else {
+			sb.append(cache);
+		}
+		cache.delete(0, cache.length());
+	}
+
+	@Test
+	public void testEncodeDataObjInp() throws Exception {
+		DataObjInp dataObjInp = DataObjInp.instanceForOpen(
+				"/zone/home/rods/a file & <more>.txt",
+				DataObjInp.OpenFlags.READ_WRITE);
+		assertEncodesLikeParseTag(dataObjInp.getTagValue());
+	}
+
+	@Test
+	public void testEncodeGenQueryInp() throws Exception {
+		String queryString = "select "
+				+ RodsGenQueryEnum.COL_COLL_NAME.getName() + " ,"
+				+ RodsGenQueryEnum.COL_DATA_NAME.getName() + " where "
+				+ RodsGenQueryEnum.COL_COLL_NAME.getName() + " = "
+				+ "'/zone/home/rüdiger'";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods3.3",
+				"d", "zone");
+		TranslatedIRODSGenQuery translatedIRODSQuery = new IRODSGenQueryTranslator(
+				props).getTranslatedQuery(IRODSGenQuery.instance(queryString,
+				500));
+		GenQueryInp genQueryInp = GenQueryInp.instance(translatedIRODSQuery,
+				0, "zone");
+		assertEncodesLikeParseTag(genQueryInp.getTagValue());
+	}
+
+	@Test
+	public void testEncodeModAvuMetadataInp() throws Exception {
+		AvuData avuData = AvuData.instance("attrib \"quoted\"",
+				"value `with` ticks", "日本");
+		ModAvuMetadataInp modAvu = ModAvuMetadataInp
+				.instanceForAddCollectionMetadata("/zone/home/rods/coll",
+						avuData);
+		assertEncodesLikeParseTag(modAvu.getTagValue());
+	}
+
+	@Test
+	public void testEncodeNullAndSupplementaryValues() throws Exception {
+		Tag tag = new Tag("outer");
+		tag.addTag(new Tag("nothing", (String) null));
+		tag.addTag(new Tag("empty", ""));
+		tag.addTag(new Tag("clef", "𝄞 & more"));
+		tag.addTag(new Tag("lone", "a\ud834b\udd1e"));
+		assertEncodesLikeParseTag(tag);
+	}
+
+	@Test
+	public void testEscapeReturnsSameStringWhenNothingToEscape()
+			throws Exception {
+		String value = "/zone/home/rods/plain.txt";
+		Assert.assertSame(value, TagEncoder.escape(value));
+		Assert.assertEquals("a&amp;b&lt;c&gt;d&quot;e&apos;f",
+				TagEncoder.escape("a&b<c>d\"e`f"));
+	}
+
+	@Test
+	public void testDecodeMatchesPreviousDecoding() throws Exception {
+		String[] values = { "plain", "a &amp; b", "&lt;&gt;&quot;&apos;",
+				"&&amp;", "&amp", "&unknown;", "&toolongentity;", ";&;",
+				"x&am&lt;y", "end&", "&#252;", "&amp;amp;" };
+		for (String value : values) {
+			Assert.assertEquals(value, decodeWithCache(value),
+					TagEncoder.decode(value));
+		}
+		String plain = "nothing to decode";
+		Assert.assertSame(plain, TagEncoder.decode(plain));
+	}
+
+	@Test
+	public void testSetValueDecodes() throws Exception {
+		Tag tag = new Tag("value");
+		tag.setValue("a &lt;b&gt;", true);
+		Assert.assertEquals("a <b>", tag.getStringValue());
+		tag.setValue("a &lt;b&gt;", false);
+		Assert.assertEquals("a &lt;b&gt;", tag.getStringValue());
+	}
+
+}
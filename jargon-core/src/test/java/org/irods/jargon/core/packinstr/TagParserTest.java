@@ -0,0 +1,212 @@
+package org.irods.jargon.core.packinstr;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TagParserTest {
+
+	private static final String ENCODING = "UTF-8";
+
+	private static final String HEADER = "<MsgHeader_PI>\n<type>RODS_API_REPLY</type>\n<msgLen>0</msgLen>\n<errorLen>0</errorLen>\n<bsLen>0</bsLen>\n<intInfo>0</intInfo>\n</MsgHeader_PI>\n";
+
+	private static String buildGenQueryOut(final int rows) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<GenQueryOut_PI><rowCnt>");
+		sb.append(rows);
+		sb.append("</rowCnt>\n<attriCnt>2</attriCnt>\n<continueInx>0</continueInx>\n<totalRowCount>0</totalRowCount>\n");
+		sb.append("<SqlResult_PI><attriInx>403</attriInx>\n<reslen>256</reslen>\n");
+		for (int i = 0; i < rows; i++) {
+			sb.append("<value>file");
+			sb.append(i);
+			sb.append(" &amp; more &lt;stuff&gt;.txt</value>\n");
+		}
+		sb.append("</SqlResult_PI>\n");
+		sb.append("<SqlResult_PI><attriInx>501</attriInx>\n<reslen>256</reslen>\n");
+		for (int i = 0; i < rows; i++) {
+			sb.append("<value>/zone/home/r&#252;diger/");
+			sb.append(i);
+			sb.append("</value>\n");
+		}
+		sb.append("</SqlResult_PI>\n");
+		sb.append("</GenQueryOut_PI>\n");
+		return sb.toString();
+	}
+
+	private static void assertSameTree(final Tag expected, final Tag actual) {
+		Assert.assertEquals("tag name", expected.getName(), actual.getName());
+		if (expected.tags == null) {
+			Assert.assertNull("should not have sub tags under:"
+					+ actual.getName(), actual.tags);
+			Assert.assertEquals("value of:" + expected.getName(),
+					expected.getStringValue(), actual.getStringValue());
+			return;
+		}
+		Assert.assertNotNull("missing sub tags under:" + actual.getName(),
+				actual.tags);
+		Assert.assertEquals("count of sub tags under:" + expected.getName(),
+				expected.tags.size(), actual.tags.size());
+		for (int i = 0; i < expected.tags.size(); i++) {
+			assertSameTree(expected.tags.get(i), actual.tags.get(i));
+		}
+	}
+
+	/**
+	 * Stream that hands back one byte per read, to exercise buffer refills
+	 */
+	private static class TrickleInputStream extends ByteArrayInputStream {
+		TrickleInputStream(final byte[] data) {
+			super(data);
+		}
+
+		@Override
+		public synchronized int read(final byte[] b, final int off,
+				final int len) {
+			return super.read(b, off, Math.min(len, 1));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testParseHeaderSameAsStringParser() throws Exception {
+		byte[] data = HEADER.getBytes(ENCODING);
+		Tag expected = Tag.readNextTagFromString(data, true, ENCODING);
+		Tag actual = TagParser.parse(data, true, ENCODING);
+		assertSameTree(expected, actual);
+		Assert.assertEquals("RODS_API_REPLY", actual.getTags()[0]
+				.getStringValue());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testParseGenQueryOutSameAsStringParser() throws Exception {
+		byte[] data = buildGenQueryOut(500).getBytes(ENCODING);
+		Tag expected = Tag.readNextTagFromString(data, true, ENCODING);
+		Tag actual = TagParser.parse(data, true, ENCODING);
+		assertSameTree(expected, actual);
+		Assert.assertEquals("file3 & more <stuff>.txt", actual
+				.getTag("SqlResult_PI").getTag("value", 3).getStringValue());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testParseNoDecodeSameAsStringParser() throws Exception {
+		byte[] data = buildGenQueryOut(10).getBytes(ENCODING);
+		Tag expected = Tag.readNextTagFromString(data, false, ENCODING);
+		Tag actual = TagParser.parse(data, false, ENCODING);
+		assertSameTree(expected, actual);
+		Assert.assertEquals("file0 &amp; more &lt;stuff&gt;.txt", actual
+				.getTag("SqlResult_PI").getTag("value").getStringValue());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testEntityEdgeCasesSameAsStringParser() throws Exception {
+		String message = "<a><b>&&amp;&apos;&quot;&bogus;&lt</b>\n<c>&amp &amp;amp;;</c>\n<d></d>\n<e>\nline\nline2</e>\n</a>\n";
+		byte[] data = message.getBytes(ENCODING);
+		Tag expected = Tag.readNextTagFromString(data, true, ENCODING);
+		Tag actual = TagParser.parse(data, true, ENCODING);
+		assertSameTree(expected, actual);
+		Assert.assertEquals("&&`\"&bogus;&lt", actual.getTag("b")
+				.getStringValue());
+		Assert.assertEquals("", actual.getTag("d").getStringValue());
+		Assert.assertEquals("line\nline2", actual.getTag("e").getStringValue());
+	}
+
+	@Test
+	public void testParseMultiByteCharacters() throws Exception {
+		String message = "<a><b>rüdiger 文件</b>\n</a>\n";
+		Tag actual = TagParser.parse(new TrickleInputStream(message
+				.getBytes(ENCODING)), message.getBytes(ENCODING).length, true,
+				ENCODING);
+		Assert.assertEquals("rüdiger 文件", actual.getTag("b")
+				.getStringValue());
+	}
+
+	@Test
+	public void testParseNestedSameName() throws Exception {
+		String message = "<a><a><b>1</b>\n</a>\n<b>2</b>\n</a>\n";
+		Tag actual = TagParser.parse(message.getBytes(ENCODING), true,
+				ENCODING);
+		Assert.assertEquals(2, actual.getLength());
+		Assert.assertEquals("1", actual.getTag("a").getTag("b")
+				.getStringValue());
+		Assert.assertEquals("2", actual.getTag("b").getStringValue());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testParseFromTrickleStream() throws Exception {
+		byte[] data = buildGenQueryOut(50).getBytes(ENCODING);
+		Tag expected = Tag.readNextTagFromString(data, true, ENCODING);
+		Tag actual = TagParser.parse(new TrickleInputStream(data),
+				data.length, true, ENCODING);
+		assertSameTree(expected, actual);
+	}
+
+	@Test
+	public void testParseStreamConsumesExactLength() throws Exception {
+		byte[] header = HEADER.getBytes(ENCODING);
+		byte[] body = buildGenQueryOut(20).getBytes(ENCODING);
+		byte[] both = new byte[header.length + body.length];
+		System.arraycopy(header, 0, both, 0, header.length);
+		System.arraycopy(body, 0, both, header.length, body.length);
+		InputStream stream = new ByteArrayInputStream(both);
+
+		Tag headerTag = TagParser.parse(stream, header.length, true, ENCODING);
+		Assert.assertEquals("MsgHeader_PI", headerTag.getName());
+		Tag bodyTag = TagParser.parse(stream, body.length, true, ENCODING);
+		Assert.assertEquals("GenQueryOut_PI", bodyTag.getName());
+		Assert.assertEquals(-1, stream.read());
+	}
+
+	@Test
+	public void testParseStreamDrainsTrailingBytes() throws Exception {
+		byte[] data = "<a><b>1</b>\n</a>\ntrailing junk".getBytes(ENCODING);
+		InputStream stream = new ByteArrayInputStream(data);
+		Tag actual = TagParser.parse(stream, data.length, true, ENCODING);
+		Assert.assertEquals("a", actual.getName());
+		Assert.assertEquals(-1, stream.read());
+	}
+
+	@Test
+	public void testTruncatedMessageIsLenient() throws Exception {
+		Tag actual = TagParser.parse("<a><b>1</b>\n<c>2".getBytes(ENCODING),
+				true, ENCODING);
+		Assert.assertEquals("a", actual.getName());
+		Assert.assertEquals("1", actual.getTag("b").getStringValue());
+	}
+
+	@Test
+	public void testNoTag() throws Exception {
+		Assert.assertNull(TagParser.parse("no tags here".getBytes(ENCODING),
+				true, ENCODING));
+		Assert.assertNull(TagParser.parse((byte[]) null, true, ENCODING));
+		Assert.assertNull(TagParser.parse(new byte[16], true, ENCODING));
+	}
+
+	@Test
+	public void testReadNextTagUsesParser() throws Exception {
+		Tag actual = Tag.readNextTag(HEADER.getBytes(ENCODING), ENCODING);
+		Assert.assertEquals(5, actual.getLength());
+		Assert.assertEquals(0, actual.getTag("msgLen").getIntValue());
+	}
+
+	@Test(expected = java.io.UnsupportedEncodingException.class)
+	public void testBadEncodingReadsNothing() throws Exception {
+		InputStream stream = new ByteArrayInputStream(
+				HEADER.getBytes(ENCODING));
+		try {
+			TagParser.parse(stream, 10, true, "not-an-encoding");
+		} catch (IOException e) {
+			Assert.assertEquals("should not have read from stream", HEADER
+					.getBytes(ENCODING).length, stream.available());
+			throw e;
+		}
+	}
+
+}
@@ -46,4 +46,15 @@ public class TransferOptionsTest {
 				actual.isIntraFileStatusCallbacks());
 	}
 
+	@Test
+	public final void testCopyConstructorMaxConcurrentFileTransfers()
+			throws Exception {
+		TransferOptions expected = new TransferOptions();
+		expected.setMaxConcurrentFileTransfers(8);
+		TransferOptions actual = new TransferOptions(expected);
+		Assert.assertEquals("did not properly set maxConcurrentFileTransfers",
+				expected.getMaxConcurrentFileTransfers(),
+				actual.getMaxConcurrentFileTransfers());
+	}
+
 }
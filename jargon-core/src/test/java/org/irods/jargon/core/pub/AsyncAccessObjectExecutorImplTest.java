@@ -0,0 +1,227 @@
+package org.irods.jargon.core.pub;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSPoolingProtocolManager;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.IRODSSimpleProtocolManager;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class AsyncAccessObjectExecutorImplTest {
+
+	private IRODSAccount irodsAccount;
+	private IRODSSession irodsSession;
+	private IRODSAccessObjectFactory irodsAccessObjectFactory;
+
+	@Before
+	public void setUp() throws Exception {
+		irodsAccount = IRODSAccount.instance("host", 1247, "user", "pass",
+				"/zone/home/user", "zone", "");
+		irodsSession = Mockito.mock(IRODSSession.class);
+		irodsAccessObjectFactory = Mockito.mock(IRODSAccessObjectFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIrodsSession()).thenReturn(
+				irodsSession);
+	}
+
+	/**
+	 * Listener that keeps the outcome and lets the test wait for it
+	 */
+	private static final class RecordingListener<T> implements
+			AsyncCallListener<T> {
+		private final CountDownLatch called = new CountDownLatch(1);
+		private final AtomicReference<T> result = new AtomicReference<T>();
+		private final AtomicReference<JargonException> failure = new AtomicReference<JargonException>();
+
+		@Override
+		public void callSucceeded(final T result) {
+			this.result.set(result);
+			called.countDown();
+		}
+
+		@Override
+		public void callFailed(final JargonException jargonException) {
+			failure.set(jargonException);
+			called.countDown();
+		}
+
+		void await() throws InterruptedException {
+			Assert.assertTrue("listener not called",
+					called.await(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testSubmitRunsOnPoolThreadAndClosesConnections()
+			throws Exception {
+		AsyncAccessObjectExecutor executor = new AsyncAccessObjectExecutorImpl(
+				irodsAccessObjectFactory, 2, 10);
+		RecordingListener<String> listener = new RecordingListener<String>();
+		AsyncCallFuture<String> future = executor.submit(irodsAccount,
+				new AsyncAccessObjectCall<String>() {
+					@Override
+					public String call(
+							final IRODSAccessObjectFactory irodsAccessObjectFactory,
+							final IRODSAccount irodsAccount)
+							throws JargonException {
+						return Thread.currentThread().getName();
+					}
+				}, listener);
+
+		String threadName = future.getResult();
+		Assert.assertTrue("should run on a pool thread",
+				threadName.startsWith("jargon-async-"));
+		listener.await();
+		Assert.assertEquals(threadName, listener.result.get());
+		Mockito.verify(irodsSession).closeSession();
+		executor.shutdown(false);
+	}
+
+	@Test
+	public void testFailureIsGivenToFutureAndListener() throws Exception {
+		AsyncAccessObjectExecutor executor = new AsyncAccessObjectExecutorImpl(
+				irodsAccessObjectFactory, 1, 10);
+		final FileNotFoundException notFound = new FileNotFoundException(
+				"not found");
+		RecordingListener<ObjStat> listener = new RecordingListener<ObjStat>();
+		CollectionAndDataObjectListAndSearchAO listAndSearchAO = Mockito
+				.mock(CollectionAndDataObjectListAndSearchAO.class);
+		Mockito.when(
+				irodsAccessObjectFactory
+						.getCollectionAndDataObjectListAndSearchAO(irodsAccount))
+				.thenReturn(listAndSearchAO);
+		Mockito.when(listAndSearchAO.retrieveObjectStatForPath("/zone/x"))
+				.thenThrow(notFound);
+
+		AsyncCallFuture<ObjStat> future = executor.retrieveObjectStatForPath(
+				irodsAccount, "/zone/x", listener);
+		try {
+			future.getResult();
+			Assert.fail("should have thrown");
+		} catch (FileNotFoundException e) {
+			Assert.assertSame(notFound, e);
+		}
+		listener.await();
+		Assert.assertSame(notFound, listener.failure.get());
+		Mockito.verify(irodsSession).closeSession();
+		executor.shutdown(false);
+	}
+
+	@Test
+	public void testFullQueueRejectsWithoutBlocking() throws Exception {
+		AsyncAccessObjectExecutor executor = new AsyncAccessObjectExecutorImpl(
+				irodsAccessObjectFactory, 1, 1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		AsyncAccessObjectCall<String> blockingCall = new AsyncAccessObjectCall<String>() {
+			@Override
+			public String call(
+					final IRODSAccessObjectFactory irodsAccessObjectFactory,
+					final IRODSAccount irodsAccount) throws JargonException {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new JargonException(e);
+				}
+				return "done";
+			}
+		};
+
+		AsyncCallFuture<String> running = executor.submit(irodsAccount,
+				blockingCall);
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+		AsyncCallFuture<String> queued = executor.submit(irodsAccount,
+				blockingCall);
+		Assert.assertEquals(1, executor.getQueuedCallCount());
+
+		RecordingListener<String> listener = new RecordingListener<String>();
+		AsyncCallFuture<String> rejected = executor.submit(irodsAccount,
+				blockingCall, listener);
+		Assert.assertTrue("rejected call should be done", rejected.isDone());
+		listener.await();
+		Assert.assertNotNull(listener.failure.get());
+
+		release.countDown();
+		Assert.assertEquals("done", running.getResult());
+		Assert.assertEquals("done", queued.getResult());
+		executor.shutdown(false);
+	}
+
+	@Test
+	public void testShutdownNowCancelsQueuedCalls() throws Exception {
+		AsyncAccessObjectExecutor executor = new AsyncAccessObjectExecutorImpl(
+				irodsAccessObjectFactory, 1, 5);
+		final CountDownLatch started = new CountDownLatch(1);
+		AsyncAccessObjectCall<String> blockingCall = new AsyncAccessObjectCall<String>() {
+			@Override
+			public String call(
+					final IRODSAccessObjectFactory irodsAccessObjectFactory,
+					final IRODSAccount irodsAccount) throws JargonException {
+				started.countDown();
+				try {
+					Thread.sleep(60000);
+				} catch (InterruptedException e) {
+					throw new JargonException("interrupted", e);
+				}
+				return "done";
+			}
+		};
+
+		executor.submit(irodsAccount, blockingCall);
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+		RecordingListener<String> listener = new RecordingListener<String>();
+		AsyncCallFuture<String> queued = executor.submit(irodsAccount,
+				blockingCall, listener);
+		executor.shutdown(true);
+		Assert.assertTrue(queued.isCancelled());
+		listener.await();
+		Assert.assertNotNull(listener.failure.get());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSubmitNullAccount() throws Exception {
+		new AsyncAccessObjectExecutorImpl(irodsAccessObjectFactory, 1, 1)
+				.submit(null, new AsyncAccessObjectCall<String>() {
+					@Override
+					public String call(
+							final IRODSAccessObjectFactory irodsAccessObjectFactory,
+							final IRODSAccount irodsAccount)
+							throws JargonException {
+						return null;
+					}
+				});
+	}
+
+	@Test
+	public void testProtocolManagerPooling() throws Exception {
+		IRODSPoolingProtocolManager irodsPoolingProtocolManager = IRODSPoolingProtocolManager
+				.instance();
+		try {
+			Mockito.when(irodsSession.getIrodsConnectionManager()).thenReturn(
+					irodsPoolingProtocolManager);
+			Assert.assertTrue(AsyncAccessObjectExecutorImpl
+					.isProtocolManagerPooling(irodsAccessObjectFactory));
+		} finally {
+			irodsPoolingProtocolManager.destroy();
+		}
+	}
+
+	@Test
+	public void testProtocolManagerNotPooling() throws Exception {
+		Mockito.when(irodsSession.getIrodsConnectionManager()).thenReturn(
+				IRODSSimpleProtocolManager.instance());
+		Assert.assertFalse(AsyncAccessObjectExecutorImpl
+				.isProtocolManagerPooling(irodsAccessObjectFactory));
+	}
+
+}
@@ -0,0 +1,87 @@
+package org.irods.jargon.core.pub;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.PipelinedResponse;
+import org.irods.jargon.core.exception.CatNoAccessException;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAccessControlInp;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.BulkFileOperationResponse.ResultStatus;
+import org.junit.Test;
+
+public class BulkFileOperationUtilsTest {
+
+	private static final String PATH = "/zone/home/test/file.txt";
+
+	@Test
+	public void testTranslateReplyOk() throws Exception {
+		BulkFileOperationResponse response = BulkFileOperationUtils
+				.translateReply(PipelinedResponse.instanceForResponse(null),
+						PATH);
+		Assert.assertEquals(ResultStatus.OK, response.getResultStatus());
+		Assert.assertEquals(PATH, response.getAbsolutePath());
+		Assert.assertEquals("", response.getMessage());
+	}
+
+	@Test
+	public void testTranslateReplyMissing() throws Exception {
+		Assert.assertEquals(
+				ResultStatus.MISSING_TARGET,
+				BulkFileOperationUtils.translateReply(
+						PipelinedResponse
+								.instanceForException(new FileNotFoundException(
+										"not found")), PATH).getResultStatus());
+		Assert.assertEquals(
+				ResultStatus.MISSING_TARGET,
+				BulkFileOperationUtils.translateReply(
+						PipelinedResponse
+								.instanceForException(new DataNotFoundException(
+										"not found")), PATH).getResultStatus());
+	}
+
+	@Test
+	public void testTranslateReplyNoAccess() throws Exception {
+		BulkFileOperationResponse response = BulkFileOperationUtils
+				.translateReply(PipelinedResponse
+						.instanceForException(new CatNoAccessException(
+								"no access")), PATH);
+		Assert.assertEquals(ResultStatus.NO_ACCESS, response.getResultStatus());
+		Assert.assertEquals("no access", response.getMessage());
+	}
+
+	@Test
+	public void testTranslateReplyOtherError() throws Exception {
+		Assert.assertEquals(
+				ResultStatus.OTHER_ERROR,
+				BulkFileOperationUtils.translateReply(
+						PipelinedResponse
+								.instanceForException(new JargonException(
+										"boom")), PATH).getResultStatus());
+	}
+
+	@Test
+	public void testAccessLevelForFilePermission() throws Exception {
+		Assert.assertEquals(ModAccessControlInp.OWN_PERMISSION,
+				BulkFileOperationUtils
+						.accessLevelForFilePermission(FilePermissionEnum.OWN));
+		Assert.assertEquals(ModAccessControlInp.READ_PERMISSION,
+				BulkFileOperationUtils
+						.accessLevelForFilePermission(FilePermissionEnum.READ));
+		Assert.assertEquals(ModAccessControlInp.WRITE_PERMISSION,
+				BulkFileOperationUtils
+						.accessLevelForFilePermission(FilePermissionEnum.WRITE));
+		Assert.assertEquals(ModAccessControlInp.NULL_PERMISSION,
+				BulkFileOperationUtils
+						.accessLevelForFilePermission(FilePermissionEnum.NONE));
+	}
+
+	@Test(expected = JargonException.class)
+	public void testAccessLevelForUnsupportedPermission() throws Exception {
+		BulkFileOperationUtils
+				.accessLevelForFilePermission(FilePermissionEnum.CURATE);
+	}
+
+}
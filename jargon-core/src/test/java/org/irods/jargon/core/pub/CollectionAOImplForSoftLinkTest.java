@@ -8,7 +8,9 @@ import junit.framework.Assert;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.pub.domain.UserFilePermission;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.query.AVUQueryElement;
 import org.irods.jargon.core.query.AVUQueryOperatorEnum;
@@ -365,6 +367,70 @@ public class CollectionAOImplForSoftLinkTest {
 
 	}
 
+	@Test
+	public final void testSetAccessPermissionsForUsersForASoftLinkedCollection()
+			throws Exception {
+
+		String sourceCollectionName = "testSetAccessPermissionsForUsersForASoftLinkedCollectionSource";
+		String targetCollectionName = "testSetAccessPermissionsForUsersForASoftLinkedCollectionTarget";
+
+		String sourceIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + '/'
+								+ sourceCollectionName);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + '/'
+								+ targetCollectionName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		// do an initial unmount
+		MountedCollectionAO mountedCollectionAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getMountedCollectionAO(
+						irodsAccount);
+
+		mountedCollectionAO.unmountACollection(targetIrodsCollection,
+				irodsAccount.getDefaultStorageResource());
+
+		// set up source collection
+		IRODSFile sourceFile = irodsFileSystem
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						sourceIrodsCollection);
+		sourceFile.mkdirs();
+
+		// create the soft link
+		mountedCollectionAO.createASoftLink(sourceIrodsCollection,
+				targetIrodsCollection);
+
+		String secondaryUser = testingProperties
+				.getProperty(TestingPropertiesHelper.IRODS_SECONDARY_USER_KEY);
+		List<UserFilePermission> userFilePermissions = new ArrayList<UserFilePermission>();
+		UserFilePermission userFilePermission = new UserFilePermission();
+		userFilePermission.setUserName(secondaryUser);
+		userFilePermission.setFilePermissionEnum(FilePermissionEnum.READ);
+		userFilePermissions.add(userFilePermission);
+
+		CollectionAO collectionAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getCollectionAO(irodsAccount);
+		List<BulkFileOperationResponse> responses = collectionAO
+				.setAccessPermissionsForUsers(targetIrodsCollection,
+						userFilePermissions, false);
+
+		Assert.assertEquals(1, responses.size());
+		Assert.assertEquals(BulkFileOperationResponse.ResultStatus.OK,
+				responses.get(0).getResultStatus());
+		Assert.assertEquals(secondaryUser, responses.get(0).getUserName());
+
+		// the permission is on the canonical collection
+		Assert.assertEquals(FilePermissionEnum.READ, collectionAO
+				.getPermissionForCollection(sourceIrodsCollection,
+						secondaryUser, ""));
+
+	}
+
 	@Test
 	public final void testSetWriteForASoftLinkedCollection() throws Exception {
 
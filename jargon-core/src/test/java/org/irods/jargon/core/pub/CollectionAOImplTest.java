@@ -1826,6 +1826,91 @@ public class CollectionAOImplTest {
 
 	}
 
+	@Test
+	public final void testSetAccessPermissionsForUsersSomeFail()
+			throws Exception {
+
+		String testFileName = "testSetAccessPermissionsForUsersSomeFail";
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ testFileName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+		CollectionAO collectionAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getCollectionAO(irodsAccount);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		irodsFile.mkdirs();
+
+		String secondaryUser = testingProperties
+				.getProperty(TestingPropertiesHelper.IRODS_SECONDARY_USER_KEY);
+		String missingUser = "testSetAccessPermissionsForUsersSomeFailNoUser";
+		List<UserFilePermission> userFilePermissions = new ArrayList<UserFilePermission>();
+		UserFilePermission userFilePermission = new UserFilePermission();
+		userFilePermission.setUserName(secondaryUser);
+		userFilePermission.setFilePermissionEnum(FilePermissionEnum.READ);
+		userFilePermissions.add(userFilePermission);
+		userFilePermission = new UserFilePermission();
+		userFilePermission.setUserName(missingUser);
+		userFilePermission.setUserZone(irodsAccount.getZone());
+		userFilePermission.setFilePermissionEnum(FilePermissionEnum.WRITE);
+		userFilePermissions.add(userFilePermission);
+
+		List<BulkFileOperationResponse> responses = collectionAO
+				.setAccessPermissionsForUsers(targetIrodsCollection,
+						userFilePermissions, true);
+
+		Assert.assertEquals(2, responses.size());
+		Assert.assertEquals(BulkFileOperationResponse.ResultStatus.OK,
+				responses.get(0).getResultStatus());
+		Assert.assertEquals(secondaryUser, responses.get(0).getUserName());
+		Assert.assertFalse("missing user should fail",
+				responses.get(1).getResultStatus() == BulkFileOperationResponse.ResultStatus.OK);
+		Assert.assertEquals(missingUser, responses.get(1).getUserName());
+		Assert.assertEquals(irodsAccount.getZone(), responses.get(1)
+				.getUserZone());
+		Assert.assertEquals(targetIrodsCollection, responses.get(1)
+				.getAbsolutePath());
+
+		// log in as the secondary user and test read access
+		IRODSAccount secondaryAccount = testingPropertiesHelper
+				.buildIRODSAccountFromSecondaryTestProperties(testingProperties);
+		IRODSFile irodsFileForSecondaryUser = irodsFileSystem
+				.getIRODSFileFactory(secondaryAccount).instanceIRODSFile(
+						targetIrodsCollection);
+		Assert.assertTrue(irodsFileForSecondaryUser.canRead());
+
+	}
+
+	@Test
+	public final void testSetAccessPermissionsForUsersEmptyList()
+			throws Exception {
+
+		String testFileName = "testSetAccessPermissionsForUsersEmptyList";
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ testFileName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+		CollectionAO collectionAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getCollectionAO(irodsAccount);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		irodsFile.mkdirs();
+
+		List<BulkFileOperationResponse> responses = collectionAO
+				.setAccessPermissionsForUsers(targetIrodsCollection,
+						new ArrayList<UserFilePermission>(), true);
+		Assert.assertTrue("no responses expected", responses.isEmpty());
+
+	}
+
 	@Test
 	public final void testSetReadAsAdmin() throws Exception {
 
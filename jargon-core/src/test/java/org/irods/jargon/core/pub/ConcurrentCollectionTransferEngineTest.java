@@ -0,0 +1,177 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.ConcurrentCollectionTransferEngine.CompletionSequencer;
+import org.irods.jargon.core.pub.ConcurrentCollectionTransferEngine.SerializingTransferStatusCallbackListener;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatus.TransferType;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.junit.Test;
+
+public class ConcurrentCollectionTransferEngineTest {
+
+	/**
+	 * Listener that keeps the source path and state of each status callback,
+	 * and notes if it is ever entered by two threads at once
+	 */
+	private static final class RecordingListener implements
+			TransferStatusCallbackListener {
+		private final List<String> callbacks = Collections
+				.synchronizedList(new ArrayList<String>());
+		private final AtomicInteger inside = new AtomicInteger(0);
+		private final AtomicInteger maxInside = new AtomicInteger(0);
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			int now = inside.incrementAndGet();
+			if (now > maxInside.get()) {
+				maxInside.set(now);
+			}
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			callbacks.add(transferStatus.getSourceFileAbsolutePath() + ":"
+					+ transferStatus.getTransferState());
+			inside.decrementAndGet();
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_THIS_FILE;
+		}
+	}
+
+	private static TransferStatus status(final String path,
+			final TransferState transferState) throws JargonException {
+		return TransferStatus.instance(TransferType.PUT, path, "/zone/" + path,
+				"", 1L, 1L, 0, 0, 1, transferState, "host", "zone");
+	}
+
+	@Test
+	public void testCompletionHeldUntilEarlierFilesFinish() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		CompletionSequencer sequencer = new CompletionSequencer(listener, 3);
+
+		TransferStatusCallbackListener third = sequencer.listenerFor(2);
+		third.statusCallback(status("c", TransferState.IN_PROGRESS_START_FILE));
+		third.statusCallback(status("c",
+				TransferState.IN_PROGRESS_COMPLETE_FILE));
+		sequencer.finished(2);
+		Assert.assertEquals("start should pass straight through, completion held",
+				Collections.singletonList("c:IN_PROGRESS_START_FILE"),
+				listener.callbacks);
+
+		sequencer.listenerFor(1).statusCallback(
+				status("b", TransferState.IN_PROGRESS_COMPLETE_FILE));
+		sequencer.finished(1);
+		Assert.assertEquals("completions should wait on the first file", 1,
+				listener.callbacks.size());
+
+		sequencer.listenerFor(0).statusCallback(
+				status("a", TransferState.IN_PROGRESS_COMPLETE_FILE));
+		sequencer.finished(0);
+		Assert.assertEquals(
+				"completions should be released in walk order",
+				Arrays.asList("c:IN_PROGRESS_START_FILE",
+						"a:IN_PROGRESS_COMPLETE_FILE",
+						"b:IN_PROGRESS_COMPLETE_FILE",
+						"c:IN_PROGRESS_COMPLETE_FILE"), listener.callbacks);
+	}
+
+	@Test
+	public void testFailedFileReleasesLaterCompletions() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		CompletionSequencer sequencer = new CompletionSequencer(listener, 2);
+
+		sequencer.listenerFor(1).statusCallback(
+				status("b", TransferState.IN_PROGRESS_COMPLETE_FILE));
+		sequencer.finished(1);
+		sequencer.listenerFor(0).statusCallback(
+				status("a", TransferState.FAILURE));
+		sequencer.finished(0);
+
+		Assert.assertEquals(Arrays.asList("a:FAILURE",
+				"b:IN_PROGRESS_COMPLETE_FILE"), listener.callbacks);
+	}
+
+	@Test
+	public void testUnfinishedFileHoldsLaterCompletions() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		CompletionSequencer sequencer = new CompletionSequencer(listener, 3);
+
+		sequencer.listenerFor(0).statusCallback(
+				status("a", TransferState.IN_PROGRESS_COMPLETE_FILE));
+		sequencer.finished(0);
+		// file 1 is never finished, as when a transfer stops
+		sequencer.listenerFor(2).statusCallback(
+				status("c", TransferState.IN_PROGRESS_COMPLETE_FILE));
+		sequencer.finished(2);
+
+		Assert.assertEquals(
+				"a completion past an unfinished file should not be reported",
+				Collections.singletonList("a:IN_PROGRESS_COMPLETE_FILE"),
+				listener.callbacks);
+	}
+
+	@Test
+	public void testSerializingListenerNeverEnteredConcurrently()
+			throws Exception {
+		final RecordingListener listener = new RecordingListener();
+		final TransferStatusCallbackListener serializing = new SerializingTransferStatusCallbackListener(
+				listener);
+		final int threads = 8;
+		final int callbacksPerThread = 20;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+
+		for (int i = 0; i < threads; i++) {
+			final String path = "file" + i;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int j = 0; j < callbacksPerThread; j++) {
+							serializing.statusCallback(status(path,
+									TransferState.IN_PROGRESS_START_FILE));
+						}
+					} catch (Exception e) {
+						// counted as missing callbacks below
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		start.countDown();
+		Assert.assertTrue("callback threads did not finish",
+				done.await(30, TimeUnit.SECONDS));
+		Assert.assertEquals(threads * callbacksPerThread,
+				listener.callbacks.size());
+		Assert.assertEquals("listener entered by two threads at once", 1,
+				listener.maxInside.get());
+	}
+
+}
@@ -0,0 +1,226 @@
+package org.irods.jargon.core.pub;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.checksum.ChecksumValue;
+import org.irods.jargon.core.checksum.LocalChecksumComputerFactoryImpl;
+import org.irods.jargon.core.checksum.MD5LocalChecksumComputerStrategy;
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
+import org.irods.jargon.core.connection.DiscoveredServerPropertiesCache;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.ChecksumInvalidException;
+import org.irods.jargon.core.exception.FileIntegrityException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.IRodsPI;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.packinstr.TransferOptions;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.DefaultTransferControlBlock;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class DataAOHelperTest {
+
+	private static final String IRODS_PATH = "/zone/home/test/inline.txt";
+
+	private File localFile;
+	private IRODSAccount irodsAccount;
+	private IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private DataObjectChecksumUtilitiesAO dataObjectChecksumUtilitiesAO;
+	private AbstractIRODSMidLevelProtocol irodsProtocol;
+	private IRODSFile targetFile;
+	private TransferControlBlock transferControlBlock;
+
+	@Before
+	public void setUp() throws Exception {
+		localFile = File.createTempFile("inline", ".txt");
+		FileOutputStream out = new FileOutputStream(localFile);
+		out.write("bytes checksummed as they are sent".getBytes("UTF-8"));
+		out.close();
+
+		irodsAccount = TestingPropertiesHelper.buildBogusIrodsAccount();
+		irodsAccessObjectFactory = Mockito
+				.mock(IRODSAccessObjectFactory.class);
+
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setChecksumEncoding(ChecksumEncodingEnum.MD5);
+		Mockito.when(irodsAccessObjectFactory.getJargonProperties())
+				.thenReturn(jargonProperties);
+		Mockito.when(
+				irodsAccessObjectFactory.getDiscoveredServerPropertiesCache())
+				.thenReturn(new DiscoveredServerPropertiesCache());
+
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		Mockito.when(irodsSession.getLocalChecksumComputerFactory())
+				.thenReturn(new LocalChecksumComputerFactoryImpl());
+		Mockito.when(irodsAccessObjectFactory.getIrodsSession()).thenReturn(
+				irodsSession);
+
+		dataObjectChecksumUtilitiesAO = Mockito
+				.mock(DataObjectChecksumUtilitiesAO.class);
+		Mockito.when(
+				irodsAccessObjectFactory
+						.getDataObjectChecksumUtilitiesAO(irodsAccount))
+				.thenReturn(dataObjectChecksumUtilitiesAO);
+
+		// the protocol reads the whole stream, as a real put does
+		irodsProtocol = Mockito.mock(AbstractIRODSMidLevelProtocol.class);
+		Mockito.doAnswer(new Answer<Tag>() {
+			@Override
+			public Tag answer(final InvocationOnMock invocation)
+					throws Throwable {
+				InputStream in = (InputStream) invocation.getArguments()[2];
+				byte[] buffer = new byte[8];
+				while (in.read(buffer) != -1) {
+				}
+				return null;
+			}
+		})
+				.when(irodsProtocol)
+				.irodsFunctionIncludingAllDataInStream(
+						Mockito.any(IRodsPI.class),
+						Mockito.anyLong(),
+						Mockito.any(InputStream.class),
+						Mockito.any(ConnectionProgressStatusListener.class));
+
+		targetFile = Mockito.mock(IRODSFile.class);
+		Mockito.when(targetFile.getAbsolutePath()).thenReturn(IRODS_PATH);
+		Mockito.when(targetFile.getResource()).thenReturn("");
+		Mockito.when(targetFile.deleteWithForceOption()).thenReturn(true);
+
+		transferControlBlock = DefaultTransferControlBlock.instance();
+		TransferOptions transferOptions = new TransferOptions();
+		transferOptions.setComputeAndVerifyChecksumAfterTransfer(true);
+		transferControlBlock.setTransferOptions(transferOptions);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		localFile.delete();
+	}
+
+	@Test
+	public void testPutVerifiesChecksumComputedAsSent() throws Exception {
+		DataAOHelper dataAOHelper = new DataAOHelper(irodsAccessObjectFactory,
+				irodsAccount);
+
+		dataAOHelper.processNormalPutTransfer(localFile, true, targetFile,
+				irodsProtocol, transferControlBlock, null);
+
+		ArgumentCaptor<ChecksumValue> checksumCaptor = ArgumentCaptor
+				.forClass(ChecksumValue.class);
+		Mockito.verify(dataObjectChecksumUtilitiesAO)
+				.verifyLocalChecksumAgainstIrodsFileChecksum(
+						checksumCaptor.capture(),
+						Mockito.eq(localFile.getAbsolutePath()),
+						Mockito.eq(IRODS_PATH));
+		ChecksumValue expected = new MD5LocalChecksumComputerStrategy()
+				.computeChecksumValueForLocalFile(localFile.getAbsolutePath());
+		Assert.assertEquals("inline checksum should match the file",
+				expected, checksumCaptor.getValue());
+		Mockito.verify(targetFile, Mockito.never()).deleteWithForceOption();
+	}
+
+	@Test
+	public void testPutChecksumMismatchRemovesDataObject() throws Exception {
+		Mockito.when(
+				dataObjectChecksumUtilitiesAO
+						.verifyLocalChecksumAgainstIrodsFileChecksum(
+								Mockito.any(ChecksumValue.class),
+								Mockito.anyString(), Mockito.anyString()))
+				.thenThrow(new ChecksumInvalidException("mismatch"));
+		DataAOHelper dataAOHelper = new DataAOHelper(irodsAccessObjectFactory,
+				irodsAccount);
+
+		try {
+			dataAOHelper.processNormalPutTransfer(localFile, true, targetFile,
+					irodsProtocol, transferControlBlock, null);
+			Assert.fail("mismatch should fail the put");
+		} catch (FileIntegrityException e) {
+			// expected
+		}
+
+		Mockito.verify(targetFile).deleteWithForceOption();
+	}
+
+	@Test
+	public void testPutChecksumMismatchReportedWhenRemoveFails()
+			throws Exception {
+		Mockito.when(
+				dataObjectChecksumUtilitiesAO
+						.verifyLocalChecksumAgainstIrodsFileChecksum(
+								Mockito.any(ChecksumValue.class),
+								Mockito.anyString(), Mockito.anyString()))
+				.thenThrow(new ChecksumInvalidException("mismatch"));
+		Mockito.when(targetFile.deleteWithForceOption()).thenThrow(
+				new IllegalStateException("connection lost"));
+		DataAOHelper dataAOHelper = new DataAOHelper(irodsAccessObjectFactory,
+				irodsAccount);
+
+		try {
+			dataAOHelper.processNormalPutTransfer(localFile, true, targetFile,
+					irodsProtocol, transferControlBlock, null);
+			Assert.fail("mismatch should fail the put");
+		} catch (FileIntegrityException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testGetClosesLocalFileWhenReadFails() throws Exception {
+		PipelineConfiguration pipelineConfiguration = Mockito
+				.mock(PipelineConfiguration.class);
+		Mockito.when(irodsProtocol.getPipelineConfiguration()).thenReturn(
+				pipelineConfiguration);
+		final OutputStream[] destination = new OutputStream[1];
+		Mockito.doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(final InvocationOnMock invocation)
+					throws Throwable {
+				destination[0] = (OutputStream) invocation.getArguments()[0];
+				throw new JargonException("connection lost");
+			}
+		})
+				.when(irodsProtocol)
+				.read(Mockito.any(OutputStream.class), Mockito.anyLong(),
+						Mockito.any(ConnectionProgressStatusListener.class));
+		DataAOHelper dataAOHelper = new DataAOHelper(irodsAccessObjectFactory,
+				irodsAccount);
+
+		try {
+			dataAOHelper.processNormalGetTransfer(localFile, 100,
+					irodsProtocol, new TransferOptions(),
+					transferControlBlock, null);
+			Assert.fail("failed read should fail the get");
+		} catch (JargonException e) {
+			// expected
+		}
+
+		try {
+			destination[0].write(1);
+			destination[0].flush();
+			Assert.fail("local file should be closed");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -9,6 +9,7 @@ import junit.framework.Assert;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.protovalues.UserTypeEnum;
 import org.irods.jargon.core.pub.domain.AvuData;
 import org.irods.jargon.core.pub.domain.DataObject;
@@ -208,6 +209,87 @@ public class DataObjectAOImplForSoftLinkTest {
 
 	}
 
+	@Test
+	public final void testSetAccessPermissionsForUsersWhenSoftLink()
+			throws Exception {
+
+		String sourceCollectionName = "testSetAccessPermissionsForUsersWhenSoftLinkSource";
+		String targetCollectionName = "testSetAccessPermissionsForUsersWhenSoftLinkTarget";
+		String testFileName = "testSetAccessPermissionsForUsersWhenSoftLink.txt";
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator
+				.generateFileOfFixedLengthGivenName(absPath, testFileName, 1);
+
+		String sourceIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + '/'
+								+ sourceCollectionName);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + '/'
+								+ targetCollectionName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		// do an initial unmount
+		MountedCollectionAO mountedCollectionAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getMountedCollectionAO(
+						irodsAccount);
+
+		mountedCollectionAO.unmountACollection(targetIrodsCollection,
+				irodsAccount.getDefaultStorageResource());
+
+		// set up source collection
+		IRODSFile sourceFile = irodsFileSystem
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						sourceIrodsCollection);
+		sourceFile.mkdirs();
+
+		// create the soft link
+		mountedCollectionAO.createASoftLink(sourceIrodsCollection,
+				targetIrodsCollection);
+
+		// now put the file through the soft link
+		IRODSFile destFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		DataTransferOperations dataTransferOperationsAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataTransferOperations(
+						irodsAccount);
+		dataTransferOperationsAO.putOperation(new File(localFileName),
+				destFile, null, null);
+
+		String secondaryUser = testingProperties
+				.getProperty(TestingPropertiesHelper.IRODS_SECONDARY_USER_KEY);
+		List<UserFilePermission> userFilePermissions = new ArrayList<UserFilePermission>();
+		UserFilePermission userFilePermission = new UserFilePermission();
+		userFilePermission.setUserName(secondaryUser);
+		userFilePermission.setFilePermissionEnum(FilePermissionEnum.READ);
+		userFilePermissions.add(userFilePermission);
+
+		DataObjectAO dataObjectAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataObjectAO(irodsAccount);
+		List<BulkFileOperationResponse> responses = dataObjectAO
+				.setAccessPermissionsForUsers(targetIrodsCollection + "/"
+						+ testFileName, userFilePermissions);
+
+		Assert.assertEquals(1, responses.size());
+		Assert.assertEquals(BulkFileOperationResponse.ResultStatus.OK,
+				responses.get(0).getResultStatus());
+		Assert.assertEquals("response should carry the path as given",
+				targetIrodsCollection + "/" + testFileName, responses.get(0)
+						.getAbsolutePath());
+
+		// the permission is on the canonical data object
+		FilePermissionEnum filePermissionEnum = dataObjectAO
+				.getPermissionForDataObject(sourceIrodsCollection + "/"
+						+ testFileName, secondaryUser, "");
+		Assert.assertEquals(FilePermissionEnum.READ, filePermissionEnum);
+
+	}
+
 	/**
 	 * Add an avu to a data object (by its canonical path) and delete it via the
 	 * soft linked path
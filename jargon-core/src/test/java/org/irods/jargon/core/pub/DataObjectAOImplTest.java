@@ -4217,6 +4217,110 @@ public class DataObjectAOImplTest {
 
 	}
 
+	@Test
+	public final void testSetAccessPermissionsForUsersSomeFail()
+			throws Exception {
+		String testFileName = "testSetAccessPermissionsForUsersSomeFail.txt";
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String fileNameOrig = FileGenerator.generateFileOfFixedLengthGivenName(
+				absPath, testFileName, 2);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH);
+		String targetIrodsFile = targetIrodsCollection + "/" + testFileName;
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+		DataObjectAOImpl dataObjectAO = (DataObjectAOImpl) irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataObjectAO(irodsAccount);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		dataObjectAO.putLocalDataObjectToIRODS(new File(fileNameOrig),
+				irodsFile, true);
+
+		String secondaryUser = testingProperties
+				.getProperty(TestingPropertiesHelper.IRODS_SECONDARY_USER_KEY);
+		String missingUser = "testSetAccessPermissionsForUsersSomeFailNoUser";
+		List<UserFilePermission> userFilePermissions = new ArrayList<UserFilePermission>();
+		UserFilePermission userFilePermission = new UserFilePermission();
+		userFilePermission.setUserName(missingUser);
+		userFilePermission.setUserZone(irodsAccount.getZone());
+		userFilePermission.setFilePermissionEnum(FilePermissionEnum.READ);
+		userFilePermissions.add(userFilePermission);
+		userFilePermission = new UserFilePermission();
+		userFilePermission.setUserName(secondaryUser);
+		userFilePermission.setFilePermissionEnum(FilePermissionEnum.WRITE);
+		userFilePermissions.add(userFilePermission);
+
+		List<BulkFileOperationResponse> responses = dataObjectAO
+				.setAccessPermissionsForUsers(targetIrodsFile,
+						userFilePermissions);
+
+		Assert.assertEquals(2, responses.size());
+		Assert.assertFalse("missing user should fail",
+				responses.get(0).getResultStatus() == BulkFileOperationResponse.ResultStatus.OK);
+		Assert.assertEquals(missingUser, responses.get(0).getUserName());
+		Assert.assertEquals(irodsAccount.getZone(), responses.get(0)
+				.getUserZone());
+		Assert.assertEquals("later user should still be set",
+				BulkFileOperationResponse.ResultStatus.OK, responses.get(1)
+						.getResultStatus());
+		Assert.assertEquals(secondaryUser, responses.get(1).getUserName());
+		Assert.assertEquals("", responses.get(1).getUserZone());
+		Assert.assertEquals(targetIrodsFile, responses.get(1)
+				.getAbsolutePath());
+
+		EnvironmentalInfoAO environmentalInfoAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getEnvironmentalInfoAO(
+						irodsAccount);
+
+		IRODSServerProperties props = environmentalInfoAO
+				.getIRODSServerPropertiesFromIRODSServer();
+
+		if (props.isEirods()) {
+			return;
+		}
+
+		IRODSAccount secondaryAccount = testingPropertiesHelper
+				.buildIRODSAccountFromSecondaryTestProperties(testingProperties);
+		IRODSFile irodsFileForSecondaryUser = irodsFileSystem
+				.getIRODSFileFactory(secondaryAccount).instanceIRODSFile(
+						targetIrodsFile);
+		Assert.assertTrue(irodsFileForSecondaryUser.canWrite());
+
+	}
+
+	@Test
+	public final void testSetAccessPermissionsForUsersEmptyList()
+			throws Exception {
+		String testFileName = "testSetAccessPermissionsForUsersEmptyList.txt";
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String fileNameOrig = FileGenerator.generateFileOfFixedLengthGivenName(
+				absPath, testFileName, 2);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+		DataObjectAOImpl dataObjectAO = (DataObjectAOImpl) irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataObjectAO(irodsAccount);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		dataObjectAO.putLocalDataObjectToIRODS(new File(fileNameOrig),
+				irodsFile, true);
+
+		List<BulkFileOperationResponse> responses = dataObjectAO
+				.setAccessPermissionsForUsers(targetIrodsCollection + "/"
+						+ testFileName, new ArrayList<UserFilePermission>());
+		Assert.assertTrue("no responses expected", responses.isEmpty());
+
+	}
+
 	@Test
 	public final void testSetReadThenRemove() throws Exception {
 		// generate a local scratch file
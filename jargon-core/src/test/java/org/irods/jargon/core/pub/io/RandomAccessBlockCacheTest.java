@@ -0,0 +1,337 @@
+package org.irods.jargon.core.pub.io;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RandomAccessBlockCacheTest {
+
+	private static final int FD = 5;
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(10, 3, 1);
+		cache.put(0, new byte[10]);
+		cache.put(1, new byte[10]);
+		cache.put(2, new byte[10]);
+		Assert.assertNotNull(cache.get(0));
+		cache.put(3, new byte[10]);
+		Assert.assertEquals(3, cache.size());
+		Assert.assertNotNull(cache.get(0));
+		Assert.assertNull("least recently used block not evicted",
+				cache.get(1));
+	}
+
+	@Test
+	public void testInvalidateRange() throws Exception {
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(10, 10, 1);
+		for (int i = 0; i < 5; i++) {
+			cache.put(i, new byte[10]);
+		}
+		cache.invalidate(15, 10);
+		Assert.assertNotNull(cache.get(0));
+		Assert.assertNull(cache.get(1));
+		Assert.assertNull(cache.get(2));
+		Assert.assertNotNull(cache.get(3));
+	}
+
+	@Test
+	public void testInvalidateDropsShortBlockBeforeWrite() throws Exception {
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(10, 10, 1);
+		cache.put(0, new byte[10]);
+		cache.put(1, new byte[4]);
+		cache.invalidate(20, 5);
+		Assert.assertNotNull(cache.get(0));
+		Assert.assertNull("end of file block should be dropped", cache.get(1));
+	}
+
+	@Test
+	public void testInvalidateDropsShortBlockWellBeforeWrite()
+			throws Exception {
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(10, 10, 1);
+		cache.put(0, new byte[10]);
+		cache.put(1, new byte[4]);
+		cache.invalidate(45, 5);
+		Assert.assertNotNull(cache.get(0));
+		Assert.assertNull("end of file block should be dropped", cache.get(1));
+	}
+
+	@Test
+	public void testSequentialMissesGrowReadAhead() throws Exception {
+		RandomAccessBlockCache cache = new RandomAccessBlockCache(10, 16, 4);
+		Assert.assertEquals(1, cache.blocksToReadForMiss(0));
+		Assert.assertEquals(2, cache.blocksToReadForMiss(1));
+		Assert.assertEquals(4, cache.blocksToReadForMiss(3));
+		Assert.assertEquals(4, cache.blocksToReadForMiss(7));
+		Assert.assertEquals(1, cache.blocksToReadForMiss(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReadAheadMoreThanHalfOfBlocks() throws Exception {
+		new RandomAccessBlockCache(10, 4, 3);
+	}
+
+	@Test
+	public void testRandomAccessFileCachedReads() throws Exception {
+		byte[] data = buildData(1000);
+		FakeFile fakeFile = new FakeFile(data);
+		IRODSRandomAccessFile raf = new IRODSRandomAccessFile(
+				mockIrodsFile(), fakeFile.fileIOOperations);
+		raf.enableBlockCache(100, 8, 2);
+
+		raf.seek(250, SeekWhenceType.SEEK_START);
+		byte[] buffer = new byte[20];
+		raf.readFully(buffer);
+		assertBytes(data, 250, buffer, 20);
+		raf.seek(255, SeekWhenceType.SEEK_START);
+		raf.readFully(buffer, 0, 10);
+		assertBytes(data, 255, buffer, 10);
+		Assert.assertEquals(data[265], (byte) raf.read());
+		Assert.assertEquals("second read should come from the cache", 1,
+				fakeFile.reads);
+		Assert.assertEquals(266, raf.getFilePointer());
+
+		// read across a block boundary into the next block
+		raf.seek(290, SeekWhenceType.SEEK_START);
+		raf.readFully(buffer);
+		assertBytes(data, 290, buffer, 20);
+		Assert.assertEquals(2, fakeFile.reads);
+		Assert.assertEquals("sequential miss should not seek", 1,
+				fakeFile.seeks);
+	}
+
+	@Test
+	public void testRandomAccessFileCachedReadAtEnd() throws Exception {
+		byte[] data = buildData(250);
+		FakeFile fakeFile = new FakeFile(data);
+		IRODSRandomAccessFile raf = new IRODSRandomAccessFile(
+				mockIrodsFile(), fakeFile.fileIOOperations);
+		raf.enableBlockCache(100, 8, 2);
+		raf.seek(240, SeekWhenceType.SEEK_START);
+		byte[] buffer = new byte[50];
+		Assert.assertEquals(10, raf.read(buffer, 0, 50));
+		assertBytes(data, 240, buffer, 10);
+		Assert.assertEquals(-1, raf.read(buffer, 0, 50));
+		Assert.assertEquals(-1, raf.read());
+	}
+
+	@Test
+	public void testRandomAccessFileWriteThrough() throws Exception {
+		byte[] data = buildData(500);
+		FakeFile fakeFile = new FakeFile(data);
+		IRODSRandomAccessFile raf = new IRODSRandomAccessFile(
+				mockIrodsFile(), fakeFile.fileIOOperations);
+		raf.enableBlockCache(100, 8, 2);
+		byte[] buffer = new byte[10];
+		raf.seek(100, SeekWhenceType.SEEK_START);
+		raf.readFully(buffer);
+		raf.seek(105, SeekWhenceType.SEEK_START);
+		raf.write(new byte[] { 1, 2, 3 });
+		Assert.assertEquals(108, raf.getFilePointer());
+		Assert.assertEquals(1, data[105]);
+		raf.seek(104, SeekWhenceType.SEEK_START);
+		raf.readFully(buffer, 0, 5);
+		assertBytes(data, 104, buffer, 5);
+		Assert.assertEquals("written block should be read again", 2,
+				fakeFile.reads);
+	}
+
+	@Test
+	public void testRandomAccessFileCachedSeekFromStart() throws Exception {
+		doTestSeekWhence(true, SeekWhenceType.SEEK_START, 350, 350);
+	}
+
+	@Test
+	public void testRandomAccessFileCachedSeekFromCurrent() throws Exception {
+		doTestSeekWhence(true, SeekWhenceType.SEEK_CURRENT, 100, 351);
+	}
+
+	@Test
+	public void testRandomAccessFileCachedSeekFromEnd() throws Exception {
+		doTestSeekWhence(true, SeekWhenceType.SEEK_END, 0, 1000);
+	}
+
+	@Test
+	public void testRandomAccessFileSeekFromStart() throws Exception {
+		doTestSeekWhence(false, SeekWhenceType.SEEK_START, 350, 350);
+	}
+
+	@Test
+	public void testRandomAccessFileSeekFromCurrent() throws Exception {
+		doTestSeekWhence(false, SeekWhenceType.SEEK_CURRENT, 100, 351);
+	}
+
+	@Test
+	public void testRandomAccessFileSeekFromEnd() throws Exception {
+		doTestSeekWhence(false, SeekWhenceType.SEEK_END, 0, 1000);
+	}
+
+	/**
+	 * Read the byte at 250, seek as given, and check the file pointer and what
+	 * is read there
+	 */
+	private void doTestSeekWhence(final boolean cached,
+			final SeekWhenceType whence, final long offset,
+			final long expectedPosition) throws Exception {
+		byte[] data = buildData(1000);
+		FakeFile fakeFile = new FakeFile(data);
+		IRODSRandomAccessFile raf = new IRODSRandomAccessFile(
+				mockIrodsFile(), fakeFile.fileIOOperations);
+		if (cached) {
+			raf.enableBlockCache(100, 8, 2);
+		}
+		raf.seek(250, SeekWhenceType.SEEK_START);
+		Assert.assertEquals(data[250], (byte) raf.read());
+
+		raf.seek(offset, whence);
+		Assert.assertEquals(expectedPosition, raf.getFilePointer());
+		if (expectedPosition < data.length) {
+			Assert.assertEquals(data[(int) expectedPosition], (byte) raf.read());
+		} else {
+			Assert.assertEquals(-1, raf.read());
+		}
+	}
+
+	@Test
+	public void testRandomAccessFileCachedSkipBytes() throws Exception {
+		byte[] data = buildData(1000);
+		FakeFile fakeFile = new FakeFile(data);
+		IRODSFile irodsFile = mockIrodsFile();
+		Mockito.when(irodsFile.length()).thenReturn((long) data.length);
+		IRODSRandomAccessFile raf = new IRODSRandomAccessFile(irodsFile,
+				fakeFile.fileIOOperations);
+		raf.enableBlockCache(100, 8, 2);
+		raf.seek(100, SeekWhenceType.SEEK_START);
+		Assert.assertEquals(50, raf.skipBytes(50));
+		Assert.assertEquals(150, raf.getFilePointer());
+		Assert.assertEquals(data[150], (byte) raf.read());
+	}
+
+	@Test
+	public void testRandomAccessFileWritePastEndDropsEndBlock()
+			throws Exception {
+		byte[] data = new byte[1000];
+		System.arraycopy(buildData(150), 0, data, 0, 150);
+		FakeFile fakeFile = new FakeFile(data);
+		fakeFile.length = 150;
+		IRODSRandomAccessFile raf = new IRODSRandomAccessFile(
+				mockIrodsFile(), fakeFile.fileIOOperations);
+		raf.enableBlockCache(100, 8, 2);
+		byte[] buffer = new byte[50];
+		raf.seek(100, SeekWhenceType.SEEK_START);
+		raf.readFully(buffer);
+		Assert.assertEquals("end of file", -1, raf.read());
+
+		// write two blocks past the end, leaving a gap after the short block
+		raf.seek(350, SeekWhenceType.SEEK_START);
+		raf.write(new byte[] { 9, 9, 9 });
+		fakeFile.length = 353;
+
+		raf.seek(140, SeekWhenceType.SEEK_START);
+		Assert.assertEquals(20, raf.read(new byte[20], 0, 20));
+		Assert.assertEquals(160, raf.getFilePointer());
+	}
+
+	private static void assertBytes(final byte[] expected,
+			final int expectedOffset, final byte[] actual, final int length) {
+		for (int i = 0; i < length; i++) {
+			Assert.assertEquals(expected[expectedOffset + i], actual[i]);
+		}
+	}
+
+	private static byte[] buildData(final int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (i * 7);
+		}
+		return data;
+	}
+
+	private static IRODSFile mockIrodsFile() throws Exception {
+		IRODSFile irodsFile = Mockito.mock(IRODSFile.class);
+		Mockito.when(irodsFile.exists()).thenReturn(true);
+		Mockito.when(irodsFile.isFile()).thenReturn(true);
+		Mockito.when(irodsFile.getFileDescriptor()).thenReturn(FD);
+		return irodsFile;
+	}
+
+	/**
+	 * Stands in for an open iRODS file, counting the calls made
+	 */
+	private static final class FakeFile {
+		private final byte[] data;
+		private final FileIOOperations fileIOOperations = Mockito
+				.mock(FileIOOperations.class);
+		private int position = 0;
+		private int length;
+		private int reads = 0;
+		private int seeks = 0;
+
+		FakeFile(final byte[] data) throws Exception {
+			this.data = data;
+			length = data.length;
+			Mockito.when(
+					fileIOOperations.fileRead(Matchers.eq(FD),
+							Matchers.any(byte[].class), Matchers.anyInt(),
+							Matchers.anyInt())).thenAnswer(
+					new Answer<Integer>() {
+						@Override
+						public Integer answer(final InvocationOnMock invocation) {
+							reads++;
+							Object[] args = invocation.getArguments();
+							int length = Math.min((Integer) args[3],
+									FakeFile.this.length - position);
+							if (length <= 0) {
+								return -1;
+							}
+							System.arraycopy(FakeFile.this.data, position,
+									args[1], (Integer) args[2], length);
+							position += length;
+							return length;
+						}
+					});
+			Mockito.when(
+					fileIOOperations.write(Matchers.eq(FD),
+							Matchers.any(byte[].class), Matchers.anyInt(),
+							Matchers.anyInt())).thenAnswer(
+					new Answer<Integer>() {
+						@Override
+						public Integer answer(final InvocationOnMock invocation) {
+							Object[] args = invocation.getArguments();
+							int length = (Integer) args[3];
+							System.arraycopy(args[1], (Integer) args[2],
+									FakeFile.this.data, position, length);
+							position += length;
+							return length;
+						}
+					});
+			Mockito.when(
+					fileIOOperations.seek(Matchers.eq(FD), Matchers.anyLong(),
+							Matchers.any(SeekWhenceType.class))).thenAnswer(
+					new Answer<Long>() {
+						@Override
+						public Long answer(final InvocationOnMock invocation) {
+							seeks++;
+							int offset = ((Long) invocation.getArguments()[1])
+									.intValue();
+							SeekWhenceType whence = (SeekWhenceType) invocation
+									.getArguments()[2];
+							if (whence == SeekWhenceType.SEEK_CURRENT) {
+								position += offset;
+							} else if (whence == SeekWhenceType.SEEK_END) {
+								position = FakeFile.this.length + offset;
+							} else {
+								position = offset;
+							}
+							return (long) position;
+						}
+					});
+		}
+	}
+
+}
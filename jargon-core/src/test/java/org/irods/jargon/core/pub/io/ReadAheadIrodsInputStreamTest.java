@@ -0,0 +1,169 @@
+package org.irods.jargon.core.pub.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.IRodsPI;
+import org.irods.jargon.core.packinstr.OpenedDataObjInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ReadAheadIrodsInputStreamTest {
+
+	private static final int FD = 3;
+
+	@Test
+	public void testReadAllAcrossChunks() throws Exception {
+		byte[] data = buildData(10000);
+		ReadAheadIrodsInputStream stream = new ReadAheadIrodsInputStream(
+				mockInputStream(data, 1024, null), 3);
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		byte[] buffer = new byte[700];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			actual.write(buffer, 0, read);
+		}
+		stream.close();
+		Assert.assertEquals(data.length, actual.size());
+		for (int i = 0; i < data.length; i++) {
+			Assert.assertEquals(data[i], actual.toByteArray()[i]);
+		}
+	}
+
+	@Test
+	public void testReadSingleBytesAndSkip() throws Exception {
+		byte[] data = buildData(3000);
+		ReadAheadIrodsInputStream stream = new ReadAheadIrodsInputStream(
+				mockInputStream(data, 512, null));
+		Assert.assertEquals(data[0] & 0xFF, stream.read());
+		Assert.assertEquals(1500, stream.skip(1500));
+		Assert.assertEquals(data[1501] & 0xFF, stream.read());
+		Assert.assertEquals(1498, stream.skip(5000));
+		Assert.assertEquals(-1, stream.read());
+		stream.close();
+	}
+
+	@Test
+	public void testCloseBeforeEnd() throws Exception {
+		byte[] data = buildData(100000);
+		IRODSFileInputStream irodsFileInputStream = mockInputStream(data, 100,
+				null);
+		ReadAheadIrodsInputStream stream = new ReadAheadIrodsInputStream(
+				irodsFileInputStream, 2);
+		Assert.assertEquals(data[0] & 0xFF, stream.read());
+		stream.close();
+		stream.close();
+		Mockito.verify(irodsFileInputStream, Mockito.times(1)).close();
+	}
+
+	@Test
+	public void testErrorAfterEarlierChunks() throws Exception {
+		byte[] data = buildData(2048);
+		ReadAheadIrodsInputStream stream = new ReadAheadIrodsInputStream(
+				mockInputStream(data, 1024, new JargonException("read failed")),
+				2);
+		byte[] buffer = new byte[1024];
+		Assert.assertEquals(1024, stream.read(buffer));
+		Assert.assertEquals(1024, stream.read(buffer));
+		try {
+			stream.read(buffer);
+			Assert.fail("should have thrown read error");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof JargonException);
+		}
+		stream.close();
+	}
+
+	private byte[] buildData(final int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (i * 31);
+		}
+		return data;
+	}
+
+	@Test(expected = JargonException.class)
+	public void testZeroBufferSizeIsCheckedException() throws Exception {
+		new ReadAheadIrodsInputStream(mockInputStream(buildData(10), 0, null));
+	}
+
+	/**
+	 * Build a stream whose connection serves the given data, and then either
+	 * the end of the data or the given error
+	 */
+	private IRODSFileInputStream mockInputStream(final byte[] data,
+			final int bufferSize, final JargonException errorAtEnd)
+			throws Exception {
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setGetBufferSize(bufferSize);
+
+		final AbstractIRODSMidLevelProtocol irodsProtocol = Mockito
+				.mock(AbstractIRODSMidLevelProtocol.class);
+		final int[] position = new int[1];
+		final int[] pending = new int[1];
+		Mockito.when(irodsProtocol.irodsFunction(Matchers.any(IRodsPI.class)))
+				.thenAnswer(new Answer<Tag>() {
+					@Override
+					public Tag answer(final InvocationOnMock invocation)
+							throws Throwable {
+						Assert.assertTrue(invocation.getArguments()[0] instanceof OpenedDataObjInp);
+						int length = Math.min(bufferSize, data.length
+								- position[0]);
+						if (length == 0) {
+							if (errorAtEnd != null) {
+								throw errorAtEnd;
+							}
+							return null;
+						}
+						pending[0] = length;
+						Tag header = new Tag(IRODSConstants.MsgHeader_PI,
+								new Tag[] {
+										new Tag(IRODSConstants.bsLen, length),
+										new Tag(IRODSConstants.intInfo, length) });
+						return new Tag("reply", header);
+					}
+				});
+		Mockito.when(
+				irodsProtocol.read(Matchers.any(byte[].class),
+						Matchers.anyInt(), Matchers.anyInt())).thenAnswer(
+				new Answer<Integer>() {
+					@Override
+					public Integer answer(final InvocationOnMock invocation)
+							throws Throwable {
+						byte[] buffer = (byte[]) invocation.getArguments()[0];
+						int offset = (Integer) invocation.getArguments()[1];
+						int length = (Integer) invocation.getArguments()[2];
+						Assert.assertEquals(pending[0], length);
+						System.arraycopy(data, position[0], buffer, offset,
+								length);
+						position[0] += length;
+						return length;
+					}
+				});
+
+		FileIOOperations fileIOOperations = Mockito
+				.mock(FileIOOperations.class);
+		Mockito.when(fileIOOperations.getJargonProperties()).thenReturn(
+				jargonProperties);
+		Mockito.when(fileIOOperations.getIRODSProtocol()).thenReturn(
+				irodsProtocol);
+
+		IRODSFileInputStream irodsFileInputStream = Mockito
+				.mock(IRODSFileInputStream.class);
+		Mockito.when(irodsFileInputStream.getFileIOOperations()).thenReturn(
+				fileIOOperations);
+		Mockito.when(irodsFileInputStream.getFileDescriptor()).thenReturn(FD);
+		return irodsFileInputStream;
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.irods.jargon.core.pub.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class WriteBehindIrodsOutputStreamTest {
+
+	private static final int FD = 3;
+
+	@Test
+	public void testWriteAcrossChunks() throws Exception {
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		IRODSFileOutputStream irodsFileOutputStream = mockOutputStream(
+				written, 1024, -1);
+		WriteBehindIrodsOutputStream stream = new WriteBehindIrodsOutputStream(
+				irodsFileOutputStream, 3);
+		byte[] data = buildData(10000);
+		for (int i = 0; i < data.length; i += 700) {
+			stream.write(data, i, Math.min(700, data.length - i));
+		}
+		stream.write(7);
+		stream.close();
+		stream.close();
+
+		byte[] actual = written.toByteArray();
+		Assert.assertEquals(data.length + 1, actual.length);
+		for (int i = 0; i < data.length; i++) {
+			Assert.assertEquals(data[i], actual[i]);
+		}
+		Assert.assertEquals(7, actual[data.length]);
+		Mockito.verify(irodsFileOutputStream, Mockito.times(1)).close();
+	}
+
+	@Test
+	public void testFlushSendsEverything() throws Exception {
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		WriteBehindIrodsOutputStream stream = new WriteBehindIrodsOutputStream(
+				mockOutputStream(written, 1024, -1));
+		stream.write(buildData(1500));
+		stream.flush();
+		Assert.assertEquals(1500, written.size());
+		stream.write(buildData(10));
+		stream.close();
+		Assert.assertEquals(1510, written.size());
+	}
+
+	@Test
+	public void testErrorThrownOnLaterCall() throws Exception {
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		WriteBehindIrodsOutputStream stream = new WriteBehindIrodsOutputStream(
+				mockOutputStream(written, 100, 1));
+		stream.write(buildData(250));
+		try {
+			stream.flush();
+			Assert.fail("should have thrown write error");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof JargonException);
+		}
+
+		try {
+			stream.close();
+			Assert.fail("should have thrown write error");
+		} catch (IOException e) {
+			// expected
+		}
+		Assert.assertEquals("only first chunk sent", 100, written.size());
+	}
+
+	private byte[] buildData(final int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (i * 31);
+		}
+		return data;
+	}
+
+	@Test(expected = JargonException.class)
+	public void testZeroBufferSizeIsCheckedException() throws Exception {
+		new WriteBehindIrodsOutputStream(mockOutputStream(
+				new ByteArrayOutputStream(), 0, -1));
+	}
+
+	/**
+	 * Build a stream whose connection collects the written bytes, and fails
+	 * the write with the given index, if not -1
+	 */
+	private IRODSFileOutputStream mockOutputStream(
+			final ByteArrayOutputStream written, final int bufferSize,
+			final int failingWrite) throws Exception {
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setPutBufferSize(bufferSize);
+
+		final AbstractIRODSMidLevelProtocol irodsProtocol = Mockito
+				.mock(AbstractIRODSMidLevelProtocol.class);
+		final int[] writes = new int[1];
+		Mockito.when(
+				irodsProtocol.irodsFunction(Matchers.anyString(),
+						Matchers.anyString(), Matchers.any(byte[].class),
+						Matchers.anyInt(), Matchers.anyInt(),
+						Matchers.any(byte[].class), Matchers.anyInt(),
+						Matchers.anyInt(), Matchers.anyInt())).thenAnswer(
+				new Answer<Tag>() {
+					@Override
+					public Tag answer(final InvocationOnMock invocation)
+							throws Throwable {
+						if (writes[0]++ == failingWrite) {
+							throw new JargonException("write failed");
+						}
+						byte[] bytes = (byte[]) invocation.getArguments()[5];
+						int offset = (Integer) invocation.getArguments()[6];
+						int length = (Integer) invocation.getArguments()[7];
+						written.write(bytes, offset, length);
+						Tag header = new Tag(IRODSConstants.MsgHeader_PI,
+								new Tag[] { new Tag(IRODSConstants.intInfo,
+										length) });
+						return new Tag("reply", header);
+					}
+				});
+
+		FileIOOperations fileIOOperations = Mockito
+				.mock(FileIOOperations.class);
+		Mockito.when(fileIOOperations.getJargonProperties()).thenReturn(
+				jargonProperties);
+		Mockito.when(fileIOOperations.getIRODSProtocol()).thenReturn(
+				irodsProtocol);
+
+		IRODSFileOutputStream irodsFileOutputStream = Mockito
+				.mock(IRODSFileOutputStream.class);
+		Mockito.when(irodsFileOutputStream.getFileIOOperations()).thenReturn(
+				fileIOOperations);
+		Mockito.when(irodsFileOutputStream.getFileDescriptor()).thenReturn(FD);
+		return irodsFileOutputStream;
+	}
+
+}
@@ -0,0 +1,141 @@
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutorImpl.QueryCloseBehavior;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+public class IRODSQueryResultRowIteratorTest {
+
+	@Test
+	public void testIterateAcrossPages() throws Exception {
+		TranslatedIRODSGenQuery translatedQuery = buildTranslatedQuery();
+		IRODSQueryResultSet firstPage = buildPage(translatedQuery, 0, 2, 1);
+		IRODSQueryResultSet secondPage = buildPage(translatedQuery, 2, 2, 2);
+		IRODSQueryResultSet lastPage = buildPage(translatedQuery, 4, 1, 0);
+
+		GenQueryProcessor genQueryProcessor = Mockito
+				.mock(GenQueryProcessor.class);
+		Mockito.when(
+				genQueryProcessor.executeTranslatedIRODSQuery(translatedQuery,
+						1, 0, QueryCloseBehavior.MANUAL_CLOSE, "zone"))
+				.thenReturn(secondPage);
+		Mockito.when(
+				genQueryProcessor.executeTranslatedIRODSQuery(translatedQuery,
+						2, 0, QueryCloseBehavior.MANUAL_CLOSE, "zone"))
+				.thenReturn(lastPage);
+
+		IRODSQueryResultRowIterator iterator = new IRODSQueryResultRowIterator(
+				genQueryProcessor, firstPage, "zone");
+		List<String> values = new ArrayList<String>();
+		while (iterator.hasNext()) {
+			values.add(iterator.next().getColumn(0));
+		}
+
+		Assert.assertEquals(5, values.size());
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals("row" + i, values.get(i));
+		}
+
+		iterator.close();
+		Mockito.verify(genQueryProcessor, Mockito.never()).closeResults(
+				Matchers.any(IRODSQueryResultSet.class));
+	}
+
+	@Test
+	public void testCloseEarlyClosesPageInFlight() throws Exception {
+		TranslatedIRODSGenQuery translatedQuery = buildTranslatedQuery();
+		IRODSQueryResultSet firstPage = buildPage(translatedQuery, 0, 2, 1);
+		IRODSQueryResultSet secondPage = buildPage(translatedQuery, 2, 2, 2);
+
+		GenQueryProcessor genQueryProcessor = Mockito
+				.mock(GenQueryProcessor.class);
+		Mockito.when(
+				genQueryProcessor.executeTranslatedIRODSQuery(translatedQuery,
+						1, 0, QueryCloseBehavior.MANUAL_CLOSE, null))
+				.thenReturn(secondPage);
+
+		IRODSQueryResultRowIterator iterator = new IRODSQueryResultRowIterator(
+				genQueryProcessor, firstPage, null);
+		Assert.assertEquals("row0", iterator.next().getColumn(0));
+		iterator.close();
+		iterator.close();
+
+		Mockito.verify(genQueryProcessor, Mockito.times(1)).closeResults(
+				secondPage);
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testEmptyResult() throws Exception {
+		IRODSQueryResultSet firstPage = buildPage(buildTranslatedQuery(), 0, 0,
+				0);
+		GenQueryProcessor genQueryProcessor = Mockito
+				.mock(GenQueryProcessor.class);
+		IRODSQueryResultRowIterator iterator = new IRODSQueryResultRowIterator(
+				genQueryProcessor, firstPage, null);
+		Assert.assertFalse(iterator.hasNext());
+		iterator.next();
+	}
+
+	@Test
+	public void testPrefetchError() throws Exception {
+		TranslatedIRODSGenQuery translatedQuery = buildTranslatedQuery();
+		IRODSQueryResultSet firstPage = buildPage(translatedQuery, 0, 1, 1);
+
+		GenQueryProcessor genQueryProcessor = Mockito
+				.mock(GenQueryProcessor.class);
+		Mockito.when(
+				genQueryProcessor.executeTranslatedIRODSQuery(translatedQuery,
+						1, 0, QueryCloseBehavior.MANUAL_CLOSE, null))
+				.thenThrow(new JargonException("query failed"));
+
+		IRODSQueryResultRowIterator iterator = new IRODSQueryResultRowIterator(
+				genQueryProcessor, firstPage, null);
+		Assert.assertEquals("row0", iterator.next().getColumn(0));
+		try {
+			iterator.hasNext();
+			Assert.fail("should have thrown prefetch error");
+		} catch (JargonRuntimeException e) {
+			Assert.assertTrue(e.getCause() instanceof JargonException);
+		}
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	private TranslatedIRODSGenQuery buildTranslatedQuery() throws Exception {
+		List<GenQuerySelectField> selectFields = new ArrayList<GenQuerySelectField>();
+		selectFields.add(GenQuerySelectField.instance(
+				RodsGenQueryEnum.COL_DATA_NAME.name(), String
+						.valueOf(RodsGenQueryEnum.COL_DATA_NAME
+								.getNumericValue()),
+				GenQuerySelectField.SelectFieldTypes.FIELD,
+				GenQuerySelectField.SelectFieldSource.DEFINED_QUERY_FIELD));
+		return TranslatedIRODSGenQuery.instance(selectFields,
+				new ArrayList<TranslatedGenQueryCondition>(),
+				IRODSGenQuery.instance("select DATA_NAME", 2));
+	}
+
+	private IRODSQueryResultSet buildPage(
+			final TranslatedIRODSGenQuery translatedQuery, final int firstRow,
+			final int rowCount, final int continuationIndex) throws Exception {
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add(RodsGenQueryEnum.COL_DATA_NAME.getName());
+		List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+		for (int i = firstRow; i < firstRow + rowCount; i++) {
+			List<String> columns = new ArrayList<String>();
+			columns.add("row" + i);
+			rows.add(IRODSQueryResultRow.instance(columns, columnNames));
+		}
+		return IRODSQueryResultSet.instance(translatedQuery, rows,
+				continuationIndex, 0);
+	}
+
+}
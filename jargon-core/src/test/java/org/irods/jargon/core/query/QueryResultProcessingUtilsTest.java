@@ -0,0 +1,112 @@
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.Tag;
+import org.junit.Test;
+
+public class QueryResultProcessingUtilsTest {
+
+	private static Tag buildResponse(final int rows, final int continuation)
+			throws Exception {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<GenQueryOut_PI><rowCnt>");
+		sb.append(rows);
+		sb.append("</rowCnt>\n<attriCnt>2</attriCnt>\n<continueInx>");
+		sb.append(continuation);
+		sb.append("</continueInx>\n<totalRowCount>0</totalRowCount>\n");
+		sb.append("<SqlResult_PI><attriInx>403</attriInx>\n<reslen>256</reslen>\n");
+		for (int i = 0; i < rows; i++) {
+			sb.append("<value>name");
+			sb.append(i);
+			sb.append("</value>\n");
+		}
+		sb.append("</SqlResult_PI>\n");
+		sb.append("<SqlResult_PI><attriInx>407</attriInx>\n<reslen>256</reslen>\n");
+		for (int i = 0; i < rows; i++) {
+			sb.append("<value>");
+			sb.append(i * 10);
+			sb.append("</value>\n");
+		}
+		sb.append("</SqlResult_PI>\n");
+		sb.append("</GenQueryOut_PI>\n");
+		return Tag.readNextTag(sb.toString().getBytes("UTF-8"), "UTF-8");
+	}
+
+	private static List<String> buildColumnNames() {
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add(RodsGenQueryEnum.COL_DATA_NAME.getName());
+		columnNames.add(RodsGenQueryEnum.COL_DATA_SIZE.getName());
+		return columnNames;
+	}
+
+	@Test
+	public void testTranslateResponseIntoResultSet() throws Exception {
+		List<IRODSQueryResultRow> result = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(buildResponse(3, 0),
+						buildColumnNames(), 0, 0);
+		Assert.assertEquals("wrong row count", 3, result.size());
+
+		IRODSQueryResultRow row = result.get(2);
+		Assert.assertEquals("name2", row.getColumn(0));
+		Assert.assertEquals("name2",
+				row.getColumn(RodsGenQueryEnum.COL_DATA_NAME.getName()));
+		Assert.assertEquals(20L, row.getColumnAsLongOrZero(1));
+		Assert.assertEquals(3, row.getRecordCount());
+		Assert.assertTrue(row.isLastResult());
+
+		List<String> columns = row.getColumnsAsList();
+		Assert.assertEquals(2, columns.size());
+		Assert.assertEquals("name2", columns.get(0));
+		Assert.assertEquals("20", columns.get(1));
+	}
+
+	@Test
+	public void testTranslateResponseWithOffsetAndContinuation()
+			throws Exception {
+		List<IRODSQueryResultRow> result = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(buildResponse(2, 1),
+						buildColumnNames(), 1, 500);
+		Assert.assertEquals(501, result.get(0).getRecordCount());
+		Assert.assertEquals(502, result.get(1).getRecordCount());
+		Assert.assertFalse(result.get(1).isLastResult());
+	}
+
+	@Test
+	public void testTranslateLargeResponse() throws Exception {
+		int rows = 50000;
+		List<IRODSQueryResultRow> result = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(buildResponse(rows, 0),
+						buildColumnNames(), 0, 0);
+		Assert.assertEquals(rows, result.size());
+		Assert.assertEquals("name49999", result.get(rows - 1).getColumn(0));
+	}
+
+	@Test
+	public void testTranslateNullResponse() throws Exception {
+		List<IRODSQueryResultRow> result = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(null, buildColumnNames(), 0, 0);
+		Assert.assertTrue(result.isEmpty());
+	}
+
+	@Test(expected = JargonException.class)
+	public void testTranslateResponseMissingValues() throws Exception {
+		Tag response = buildResponse(3, 0);
+		response.getTag("rowCnt").setValue(4);
+		QueryResultProcessingUtils.translateResponseIntoResultSet(response,
+				buildColumnNames(), 0, 0);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRowColumnsAreReadOnly() throws Exception {
+		List<IRODSQueryResultRow> result = QueryResultProcessingUtils
+				.translateResponseIntoResultSet(buildResponse(1, 0),
+						buildColumnNames(), 0, 0);
+		result.get(0).getColumnsAsList().add("x");
+	}
+
+}
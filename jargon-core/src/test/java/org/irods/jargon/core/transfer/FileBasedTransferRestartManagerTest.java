@@ -0,0 +1,210 @@
+/**
+ *
+ */
+package org.irods.jargon.core.transfer;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartType;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileBasedTransferRestartManagerTest {
+
+	private File journalFile;
+
+	@Before
+	public void setUp() throws Exception {
+		journalFile = File.createTempFile("restart", ".journal");
+		journalFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		journalFile.delete();
+		new File(journalFile.getAbsolutePath() + ".compact").delete();
+	}
+
+	@Test
+	public void testStoreAndRecover() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfoIdentifier identifier = buildIdentifier();
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path", 4);
+		manager.updateOffsetForSegment(identifier, 2, 1000L);
+		manager.updateLengthForSegment(identifier, 2, 300L);
+		manager.updateLengthForSegment(identifier, 2, 200L);
+		manager.updateLengthForSegment(identifier, 3, 50L);
+		// not closed, stands in for the process going away
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfo info = recovered.retrieveRestart(identifier);
+		Assert.assertNotNull("restart not recovered", info);
+		Assert.assertEquals("/local/path", info.getLocalAbsolutePath());
+		Assert.assertEquals(4, info.getFileRestartDataSegments().size());
+		Assert.assertEquals(1000L, info.getFileRestartDataSegments().get(2)
+				.getOffset());
+		Assert.assertEquals(500L, info.getFileRestartDataSegments().get(2)
+				.getLength());
+		Assert.assertEquals(50L, info.getFileRestartDataSegments().get(3)
+				.getLength());
+		manager.close();
+		recovered.close();
+	}
+
+	@Test
+	public void testDeleteSurvivesRecovery() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfoIdentifier identifier = buildIdentifier();
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path", 2);
+		manager.deleteRestart(identifier);
+		manager.close();
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		Assert.assertNull(recovered.retrieveRestart(identifier));
+		recovered.close();
+	}
+
+	@Test
+	public void testSourceVersionSurvivesRecovery() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfoIdentifier identifier = buildIdentifier();
+		FileRestartInfo info = manager.retrieveRestartAndBuildIfNotStored(
+				identifier, "/local/path", 2);
+		info.setSourceVersion("\"etag\"|Mon, 01 Jan 2024 00:00:00 GMT");
+		manager.storeRestart(info);
+		manager.updateLengthForSegment(identifier, 1, 100L);
+		manager.close();
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		info = recovered.retrieveRestart(identifier);
+		Assert.assertEquals("\"etag\"|Mon, 01 Jan 2024 00:00:00 GMT",
+				info.getSourceVersion());
+		Assert.assertEquals(100L, info.getFileRestartDataSegments().get(1)
+				.getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testCompactionKeepsState() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile, 10);
+		FileRestartInfoIdentifier identifier = buildIdentifier();
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path", 2);
+		for (int i = 0; i < 95; i++) {
+			manager.updateLengthForSegment(identifier, 1, 10L);
+		}
+		manager.close();
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		Assert.assertEquals(950L, recovered.retrieveRestart(identifier)
+				.getFileRestartDataSegments().get(1).getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testCompactionReplacesJournalAndReleasesIt() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile, 10);
+		FileRestartInfoIdentifier identifier = buildIdentifier();
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path", 2);
+		for (int i = 0; i < 25; i++) {
+			manager.updateLengthForSegment(identifier, 0, 1L);
+		}
+		manager.compactJournal();
+		manager.updateLengthForSegment(identifier, 0, 1L);
+		Assert.assertFalse("compaction file left behind", new File(
+				journalFile.getAbsolutePath() + ".compact").exists());
+		manager.close();
+
+		File moved = new File(journalFile.getAbsolutePath() + ".moved");
+		Assert.assertTrue("journal still held after close",
+				journalFile.renameTo(moved));
+		Assert.assertTrue(moved.renameTo(journalFile));
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		Assert.assertEquals(26L, recovered.retrieveRestart(identifier)
+				.getFileRestartDataSegments().get(0).getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testTornRecordIgnored() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfoIdentifier identifier = buildIdentifier();
+		manager.retrieveRestartAndBuildIfNotStored(identifier, "/local/path", 2);
+		manager.updateLengthForSegment(identifier, 0, 100L);
+		manager.close();
+
+		// corrupt the checksum of the last record
+		RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+		int position = 0;
+		int lastRecord = 0;
+		while (true) {
+			raf.seek(position);
+			int length = raf.readInt();
+			if (length == 0) {
+				break;
+			}
+			lastRecord = position;
+			position += length + 8;
+		}
+		raf.seek(lastRecord + 4);
+		raf.write(0x7f);
+		raf.close();
+
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfo info = recovered.retrieveRestart(identifier);
+		Assert.assertNotNull("earlier record should be recovered", info);
+		Assert.assertEquals(0L, info.getFileRestartDataSegments().get(0)
+				.getLength());
+		recovered.close();
+	}
+
+	@Test
+	public void testIncrementRestartAttempts() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile);
+		FileRestartInfo info = manager.retrieveRestartAndBuildIfNotStored(
+				buildIdentifier(), "/local/path", 1);
+		manager.incrementRestartAttempts(info);
+		manager.close();
+		FileBasedTransferRestartManager recovered = new FileBasedTransferRestartManager(
+				journalFile);
+		Assert.assertEquals(1, recovered.retrieveRestart(buildIdentifier())
+				.getNumberRestarts());
+		recovered.close();
+	}
+
+	@Test(expected = FileRestartManagementException.class)
+	public void testUpdateNonExistentSegment() throws Exception {
+		FileBasedTransferRestartManager manager = new FileBasedTransferRestartManager(
+				journalFile);
+		try {
+			FileRestartInfo info = manager.retrieveRestartAndBuildIfNotStored(
+					buildIdentifier(), "/local/path", 4);
+			manager.updateSegment(info, new FileRestartDataSegment(100));
+		} finally {
+			manager.close();
+		}
+	}
+
+	private FileRestartInfoIdentifier buildIdentifier() throws Exception {
+		IRODSAccount account = TestingPropertiesHelper.buildBogusIrodsAccount();
+		FileRestartInfoIdentifier identifier = new FileRestartInfoIdentifier();
+		identifier.setAbsolutePath("/irods/path");
+		identifier.setIrodsAccountIdentifier(account.toString());
+		identifier.setRestartType(RestartType.GET);
+		return identifier;
+	}
+
+}
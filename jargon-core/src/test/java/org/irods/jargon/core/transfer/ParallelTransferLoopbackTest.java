@@ -0,0 +1,358 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.TransferOptions;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/**
+ * Runs parallel gets and puts, in both stream and NIO modes, against a
+ * loopback stand-in for the iRODS parallel transfer port
+ */
+public class ParallelTransferLoopbackTest {
+
+	private static final int PASSWORD = 4242;
+	private static final int THREADS = 3;
+	private static final int FILE_LENGTH = 1024 * 1024 + 17;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private byte[] fileData;
+	private StandInParallelServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		fileData = new byte[FILE_LENGTH];
+		new Random(11).nextBytes(fileData);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	@Test
+	public void testParallelGetStreams() throws Exception {
+		doGet(false);
+	}
+
+	@Test
+	public void testParallelGetNIO() throws Exception {
+		doGet(true);
+	}
+
+	@Test
+	public void testParallelPutStreams() throws Exception {
+		doPut(false);
+	}
+
+	@Test
+	public void testParallelPutNIO() throws Exception {
+		doPut(true);
+	}
+
+	@Test
+	public void testParallelGetNIOTimesOutWhenPortStalls() throws Exception {
+		File localFile = new File(temporaryFolder.getRoot(), "get-stalled");
+		server = new StandInParallelServer(fileData, true, true);
+
+		ParallelGetFileTransferStrategy strategy = ParallelGetFileTransferStrategy
+				.instance("localhost", server.getPort(), THREADS, PASSWORD,
+						localFile, buildAccessObjectFactoryWithTimeout(1),
+						FILE_LENGTH, buildTransferControlBlock(), null, null);
+		try {
+			strategy.transfer();
+			Assert.fail("stalled port should fail the get");
+		} catch (JargonException e) {
+			// expected
+		}
+		server.awaitCompletion();
+	}
+
+	@Test
+	public void testParallelPutNIOTimesOutWhenPortStalls() throws Exception {
+		File localFile = new File(temporaryFolder.getRoot(), "put-stalled");
+		FileOutputStream out = new FileOutputStream(localFile);
+		try {
+			out.write(fileData);
+		} finally {
+			out.close();
+		}
+
+		server = new StandInParallelServer(new byte[FILE_LENGTH], false, true);
+
+		ParallelPutFileTransferStrategy strategy = ParallelPutFileTransferStrategy
+				.instance("localhost", server.getPort(), THREADS, PASSWORD,
+						localFile, buildAccessObjectFactoryWithTimeout(1),
+						FILE_LENGTH, buildTransferControlBlock(), null, null);
+		try {
+			strategy.transfer();
+			Assert.fail("stalled port should fail the put");
+		} catch (JargonException e) {
+			// expected
+		}
+		server.awaitCompletion();
+	}
+
+	private void doGet(final boolean useNIO) throws Exception {
+		File localFile = new File(temporaryFolder.getRoot(), "get-" + useNIO);
+		server = new StandInParallelServer(fileData, true);
+
+		ParallelGetFileTransferStrategy strategy = ParallelGetFileTransferStrategy
+				.instance("localhost", server.getPort(), THREADS, PASSWORD,
+						localFile, buildAccessObjectFactory(useNIO),
+						FILE_LENGTH, buildTransferControlBlock(), null, null);
+		strategy.transfer();
+		server.awaitCompletion();
+
+		byte[] actual = new byte[(int) localFile.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(
+				localFile));
+		try {
+			in.readFully(actual);
+		} finally {
+			in.close();
+		}
+
+		Assert.assertTrue("local file does not match data sent",
+				Arrays.equals(fileData, actual));
+	}
+
+	private void doPut(final boolean useNIO) throws Exception {
+		File localFile = new File(temporaryFolder.getRoot(), "put-" + useNIO);
+		FileOutputStream out = new FileOutputStream(localFile);
+		try {
+			out.write(fileData);
+		} finally {
+			out.close();
+		}
+
+		server = new StandInParallelServer(new byte[FILE_LENGTH], false);
+
+		ParallelPutFileTransferStrategy strategy = ParallelPutFileTransferStrategy
+				.instance("localhost", server.getPort(), THREADS, PASSWORD,
+						localFile, buildAccessObjectFactory(useNIO),
+						FILE_LENGTH, buildTransferControlBlock(), null, null);
+		strategy.transfer();
+		server.awaitCompletion();
+
+		Assert.assertTrue("data received does not match local file",
+				Arrays.equals(fileData, server.getData()));
+	}
+
+	private IRODSAccessObjectFactory buildAccessObjectFactory(
+			final boolean useNIO) throws Exception {
+		return buildAccessObjectFactory(buildJargonProperties(useNIO));
+	}
+
+	private IRODSAccessObjectFactory buildAccessObjectFactoryWithTimeout(
+			final int parallelSocketTimeout) throws Exception {
+		SettableJargonProperties jargonProperties = buildJargonProperties(true);
+		jargonProperties.setIrodsParallelSocketTimeout(parallelSocketTimeout);
+		return buildAccessObjectFactory(jargonProperties);
+	}
+
+	private SettableJargonProperties buildJargonProperties(final boolean useNIO)
+			throws Exception {
+		SettableJargonProperties jargonProperties = new SettableJargonProperties();
+		jargonProperties.setUseNIOForParallelTransfers(useNIO);
+		jargonProperties.setParallelCopyBufferSize(64 * 1024);
+		jargonProperties.setUseTransferThreadsPool(false);
+		return jargonProperties;
+	}
+
+	private IRODSAccessObjectFactory buildAccessObjectFactory(
+			final SettableJargonProperties jargonProperties) throws Exception {
+		PipelineConfiguration pipelineConfiguration = PipelineConfiguration
+				.instance(jargonProperties);
+
+		IRODSSession irodsSession = Mockito.mock(IRODSSession.class);
+		Mockito.when(irodsSession.getJargonProperties()).thenReturn(
+				jargonProperties);
+		Mockito.when(
+				irodsSession.buildPipelineConfigurationBasedOnJargonProperties())
+				.thenReturn(pipelineConfiguration);
+
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito
+				.mock(IRODSAccessObjectFactory.class);
+		Mockito.when(irodsAccessObjectFactory.getIrodsSession()).thenReturn(
+				irodsSession);
+		return irodsAccessObjectFactory;
+	}
+
+	private TransferControlBlock buildTransferControlBlock() throws Exception {
+		TransferControlBlock transferControlBlock = DefaultTransferControlBlock
+				.instance();
+		transferControlBlock.setTransferOptions(new TransferOptions());
+		return transferControlBlock;
+	}
+
+	/**
+	 * Accepts one connection per thread, checks the cookie, and then asks for
+	 * one segment of the file on each connection, the way iRODS does. A
+	 * stalled server checks the cookie and then sends nothing.
+	 */
+	static class StandInParallelServer {
+
+		private final ServerSocket serverSocket;
+		private final byte[] data;
+		private final boolean get;
+		private final boolean stalled;
+		private final Thread acceptThread;
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		StandInParallelServer(final byte[] data, final boolean get)
+				throws IOException {
+			this(data, get, false);
+		}
+
+		StandInParallelServer(final byte[] data, final boolean get,
+				final boolean stalled) throws IOException {
+			this.data = data;
+			this.get = get;
+			this.stalled = stalled;
+			serverSocket = new ServerSocket(0, THREADS,
+					InetAddress.getByName("localhost"));
+			acceptThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					serve();
+				}
+			});
+			acceptThread.start();
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		byte[] getData() {
+			return data;
+		}
+
+		void awaitCompletion() throws Exception {
+			acceptThread.join(30000);
+			Assert.assertFalse("stand-in server did not finish",
+					acceptThread.isAlive());
+			if (failure.get() != null) {
+				throw new Exception("stand-in server failed", failure.get());
+			}
+		}
+
+		void close() throws IOException {
+			serverSocket.close();
+		}
+
+		private void serve() {
+			final AtomicInteger segmentIndex = new AtomicInteger();
+			Thread[] workers = new Thread[THREADS];
+			try {
+				for (int i = 0; i < THREADS; i++) {
+					final Socket socket = serverSocket.accept();
+					workers[i] = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								handle(socket, segmentIndex.getAndIncrement());
+							} catch (Throwable e) {
+								failure.compareAndSet(null, e);
+							}
+						}
+					});
+					workers[i].start();
+				}
+				for (Thread worker : workers) {
+					worker.join();
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			}
+		}
+
+		private void handle(final Socket socket, final int segment)
+				throws IOException {
+			try {
+				DataInputStream in = new DataInputStream(
+						socket.getInputStream());
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(socket.getOutputStream()));
+
+				if (in.readInt() != PASSWORD) {
+					throw new IOException("bad cookie");
+				}
+
+				if (stalled) {
+					// hold the connection until the client gives up
+					try {
+						in.read();
+					} catch (IOException e) {
+						// reset by the client is fine here
+					}
+					return;
+				}
+
+				int segmentLength = data.length / THREADS;
+				int offset = segment * segmentLength;
+				int length = segment == THREADS - 1 ? data.length - offset
+						: segmentLength;
+
+				out.writeInt(get ? AbstractParallelTransferThread.GET_OPR
+						: AbstractParallelTransferThread.PUT_OPR);
+				out.writeInt(0);
+				out.writeLong(offset);
+				out.writeLong(length);
+
+				if (get) {
+					out.write(data, offset, length);
+				} else {
+					out.flush();
+					in.readFully(data, offset, length);
+				}
+
+				out.writeInt(AbstractParallelTransferThread.DONE_OPR);
+				out.writeInt(0);
+				out.writeLong(0);
+				out.writeLong(0);
+				out.flush();
+
+				// wait for the client to hang up
+				try {
+					in.read();
+				} catch (IOException e) {
+					// reset by the client is fine here
+				}
+			} finally {
+				socket.close();
+			}
+		}
+	}
+
+}
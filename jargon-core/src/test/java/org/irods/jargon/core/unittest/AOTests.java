@@ -1,5 +1,7 @@
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.pub.AsyncAccessObjectExecutorImplTest;
+import org.irods.jargon.core.pub.BulkFileOperationUtilsTest;
 import org.irods.jargon.core.pub.BulkFileOperationsAOImplTest;
 import org.irods.jargon.core.pub.CollectionAOImplForSoftLinkTest;
 import org.irods.jargon.core.pub.CollectionAOImplTest;
@@ -7,6 +9,8 @@ import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAOImplForSo
 import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAOImplTest;
 import org.irods.jargon.core.pub.CollectionAuditAOImplTest;
 import org.irods.jargon.core.pub.CollectionListingUtilsTest;
+import org.irods.jargon.core.pub.ConcurrentCollectionTransferEngineTest;
+import org.irods.jargon.core.pub.DataAOHelperTest;
 import org.irods.jargon.core.pub.DataObjectAOImplForSoftLinkTest;
 import org.irods.jargon.core.pub.DataObjectAOImplTest;
 import org.irods.jargon.core.pub.DataObjectAuditAOImplTest;
@@ -84,7 +88,9 @@ import org.junit.runners.Suite;
 		MountedFilesystemCollectionAOImplTest.class,
 		IRODSFileSystemSingletonWrapperTest.class, ResourceAOHelperTest.class,
 		DataObjectChecksumUtilitiesAOImplTest.class,
-		CollectionListingUtilsTest.class })
+		CollectionListingUtilsTest.class, BulkFileOperationUtilsTest.class,
+		AsyncAccessObjectExecutorImplTest.class,
+		ConcurrentCollectionTransferEngineTest.class, DataAOHelperTest.class })
 /**
  * Suite to run Access Object tests in org.irods.jargon.pub.*
  * <p/>
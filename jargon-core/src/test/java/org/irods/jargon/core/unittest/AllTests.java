@@ -1,5 +1,7 @@
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.instrumentation.HistogramTest;
+import org.irods.jargon.core.instrumentation.JmxMetricsRegistryTest;
 import org.irods.jargon.core.query.IRODSGenQueryTest;
 import org.irods.jargon.core.query.IRODSGenQueryTranslatorTest;
 import org.irods.jargon.core.query.TranslatedIRODSQueryTest;
@@ -20,7 +22,8 @@ import org.junit.runners.Suite;
 		LocalFileUtilsTest.class, RemoteExecuteServiceImplTest.class,
 		IRODSPasswordUtilitiesTest.class, IRODSUriUtilsTest.class,
 		IRODSUriUserInfoTest.class, MiscIRODSUtilsTest.class,
-		AuthTests.class, ChecksumTests.class, TransferRestartTests.class })
+		AuthTests.class, ChecksumTests.class, TransferRestartTests.class,
+		HistogramTest.class, JmxMetricsRegistryTest.class })
 /**
  * Suite to run all tests (except long running and functional), further refined by settings in testing.properites.  Some subtests may be shut
  * off by these properties.
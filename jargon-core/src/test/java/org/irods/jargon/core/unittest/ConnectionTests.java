@@ -1,14 +1,19 @@
 package org.irods.jargon.core.unittest;
 
+import org.irods.jargon.core.connection.AbstractConnectionTest;
 import org.irods.jargon.core.connection.ConnectionProgressStatusTest;
 import org.irods.jargon.core.connection.DefaultPropertiesJargonConfigTest;
 import org.irods.jargon.core.connection.DiscoveredServerPropertiesCacheTest;
 import org.irods.jargon.core.connection.EnvironmentalInfoAccessorTest;
 import org.irods.jargon.core.connection.IRODSAccountTest;
+import org.irods.jargon.core.connection.IRODSMidLevelProtocolLockingTest;
+import org.irods.jargon.core.connection.IRODSMidLevelProtocolPipelineTest;
+import org.irods.jargon.core.connection.IRODSPoolingProtocolManagerTest;
 import org.irods.jargon.core.connection.IRODSServerPropertiesTest;
 import org.irods.jargon.core.connection.IRODSSessionTest;
 import org.irods.jargon.core.connection.IRODSSimpleConnectionTest;
 import org.irods.jargon.core.connection.IRODSSimpleProtocolManagerTest;
+import org.irods.jargon.core.connection.ObjStatCacheTest;
 import org.irods.jargon.core.connection.PAMAuthTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -20,7 +25,10 @@ import org.junit.runners.Suite;
 		IRODSServerPropertiesTest.class,
 		DefaultPropertiesJargonConfigTest.class,
 		ConnectionProgressStatusTest.class, PAMAuthTest.class,
-		DiscoveredServerPropertiesCacheTest.class, IRODSAccountTest.class })
+		DiscoveredServerPropertiesCacheTest.class, IRODSAccountTest.class,
+		IRODSPoolingProtocolManagerTest.class,
+		IRODSMidLevelProtocolPipelineTest.class, AbstractConnectionTest.class,
+		IRODSMidLevelProtocolLockingTest.class, ObjStatCacheTest.class })
 public class ConnectionTests {
 
 }
@@ -19,9 +19,12 @@ import org.irods.jargon.core.pub.io.MountedFilesystemIRODSFileImplTest;
 import org.irods.jargon.core.pub.io.MountedFilesystemIRODSFileOutputStreamTest;
 import org.irods.jargon.core.pub.io.PackingIrodsInputStreamTest;
 import org.irods.jargon.core.pub.io.PackingIrodsOutputStreamTest;
+import org.irods.jargon.core.pub.io.RandomAccessBlockCacheTest;
+import org.irods.jargon.core.pub.io.ReadAheadIrodsInputStreamTest;
 import org.irods.jargon.core.pub.io.RemoteExecutionBinaryResultInputStreamTest;
 import org.irods.jargon.core.pub.io.SessionClosingIRODSFIleInputStreamTest;
 import org.irods.jargon.core.pub.io.SessionClosingIRODSFileOutputStreamTest;
+import org.irods.jargon.core.pub.io.WriteBehindIrodsOutputStreamTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -41,7 +44,10 @@ import org.junit.runners.Suite;
 		MountedFilesystemIRODSFileImplTest.class,
 		MountedFileSystemIRODSFileInputStreamTest.class,
 		MountedFilesystemIRODSFileOutputStreamTest.class,
-		PackingIrodsOutputStreamTest.class, PackingIrodsInputStreamTest.class })
+		PackingIrodsOutputStreamTest.class, PackingIrodsInputStreamTest.class,
+		ReadAheadIrodsInputStreamTest.class,
+		WriteBehindIrodsOutputStreamTest.class,
+		RandomAccessBlockCacheTest.class })
 public class FileTests {
 
 }
@@ -8,7 +8,9 @@ import org.irods.jargon.core.query.GenQuerySelectFieldTest;
 import org.irods.jargon.core.query.IRODSGenQueryBuilderTest;
 import org.irods.jargon.core.query.IRODSGenQueryFromBuilderTest;
 import org.irods.jargon.core.query.IRODSGenQueryTranslatorTest;
+import org.irods.jargon.core.query.IRODSQueryResultRowIteratorTest;
 import org.irods.jargon.core.query.IRODSSimpleQueryResultSetTest;
+import org.irods.jargon.core.query.QueryResultProcessingUtilsTest;
 import org.irods.jargon.core.query.SimpleQueryTest;
 import org.irods.jargon.core.query.TranslatedIRODSQueryTest;
 import org.irods.jargon.core.query.UserFilePermissionTest;
@@ -20,7 +22,9 @@ import org.junit.runners.Suite;
 		GenQuerySelectFieldTest.class, TranslatedIRODSQueryTest.class,
 		AVUQueryElementTest.class, SimpleQueryTest.class,
 		IRODSSimpleQueryResultSetTest.class, UserFilePermissionTest.class,
-		IRODSGenQueryBuilderTest.class, IRODSGenQueryFromBuilderTest.class })
+		IRODSGenQueryBuilderTest.class, IRODSGenQueryFromBuilderTest.class,
+		QueryResultProcessingUtilsTest.class,
+		IRODSQueryResultRowIteratorTest.class })
 public class IRODSQueryTests {
 
 }
@@ -28,6 +28,8 @@ import org.irods.jargon.core.packinstr.SSLStartInpTest;
 import org.irods.jargon.core.packinstr.SimpleQueryInpTest;
 import org.irods.jargon.core.packinstr.SpecificQueryInpTest;
 import org.irods.jargon.core.packinstr.StructFileExtAndRegInpTest;
+import org.irods.jargon.core.packinstr.TagEncoderTest;
+import org.irods.jargon.core.packinstr.TagParserTest;
 import org.irods.jargon.core.packinstr.TransferOptionsTest;
 import org.irods.jargon.core.packinstr.UserAdminInpTest;
 import org.junit.runner.RunWith;
@@ -48,7 +50,8 @@ import org.junit.runners.Suite;
 		DataObjInpForMcollTest.class, DataObjInpForUnmountTest.class,
 		ReconnMsgTest.class, SpecificQueryInpTest.class,
 		PamAuthRequestInpTest.class, SSLStartInpTest.class,
-		SSLEndInpTest.class, AuthReqPluginRequestInpTest.class })
+		SSLEndInpTest.class, AuthReqPluginRequestInpTest.class,
+		TagParserTest.class, TagEncoderTest.class })
 public class PackingInstructionTests {
 
 }
@@ -21,8 +21,11 @@ import org.slf4j.LoggerFactory;
  * for now, this is narrowly focused.
  * 
  * @author Mike Conway - DICE (www.irods.org)
- * 
+ * @deprecated the {@link TempPasswordCachingProtocolManager} is now based on
+ *             the pooling protocol manager in jargon-core and no longer uses
+ *             this factory
  */
+@Deprecated
 public class ConnectionCreatingPoolableObjectFactory implements
 		PoolableObjectFactory {
 
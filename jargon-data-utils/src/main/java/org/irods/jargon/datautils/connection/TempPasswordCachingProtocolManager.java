@@ -1,34 +1,37 @@
 package org.irods.jargon.datautils.connection;
 
-import org.apache.commons.pool.impl.GenericObjectPool;
-import org.apache.commons.pool.impl.GenericObjectPool.Config;
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.connection.IRODSAccount;
-import org.irods.jargon.core.connection.IRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.IRODSPoolingProtocolManager;
 import org.irods.jargon.core.connection.IRODSProtocolManager;
+import org.irods.jargon.core.connection.IRODSProtocolPoolConfiguration;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.connection.PipelineConfiguration;
+import org.irods.jargon.core.exception.AuthenticationException;
 import org.irods.jargon.core.exception.JargonException;
-import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Special variant of the {@link IRODSProtocolMangaer} that caches a temporary
+ * Special variant of the {@link IRODSProtocolManager} that caches a temporary
  * password and only returns that one connection. This effectively shares that
  * single connection.
- * 
+ * <p/>
+ * This is now a specialization of the {@link IRODSPoolingProtocolManager},
+ * configured as a pool of exactly one connection that is never evicted or
+ * renewed, as the temporary password cannot be used again. Callers will block
+ * until the single connection is returned.
+ *
  * @author Mike Conway - DICE (www.irods.org)
- * 
+ *
  */
-public class TempPasswordCachingProtocolManager extends IRODSProtocolManager {
+public class TempPasswordCachingProtocolManager extends
+		IRODSPoolingProtocolManager {
 
 	private final IRODSAccount irodsAccount;
 	private final IRODSSession irodsSession;
 	private final IRODSProtocolManager baseProtocolManager;
 
-	private GenericObjectPool objectPool = null;
-
 	private final Logger log = LoggerFactory
 			.getLogger(TempPasswordCachingProtocolManager.class);
 
@@ -38,7 +41,7 @@ public class TempPasswordCachingProtocolManager extends IRODSProtocolManager {
 	 * This allows client applications to (somewhat) transparently simulate the
 	 * ability to get a connection on-demand. This is used in idrop-lite, for
 	 * example.
-	 * 
+	 *
 	 * @param irodsAccount
 	 *            {@link IRODSAccount} for the underlying cached account
 	 * @param irodsSession
@@ -52,7 +55,7 @@ public class TempPasswordCachingProtocolManager extends IRODSProtocolManager {
 			final IRODSSession irodsSession,
 			final IRODSProtocolManager baseProtocolManager)
 			throws JargonException {
-		super();
+		super(buildSingleConnectionConfiguration());
 
 		if (irodsAccount == null) {
 			throw new IllegalArgumentException("null irodsAccount");
@@ -69,80 +72,69 @@ public class TempPasswordCachingProtocolManager extends IRODSProtocolManager {
 		this.irodsAccount = irodsAccount;
 		this.irodsSession = irodsSession;
 		this.baseProtocolManager = baseProtocolManager;
+		log.info("caching iRODS account:{}", irodsAccount);
 
 		initialize();
 
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.irods.jargon.core.connection.AbstractIRODSProtocolManager#
-	 * getIRODSProtocol(org.irods.jargon.core.connection.IRODSAccount,
-	 * org.irods.jargon.core.connection.PipelineConfiguration)
+	/**
+	 * Pool of one connection, blocking callers until it is returned, and
+	 * never discarding it unless it fails
 	 */
-	@Override
-	public IRODSMidLevelProtocol getIRODSProtocol(
-			final IRODSAccount irodsAccount,
-			final PipelineConfiguration pipelineConfiguration,
-			final IRODSSession irodsSession) throws JargonException {
-		try {
-			IRODSMidLevelProtocol command = (IRODSMidLevelProtocol) objectPool
-					.borrowObject();
-
-			command.setIrodsProtocolManager(this);
-			return command;
-		} catch (Exception e) {
-			throw new JargonException(e);
-		}
+	private static IRODSProtocolPoolConfiguration buildSingleConnectionConfiguration() {
+		IRODSProtocolPoolConfiguration config = new IRODSProtocolPoolConfiguration();
+		config.setMaxTotalPerAccount(1);
+		config.setMaxIdlePerAccount(1);
+		config.setMinIdlePerAccount(0);
+		config.setMaxWaitMillis(-1);
+		config.setTestOnBorrow(false);
+		config.setIdleEvictionTimeMillis(0);
+		config.setEvictionRunIntervalMillis(0);
+		config.setHonorSocketRenewalInterval(false);
+		return config;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * 
+	 *
 	 * @see
-	 * org.irods.jargon.core.connection.AbstractIRODSProtocolManager#destroy()
+	 * org.irods.jargon.core.connection.IRODSPoolingProtocolManager#getIRODSProtocol
+	 * (org.irods.jargon.core.connection.IRODSAccount,
+	 * org.irods.jargon.core.connection.PipelineConfiguration,
+	 * org.irods.jargon.core.connection.IRODSSession)
 	 */
 	@Override
-	public void destroy() throws JargonException {
-		log.info("destroy");
-		try {
-			objectPool.clear();
-			objectPool.close();
-		} catch (Exception e) {
-			log.error("exception calling close, which closes objectPool", e);
-			throw new JargonException(e);
-		}
+	public AbstractIRODSMidLevelProtocol getIRODSProtocol(
+			final IRODSAccount irodsAccount,
+			final PipelineConfiguration pipelineConfiguration,
+			final IRODSSession irodsSession) throws AuthenticationException,
+			JargonException {
+		/*
+		 * the cached account is always used, so that all callers share the one
+		 * temporary password connection
+		 */
+		return super.getIRODSProtocol(this.irodsAccount,
+				pipelineConfiguration, this.irodsSession);
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * 
-	 * @see
-	 * org.irods.jargon.core.connection.AbstractIRODSProtocolManager#initialize
-	 * ()
+	 *
+	 * @see org.irods.jargon.core.connection.IRODSPoolingProtocolManager#
+	 * createProtocolForPool(org.irods.jargon.core.connection.IRODSAccount,
+	 * org.irods.jargon.core.connection.PipelineConfiguration,
+	 * org.irods.jargon.core.connection.IRODSSession)
 	 */
 	@Override
-	public void initialize() throws JargonException {
-		log.info("initialize()");
-
-		if (irodsAccount == null) {
-			throw new JargonRuntimeException(
-					"null irodsAccount, initialize cannot be called");
-		}
-
-		log.info("creating factory for conns");
-		ConnectionCreatingPoolableObjectFactory factory = new ConnectionCreatingPoolableObjectFactory(
-				irodsAccount, irodsSession, baseProtocolManager);
-		log.info("factory created, setting up config and creating pool");
-		GenericObjectPool.Config config = new Config();
-		config.maxActive = 1;
-		config.maxIdle = 1;
-		config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
-
-		objectPool = new GenericObjectPool(factory, config);
-		log.info("pool initialized");
-
+	protected AbstractIRODSMidLevelProtocol createProtocolForPool(
+			final IRODSAccount irodsAccount,
+			final PipelineConfiguration pipelineConfiguration,
+			final IRODSSession irodsSession) throws AuthenticationException,
+			JargonException {
+		log.info("creating cached connection using base protocol manager");
+		return baseProtocolManager.getIRODSProtocol(irodsAccount,
+				pipelineConfiguration, irodsSession);
 	}
 
 	/**
@@ -152,23 +144,4 @@ public class TempPasswordCachingProtocolManager extends IRODSProtocolManager {
 		return irodsAccount;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see
-	 * org.irods.jargon.core.connection.IRODSProtocolManager#returnIRODSProtocol
-	 * (org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol)
-	 */
-	@Override
-	public void returnIRODSProtocol(
-			final AbstractIRODSMidLevelProtocol abstractIRODSMidLevelProtocol)
-			throws JargonException {
-		try {
-			objectPool.returnObject(abstractIRODSMidLevelProtocol);
-		} catch (Exception e) {
-			log.error("error returning connection", e);
-			throw new JargonException("error returning connection to pool", e);
-		}
-	}
-
 }
@@ -2,6 +2,8 @@ package org.irods.jargon.datautils.datacache;
 
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.KeySpec;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -20,6 +22,27 @@ public class CacheEncryptor {
 	private static final Logger log = LoggerFactory
 			.getLogger(CacheEncryptor.class);
 
+	/**
+	 * Most encryptors kept by {@link #instance(String)}
+	 */
+	public static final int MAX_CACHED_ENCRYPTORS = 256;
+
+	/**
+	 * Encryptors by pass phrase, least recently used first, so the key is
+	 * derived and the ciphers created once per pass phrase rather than on
+	 * every cache request
+	 */
+	private static final Map<String, CacheEncryptor> encryptors = new LinkedHashMap<String, CacheEncryptor>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, CacheEncryptor> eldest) {
+			return size() > MAX_CACHED_ENCRYPTORS;
+		}
+	};
+
 	Cipher ecipher;
 	Cipher dcipher;
 
@@ -30,6 +53,30 @@ public class CacheEncryptor {
 	// Iteration count
 	int iterationCount = 19;
 
+	/**
+	 * Get an encryptor for the given pass phrase, reusing the one made for an
+	 * earlier request with the same pass phrase if it is still cached
+	 * 
+	 * @param passPhrase
+	 *            <code>String</code> with the pass phrase the key is derived
+	 *            from
+	 * @return {@link CacheEncryptor}
+	 */
+	public static CacheEncryptor instance(final String passPhrase) {
+		if (passPhrase == null) {
+			throw new IllegalArgumentException("null passPhrase");
+		}
+
+		synchronized (encryptors) {
+			CacheEncryptor cacheEncryptor = encryptors.get(passPhrase);
+			if (cacheEncryptor == null) {
+				cacheEncryptor = new CacheEncryptor(passPhrase);
+				encryptors.put(passPhrase, cacheEncryptor);
+			}
+			return cacheEncryptor;
+		}
+	}
+
 	public CacheEncryptor(final String passPhrase) {
 		log.info("CacheEncryptor()");
 		try {
@@ -71,7 +118,8 @@ public class CacheEncryptor {
 		}
 	}
 
-	public byte[] encrypt(final byte[] data) throws JargonException {
+	public synchronized byte[] encrypt(final byte[] data)
+			throws JargonException {
 		try {
 			// Encrypt
 			byte[] enc = ecipher.doFinal(data);
@@ -84,7 +132,8 @@ public class CacheEncryptor {
 		}
 	}
 
-	public byte[] decrypt(final byte[] data) throws JargonException {
+	public synchronized byte[] decrypt(final byte[] data)
+			throws JargonException {
 		try {
 			// Decrypt
 			byte[] decoded = dcipher.doFinal(data);
@@ -107,7 +156,8 @@ public class CacheEncryptor {
 	 * @return <code>String</code> Encrypted version of the provided String
 	 */
 	@SuppressWarnings("restriction")
-	public String encrypt(final String str) throws JargonException {
+	public synchronized String encrypt(final String str)
+			throws JargonException {
 		try {
 			// Encode the string into bytes using utf-8
 			byte[] utf8 = str.getBytes("UTF8");
@@ -133,7 +183,8 @@ public class CacheEncryptor {
 	 * @return <code>String</code> Decrypted version of the provided String
 	 */
 	@SuppressWarnings("restriction")
-	public String decrypt(final String str) throws JargonException {
+	public synchronized String decrypt(final String str)
+			throws JargonException {
 
 		try {
 
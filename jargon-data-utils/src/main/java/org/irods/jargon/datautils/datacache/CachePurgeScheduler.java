@@ -0,0 +1,95 @@
+package org.irods.jargon.datautils.datacache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the purge of old cache files on a background thread, so a cache request
+ * does not wait on it, and at most once per interval for each cache
+ * directory, however many requests ask for it
+ */
+final class CachePurgeScheduler {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(CachePurgeScheduler.class);
+
+	private static final CachePurgeScheduler instance = new CachePurgeScheduler();
+
+	private final ConcurrentHashMap<String, Long> lastScheduledByCacheDir = new ConcurrentHashMap<String, Long>();
+	private final ExecutorService executor = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					Thread thread = new Thread(runnable, "data-cache-purge");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * @return the scheduler shared by all cache services
+	 */
+	static CachePurgeScheduler instance() {
+		return instance;
+	}
+
+	private CachePurgeScheduler() {
+	}
+
+	/**
+	 * Schedule a purge of the given cache directory, unless one was scheduled
+	 * within the interval
+	 *
+	 * @param cacheDirKey
+	 *            <code>String</code> that identifies the cache directory
+	 * @param intervalMillis
+	 *            <code>long</code> with the least time between purges of the
+	 *            directory
+	 * @param purge
+	 *            <code>Runnable</code> that does the purge
+	 * @return <code>boolean</code> that is <code>true</code> if the purge was
+	 *         scheduled
+	 */
+	boolean schedulePurge(final String cacheDirKey, final long intervalMillis,
+			final Runnable purge) {
+		long now = System.currentTimeMillis();
+		Long lastScheduled = lastScheduledByCacheDir.get(cacheDirKey);
+
+		if (lastScheduled == null) {
+			if (lastScheduledByCacheDir.putIfAbsent(cacheDirKey, now) != null) {
+				return false;
+			}
+		} else if (now - lastScheduled < intervalMillis
+				|| !lastScheduledByCacheDir.replace(cacheDirKey, lastScheduled,
+						now)) {
+			return false;
+		}
+
+		log.info("scheduling purge of cache dir:{}", cacheDirKey);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					purge.run();
+				} catch (RuntimeException e) {
+					log.error("error purging cache dir:{}", cacheDirKey, e);
+				}
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Forget when each directory was last purged, so the next request
+	 * schedules a purge
+	 */
+	void reset() {
+		lastScheduledByCacheDir.clear();
+	}
+
+}
@@ -9,11 +9,17 @@ package org.irods.jargon.datautils.datacache;
 public class CacheServiceConfiguration {
 
 	/**
-	 * Clean up old cache files during each request (might create a slight
-	 * response delay for large caches.
+	 * Clean up old cache files as part of requests. The cleanup runs in the
+	 * background, at most once per <code>purgeIntervalMillis</code> for each
+	 * cache directory, so requests do not wait on it.
 	 */
 	private boolean doCleanupDuringRequests = true;
 
+	/**
+	 * Least time between cleanups of a cache directory started by requests
+	 */
+	private long purgeIntervalMillis = 15 * 60 * 1000;
+
 	/**
 	 * Cache is created per user home dir
 	 */
@@ -49,6 +55,8 @@ public class CacheServiceConfiguration {
 		sb.append(cacheInHomeDir);
 		sb.append("\n    cacheDirPath:");
 		sb.append(cacheDirPath);
+		sb.append("\n    purgeIntervalMillis:");
+		sb.append(purgeIntervalMillis);
 		return sb.toString();
 	}
 
@@ -90,4 +98,19 @@ public class CacheServiceConfiguration {
 		this.cacheDirPath = cacheDirPath;
 	}
 
+	/**
+	 * @return the purgeIntervalMillis
+	 */
+	public long getPurgeIntervalMillis() {
+		return purgeIntervalMillis;
+	}
+
+	/**
+	 * @param purgeIntervalMillis
+	 *            the purgeIntervalMillis to set
+	 */
+	public void setPurgeIntervalMillis(final long purgeIntervalMillis) {
+		this.purgeIntervalMillis = purgeIntervalMillis;
+	}
+
 }
@@ -7,7 +7,11 @@ import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 
 /**
- * Factory for creating <code>DataCacheService</code> components.
+ * Factory for creating <code>DataCacheService</code> components. The services
+ * created by one factory may share a {@link LocalCacheTier}, so values cached
+ * by one request are served to the next without a trip to iRODS. There is no
+ * tier unless one is given, as a tier does not see values put by other
+ * processes until its lifetime has passed.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -15,15 +19,39 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 public class DataCacheServiceFactoryImpl implements DataCacheServiceFactory {
 
 	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final LocalCacheTier localCacheTier;
 
+	/**
+	 * Constructor for a factory whose services always go to iRODS
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory}
+	 */
 	public DataCacheServiceFactoryImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccessObjectFactory, null);
+	}
+
+	/**
+	 * Constructor for a factory whose services share the given
+	 * {@link LocalCacheTier}
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory}
+	 * @param localCacheTier
+	 *            {@link LocalCacheTier} shared by the services, or
+	 *            <code>null</code> to always go to iRODS
+	 */
+	public DataCacheServiceFactoryImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final LocalCacheTier localCacheTier) {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
 					"irodsAccessObjectFactory is null");
 		}
 
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.localCacheTier = localCacheTier;
 
 	}
 
@@ -40,7 +68,10 @@ public class DataCacheServiceFactoryImpl implements DataCacheServiceFactory {
 		if (irodsAccount == null) {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
-		return new DataCacheServiceImpl(irodsAccessObjectFactory, irodsAccount);
+		DataCacheServiceImpl dataCacheService = new DataCacheServiceImpl(
+				irodsAccessObjectFactory, irodsAccount);
+		dataCacheService.setLocalCacheTier(localCacheTier);
+		return dataCacheService;
 	}
 
 }
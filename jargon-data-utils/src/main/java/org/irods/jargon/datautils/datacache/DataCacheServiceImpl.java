@@ -2,18 +2,28 @@ package org.irods.jargon.datautils.datacache;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.BulkFileOperationResponse;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
 import org.irods.jargon.core.pub.Stream2StreamAO;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.datautils.AbstractDataUtilsServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +32,15 @@ import org.slf4j.LoggerFactory;
  * Service to provide a secure data cache. This allows information to be
  * serialized by a key and stored as an iRODS file in an encrypted format, and
  * later retrieved.
+ * <p/>
+ * If a {@link LocalCacheTier} is set, values are kept there as well, in their
+ * encrypted form, and a retrieve is answered from the tier when it can be.
+ * There is no tier unless one is set. A value in the tier is not served past
+ * the lifetime of its cache file in the {@link CacheServiceConfiguration},
+ * and a value put by another process is not seen until the tier's own
+ * lifetime has passed.
+ * Cleanup of old cache files, if configured, is done by a background thread
+ * rather than during the request.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -38,6 +57,17 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 	 */
 	CacheServiceConfiguration cacheServiceConfiguration = new CacheServiceConfiguration();
 
+	/**
+	 * Local tier in front of the iRODS cache files, <code>null</code> unless
+	 * one is set
+	 */
+	private LocalCacheTier localCacheTier = null;
+
+	/**
+	 * Rows asked for per page when finding old cache files to purge
+	 */
+	private static final int PURGE_QUERY_PAGE_SIZE = 500;
+
 	public static final Logger log = LoggerFactory
 			.getLogger(DataCacheServiceImpl.class);
 
@@ -85,18 +115,31 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		log.info("putStringValueIntoCache()");
 
 		log.info("checking on purge of old requests...");
+		schedulePurgeOfOldRequests();
 
-		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
-		}
+		return encryptAndStoreInCache(stringToCache.getBytes(), key);
+
+	}
 
+	/**
+	 * Encrypt the given bytes by the key, and store them in the cache file for
+	 * the key and in the local tier
+	 * 
+	 * @param data
+	 *            <code>byte[]</code> with the data to cache
+	 * @param key
+	 *            <code>String</code> with the key
+	 * @return <code>String</code> with the absolute path to the cache file
+	 * @throws JargonException
+	 */
+	private String encryptAndStoreInCache(final byte[] data, final String key)
+			throws JargonException {
 		int keyHash = key.hashCode();
 		log.info("generated hash for key:{}", keyHash);
-		byte[] stringData = stringToCache.getBytes();
 		log.info("encrypting...");
 
-		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
-		byte[] encrypted = cacheEncryptor.encrypt(stringData);
+		CacheEncryptor cacheEncryptor = CacheEncryptor.instance(key);
+		byte[] encrypted = cacheEncryptor.encrypt(data);
 		log.info("bytes now encrypted for length:{}", encrypted.length);
 		// store in file
 
@@ -112,9 +155,72 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 				.getStream2StreamAO(irodsAccount);
 		stream2StreamAO.streamBytesToIRODSFile(encrypted, cacheFile);
 
+		if (localCacheTier != null) {
+			localCacheTier.put(buildLocalCacheKey(irodsFileAbsolutePath),
+					encrypted,
+					System.currentTimeMillis() + computeCacheLifetimeMillis());
+		}
+
 		log.info("done...");
 		return irodsFileAbsolutePath;
+	}
+
+	/**
+	 * Find the data cached for the key, from the local tier if it is there,
+	 * otherwise from the cache file, and decrypt it
+	 * 
+	 * @param key
+	 *            <code>String</code> with the key
+	 * @return <code>byte[]</code> with the decrypted data
+	 * @throws JargonException
+	 */
+	private byte[] retrieveAndDecryptFromCache(final String key)
+			throws JargonException {
+		// build hash of key and look for file
+		int keyHash = key.hashCode();
+		log.info("generated hash for key:{}", keyHash);
+		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
+				irodsAccount.getUserName());
+
+		String localCacheKey = buildLocalCacheKey(irodsFileAbsolutePath);
+		byte[] fileBytes = null;
+		if (localCacheTier != null) {
+			fileBytes = localCacheTier.get(localCacheKey);
+		}
+
+		if (fileBytes == null) {
+			log.info("looking for cache file at path:{}",
+					irodsFileAbsolutePath);
+			IRODSFile cacheFile = getIrodsAccessObjectFactory()
+					.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+							irodsFileAbsolutePath);
+			Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
+					.getStream2StreamAO(irodsAccount);
+			fileBytes = stream2StreamAO.streamFileToByte(cacheFile);
+			if (localCacheTier != null) {
+				// not served once the cache file is old enough to be purged
+				localCacheTier.put(localCacheKey, fileBytes,
+						cacheFile.lastModified()
+								+ computeCacheLifetimeMillis());
+			}
+		} else {
+			log.info("found cache file contents in local tier");
+		}
 
+		log.info("decrypting data based on provided key....");
+		CacheEncryptor cacheEncryptor = CacheEncryptor.instance(key);
+		byte[] decrypted = cacheEncryptor.decrypt(fileBytes);
+		log.info("decrypted data for length of: {}", decrypted.length);
+		return decrypted;
+	}
+
+	/**
+	 * @return <code>long</code> with the lifetime of a cache file in millis,
+	 *         after which it is purged
+	 */
+	private long computeCacheLifetimeMillis() {
+		return (long) getCacheServiceConfiguration().getLifetimeInDays() * 60
+				* 1000 * 60 * 24;
 	}
 
 	/**
@@ -153,27 +259,8 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 
 		checkContracts();
 
-		// build hash of key and look for file
-		int keyHash = key.hashCode();
-		log.info("generated hash for key:{}", keyHash);
-		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
-				irodsAccount.getUserName());
-		log.info("looking for cache file at path:{}", irodsFileAbsolutePath);
-		IRODSFile cacheFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						irodsFileAbsolutePath);
-		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
-				.getStream2StreamAO(irodsAccount);
-		byte[] fileBytes = stream2StreamAO.streamFileToByte(cacheFile);
-		log.info("decrypting data based on provided key....");
-		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
-		fileBytes = cacheEncryptor.decrypt(fileBytes);
-
-		log.info("streamed file into bytes for length of: {}", fileBytes.length);
-		log.info("deserialzing...");
-		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
-		}
+		byte[] fileBytes = retrieveAndDecryptFromCache(key);
+		schedulePurgeOfOldRequests();
 		return new String(fileBytes);
 
 	}
@@ -200,17 +287,8 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		checkContracts();
 		log.info("putInformationIntoCache()");
 
-		// clean up old files? (or in a sep thread?) make an option based on
-		// created date and window
-
 		log.info("checking on purge of old requests...");
-
-		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
-		}
-
-		int keyHash = key.hashCode();
-		log.info("generated hash for key:{}", keyHash);
+		schedulePurgeOfOldRequests();
 
 		// serialize and encrypt object
 		log.info("serializing object to byte buffer...");
@@ -218,27 +296,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 				informationObject, key);
 		log.info("object serialized into:{} bytes", serializedObject.length);
 
-		log.info("encrypting...");
-
-		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
-		byte[] encrypted = cacheEncryptor.encrypt(serializedObject);
-		log.info("bytes now encrypted for length:{}", encrypted.length);
-		// store in file
-
-		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
-				irodsAccount.getUserName());
-		log.info("storing to file at absolute path: {}", irodsFileAbsolutePath);
-		IRODSFile cacheFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						irodsFileAbsolutePath);
-		createCacheFileAndCacheDir(cacheFile);
-
-		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
-				.getStream2StreamAO(irodsAccount);
-		stream2StreamAO.streamBytesToIRODSFile(encrypted, cacheFile);
-
-		log.info("done...");
-		return irodsFileAbsolutePath;
+		return encryptAndStoreInCache(serializedObject, key);
 
 	}
 
@@ -265,27 +323,9 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 
 		checkContracts();
 
-		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
-		}
-
-		// build hash of key and look for file
-		int keyHash = key.hashCode();
-		log.info("generated hash for key:{}", keyHash);
-		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
-				irodsAccount.getUserName());
-		log.info("looking for cache file at path:{}", irodsFileAbsolutePath);
-		IRODSFile cacheFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						irodsFileAbsolutePath);
-		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
-				.getStream2StreamAO(irodsAccount);
-		byte[] fileBytes = stream2StreamAO.streamFileToByte(cacheFile);
-		log.info("decrypting data based on provided key....");
-		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
-		fileBytes = cacheEncryptor.decrypt(fileBytes);
+		schedulePurgeOfOldRequests();
 
-		log.info("streamed file into bytes for length of: {}", fileBytes.length);
+		byte[] fileBytes = retrieveAndDecryptFromCache(key);
 		log.info("deserialzing...");
 		return deserializeStreamToObject(fileBytes, key);
 
@@ -387,48 +427,155 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 	@Override
 	public void purgeOldRequests() throws JargonException {
 		log.info("purgeOldRequests()");
-		long daysToMillis = (long) getCacheServiceConfiguration()
-				.getLifetimeInDays() * 60 * 1000 * 60 * 24;
+		checkContracts();
+		long daysToMillis = computeCacheLifetimeMillis();
 		long millisNow = System.currentTimeMillis();
 		long purgeThreshold = millisNow - daysToMillis;
 		log.info("purge threshold:{}", purgeThreshold);
 		log.info("millis now:{}", millisNow);
 
-		IRODSFile cacheDir = null;
-		if (cacheServiceConfiguration.isCacheInHomeDir()) {
-			StringBuilder sb = computeCacheDirPathFromHomeDirFromUserAndZone(irodsAccount
-					.getUserName());
-			log.info(
-					"built home dir automatically for cache using account zone and user name:{}",
-					sb.toString());
-			cacheDir = irodsAccessObjectFactory.getIRODSFileFactory(
-					irodsAccount).instanceIRODSFile(sb.toString());
-		} else {
-			cacheDir = irodsAccessObjectFactory.getIRODSFileFactory(
-					irodsAccount).instanceIRODSFile(
-					cacheServiceConfiguration.getCacheDirPath());
+		String cacheDirPath = computeCacheDirPathFromHomeDirFromUserAndZone(
+				irodsAccount.getUserName()).toString();
+		log.info("cache dir path:{}", cacheDirPath);
+
+		List<String> expiredPaths = findCacheFilesModifiedBefore(cacheDirPath,
+				purgeThreshold);
+		if (expiredPaths.isEmpty()) {
+			log.info("no expired cache files, nothing to purge");
+			return;
 		}
 
-		// list the files in the cache and purge any expired
-		log.info("cache dir path:{}", cacheDir.getAbsolutePath());
+		log.info("purging {} cache files", expiredPaths.size());
+		List<BulkFileOperationResponse> responses = getIrodsAccessObjectFactory()
+				.getDataObjectAO(irodsAccount).deleteDataObjects(expiredPaths,
+						false);
 
-		if (!cacheDir.exists()) {
-			log.info("cache dir does not exist, do not purge");
-			return;
+		for (BulkFileOperationResponse response : responses) {
+			if (localCacheTier != null) {
+				localCacheTier.remove(buildLocalCacheKey(response
+						.getAbsolutePath()));
+			}
+
+			if (response.getResultStatus() != BulkFileOperationResponse.ResultStatus.OK) {
+				log.warn("error deleting file logged and ignored:{}", response);
+			}
 		}
 
-		for (File irodsFile : cacheDir.listFiles()) {
-			if (irodsFile.lastModified() < purgeThreshold) {
-				log.info("purging:{}", irodsFile.getAbsolutePath());
-				boolean delSuccess = irodsFile.delete();
-				if (!delSuccess) {
-					log.warn("error deleting file logged and ignored");
+		log.info("purge complete");
+
+	}
+
+	/**
+	 * Find the cache files in the cache directory last modified before the
+	 * given time, with one GenQuery rather than a listing and an objStat per
+	 * file
+	 * 
+	 * @param cacheDirPath
+	 *            <code>String</code> with the absolute path of the cache
+	 *            directory
+	 * @param purgeThreshold
+	 *            <code>long</code> with the time in millis
+	 * @return <code>List</code> of <code>String</code> with the absolute
+	 *         paths of the cache files
+	 * @throws JargonException
+	 */
+	private List<String> findCacheFilesModifiedBefore(
+			final String cacheDirPath, final long purgeThreshold)
+			throws JargonException {
+
+		// iRODS keeps times as zero padded seconds, so they compare as strings
+		String threshold = String.format("%011d", purgeThreshold / 1000);
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = getIrodsAccessObjectFactory()
+				.getIRODSGenQueryExecutor(irodsAccount);
+		List<String> expiredPaths = new ArrayList<String>();
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		IRODSQueryResultSet resultSet;
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.EQUAL, cacheDirPath)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME,
+							QueryConditionOperators.LESS_THAN, threshold);
+
+			resultSet = irodsGenQueryExecutor.executeIRODSQuery(
+					builder.exportIRODSQueryFromBuilder(PURGE_QUERY_PAGE_SIZE),
+					0);
+			while (true) {
+				for (IRODSQueryResultRow row : resultSet.getResults()) {
+					expiredPaths.add(row.getColumn(0) + "/" + row.getColumn(1));
+				}
+
+				if (!resultSet.isHasMoreRecords()) {
+					break;
 				}
+				resultSet = irodsGenQueryExecutor.getMoreResults(resultSet);
 			}
+		} catch (GenQueryBuilderException e) {
+			log.error("error building query for expired cache files", e);
+			throw new JargonException(
+					"error building query for expired cache files", e);
+		} catch (JargonQueryException e) {
+			log.error("error querying for expired cache files", e);
+			throw new JargonException("error querying for expired cache files",
+					e);
 		}
 
-		log.info("purge complete");
+		return expiredPaths;
+	}
 
+	/**
+	 * If cleanup during requests is configured, have the cleanup run in the
+	 * background, unless it ran for this cache directory within the purge
+	 * interval
+	 */
+	private void schedulePurgeOfOldRequests() {
+		if (!getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
+			return;
+		}
+
+		final IRODSAccessObjectFactory purgeAccessObjectFactory = getIrodsAccessObjectFactory();
+		final IRODSAccount purgeAccount = irodsAccount;
+		final CacheServiceConfiguration purgeConfiguration = getCacheServiceConfiguration();
+		final LocalCacheTier purgeLocalCacheTier = localCacheTier;
+		String cacheDirKey = buildLocalCacheKey(computeCacheDirPathFromHomeDirFromUserAndZone(
+				irodsAccount.getUserName()).toString());
+
+		CachePurgeScheduler.instance().schedulePurge(cacheDirKey,
+				purgeConfiguration.getPurgeIntervalMillis(), new Runnable() {
+					@Override
+					public void run() {
+						DataCacheServiceImpl purgeService = new DataCacheServiceImpl(
+								purgeAccessObjectFactory, purgeAccount);
+						purgeService
+								.setCacheServiceConfiguration(purgeConfiguration);
+						purgeService.setLocalCacheTier(purgeLocalCacheTier);
+						try {
+							purgeService.purgeOldRequests();
+						} catch (JargonException e) {
+							log.error("error purging old requests", e);
+						} finally {
+							purgeAccessObjectFactory
+									.closeSessionAndEatExceptions(purgeAccount);
+						}
+					}
+				});
+	}
+
+	/**
+	 * Key a cache file in the local tier by its grid as well as its path, as
+	 * the tier may be shared by accounts on more than one grid
+	 */
+	private String buildLocalCacheKey(final String irodsFileAbsolutePath) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getHost());
+		sb.append(":");
+		sb.append(irodsAccount.getPort());
+		sb.append(irodsFileAbsolutePath);
+		return sb.toString();
 	}
 
 	/*
@@ -455,4 +602,22 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		return cacheServiceConfiguration;
 	}
 
+	/**
+	 * @return the {@link LocalCacheTier} in front of the iRODS cache files, or
+	 *         <code>null</code> if there is none
+	 */
+	public LocalCacheTier getLocalCacheTier() {
+		return localCacheTier;
+	}
+
+	/**
+	 * @param localCacheTier
+	 *            {@link LocalCacheTier} to keep in front of the iRODS cache
+	 *            files, which may be shared with other cache services, or
+	 *            <code>null</code> for none
+	 */
+	public void setLocalCacheTier(final LocalCacheTier localCacheTier) {
+		this.localCacheTier = localCacheTier;
+	}
+
 }
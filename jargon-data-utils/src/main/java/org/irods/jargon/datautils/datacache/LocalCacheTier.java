@@ -0,0 +1,410 @@
+package org.irods.jargon.datautils.datacache;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded local tier kept in front of the iRODS files of a
+ * {@link DataCacheService}, so that a value read or written recently is served
+ * without a trip to iRODS. Values are held by the absolute path of their cache
+ * file, in the encrypted form stored in iRODS, so nothing is kept here in the
+ * clear.
+ * <p/>
+ * The tier holds up to a given number of bytes in memory, least recently used
+ * first out. If a directory is given, values pushed out of memory go to files
+ * there, up to a given number of bytes on disk, oldest first out. Values
+ * older than the lifetime are not served, so a value changed in iRODS by some
+ * other client is seen once the lifetime has passed. A value may also be put
+ * with its own expiry, such as when its cache file is purged from iRODS, and
+ * is not served past it.
+ * <p/>
+ * One tier is meant to be shared by the cache services for all accounts, such
+ * as by a {@link DataCacheServiceFactoryImpl}, and is thread safe.
+ */
+public class LocalCacheTier {
+
+	public static final long DEFAULT_MAX_MEMORY_BYTES = 8 * 1024 * 1024;
+	public static final long DEFAULT_LIFETIME_MILLIS = 5 * 60 * 1000;
+
+	private static final Logger log = LoggerFactory
+			.getLogger(LocalCacheTier.class);
+
+	private final long maxMemoryBytes;
+	private final long lifetimeMillis;
+	private final File diskDirectory;
+	private final long maxDiskBytes;
+
+	private final LinkedHashMap<String, MemoryEntry> memoryEntries = new LinkedHashMap<String, MemoryEntry>(
+			16, 0.75f, true);
+	private final LinkedHashMap<String, DiskEntry> diskEntries = new LinkedHashMap<String, DiskEntry>();
+	private long memoryBytes = 0L;
+	private long diskBytes = 0L;
+	private long diskFileSequence = 0L;
+	private final AtomicLong hitCount = new AtomicLong(0L);
+	private final AtomicLong missCount = new AtomicLong(0L);
+
+	/**
+	 * Create a tier held only in memory, with the default size and lifetime
+	 *
+	 * @return {@link LocalCacheTier}
+	 */
+	public static LocalCacheTier instance() {
+		return new LocalCacheTier(DEFAULT_MAX_MEMORY_BYTES,
+				DEFAULT_LIFETIME_MILLIS, null, 0L);
+	}
+
+	/**
+	 * Create a tier held only in memory
+	 *
+	 * @param maxMemoryBytes
+	 *            <code>long</code> with the most bytes of values to hold in
+	 *            memory
+	 * @param lifetimeMillis
+	 *            <code>long</code> with how long a value is served after it
+	 *            was put in the tier
+	 * @return {@link LocalCacheTier}
+	 */
+	public static LocalCacheTier instance(final long maxMemoryBytes,
+			final long lifetimeMillis) {
+		return new LocalCacheTier(maxMemoryBytes, lifetimeMillis, null, 0L);
+	}
+
+	/**
+	 * Create a tier held in memory, with values pushed out of memory kept in
+	 * files in the given directory
+	 *
+	 * @param maxMemoryBytes
+	 *            <code>long</code> with the most bytes of values to hold in
+	 *            memory
+	 * @param lifetimeMillis
+	 *            <code>long</code> with how long a value is served after it
+	 *            was put in the tier
+	 * @param diskDirectory
+	 *            <code>File</code> with a directory for the tier's own use,
+	 *            which will be created if needed
+	 * @param maxDiskBytes
+	 *            <code>long</code> with the most bytes of values to hold on
+	 *            disk
+	 * @return {@link LocalCacheTier}
+	 */
+	public static LocalCacheTier instanceWithDiskOverflow(
+			final long maxMemoryBytes, final long lifetimeMillis,
+			final File diskDirectory, final long maxDiskBytes) {
+		if (diskDirectory == null) {
+			throw new IllegalArgumentException("null diskDirectory");
+		}
+		return new LocalCacheTier(maxMemoryBytes, lifetimeMillis,
+				diskDirectory, maxDiskBytes);
+	}
+
+	private LocalCacheTier(final long maxMemoryBytes,
+			final long lifetimeMillis, final File diskDirectory,
+			final long maxDiskBytes) {
+
+		if (maxMemoryBytes < 0) {
+			throw new IllegalArgumentException("maxMemoryBytes < 0");
+		}
+
+		if (lifetimeMillis <= 0) {
+			throw new IllegalArgumentException("lifetimeMillis <= 0");
+		}
+
+		if (maxDiskBytes < 0) {
+			throw new IllegalArgumentException("maxDiskBytes < 0");
+		}
+
+		if (diskDirectory != null && !diskDirectory.isDirectory()
+				&& !diskDirectory.mkdirs()) {
+			throw new IllegalArgumentException(
+					"unable to create diskDirectory:" + diskDirectory);
+		}
+
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.lifetimeMillis = lifetimeMillis;
+		this.diskDirectory = diskDirectory;
+		this.maxDiskBytes = maxDiskBytes;
+	}
+
+	/**
+	 * Put a value in the tier, replacing any value for the key
+	 *
+	 * @param key
+	 *            <code>String</code> with the key, the absolute path of the
+	 *            cache file
+	 * @param data
+	 *            <code>byte[]</code> with the value as stored in iRODS, which
+	 *            is kept, not copied
+	 */
+	public void put(final String key, final byte[] data) {
+		put(key, data, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Put a value in the tier, replacing any value for the key, to be served
+	 * until the lifetime has passed or the given time, whichever is first
+	 *
+	 * @param key
+	 *            <code>String</code> with the key, the absolute path of the
+	 *            cache file
+	 * @param data
+	 *            <code>byte[]</code> with the value as stored in iRODS, which
+	 *            is kept, not copied
+	 * @param expiresAtMillis
+	 *            <code>long</code> with the time in millis after which the
+	 *            value is not served
+	 */
+	public synchronized void put(final String key, final byte[] data,
+			final long expiresAtMillis) {
+		if (key == null || key.isEmpty()) {
+			throw new IllegalArgumentException("null or empty key");
+		}
+
+		if (data == null) {
+			throw new IllegalArgumentException("null data");
+		}
+
+		remove(key);
+		long now = System.currentTimeMillis();
+		MemoryEntry entry = new MemoryEntry(data, Math.min(expiresAtMillis,
+				now + lifetimeMillis));
+		if (data.length > maxMemoryBytes) {
+			spillToDisk(key, entry);
+			return;
+		}
+
+		memoryEntries.put(key, entry);
+		memoryBytes += data.length;
+
+		Iterator<Map.Entry<String, MemoryEntry>> iterator = memoryEntries
+				.entrySet().iterator();
+		while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+			Map.Entry<String, MemoryEntry> eldest = iterator.next();
+			iterator.remove();
+			memoryBytes -= eldest.getValue().data.length;
+			spillToDisk(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	/**
+	 * Get a value from the tier
+	 *
+	 * @param key
+	 *            <code>String</code> with the key, the absolute path of the
+	 *            cache file
+	 * @return <code>byte[]</code> with the value, or <code>null</code> if
+	 *         there is no value for the key that has not expired
+	 */
+	public synchronized byte[] get(final String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+
+		long now = System.currentTimeMillis();
+		MemoryEntry entry = memoryEntries.get(key);
+		if (entry != null) {
+			if (entry.expiresAt >= now) {
+				hitCount.incrementAndGet();
+				return entry.data;
+			}
+			remove(key);
+		}
+
+		DiskEntry diskEntry = diskEntries.get(key);
+		if (diskEntry != null) {
+			if (diskEntry.expiresAt >= now) {
+				byte[] data = readDiskEntry(diskEntry);
+				if (data != null) {
+					hitCount.incrementAndGet();
+					return data;
+				}
+			}
+			remove(key);
+		}
+
+		missCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Remove any value for the key
+	 *
+	 * @param key
+	 *            <code>String</code> with the key, the absolute path of the
+	 *            cache file
+	 */
+	public synchronized void remove(final String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("null key");
+		}
+
+		MemoryEntry entry = memoryEntries.remove(key);
+		if (entry != null) {
+			memoryBytes -= entry.data.length;
+		}
+
+		DiskEntry diskEntry = diskEntries.remove(key);
+		if (diskEntry != null) {
+			deleteDiskEntry(diskEntry);
+		}
+	}
+
+	/**
+	 * Remove every value
+	 */
+	public synchronized void clear() {
+		memoryEntries.clear();
+		memoryBytes = 0L;
+		for (DiskEntry diskEntry : diskEntries.values()) {
+			deleteDiskEntry(diskEntry);
+		}
+		diskEntries.clear();
+	}
+
+	/**
+	 * Keep an entry pushed out of memory on disk, if there is a directory, and
+	 * push out the oldest entries on disk to stay within bounds
+	 */
+	private void spillToDisk(final String key, final MemoryEntry entry) {
+		if (diskDirectory == null || entry.data.length > maxDiskBytes) {
+			return;
+		}
+
+		File file = new File(diskDirectory, "cache-" + diskFileSequence++
+				+ ".dat");
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(file);
+			out.write(entry.data);
+		} catch (IOException e) {
+			log.warn("unable to keep cache entry on disk, entry dropped", e);
+			file.delete();
+			return;
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		diskEntries.put(key, new DiskEntry(file, entry.data.length,
+				entry.expiresAt));
+		diskBytes += entry.data.length;
+
+		Iterator<DiskEntry> iterator = diskEntries.values().iterator();
+		while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+			DiskEntry eldest = iterator.next();
+			iterator.remove();
+			deleteDiskEntry(eldest);
+		}
+	}
+
+	private byte[] readDiskEntry(final DiskEntry diskEntry) {
+		byte[] data = new byte[diskEntry.length];
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(diskEntry.file));
+			in.readFully(data);
+			return data;
+		} catch (IOException e) {
+			log.warn("unable to read cache entry from disk, treated as a miss",
+					e);
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private void deleteDiskEntry(final DiskEntry diskEntry) {
+		diskBytes -= diskEntry.length;
+		if (!diskEntry.file.delete()) {
+			log.warn("unable to delete cache entry file:{}", diskEntry.file);
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes of values held in memory
+	 */
+	public synchronized long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes of values held on disk
+	 */
+	public synchronized long getDiskBytes() {
+		return diskBytes;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of gets answered by the tier
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the number of gets not answered by the
+	 *         tier
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("LocalCacheTier");
+		sb.append("\n    maxMemoryBytes:");
+		sb.append(maxMemoryBytes);
+		sb.append("\n    lifetimeMillis:");
+		sb.append(lifetimeMillis);
+		sb.append("\n    diskDirectory:");
+		sb.append(diskDirectory);
+		sb.append("\n    maxDiskBytes:");
+		sb.append(maxDiskBytes);
+		return sb.toString();
+	}
+
+	private static final class MemoryEntry {
+		private final byte[] data;
+		private final long expiresAt;
+
+		MemoryEntry(final byte[] data, final long expiresAt) {
+			this.data = data;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private static final class DiskEntry {
+		private final File file;
+		private final int length;
+		private final long expiresAt;
+
+		DiskEntry(final File file, final int length, final long expiresAt) {
+			this.file = file;
+			this.length = length;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
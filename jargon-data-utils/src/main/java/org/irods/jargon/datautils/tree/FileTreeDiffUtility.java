@@ -56,6 +56,56 @@ public interface FileTreeDiffUtility {
 			final long timestampForLastSynchRightHandSide)
 			throws JargonException;
 
+	/**
+	 * Generate the same kind of diff tree as
+	 * {@link #generateDiffLocalToIRODS(File, String, long, long)}, using a
+	 * parallel engine suited to very large trees. The iRODS side is listed with
+	 * a few bulk queries for the whole subtree, rather than a listing for each
+	 * collection, while the local side is listed by several threads at once.
+	 * The two sorted listings are then merged.
+	 * <p/>
+	 * Files of the same length are compared by checksum, using the checksum
+	 * stored in iRODS where there is one. When both timestamps are given, a
+	 * file that was not modified on either side since the last synch is taken
+	 * as unchanged, and is not checksummed. Local checksums are computed in
+	 * parallel.
+	 * <p/>
+	 * The children of each node in the resulting tree are in path order, files
+	 * and collections together.
+	 * <p/>
+	 * Both listings are held in memory in full before the merge starts, one
+	 * entry with the relative and absolute path for every file, collection
+	 * and directory on each side, on top of the resulting tree. Memory use
+	 * therefore grows with the size of the two trees, not just with the
+	 * number of diffs, which bounds the size of tree this method can compare
+	 * in a given heap.
+	 * 
+	 * @param localFileRoot
+	 *            <code>File</code> that is the left hand side of the comparison
+	 * 
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> that is the root directory that will be
+	 *            compared to the <code>localFileRoot</code> The file and
+	 *            collection names will be compared relative to the respective
+	 *            left hand and right hand root absolute paths
+	 * @param timestampForLastSynchLeftHandSide
+	 *            <code>long</code> with the timestamp that, if before the last
+	 *            modified date of the given left hand files, indicates that the
+	 *            file has changed. Leave as zero to turn off this check.
+	 * @param timestampForLastSynchRightHandSide
+	 *            <code>long</code> with the timestamp that, if before the last
+	 *            modified date of the given right hand files, indicates that
+	 *            the file has changed. Leave as zero to turn off this check.
+	 * @return {@link FileTreeModel} with the common directory structure and any
+	 *         detected diffs, or <code>null</code> if the diff was cancelled
+	 * @throws JargonException
+	 */
+	public abstract FileTreeModel generateDiffLocalToIRODSInParallel(
+			final File localFileRoot, final String irodsAbsolutePath,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide)
+			throws JargonException;
+
 	/**
 	 * Handy method that checks a local and iRODS file trees and verifies that
 	 * there are no differences
@@ -2,14 +2,25 @@ package org.irods.jargon.datautils.tree;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.Enumeration;
-
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.irods.jargon.core.checksum.ChecksumManager;
+import org.irods.jargon.core.checksum.ChecksumManagerImpl;
 import org.irods.jargon.core.checksum.ChecksumValue;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
 import org.irods.jargon.core.pub.DataObjectAO;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.io.IRODSFile;
@@ -43,6 +54,11 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 			.getLogger(FileTreeDiffUtilityImpl.class);
 
 	private DataObjectAO dataObjectAO = null;
+	/**
+	 * Threads used to list the local tree and compute local checksums in a
+	 * parallel diff
+	 */
+	private int numberOfThreads = Runtime.getRuntime().availableProcessors();
 	/**
 	 * Optional field allows communication with diff processor
 	 */
@@ -160,6 +176,380 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 			final long timestampForLastSynchRightHandSide)
 			throws JargonException {
 
+		checkDiffParameters(localFileRoot, irodsAbsolutePath,
+				timestampForLastSynchLeftHandSide,
+				timestampForLastSynchRightHandSide);
+
+		log.info("generateDiffLocalToIRODS() for localFileRoot:{}",
+				localFileRoot.getAbsolutePath());
+		log.info("irodsAbsolutePath for iRODS root:{}", irodsAbsolutePath);
+
+		IRODSFile rootIRODSFile = getRootIRODSDirectory(irodsAbsolutePath);
+		FileTreeNode fileTreeNode = buildRootNode(localFileRoot,
+				rootIRODSFile.getAbsolutePath());
+		FileTreeModel fileTreeModel = new FileTreeModel(fileTreeNode);
+
+		diffTwoFiles(fileTreeNode, localFileRoot,
+				localFileRoot.getAbsolutePath(), (IRODSFileImpl) rootIRODSFile,
+				rootIRODSFile.getAbsolutePath(),
+				timestampForLastSynchLeftHandSide,
+				timestampForLastSynchRightHandSide);
+
+		if (isCancelled()) {
+			return null;
+		}
+
+		return fileTreeModel;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.datautils.tree.FileTreeDiffUtility#
+	 * generateDiffLocalToIRODSInParallel(java.io.File, java.lang.String, long,
+	 * long)
+	 */
+	@Override
+	public FileTreeModel generateDiffLocalToIRODSInParallel(
+			final File localFileRoot, final String irodsAbsolutePath,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide)
+			throws JargonException {
+
+		checkDiffParameters(localFileRoot, irodsAbsolutePath,
+				timestampForLastSynchLeftHandSide,
+				timestampForLastSynchRightHandSide);
+
+		log.info("generateDiffLocalToIRODSInParallel() for localFileRoot:{}",
+				localFileRoot.getAbsolutePath());
+		log.info("irodsAbsolutePath for iRODS root:{}", irodsAbsolutePath);
+		log.info("numberOfThreads:{}", numberOfThreads);
+
+		IRODSFile rootIRODSFile = getRootIRODSDirectory(irodsAbsolutePath);
+		FileTreeNode fileTreeNode = buildRootNode(localFileRoot,
+				rootIRODSFile.getAbsolutePath());
+		FileTreeModel fileTreeModel = new FileTreeModel(fileTreeNode);
+
+		ForkJoinPool forkJoinPool = new ForkJoinPool(numberOfThreads);
+		try {
+			// the local tree is walked in the pool while iRODS is queried here
+			Future<List<TreeListingEntry>> localListing = new LocalTreeWalker(
+					forkJoinPool).startListTree(localFileRoot);
+			List<TreeListingEntry> irodsEntries = new IrodsTreeLister(
+					irodsAccessObjectFactory, irodsAccount)
+					.listTree(rootIRODSFile.getAbsolutePath());
+			List<TreeListingEntry> localEntries = waitForResult(localListing);
+
+			if (isCancelled()) {
+				return null;
+			}
+
+			List<PendingChecksumComparison> pendingComparisons = mergeSortedListings(
+					fileTreeNode, LocalFileUtils.normalizePath(localFileRoot
+							.getAbsolutePath()),
+					rootIRODSFile.getAbsolutePath(), localEntries,
+					irodsEntries, timestampForLastSynchLeftHandSide,
+					timestampForLastSynchRightHandSide);
+
+			if (isCancelled()) {
+				return null;
+			}
+
+			resolvePendingChecksumComparisons(pendingComparisons, forkJoinPool);
+
+		} finally {
+			forkJoinPool.shutdownNow();
+		}
+
+		if (isCancelled()) {
+			return null;
+		}
+
+		return fileTreeModel;
+	}
+
+	/**
+	 * Merge the sorted local and iRODS listings into the diff tree under the
+	 * given root node. A collection that is only on one side, or that collides
+	 * with a file, is added as one node, and the entries beneath it are
+	 * skipped. Files of the same length that need a checksum to tell them
+	 * apart are added as an out of synch node, and returned so that the
+	 * checksums can be compared later.
+	 * 
+	 * @return <code>List</code> of the pending checksum comparisons
+	 */
+	List<PendingChecksumComparison> mergeSortedListings(
+			final FileTreeNode rootNode, final String localRootPath,
+			final String irodsRootPath,
+			final List<TreeListingEntry> localEntries,
+			final List<TreeListingEntry> irodsEntries,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide) {
+
+		log.info("mergeSortedListings()");
+
+		List<PendingChecksumComparison> pendingComparisons = new ArrayList<PendingChecksumComparison>();
+		Map<String, FileTreeNode> directoryNodes = new HashMap<String, FileTreeNode>();
+		directoryNodes.put("", rootNode);
+
+		TreeListingEntry skippedLhs = null;
+		TreeListingEntry skippedRhs = null;
+		TreeListingEntry lhs;
+		TreeListingEntry rhs;
+		FileTreeNode parentNode;
+		FileTreeDiffEntry entry;
+		int compValue;
+		int i = 0;
+		int j = 0;
+
+		while (i < localEntries.size() || j < irodsEntries.size()) {
+
+			if (isCancelled()) {
+				return pendingComparisons;
+			}
+
+			lhs = i < localEntries.size() ? localEntries.get(i) : null;
+			rhs = j < irodsEntries.size() ? irodsEntries.get(j) : null;
+
+			if (lhs != null && skippedLhs != null
+					&& skippedLhs.isSelfOrAncestorOf(lhs.getRelativePath())) {
+				i++;
+				continue;
+			}
+
+			if (rhs != null && skippedRhs != null
+					&& skippedRhs.isSelfOrAncestorOf(rhs.getRelativePath())) {
+				j++;
+				continue;
+			}
+
+			if (lhs == null) {
+				compValue = 1;
+			} else if (rhs == null) {
+				compValue = -1;
+			} else {
+				compValue = TreeListingEntry.compareRelativePaths(
+						lhs.getRelativePath(), rhs.getRelativePath());
+			}
+
+			if (compValue < 0) {
+				entry = buildFileTreeDiffEntryForListingEntry(lhs,
+						DiffType.LEFT_HAND_PLUS,
+						irodsRootPath + lhs.getRelativePath(), 0, 0, "", "");
+				parentNodeFor(lhs, directoryNodes).add(new FileTreeNode(entry));
+				log.debug("left hand plus generated:{}", entry);
+				if (lhs.isCollection()) {
+					skippedLhs = lhs;
+				}
+				i++;
+				continue;
+			}
+
+			if (compValue > 0) {
+				entry = buildFileTreeDiffEntryForListingEntry(rhs,
+						DiffType.RIGHT_HAND_PLUS,
+						localRootPath + rhs.getRelativePath(), 0, 0, "", "");
+				parentNodeFor(rhs, directoryNodes).add(new FileTreeNode(entry));
+				log.debug("right hand plus generated:{}", entry);
+				if (rhs.isCollection()) {
+					skippedRhs = rhs;
+				}
+				j++;
+				continue;
+			}
+
+			parentNode = parentNodeFor(lhs, directoryNodes);
+			if (lhs.isCollection() && rhs.isCollection()) {
+				entry = buildFileTreeDiffEntryForListingEntry(lhs,
+						DiffType.DIRECTORY_NO_DIFF, rhs.getAbsolutePath(), 0, 0,
+						"", "");
+				FileTreeNode directoryNode = new FileTreeNode(entry);
+				parentNode.add(directoryNode);
+				directoryNodes.put(lhs.getRelativePath(), directoryNode);
+			} else if (lhs.isCollection() != rhs.isCollection()) {
+				log.warn("a file is being compared to a directory of the same name");
+				entry = buildFileTreeDiffEntryForListingEntry(lhs,
+						DiffType.FILE_NAME_DIR_NAME_COLLISION,
+						rhs.getAbsolutePath(), rhs.getLength(),
+						rhs.getLastModified(), "", "");
+				parentNode.add(new FileTreeNode(entry));
+				if (lhs.isCollection()) {
+					skippedLhs = lhs;
+				} else {
+					skippedRhs = rhs;
+				}
+			} else if (lhs.getLength() != rhs.getLength()) {
+				entry = buildFileTreeDiffEntryForListingEntry(lhs,
+						DiffType.FILE_OUT_OF_SYNCH, rhs.getAbsolutePath(),
+						rhs.getLength(), rhs.getLastModified(), "", "");
+				log.debug("files differ on length:{}", entry);
+				parentNode.add(new FileTreeNode(entry));
+			} else if (isUnchangedSinceLastSynch(lhs, rhs,
+					timestampForLastSynchLeftHandSide,
+					timestampForLastSynchRightHandSide)) {
+				log.debug("no change on either side since last synch:{}",
+						lhs.getRelativePath());
+			} else {
+				/*
+				 * add the node as out of synch for now, so it keeps its place
+				 * among its siblings, it is removed if the checksums match
+				 */
+				entry = buildFileTreeDiffEntryForListingEntry(lhs,
+						DiffType.FILE_OUT_OF_SYNCH, rhs.getAbsolutePath(),
+						rhs.getLength(), rhs.getLastModified(), "", "");
+				FileTreeNode fileNode = new FileTreeNode(entry);
+				parentNode.add(fileNode);
+				pendingComparisons.add(new PendingChecksumComparison(fileNode,
+						lhs, rhs));
+			}
+			i++;
+			j++;
+		}
+
+		log.info("merge complete, {} checksum comparisons pending",
+				pendingComparisons.size());
+		return pendingComparisons;
+	}
+
+	private boolean isUnchangedSinceLastSynch(final TreeListingEntry lhs,
+			final TreeListingEntry rhs,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide) {
+		if (timestampForLastSynchLeftHandSide == NO_TIMESTAMP_CHECKS
+				|| timestampForLastSynchRightHandSide == NO_TIMESTAMP_CHECKS) {
+			return false;
+		}
+		return lhs.getLastModified() <= timestampForLastSynchLeftHandSide
+				&& rhs.getLastModified() <= timestampForLastSynchRightHandSide;
+	}
+
+	private FileTreeNode parentNodeFor(final TreeListingEntry listingEntry,
+			final Map<String, FileTreeNode> directoryNodes) {
+		String relativePath = listingEntry.getRelativePath();
+		return directoryNodes.get(relativePath.substring(0,
+				relativePath.lastIndexOf('/')));
+	}
+
+	/**
+	 * Compare the checksums of files that had the same length. Local checksums
+	 * are computed in the pool. iRODS checksums come from the listing where
+	 * one is stored, otherwise they are computed by iRODS, one at a time on
+	 * this thread, while the local checksums already started are computed.
+	 */
+	private void resolvePendingChecksumComparisons(
+			final List<PendingChecksumComparison> pendingComparisons,
+			final ForkJoinPool forkJoinPool) throws JargonException {
+
+		if (pendingComparisons.isEmpty()) {
+			return;
+		}
+
+		log.info("resolving {} checksum comparisons", pendingComparisons.size());
+		ChecksumManager checksumManager = new ChecksumManagerImpl(irodsAccount,
+				irodsAccessObjectFactory);
+
+		for (PendingChecksumComparison comparison : pendingComparisons) {
+			if (!comparison.rhs.getChecksum().isEmpty()) {
+				comparison.rhsChecksum = checksumManager
+						.determineChecksumEncodingFromIrodsData(comparison.rhs
+								.getChecksum());
+				comparison.lhsChecksum = forkJoinPool
+						.submit(new LocalChecksumCallable(comparison.lhs
+								.getAbsolutePath(), comparison.rhsChecksum
+								.getChecksumEncoding()));
+			}
+		}
+
+		IRODSFileFactory irodsFileFactory = irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount);
+		for (PendingChecksumComparison comparison : pendingComparisons) {
+			if (isCancelled()) {
+				return;
+			}
+			if (comparison.rhsChecksum == null) {
+				comparison.rhsChecksum = getIRODSChecksumOnDataObject((File) irodsFileFactory
+						.instanceIRODSFile(comparison.rhs.getAbsolutePath()));
+				comparison.lhsChecksum = forkJoinPool
+						.submit(new LocalChecksumCallable(comparison.lhs
+								.getAbsolutePath(), comparison.rhsChecksum
+								.getChecksumEncoding()));
+			}
+		}
+
+		ChecksumValue lhsChecksum;
+		for (PendingChecksumComparison comparison : pendingComparisons) {
+			if (isCancelled()) {
+				return;
+			}
+
+			lhsChecksum = waitForResult(comparison.lhsChecksum);
+			log.debug("left hand side checksum:{}", lhsChecksum);
+
+			if (lhsChecksum.getChecksumStringValue().equals(
+					comparison.rhsChecksum.getChecksumStringValue())) {
+				log.debug("checksum match, files are same");
+				comparison.fileTreeNode.removeFromParent();
+			} else {
+				FileTreeDiffEntry entry = buildFileTreeDiffEntryForListingEntry(
+						comparison.lhs, DiffType.FILE_OUT_OF_SYNCH,
+						comparison.rhs.getAbsolutePath(),
+						comparison.rhs.getLength(),
+						comparison.rhs.getLastModified(),
+						lhsChecksum.getChecksumStringValue(),
+						comparison.rhsChecksum.getChecksumStringValue());
+				log.debug("files differ on checksum:{}", entry);
+				comparison.fileTreeNode.setUserObject(entry);
+			}
+		}
+	}
+
+	private <T> T waitForResult(final Future<T> future) throws JargonException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonException("interrupted during diff", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			log.error("error during diff", e.getCause());
+			throw new JargonException("error during diff", e.getCause());
+		}
+	}
+
+	private FileTreeDiffEntry buildFileTreeDiffEntryForListingEntry(
+			final TreeListingEntry listingEntry, final DiffType diffType,
+			final String absolutePathOppositeFile,
+			final long lengthOppositeSide, final long timestampOppositeSide,
+			final String checksumThisFile, final String checksumOppositeFile) {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setCreatedAt(new Date(listingEntry.getLastModified()));
+		entry.setModifiedAt(entry.getCreatedAt());
+		entry.setDataSize(listingEntry.getLength());
+		entry.setParentPath(listingEntry.getParentPath());
+
+		if (listingEntry.isCollection()) {
+			entry.setObjectType(ObjectType.COLLECTION);
+			entry.setPathOrName(listingEntry.getAbsolutePath());
+			return FileTreeDiffEntry.instance(diffType, entry,
+					absolutePathOppositeFile, lengthOppositeSide,
+					timestampOppositeSide);
+		}
+
+		entry.setObjectType(ObjectType.DATA_OBJECT);
+		entry.setPathOrName(listingEntry.getName());
+		return FileTreeDiffEntry.instanceForFileDiff(diffType, entry,
+				absolutePathOppositeFile, lengthOppositeSide,
+				timestampOppositeSide, checksumThisFile, checksumOppositeFile);
+	}
+
+	private void checkDiffParameters(final File localFileRoot,
+			final String irodsAbsolutePath,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide)
+			throws JargonException {
+
 		if (localFileRoot == null) {
 			throw new IllegalArgumentException("null LocalFileRoot");
 		}
@@ -187,10 +577,10 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 			throw new IllegalArgumentException(
 					"timestampForLastSynchRightHandSide is less than zero");
 		}
+	}
 
-		log.info("generateDiffLocalToIRODS() for localFileRoot:{}",
-				localFileRoot.getAbsolutePath());
-		log.info("irodsAbsolutePath for iRODS root:{}", irodsAbsolutePath);
+	private IRODSFile getRootIRODSDirectory(final String irodsAbsolutePath)
+			throws JargonException {
 
 		// get the iRODS file for the right hand side of the diff
 
@@ -209,11 +599,16 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 					"irodsFile is not a directory, cannot do a diff");
 		}
 
-		log.debug("established that local file is a directory");
+		return rootIRODSFile;
+	}
 
-		// I have a local directory and an iRODS directory. Set the local
-		// directory as the root node in the resulting diff tree for a common
-		// point of reference
+	/**
+	 * I have a local directory and an iRODS directory. Set the local directory
+	 * as the root node in the resulting diff tree for a common point of
+	 * reference
+	 */
+	private FileTreeNode buildRootNode(final File localFileRoot,
+			final String irodsRootAbsolutePath) {
 		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
 		entry.setCreatedAt(new Date(localFileRoot.lastModified()));
 		entry.setModifiedAt(entry.getCreatedAt());
@@ -223,23 +618,10 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 		entry.setPathOrName(LocalFileUtils.normalizePath(localFileRoot
 				.getAbsolutePath()));
 		FileTreeDiffEntry diffEntry = FileTreeDiffEntry.instance(
-				DiffType.DIRECTORY_NO_DIFF, entry,
-				rootIRODSFile.getAbsolutePath());
+				DiffType.DIRECTORY_NO_DIFF, entry, irodsRootAbsolutePath);
 		FileTreeNode fileTreeNode = new FileTreeNode(diffEntry);
 		log.debug("set root node to:{}", fileTreeNode);
-		FileTreeModel fileTreeModel = new FileTreeModel(fileTreeNode);
-
-		diffTwoFiles(fileTreeNode, localFileRoot,
-				localFileRoot.getAbsolutePath(), (IRODSFileImpl) rootIRODSFile,
-				rootIRODSFile.getAbsolutePath(),
-				timestampForLastSynchLeftHandSide,
-				timestampForLastSynchRightHandSide);
-
-		if (isCancelled()) {
-			return null;
-		}
-
-		return fileTreeModel;
+		return fileTreeNode;
 	}
 
 	/**
@@ -784,6 +1166,79 @@ public class FileTreeDiffUtilityImpl extends AbstractDataUtilsServiceImpl
 
 	}
 
+	/**
+	 * @return the number of threads used by
+	 *         {@link #generateDiffLocalToIRODSInParallel(File, String, long, long)}
+	 */
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	/**
+	 * @param numberOfThreads
+	 *            the number of threads used by
+	 *            {@link #generateDiffLocalToIRODSInParallel(File, String, long, long)}
+	 *            to list the local tree and compute local checksums
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads less than 1");
+		}
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * A pair of files of the same length that are told apart by checksum
+	 */
+	static final class PendingChecksumComparison {
+		private final FileTreeNode fileTreeNode;
+		private final TreeListingEntry lhs;
+		private final TreeListingEntry rhs;
+		private ChecksumValue rhsChecksum = null;
+		private Future<ChecksumValue> lhsChecksum = null;
+
+		PendingChecksumComparison(final FileTreeNode fileTreeNode,
+				final TreeListingEntry lhs, final TreeListingEntry rhs) {
+			this.fileTreeNode = fileTreeNode;
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		FileTreeNode getFileTreeNode() {
+			return fileTreeNode;
+		}
+	}
+
+	/**
+	 * Computes the checksum of a local file in the pool
+	 */
+	private final class LocalChecksumCallable implements
+			Callable<ChecksumValue> {
+		private final String localAbsolutePath;
+		private final ChecksumEncodingEnum checksumEncoding;
+
+		LocalChecksumCallable(final String localAbsolutePath,
+				final ChecksumEncodingEnum checksumEncoding) {
+			this.localAbsolutePath = localAbsolutePath;
+			this.checksumEncoding = checksumEncoding;
+		}
+
+		@Override
+		public ChecksumValue call() throws JargonException {
+			try {
+				return getIrodsAccessObjectFactory().getIrodsSession()
+						.getLocalChecksumComputerFactory()
+						.instance(checksumEncoding)
+						.computeChecksumValueForLocalFile(localAbsolutePath);
+			} catch (FileNotFoundException e) {
+				log.error("file not found computing checksum", e);
+				throw new JargonException(
+						"data error while synchronizing, cannot find local file for checksum",
+						e);
+			}
+		}
+	}
+
 	/**
 	 * @return the transferControlBlock
 	 */
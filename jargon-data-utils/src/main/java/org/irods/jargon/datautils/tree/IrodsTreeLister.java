@@ -0,0 +1,254 @@
+package org.irods.jargon.datautils.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultRowIterator;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists a whole iRODS subtree with a few bulk GenQueries, rather than a listing
+ * per collection. The collections are found with one query on the collection
+ * name, and the data objects with their size, modify time, and stored checksum
+ * with one query for the root and one for everything beneath it. Rows are
+ * streamed across pages, so only the resulting entries are held, but those are
+ * held for the whole tree, as the rows are sorted here rather than by iRODS.
+ */
+class IrodsTreeLister {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(IrodsTreeLister.class);
+
+	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final IRODSAccount irodsAccount;
+
+	IrodsTreeLister(final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) {
+
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.irodsAccount = irodsAccount;
+	}
+
+	/**
+	 * List every collection and data object beneath the given collection
+	 * 
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the root
+	 *            collection, which is not itself included
+	 * @return <code>List</code> of {@link TreeListingEntry} sorted by
+	 *         {@link TreeListingEntry#RELATIVE_PATH_COMPARATOR}, with one entry
+	 *         for each data object whatever its number of replicas
+	 * @throws JargonException
+	 */
+	List<TreeListingEntry> listTree(final String irodsAbsolutePath)
+			throws JargonException {
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		log.info("listTree() for:{}", irodsAbsolutePath);
+
+		String rootPath = irodsAbsolutePath;
+		while (rootPath.endsWith("/")) {
+			rootPath = rootPath.substring(0, rootPath.length() - 1);
+		}
+
+		List<TreeListingEntry> entries = new ArrayList<TreeListingEntry>();
+		listCollections(rootPath, entries);
+		listDataObjects(rootPath, QueryConditionOperators.EQUAL,
+				rootPath.isEmpty() ? "/" : rootPath, entries);
+		listDataObjects(rootPath, QueryConditionOperators.LIKE, rootPath
+				+ "/%", entries);
+
+		Collections.sort(entries, TreeListingEntry.RELATIVE_PATH_COMPARATOR);
+		List<TreeListingEntry> uniqueEntries = removeReplicas(entries);
+		log.info("listed {} entries", uniqueEntries.size());
+		return uniqueEntries;
+	}
+
+	private void listCollections(final String rootPath,
+			final List<TreeListingEntry> entries) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_MODIFY_TIME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.LIKE, rootPath + "/%");
+		} catch (GenQueryBuilderException e) {
+			log.error("error building query", e);
+			throw new JargonException("error building query", e);
+		}
+
+		IRODSQueryResultRowIterator rows = executeQuery(builder, rootPath);
+		try {
+			IRODSQueryResultRow row;
+			String collectionName;
+			while (rows.hasNext()) {
+				row = rows.next();
+				collectionName = row.getColumn(0);
+				// like also matches '_' as a wildcard, so check the prefix
+				if (!isBeneathRoot(collectionName, rootPath)) {
+					continue;
+				}
+				entries.add(new TreeListingEntry(collectionName
+						.substring(rootPath.length()), collectionName, true,
+						0L, millisOrZero(row.getColumnAsDateOrNull(1)), ""));
+			}
+		} catch (JargonRuntimeException e) {
+			log.error("error reading collections", e);
+			throw new JargonException("error reading collections", e);
+		} finally {
+			rows.close();
+		}
+	}
+
+	private void listDataObjects(final String rootPath,
+			final QueryConditionOperators operator, final String value,
+			final List<TreeListingEntry> entries) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_SIZE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_DATA_CHECKSUM)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME, operator, value);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building query", e);
+			throw new JargonException("error building query", e);
+		}
+
+		IRODSQueryResultRowIterator rows = executeQuery(builder, rootPath);
+		try {
+			IRODSQueryResultRow row;
+			String collectionName;
+			StringBuilder sb;
+			while (rows.hasNext()) {
+				row = rows.next();
+				collectionName = row.getColumn(0);
+				if (!collectionName.equals(value)
+						&& !isBeneathRoot(collectionName, rootPath)) {
+					continue;
+				}
+
+				sb = new StringBuilder(collectionName);
+				if (!collectionName.endsWith("/")) {
+					sb.append('/');
+				}
+				sb.append(row.getColumn(1));
+				String absolutePath = sb.toString();
+
+				entries.add(new TreeListingEntry(absolutePath
+						.substring(rootPath.length()), absolutePath, false, row
+						.getColumnAsLongOrZero(2), millisOrZero(row
+						.getColumnAsDateOrNull(3)), row.getColumn(4)));
+			}
+		} catch (JargonRuntimeException e) {
+			log.error("error reading data objects", e);
+			throw new JargonException("error reading data objects", e);
+		} finally {
+			rows.close();
+		}
+	}
+
+	private IRODSQueryResultRowIterator executeQuery(
+			final IRODSGenQueryBuilder builder, final String rootPath)
+			throws JargonException {
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
+				.getIRODSGenQueryExecutor(irodsAccount);
+
+		try {
+			IRODSGenQueryFromBuilder irodsQuery = builder
+					.exportIRODSQueryFromBuilder(irodsAccessObjectFactory
+							.getJargonProperties()
+							.getMaxFilesAndDirsQueryMax());
+			return irodsGenQueryExecutor.executeIRODSQueryAsIterator(
+					irodsQuery, MiscIRODSUtils.getZoneInPath(rootPath
+							.isEmpty() ? "/" : rootPath));
+		} catch (GenQueryBuilderException e) {
+			log.error("error building query", e);
+			throw new JargonException("error building query", e);
+		} catch (JargonQueryException e) {
+			log.error("error in query", e);
+			throw new JargonException("error in query", e);
+		}
+	}
+
+	/**
+	 * Whether a path is strictly beneath the root, as a like on the root
+	 * followed by '/%' also matches siblings when the root has a '_' or '%'
+	 */
+	static boolean isBeneathRoot(final String path, final String rootPath) {
+		return path.length() > rootPath.length() + 1
+				&& path.startsWith(rootPath)
+				&& path.charAt(rootPath.length()) == '/';
+	}
+
+	private static long millisOrZero(final Date date) {
+		if (date == null) {
+			return 0L;
+		}
+		return date.getTime();
+	}
+
+	/**
+	 * A data object gets a row for each replica, which sort next to each
+	 * other. Keep the first, preferring one that has a stored checksum.
+	 */
+	static List<TreeListingEntry> removeReplicas(
+			final List<TreeListingEntry> sortedEntries) {
+		List<TreeListingEntry> uniqueEntries = new ArrayList<TreeListingEntry>(
+				sortedEntries.size());
+		TreeListingEntry previous = null;
+		for (TreeListingEntry entry : sortedEntries) {
+			if (previous != null
+					&& previous.getRelativePath().equals(
+							entry.getRelativePath())) {
+				if (previous.getChecksum().isEmpty()
+						&& !entry.getChecksum().isEmpty()) {
+					uniqueEntries.set(uniqueEntries.size() - 1, entry);
+					previous = entry;
+				}
+				continue;
+			}
+			uniqueEntries.add(entry);
+			previous = entry;
+		}
+		return uniqueEntries;
+	}
+
+}
@@ -0,0 +1,148 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists a whole local file tree, with the directories listed in parallel on a
+ * fork/join pool. Each directory is a task that forks a task for each of its
+ * subdirectories, so a wide or deep tree keeps all of the threads busy with
+ * the file system calls. The entries for the whole tree are held until the
+ * listing is sorted and returned.
+ */
+class LocalTreeWalker {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(LocalTreeWalker.class);
+
+	private final ForkJoinPool forkJoinPool;
+
+	/**
+	 * @param forkJoinPool
+	 *            <code>ForkJoinPool</code> that will list the directories
+	 */
+	LocalTreeWalker(final ForkJoinPool forkJoinPool) {
+		if (forkJoinPool == null) {
+			throw new IllegalArgumentException("null forkJoinPool");
+		}
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	/**
+	 * Start listing every file and directory beneath the given directory. The
+	 * listing runs in the pool, so the caller is free to do other work, such
+	 * as listing the iRODS side, in the meantime.
+	 * 
+	 * @param localRoot
+	 *            <code>File</code> with the root directory, which is not
+	 *            itself included
+	 * @return <code>Future</code> with the <code>List</code> of
+	 *         {@link TreeListingEntry} sorted by
+	 *         {@link TreeListingEntry#RELATIVE_PATH_COMPARATOR}
+	 */
+	Future<List<TreeListingEntry>> startListTree(final File localRoot) {
+
+		if (localRoot == null) {
+			throw new IllegalArgumentException("null localRoot");
+		}
+
+		log.info("startListTree() for:{}", localRoot);
+		String rootPath = LocalFileUtils.normalizePath(localRoot
+				.getAbsolutePath());
+		while (rootPath.endsWith("/")) {
+			rootPath = rootPath.substring(0, rootPath.length() - 1);
+		}
+
+		return forkJoinPool.submit(new ListTreeTask(localRoot, rootPath));
+	}
+
+	/**
+	 * Lists the tree from the root, then sorts the result
+	 */
+	private static final class ListTreeTask extends
+			RecursiveTask<List<TreeListingEntry>> {
+
+		private static final long serialVersionUID = 3290911726436212207L;
+
+		private final File localRoot;
+		private final String rootPath;
+
+		ListTreeTask(final File localRoot, final String rootPath) {
+			this.localRoot = localRoot;
+			this.rootPath = rootPath;
+		}
+
+		@Override
+		protected List<TreeListingEntry> compute() {
+			List<TreeListingEntry> entries = new ListDirectoryTask(localRoot,
+					rootPath).invoke();
+			Collections.sort(entries,
+					TreeListingEntry.RELATIVE_PATH_COMPARATOR);
+			log.info("listed {} entries", entries.size());
+			return entries;
+		}
+	}
+
+	/**
+	 * Lists one directory, and the directories beneath it in forked tasks
+	 */
+	private static final class ListDirectoryTask extends
+			RecursiveTask<List<TreeListingEntry>> {
+
+		private static final long serialVersionUID = -5024371659862216473L;
+
+		private final File directory;
+		private final String rootPath;
+
+		ListDirectoryTask(final File directory, final String rootPath) {
+			this.directory = directory;
+			this.rootPath = rootPath;
+		}
+
+		@Override
+		protected List<TreeListingEntry> compute() {
+			File[] children = directory.listFiles();
+			if (children == null) {
+				log.warn("unable to list directory:{}",
+						directory.getAbsolutePath());
+				return new ArrayList<TreeListingEntry>();
+			}
+
+			List<TreeListingEntry> entries = new ArrayList<TreeListingEntry>(
+					children.length);
+			List<ListDirectoryTask> subdirectoryTasks = new ArrayList<ListDirectoryTask>();
+			String absolutePath;
+			boolean isDirectory;
+
+			for (File child : children) {
+				absolutePath = LocalFileUtils.normalizePath(child
+						.getAbsolutePath());
+				isDirectory = child.isDirectory();
+				entries.add(new TreeListingEntry(absolutePath
+						.substring(rootPath.length()), absolutePath,
+						isDirectory, isDirectory ? 0L : child.length(), child
+								.lastModified(), ""));
+				if (isDirectory) {
+					subdirectoryTasks.add(new ListDirectoryTask(child,
+							rootPath));
+				}
+			}
+
+			invokeAll(subdirectoryTasks);
+			for (ListDirectoryTask subdirectoryTask : subdirectoryTasks) {
+				entries.addAll(subdirectoryTask.join());
+			}
+			return entries;
+		}
+	}
+
+}
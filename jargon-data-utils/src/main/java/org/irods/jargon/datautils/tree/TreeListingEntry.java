@@ -0,0 +1,149 @@
+package org.irods.jargon.datautils.tree;
+
+import java.util.Comparator;
+
+/**
+ * One file or collection found by a bulk listing of a local or iRODS tree. The
+ * path is kept relative to the root of the listing, so that entries on the two
+ * sides of a diff can be matched up by a merge of two sorted lists.
+ */
+class TreeListingEntry {
+
+	/**
+	 * Orders entries so that a collection comes just before everything
+	 * beneath it, by sorting the '/' separator before any other character
+	 */
+	static final Comparator<TreeListingEntry> RELATIVE_PATH_COMPARATOR = new Comparator<TreeListingEntry>() {
+		@Override
+		public int compare(final TreeListingEntry entry1,
+				final TreeListingEntry entry2) {
+			return compareRelativePaths(entry1.getRelativePath(),
+					entry2.getRelativePath());
+		}
+	};
+
+	private final String relativePath;
+	private final String absolutePath;
+	private final boolean collection;
+	private final long length;
+	private final long lastModified;
+	private final String checksum;
+
+	/**
+	 * @param relativePath
+	 *            <code>String</code> with the path beneath the root, starting
+	 *            with a '/', or blank for the root itself
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path, with '/' as the
+	 *            separator
+	 * @param collection
+	 *            <code>boolean</code> that is <code>true</code> for a
+	 *            directory or collection
+	 * @param length
+	 *            <code>long</code> with the length of a file, or 0
+	 * @param lastModified
+	 *            <code>long</code> with the modified time in milliseconds
+	 * @param checksum
+	 *            <code>String</code> with the checksum as stored in iRODS, or
+	 *            blank if not known
+	 */
+	TreeListingEntry(final String relativePath, final String absolutePath,
+			final boolean collection, final long length,
+			final long lastModified, final String checksum) {
+		this.relativePath = relativePath;
+		this.absolutePath = absolutePath;
+		this.collection = collection;
+		this.length = length;
+		this.lastModified = lastModified;
+		this.checksum = checksum;
+	}
+
+	static int compareRelativePaths(final String path1, final String path2) {
+		int length = Math.min(path1.length(), path2.length());
+		char c1;
+		char c2;
+		for (int i = 0; i < length; i++) {
+			c1 = path1.charAt(i);
+			c2 = path2.charAt(i);
+			if (c1 != c2) {
+				if (c1 == '/') {
+					return -1;
+				} else if (c2 == '/') {
+					return 1;
+				}
+				return c1 - c2;
+			}
+		}
+		return path1.length() - path2.length();
+	}
+
+	/**
+	 * @return <code>true</code> if the given relative path is this entry or
+	 *         lies beneath it
+	 */
+	boolean isSelfOrAncestorOf(final String otherRelativePath) {
+		return otherRelativePath.startsWith(relativePath)
+				&& (otherRelativePath.length() == relativePath.length() || otherRelativePath
+						.charAt(relativePath.length()) == '/');
+	}
+
+	/**
+	 * @return the name, that is, the last component of the path
+	 */
+	String getName() {
+		return absolutePath.substring(absolutePath.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * @return the absolute path of the parent
+	 */
+	String getParentPath() {
+		int idx = absolutePath.lastIndexOf('/');
+		if (idx <= 0) {
+			return "/";
+		}
+		return absolutePath.substring(0, idx);
+	}
+
+	String getRelativePath() {
+		return relativePath;
+	}
+
+	String getAbsolutePath() {
+		return absolutePath;
+	}
+
+	boolean isCollection() {
+		return collection;
+	}
+
+	long getLength() {
+		return length;
+	}
+
+	long getLastModified() {
+		return lastModified;
+	}
+
+	String getChecksum() {
+		return checksum;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("treeListingEntry");
+		sb.append("\n   relativePath:");
+		sb.append(relativePath);
+		sb.append("\n   collection:");
+		sb.append(collection);
+		sb.append("\n   length:");
+		sb.append(length);
+		sb.append("\n   lastModified:");
+		sb.append(lastModified);
+		sb.append("\n   checksum:");
+		sb.append(checksum);
+		return sb.toString();
+	}
+
+}
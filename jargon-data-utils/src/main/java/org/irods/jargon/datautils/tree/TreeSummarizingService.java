@@ -27,6 +27,33 @@ public interface TreeSummarizingService {
 	TreeSummary generateTreeSummaryForIrodsFileTree(String irodsFilePath)
 			throws FileNotFoundException, JargonException;
 
+	/**
+	 * Create a summary describing the contents of an iRODS collection tree
+	 * using a handful of aggregate queries over the whole tree, rather than
+	 * visiting each collection. This is much faster for large trees, and takes
+	 * about the same time whatever the number of data objects.
+	 * <p/>
+	 * Counts, total bytes, min and max lengths, the size histogram, and the
+	 * largest and oldest data objects are summarized, counting replica 0 of
+	 * each data object. The file extension counts are not available from the
+	 * queries and are left empty.
+	 * <p/>
+	 * A query treats '_' and '%' in the collection path as wildcards. If the
+	 * path has one and the query would also match collections outside the
+	 * tree, the tree is summarized by
+	 * {@link #generateTreeSummaryForIrodsFileTree(String)} instead.
+	 * 
+	 * @param irodsFilePath
+	 *            <code>String</code> with an absolute path to an iRODS
+	 *            collection
+	 * @return {@link TreeSummary}
+	 * @throws FileNotFoundException
+	 * @throws JargonException
+	 */
+	TreeSummary generateTreeSummaryForIrodsFileTreeUsingQueries(
+			String irodsFilePath) throws FileNotFoundException,
+			JargonException;
+
 	/**
 	 * Create a summary describing the contents of a local file tree
 	 * 
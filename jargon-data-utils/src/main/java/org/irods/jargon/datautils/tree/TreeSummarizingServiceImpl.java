@@ -5,11 +5,30 @@ package org.irods.jargon.datautils.tree;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryField.SelectFieldTypes;
+import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultRowIterator;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.service.AbstractJargonService;
+import org.irods.jargon.core.utils.IRODSDataConversionUtil;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +51,8 @@ public class TreeSummarizingServiceImpl extends AbstractJargonService implements
 	private static final Logger log = LoggerFactory
 			.getLogger(TreeSummarizingServiceImpl.class);
 
+	private static final String QUERY_ERROR = "error querying for tree summary";
+
 	/**
 	 * @param irodsAccessObjectFactory
 	 * @param irodsAccount
@@ -79,6 +100,325 @@ public class TreeSummarizingServiceImpl extends AbstractJargonService implements
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.datautils.tree.TreeSummarizingService#
+	 * generateTreeSummaryForIrodsFileTreeUsingQueries(java.lang.String)
+	 */
+	@Override
+	public TreeSummary generateTreeSummaryForIrodsFileTreeUsingQueries(
+			final String irodsFilePath) throws FileNotFoundException,
+			JargonException {
+		log.info("generateTreeSummaryForIrodsFileTreeUsingQueries()");
+
+		if (irodsFilePath == null || irodsFilePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty irodsFilePath");
+		}
+
+		log.info("irodsFilePath:{}", irodsFilePath);
+
+		IRODSFile irodsFile = getIrodsAccessObjectFactory()
+				.getIRODSFileFactory(getIrodsAccount()).instanceIRODSFile(
+						irodsFilePath);
+		if (!irodsFile.exists()) {
+			throw new FileNotFoundException("cannot find iRODS file");
+		}
+
+		if (!irodsFile.isDirectory()) {
+			throw new JargonException(
+					"irodsFilePath is not a collection, cannot summarize");
+		}
+
+		String rootPath = irodsFile.getAbsolutePath();
+		while (rootPath.endsWith("/")) {
+			rootPath = rootPath.substring(0, rootPath.length() - 1);
+		}
+
+		/*
+		 * A like treats '_' and '%' in the root as wildcards, so it may match
+		 * siblings such as /zone/aXb for /zone/a_b. The aggregates cannot be
+		 * filtered afterwards, so if it does, the tree is walked instead.
+		 */
+		if (hasLikeWildcard(rootPath) && likeMatchesOutsideRoot(rootPath)) {
+			log.info("like on the root matches collections outside it, walking the tree");
+			return generateTreeSummaryForIrodsFileTree(irodsFile
+					.getAbsolutePath());
+		}
+
+		/*
+		 * the data objects in the root itself, then those beneath it. A like
+		 * on the root alone would also match sibling collections that start
+		 * with the same name.
+		 */
+		TreeSummary treeSummary = new TreeSummary();
+		if (!rootPath.isEmpty()) {
+			summarizeScope(treeSummary, QueryConditionOperators.EQUAL,
+					rootPath, rootPath);
+		}
+		summarizeScope(treeSummary, QueryConditionOperators.LIKE, rootPath
+				+ "/%", rootPath);
+
+		log.info("...done");
+		return treeSummary;
+	}
+
+	/**
+	 * Whether a like on the path would take any of it as a wildcard
+	 */
+	static boolean hasLikeWildcard(final String rootPath) {
+		return rootPath.indexOf('_') >= 0 || rootPath.indexOf('%') >= 0;
+	}
+
+	/**
+	 * See if any collection matched by a like on the root followed by '/%' is
+	 * not beneath the root, stopping at the first one
+	 */
+	private boolean likeMatchesOutsideRoot(final String rootPath)
+			throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		IRODSQueryResultRowIterator rows;
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.LIKE, rootPath + "/%");
+			IRODSGenQueryFromBuilder irodsQuery = builder
+					.exportIRODSQueryFromBuilder(getIrodsAccessObjectFactory()
+							.getJargonProperties().getMaxFilesAndDirsQueryMax());
+			rows = getIrodsAccessObjectFactory().getIRODSGenQueryExecutor(
+					getIrodsAccount()).executeIRODSQueryAsIterator(irodsQuery,
+					MiscIRODSUtils.getZoneInPath(rootPath));
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		} catch (JargonQueryException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		}
+
+		try {
+			while (rows.hasNext()) {
+				String collectionName = rows.next().getColumn(0);
+				if (!IrodsTreeLister.isBeneathRoot(collectionName, rootPath)) {
+					log.info("collection outside of root:{}", collectionName);
+					return true;
+				}
+			}
+			return false;
+		} catch (JargonRuntimeException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		} finally {
+			rows.close();
+		}
+	}
+
+	/**
+	 * Add the data objects in the collections matching the given condition to
+	 * the summary
+	 */
+	private void summarizeScope(final TreeSummary treeSummary,
+			final QueryConditionOperators operator, final String collectionName,
+			final String rootPath) throws JargonException {
+
+		log.info("summarizing collections {} {}", operator, collectionName);
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsAgregateGenQueryValue(
+					RodsGenQueryEnum.COL_DATA_SIZE, SelectFieldTypes.SUM)
+					.addSelectAsAgregateGenQueryValue(
+							RodsGenQueryEnum.COL_D_DATA_ID,
+							SelectFieldTypes.COUNT)
+					.addSelectAsAgregateGenQueryValue(
+							RodsGenQueryEnum.COL_DATA_SIZE,
+							SelectFieldTypes.MIN)
+					.addSelectAsAgregateGenQueryValue(
+							RodsGenQueryEnum.COL_DATA_SIZE,
+							SelectFieldTypes.MAX);
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		}
+
+		IRODSQueryResultRow row = querySingleRow(builder, operator,
+				collectionName, rootPath);
+		if (row == null) {
+			return;
+		}
+
+		long count = IRODSDataConversionUtil.getLongOrZeroFromIRODSValue(row
+				.getColumn(1));
+		if (count == 0) {
+			log.info("no data objects");
+			return;
+		}
+
+		long minLength = IRODSDataConversionUtil
+				.getLongOrZeroFromIRODSValue(row.getColumn(2));
+		long maxLength = IRODSDataConversionUtil
+				.getLongOrZeroFromIRODSValue(row.getColumn(3));
+
+		if (treeSummary.getTotalFiles() == 0
+				|| minLength < treeSummary.getMinLength()) {
+			treeSummary.setMinLength(minLength);
+		}
+		treeSummary.setTotalBytes(treeSummary.getTotalBytes()
+				+ IRODSDataConversionUtil.getLongOrZeroFromIRODSValue(row
+						.getColumn(0)));
+		treeSummary.setTotalFiles(treeSummary.getTotalFiles() + count);
+
+		summarizeSizeBuckets(treeSummary, operator, collectionName, rootPath);
+
+		if (maxLength > treeSummary.getMaxLength()
+				|| treeSummary.getLargestFileAbsolutePath().isEmpty()) {
+			row = queryFirstDataObjectInOrder(RodsGenQueryEnum.COL_DATA_SIZE,
+					OrderByType.DESC, operator, collectionName, rootPath);
+			if (row != null) {
+				treeSummary.setMaxLength(maxLength);
+				treeSummary.setLargestFileAbsolutePath(dataObjectPath(row));
+			}
+		}
+
+		row = queryFirstDataObjectInOrder(RodsGenQueryEnum.COL_D_MODIFY_TIME,
+				OrderByType.ASC, operator, collectionName, rootPath);
+		if (row != null) {
+			Date modifiedAt = row.getColumnAsDateOrNull(0);
+			if (modifiedAt != null
+					&& (treeSummary.getOldestFileModifiedAt() == null || modifiedAt
+							.before(treeSummary.getOldestFileModifiedAt()))) {
+				treeSummary.setOldestFileModifiedAt(modifiedAt);
+				treeSummary.setOldestFileAbsolutePath(dataObjectPath(row));
+			}
+		}
+	}
+
+	/**
+	 * Count the data objects in each of the size buckets, one count query per
+	 * bucket
+	 */
+	private void summarizeSizeBuckets(final TreeSummary treeSummary,
+			final QueryConditionOperators operator, final String collectionName,
+			final String rootPath) throws JargonException {
+
+		long lowerLimit = 0L;
+		IRODSGenQueryBuilder builder;
+		IRODSQueryResultRow row;
+		List<String> betweenValues;
+
+		for (int i = 0; i < TreeSummary.SIZE_BUCKETS.length; i++) {
+			builder = new IRODSGenQueryBuilder(true, null);
+			try {
+				builder.addSelectAsAgregateGenQueryValue(
+						RodsGenQueryEnum.COL_D_DATA_ID, SelectFieldTypes.COUNT);
+			} catch (GenQueryBuilderException e) {
+				log.error(QUERY_ERROR, e);
+				throw new JargonException(QUERY_ERROR, e);
+			}
+
+			if (i < TreeSummary.SIZE_BUCKET_LIMITS.length) {
+				betweenValues = new ArrayList<String>(2);
+				betweenValues.add(String.valueOf(lowerLimit));
+				betweenValues.add(String
+						.valueOf(TreeSummary.SIZE_BUCKET_LIMITS[i] - 1));
+				builder.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_DATA_SIZE,
+						QueryConditionOperators.BETWEEN, betweenValues);
+				lowerLimit = TreeSummary.SIZE_BUCKET_LIMITS[i];
+			} else {
+				builder.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_DATA_SIZE,
+						QueryConditionOperators.GREATER_THAN_OR_EQUAL_TO,
+						lowerLimit);
+			}
+
+			row = querySingleRow(builder, operator, collectionName, rootPath);
+			if (row != null) {
+				treeSummary
+						.getFileSizeSummaryMap()
+						.get(TreeSummary.SIZE_BUCKETS[i])
+						.addAndGet(
+								IRODSDataConversionUtil
+										.getLongOrZeroFromIRODSValue(row
+												.getColumn(0)));
+			}
+		}
+	}
+
+	/**
+	 * Find the first data object when ordered by the given column, the row
+	 * has the ordered column, then the collection and data name
+	 */
+	private IRODSQueryResultRow queryFirstDataObjectInOrder(
+			final RodsGenQueryEnum orderColumn, final OrderByType orderByType,
+			final QueryConditionOperators operator,
+			final String collectionName, final String rootPath)
+			throws JargonException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(orderColumn)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addOrderByGenQueryField(orderColumn, orderByType);
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		}
+		return querySingleRow(builder, operator, collectionName, rootPath);
+	}
+
+	/**
+	 * Run the query for replica 0 of the data objects in the collections
+	 * matching the given condition, and return the first row, or
+	 * <code>null</code> if there are no rows
+	 */
+	private IRODSQueryResultRow querySingleRow(
+			final IRODSGenQueryBuilder builder,
+			final QueryConditionOperators operator,
+			final String collectionName, final String rootPath)
+			throws JargonException {
+
+		builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+				operator, collectionName).addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_DATA_REPL_NUM,
+				QueryConditionOperators.EQUAL, 0);
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = getIrodsAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIrodsAccount());
+		IRODSQueryResultSet resultSet;
+		try {
+			IRODSGenQueryFromBuilder irodsQuery = builder
+					.exportIRODSQueryFromBuilder(1);
+			resultSet = irodsGenQueryExecutor
+					.executeIRODSQueryAndCloseResultInZone(irodsQuery, 0,
+							MiscIRODSUtils.getZoneInPath(rootPath.isEmpty() ? "/"
+									: rootPath));
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		} catch (JargonQueryException e) {
+			log.error(QUERY_ERROR, e);
+			throw new JargonException(QUERY_ERROR, e);
+		}
+
+		if (resultSet.getResults().isEmpty()) {
+			return null;
+		}
+		return resultSet.getFirstResult();
+	}
+
+	private String dataObjectPath(final IRODSQueryResultRow row)
+			throws JargonException {
+		StringBuilder sb = new StringBuilder(row.getColumn(1));
+		if (sb.charAt(sb.length() - 1) != '/') {
+			sb.append('/');
+		}
+		sb.append(row.getColumn(2));
+		return sb.toString();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
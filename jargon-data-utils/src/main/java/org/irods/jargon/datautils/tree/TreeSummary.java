@@ -4,6 +4,7 @@
 package org.irods.jargon.datautils.tree;
 
 import java.io.File;
+import java.util.Date;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -28,6 +29,21 @@ public class TreeSummary {
 	public static final String SIZE_100GB = "100GB";
 	public static final String SIZE_GT_100GB = "> 100 GB";
 
+	/**
+	 * Names of the file size buckets, in order of size
+	 */
+	static final String[] SIZE_BUCKETS = { SIZE_10K, SIZE_100K, SIZE_1M,
+			SIZE_32M, SIZE_100M, SIZE_1GB, SIZE_10GB, SIZE_100GB, SIZE_GT_100GB };
+
+	/**
+	 * Length that each bucket in {@link #SIZE_BUCKETS} is less than, the last
+	 * bucket has no limit
+	 */
+	static final long[] SIZE_BUCKET_LIMITS = { 10L * 1024, 100L * 1024,
+			1024L * 1024, 32L * 1024 * 1024, 100L * 1024 * 1024,
+			1024L * 1024 * 1024, 10L * 1024 * 1024 * 1024,
+			100L * 1024 * 1024 * 1024 };
+
 	private ConcurrentMap<String, AtomicLong> fileSizeSummaryMap = new ConcurrentHashMap<String, AtomicLong>();
 	private final ConcurrentMap<String, AtomicLong> fileExtensionSummaryMap = new ConcurrentHashMap<String, AtomicLong>();
 
@@ -35,6 +51,9 @@ public class TreeSummary {
 	private long totalFiles = 0L;
 	private long minLength = 0L;
 	private long maxLength = 0L;
+	private String largestFileAbsolutePath = "";
+	private String oldestFileAbsolutePath = "";
+	private Date oldestFileModifiedAt = null;
 
 	public TreeSummary() {
 
@@ -73,32 +92,37 @@ public class TreeSummary {
 
 		if (length > maxLength) {
 			maxLength = length;
+			largestFileAbsolutePath = file.getAbsolutePath();
+		}
+
+		long lastModified = file.lastModified();
+		if (oldestFileModifiedAt == null
+				|| lastModified < oldestFileModifiedAt.getTime()) {
+			oldestFileModifiedAt = new Date(lastModified);
+			oldestFileAbsolutePath = file.getAbsolutePath();
 		}
 
 		fileExtensionSummaryMap.putIfAbsent(extension, new AtomicLong(0));
 		fileExtensionSummaryMap.get(extension).incrementAndGet();
 
-		// classify length
-		if (length < 10 * 1024) {
-			fileSizeSummaryMap.get(SIZE_10K).incrementAndGet();
-		} else if (length < 100 * 1024) {
-			fileSizeSummaryMap.get(SIZE_100K).incrementAndGet();
-		} else if (length < 1 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_1M).incrementAndGet();
-		} else if (length < 32 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_32M).incrementAndGet();
-		} else if (length < 100 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_100M).incrementAndGet();
-		} else if (length < 1 * 1024 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_1GB).incrementAndGet();
-		} else if (length < 10 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_10GB).incrementAndGet();
-		} else if (length < 100 * 1024 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_100GB).incrementAndGet();
-		} else {
-			fileSizeSummaryMap.get(SIZE_GT_100GB).incrementAndGet();
-		}
+		fileSizeSummaryMap.get(sizeBucketForLength(length)).incrementAndGet();
+
+	}
 
+	/**
+	 * Classify a length into one of the {@link #SIZE_BUCKETS}
+	 * 
+	 * @param length
+	 *            <code>long</code> with a file length
+	 * @return <code>String</code> with the name of the bucket
+	 */
+	static String sizeBucketForLength(final long length) {
+		for (int i = 0; i < SIZE_BUCKET_LIMITS.length; i++) {
+			if (length < SIZE_BUCKET_LIMITS[i]) {
+				return SIZE_BUCKETS[i];
+			}
+		}
+		return SIZE_GT_100GB;
 	}
 
 	/**
@@ -131,6 +155,14 @@ public class TreeSummary {
 		return totalBytes;
 	}
 
+	/**
+	 * @param totalBytes
+	 *            the totalBytes to set
+	 */
+	public void setTotalBytes(final long totalBytes) {
+		this.totalBytes = totalBytes;
+	}
+
 	/**
 	 * @return the totalFiles
 	 */
@@ -138,6 +170,14 @@ public class TreeSummary {
 		return totalFiles;
 	}
 
+	/**
+	 * @param totalFiles
+	 *            the totalFiles to set
+	 */
+	public void setTotalFiles(final long totalFiles) {
+		this.totalFiles = totalFiles;
+	}
+
 	/**
 	 * @return the size10k
 	 */
@@ -208,6 +248,14 @@ public class TreeSummary {
 		return minLength;
 	}
 
+	/**
+	 * @param minLength
+	 *            the minLength to set
+	 */
+	public void setMinLength(final long minLength) {
+		this.minLength = minLength;
+	}
+
 	/**
 	 * @return the maxLength
 	 */
@@ -215,4 +263,60 @@ public class TreeSummary {
 		return maxLength;
 	}
 
+	/**
+	 * @param maxLength
+	 *            the maxLength to set
+	 */
+	public void setMaxLength(final long maxLength) {
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * @return the absolute path of the largest file, or blank if there are no
+	 *         files
+	 */
+	public String getLargestFileAbsolutePath() {
+		return largestFileAbsolutePath;
+	}
+
+	/**
+	 * @param largestFileAbsolutePath
+	 *            the largestFileAbsolutePath to set
+	 */
+	public void setLargestFileAbsolutePath(final String largestFileAbsolutePath) {
+		this.largestFileAbsolutePath = largestFileAbsolutePath;
+	}
+
+	/**
+	 * @return the absolute path of the least recently modified file, or blank
+	 *         if there are no files
+	 */
+	public String getOldestFileAbsolutePath() {
+		return oldestFileAbsolutePath;
+	}
+
+	/**
+	 * @param oldestFileAbsolutePath
+	 *            the oldestFileAbsolutePath to set
+	 */
+	public void setOldestFileAbsolutePath(final String oldestFileAbsolutePath) {
+		this.oldestFileAbsolutePath = oldestFileAbsolutePath;
+	}
+
+	/**
+	 * @return the modified date of the least recently modified file, or
+	 *         <code>null</code> if there are no files
+	 */
+	public Date getOldestFileModifiedAt() {
+		return oldestFileModifiedAt;
+	}
+
+	/**
+	 * @param oldestFileModifiedAt
+	 *            the oldestFileModifiedAt to set
+	 */
+	public void setOldestFileModifiedAt(final Date oldestFileModifiedAt) {
+		this.oldestFileModifiedAt = oldestFileModifiedAt;
+	}
+
 }
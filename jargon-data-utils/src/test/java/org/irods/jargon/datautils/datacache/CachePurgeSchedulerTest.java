@@ -0,0 +1,68 @@
+package org.irods.jargon.datautils.datacache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class CachePurgeSchedulerTest {
+
+	@After
+	public void tearDown() throws Exception {
+		CachePurgeScheduler.instance().reset();
+	}
+
+	@Test
+	public void testSchedulePurgeRunsInBackground() throws Exception {
+		final CountDownLatch purged = new CountDownLatch(1);
+		final Thread caller = Thread.currentThread();
+		final boolean[] ranOnCaller = new boolean[1];
+		boolean scheduled = CachePurgeScheduler.instance().schedulePurge(
+				"testSchedulePurgeRunsInBackground", 60000, new Runnable() {
+					@Override
+					public void run() {
+						ranOnCaller[0] = Thread.currentThread() == caller;
+						purged.countDown();
+					}
+				});
+		Assert.assertTrue(scheduled);
+		Assert.assertTrue(purged.await(10, TimeUnit.SECONDS));
+		Assert.assertFalse(ranOnCaller[0]);
+	}
+
+	@Test
+	public void testSchedulePurgeOncePerInterval() throws Exception {
+		Runnable purge = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		CachePurgeScheduler scheduler = CachePurgeScheduler.instance();
+		Assert.assertTrue(scheduler.schedulePurge("testOncePerInterval",
+				60000, purge));
+		Assert.assertFalse(scheduler.schedulePurge("testOncePerInterval",
+				60000, purge));
+		Assert.assertTrue("other cache dir should be scheduled",
+				scheduler.schedulePurge("testOncePerIntervalOther", 60000,
+						purge));
+	}
+
+	@Test
+	public void testSchedulePurgeAfterInterval() throws Exception {
+		Runnable purge = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		CachePurgeScheduler scheduler = CachePurgeScheduler.instance();
+		Assert.assertTrue(scheduler.schedulePurge("testAfterInterval", 1,
+				purge));
+		Thread.sleep(20);
+		Assert.assertTrue(scheduler.schedulePurge("testAfterInterval", 1,
+				purge));
+	}
+
+}
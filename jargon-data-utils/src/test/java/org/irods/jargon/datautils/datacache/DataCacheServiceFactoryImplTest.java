@@ -0,0 +1,34 @@
+package org.irods.jargon.datautils.datacache;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class DataCacheServiceFactoryImplTest {
+
+	@Test
+	public void testNoLocalCacheTierByDefault() throws Exception {
+		DataCacheServiceFactoryImpl factory = new DataCacheServiceFactoryImpl(
+				Mockito.mock(IRODSAccessObjectFactory.class));
+		DataCacheServiceImpl dataCacheService = (DataCacheServiceImpl) factory
+				.instanceDataCacheService(TestingPropertiesHelper
+						.buildBogusIrodsAccount());
+		Assert.assertNull(dataCacheService.getLocalCacheTier());
+	}
+
+	@Test
+	public void testLocalCacheTierShared() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance();
+		DataCacheServiceFactoryImpl factory = new DataCacheServiceFactoryImpl(
+				Mockito.mock(IRODSAccessObjectFactory.class), localCacheTier);
+		DataCacheServiceImpl dataCacheService = (DataCacheServiceImpl) factory
+				.instanceDataCacheService(TestingPropertiesHelper
+						.buildBogusIrodsAccount());
+		Assert.assertSame(localCacheTier,
+				dataCacheService.getLocalCacheTier());
+	}
+
+}
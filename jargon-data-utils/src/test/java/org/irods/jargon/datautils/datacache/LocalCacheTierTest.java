@@ -0,0 +1,130 @@
+package org.irods.jargon.datautils.datacache;
+
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalCacheTierTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance();
+		byte[] data = new byte[] { 1, 2, 3 };
+		localCacheTier.put("host:1247/zone/home/user/cache/user-1.dat", data);
+		Assert.assertSame(data,
+				localCacheTier.get("host:1247/zone/home/user/cache/user-1.dat"));
+		Assert.assertEquals(1L, localCacheTier.getHitCount());
+		Assert.assertEquals(3L, localCacheTier.getMemoryBytes());
+	}
+
+	@Test
+	public void testGetMissing() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance();
+		Assert.assertNull(localCacheTier.get("missing"));
+		Assert.assertEquals(1L, localCacheTier.getMissCount());
+	}
+
+	@Test
+	public void testPutReplaces() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance();
+		localCacheTier.put("key", new byte[10]);
+		localCacheTier.put("key", new byte[4]);
+		Assert.assertEquals(4, localCacheTier.get("key").length);
+		Assert.assertEquals(4L, localCacheTier.getMemoryBytes());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance(20, 60000);
+		localCacheTier.put("a", new byte[8]);
+		localCacheTier.put("b", new byte[8]);
+		localCacheTier.get("a");
+		localCacheTier.put("c", new byte[8]);
+		Assert.assertNotNull(localCacheTier.get("a"));
+		Assert.assertNull(localCacheTier.get("b"));
+		Assert.assertNotNull(localCacheTier.get("c"));
+		Assert.assertEquals(16L, localCacheTier.getMemoryBytes());
+	}
+
+	@Test
+	public void testExpired() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance(1024, 1);
+		localCacheTier.put("key", new byte[1]);
+		Thread.sleep(20);
+		Assert.assertNull(localCacheTier.get("key"));
+		Assert.assertEquals(0L, localCacheTier.getMemoryBytes());
+	}
+
+	@Test
+	public void testExpiresAtGivenTime() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance();
+		localCacheTier.put("expired", new byte[1],
+				System.currentTimeMillis() - 1);
+		localCacheTier.put("current", new byte[1],
+				System.currentTimeMillis() + 60000);
+		Assert.assertNull(localCacheTier.get("expired"));
+		Assert.assertNotNull(localCacheTier.get("current"));
+	}
+
+	@Test
+	public void testLifetimeBeforeGivenTime() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance(1024, 1);
+		localCacheTier.put("key", new byte[1], Long.MAX_VALUE);
+		Thread.sleep(20);
+		Assert.assertNull(localCacheTier.get("key"));
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		LocalCacheTier localCacheTier = LocalCacheTier.instance();
+		localCacheTier.put("key", new byte[1]);
+		localCacheTier.remove("key");
+		Assert.assertNull(localCacheTier.get("key"));
+		Assert.assertEquals(0L, localCacheTier.getMemoryBytes());
+	}
+
+	@Test
+	public void testSpillToDisk() throws Exception {
+		File diskDirectory = temporaryFolder.newFolder("tier");
+		LocalCacheTier localCacheTier = LocalCacheTier
+				.instanceWithDiskOverflow(10, 60000, diskDirectory, 15);
+		byte[] first = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 };
+		localCacheTier.put("first", first);
+		localCacheTier.put("second", new byte[8]);
+		Assert.assertEquals(8L, localCacheTier.getDiskBytes());
+		Assert.assertEquals(1, diskDirectory.listFiles().length);
+
+		byte[] read = localCacheTier.get("first");
+		Assert.assertNotNull("entry pushed out of memory should be on disk",
+				read);
+		Assert.assertEquals(first.length, read.length);
+		Assert.assertEquals(first[7], read[7]);
+
+		localCacheTier.put("third", new byte[8]);
+		Assert.assertNull("disk should hold only the newest entry",
+				localCacheTier.get("first"));
+		Assert.assertNotNull(localCacheTier.get("second"));
+
+		localCacheTier.clear();
+		Assert.assertEquals(0, diskDirectory.listFiles().length);
+		Assert.assertEquals(0L, localCacheTier.getDiskBytes());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPutNullKey() throws Exception {
+		LocalCacheTier.instance().put(null, new byte[1]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPutNullData() throws Exception {
+		LocalCacheTier.instance().put("key", null);
+	}
+
+}
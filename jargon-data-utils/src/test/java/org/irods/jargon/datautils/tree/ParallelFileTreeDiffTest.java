@@ -0,0 +1,225 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.datautils.tree.FileTreeDiffEntry.DiffType;
+import org.irods.jargon.datautils.tree.FileTreeDiffUtilityImpl.PendingChecksumComparison;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class ParallelFileTreeDiffTest {
+
+	private static final String LOCAL_ROOT = "/local/root";
+	private static final String IRODS_ROOT = "/zone/home/test/root";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSortPutsChildrenRightAfterParent() throws Exception {
+		List<TreeListingEntry> entries = new ArrayList<TreeListingEntry>();
+		entries.add(file("/a-b", 1));
+		entries.add(file("/a/z", 1));
+		entries.add(collection("/a"));
+		entries.add(file("/a.txt", 1));
+		entries.add(file("/a/b/c", 1));
+		entries.add(collection("/a/b"));
+		Collections.sort(entries, TreeListingEntry.RELATIVE_PATH_COMPARATOR);
+
+		List<String> paths = new ArrayList<String>();
+		for (TreeListingEntry entry : entries) {
+			paths.add(entry.getRelativePath());
+		}
+		Assert.assertEquals(
+				Arrays.asList("/a", "/a/b", "/a/b/c", "/a/z", "/a-b", "/a.txt"),
+				paths);
+	}
+
+	@Test
+	public void testRemoveReplicasPrefersStoredChecksum() throws Exception {
+		List<TreeListingEntry> entries = new ArrayList<TreeListingEntry>();
+		entries.add(file("/a", 10));
+		entries.add(new TreeListingEntry("/a", IRODS_ROOT + "/a", false, 10,
+				0, "md5:abc"));
+		entries.add(file("/b", 10));
+		List<TreeListingEntry> unique = IrodsTreeLister
+				.removeReplicas(entries);
+		Assert.assertEquals(2, unique.size());
+		Assert.assertEquals("md5:abc", unique.get(0).getChecksum());
+	}
+
+	@Test
+	public void testMergeOneSidedAndCollisions() throws Exception {
+		List<TreeListingEntry> lhs = Arrays.asList(collection("/both"),
+				file("/both/same", 10), file("/both/length", 10),
+				collection("/localonly"), file("/localonly/child", 1),
+				file("/clash", 5));
+		List<TreeListingEntry> rhs = Arrays.asList(irodsCollection("/both"),
+				irodsFile("/both/length", 11), irodsFile("/both/same", 10),
+				irodsCollection("/clash"), irodsFile("/clash/child", 1),
+				irodsFile("/irodsonly", 3));
+		sortAll(lhs, rhs);
+
+		FileTreeNode root = rootNode();
+		List<PendingChecksumComparison> pending = newDiffUtility()
+				.mergeSortedListings(root, LOCAL_ROOT, IRODS_ROOT, lhs, rhs,
+						0, 0);
+
+		Assert.assertEquals(4, root.getChildCount());
+		FileTreeNode both = (FileTreeNode) root.getChildAt(0);
+		Assert.assertEquals(DiffType.DIRECTORY_NO_DIFF, diffType(both));
+		Assert.assertEquals(2, both.getChildCount());
+		Assert.assertEquals(DiffType.FILE_OUT_OF_SYNCH,
+				diffType((FileTreeNode) both.getChildAt(0)));
+		Assert.assertEquals(11, entry((FileTreeNode) both.getChildAt(0))
+				.getLengthOppositeFile());
+
+		Assert.assertEquals("same length needs a checksum", 1,
+				pending.size());
+		Assert.assertSame(both.getChildAt(1), pending.get(0)
+				.getFileTreeNode());
+
+		Assert.assertEquals(DiffType.FILE_NAME_DIR_NAME_COLLISION,
+				diffType((FileTreeNode) root.getChildAt(1)));
+		Assert.assertEquals(IRODS_ROOT + "/clash",
+				entry((FileTreeNode) root.getChildAt(1))
+						.getAbsPathOppositeFile());
+
+		FileTreeNode irodsOnly = (FileTreeNode) root.getChildAt(2);
+		Assert.assertEquals(DiffType.RIGHT_HAND_PLUS, diffType(irodsOnly));
+		Assert.assertEquals(LOCAL_ROOT + "/irodsonly",
+				entry(irodsOnly).getAbsPathOppositeFile());
+
+		FileTreeNode localOnly = (FileTreeNode) root.getChildAt(3);
+		Assert.assertEquals(DiffType.LEFT_HAND_PLUS, diffType(localOnly));
+		Assert.assertEquals("children of one sided collection not listed", 0,
+				localOnly.getChildCount());
+		CollectionAndDataObjectListingEntry listingEntry = entry(localOnly)
+				.getCollectionAndDataObjectListingEntry();
+		Assert.assertEquals(LOCAL_ROOT + "/localonly",
+				listingEntry.getPathOrName());
+		Assert.assertEquals(LOCAL_ROOT, listingEntry.getParentPath());
+	}
+
+	@Test
+	public void testMergeSkipsChecksumWhenUnchangedSinceSynch()
+			throws Exception {
+		List<TreeListingEntry> lhs = Arrays.asList(new TreeListingEntry(
+				"/old", LOCAL_ROOT + "/old", false, 10, 1000, ""),
+				new TreeListingEntry("/new", LOCAL_ROOT + "/new", false, 10,
+						3000, ""));
+		List<TreeListingEntry> rhs = Arrays.asList(new TreeListingEntry(
+				"/old", IRODS_ROOT + "/old", false, 10, 1000, ""),
+				new TreeListingEntry("/new", IRODS_ROOT + "/new", false, 10,
+						1000, ""));
+		sortAll(lhs, rhs);
+
+		FileTreeNode root = rootNode();
+		List<PendingChecksumComparison> pending = newDiffUtility()
+				.mergeSortedListings(root, LOCAL_ROOT, IRODS_ROOT, lhs, rhs,
+						2000, 2000);
+		Assert.assertEquals(1, pending.size());
+		Assert.assertEquals("new", entry(pending.get(0).getFileTreeNode())
+				.getCollectionAndDataObjectListingEntry().getPathOrName());
+		Assert.assertEquals(1, root.getChildCount());
+	}
+
+	@Test
+	public void testLocalTreeWalker() throws Exception {
+		File root = temporaryFolder.newFolder("walk");
+		File sub = new File(root, "sub");
+		Assert.assertTrue(sub.mkdirs());
+		Assert.assertTrue(new File(sub, "deeper").mkdirs());
+		writeFile(new File(root, "top.txt"), 3);
+		writeFile(new File(sub, "inner.txt"), 7);
+
+		ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+		try {
+			List<TreeListingEntry> entries = new LocalTreeWalker(
+					forkJoinPool).startListTree(root).get();
+			Assert.assertEquals(4, entries.size());
+			Assert.assertEquals("/sub", entries.get(0).getRelativePath());
+			Assert.assertTrue(entries.get(0).isCollection());
+			Assert.assertEquals("/sub/deeper", entries.get(1)
+					.getRelativePath());
+			Assert.assertEquals("/sub/inner.txt", entries.get(2)
+					.getRelativePath());
+			Assert.assertEquals(7, entries.get(2).getLength());
+			Assert.assertEquals("/top.txt", entries.get(3).getRelativePath());
+		} finally {
+			forkJoinPool.shutdown();
+		}
+	}
+
+	private static void writeFile(final File file, final int length)
+			throws Exception {
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			fos.write(new byte[length]);
+		} finally {
+			fos.close();
+		}
+	}
+
+	private static void sortAll(final List<TreeListingEntry> lhs,
+			final List<TreeListingEntry> rhs) {
+		Collections.sort(lhs, TreeListingEntry.RELATIVE_PATH_COMPARATOR);
+		Collections.sort(rhs, TreeListingEntry.RELATIVE_PATH_COMPARATOR);
+	}
+
+	private static FileTreeDiffUtilityImpl newDiffUtility() {
+		return new FileTreeDiffUtilityImpl(Mockito.mock(IRODSAccount.class),
+				Mockito.mock(IRODSAccessObjectFactory.class));
+	}
+
+	private static FileTreeNode rootNode() {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setPathOrName(LOCAL_ROOT);
+		return new FileTreeNode(FileTreeDiffEntry.instance(
+				DiffType.DIRECTORY_NO_DIFF, entry, IRODS_ROOT));
+	}
+
+	private static FileTreeDiffEntry entry(final FileTreeNode node) {
+		return (FileTreeDiffEntry) node.getUserObject();
+	}
+
+	private static DiffType diffType(final FileTreeNode node) {
+		return entry(node).getDiffType();
+	}
+
+	private static TreeListingEntry file(final String relativePath,
+			final long length) {
+		return new TreeListingEntry(relativePath, LOCAL_ROOT + relativePath,
+				false, length, 0, "");
+	}
+
+	private static TreeListingEntry irodsFile(final String relativePath,
+			final long length) {
+		return new TreeListingEntry(relativePath, IRODS_ROOT + relativePath,
+				false, length, 0, "");
+	}
+
+	private static TreeListingEntry irodsCollection(final String relativePath) {
+		return new TreeListingEntry(relativePath, IRODS_ROOT + relativePath,
+				true, 0, 0, "");
+	}
+
+	private static TreeListingEntry collection(final String relativePath) {
+		return new TreeListingEntry(relativePath, LOCAL_ROOT + relativePath,
+				true, 0, 0, "");
+	}
+
+}
@@ -148,4 +148,67 @@ public class TreeSummarizingServiceImplTest {
 		Assert.assertTrue("did not compute an average", avgLength > 0);
 
 	}
+
+	@Test
+	public void testIrodsTreeUsingQueriesWithUnderscoreInRoot()
+			throws Exception {
+
+		String rootCollection = "testIrodsTreeUsingQueries_underscore";
+		String siblingCollection = "testIrodsTreeUsingQueriesXunderscore";
+
+		String localCollectionAbsolutePath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+						+ '/' + rootCollection);
+		for (int i = 0; i < 3; i++) {
+			FileGenerator.generateFileOfFixedLengthGivenName(
+					localCollectionAbsolutePath, "file" + i + ".txt", 100);
+		}
+
+		// a like on the root also matches the collection beneath the sibling
+		String localSiblingAbsolutePath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+						+ '/' + siblingCollection + "/sub");
+		for (int i = 0; i < 2; i++) {
+			FileGenerator.generateFileOfFixedLengthGivenName(
+					localSiblingAbsolutePath, "file" + i + ".txt", 1000);
+		}
+
+		String irodsCollectionRootAbsolutePath = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+		IRODSFile destFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(irodsCollectionRootAbsolutePath);
+		DataTransferOperations dataTransferOperationsAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataTransferOperations(
+						irodsAccount);
+		dataTransferOperationsAO.putOperation(new File(
+				localCollectionAbsolutePath), destFile, null, null);
+		dataTransferOperationsAO.putOperation(new File(
+				localSiblingAbsolutePath).getParentFile(), destFile, null,
+				null);
+
+		TreeSummarizingService service = new TreeSummarizingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+
+		TreeSummary summary = service
+				.generateTreeSummaryForIrodsFileTreeUsingQueries(irodsCollectionRootAbsolutePath
+						+ '/' + rootCollection);
+		Assert.assertEquals("sibling tree should not be counted", 3,
+				summary.getTotalFiles());
+		Assert.assertEquals("sibling tree should not be counted", 300,
+				summary.getTotalBytes());
+	}
+
+	@Test
+	public void testHasLikeWildcard() throws Exception {
+		Assert.assertTrue(TreeSummarizingServiceImpl
+				.hasLikeWildcard("/zone/home/a_b"));
+		Assert.assertTrue(TreeSummarizingServiceImpl
+				.hasLikeWildcard("/zone/home/a%b"));
+		Assert.assertFalse(TreeSummarizingServiceImpl
+				.hasLikeWildcard("/zone/home/ab"));
+	}
 }
@@ -0,0 +1,67 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import junit.framework.Assert;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TreeSummaryTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSizeBucketBoundaries() throws Exception {
+		Assert.assertEquals(TreeSummary.SIZE_10K,
+				TreeSummary.sizeBucketForLength(0));
+		Assert.assertEquals(TreeSummary.SIZE_10K,
+				TreeSummary.sizeBucketForLength(10 * 1024 - 1));
+		Assert.assertEquals(TreeSummary.SIZE_100K,
+				TreeSummary.sizeBucketForLength(10 * 1024));
+		Assert.assertEquals(TreeSummary.SIZE_1GB,
+				TreeSummary.sizeBucketForLength(1024L * 1024 * 1024 - 1));
+		Assert.assertEquals(TreeSummary.SIZE_10GB,
+				TreeSummary.sizeBucketForLength(5L * 1024 * 1024 * 1024));
+		Assert.assertEquals(TreeSummary.SIZE_100GB,
+				TreeSummary.sizeBucketForLength(50L * 1024 * 1024 * 1024));
+		Assert.assertEquals(TreeSummary.SIZE_GT_100GB,
+				TreeSummary.sizeBucketForLength(100L * 1024 * 1024 * 1024));
+	}
+
+	@Test
+	public void testProcessFileInfoTracksLargestAndOldest() throws Exception {
+		File small = temporaryFolder.newFile("small.txt");
+		writeBytes(small, 10);
+		Assert.assertTrue(small.setLastModified(100000L));
+		File large = temporaryFolder.newFile("large.txt");
+		writeBytes(large, 20000);
+
+		TreeSummary treeSummary = new TreeSummary();
+		treeSummary.processFileInfo(small);
+		treeSummary.processFileInfo(large);
+
+		Assert.assertEquals(2, treeSummary.getTotalFiles());
+		Assert.assertEquals(20010, treeSummary.getTotalBytes());
+		Assert.assertEquals(large.getAbsolutePath(),
+				treeSummary.getLargestFileAbsolutePath());
+		Assert.assertEquals(small.getAbsolutePath(),
+				treeSummary.getOldestFileAbsolutePath());
+		Assert.assertEquals(1, treeSummary.getFileSizeSummaryMap()
+				.get(TreeSummary.SIZE_100K).get());
+	}
+
+	private static void writeBytes(final File file, final int length)
+			throws Exception {
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			fos.write(new byte[length]);
+		} finally {
+			fos.close();
+		}
+	}
+
+}
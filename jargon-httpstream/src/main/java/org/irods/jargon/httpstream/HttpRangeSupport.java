@@ -0,0 +1,282 @@
+package org.irods.jargon.httpstream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HTTP byte range helpers for a ranged transfer: probing whether a URL can be
+ * fetched in ranges, splitting its length into ranges, and fetching one range
+ * <p/>
+ * The validators of the url from the probe, its <code>ETag</code> and
+ * <code>Last-Modified</code>, are sent in an <code>If-Range</code> with each
+ * range, so a url that changes during the transfer is refused rather than
+ * pieced together from two versions.
+ */
+final class HttpRangeSupport {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(HttpRangeSupport.class);
+
+	private HttpRangeSupport() {
+	}
+
+	/**
+	 * Length and validators of an url from a HEAD request
+	 */
+	static final class RangedUrl {
+
+		private final long length;
+		private final String entityTag;
+		private final String lastModified;
+
+		RangedUrl(final long length, final String entityTag,
+				final String lastModified) {
+			this.length = length;
+			this.entityTag = entityTag == null ? "" : entityTag;
+			this.lastModified = lastModified == null ? "" : lastModified;
+		}
+
+		/**
+		 * @return <code>long</code> with the length of the url contents, or
+		 *         <code>-1</code> if the server does not give a length or does
+		 *         not accept byte ranges
+		 */
+		long getLength() {
+			return length;
+		}
+
+		/**
+		 * @return <code>String</code> with the <code>ETag</code>, or empty
+		 */
+		String getEntityTag() {
+			return entityTag;
+		}
+
+		/**
+		 * @return <code>String</code> with the <code>Last-Modified</code>
+		 *         date, or empty
+		 */
+		String getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Get the validator to send in an <code>If-Range</code>, which must be
+		 * a strong <code>ETag</code> or a date
+		 *
+		 * @return <code>String</code> with the validator, or <code>null</code>
+		 *         if the url has none
+		 */
+		String getIfRangeValidator() {
+			if (!entityTag.isEmpty() && !entityTag.startsWith("W/")) {
+				return entityTag;
+			} else if (!lastModified.isEmpty()) {
+				return lastModified;
+			} else {
+				return null;
+			}
+		}
+
+		/**
+		 * Get the version of the url kept with a restart, to check that a
+		 * resumed transfer is of the same contents
+		 *
+		 * @return <code>String</code> with the validators, or empty if the url
+		 *         has none, in which case it may not be resumed
+		 */
+		String getSourceVersion() {
+			if (entityTag.isEmpty() && lastModified.isEmpty()) {
+				return "";
+			}
+			return entityTag + "|" + lastModified;
+		}
+	}
+
+	/**
+	 * Probe the URL with a HEAD request to see if it may be fetched in byte
+	 * ranges
+	 *
+	 * @param httpClient
+	 *            {@link HttpClient} to use
+	 * @param sourceURL
+	 *            <code>String</code> with the url
+	 * @return {@link RangedUrl} with the length of the url contents, which is
+	 *         <code>-1</code> if the server does not give a length or does not
+	 *         accept byte ranges, and its validators
+	 * @throws HttpStreamingException
+	 *             if the url is not found, or the request fails
+	 */
+	static RangedUrl probeRangedUrl(final HttpClient httpClient,
+			final String sourceURL) throws HttpStreamingException {
+
+		log.info("probeRangedUrl()");
+
+		HttpHead httpHead = new HttpHead(sourceURL);
+		HttpResponse response;
+		try {
+			response = httpClient.execute(httpHead);
+			EntityUtils.consume(response.getEntity());
+		} catch (IOException e) {
+			log.error("IOException ocurred probing url", e);
+			throw new HttpStreamingException(e);
+		}
+
+		int statusCode = response.getStatusLine().getStatusCode();
+		log.info("status from HEAD:{}", statusCode);
+		if (statusCode == HttpStatus.SC_NOT_FOUND) {
+			throw new HttpStreamingException("404 not found for URL");
+		} else if (statusCode != HttpStatus.SC_OK) {
+			return new RangedUrl(-1, null, null);
+		}
+
+		Header entityTag = response.getFirstHeader("ETag");
+		Header lastModified = response.getFirstHeader("Last-Modified");
+		String entityTagValue = entityTag == null ? null : entityTag
+				.getValue().trim();
+		String lastModifiedValue = lastModified == null ? null : lastModified
+				.getValue().trim();
+
+		Header acceptRanges = response.getFirstHeader("Accept-Ranges");
+		if (acceptRanges == null
+				|| !acceptRanges.getValue().toLowerCase().contains("bytes")) {
+			log.info("byte ranges not accepted");
+			return new RangedUrl(-1, entityTagValue, lastModifiedValue);
+		}
+
+		Header contentLength = response.getFirstHeader("Content-Length");
+		if (contentLength == null) {
+			log.info("no content length");
+			return new RangedUrl(-1, entityTagValue, lastModifiedValue);
+		}
+
+		long length;
+		try {
+			length = Long.parseLong(contentLength.getValue().trim());
+		} catch (NumberFormatException e) {
+			log.warn("invalid content length:{}", contentLength.getValue());
+			length = -1;
+		}
+		return new RangedUrl(length, entityTagValue, lastModifiedValue);
+	}
+
+	/**
+	 * Get the size of each range when splitting the given length into at most
+	 * the given number of ranges. The last range may be shorter.
+	 *
+	 * @param length
+	 *            <code>long</code> with the length to split
+	 * @param maxRanges
+	 *            <code>int</code> with the most ranges to split into
+	 * @return <code>long</code> with the size of each range
+	 */
+	static long rangeSize(final long length, final int maxRanges) {
+		if (length <= 0) {
+			throw new IllegalArgumentException("length <= 0");
+		}
+
+		if (maxRanges <= 0) {
+			throw new IllegalArgumentException("maxRanges <= 0");
+		}
+
+		return (length + maxRanges - 1) / maxRanges;
+	}
+
+	/**
+	 * Get the number of ranges of the given size that cover the given length
+	 *
+	 * @param length
+	 *            <code>long</code> with the length to split
+	 * @param rangeSize
+	 *            <code>long</code> from {@link #rangeSize(long, int)}
+	 * @return <code>int</code> with the number of ranges
+	 */
+	static int rangeCount(final long length, final long rangeSize) {
+		return (int) ((length + rangeSize - 1) / rangeSize);
+	}
+
+	/**
+	 * Send a GET for a byte range of the url, and return the stream of its
+	 * contents
+	 *
+	 * @param httpClient
+	 *            {@link HttpClient} to use
+	 * @param httpGet
+	 *            {@link HttpGet} for the url, which may be aborted to give up
+	 *            the range
+	 * @param start
+	 *            <code>long</code> with the offset of the first byte
+	 * @param end
+	 *            <code>long</code> with the offset after the last byte
+	 * @param ifRangeValidator
+	 *            <code>String</code> from
+	 *            {@link RangedUrl#getIfRangeValidator()} sent in an
+	 *            <code>If-Range</code>, or <code>null</code> to send none
+	 * @return <code>InputStream</code> with the bytes of the range, which must
+	 *         be closed by the caller
+	 * @throws HttpStreamingException
+	 *             if the server does not return just the requested range, as
+	 *             when the url has changed since the validator was taken
+	 */
+	static InputStream openRange(final HttpClient httpClient,
+			final HttpGet httpGet, final long start, final long end,
+			final String ifRangeValidator) throws HttpStreamingException {
+
+		if (start < 0 || end <= start) {
+			throw new IllegalArgumentException("invalid range");
+		}
+
+		httpGet.setHeader("Range", "bytes=" + start + "-" + (end - 1));
+		if (ifRangeValidator != null) {
+			httpGet.setHeader("If-Range", ifRangeValidator);
+		}
+
+		HttpResponse response;
+		try {
+			response = httpClient.execute(httpGet);
+		} catch (IOException e) {
+			log.error("IOException ocurred requesting range", e);
+			throw new HttpStreamingException(e);
+		}
+
+		int statusCode = response.getStatusLine().getStatusCode();
+		Header contentRange = response.getFirstHeader("Content-Range");
+		HttpEntity entity = response.getEntity();
+
+		if (statusCode != HttpStatus.SC_PARTIAL_CONTENT
+				|| contentRange == null
+				|| !contentRange.getValue().trim()
+						.startsWith("bytes " + start + "-" + (end - 1) + "/")
+				|| entity == null) {
+			httpGet.abort();
+			log.error("range {}-{} not returned, status:{}", new Object[] {
+					start, end, statusCode });
+			if (statusCode == HttpStatus.SC_OK && ifRangeValidator != null) {
+				throw new HttpStreamingException(
+						"url changed since the transfer started, whole contents returned for range");
+			}
+			throw new HttpStreamingException(
+					"server did not return the requested range, status:"
+							+ statusCode);
+		}
+
+		try {
+			return entity.getContent();
+		} catch (IOException e) {
+			httpGet.abort();
+			log.error("IOException ocurred opening range", e);
+			throw new HttpStreamingException(e);
+		}
+	}
+
+}
@@ -43,4 +43,58 @@ public interface HttpStreamingService {
 			final TransferControlBlock transferControlBlock)
 			throws JargonException, HttpStreamingException;
 
+	/**
+	 * Accomplish a transfer by fetching byte ranges of the URL concurrently,
+	 * and writing each range at its offset in the iRODS file over its own
+	 * connection. This suits large files, where one HTTP stream and one iRODS
+	 * stream limit the throughput.
+	 * <p/>
+	 * The URL is probed with an HTTP HEAD. If the server does not accept byte
+	 * ranges, does not give a length, or the length is small, this falls back
+	 * to {@link #streamHttpUrlContentsToIRODSFile}.
+	 * <p/>
+	 * If long transfer restarts are configured in the jargon properties, the
+	 * progress of each range is kept by the restart manager, and a later call
+	 * for the same URL and target, after a failure or a cancel through the
+	 * <code>TransferControlBlock</code>, picks up where each range stopped.
+	 * The <code>ETag</code> and <code>Last-Modified</code> of the url are kept
+	 * with the restart, and an url that has changed since, or that has
+	 * neither, is fetched again in full. Each range is sent with an
+	 * <code>If-Range</code>, so an url that changes during the transfer fails
+	 * it rather than mixing two versions in the target.
+	 * <p/>
+	 * A cancelled transfer returns the path of the target just as a completed
+	 * one does, though the target holds only part of the url contents. Check
+	 * <code>isCancelled()</code> on the <code>TransferControlBlock</code>
+	 * after the call, or watch for the <code>CANCELLED</code> overall status
+	 * callback, to tell the two apart.
+	 * 
+	 * @param sourceURL
+	 *            <code>String</code> with the HTTP url to obtain a stream from
+	 * @param irodsTargetFile
+	 *            {@link IRODSFile} that will be the target of the transfer
+	 * @param numberOfThreads
+	 *            <code>int</code> with the number of ranges fetched at once
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener} that can receive status
+	 *            callbacks for transfer progress
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} that can control aspects of the
+	 *            running transfer
+	 * @return <code>String</code> with the iRODS absolute path to the file that
+	 *         holds the result of the operation, which is partial if the
+	 *         transfer was cancelled
+	 * @throws JargonException
+	 *             for errors occurring within iRODS during the operation
+	 * @throws HttpStreamingException
+	 *             for errors occuring in the HTTP protocol operation
+	 */
+	public abstract String streamHttpUrlContentsToIRODSFileUsingRanges(
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final int numberOfThreads,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException, HttpStreamingException;
+
 }
\ No newline at end of file
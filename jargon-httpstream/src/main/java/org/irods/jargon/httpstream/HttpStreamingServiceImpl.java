@@ -12,6 +12,8 @@ import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.irods.jargon.core.connection.ConnectionConstants;
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
@@ -20,6 +22,11 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.Stream2StreamAO;
 import org.irods.jargon.core.pub.io.ByteCountingCallbackInputStreamWrapper;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.AbstractRestartManager;
+import org.irods.jargon.core.transfer.FileRestartDataSegment;
+import org.irods.jargon.core.transfer.FileRestartInfo;
+import org.irods.jargon.core.transfer.FileRestartInfo.RestartType;
+import org.irods.jargon.core.transfer.FileRestartInfoIdentifier;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.irods.jargon.core.transfer.TransferStatus;
 import org.irods.jargon.core.transfer.TransferStatus.TransferState;
@@ -39,8 +46,15 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 
 	public static final Logger log = LoggerFactory
 			.getLogger(HttpStreamingServiceImpl.class);
+	/**
+	 * Default least length of an url transferred in ranges, smaller urls are
+	 * streamed in one request
+	 */
+	public static final long DEFAULT_MINIMUM_RANGED_LENGTH = 32 * 1024 * 1024;
+
 	private IRODSAccessObjectFactory irodsAccessObjectFactory;
 	private IRODSAccount irodsAccount;
+	private long minimumRangedLength = DEFAULT_MINIMUM_RANGED_LENGTH;
 
 	/**
 	 * Default constructor takes the objects necessary to communicate with iRODS
@@ -163,6 +177,344 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 
 		operativeTransferControlBlock.setTotalFilesToTransfer(1);
 
+		String callbackTargetIrodsPath = computeTargetIrodsPath(sourceURL,
+				irodsTargetFile);
+
+		IRODSFile callbackTargetIrodsFile = irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						callbackTargetIrodsPath);
+		callbackTargetIrodsFile.setResource(irodsTargetFile.getResource());
+
+		log.info("callbackTargetIrodsFile:{}", callbackTargetIrodsFile);
+
+		sendStartCallbacks(sourceURL, irodsTargetFile, callbackTargetIrodsFile,
+				urlSize, transferStatusCallbackListener,
+				operativeTransferControlBlock);
+
+		if (transferStatusCallbackListener != null) {
+			log.info("setting up a callback listener for within stream progress");
+			ConnectionProgressStatusListener listener = DefaultIntraFileProgressCallbackListener
+					.instance(TransferType.PUT, urlSize,
+							operativeTransferControlBlock,
+							transferStatusCallbackListener);
+			instream = new ByteCountingCallbackInputStreamWrapper(listener,
+					instream);
+		}
+
+		try {
+			log.debug("getting stream2streamAO");
+			Stream2StreamAO stream2StreamAO = irodsAccessObjectFactory
+					.getStream2StreamAO(irodsAccount);
+			stream2StreamAO.transferStreamToFileUsingIOStreams(instream,
+					(File) callbackTargetIrodsFile, urlSize, 0);
+
+			operativeTransferControlBlock.incrementFilesTransferredSoFar();
+
+			sendCompletionCallbacks(sourceURL, irodsTargetFile,
+					callbackTargetIrodsFile, urlSize,
+					transferStatusCallbackListener,
+					operativeTransferControlBlock);
+
+		} catch (Exception je) {
+			handleTransferException(je, sourceURL, irodsTargetFile,
+					callbackTargetIrodsFile, urlSize,
+					transferStatusCallbackListener,
+					operativeTransferControlBlock);
+		} finally {
+			// Closing the input stream will trigger connection release
+			try {
+				instream.close();
+			} catch (IOException e) {
+				log.error("IOException in close of HTTP input stream, logged and igonored");
+			}
+			// When HttpClient instance is no longer needed,
+			// shut down the connection manager to ensure
+			// immediate deallocation of all system resources
+			httpclient.getConnectionManager().shutdown();
+		}
+
+		log.info("contents streamed to:{}",
+				callbackTargetIrodsFile.getAbsolutePath());
+		return callbackTargetIrodsFile.getAbsolutePath();
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.httpstream.HttpStreamingService#
+	 * streamHttpUrlContentsToIRODSFileUsingRanges(java.lang.String,
+	 * org.irods.jargon.core.pub.io.IRODSFile, int,
+	 * org.irods.jargon.core.transfer.TransferStatusCallbackListener,
+	 * org.irods.jargon.core.transfer.TransferControlBlock)
+	 */
+	@Override
+	public String streamHttpUrlContentsToIRODSFileUsingRanges(
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final int numberOfThreads,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock)
+			throws JargonException, HttpStreamingException {
+
+		log.info("streamHttpUrlContentsToIRODSFileUsingRanges()");
+
+		if (sourceURL == null || sourceURL.isEmpty()) {
+			throw new IllegalArgumentException("null sourceURL");
+		}
+
+		if (irodsTargetFile == null) {
+			throw new IllegalArgumentException("irodsTargetFile is null");
+		}
+
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads < 1");
+		}
+
+		log.info("sourceURL:{}", sourceURL);
+		log.info("irodsTargetFile:{}", irodsTargetFile);
+		log.info("numberOfThreads:{}", numberOfThreads);
+
+		TransferControlBlock operativeTransferControlBlock = transferControlBlock;
+		if (operativeTransferControlBlock == null) {
+			operativeTransferControlBlock = irodsAccessObjectFactory
+					.buildDefaultTransferControlBlockBasedOnJargonProperties();
+		}
+
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+		connectionManager.setMaxTotal(numberOfThreads);
+		connectionManager.setDefaultMaxPerRoute(numberOfThreads);
+		HttpClient httpClient = new DefaultHttpClient(connectionManager);
+
+		try {
+			HttpRangeSupport.RangedUrl rangedUrl = HttpRangeSupport
+					.probeRangedUrl(httpClient, sourceURL);
+			long urlSize = rangedUrl.getLength();
+			log.info("size of URL for ranges:{}", urlSize);
+
+			if (numberOfThreads == 1 || urlSize < minimumRangedLength) {
+				log.info("not a ranged transfer, streaming in one request");
+				return streamHttpUrlContentsToIRODSFile(sourceURL,
+						irodsTargetFile, transferStatusCallbackListener,
+						operativeTransferControlBlock);
+			}
+
+			return streamRanges(httpClient, sourceURL, irodsTargetFile,
+					rangedUrl, numberOfThreads, transferStatusCallbackListener,
+					operativeTransferControlBlock);
+
+		} finally {
+			connectionManager.shutdown();
+		}
+	}
+
+	/**
+	 * Transfer the url in byte ranges, resuming a prior attempt if the restart
+	 * manager holds one for the same version of the url and the same ranges
+	 */
+	private String streamRanges(
+			final HttpClient httpClient,
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final HttpRangeSupport.RangedUrl rangedUrl,
+			final int numberOfThreads,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock operativeTransferControlBlock)
+			throws JargonException, HttpStreamingException {
+
+		long urlSize = rangedUrl.getLength();
+		String sourceVersion = rangedUrl.getSourceVersion();
+		long rangeSize = HttpRangeSupport.rangeSize(urlSize, numberOfThreads);
+		int rangeCount = HttpRangeSupport.rangeCount(urlSize, rangeSize);
+		log.info("transferring in {} ranges of {} bytes", rangeCount,
+				rangeSize);
+
+		operativeTransferControlBlock.setTotalFilesToTransfer(1);
+		operativeTransferControlBlock.setTotalBytesToTransfer(urlSize);
+
+		String callbackTargetIrodsPath = computeTargetIrodsPath(sourceURL,
+				irodsTargetFile);
+		IRODSFile callbackTargetIrodsFile = irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						callbackTargetIrodsPath);
+		callbackTargetIrodsFile.setResource(irodsTargetFile.getResource());
+		log.info("callbackTargetIrodsFile:{}", callbackTargetIrodsFile);
+
+		AbstractRestartManager restartManager = null;
+		FileRestartInfoIdentifier fileRestartInfoIdentifier = null;
+		long[] alreadyWritten = new long[rangeCount];
+		boolean resuming = false;
+
+		if (irodsAccessObjectFactory.getJargonProperties()
+				.isLongTransferRestart()
+				&& urlSize >= ConnectionConstants.MIN_FILE_RESTART_SIZE) {
+			restartManager = irodsAccessObjectFactory.getIrodsSession()
+					.getRestartManager();
+		}
+
+		if (restartManager != null) {
+			fileRestartInfoIdentifier = new FileRestartInfoIdentifier();
+			fileRestartInfoIdentifier.setAbsolutePath(callbackTargetIrodsFile
+					.getAbsolutePath());
+			fileRestartInfoIdentifier.setRestartType(RestartType.PUT);
+			fileRestartInfoIdentifier.setIrodsAccountIdentifier(irodsAccount
+					.toString());
+
+			FileRestartInfo fileRestartInfo = restartManager
+					.retrieveRestart(fileRestartInfoIdentifier);
+			if (fileRestartInfo != null
+					&& isRestartOfRanges(fileRestartInfo, sourceURL,
+							sourceVersion, urlSize, rangeSize, rangeCount)
+					&& callbackTargetIrodsFile.exists()) {
+				log.info("resuming ranged transfer:{}", fileRestartInfo);
+				resuming = true;
+				for (int i = 0; i < rangeCount; i++) {
+					alreadyWritten[i] = fileRestartInfo
+							.getFileRestartDataSegments().get(i).getLength();
+				}
+				operativeTransferControlBlock
+						.incrementTotalBytesTransferredSoFar(fileRestartInfo
+								.estimateLengthSoFar());
+			} else {
+				if (fileRestartInfo != null) {
+					log.info("restart does not match these ranges, discarded:{}",
+							fileRestartInfo);
+					restartManager.deleteRestart(fileRestartInfoIdentifier);
+				}
+				fileRestartInfo = restartManager
+						.retrieveRestartAndBuildIfNotStored(
+								fileRestartInfoIdentifier, sourceURL,
+								rangeCount);
+				fileRestartInfo.setSourceVersion(sourceVersion);
+				restartManager.storeRestart(fileRestartInfo);
+				for (int i = 0; i < rangeCount; i++) {
+					restartManager.updateOffsetForSegment(
+							fileRestartInfoIdentifier, i, i * rangeSize);
+				}
+			}
+		}
+
+		if (!resuming) {
+			createEmptyTarget(callbackTargetIrodsFile);
+		}
+
+		sendStartCallbacks(sourceURL, irodsTargetFile, callbackTargetIrodsFile,
+				urlSize, transferStatusCallbackListener,
+				operativeTransferControlBlock);
+
+		ConnectionProgressStatusListener listener = null;
+		if (transferStatusCallbackListener != null) {
+			log.info("setting up a callback listener for within stream progress");
+			listener = DefaultIntraFileProgressCallbackListener.instance(
+					TransferType.PUT, urlSize, operativeTransferControlBlock,
+					transferStatusCallbackListener);
+		}
+
+		RangedHttpIngest rangedHttpIngest = new RangedHttpIngest(
+				irodsAccessObjectFactory, irodsAccount, httpClient, sourceURL,
+				rangedUrl.getIfRangeValidator(),
+				callbackTargetIrodsFile.getAbsolutePath(), urlSize, rangeSize,
+				alreadyWritten, irodsAccessObjectFactory.getJargonProperties()
+						.getInputToOutputCopyBufferByteSize(),
+				operativeTransferControlBlock, listener, restartManager,
+				fileRestartInfoIdentifier);
+
+		try {
+			if (!rangedHttpIngest.execute()) {
+				log.info("ranged transfer cancelled, any restart is kept");
+				sendCancelCallback(sourceURL, callbackTargetIrodsFile,
+						transferStatusCallbackListener,
+						operativeTransferControlBlock);
+				return callbackTargetIrodsFile.getAbsolutePath();
+			}
+
+			if (fileRestartInfoIdentifier != null) {
+				restartManager.deleteRestart(fileRestartInfoIdentifier);
+			}
+
+			operativeTransferControlBlock.incrementFilesTransferredSoFar();
+
+			sendCompletionCallbacks(sourceURL, irodsTargetFile,
+					callbackTargetIrodsFile, urlSize,
+					transferStatusCallbackListener,
+					operativeTransferControlBlock);
+
+		} catch (Exception je) {
+			handleTransferException(je, sourceURL, irodsTargetFile,
+					callbackTargetIrodsFile, urlSize,
+					transferStatusCallbackListener,
+					operativeTransferControlBlock);
+		}
+
+		log.info("contents streamed to:{}",
+				callbackTargetIrodsFile.getAbsolutePath());
+		return callbackTargetIrodsFile.getAbsolutePath();
+	}
+
+	/**
+	 * Check that a stored restart is for the same url, at the same version,
+	 * split into the same ranges, so its segments can be resumed. An url
+	 * without validators is never resumed, as a change in its contents could
+	 * not be seen.
+	 */
+	private boolean isRestartOfRanges(final FileRestartInfo fileRestartInfo,
+			final String sourceURL, final String sourceVersion,
+			final long urlSize, final long rangeSize, final int rangeCount) {
+
+		if (!sourceURL.equals(fileRestartInfo.getLocalAbsolutePath())
+				|| fileRestartInfo.getFileRestartDataSegments().size() != rangeCount) {
+			return false;
+		}
+
+		if (sourceVersion.isEmpty()
+				|| !sourceVersion.equals(fileRestartInfo.getSourceVersion())) {
+			log.info("url has no validators or has changed since the restart");
+			return false;
+		}
+
+		for (int i = 0; i < rangeCount; i++) {
+			FileRestartDataSegment segment = fileRestartInfo
+					.getFileRestartDataSegments().get(i);
+			long rangeStart = i * rangeSize;
+			long rangeLength = Math.min(urlSize, rangeStart + rangeSize)
+					- rangeStart;
+			if (segment.getOffset() != rangeStart || segment.getLength() < 0
+					|| segment.getLength() > rangeLength) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create the target as an empty data object, replacing any existing one,
+	 * so the ranges can be written into it at their offsets
+	 */
+	private void createEmptyTarget(final IRODSFile callbackTargetIrodsFile)
+			throws JargonException {
+		if (callbackTargetIrodsFile.exists()) {
+			log.info("replacing existing target file");
+			callbackTargetIrodsFile.delete();
+			callbackTargetIrodsFile.reset();
+		}
+
+		try {
+			callbackTargetIrodsFile.createNewFile();
+		} catch (IOException e) {
+			log.error("unable to create target file", e);
+			throw new JargonException("unable to create target file", e);
+		} finally {
+			callbackTargetIrodsFile.close();
+		}
+	}
+
+	/**
+	 * Compute the iRODS path that will hold the url contents. If the target
+	 * is a collection, the last part of the url is used as the file name.
+	 */
+	private String computeTargetIrodsPath(final String sourceURL,
+			final IRODSFile irodsTargetFile) {
+
 		/*
 		 * Source URL is a file, target is either a collection, or specifies the
 		 * file. If the target exists, or the target parent exists, format the
@@ -192,149 +544,153 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 
 		String callbackTargetIrodsPath = targetIrodsPathBuilder.toString();
 		log.info("computed callbackTargetIrodsPath:{}", callbackTargetIrodsPath);
+		return callbackTargetIrodsPath;
+	}
 
-		// send 0th file status callback that indicates startup
-		if (transferStatusCallbackListener != null) {
-			TransferStatus status = TransferStatus.instance(TransferType.PUT,
-					sourceURL, callbackTargetIrodsPath, "",
-					operativeTransferControlBlock.getTotalBytesToTransfer(),
-					operativeTransferControlBlock
-							.getTotalBytesTransferredSoFar(),
-					operativeTransferControlBlock
-							.getTotalFilesTransferredSoFar(),
-					operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
-					operativeTransferControlBlock.getTotalFilesToTransfer(),
-					TransferState.OVERALL_INITIATION, irodsAccount.getHost(),
-					irodsAccount.getZone());
-			transferStatusCallbackListener.overallStatusCallback(status);
+	private void sendStartCallbacks(
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final IRODSFile callbackTargetIrodsFile,
+			final long urlSize,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock operativeTransferControlBlock)
+			throws JargonException {
+
+		if (transferStatusCallbackListener == null) {
+			return;
 		}
 
-		IRODSFile callbackTargetIrodsFile = irodsAccessObjectFactory
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						callbackTargetIrodsPath);
-		callbackTargetIrodsFile.setResource(irodsTargetFile.getResource());
+		// send 0th file status callback that indicates startup
+		TransferStatus ostatus = TransferStatus.instance(TransferType.PUT,
+				sourceURL, callbackTargetIrodsFile.getAbsolutePath(), "",
+				operativeTransferControlBlock.getTotalBytesToTransfer(),
+				operativeTransferControlBlock.getTotalBytesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+				operativeTransferControlBlock.getTotalFilesToTransfer(),
+				TransferState.OVERALL_INITIATION, irodsAccount.getHost(),
+				irodsAccount.getZone());
+		transferStatusCallbackListener.overallStatusCallback(ostatus);
+
+		TransferStatus status = TransferStatus.instance(TransferType.PUT,
+				sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
+				irodsTargetFile.getResource(), urlSize, urlSize,
+				operativeTransferControlBlock.getTotalFilesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+				operativeTransferControlBlock.getTotalFilesToTransfer(),
+				TransferState.IN_PROGRESS_START_FILE, irodsAccount.getHost(),
+				irodsAccount.getZone());
+		transferStatusCallbackListener.statusCallback(status);
+	}
 
-		log.info("callbackTargetIrodsFile:{}", callbackTargetIrodsFile);
+	private void sendCompletionCallbacks(
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final IRODSFile callbackTargetIrodsFile,
+			final long urlSize,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock operativeTransferControlBlock)
+			throws JargonException {
 
-		if (transferStatusCallbackListener != null) {
+		if (transferStatusCallbackListener == null) {
+			return;
+		}
 
-			TransferStatus status = TransferStatus.instance(TransferType.PUT,
-					sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
-					irodsTargetFile.getResource(), urlSize, urlSize,
-					operativeTransferControlBlock
-							.getTotalFilesTransferredSoFar(),
-					operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
-					operativeTransferControlBlock.getTotalFilesToTransfer(),
-					TransferState.IN_PROGRESS_START_FILE, irodsAccount
-							.getHost(), irodsAccount.getZone());
+		TransferStatus status = TransferStatus.instance(TransferType.PUT,
+				sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
+				irodsTargetFile.getResource(), urlSize, urlSize,
+				operativeTransferControlBlock.getTotalFilesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+				operativeTransferControlBlock.getTotalFilesToTransfer(),
+				TransferState.IN_PROGRESS_COMPLETE_FILE, irodsAccount.getHost(),
+				irodsAccount.getZone());
+		transferStatusCallbackListener.statusCallback(status);
+
+		TransferStatus ostatus = TransferStatus.instance(TransferType.PUT,
+				sourceURL, callbackTargetIrodsFile.getAbsolutePath(), "",
+				operativeTransferControlBlock.getTotalBytesToTransfer(),
+				operativeTransferControlBlock.getTotalBytesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+				operativeTransferControlBlock.getTotalFilesToTransfer(),
+				TransferState.OVERALL_COMPLETION, irodsAccount.getHost(),
+				irodsAccount.getZone());
+		transferStatusCallbackListener.overallStatusCallback(ostatus);
+	}
 
-			transferStatusCallbackListener.statusCallback(status);
-		}
+	/**
+	 * Tell the callback listener that the transfer stopped on a cancel, as the
+	 * returned path holds only part of the url contents
+	 */
+	private void sendCancelCallback(
+			final String sourceURL,
+			final IRODSFile callbackTargetIrodsFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock operativeTransferControlBlock)
+			throws JargonException {
 
-		if (transferStatusCallbackListener != null) {
-			log.info("setting up a callback listener for within stream progress");
-			ConnectionProgressStatusListener listener = DefaultIntraFileProgressCallbackListener
-					.instance(TransferType.PUT, urlSize, transferControlBlock,
-							transferStatusCallbackListener);
-			instream = new ByteCountingCallbackInputStreamWrapper(listener,
-					instream);
+		if (transferStatusCallbackListener == null) {
+			return;
 		}
 
-		try {
-			log.debug("getting stream2streamAO");
-			Stream2StreamAO stream2StreamAO = irodsAccessObjectFactory
-					.getStream2StreamAO(irodsAccount);
-			stream2StreamAO.transferStreamToFileUsingIOStreams(instream,
-					(File) callbackTargetIrodsFile, urlSize, 0);
-
-			operativeTransferControlBlock.incrementFilesTransferredSoFar();
+		TransferStatus ostatus = TransferStatus.instance(TransferType.PUT,
+				sourceURL, callbackTargetIrodsFile.getAbsolutePath(), "",
+				operativeTransferControlBlock.getTotalBytesToTransfer(),
+				operativeTransferControlBlock.getTotalBytesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesTransferredSoFar(),
+				operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+				operativeTransferControlBlock.getTotalFilesToTransfer(),
+				TransferState.CANCELLED, irodsAccount.getHost(),
+				irodsAccount.getZone());
+		transferStatusCallbackListener.overallStatusCallback(ostatus);
+	}
 
-			if (transferStatusCallbackListener != null) {
-
-				TransferStatus status = TransferStatus
-						.instance(TransferType.PUT, sourceURL,
-								callbackTargetIrodsFile.getAbsolutePath(),
-								irodsTargetFile.getResource(), urlSize,
-								urlSize, operativeTransferControlBlock
-										.getTotalFilesTransferredSoFar(),
-								operativeTransferControlBlock
-										.getTotalFilesSkippedSoFar(),
-								operativeTransferControlBlock
-										.getTotalFilesToTransfer(),
-								TransferState.IN_PROGRESS_COMPLETE_FILE,
-								irodsAccount.getHost(), irodsAccount.getZone());
-
-				transferStatusCallbackListener.statusCallback(status);
-
-				TransferStatus ostatus = TransferStatus
-						.instance(TransferType.PUT, sourceURL,
-								callbackTargetIrodsPath, "",
-								operativeTransferControlBlock
-										.getTotalBytesToTransfer(),
-								operativeTransferControlBlock
-										.getTotalBytesTransferredSoFar(),
-								operativeTransferControlBlock
-										.getTotalFilesTransferredSoFar(),
-								operativeTransferControlBlock
-										.getTotalFilesSkippedSoFar(),
-								operativeTransferControlBlock
-										.getTotalFilesToTransfer(),
-								TransferState.OVERALL_COMPLETION, irodsAccount
-										.getHost(), irodsAccount.getZone());
-				transferStatusCallbackListener.overallStatusCallback(ostatus);
-			}
+	/**
+	 * Report an error in the transfer to the callback listener, or rethrow it
+	 * if there is no listener
+	 */
+	private void handleTransferException(
+			final Exception je,
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final IRODSFile callbackTargetIrodsFile,
+			final long urlSize,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock operativeTransferControlBlock)
+			throws JargonException {
 
-		} catch (Exception je) {
-			// may rethrow or send back to the callback listener
-			log.error("exception in transfer", je);
+		// may rethrow or send back to the callback listener
+		log.error("exception in transfer", je);
 
-			int totalFiles = 0;
-			int totalFilesSoFar = 0;
+		int totalFiles = 0;
+		int totalFilesSoFar = 0;
 
-			operativeTransferControlBlock.reportErrorInTransfer();
-			totalFiles = operativeTransferControlBlock
-					.getTotalFilesToTransfer();
-			totalFilesSoFar = operativeTransferControlBlock
-					.getTotalFilesTransferredSoFar();
+		operativeTransferControlBlock.reportErrorInTransfer();
+		totalFiles = operativeTransferControlBlock.getTotalFilesToTransfer();
+		totalFilesSoFar = operativeTransferControlBlock
+				.getTotalFilesTransferredSoFar();
 
-			if (transferStatusCallbackListener != null) {
-				log.error("exception will be passed back to existing callback listener");
+		if (transferStatusCallbackListener != null) {
+			log.error("exception will be passed back to existing callback listener");
 
-				TransferStatus status = TransferStatus.instanceForException(
-						TransferType.PUT, sourceURL, callbackTargetIrodsFile
-								.getAbsolutePath(), callbackTargetIrodsFile
-								.getResource(), urlSize, irodsTargetFile
-								.length(), totalFilesSoFar,
-						operativeTransferControlBlock
-								.getTotalFilesSkippedSoFar(), totalFiles, je,
-						irodsAccount.getHost(), irodsAccount.getZone());
+			TransferStatus status = TransferStatus.instanceForException(
+					TransferType.PUT, sourceURL,
+					callbackTargetIrodsFile.getAbsolutePath(),
+					callbackTargetIrodsFile.getResource(), urlSize,
+					irodsTargetFile.length(), totalFilesSoFar,
+					operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+					totalFiles, je, irodsAccount.getHost(),
+					irodsAccount.getZone());
 
-				transferStatusCallbackListener.statusCallback(status);
+			transferStatusCallbackListener.statusCallback(status);
 
-			} else {
-				log.error("exception will be re-thrown, as there is no status callback listener");
-				throw new JargonException(
-						"exception thrown in transfer process, no callback listener supplied",
-						je);
+		} else {
+			log.error("exception will be re-thrown, as there is no status callback listener");
+			throw new JargonException(
+					"exception thrown in transfer process, no callback listener supplied",
+					je);
 
-			}
-		} finally {
-			// Closing the input stream will trigger connection release
-			try {
-				instream.close();
-			} catch (IOException e) {
-				log.error("IOException in close of HTTP input stream, logged and igonored");
-			}
-			// When HttpClient instance is no longer needed,
-			// shut down the connection manager to ensure
-			// immediate deallocation of all system resources
-			httpclient.getConnectionManager().shutdown();
 		}
-
-		log.info("contents streamed to:{}",
-				callbackTargetIrodsFile.getAbsolutePath());
-		return callbackTargetIrodsFile.getAbsolutePath();
-
 	}
 
 	/**
@@ -368,4 +724,23 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 		this.irodsAccount = irodsAccount;
 	}
 
+	/**
+	 * @return the least length of an url transferred in ranges
+	 */
+	public long getMinimumRangedLength() {
+		return minimumRangedLength;
+	}
+
+	/**
+	 * @param minimumRangedLength
+	 *            <code>long</code> with the least length of an url transferred
+	 *            in ranges, smaller urls are streamed in one request
+	 */
+	public void setMinimumRangedLength(final long minimumRangedLength) {
+		if (minimumRangedLength < 1) {
+			throw new IllegalArgumentException("minimumRangedLength < 1");
+		}
+		this.minimumRangedLength = minimumRangedLength;
+	}
+
 }
@@ -0,0 +1,339 @@
+package org.irods.jargon.httpstream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.irods.jargon.core.connection.ConnectionConstants;
+import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.io.ByteCountingCallbackInputStreamWrapper;
+import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
+import org.irods.jargon.core.pub.io.IRODSRandomAccessFile;
+import org.irods.jargon.core.transfer.AbstractRestartManager;
+import org.irods.jargon.core.transfer.FileRestartInfoIdentifier;
+import org.irods.jargon.core.transfer.FileRestartManagementException;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One ranged transfer of the contents of an url into an existing iRODS data
+ * object. Each byte range is fetched on its own thread, through the shared
+ * <code>HttpClient</code>, and written at its offset through an
+ * {@link IRODSRandomAccessFile} on that thread's own iRODS connection.
+ * <p/>
+ * Progress of each range is counted in the <code>TransferControlBlock</code>,
+ * and, if a restart is given, recorded in the segment for the range so that a
+ * failed or cancelled transfer can pick up where each range stopped.
+ */
+class RangedHttpIngest {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(RangedHttpIngest.class);
+
+	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final IRODSAccount irodsAccount;
+	private final HttpClient httpClient;
+	private final String sourceURL;
+	private final String ifRangeValidator;
+	private final String targetIrodsAbsolutePath;
+	private final long length;
+	private final long rangeSize;
+	private final long[] alreadyWritten;
+	private final int bufferSize;
+	private final TransferControlBlock transferControlBlock;
+	private final ConnectionProgressStatusListener connectionProgressStatusListener;
+	private final AbstractRestartManager restartManager;
+	private final FileRestartInfoIdentifier fileRestartInfoIdentifier;
+	private final AtomicBoolean abandoned = new AtomicBoolean(false);
+
+	/**
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory}
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} each range thread connects as
+	 * @param httpClient
+	 *            {@link HttpClient} with a thread safe connection manager
+	 *            allowing a connection per range
+	 * @param sourceURL
+	 *            <code>String</code> with the url
+	 * @param ifRangeValidator
+	 *            <code>String</code> with the validator of the url sent with
+	 *            each range, so a changed url is refused, or <code>null</code>
+	 * @param targetIrodsAbsolutePath
+	 *            <code>String</code> with the data object, which must exist
+	 * @param length
+	 *            <code>long</code> with the length of the url contents
+	 * @param rangeSize
+	 *            <code>long</code> with the size of each range
+	 * @param alreadyWritten
+	 *            <code>long[]</code> with the bytes of each range written by a
+	 *            prior attempt, one entry per range
+	 * @param bufferSize
+	 *            <code>int</code> with the size of the copy buffer of each
+	 *            range
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} counting the bytes, and checked
+	 *            for a cancel
+	 * @param connectionProgressStatusListener
+	 *            {@link ConnectionProgressStatusListener} for progress within
+	 *            the file, or <code>null</code>
+	 * @param restartManager
+	 *            {@link AbstractRestartManager} recording the progress of each
+	 *            range, or <code>null</code>
+	 * @param fileRestartInfoIdentifier
+	 *            {@link FileRestartInfoIdentifier} of the restart, with a
+	 *            segment for each range, or <code>null</code>
+	 */
+	RangedHttpIngest(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final HttpClient httpClient,
+			final String sourceURL,
+			final String ifRangeValidator,
+			final String targetIrodsAbsolutePath,
+			final long length,
+			final long rangeSize,
+			final long[] alreadyWritten,
+			final int bufferSize,
+			final TransferControlBlock transferControlBlock,
+			final ConnectionProgressStatusListener connectionProgressStatusListener,
+			final AbstractRestartManager restartManager,
+			final FileRestartInfoIdentifier fileRestartInfoIdentifier) {
+
+		if (alreadyWritten.length != HttpRangeSupport.rangeCount(length,
+				rangeSize)) {
+			throw new IllegalArgumentException(
+					"alreadyWritten does not have an entry per range");
+		}
+
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.irodsAccount = irodsAccount;
+		this.httpClient = httpClient;
+		this.sourceURL = sourceURL;
+		this.ifRangeValidator = ifRangeValidator;
+		this.targetIrodsAbsolutePath = targetIrodsAbsolutePath;
+		this.length = length;
+		this.rangeSize = rangeSize;
+		this.alreadyWritten = alreadyWritten;
+		this.bufferSize = bufferSize;
+		this.transferControlBlock = transferControlBlock;
+		this.connectionProgressStatusListener = connectionProgressStatusListener;
+		this.restartManager = restartManager;
+		this.fileRestartInfoIdentifier = fileRestartInfoIdentifier;
+	}
+
+	/**
+	 * Transfer every range, returning when all are written, one has failed,
+	 * or the transfer is cancelled
+	 *
+	 * @return <code>boolean</code> that is <code>true</code> if every range
+	 *         was written, <code>false</code> if the transfer was cancelled
+	 * @throws JargonException
+	 *             for an error writing to iRODS
+	 * @throws HttpStreamingException
+	 *             for an error fetching a range
+	 */
+	boolean execute() throws JargonException, HttpStreamingException {
+
+		log.info("execute()");
+		int rangeCount = alreadyWritten.length;
+		ExecutorService executor = Executors.newFixedThreadPool(rangeCount,
+				new ThreadFactory() {
+					private int threadNumber = 0;
+
+					@Override
+					public synchronized Thread newThread(final Runnable runnable) {
+						Thread thread = new Thread(runnable,
+								"http-range-ingest-" + threadNumber++);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(
+					rangeCount);
+			for (int i = 0; i < rangeCount; i++) {
+				futures.add(executor.submit(new RangeTransfer(i)));
+			}
+
+			boolean complete = true;
+			Throwable failure = null;
+			for (Future<Boolean> future : futures) {
+				try {
+					if (!future.get()) {
+						complete = false;
+					}
+				} catch (ExecutionException e) {
+					abandoned.set(true);
+					if (failure == null) {
+						failure = e.getCause();
+					}
+				} catch (InterruptedException e) {
+					abandoned.set(true);
+					Thread.currentThread().interrupt();
+					throw new JargonException(
+							"interrupted waiting for ranged transfer", e);
+				}
+			}
+
+			if (failure instanceof JargonException) {
+				throw (JargonException) failure;
+			} else if (failure instanceof HttpStreamingException) {
+				throw (HttpStreamingException) failure;
+			} else if (failure != null) {
+				throw new JargonException("error in ranged transfer", failure);
+			}
+
+			return complete;
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fetch and write one range, from where a prior attempt stopped
+	 */
+	private class RangeTransfer implements Callable<Boolean> {
+
+		private final int rangeNumber;
+
+		RangeTransfer(final int rangeNumber) {
+			this.rangeNumber = rangeNumber;
+		}
+
+		@Override
+		public Boolean call() throws Exception {
+			try {
+				return transferRange();
+			} catch (Exception e) {
+				log.error("error in range:{}", rangeNumber, e);
+				abandoned.set(true);
+				throw e;
+			}
+		}
+
+		private boolean transferRange() throws JargonException,
+				HttpStreamingException, IOException {
+
+			long rangeStart = rangeNumber * rangeSize;
+			long start = rangeStart + alreadyWritten[rangeNumber];
+			long end = Math.min(length, rangeStart + rangeSize);
+			log.info("range:{} from:{} to:{}", new Object[] { rangeNumber,
+					start, end });
+
+			if (start >= end) {
+				log.info("range already written");
+				return true;
+			}
+
+			HttpGet httpGet = new HttpGet(sourceURL);
+			InputStream in = null;
+			IRODSRandomAccessFile irodsRandomAccessFile = null;
+			long writtenSinceRestartUpdate = 0L;
+			boolean finished = false;
+
+			try {
+				irodsRandomAccessFile = irodsAccessObjectFactory
+						.getIRODSFileFactory(irodsAccount)
+						.instanceIRODSRandomAccessFile(targetIrodsAbsolutePath,
+								OpenFlags.WRITE);
+				irodsRandomAccessFile.seek(start, SeekWhenceType.SEEK_START);
+
+				in = HttpRangeSupport.openRange(httpClient, httpGet, start,
+						end, ifRangeValidator);
+				if (connectionProgressStatusListener != null) {
+					in = new ByteCountingCallbackInputStreamWrapper(
+							connectionProgressStatusListener, in);
+				}
+
+				byte[] buffer = new byte[bufferSize];
+				long position = start;
+				while (position < end) {
+					if (abandoned.get() || transferControlBlock.isCancelled()) {
+						log.info("range:{} stopped at:{}", rangeNumber,
+								position);
+						return false;
+					}
+
+					int read = in.read(buffer, 0,
+							(int) Math.min(buffer.length, end - position));
+					if (read == -1) {
+						throw new HttpStreamingException("range "
+								+ rangeNumber + " ended early at:" + position);
+					}
+
+					irodsRandomAccessFile.write(buffer, 0, read);
+					position += read;
+					transferControlBlock.incrementTotalBytesTransferredSoFar(read);
+					writtenSinceRestartUpdate += read;
+
+					if (fileRestartInfoIdentifier != null
+							&& writtenSinceRestartUpdate >= ConnectionConstants.MIN_FILE_RESTART_SIZE) {
+						restartManager.updateLengthForSegment(
+								fileRestartInfoIdentifier, rangeNumber,
+								writtenSinceRestartUpdate);
+						writtenSinceRestartUpdate = 0L;
+					}
+				}
+
+				finished = true;
+				return true;
+
+			} finally {
+				if (fileRestartInfoIdentifier != null
+						&& writtenSinceRestartUpdate > 0) {
+					try {
+						restartManager.updateLengthForSegment(
+								fileRestartInfoIdentifier, rangeNumber,
+								writtenSinceRestartUpdate);
+					} catch (FileRestartManagementException e) {
+						log.error("unable to record progress of range:{}",
+								rangeNumber, e);
+					}
+				}
+
+				if (!finished) {
+					// do not read the rest of the range to reuse the connection
+					httpGet.abort();
+				}
+
+				if (in != null) {
+					try {
+						in.close();
+					} catch (IOException e) {
+						log.warn("error closing range stream, ignored", e);
+					}
+				}
+
+				if (irodsRandomAccessFile != null) {
+					try {
+						irodsRandomAccessFile.close();
+					} catch (IOException e) {
+						log.warn("error closing iRODS file, ignored", e);
+					}
+				}
+
+				irodsAccessObjectFactory
+						.closeSessionAndEatExceptions(irodsAccount);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package org.irods.jargon.httpstream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpRangeSupportTest {
+
+	private ThreadSafeClientConnManager connectionManager;
+	private DefaultHttpClient httpClient;
+	private RangedContentHttpServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		connectionManager = new ThreadSafeClientConnManager();
+		httpClient = new DefaultHttpClient(connectionManager);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionManager.shutdown();
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testProbeRangedUrl() throws Exception {
+		server = RangedContentHttpServer.start(buildContent(1000), true);
+		HttpRangeSupport.RangedUrl rangedUrl = HttpRangeSupport
+				.probeRangedUrl(httpClient, server.getUrl());
+		Assert.assertEquals(1000, rangedUrl.getLength());
+		Assert.assertEquals("\"v1\"", rangedUrl.getEntityTag());
+		Assert.assertEquals("\"v1\"", rangedUrl.getIfRangeValidator());
+	}
+
+	@Test
+	public void testProbeRangedUrlNoRanges() throws Exception {
+		server = RangedContentHttpServer.start(buildContent(1000), false);
+		Assert.assertEquals(-1,
+				HttpRangeSupport.probeRangedUrl(httpClient, server.getUrl())
+						.getLength());
+	}
+
+	@Test(expected = HttpStreamingException.class)
+	public void testProbeRangedUrlNotFound() throws Exception {
+		server = RangedContentHttpServer.start(buildContent(1000), true);
+		HttpRangeSupport.probeRangedUrl(httpClient, server.getUrl()
+				.replace("content.dat", "idontexist"));
+	}
+
+	@Test
+	public void testProbeRangedUrlChangesVersionWhenRepublished()
+			throws Exception {
+		server = RangedContentHttpServer.start(buildContent(1000), true);
+		String before = HttpRangeSupport.probeRangedUrl(httpClient,
+				server.getUrl()).getSourceVersion();
+		server.republish(buildContent(1000));
+		String after = HttpRangeSupport.probeRangedUrl(httpClient,
+				server.getUrl()).getSourceVersion();
+		Assert.assertFalse("version not changed", before.equals(after));
+	}
+
+	@Test
+	public void testRangedUrlValidators() throws Exception {
+		Assert.assertEquals("", new HttpRangeSupport.RangedUrl(10, null, null)
+				.getSourceVersion());
+		Assert.assertNull(new HttpRangeSupport.RangedUrl(10, null, null)
+				.getIfRangeValidator());
+		Assert.assertEquals("Mon, 01 Jan 2024 00:00:00 GMT",
+				new HttpRangeSupport.RangedUrl(10, "W/\"weak\"",
+						"Mon, 01 Jan 2024 00:00:00 GMT").getIfRangeValidator());
+	}
+
+	@Test
+	public void testRangeSizeAndCount() throws Exception {
+		long rangeSize = HttpRangeSupport.rangeSize(1000, 3);
+		Assert.assertEquals(334, rangeSize);
+		Assert.assertEquals(3, HttpRangeSupport.rangeCount(1000, rangeSize));
+
+		rangeSize = HttpRangeSupport.rangeSize(5, 4);
+		Assert.assertEquals(2, rangeSize);
+		Assert.assertEquals(3, HttpRangeSupport.rangeCount(5, rangeSize));
+
+		rangeSize = HttpRangeSupport.rangeSize(2, 8);
+		Assert.assertEquals(1, rangeSize);
+		Assert.assertEquals(2, HttpRangeSupport.rangeCount(2, rangeSize));
+	}
+
+	@Test
+	public void testOpenRange() throws Exception {
+		byte[] content = buildContent(1000);
+		server = RangedContentHttpServer.start(content, true);
+
+		HttpGet httpGet = new HttpGet(server.getUrl());
+		InputStream in = HttpRangeSupport.openRange(httpClient, httpGet, 334,
+				668, "\"v1\"");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[100];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+
+		Assert.assertTrue("range content not as expected", Arrays.equals(
+				Arrays.copyOfRange(content, 334, 668), out.toByteArray()));
+	}
+
+	@Test(expected = HttpStreamingException.class)
+	public void testOpenRangeNotHonored() throws Exception {
+		server = RangedContentHttpServer.start(buildContent(1000), false);
+		HttpRangeSupport.openRange(httpClient, new HttpGet(server.getUrl()),
+				0, 500, null);
+	}
+
+	@Test(expected = HttpStreamingException.class)
+	public void testOpenRangeAfterUrlChanged() throws Exception {
+		server = RangedContentHttpServer.start(buildContent(1000), true);
+		String ifRangeValidator = HttpRangeSupport.probeRangedUrl(httpClient,
+				server.getUrl()).getIfRangeValidator();
+		server.republish(buildContent(1000));
+		HttpRangeSupport.openRange(httpClient, new HttpGet(server.getUrl()),
+				0, 500, ifRangeValidator);
+	}
+
+	private byte[] buildContent(final int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		return content;
+	}
+
+}
@@ -1,15 +1,33 @@
 package org.irods.jargon.httpstream;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.Assert;
 
 import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.JargonProperties;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.DataTransferOperations;
 import org.irods.jargon.core.pub.IRODSFileSystem;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.transfer.DefaultTransferControlBlock;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
 import org.irods.jargon.testutils.TestingPropertiesHelper;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -140,6 +158,323 @@ public class HttpStreamingServiceImplTest {
 
 	}
 
+	@Test
+	public final void testStreamHttpUrlContentsToIRODSFileUsingRanges()
+			throws Exception {
+		String testFileName = "testStreamHttpUrlContentsToIRODSFileUsingRanges.dat";
+		String testRetrievedFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesResult.dat";
+		byte[] content = new byte[300 * 1024];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		RangedContentHttpServer server = RangedContentHttpServer.start(
+				content, true);
+
+		String targetIrodsFile = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ testFileName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		IRODSFileFactory irodsFileFactory = irodsFileSystem
+				.getIRODSFileFactory(irodsAccount);
+		IRODSFile destFile = irodsFileFactory
+				.instanceIRODSFile(targetIrodsFile);
+		DataTransferOperations dataTransferOperationsAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataTransferOperations(
+						irodsAccount);
+
+		HttpStreamingServiceImpl httpStreamingService = new HttpStreamingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		httpStreamingService.setMinimumRangedLength(1);
+		String irodsTargetFileAbsPathFromStreaming;
+		try {
+			irodsTargetFileAbsPathFromStreaming = httpStreamingService
+					.streamHttpUrlContentsToIRODSFileUsingRanges(
+							server.getUrl(), destFile, 4, null, null);
+		} finally {
+			server.stop();
+		}
+		destFile = irodsFileFactory
+				.instanceIRODSFile(irodsTargetFileAbsPathFromStreaming);
+
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		File retrievedLocalFile = new File(absPath + testRetrievedFileName);
+
+		dataTransferOperationsAO.getOperation(destFile, retrievedLocalFile,
+				null, null);
+		Assert.assertEquals("file length not as expected", content.length,
+				retrievedLocalFile.length());
+		byte[] retrieved = new byte[content.length];
+		DataInputStream in = new DataInputStream(new FileInputStream(
+				retrievedLocalFile));
+		try {
+			in.readFully(retrieved);
+		} finally {
+			in.close();
+		}
+		Assert.assertTrue("file content not as expected",
+				Arrays.equals(content, retrieved));
+	}
+
+	@Test
+	public final void testStreamHttpUrlContentsToIRODSFileUsingRangesResumesDroppedRange()
+			throws Exception {
+		String testFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesResumesDroppedRange.dat";
+		String testRetrievedFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesResumesDroppedRangeResult.dat";
+		int rangeSize = 1024 * 1024;
+		byte[] content = buildContent(4 * rangeSize);
+		RangedContentHttpServer server = RangedContentHttpServer.start(
+				content, true);
+		server.dropRangeOnce(2 * rangeSize, 256 * 1024);
+
+		String targetIrodsFile = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ testFileName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		IRODSFile destFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsFile);
+
+		JargonProperties savedJargonProperties = irodsFileSystem
+				.getJargonProperties();
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				savedJargonProperties);
+		jargonProperties.setLongTransferRestart(true);
+		irodsFileSystem.getIrodsSession().setJargonProperties(
+				jargonProperties);
+
+		HttpStreamingServiceImpl httpStreamingService = new HttpStreamingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		httpStreamingService.setMinimumRangedLength(1);
+		String irodsTargetFileAbsPathFromStreaming;
+		try {
+			try {
+				httpStreamingService
+						.streamHttpUrlContentsToIRODSFileUsingRanges(
+								server.getUrl(), destFile, 4, null,
+								DefaultTransferControlBlock.instance());
+				Assert.fail("dropped range should fail the transfer");
+			} catch (JargonException e) {
+				// expected
+			}
+
+			irodsTargetFileAbsPathFromStreaming = httpStreamingService
+					.streamHttpUrlContentsToIRODSFileUsingRanges(
+							server.getUrl(), destFile, 4, null,
+							DefaultTransferControlBlock.instance());
+		} finally {
+			irodsFileSystem.getIrodsSession().setJargonProperties(
+					savedJargonProperties);
+			server.stop();
+		}
+
+		Assert.assertTrue("dropped range not resumed where it stopped",
+				hasRangeStartWithin(server.getRangeStarts(), 2 * rangeSize,
+						3 * rangeSize));
+		assertIrodsFileContent(irodsAccount,
+				irodsTargetFileAbsPathFromStreaming, testRetrievedFileName,
+				content);
+	}
+
+	@Test
+	public final void testStreamHttpUrlContentsToIRODSFileUsingRangesNotResumedWhenUrlChanged()
+			throws Exception {
+		String testFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesNotResumedWhenUrlChanged.dat";
+		String testRetrievedFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesNotResumedWhenUrlChangedResult.dat";
+		int rangeSize = 1024 * 1024;
+		byte[] content = buildContent(4 * rangeSize);
+		RangedContentHttpServer server = RangedContentHttpServer.start(
+				content, true);
+		server.dropRangeOnce(2 * rangeSize, 256 * 1024);
+
+		String targetIrodsFile = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ testFileName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		IRODSFile destFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsFile);
+
+		JargonProperties savedJargonProperties = irodsFileSystem
+				.getJargonProperties();
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				savedJargonProperties);
+		jargonProperties.setLongTransferRestart(true);
+		irodsFileSystem.getIrodsSession().setJargonProperties(
+				jargonProperties);
+
+		HttpStreamingServiceImpl httpStreamingService = new HttpStreamingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		httpStreamingService.setMinimumRangedLength(1);
+		byte[] republished = new byte[content.length];
+		for (int i = 0; i < republished.length; i++) {
+			republished[i] = (byte) (i * 17 + 5);
+		}
+		String irodsTargetFileAbsPathFromStreaming;
+		try {
+			try {
+				httpStreamingService
+						.streamHttpUrlContentsToIRODSFileUsingRanges(
+								server.getUrl(), destFile, 4, null,
+								DefaultTransferControlBlock.instance());
+				Assert.fail("dropped range should fail the transfer");
+			} catch (JargonException e) {
+				// expected
+			}
+
+			// same length, different contents
+			server.republish(republished);
+			int firstAttemptRanges = server.getRangeStarts().size();
+
+			irodsTargetFileAbsPathFromStreaming = httpStreamingService
+					.streamHttpUrlContentsToIRODSFileUsingRanges(
+							server.getUrl(), destFile, 4, null,
+							DefaultTransferControlBlock.instance());
+			List<Long> rangeStarts = server.getRangeStarts();
+			Assert.assertEquals("changed url should be fetched in full",
+					Arrays.asList(0L, (long) rangeSize, 2L * rangeSize,
+							3L * rangeSize),
+					sorted(rangeStarts.subList(firstAttemptRanges,
+							rangeStarts.size())));
+		} finally {
+			irodsFileSystem.getIrodsSession().setJargonProperties(
+					savedJargonProperties);
+			server.stop();
+		}
+
+		assertIrodsFileContent(irodsAccount,
+				irodsTargetFileAbsPathFromStreaming, testRetrievedFileName,
+				republished);
+	}
+
+	@Test
+	public final void testStreamHttpUrlContentsToIRODSFileUsingRangesCancelledThenResumed()
+			throws Exception {
+		String testFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesCancelledThenResumed.dat";
+		String testRetrievedFileName = "testStreamHttpUrlContentsToIRODSFileUsingRangesCancelledThenResumedResult.dat";
+		int rangeSize = 1024 * 1024;
+		int bytesBeforeHold = 64 * 1024;
+		byte[] content = buildContent(4 * rangeSize);
+		RangedContentHttpServer server = RangedContentHttpServer.start(
+				content, true);
+		server.holdRanges(bytesBeforeHold);
+
+		String targetIrodsFile = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ testFileName);
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		final IRODSFile destFile = irodsFileSystem.getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(targetIrodsFile);
+
+		JargonProperties savedJargonProperties = irodsFileSystem
+				.getJargonProperties();
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				savedJargonProperties);
+		jargonProperties.setLongTransferRestart(true);
+		irodsFileSystem.getIrodsSession().setJargonProperties(
+				jargonProperties);
+
+		final HttpStreamingServiceImpl httpStreamingService = new HttpStreamingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		httpStreamingService.setMinimumRangedLength(1);
+		final String url = server.getUrl();
+		final TransferControlBlock transferControlBlock = DefaultTransferControlBlock
+				.instance();
+		final List<TransferState> overallStates = Collections
+				.synchronizedList(new ArrayList<TransferState>());
+		final TransferStatusCallbackListener listener = new TransferStatusCallbackListener() {
+
+			@Override
+			public FileStatusCallbackResponse statusCallback(
+					final TransferStatus transferStatus) {
+				return FileStatusCallbackResponse.CONTINUE;
+			}
+
+			@Override
+			public void overallStatusCallback(
+					final TransferStatus transferStatus) {
+				overallStates.add(transferStatus.getTransferState());
+			}
+
+			@Override
+			public CallbackResponse transferAsksWhetherToForceOperation(
+					final String irodsAbsolutePath, final boolean isCollection) {
+				return CallbackResponse.YES_FOR_ALL;
+			}
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		String cancelledPath;
+		String irodsTargetFileAbsPathFromStreaming;
+		try {
+			Future<String> cancelled = executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return httpStreamingService
+							.streamHttpUrlContentsToIRODSFileUsingRanges(url,
+									destFile, 4, listener,
+									transferControlBlock);
+				}
+			});
+
+			// cancel once each range has written what was sent before the hold
+			long waitUntil = System.currentTimeMillis() + 30000;
+			while ((server.getHeldRangeCount() < 4 || transferControlBlock
+					.getTotalBytesTransferredSoFar() < 4 * bytesBeforeHold)
+					&& System.currentTimeMillis() < waitUntil) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals("ranges not all in progress",
+					4 * bytesBeforeHold,
+					transferControlBlock.getTotalBytesTransferredSoFar());
+
+			transferControlBlock.setCancelled(true);
+			server.releaseHeldRanges();
+			cancelledPath = cancelled.get();
+
+			irodsTargetFileAbsPathFromStreaming = httpStreamingService
+					.streamHttpUrlContentsToIRODSFileUsingRanges(url,
+							destFile, 4, null,
+							DefaultTransferControlBlock.instance());
+		} finally {
+			executor.shutdownNow();
+			irodsFileSystem.getIrodsSession().setJargonProperties(
+					savedJargonProperties);
+			server.stop();
+		}
+
+		Assert.assertEquals("cancelled transfer should return the target",
+				destFile.getAbsolutePath(), cancelledPath);
+		Assert.assertTrue("no cancelled callback",
+				overallStates.contains(TransferState.CANCELLED));
+		Assert.assertFalse("cancelled transfer reported as complete",
+				overallStates.contains(TransferState.OVERALL_COMPLETION));
+		List<Long> rangeStarts = server.getRangeStarts();
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue("cancelled range " + i
+					+ " not resumed where it stopped",
+					hasRangeStartWithin(rangeStarts, i * rangeSize, (i + 1)
+							* rangeSize));
+		}
+		assertIrodsFileContent(irodsAccount,
+				irodsTargetFileAbsPathFromStreaming, testRetrievedFileName,
+				content);
+	}
+
 	@Test(expected = HttpStreamingException.class)
 	public final void testStreamHttpUrlContentsToIRODSFileURLDoesNotExist()
 			throws Exception {
@@ -165,4 +500,55 @@ public class HttpStreamingServiceImplTest {
 
 	}
 
+	private static byte[] buildContent(final int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		return content;
+	}
+
+	private static List<Long> sorted(final List<Long> values) {
+		List<Long> sorted = new ArrayList<Long>(values);
+		Collections.sort(sorted);
+		return sorted;
+	}
+
+	private static boolean hasRangeStartWithin(final List<Long> rangeStarts,
+			final long from, final long to) {
+		for (long rangeStart : rangeStarts) {
+			if (rangeStart > from && rangeStart < to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void assertIrodsFileContent(
+			final IRODSAccount irodsAccount, final String irodsAbsolutePath,
+			final String testRetrievedFileName, final byte[] content)
+			throws Exception {
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(irodsAbsolutePath);
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		File retrievedLocalFile = new File(absPath + testRetrievedFileName);
+
+		irodsFileSystem.getIRODSAccessObjectFactory()
+				.getDataTransferOperations(irodsAccount)
+				.getOperation(irodsFile, retrievedLocalFile, null, null);
+		Assert.assertEquals("file length not as expected", content.length,
+				retrievedLocalFile.length());
+		byte[] retrieved = new byte[content.length];
+		DataInputStream in = new DataInputStream(new FileInputStream(
+				retrievedLocalFile));
+		try {
+			in.readFully(retrieved);
+		} finally {
+			in.close();
+		}
+		Assert.assertTrue("file content not as expected",
+				Arrays.equals(content, retrieved));
+	}
+
 }
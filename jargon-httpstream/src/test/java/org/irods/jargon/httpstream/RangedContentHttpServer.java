@@ -0,0 +1,227 @@
+package org.irods.jargon.httpstream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server for tests that serves content at
+ * <code>/content.dat</code>, optionally honoring single byte ranges. Each
+ * version of the content has its own <code>ETag</code>, and a range with an
+ * <code>If-Range</code> of an older version is answered with the whole
+ * content. A range
+ * may be dropped partway once, to stand in for a failed connection, and
+ * every range may be held partway, so a test can act while the ranges are in
+ * progress.
+ */
+public class RangedContentHttpServer {
+
+	private static final Pattern RANGE = Pattern
+			.compile("bytes=(\\d+)-(\\d+)");
+
+	private final HttpServer httpServer;
+	private byte[] content;
+	private int version = 1;
+	private final boolean acceptRanges;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final List<Long> rangeStarts = new ArrayList<Long>();
+	private final AtomicInteger heldRanges = new AtomicInteger();
+	private long dropRangeStart = -1;
+	private int dropAfter;
+	private int holdAfter = -1;
+	private CountDownLatch holdLatch;
+
+	public static RangedContentHttpServer start(final byte[] content,
+			final boolean acceptRanges) throws IOException {
+		return new RangedContentHttpServer(content, acceptRanges);
+	}
+
+	private RangedContentHttpServer(final byte[] content,
+			final boolean acceptRanges) throws IOException {
+		this.content = content;
+		this.acceptRanges = acceptRanges;
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0),
+				0);
+		httpServer.createContext("/content.dat", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				serve(exchange);
+			}
+		});
+		httpServer.setExecutor(executor);
+		httpServer.start();
+	}
+
+	/**
+	 * Close the connection of the next range that starts at the given offset,
+	 * after sending part of it
+	 * 
+	 * @param rangeStart
+	 *            <code>long</code> with the first byte of the range to drop
+	 * @param bytesBeforeDrop
+	 *            <code>int</code> with the bytes sent before the drop
+	 */
+	public synchronized void dropRangeOnce(final long rangeStart,
+			final int bytesBeforeDrop) {
+		dropRangeStart = rangeStart;
+		dropAfter = bytesBeforeDrop;
+	}
+
+	/**
+	 * Hold every range after sending part of it, until
+	 * {@link #releaseHeldRanges()}
+	 * 
+	 * @param bytesBeforeHold
+	 *            <code>int</code> with the bytes sent before the hold
+	 */
+	public synchronized void holdRanges(final int bytesBeforeHold) {
+		holdAfter = bytesBeforeHold;
+		holdLatch = new CountDownLatch(1);
+	}
+
+	/**
+	 * Send the rest of every held range, and stop holding new ones
+	 */
+	public synchronized void releaseHeldRanges() {
+		holdAfter = -1;
+		if (holdLatch != null) {
+			holdLatch.countDown();
+		}
+	}
+
+	/**
+	 * @return <code>int</code> with the number of ranges now held
+	 */
+	public int getHeldRangeCount() {
+		return heldRanges.get();
+	}
+
+	/**
+	 * @return <code>List</code> of the first byte of each range requested, in
+	 *         the order received
+	 */
+	public synchronized List<Long> getRangeStarts() {
+		return new ArrayList<Long>(rangeStarts);
+	}
+
+	/**
+	 * Serve new content from now on, under a new <code>ETag</code>
+	 * 
+	 * @param content
+	 *            <code>byte[]</code> with the new content
+	 */
+	public synchronized void republish(final byte[] content) {
+		this.content = content;
+		version++;
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + httpServer.getAddress().getPort()
+				+ "/content.dat";
+	}
+
+	public void stop() {
+		releaseHeldRanges();
+		httpServer.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void serve(final HttpExchange exchange) throws IOException {
+		byte[] content;
+		String entityTag;
+		synchronized (this) {
+			content = this.content;
+			entityTag = "\"v" + version + "\"";
+		}
+
+		if (acceptRanges) {
+			exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+		}
+		exchange.getResponseHeaders().add("ETag", entityTag);
+
+		int start = 0;
+		int end = content.length;
+		int status = 200;
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+		if (ifRange != null && !ifRange.equals(entityTag)) {
+			range = null;
+		}
+		if (acceptRanges && range != null) {
+			Matcher matcher = RANGE.matcher(range);
+			if (matcher.matches()) {
+				start = Integer.parseInt(matcher.group(1));
+				end = Math.min(content.length,
+						Integer.parseInt(matcher.group(2)) + 1);
+				status = 206;
+				exchange.getResponseHeaders().add("Content-Range",
+						"bytes " + start + "-" + (end - 1) + "/" + content.length);
+			}
+		}
+
+		if ("HEAD".equals(exchange.getRequestMethod())) {
+			exchange.getResponseHeaders().add("Content-Length",
+					String.valueOf(content.length));
+			exchange.sendResponseHeaders(status, -1);
+			exchange.close();
+			return;
+		}
+
+		int sendBeforePause = end - start;
+		boolean drop = false;
+		CountDownLatch latch = null;
+		if (status == 206) {
+			synchronized (this) {
+				rangeStarts.add((long) start);
+				if (start == dropRangeStart) {
+					dropRangeStart = -1;
+					drop = true;
+					sendBeforePause = Math.min(sendBeforePause, dropAfter);
+				} else if (holdAfter >= 0) {
+					latch = holdLatch;
+					sendBeforePause = Math.min(sendBeforePause, holdAfter);
+				}
+			}
+		}
+
+		exchange.sendResponseHeaders(status, end - start);
+		OutputStream out = exchange.getResponseBody();
+		out.write(content, start, sendBeforePause);
+		out.flush();
+
+		if (drop) {
+			// closing short of the content length drops the connection
+			exchange.close();
+			return;
+		}
+
+		if (latch != null) {
+			heldRanges.incrementAndGet();
+			try {
+				latch.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				heldRanges.decrementAndGet();
+			}
+		}
+
+		out.write(content, start + sendBeforePause, end - start
+				- sendBeforePause);
+		out.close();
+	}
+
+}
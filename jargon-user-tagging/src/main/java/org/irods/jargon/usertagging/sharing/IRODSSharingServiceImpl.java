@@ -12,6 +12,8 @@ import org.irods.jargon.core.exception.DuplicateDataException;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.OperationNotSupportedByThisServerException;
+import org.irods.jargon.core.pub.BulkFileOperationResponse;
+import org.irods.jargon.core.pub.BulkFileOperationResponse.ResultStatus;
 import org.irods.jargon.core.pub.CollectionAO;
 import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
 import org.irods.jargon.core.pub.DataObjectAO;
@@ -549,15 +551,10 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 				MiscIRODSUtils.getZoneInPath(absPath),
 				irodsSharedFileOrCollection.getDomainUniqueName(), true);
 		log.info("inheritance set, now setting the ACLs desired...");
-		for (ShareUser shareUser : irodsSharedFileOrCollection.getShareUsers()) {
-			log.info("shareUser:{}", shareUser);
-			// FIXMME: need objstat lookup optimization
-			// assume recursive is true..
-			collectionAO.setAccessPermission(shareUser.getZone(),
-					irodsSharedFileOrCollection.getDomainUniqueName(),
-					shareUser.getUserName(), true,
-					shareUser.getFilePermission());
-		}
+		// assume recursive is true..
+		checkPermissionResponses(collectionAO.setAccessPermissionsForUsers(
+				irodsSharedFileOrCollection.getDomainUniqueName(),
+				buildUserFilePermissions(irodsSharedFileOrCollection), true));
 	}
 
 	/**
@@ -578,14 +575,69 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 		log.info("setting metadata for share:{}", avuData);
 		dataObjectAO.addAVUMetadata(
 				irodsSharedFileOrCollection.getDomainUniqueName(), avuData);
-		log.info("inheritance set, now setting the ACLs desired...");
+		log.info("now setting the ACLs desired...");
+		checkPermissionResponses(dataObjectAO.setAccessPermissionsForUsers(
+				irodsSharedFileOrCollection.getDomainUniqueName(),
+				buildUserFilePermissions(irodsSharedFileOrCollection)));
+	}
+
+	/**
+	 * Build the permissions for the share users, so they can be set in one
+	 * batch
+	 * 
+	 * @param irodsSharedFileOrCollection
+	 * @return <code>List</code> of {@link UserFilePermission}
+	 */
+	private List<UserFilePermission> buildUserFilePermissions(
+			final IRODSSharedFileOrCollection irodsSharedFileOrCollection) {
+		List<UserFilePermission> userFilePermissions = new ArrayList<UserFilePermission>(
+				irodsSharedFileOrCollection.getShareUsers().size());
 		for (ShareUser shareUser : irodsSharedFileOrCollection.getShareUsers()) {
 			log.info("shareUser:{}", shareUser);
-			// FIXMME: need objstat lookup optimization
-			// assume recursive is true..
-			dataObjectAO.setAccessPermission(shareUser.getZone(),
-					irodsSharedFileOrCollection.getDomainUniqueName(),
-					shareUser.getUserName(), shareUser.getFilePermission());
+			UserFilePermission userFilePermission = new UserFilePermission();
+			userFilePermission.setUserName(shareUser.getUserName());
+			userFilePermission.setUserZone(shareUser.getZone());
+			userFilePermission.setFilePermissionEnum(shareUser
+					.getFilePermission());
+			userFilePermissions.add(userFilePermission);
+		}
+		return userFilePermissions;
+	}
+
+	/**
+	 * The batch reports failures for each user rather than throwing, so check
+	 * them here and fail the share as setting one at a time would have
+	 * 
+	 * @param responses
+	 * @throws JargonException
+	 */
+	private void checkPermissionResponses(
+			final List<BulkFileOperationResponse> responses)
+			throws JargonException {
+		StringBuilder failures = null;
+		for (BulkFileOperationResponse response : responses) {
+			if (response.getResultStatus() == ResultStatus.OK) {
+				continue;
+			}
+			log.error("error setting share permission:{}", response);
+			if (failures == null) {
+				failures = new StringBuilder(
+						"unable to set share permissions:");
+			}
+			failures.append(" ");
+			failures.append(response.getUserName());
+			if (!response.getUserZone().isEmpty()) {
+				failures.append("#");
+				failures.append(response.getUserZone());
+			}
+			failures.append(":");
+			failures.append(response.getResultStatus());
+			failures.append(" ");
+			failures.append(response.getMessage());
+		}
+
+		if (failures != null) {
+			throw new JargonException(failures.toString());
 		}
 	}
 
@@ -1,7 +1,10 @@
 package org.irods.jargon.usertagging.tags;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.irods.jargon.core.connection.IRODSAccount;
@@ -18,6 +21,7 @@ import org.irods.jargon.core.query.GenQueryBuilderException;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
 import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.IRODSQueryResultSetInterface;
 import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
@@ -56,7 +60,14 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 	public static final Logger log = LoggerFactory
 			.getLogger(FreeTaggingServiceImpl.class);
 
+	/**
+	 * Most paths named in one IN condition when listing the objects found in
+	 * the tag index
+	 */
+	public static final int SEARCH_PATHS_PER_QUERY = 100;
+
 	private final IRODSTaggingService irodsTaggingService;
+	private final UserTagIndex userTagIndex;
 
 	/**
 	 * Static initializer that initializes the service with access to objects
@@ -74,7 +85,35 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
 		return new FreeTaggingServiceImpl(irodsAccessObjectFactory,
-				irodsAccount, null);
+				irodsAccount, null, null);
+	}
+
+	/**
+	 * Static initializer that gives the service a tag index for the logged-in
+	 * user. Tags are resolved to objects in the index, rather than by a query
+	 * of iRODS, and the tags updated through the service are updated in the
+	 * index as well.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param userTagIndex
+	 *            {@link UserTagIndex} for the user of the account
+	 * @return <code>FreeTaggingService</code> implementation instance.
+	 */
+	public static FreeTaggingService instanceWithUserTagIndex(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final UserTagIndex userTagIndex) {
+		if (userTagIndex == null) {
+			throw new IllegalArgumentException("null userTagIndex");
+		}
+		return new FreeTaggingServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, IRODSTaggingServiceImpl.instance(
+						irodsAccessObjectFactory, irodsAccount, userTagIndex),
+				userTagIndex);
 	}
 
 	/**
@@ -101,7 +140,7 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 			final IRODSTaggingService irodsTaggingService)
 			throws JargonException {
 		return new FreeTaggingServiceImpl(irodsAccessObjectFactory,
-				irodsAccount, irodsTaggingService);
+				irodsAccount, irodsTaggingService, null);
 	}
 
 	/**
@@ -119,13 +158,18 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 	 *            implementation that will provide CRUD operations to iRODS
 	 *            tags. This may be left as null, and a default service will be
 	 *            initialized.
+	 * @param userTagIndex
+	 *            {@link UserTagIndex} to resolve searches from, or
+	 *            <code>null</code> to query iRODS
 	 * @throws JargonException
 	 */
 	private FreeTaggingServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount,
-			final IRODSTaggingService irodsTaggingService) {
+			final IRODSTaggingService irodsTaggingService,
+			final UserTagIndex userTagIndex) {
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.userTagIndex = userTagIndex;
 
 		if (irodsTaggingService == null) {
 			this.irodsTaggingService = IRODSTaggingServiceImpl.instance(
@@ -467,6 +511,10 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 			throw new JargonException("no searchTags were found");
 		}
 
+		if (userTagIndex != null) {
+			return searchUsingUserTagIndex(searchTags, searchTagValues);
+		}
+
 		List<CollectionAndDataObjectListingEntry> resultEntries = new ArrayList<CollectionAndDataObjectListingEntry>();
 
 		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, true,
@@ -592,4 +640,132 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 
 	}
 
+	/**
+	 * Search using the tag index, which finds the objects the logged-in user
+	 * has given every one of the tags, and then list those objects with a
+	 * query per batch of paths, with no query at all if none are found
+	 * 
+	 * @param searchTags
+	 *            <code>String</code> with the search as given
+	 * @param searchTagValues
+	 *            <code>String[]</code> with the individual tags
+	 * @return {@link TagQuerySearchResult}
+	 * @throws JargonException
+	 */
+	private TagQuerySearchResult searchUsingUserTagIndex(
+			final String searchTags, final String[] searchTagValues)
+			throws JargonException {
+
+		userTagIndex.refreshIfStale(irodsAccessObjectFactory, irodsAccount);
+
+		Set<String> dataObjectPaths = userTagIndex.findPathsWithAllTags(
+				MetadataDomain.DATA, searchTagValues);
+		Set<String> collectionPaths = userTagIndex.findPathsWithAllTags(
+				MetadataDomain.COLLECTION, searchTagValues);
+		log.info("tag index found {} data objects and {} collections",
+				dataObjectPaths.size(), collectionPaths.size());
+
+		List<CollectionAndDataObjectListingEntry> resultEntries = new ArrayList<CollectionAndDataObjectListingEntry>();
+		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
+				.getIRODSGenQueryExecutor(getIrodsAccount());
+		int pageSize = getIrodsAccessObjectFactory().getJargonProperties()
+				.getMaxFilesAndDirsQueryMax();
+
+		try {
+			List<String> sortedPaths = new ArrayList<String>(dataObjectPaths);
+			Collections.sort(sortedPaths);
+			for (int i = 0; i < sortedPaths.size(); i += SEARCH_PATHS_PER_QUERY) {
+				List<String> batch = sortedPaths.subList(i,
+						Math.min(i + SEARCH_PATHS_PER_QUERY, sortedPaths.size()));
+				Set<String> parentPaths = new HashSet<String>();
+				Set<String> dataNames = new HashSet<String>();
+				for (String path : batch) {
+					int lastSlash = path.lastIndexOf('/');
+					parentPaths.add(path.substring(0, lastSlash));
+					dataNames.add(path.substring(lastSlash + 1));
+				}
+
+				IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true,
+						null);
+				DataAOHelper
+						.buildDataObjectQuerySelectsNoReplicationInfo(builder);
+				builder.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_COLL_NAME,
+						QueryConditionOperators.IN,
+						new ArrayList<String>(parentPaths))
+						.addConditionAsMultiValueCondition(
+								RodsGenQueryEnum.COL_DATA_NAME,
+								QueryConditionOperators.IN,
+								new ArrayList<String>(dataNames));
+
+				IRODSQueryResultSet resultSet = irodsGenQueryExecutor
+						.executeIRODSQuery(
+								builder.exportIRODSQueryFromBuilder(pageSize), 0);
+				while (true) {
+					for (IRODSQueryResultRow row : resultSet.getResults()) {
+						// the IN conditions also match names in other batch
+						// collections, keep only the paths asked for
+						if (dataObjectPaths.contains(row.getColumn(0) + "/"
+								+ row.getColumn(1))) {
+							resultEntries
+									.add(DataAOHelper
+											.buildCollectionListEntryFromResultSetRowForDataObjectQueryNoReplicationInfo(
+													row,
+													resultSet.getTotalRecords()));
+						}
+					}
+
+					if (!resultSet.isHasMoreRecords()) {
+						break;
+					}
+					resultSet = irodsGenQueryExecutor.getMoreResults(resultSet);
+				}
+			}
+
+			sortedPaths = new ArrayList<String>(collectionPaths);
+			Collections.sort(sortedPaths);
+			for (int i = 0; i < sortedPaths.size(); i += SEARCH_PATHS_PER_QUERY) {
+				List<String> batch = sortedPaths.subList(i,
+						Math.min(i + SEARCH_PATHS_PER_QUERY, sortedPaths.size()));
+
+				IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true,
+						null);
+				CollectionAOHelper
+						.buildSelectsNeededForCollectionsInCollectionsAndDataObjectsListingEntry(builder);
+				builder.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_COLL_NAME,
+						QueryConditionOperators.IN, new ArrayList<String>(batch));
+
+				IRODSQueryResultSet resultSet = irodsGenQueryExecutor
+						.executeIRODSQuery(
+								builder.exportIRODSQueryFromBuilder(pageSize), 0);
+				while (true) {
+					for (IRODSQueryResultRow row : resultSet.getResults()) {
+						resultEntries
+								.add(CollectionAOHelper
+										.buildCollectionListEntryFromResultSetRowForCollectionQuery(
+												row, resultSet.getTotalRecords()));
+					}
+
+					if (!resultSet.isHasMoreRecords()) {
+						break;
+					}
+					resultSet = irodsGenQueryExecutor.getMoreResults(resultSet);
+				}
+			}
+
+		} catch (JargonQueryException e) {
+			log.error("query exception for  query", e);
+			throw new JargonException(
+					"error in query listing objects found in tag index", e);
+		} catch (GenQueryBuilderException e) {
+			log.error("query exception for  query", e);
+			throw new JargonException(
+					"error in query listing objects found in tag index", e);
+		}
+
+		return TagQuerySearchResult.instance(searchTags, resultEntries);
+
+	}
+
 }
@@ -53,6 +53,8 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 	public static final Logger log = LoggerFactory
 			.getLogger(IRODSTaggingServiceImpl.class);
 
+	private final UserTagIndex userTagIndex;
+
 	/**
 	 * Static initializer used to create instances of the service.
 	 * 
@@ -69,7 +71,31 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
 		return new IRODSTaggingServiceImpl(irodsAccessObjectFactory,
-				irodsAccount);
+				irodsAccount, null);
+	}
+
+	/**
+	 * Static initializer used to create instances of the service that keep the
+	 * given tag index current as tags of the user are added and removed.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param userTagIndex
+	 *            {@link UserTagIndex} for the user of the account
+	 * @return instance of the <code>IRODSTaggingServiceImpl</code>
+	 */
+	public static IRODSTaggingService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final UserTagIndex userTagIndex) {
+		if (userTagIndex == null) {
+			throw new IllegalArgumentException("null userTagIndex");
+		}
+		return new IRODSTaggingServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, userTagIndex);
 	}
 
 	/**
@@ -82,13 +108,16 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 	 * @param irodsAccount
 	 *            <code>IRODSAccount</code> that describes the target server and
 	 *            credentials.
+	 * @param userTagIndex
+	 *            {@link UserTagIndex} to keep current, or <code>null</code>
 	 * @throws JargonException
 	 */
 	private IRODSTaggingServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
-			final IRODSAccount irodsAccount) {
+			final IRODSAccount irodsAccount, final UserTagIndex userTagIndex) {
 
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.userTagIndex = userTagIndex;
 
 	}
 
@@ -127,6 +156,8 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 			throw new DataNotFoundException(
 					"did not find data object in query", fnf);
 		}
+		updateIndex(true, MetadataDomain.DATA, dataObjectAbsolutePath,
+				irodsTagValue);
 		log.debug("tag added successfully");
 
 	}
@@ -350,6 +381,8 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 		}
 
 		log.debug("tag removed successfully");
+		updateIndex(false, MetadataDomain.DATA, dataObjectAbsolutePath,
+				irodsTagValue);
 
 	}
 
@@ -654,6 +687,8 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 				.getCollectionAO(irodsAccount);
 		collectionAO.addAVUMetadata(collectionAbsolutePath, avuData);
 		log.debug("tag added successfully");
+		updateIndex(true, MetadataDomain.COLLECTION, collectionAbsolutePath,
+				irodsTagValue);
 
 	}
 
@@ -815,6 +850,8 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 				.getCollectionAO(irodsAccount);
 		collectionAO.deleteAVUMetadata(irodsAbsolutePath, avuData);
 		log.debug("tag removed successfully");
+		updateIndex(false, MetadataDomain.COLLECTION, irodsAbsolutePath,
+				irodsTagValue);
 
 	}
 
@@ -971,4 +1008,27 @@ public final class IRODSTaggingServiceImpl extends AbstractIRODSTaggingService
 
 	}
 
+	/**
+	 * Note an added or removed tag in the tag index, if there is one and the
+	 * tag belongs to the user of the index
+	 */
+	private void updateIndex(final boolean added,
+			final MetadataDomain metadataDomain, final String absolutePath,
+			final IRODSTagValue irodsTagValue) {
+
+		if (userTagIndex == null
+				|| !userTagIndex.getUserName().equals(
+						irodsTagValue.getTagUser())) {
+			return;
+		}
+
+		if (added) {
+			userTagIndex.addTag(metadataDomain, absolutePath,
+					irodsTagValue.getTagData());
+		} else {
+			userTagIndex.removeTag(metadataDomain, absolutePath,
+					irodsTagValue.getTagData());
+		}
+	}
+
 }
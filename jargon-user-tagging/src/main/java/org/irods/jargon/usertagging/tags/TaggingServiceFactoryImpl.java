@@ -1,10 +1,19 @@
 package org.irods.jargon.usertagging.tags;
 
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 
 /**
  * Factory for different user tagging service classes.
+ * <p/>
+ * A factory may be created to index user tags, in which case it keeps a
+ * {@link UserTagIndex} for each user on each grid it creates services for, and
+ * gives it to those services, so that tag clouds and tag searches are answered
+ * from the index and tags changed through the services are changed in the
+ * index.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -12,15 +21,39 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 
 	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final boolean indexUserTags;
+	private final File tagIndexSnapshotDirectory;
+	private final ConcurrentHashMap<String, UserTagIndex> userTagIndexes = new ConcurrentHashMap<String, UserTagIndex>();
 
 	public TaggingServiceFactoryImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccessObjectFactory, false, null);
+	}
+
+	/**
+	 * Create a factory that may index user tags
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param indexUserTags
+	 *            <code>boolean</code> that is <code>true</code> if the services
+	 *            created should share a {@link UserTagIndex} for each user
+	 * @param tagIndexSnapshotDirectory
+	 *            <code>File</code> with a directory for snapshots of the
+	 *            indexes, or <code>null</code> to hold them only in memory
+	 */
+	public TaggingServiceFactoryImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final boolean indexUserTags, final File tagIndexSnapshotDirectory) {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
 					"irodsAccessObjectFactory is null");
 		}
 
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.indexUserTags = indexUserTags;
+		this.tagIndexSnapshotDirectory = tagIndexSnapshotDirectory;
 
 	}
 
@@ -41,6 +74,12 @@ public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
 
+		if (indexUserTags) {
+			return FreeTaggingServiceImpl.instanceWithUserTagIndex(
+					irodsAccessObjectFactory, irodsAccount,
+					getUserTagIndex(irodsAccount));
+		}
+
 		return FreeTaggingServiceImpl.instance(irodsAccessObjectFactory,
 				irodsAccount);
 
@@ -63,6 +102,11 @@ public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
 
+		if (indexUserTags) {
+			return IRODSTaggingServiceImpl.instance(irodsAccessObjectFactory,
+					irodsAccount, getUserTagIndex(irodsAccount));
+		}
+
 		return IRODSTaggingServiceImpl.instance(irodsAccessObjectFactory,
 				irodsAccount);
 
@@ -85,11 +129,65 @@ public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
 
+		if (indexUserTags) {
+			return UserTagCloudServiceImpl.instance(irodsAccessObjectFactory,
+					irodsAccount, getUserTagIndex(irodsAccount));
+		}
+
 		return UserTagCloudServiceImpl.instance(irodsAccessObjectFactory,
 				irodsAccount);
 
 	}
 
+	/**
+	 * Get the tag index for the user of the given account, creating it if
+	 * needed
+	 * 
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> of the user
+	 * @return {@link UserTagIndex} for the user, or <code>null</code> if this
+	 *         factory does not index user tags
+	 */
+	public UserTagIndex getUserTagIndex(final IRODSAccount irodsAccount) {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (!indexUserTags) {
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getHost());
+		sb.append('_');
+		sb.append(irodsAccount.getPort());
+		sb.append('_');
+		sb.append(irodsAccount.getZone());
+		sb.append('_');
+		sb.append(irodsAccount.getUserName());
+		String indexKey = sb.toString();
+
+		UserTagIndex userTagIndex = userTagIndexes.get(indexKey);
+		if (userTagIndex != null) {
+			return userTagIndex;
+		}
+
+		if (tagIndexSnapshotDirectory == null) {
+			userTagIndex = UserTagIndex.instance(irodsAccount.getUserName());
+		} else {
+			userTagIndex = UserTagIndex.instanceWithSnapshot(
+					irodsAccount.getUserName(), new File(
+							tagIndexSnapshotDirectory, indexKey.replaceAll(
+									"[^A-Za-z0-9._-]", "_")
+									+ ".tagindex"));
+		}
+
+		UserTagIndex existing = userTagIndexes.putIfAbsent(indexKey,
+				userTagIndex);
+		return existing == null ? userTagIndex : existing;
+	}
+
 	private void checkDependencies() {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
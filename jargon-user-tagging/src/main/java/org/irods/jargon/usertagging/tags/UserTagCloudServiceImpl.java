@@ -12,7 +12,7 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
 import org.irods.jargon.core.query.IRODSGenQuery;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
-import org.irods.jargon.core.query.IRODSQueryResultSetInterface;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.utils.IRODSDataConversionUtil;
@@ -40,6 +40,9 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	public static final String QUOTE_SPACE = "' ";
 	public static final String AND = " AND ";
 	public static final String QUOTE = "'";
+	public static final int TAG_CLOUD_QUERY_PAGE_SIZE = 2000;
+
+	private final UserTagIndex userTagIndex;
 
 	/**
 	 * Static initializer used to create instances of the service.
@@ -56,7 +59,32 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
 		return new UserTagCloudServiceImpl(irodsAccessObjectFactory,
-				irodsAccount);
+				irodsAccount, null);
+	}
+
+	/**
+	 * Static initializer used to create instances of the service that answer
+	 * from the given tag index, refreshing it as it falls due, rather than
+	 * querying iRODS for each tag cloud.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param userTagIndex
+	 *            {@link UserTagIndex} for the user of the account
+	 * @return instance of the <code>UserTagCloudServiceImpl</code>
+	 */
+	public static UserTagCloudService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final UserTagIndex userTagIndex) {
+		if (userTagIndex == null) {
+			throw new IllegalArgumentException("null userTagIndex");
+		}
+		return new UserTagCloudServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, userTagIndex);
 	}
 
 	/**
@@ -69,11 +97,15 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	 * @param irodsAccount
 	 *            <code>IRODSAccount</code> that describes the target server and
 	 *            credentials.
+	 * @param userTagIndex
+	 *            {@link UserTagIndex} to answer from, or <code>null</code> to
+	 *            query iRODS
 	 */
 	private UserTagCloudServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
-			final IRODSAccount irodsAccount) {
+			final IRODSAccount irodsAccount, final UserTagIndex userTagIndex) {
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.userTagIndex = userTagIndex;
 	}
 
 	/*
@@ -144,6 +176,12 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 			throw new IllegalArgumentException("null searchTagName");
 		}
 
+		if (userTagIndex != null) {
+			userTagIndex.refreshIfStale(irodsAccessObjectFactory, irodsAccount);
+			return userTagIndex
+					.buildTagCloudEntriesForCollections(searchTagName);
+		}
+
 		// create a GenQuery to get the cloud info
 		StringBuilder sb = new StringBuilder();
 		sb.append("SELECT COUNT(");
@@ -174,23 +212,18 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 		String cloudQuery = sb.toString();
 		log.debug("cloud tag query:{}", cloudQuery);
 
-		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery, 2000);
+		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery,
+				TAG_CLOUD_QUERY_PAGE_SIZE);
 		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
 				.getIRODSGenQueryExecutor(irodsAccount);
-		IRODSQueryResultSetInterface resultSet;
-
-		try {
-			resultSet = irodsGenQueryExecutor.executeIRODSQuery(irodsQuery, 0);
-		} catch (JargonQueryException e) {
-			log.error("irods query error", e);
-			throw new JargonException(e);
-		}
+		List<IRODSQueryResultRow> resultRows = queryAllPages(
+				irodsGenQueryExecutor, irodsQuery);
 
 		List<TagCloudEntry> tagCloudEntries = new ArrayList<TagCloudEntry>();
 
 		IRODSTagValue irodsTagValue;
 
-		for (IRODSQueryResultRow resultRow : resultSet.getResults()) {
+		for (IRODSQueryResultRow resultRow : resultRows) {
 			log.debug("count coll:{}", resultRow.getColumn(0));
 			log.debug("tag name:{}", resultRow.getColumn(1));
 			irodsTagValue = new IRODSTagValue(resultRow.getColumn(1),
@@ -223,6 +256,11 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 		log.info("buildTagCloudEntryListForDataObjects, user={}",
 				irodsAccount.getUserName());
 
+		if (userTagIndex != null) {
+			userTagIndex.refreshIfStale(irodsAccessObjectFactory, irodsAccount);
+			return userTagIndex.buildTagCloudEntriesForDataObjects(searchTagName);
+		}
+
 		// create a GenQuery to get the cloud info
 		StringBuilder sb = new StringBuilder();
 		sb.append("SELECT COUNT(");
@@ -257,22 +295,17 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 		String cloudQuery = sb.toString();
 		log.debug("cloud tag query:{}", cloudQuery);
 
-		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery, 2000);
+		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery,
+				TAG_CLOUD_QUERY_PAGE_SIZE);
 		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
 				.getIRODSGenQueryExecutor(irodsAccount);
-		IRODSQueryResultSetInterface resultSet;
-
-		try {
-			resultSet = irodsGenQueryExecutor.executeIRODSQuery(irodsQuery, 0);
-		} catch (JargonQueryException e) {
-			log.error("irods query error", e);
-			throw new JargonException(e);
-		}
+		List<IRODSQueryResultRow> resultRows = queryAllPages(
+				irodsGenQueryExecutor, irodsQuery);
 
 		List<TagCloudEntry> tagCloudEntries = new ArrayList<TagCloudEntry>();
 		IRODSTagValue irodsTagValue;
 
-		for (IRODSQueryResultRow resultRow : resultSet.getResults()) {
+		for (IRODSQueryResultRow resultRow : resultRows) {
 			log.debug("count data:{}", resultRow.getColumn(0));
 			log.debug("count coll:{}", resultRow.getColumn(1));
 			log.debug("tag name:{}", resultRow.getColumn(2));
@@ -289,6 +322,36 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 
 	}
 
+	/**
+	 * Run a tag cloud query, following the result a page at a time so that a
+	 * user with many tags gets all of them
+	 * 
+	 * @return <code>List</code> of {@link IRODSQueryResultRow} from every page
+	 * @throws JargonException
+	 */
+	private List<IRODSQueryResultRow> queryAllPages(
+			final IRODSGenQueryExecutor irodsGenQueryExecutor,
+			final IRODSGenQuery irodsQuery) throws JargonException {
+
+		List<IRODSQueryResultRow> resultRows = new ArrayList<IRODSQueryResultRow>();
+
+		try {
+			IRODSQueryResultSet resultSet = irodsGenQueryExecutor
+					.executeIRODSQuery(irodsQuery, 0);
+			resultRows.addAll(resultSet.getResults());
+
+			while (resultSet.isHasMoreRecords()) {
+				resultSet = irodsGenQueryExecutor.getMoreResults(resultSet);
+				resultRows.addAll(resultSet.getResults());
+			}
+		} catch (JargonQueryException e) {
+			log.error("irods query error", e);
+			throw new JargonException(e);
+		}
+
+		return resultRows;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,834 @@
+package org.irods.jargon.usertagging.tags;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.usertagging.domain.IRODSTagValue;
+import org.irods.jargon.usertagging.domain.TagCloudEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the tags of one user, held in memory, so that a tag cloud or a
+ * search of tag names is answered without a query to the catalog. For each
+ * tag the index holds the collections and data objects that carry it.
+ * <p/>
+ * The index is built with paged GenQueries over the tag AVUs of the user, and
+ * is kept current by the tagging services given the index, which add and
+ * remove tags in the index as they add and remove them in iRODS. Tags added by
+ * other clients are picked up by a refresh that queries for tag AVUs modified
+ * since the last query, at most once per refresh interval. iRODS shares one
+ * AVU between all the objects that carry it, so a tag added elsewhere to one
+ * more object, or removed elsewhere, is only seen when the index is rebuilt,
+ * once per rebuild interval.
+ * <p/>
+ * If a snapshot file is given, the index is saved there after each build and
+ * refresh, and a new index starts from the snapshot and a refresh rather than
+ * a full build.
+ * <p/>
+ * The index is thread safe, and is meant to be shared by the tagging services
+ * for the user, such as by a {@link TaggingServiceFactoryImpl}.
+ */
+public class UserTagIndex {
+
+	public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 60 * 1000;
+	public static final long DEFAULT_REBUILD_INTERVAL_MILLIS = 60 * 60 * 1000;
+	public static final int INDEX_QUERY_PAGE_SIZE = 5000;
+
+	/**
+	 * Refreshes look back this far before the last query, so that a tag is not
+	 * missed when the clocks of the client and the iCAT differ
+	 */
+	public static final long REFRESH_OVERLAP_MILLIS = 5 * 60 * 1000;
+
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final byte SNAPSHOT_COLLECTION = 'C';
+	private static final byte SNAPSHOT_DATA = 'D';
+
+	private static final Logger log = LoggerFactory
+			.getLogger(UserTagIndex.class);
+
+	private final String userName;
+	private final File snapshotFile;
+	private final Object refreshLock = new Object();
+
+	private TreeMap<String, TagPostings> postingsByTag = new TreeMap<String, TagPostings>();
+	private List<TagChange> changesDuringRebuild = null;
+	private boolean snapshotChecked = false;
+	private long lastRefreshMillis = 0L;
+	private long lastRebuildMillis = 0L;
+	private long refreshIntervalMillis = DEFAULT_REFRESH_INTERVAL_MILLIS;
+	private long rebuildIntervalMillis = DEFAULT_REBUILD_INTERVAL_MILLIS;
+
+	/**
+	 * Create an index of the tags of the given user, held only in memory
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user whose tags are indexed
+	 * @return {@link UserTagIndex}
+	 */
+	public static UserTagIndex instance(final String userName) {
+		return new UserTagIndex(userName, null);
+	}
+
+	/**
+	 * Create an index of the tags of the given user, saved to the given
+	 * snapshot file
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user whose tags are indexed
+	 * @param snapshotFile
+	 *            <code>File</code> for the snapshot, which need not exist
+	 *            yet, in a directory that will be created if needed
+	 * @return {@link UserTagIndex}
+	 */
+	public static UserTagIndex instanceWithSnapshot(final String userName,
+			final File snapshotFile) {
+		if (snapshotFile == null) {
+			throw new IllegalArgumentException("null snapshotFile");
+		}
+		return new UserTagIndex(userName, snapshotFile);
+	}
+
+	private UserTagIndex(final String userName, final File snapshotFile) {
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+		this.userName = userName;
+		this.snapshotFile = snapshotFile;
+	}
+
+	/**
+	 * Bring the index up to date if it is due: build it if it was never built
+	 * or the rebuild interval has passed, otherwise refresh it if the refresh
+	 * interval has passed. A caller that finds another caller already doing so
+	 * waits for it rather than querying again.
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} used to query iRODS
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the user whose tags are indexed
+	 * @throws JargonException
+	 */
+	public void refreshIfStale(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) throws JargonException {
+
+		checkAccount(irodsAccessObjectFactory, irodsAccount);
+
+		synchronized (refreshLock) {
+			if (!snapshotChecked) {
+				snapshotChecked = true;
+				loadSnapshot();
+			}
+
+			long now = System.currentTimeMillis();
+			long lastRebuild;
+			long lastRefresh;
+			boolean rebuildDue;
+			boolean refreshDue;
+			synchronized (this) {
+				lastRebuild = lastRebuildMillis;
+				lastRefresh = lastRefreshMillis;
+				rebuildDue = lastRebuild == 0L
+						|| now - lastRebuild >= rebuildIntervalMillis;
+				refreshDue = now - lastRefresh >= refreshIntervalMillis;
+			}
+
+			if (rebuildDue) {
+				rebuildUnderRefreshLock(irodsAccessObjectFactory, irodsAccount);
+			} else if (refreshDue) {
+				refreshUnderRefreshLock(irodsAccessObjectFactory, irodsAccount,
+						lastRefresh);
+			}
+		}
+	}
+
+	/**
+	 * Build the index anew from iRODS, whether or not it is due
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} used to query iRODS
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the user whose tags are indexed
+	 * @throws JargonException
+	 */
+	public void rebuild(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) throws JargonException {
+
+		checkAccount(irodsAccessObjectFactory, irodsAccount);
+
+		synchronized (refreshLock) {
+			snapshotChecked = true;
+			rebuildUnderRefreshLock(irodsAccessObjectFactory, irodsAccount);
+		}
+	}
+
+	private void rebuildUnderRefreshLock(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) throws JargonException {
+
+		log.info("rebuilding tag index for user:{}", userName);
+		long queryStart = System.currentTimeMillis();
+		List<TagChange> queriedTags = new ArrayList<TagChange>();
+
+		synchronized (this) {
+			changesDuringRebuild = new ArrayList<TagChange>();
+		}
+
+		boolean queried = false;
+		try {
+			queryTags(irodsAccessObjectFactory, irodsAccount, null, queriedTags);
+			queried = true;
+		} finally {
+			synchronized (this) {
+				if (queried) {
+					TreeMap<String, TagPostings> rebuilt = new TreeMap<String, TagPostings>();
+					for (TagChange queriedTag : queriedTags) {
+						queriedTag.applyTo(rebuilt);
+					}
+
+					// replay changes made by the tagging services while querying
+					for (TagChange change : changesDuringRebuild) {
+						change.applyTo(rebuilt);
+					}
+
+					postingsByTag = rebuilt;
+					lastRebuildMillis = queryStart;
+					lastRefreshMillis = queryStart;
+				}
+				changesDuringRebuild = null;
+			}
+		}
+
+		log.info("tag index rebuilt with {} tags", getTagCount());
+		saveSnapshot();
+	}
+
+	private void refreshUnderRefreshLock(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final long lastRefresh)
+			throws JargonException {
+
+		log.info("refreshing tag index for user:{}", userName);
+		long queryStart = System.currentTimeMillis();
+
+		// iRODS keeps times as zero padded seconds, so they compare as strings
+		String since = String.format("%011d",
+				Math.max(0L, lastRefresh - REFRESH_OVERLAP_MILLIS) / 1000);
+		List<TagChange> queriedTags = new ArrayList<TagChange>();
+		queryTags(irodsAccessObjectFactory, irodsAccount, since, queriedTags);
+
+		synchronized (this) {
+			for (TagChange queriedTag : queriedTags) {
+				queriedTag.applyTo(postingsByTag);
+			}
+			lastRefreshMillis = queryStart;
+		}
+
+		log.info("tag index refreshed with {} tags modified since:{}",
+				queriedTags.size(), since);
+		saveSnapshot();
+	}
+
+	/**
+	 * Query the tag AVUs of the user on collections and then data objects, a
+	 * page at a time, optionally only those modified since the given time
+	 */
+	private void queryTags(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final String modifiedSince,
+			final List<TagChange> queriedTags) throws JargonException {
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
+				.getIRODSGenQueryExecutor(irodsAccount);
+
+		try {
+			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+			builder.addSelectAsGenQueryValue(
+					RodsGenQueryEnum.COL_META_COLL_ATTR_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS,
+							QueryConditionOperators.EQUAL,
+							UserTaggingConstants.TAG_AVU_UNIT)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_META_COLL_ATTR_VALUE,
+							QueryConditionOperators.EQUAL, userName);
+			if (modifiedSince != null) {
+				builder.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_META_COLL_MODIFY_TIME,
+						QueryConditionOperators.GREATER_THAN_OR_EQUAL_TO,
+						modifiedSince);
+			}
+
+			IRODSQueryResultSet resultSet = irodsGenQueryExecutor
+					.executeIRODSQuery(builder
+							.exportIRODSQueryFromBuilder(INDEX_QUERY_PAGE_SIZE),
+							0);
+			while (true) {
+				for (IRODSQueryResultRow row : resultSet.getResults()) {
+					queriedTags.add(new TagChange(true,
+							MetadataDomain.COLLECTION, row.getColumn(1), row
+									.getColumn(0)));
+				}
+
+				if (!resultSet.isHasMoreRecords()) {
+					break;
+				}
+				resultSet = irodsGenQueryExecutor.getMoreResults(resultSet);
+			}
+
+			builder = new IRODSGenQueryBuilder(true, null);
+			builder.addSelectAsGenQueryValue(
+					RodsGenQueryEnum.COL_META_DATA_ATTR_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS,
+							QueryConditionOperators.EQUAL,
+							UserTaggingConstants.TAG_AVU_UNIT)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE,
+							QueryConditionOperators.EQUAL, userName);
+			if (modifiedSince != null) {
+				builder.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_META_DATA_MODIFY_TIME,
+						QueryConditionOperators.GREATER_THAN_OR_EQUAL_TO,
+						modifiedSince);
+			}
+
+			resultSet = irodsGenQueryExecutor.executeIRODSQuery(
+					builder.exportIRODSQueryFromBuilder(INDEX_QUERY_PAGE_SIZE),
+					0);
+			while (true) {
+				for (IRODSQueryResultRow row : resultSet.getResults()) {
+					queriedTags.add(new TagChange(true, MetadataDomain.DATA,
+							row.getColumn(1) + "/" + row.getColumn(2), row
+									.getColumn(0)));
+				}
+
+				if (!resultSet.isHasMoreRecords()) {
+					break;
+				}
+				resultSet = irodsGenQueryExecutor.getMoreResults(resultSet);
+			}
+
+		} catch (GenQueryBuilderException e) {
+			log.error("error building query for user tags", e);
+			throw new JargonException("error building query for user tags", e);
+		} catch (JargonQueryException e) {
+			log.error("error querying user tags", e);
+			throw new JargonException("error querying user tags", e);
+		}
+	}
+
+	private void checkAccount(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) {
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (!userName.equals(irodsAccount.getUserName())) {
+			throw new IllegalArgumentException(
+					"irodsAccount is not for the user of the index");
+		}
+	}
+
+	/**
+	 * Note a tag added in iRODS by a tagging service
+	 *
+	 * @param metadataDomain
+	 *            {@link MetadataDomain} of the tagged object
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path of the tagged
+	 *            object
+	 * @param tagName
+	 *            <code>String</code> with the tag
+	 */
+	synchronized void addTag(final MetadataDomain metadataDomain,
+			final String absolutePath, final String tagName) {
+		recordChange(new TagChange(true, metadataDomain, absolutePath, tagName));
+	}
+
+	/**
+	 * Note a tag removed in iRODS by a tagging service
+	 *
+	 * @param metadataDomain
+	 *            {@link MetadataDomain} of the tagged object
+	 * @param absolutePath
+	 *            <code>String</code> with the absolute path of the tagged
+	 *            object
+	 * @param tagName
+	 *            <code>String</code> with the tag
+	 */
+	synchronized void removeTag(final MetadataDomain metadataDomain,
+			final String absolutePath, final String tagName) {
+		recordChange(new TagChange(false, metadataDomain, absolutePath,
+				tagName));
+	}
+
+	private void recordChange(final TagChange change) {
+		change.applyTo(postingsByTag);
+		if (changesDuringRebuild != null) {
+			changesDuringRebuild.add(change);
+		}
+	}
+
+	/**
+	 * Build the tag cloud entries for data objects, with the count of data
+	 * objects carrying each tag
+	 *
+	 * @param searchTerm
+	 *            <code>String</code> that a tag must contain to be included,
+	 *            or blank for every tag
+	 * @return <code>List</code> of {@link TagCloudEntry} in tag order
+	 * @throws JargonException
+	 */
+	public synchronized List<TagCloudEntry> buildTagCloudEntriesForDataObjects(
+			final String searchTerm) throws JargonException {
+		return buildTagCloudEntries(MetadataDomain.DATA, searchTerm);
+	}
+
+	/**
+	 * Build the tag cloud entries for collections, with the count of
+	 * collections carrying each tag
+	 *
+	 * @param searchTerm
+	 *            <code>String</code> that a tag must contain to be included,
+	 *            or blank for every tag
+	 * @return <code>List</code> of {@link TagCloudEntry} in tag order
+	 * @throws JargonException
+	 */
+	public synchronized List<TagCloudEntry> buildTagCloudEntriesForCollections(
+			final String searchTerm) throws JargonException {
+		return buildTagCloudEntries(MetadataDomain.COLLECTION, searchTerm);
+	}
+
+	private List<TagCloudEntry> buildTagCloudEntries(
+			final MetadataDomain metadataDomain, final String searchTerm)
+			throws JargonException {
+
+		if (searchTerm == null) {
+			throw new IllegalArgumentException("null searchTerm");
+		}
+
+		List<TagCloudEntry> tagCloudEntries = new ArrayList<TagCloudEntry>();
+		for (Map.Entry<String, TagPostings> entry : postingsByTag.entrySet()) {
+			if (!searchTerm.isEmpty() && !entry.getKey().contains(searchTerm)) {
+				continue;
+			}
+
+			int count = entry.getValue().pathsFor(metadataDomain).size();
+			if (count == 0) {
+				continue;
+			}
+
+			IRODSTagValue irodsTagValue = new IRODSTagValue(entry.getKey(),
+					userName);
+			if (metadataDomain == MetadataDomain.DATA) {
+				tagCloudEntries.add(new TagCloudEntry(irodsTagValue, count, 0));
+			} else {
+				tagCloudEntries.add(new TagCloudEntry(irodsTagValue, 0, count));
+			}
+		}
+
+		return tagCloudEntries;
+	}
+
+	/**
+	 * Find the tags that start with the given prefix
+	 *
+	 * @param prefix
+	 *            <code>String</code> with the prefix
+	 * @return <code>List</code> of <code>String</code> with the tags in order
+	 */
+	public synchronized List<String> findTagsStartingWith(final String prefix) {
+		if (prefix == null) {
+			throw new IllegalArgumentException("null prefix");
+		}
+
+		SortedMap<String, TagPostings> matches = postingsByTag.subMap(prefix,
+				prefix + Character.MAX_VALUE);
+		return new ArrayList<String>(matches.keySet());
+	}
+
+	/**
+	 * Find the tags that contain the given term
+	 *
+	 * @param term
+	 *            <code>String</code> with the term
+	 * @return <code>List</code> of <code>String</code> with the tags in order
+	 */
+	public synchronized List<String> findTagsContaining(final String term) {
+		if (term == null) {
+			throw new IllegalArgumentException("null term");
+		}
+
+		List<String> matches = new ArrayList<String>();
+		for (String tag : postingsByTag.keySet()) {
+			if (tag.contains(term)) {
+				matches.add(tag);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Find the objects of the given domain that carry every one of the given
+	 * tags
+	 *
+	 * @param metadataDomain
+	 *            {@link MetadataDomain} of the objects, collections or data
+	 *            objects
+	 * @param tags
+	 *            <code>String[]</code> with the tags
+	 * @return <code>Set</code> of <code>String</code> with the absolute
+	 *         paths of the objects
+	 */
+	public synchronized Set<String> findPathsWithAllTags(
+			final MetadataDomain metadataDomain, final String[] tags) {
+
+		if (metadataDomain == null) {
+			throw new IllegalArgumentException("null metadataDomain");
+		}
+
+		if (tags == null || tags.length == 0) {
+			throw new IllegalArgumentException("null or empty tags");
+		}
+
+		Set<String> paths = null;
+		for (String tag : tags) {
+			TagPostings postings = postingsByTag.get(tag);
+			if (postings == null) {
+				return new HashSet<String>();
+			}
+
+			if (paths == null) {
+				paths = new HashSet<String>(postings.pathsFor(metadataDomain));
+			} else {
+				paths.retainAll(postings.pathsFor(metadataDomain));
+			}
+
+			if (paths.isEmpty()) {
+				break;
+			}
+		}
+		return paths;
+	}
+
+	/**
+	 * Load the index from the snapshot file, if there is one
+	 *
+	 * @return <code>boolean</code> that is <code>true</code> if the index was
+	 *         loaded
+	 */
+	boolean loadSnapshot() {
+		if (snapshotFile == null || !snapshotFile.isFile()) {
+			return false;
+		}
+
+		log.info("loading tag index snapshot:{}", snapshotFile);
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(snapshotFile)));
+			if (in.readInt() != SNAPSHOT_VERSION
+					|| !userName.equals(in.readUTF())) {
+				log.warn("tag index snapshot not usable, ignored:{}",
+						snapshotFile);
+				return false;
+			}
+
+			long savedRebuildMillis = in.readLong();
+			long savedRefreshMillis = in.readLong();
+			TreeMap<String, TagPostings> loaded = new TreeMap<String, TagPostings>();
+			int tagCount = in.readInt();
+			for (int i = 0; i < tagCount; i++) {
+				String tag = in.readUTF();
+				TagPostings postings = new TagPostings();
+				int pathCount = in.readInt();
+				for (int j = 0; j < pathCount; j++) {
+					byte domain = in.readByte();
+					String path = in.readUTF();
+					if (domain == SNAPSHOT_COLLECTION) {
+						postings.collectionPaths.add(path);
+					} else {
+						postings.dataObjectPaths.add(path);
+					}
+				}
+				loaded.put(tag, postings);
+			}
+
+			synchronized (this) {
+				if (!postingsByTag.isEmpty()) {
+					log.info("index already holds tags, snapshot ignored");
+					return false;
+				}
+				postingsByTag = loaded;
+				lastRebuildMillis = savedRebuildMillis;
+				lastRefreshMillis = savedRefreshMillis;
+			}
+			return true;
+
+		} catch (IOException e) {
+			log.warn("unable to read tag index snapshot, ignored", e);
+			return false;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Save the index to the snapshot file, if there is one, by way of a
+	 * temporary file so that a reader never sees half a snapshot
+	 */
+	void saveSnapshot() {
+		if (snapshotFile == null) {
+			return;
+		}
+
+		File directory = snapshotFile.getAbsoluteFile().getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			log.warn("unable to create tag index snapshot directory:{}",
+					directory);
+			return;
+		}
+
+		File tempFile = new File(directory, snapshotFile.getName() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tempFile)));
+			synchronized (this) {
+				out.writeInt(SNAPSHOT_VERSION);
+				out.writeUTF(userName);
+				out.writeLong(lastRebuildMillis);
+				out.writeLong(lastRefreshMillis);
+				out.writeInt(postingsByTag.size());
+				for (Map.Entry<String, TagPostings> entry : postingsByTag
+						.entrySet()) {
+					TagPostings postings = entry.getValue();
+					out.writeUTF(entry.getKey());
+					out.writeInt(postings.collectionPaths.size()
+							+ postings.dataObjectPaths.size());
+					for (String path : postings.collectionPaths) {
+						out.writeByte(SNAPSHOT_COLLECTION);
+						out.writeUTF(path);
+					}
+					for (String path : postings.dataObjectPaths) {
+						out.writeByte(SNAPSHOT_DATA);
+						out.writeUTF(path);
+					}
+				}
+			}
+			out.close();
+			out = null;
+
+			if (!tempFile.renameTo(snapshotFile)
+					&& !(snapshotFile.delete() && tempFile
+							.renameTo(snapshotFile))) {
+				log.warn("unable to replace tag index snapshot:{}",
+						snapshotFile);
+			}
+		} catch (IOException e) {
+			log.warn("unable to save tag index snapshot", e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * @return <code>String</code> with the user whose tags are indexed
+	 */
+	public String getUserName() {
+		return userName;
+	}
+
+	/**
+	 * @return <code>File</code> with the snapshot, or <code>null</code> if
+	 *         the index is held only in memory
+	 */
+	public File getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of tags in the index
+	 */
+	public synchronized int getTagCount() {
+		return postingsByTag.size();
+	}
+
+	/**
+	 * @return <code>long</code> with the time in millis of the last query of
+	 *         iRODS, or 0 if the index was never built
+	 */
+	public synchronized long getLastRefreshMillis() {
+		return lastRefreshMillis;
+	}
+
+	/**
+	 * @return <code>long</code> with the least time in millis between
+	 *         refreshes
+	 */
+	public synchronized long getRefreshIntervalMillis() {
+		return refreshIntervalMillis;
+	}
+
+	/**
+	 * @param refreshIntervalMillis
+	 *            <code>long</code> with the least time in millis between
+	 *            refreshes
+	 */
+	public synchronized void setRefreshIntervalMillis(
+			final long refreshIntervalMillis) {
+		if (refreshIntervalMillis < 0) {
+			throw new IllegalArgumentException("refreshIntervalMillis < 0");
+		}
+		this.refreshIntervalMillis = refreshIntervalMillis;
+	}
+
+	/**
+	 * @return <code>long</code> with the least time in millis between builds
+	 */
+	public synchronized long getRebuildIntervalMillis() {
+		return rebuildIntervalMillis;
+	}
+
+	/**
+	 * @param rebuildIntervalMillis
+	 *            <code>long</code> with the least time in millis between
+	 *            builds
+	 */
+	public synchronized void setRebuildIntervalMillis(
+			final long rebuildIntervalMillis) {
+		if (rebuildIntervalMillis < 0) {
+			throw new IllegalArgumentException("rebuildIntervalMillis < 0");
+		}
+		this.rebuildIntervalMillis = rebuildIntervalMillis;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("UserTagIndex");
+		sb.append("\n    userName:");
+		sb.append(userName);
+		sb.append("\n    snapshotFile:");
+		sb.append(snapshotFile);
+		sb.append("\n    refreshIntervalMillis:");
+		sb.append(refreshIntervalMillis);
+		sb.append("\n    rebuildIntervalMillis:");
+		sb.append(rebuildIntervalMillis);
+		return sb.toString();
+	}
+
+	/**
+	 * The collections and data objects that carry one tag
+	 */
+	private static final class TagPostings {
+		private final Set<String> collectionPaths = new HashSet<String>();
+		private final Set<String> dataObjectPaths = new HashSet<String>();
+
+		Set<String> pathsFor(final MetadataDomain metadataDomain) {
+			return metadataDomain == MetadataDomain.COLLECTION ? collectionPaths
+					: dataObjectPaths;
+		}
+
+		boolean isEmpty() {
+			return collectionPaths.isEmpty() && dataObjectPaths.isEmpty();
+		}
+	}
+
+	/**
+	 * A tag added to or removed from one object
+	 */
+	private static final class TagChange {
+		private final boolean add;
+		private final MetadataDomain metadataDomain;
+		private final String absolutePath;
+		private final String tagName;
+
+		TagChange(final boolean add, final MetadataDomain metadataDomain,
+				final String absolutePath, final String tagName) {
+			if (metadataDomain == null) {
+				throw new IllegalArgumentException("null metadataDomain");
+			}
+
+			if (absolutePath == null || absolutePath.isEmpty()) {
+				throw new IllegalArgumentException("null or empty absolutePath");
+			}
+
+			if (tagName == null || tagName.isEmpty()) {
+				throw new IllegalArgumentException("null or empty tagName");
+			}
+
+			this.add = add;
+			this.metadataDomain = metadataDomain;
+			this.absolutePath = absolutePath;
+			this.tagName = tagName;
+		}
+
+		void applyTo(final TreeMap<String, TagPostings> postingsByTag) {
+			TagPostings postings = postingsByTag.get(tagName);
+			if (add) {
+				if (postings == null) {
+					postings = new TagPostings();
+					postingsByTag.put(tagName, postings);
+				}
+				postings.pathsFor(metadataDomain).add(absolutePath);
+			} else if (postings != null) {
+				postings.pathsFor(metadataDomain).remove(absolutePath);
+				if (postings.isEmpty()) {
+					postingsByTag.remove(tagName);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+package org.irods.jargon.usertagging.tags;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
+import org.irods.jargon.usertagging.domain.TagCloudEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+public class UserTagIndexTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInstanceNullUser() throws Exception {
+		UserTagIndex.instance(null);
+	}
+
+	@Test
+	public void testAddAndRemoveTags() throws Exception {
+		UserTagIndex userTagIndex = UserTagIndex.instance("test1");
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/home/test1/a.txt",
+				"red");
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/home/test1/b.txt",
+				"red");
+		userTagIndex.addTag(MetadataDomain.COLLECTION, "/zone/home/test1/c",
+				"red");
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/home/test1/a.txt",
+				"blue");
+		Assert.assertEquals(2, userTagIndex.getTagCount());
+
+		userTagIndex.removeTag(MetadataDomain.DATA, "/zone/home/test1/a.txt",
+				"blue");
+		Assert.assertEquals(1, userTagIndex.getTagCount());
+
+		List<TagCloudEntry> dataEntries = userTagIndex
+				.buildTagCloudEntriesForDataObjects("");
+		Assert.assertEquals(1, dataEntries.size());
+		Assert.assertEquals("red", dataEntries.get(0).getIrodsTagValue()
+				.getTagData());
+		Assert.assertEquals(2, dataEntries.get(0).getCountOfFiles());
+
+		List<TagCloudEntry> collectionEntries = userTagIndex
+				.buildTagCloudEntriesForCollections("");
+		Assert.assertEquals(1, collectionEntries.size());
+		Assert.assertEquals(1, collectionEntries.get(0)
+				.getCountOfCollections());
+	}
+
+	@Test
+	public void testFindTags() throws Exception {
+		UserTagIndex userTagIndex = UserTagIndex.instance("test1");
+		for (String tag : new String[] { "apple", "apricot", "banana",
+				"pineapple" }) {
+			userTagIndex.addTag(MetadataDomain.DATA, "/zone/home/test1/"
+					+ tag, tag);
+		}
+
+		Assert.assertEquals(Arrays.asList("apple", "apricot"),
+				userTagIndex.findTagsStartingWith("ap"));
+		Assert.assertEquals(Arrays.asList("apple", "pineapple"),
+				userTagIndex.findTagsContaining("apple"));
+		Assert.assertEquals(2, userTagIndex
+				.buildTagCloudEntriesForDataObjects("apple").size());
+	}
+
+	@Test
+	public void testFindPathsWithAllTags() throws Exception {
+		UserTagIndex userTagIndex = UserTagIndex.instance("test1");
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/a.txt", "red");
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/a.txt", "round");
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/b.txt", "red");
+
+		Set<String> paths = userTagIndex.findPathsWithAllTags(
+				MetadataDomain.DATA, new String[] { "red", "round" });
+		Assert.assertEquals(1, paths.size());
+		Assert.assertTrue(paths.contains("/zone/a.txt"));
+		Assert.assertTrue(userTagIndex.findPathsWithAllTags(
+				MetadataDomain.COLLECTION, new String[] { "red" }).isEmpty());
+		Assert.assertTrue(userTagIndex.findPathsWithAllTags(
+				MetadataDomain.DATA, new String[] { "red", "square" })
+				.isEmpty());
+	}
+
+	@Test
+	public void testSnapshotRoundTrip() throws Exception {
+		File snapshotFile = new File(temporaryFolder.getRoot(),
+				"snapshots/test1.tagindex");
+		UserTagIndex userTagIndex = UserTagIndex.instanceWithSnapshot(
+				"test1", snapshotFile);
+		userTagIndex.addTag(MetadataDomain.DATA, "/zone/a.txt", "red");
+		userTagIndex.addTag(MetadataDomain.COLLECTION, "/zone/c", "red");
+		userTagIndex.saveSnapshot();
+		Assert.assertTrue("no snapshot saved", snapshotFile.isFile());
+
+		UserTagIndex loaded = UserTagIndex.instanceWithSnapshot("test1",
+				snapshotFile);
+		Assert.assertTrue("snapshot not loaded", loaded.loadSnapshot());
+		Assert.assertEquals(1, loaded.getTagCount());
+		Assert.assertTrue(loaded.findPathsWithAllTags(
+				MetadataDomain.COLLECTION, new String[] { "red" }).contains(
+				"/zone/c"));
+
+		UserTagIndex otherUser = UserTagIndex.instanceWithSnapshot("test2",
+				snapshotFile);
+		Assert.assertFalse("snapshot of another user loaded",
+				otherUser.loadSnapshot());
+	}
+
+	@Test
+	public void testRefreshIfStaleBuildsThenRefreshes() throws Exception {
+		IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247,
+				"test1", "test", "/zone/home/test1", "zone", "");
+		IRODSAccessObjectFactory irodsAccessObjectFactory = Mockito
+				.mock(IRODSAccessObjectFactory.class);
+		IRODSGenQueryExecutor irodsGenQueryExecutor = Mockito
+				.mock(IRODSGenQueryExecutor.class);
+		Mockito.when(
+				irodsAccessObjectFactory.getIRODSGenQueryExecutor(irodsAccount))
+				.thenReturn(irodsGenQueryExecutor);
+
+		IRODSQueryResultSet collectionPage = mockResultSet(false,
+				Arrays.asList("red", "/zone/home/test1/c"));
+		IRODSQueryResultSet dataFirstPage = mockResultSet(true,
+				Arrays.asList("red", "/zone/home/test1", "a.txt"));
+		IRODSQueryResultSet dataSecondPage = mockResultSet(false,
+				Arrays.asList("blue", "/zone/home/test1", "b.txt"));
+		IRODSQueryResultSet emptyPage = mockResultSet(false);
+		IRODSQueryResultSet modifiedPage = mockResultSet(false,
+				Arrays.asList("green", "/zone/home/test1", "d.txt"));
+		Mockito.when(
+				irodsGenQueryExecutor.executeIRODSQuery(
+						Matchers.any(AbstractIRODSGenQuery.class),
+						Matchers.eq(0))).thenReturn(collectionPage,
+				dataFirstPage, emptyPage, modifiedPage);
+		Mockito.when(irodsGenQueryExecutor.getMoreResults(dataFirstPage))
+				.thenReturn(dataSecondPage);
+
+		UserTagIndex userTagIndex = UserTagIndex.instance("test1");
+		userTagIndex.refreshIfStale(irodsAccessObjectFactory, irodsAccount);
+		Assert.assertEquals(2, userTagIndex.getTagCount());
+		Assert.assertTrue(userTagIndex.getLastRefreshMillis() > 0);
+		Assert.assertTrue(userTagIndex.findPathsWithAllTags(
+				MetadataDomain.DATA, new String[] { "blue" }).contains(
+				"/zone/home/test1/b.txt"));
+
+		// not yet due, so no query
+		userTagIndex.refreshIfStale(irodsAccessObjectFactory, irodsAccount);
+		Mockito.verify(irodsGenQueryExecutor, Mockito.times(2))
+				.executeIRODSQuery(Matchers.any(AbstractIRODSGenQuery.class),
+						Matchers.eq(0));
+
+		// due for a refresh, which adds to what is held
+		userTagIndex.setRefreshIntervalMillis(0L);
+		userTagIndex.refreshIfStale(irodsAccessObjectFactory, irodsAccount);
+		Assert.assertEquals(3, userTagIndex.getTagCount());
+		Assert.assertTrue(userTagIndex.findPathsWithAllTags(
+				MetadataDomain.COLLECTION, new String[] { "red" }).contains(
+				"/zone/home/test1/c"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRefreshIfStaleOtherUser() throws Exception {
+		IRODSAccount irodsAccount = IRODSAccount.instance("host", 1247,
+				"test2", "test", "/zone/home/test2", "zone", "");
+		UserTagIndex.instance("test1").refreshIfStale(
+				Mockito.mock(IRODSAccessObjectFactory.class), irodsAccount);
+	}
+
+	private IRODSQueryResultSet mockResultSet(final boolean hasMoreRecords,
+			final List<String>... rows) throws Exception {
+		List<IRODSQueryResultRow> results = new ArrayList<IRODSQueryResultRow>();
+		for (List<String> row : rows) {
+			List<String> columnNames = new ArrayList<String>();
+			for (int i = 0; i < row.size(); i++) {
+				columnNames.add("col" + i);
+			}
+			results.add(IRODSQueryResultRow.instance(row, columnNames));
+		}
+
+		IRODSQueryResultSet resultSet = Mockito.mock(IRODSQueryResultSet.class);
+		Mockito.when(resultSet.getResults()).thenReturn(results);
+		Mockito.when(resultSet.isHasMoreRecords()).thenReturn(hasMoreRecords);
+		return resultSet;
+	}
+
+}